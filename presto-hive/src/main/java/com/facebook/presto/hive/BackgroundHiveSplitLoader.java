@@ -28,6 +28,8 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
@@ -57,12 +59,14 @@ import java.util.Arrays;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Executor;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.IntPredicate;
+import java.util.function.Supplier;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_BAD_DATA;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
@@ -95,6 +99,7 @@ public class BackgroundHiveSplitLoader
 
     private final Table table;
     private final TupleDomain<? extends ColumnHandle> compactEffectivePredicate;
+    private final Supplier<TupleDomain<ColumnHandle>> dynamicFilter;
     private final Optional<BucketSplitInfo> tableBucketInfo;
     private final HdfsEnvironment hdfsEnvironment;
     private final HdfsContext hdfsContext;
@@ -131,6 +136,7 @@ public class BackgroundHiveSplitLoader
             Table table,
             Iterable<HivePartitionMetadata> partitions,
             TupleDomain<? extends ColumnHandle> compactEffectivePredicate,
+            Supplier<TupleDomain<ColumnHandle>> dynamicFilter,
             Optional<BucketSplitInfo> tableBucketInfo,
             ConnectorSession session,
             HdfsEnvironment hdfsEnvironment,
@@ -142,6 +148,7 @@ public class BackgroundHiveSplitLoader
     {
         this.table = table;
         this.compactEffectivePredicate = compactEffectivePredicate;
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         this.tableBucketInfo = tableBucketInfo;
         this.loaderConcurrency = loaderConcurrency;
         this.session = session;
@@ -253,6 +260,10 @@ public class BackgroundHiveSplitLoader
             if (partition == null) {
                 return COMPLETED_FUTURE;
             }
+            if (!matchesDynamicFilter(partition.getHivePartition())) {
+                // none of the files of the partition can produce rows joining with the build side
+                return COMPLETED_FUTURE;
+            }
             return loadPartition(partition);
         }
 
@@ -268,6 +279,22 @@ public class BackgroundHiveSplitLoader
         return COMPLETED_FUTURE;
     }
 
+    private boolean matchesDynamicFilter(HivePartition partition)
+    {
+        // the dynamic filter is narrowed while the query runs, so it is checked as late as possible
+        Optional<Map<ColumnHandle, Domain>> domains = dynamicFilter.get().getDomains();
+        if (!domains.isPresent()) {
+            return false;
+        }
+        for (Map.Entry<ColumnHandle, NullableValue> entry : partition.getKeys().entrySet()) {
+            Domain domain = domains.get().get(entry.getKey());
+            if (domain != null && !domain.includesNullableValue(entry.getValue().getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private ListenableFuture<?> loadPartition(HivePartitionMetadata partition)
             throws IOException
     {
@@ -29,6 +29,10 @@ public class FileFormatDataSourceStats
     private final TimeStat time100KBto1MB = new TimeStat(MILLISECONDS);
     private final TimeStat time1MBto10MB = new TimeStat(MILLISECONDS);
     private final TimeStat time10MBPlus = new TimeStat(MILLISECONDS);
+    private final TimeStat orcPrefetchReadTime = new TimeStat(MILLISECONDS);
+    private final TimeStat orcPrefetchWaitTime = new TimeStat(MILLISECONDS);
+    private final TimeStat orcReadTime = new TimeStat(MILLISECONDS);
+    private final TimeStat orcDecodeTime = new TimeStat(MILLISECONDS);
 
     @Managed
     @Nested
@@ -72,6 +76,34 @@ public class FileFormatDataSourceStats
         return time10MBPlus;
     }
 
+    @Managed
+    @Nested
+    public TimeStat getOrcPrefetchReadTime()
+    {
+        return orcPrefetchReadTime;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getOrcPrefetchWaitTime()
+    {
+        return orcPrefetchWaitTime;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getOrcReadTime()
+    {
+        return orcReadTime;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getOrcDecodeTime()
+    {
+        return orcDecodeTime;
+    }
+
     public void readDataBytesPerSecond(long bytes, long nanos)
     {
         readBytes.add(bytes);
@@ -93,4 +125,23 @@ public class FileFormatDataSourceStats
     {
         maxCombinedBytesPerRow.add(bytes);
     }
+
+    public void addOrcPrefetchReadTime(long nanos)
+    {
+        orcPrefetchReadTime.add(nanos, NANOSECONDS);
+    }
+
+    public void addOrcPrefetchWaitTime(long nanos)
+    {
+        orcPrefetchWaitTime.add(nanos, NANOSECONDS);
+    }
+
+    /**
+     * Records the time a split spent waiting for reads, and the rest of the time spent in the reader.
+     */
+    public void addOrcSplitTime(long readNanos, long decodeNanos)
+    {
+        orcReadTime.add(readNanos, NANOSECONDS);
+        orcDecodeTime.add(decodeNanos, NANOSECONDS);
+    }
 }
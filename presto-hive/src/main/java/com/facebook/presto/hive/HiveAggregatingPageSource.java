@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Computes the aggregated columns of a split from the rows of the split, for
+ * files without usable statistics.
+ */
+public class HiveAggregatingPageSource
+        implements ConnectorPageSource
+{
+    private final ConnectorPageSource delegate;
+    private final HiveSplitAggregator aggregator;
+    // channel of the argument in the pages of the delegate for each aggregated column, or -1 for the row count
+    private final int[] argumentChannels;
+
+    private boolean finished;
+
+    public HiveAggregatingPageSource(ConnectorPageSource delegate, HiveSplitAggregator aggregator, int[] argumentChannels)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.aggregator = requireNonNull(aggregator, "aggregator is null");
+        this.argumentChannels = requireNonNull(argumentChannels, "argumentChannels is null").clone();
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return delegate.getCompletedBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return delegate.getReadTimeNanos();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (finished) {
+            return null;
+        }
+
+        if (!delegate.isFinished()) {
+            Page page = delegate.getNextPage();
+            if (page != null) {
+                aggregator.addRows(page.getPositionCount());
+                for (int column = 0; column < argumentChannels.length; column++) {
+                    if (argumentChannels[column] >= 0) {
+                        aggregator.addValues(column, page.getBlock(argumentChannels[column]));
+                    }
+                }
+            }
+            return null;
+        }
+
+        finished = true;
+        return aggregator.buildPage();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return delegate.getSystemMemoryUsage();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        delegate.close();
+    }
+
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        return delegate.isBlocked();
+    }
+}
@@ -101,11 +101,17 @@ public class HiveClientConfig
     private DataSize textMaxLineLength = new DataSize(100, MEGABYTE);
 
     private boolean useParquetColumnNames;
+    private boolean parquetPageSkippingEnabled = true;
+    private DataSize parquetMaxReadSize = new DataSize(1, MEGABYTE);
 
     private boolean assumeCanonicalPartitionKeys;
 
     private boolean useOrcColumnNames;
     private boolean orcBloomFiltersEnabled;
+    private boolean orcSelectiveReaderEnabled;
+    private boolean orcPrefetchEnabled;
+    private int orcPrefetchMaxConcurrentReads = 4;
+    private DataSize orcPrefetchMaxBufferSize = new DataSize(64, MEGABYTE);
     private double orcDefaultBloomFilterFpp = 0.05;
     private DataSize orcMaxMergeDistance = new DataSize(1, MEGABYTE);
     private DataSize orcMaxBufferSize = new DataSize(8, MEGABYTE);
@@ -779,6 +785,60 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isOrcSelectiveReaderEnabled()
+    {
+        return orcSelectiveReaderEnabled;
+    }
+
+    @Config("hive.orc.selective-reader.enabled")
+    @ConfigDescription("Evaluate simple predicates on ORC columns while reading, and skip the values of the other columns for the filtered out rows")
+    public HiveClientConfig setOrcSelectiveReaderEnabled(boolean orcSelectiveReaderEnabled)
+    {
+        this.orcSelectiveReaderEnabled = orcSelectiveReaderEnabled;
+        return this;
+    }
+
+    public boolean isOrcPrefetchEnabled()
+    {
+        return orcPrefetchEnabled;
+    }
+
+    @Config("hive.orc.prefetch.enabled")
+    @ConfigDescription("Read the streams of the next ORC stripe in the background while the current stripe is decoded")
+    public HiveClientConfig setOrcPrefetchEnabled(boolean orcPrefetchEnabled)
+    {
+        this.orcPrefetchEnabled = orcPrefetchEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getOrcPrefetchMaxConcurrentReads()
+    {
+        return orcPrefetchMaxConcurrentReads;
+    }
+
+    @Config("hive.orc.prefetch.max-concurrent-reads")
+    @ConfigDescription("Maximum number of background reads of an ORC split")
+    public HiveClientConfig setOrcPrefetchMaxConcurrentReads(int orcPrefetchMaxConcurrentReads)
+    {
+        this.orcPrefetchMaxConcurrentReads = orcPrefetchMaxConcurrentReads;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getOrcPrefetchMaxBufferSize()
+    {
+        return orcPrefetchMaxBufferSize;
+    }
+
+    @Config("hive.orc.prefetch.max-buffer-size")
+    @ConfigDescription("Maximum size of the data read in the background for an ORC split")
+    public HiveClientConfig setOrcPrefetchMaxBufferSize(DataSize orcPrefetchMaxBufferSize)
+    {
+        this.orcPrefetchMaxBufferSize = orcPrefetchMaxBufferSize;
+        return this;
+    }
+
     public double getOrcDefaultBloomFilterFpp()
     {
         return orcDefaultBloomFilterFpp;
@@ -903,6 +963,33 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isParquetPageSkippingEnabled()
+    {
+        return parquetPageSkippingEnabled;
+    }
+
+    @Config("hive.parquet.page-skipping.enabled")
+    @ConfigDescription("Skip Parquet pages of predicate columns using the statistics in their headers, and the same rows in other columns")
+    public HiveClientConfig setParquetPageSkippingEnabled(boolean parquetPageSkippingEnabled)
+    {
+        this.parquetPageSkippingEnabled = parquetPageSkippingEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getParquetMaxReadSize()
+    {
+        return parquetMaxReadSize;
+    }
+
+    @Config("hive.parquet.max-read-size")
+    @ConfigDescription("Size of the pieces in which Parquet column chunks are read")
+    public HiveClientConfig setParquetMaxReadSize(DataSize parquetMaxReadSize)
+    {
+        this.parquetMaxReadSize = parquetMaxReadSize;
+        return this;
+    }
+
     public boolean isOptimizeMismatchedBucketCount()
     {
         return optimizeMismatchedBucketCount;
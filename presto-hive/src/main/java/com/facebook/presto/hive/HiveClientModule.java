@@ -18,6 +18,12 @@ import com.facebook.presto.hive.orc.DwrfPageSourceFactory;
 import com.facebook.presto.hive.orc.OrcPageSourceFactory;
 import com.facebook.presto.hive.parquet.ParquetPageSourceFactory;
 import com.facebook.presto.hive.rcfile.RcFilePageSourceFactory;
+import com.facebook.presto.orc.cache.CachingOrcFileTailSource;
+import com.facebook.presto.orc.cache.CachingStripeMetadataSource;
+import com.facebook.presto.orc.cache.OrcFileTailSource;
+import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
+import com.facebook.presto.orc.cache.StorageStripeMetadataSource;
+import com.facebook.presto.orc.cache.StripeMetadataSource;
 import com.facebook.presto.spi.connector.ConnectorNodePartitioningProvider;
 import com.facebook.presto.spi.connector.ConnectorPageSinkProvider;
 import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
@@ -98,6 +104,10 @@ public class HiveClientModule
         binder.bind(FileFormatDataSourceStats.class).in(Scopes.SINGLETON);
         newExporter(binder).export(FileFormatDataSourceStats.class).as(generatedNameOf(FileFormatDataSourceStats.class, connectorId));
 
+        configBinder(binder).bindConfig(OrcCacheConfig.class);
+        newExporter(binder).export(OrcFileTailSource.class).as(generatedNameOf(OrcFileTailSource.class, connectorId));
+        newExporter(binder).export(StripeMetadataSource.class).as(generatedNameOf(StripeMetadataSource.class, connectorId));
+
         Multibinder<HivePageSourceFactory> pageSourceFactoryBinder = newSetBinder(binder, HivePageSourceFactory.class);
         pageSourceFactoryBinder.addBinding().to(OrcPageSourceFactory.class).in(Scopes.SINGLETON);
         pageSourceFactoryBinder.addBinding().to(DwrfPageSourceFactory.class).in(Scopes.SINGLETON);
@@ -110,6 +120,7 @@ public class HiveClientModule
         configBinder(binder).bindConfig(OrcFileWriterConfig.class);
         fileWriterFactoryBinder.addBinding().to(OrcFileWriterFactory.class).in(Scopes.SINGLETON);
         fileWriterFactoryBinder.addBinding().to(RcFileFileWriterFactory.class).in(Scopes.SINGLETON);
+        fileWriterFactoryBinder.addBinding().to(ParquetFileWriterFactory.class).in(Scopes.SINGLETON);
 
         configBinder(binder).bindConfig(ParquetFileWriterConfig.class);
     }
@@ -132,6 +143,35 @@ public class HiveClientModule
                 daemonThreadsNamed("hive-metastore-" + hiveClientId + "-%s"));
     }
 
+    @Singleton
+    @Provides
+    public OrcFileTailSource createOrcFileTailSource(OrcCacheConfig orcCacheConfig)
+    {
+        OrcFileTailSource orcFileTailSource = new StorageOrcFileTailSource();
+        if (orcCacheConfig.isFileTailCacheEnabled()) {
+            orcFileTailSource = new CachingOrcFileTailSource(
+                    orcFileTailSource,
+                    orcCacheConfig.getFileTailCacheSize(),
+                    orcCacheConfig.getFileTailCacheTtlSinceLastAccess());
+        }
+        return orcFileTailSource;
+    }
+
+    @Singleton
+    @Provides
+    public StripeMetadataSource createStripeMetadataSource(OrcCacheConfig orcCacheConfig)
+    {
+        StripeMetadataSource stripeMetadataSource = new StorageStripeMetadataSource();
+        if (orcCacheConfig.isStripeMetadataCacheEnabled()) {
+            stripeMetadataSource = new CachingStripeMetadataSource(
+                    stripeMetadataSource,
+                    orcCacheConfig.getStripeFooterCacheSize(),
+                    orcCacheConfig.getRowGroupIndexCacheSize(),
+                    orcCacheConfig.getStripeMetadataCacheTtlSinceLastAccess());
+        }
+        return stripeMetadataSource;
+    }
+
     @Singleton
     @Provides
     public Function<HiveTransactionHandle, SemiTransactionalHiveMetastore> createMetastoreGetter(HiveTransactionManager transactionManager)
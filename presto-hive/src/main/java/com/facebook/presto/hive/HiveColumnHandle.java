@@ -15,6 +15,7 @@ package com.facebook.presto.hive;
 
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.SplitAggregationType;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.spi.type.TypeSignature;
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -23,6 +24,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.Objects;
 import java.util.Optional;
 
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.AGGREGATED;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.PARTITION_KEY;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.SYNTHESIZED;
 import static com.facebook.presto.hive.HiveType.HIVE_INT;
@@ -45,6 +47,8 @@ public class HiveColumnHandle
     public static final HiveType BUCKET_HIVE_TYPE = HIVE_INT;
     public static final TypeSignature BUCKET_TYPE_SIGNATURE = BUCKET_HIVE_TYPE.getTypeSignature();
 
+    public static final String ROW_COUNT_COLUMN_NAME = "$row_count";
+
     private static final String UPDATE_ROW_ID_COLUMN_NAME = "$shard_row_id";
 
     public enum ColumnType
@@ -52,6 +56,11 @@ public class HiveColumnHandle
         PARTITION_KEY,
         REGULAR,
         SYNTHESIZED,
+        /**
+         * A value aggregated over all rows of the split. The name, hive type and
+         * index refer to the argument column of the aggregation.
+         */
+        AGGREGATED,
     }
 
     private final String name;
@@ -60,6 +69,18 @@ public class HiveColumnHandle
     private final int hiveColumnIndex;
     private final ColumnType columnType;
     private final Optional<String> comment;
+    private final Optional<SplitAggregationType> aggregationType;
+
+    public HiveColumnHandle(
+            String name,
+            HiveType hiveType,
+            TypeSignature typeSignature,
+            int hiveColumnIndex,
+            ColumnType columnType,
+            Optional<String> comment)
+    {
+        this(name, hiveType, typeSignature, hiveColumnIndex, columnType, comment, Optional.empty());
+    }
 
     @JsonCreator
     public HiveColumnHandle(
@@ -68,15 +89,18 @@ public class HiveColumnHandle
             @JsonProperty("typeSignature") TypeSignature typeSignature,
             @JsonProperty("hiveColumnIndex") int hiveColumnIndex,
             @JsonProperty("columnType") ColumnType columnType,
-            @JsonProperty("comment") Optional<String> comment)
+            @JsonProperty("comment") Optional<String> comment,
+            @JsonProperty("aggregationType") Optional<SplitAggregationType> aggregationType)
     {
         this.name = requireNonNull(name, "name is null");
-        checkArgument(hiveColumnIndex >= 0 || columnType == PARTITION_KEY || columnType == SYNTHESIZED, "hiveColumnIndex is negative");
+        checkArgument(hiveColumnIndex >= 0 || columnType == PARTITION_KEY || columnType == SYNTHESIZED || columnType == AGGREGATED, "hiveColumnIndex is negative");
         this.hiveColumnIndex = hiveColumnIndex;
         this.hiveType = requireNonNull(hiveType, "hiveType is null");
         this.typeName = requireNonNull(typeSignature, "type is null");
         this.columnType = requireNonNull(columnType, "columnType is null");
         this.comment = requireNonNull(comment, "comment is null");
+        this.aggregationType = requireNonNull(aggregationType, "aggregationType is null");
+        checkArgument(aggregationType.isPresent() == (columnType == AGGREGATED), "aggregationType must be present only for aggregated columns");
     }
 
     @JsonProperty
@@ -130,10 +154,16 @@ public class HiveColumnHandle
         return columnType;
     }
 
+    @JsonProperty
+    public Optional<SplitAggregationType> getAggregationType()
+    {
+        return aggregationType;
+    }
+
     @Override
     public int hashCode()
     {
-        return Objects.hash(name, hiveColumnIndex, hiveType, columnType, comment);
+        return Objects.hash(name, hiveColumnIndex, hiveType, columnType, comment, aggregationType);
     }
 
     @Override
@@ -150,12 +180,16 @@ public class HiveColumnHandle
                 Objects.equals(this.hiveColumnIndex, other.hiveColumnIndex) &&
                 Objects.equals(this.hiveType, other.hiveType) &&
                 Objects.equals(this.columnType, other.columnType) &&
-                Objects.equals(this.comment, other.comment);
+                Objects.equals(this.comment, other.comment) &&
+                Objects.equals(this.aggregationType, other.aggregationType);
     }
 
     @Override
     public String toString()
     {
+        if (aggregationType.isPresent()) {
+            return aggregationType.get() + "(" + name + ":" + hiveType + ":" + hiveColumnIndex + ")";
+        }
         return name + ":" + hiveType + ":" + hiveColumnIndex + ":" + columnType;
     }
 
@@ -185,6 +219,19 @@ public class HiveColumnHandle
         return new HiveColumnHandle(BUCKET_COLUMN_NAME, BUCKET_HIVE_TYPE, BUCKET_TYPE_SIGNATURE, BUCKET_COLUMN_INDEX, SYNTHESIZED, Optional.empty());
     }
 
+    /**
+     * The value of the aggregation over the rows of the split, computed for the given
+     * argument column, or over all rows when the argument is absent.
+     */
+    public static HiveColumnHandle aggregatedColumnHandle(SplitAggregationType aggregationType, Optional<HiveColumnHandle> argument, TypeSignature typeSignature)
+    {
+        if (!argument.isPresent()) {
+            return new HiveColumnHandle(ROW_COUNT_COLUMN_NAME, HIVE_LONG, typeSignature, -1, AGGREGATED, Optional.empty(), Optional.of(aggregationType));
+        }
+        HiveColumnHandle column = argument.get();
+        return new HiveColumnHandle(column.getName(), column.getHiveType(), typeSignature, column.getHiveColumnIndex(), AGGREGATED, Optional.empty(), Optional.of(aggregationType));
+    }
+
     public static boolean isPathColumnHandle(HiveColumnHandle column)
     {
         return column.getHiveColumnIndex() == PATH_COLUMN_INDEX;
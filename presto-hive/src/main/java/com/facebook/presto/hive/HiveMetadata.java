@@ -47,6 +47,7 @@ import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.SplitAggregationType;
 import com.facebook.presto.spi.StandardErrorCode;
 import com.facebook.presto.spi.SystemTable;
 import com.facebook.presto.spi.TableNotFoundException;
@@ -116,6 +117,7 @@ import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.PARTITION_KEY
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.SYNTHESIZED;
 import static com.facebook.presto.hive.HiveColumnHandle.PATH_COLUMN_NAME;
+import static com.facebook.presto.hive.HiveColumnHandle.aggregatedColumnHandle;
 import static com.facebook.presto.hive.HiveColumnHandle.updateRowIdHandle;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_COLUMN_ORDER_MISMATCH;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_CONCURRENT_MODIFICATION_DETECTED;
@@ -183,6 +185,11 @@ import static com.facebook.presto.spi.StandardErrorCode.INVALID_TABLE_PROPERTY;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.facebook.presto.spi.StandardErrorCode.SCHEMA_NOT_EMPTY;
 import static com.facebook.presto.spi.predicate.TupleDomain.withColumnDomains;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Verify.verify;
@@ -200,6 +207,7 @@ import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 import static org.apache.hadoop.hive.metastore.TableType.EXTERNAL_TABLE;
 import static org.apache.hadoop.hive.metastore.TableType.MANAGED_TABLE;
+import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category.PRIMITIVE;
 
 public class HiveMetadata
         implements TransactionalMetadata
@@ -1666,6 +1674,45 @@ public class HiveMetadata
         return Domain.onlyNull(type);
     }
 
+    @Override
+    public Optional<ColumnHandle> getSplitAggregationColumnHandle(ConnectorSession session, ConnectorTableLayoutHandle tableLayoutHandle, SplitAggregationType aggregationType, Optional<ColumnHandle> argument)
+    {
+        if (!argument.isPresent()) {
+            if (aggregationType != SplitAggregationType.ROW_COUNT) {
+                return Optional.empty();
+            }
+            return Optional.of(aggregatedColumnHandle(aggregationType, Optional.empty(), BIGINT.getTypeSignature()));
+        }
+
+        // partition keys and synthesized columns are not stored in the files
+        HiveColumnHandle column = (HiveColumnHandle) argument.get();
+        if (column.getColumnType() != REGULAR) {
+            return Optional.empty();
+        }
+
+        Type type = typeManager.getType(column.getTypeSignature());
+        switch (aggregationType) {
+            case NON_NULL_COUNT:
+                return Optional.of(aggregatedColumnHandle(aggregationType, Optional.of(column), BIGINT.getTypeSignature()));
+            case MIN:
+            case MAX:
+                if (column.getHiveType().getCategory() != PRIMITIVE || !type.isOrderable()) {
+                    return Optional.empty();
+                }
+                return Optional.of(aggregatedColumnHandle(aggregationType, Optional.of(column), column.getTypeSignature()));
+            case SUM:
+                if (type.equals(TINYINT) || type.equals(SMALLINT) || type.equals(INTEGER) || type.equals(BIGINT)) {
+                    return Optional.of(aggregatedColumnHandle(aggregationType, Optional.of(column), BIGINT.getTypeSignature()));
+                }
+                if (type.equals(DOUBLE)) {
+                    return Optional.of(aggregatedColumnHandle(aggregationType, Optional.of(column), DOUBLE.getTypeSignature()));
+                }
+                return Optional.empty();
+            default:
+                return Optional.empty();
+        }
+    }
+
     @Override
     public Optional<ConnectorNewTableLayout> getInsertLayout(ConnectorSession session, ConnectorTableHandle tableHandle)
     {
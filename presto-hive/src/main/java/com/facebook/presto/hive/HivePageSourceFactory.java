@@ -37,4 +37,23 @@ public interface HivePageSourceFactory
             List<HiveColumnHandle> columns,
             TupleDomain<HiveColumnHandle> effectivePredicate,
             DateTimeZone hiveStorageTimeZone);
+
+    /**
+     * Creates a page source returning a single row with the values of the
+     * {@link HiveColumnHandle.ColumnType#AGGREGATED} columns computed from file metadata.
+     * Returns empty if the file format is not handled by this factory or the metadata
+     * is not sufficient to compute all the columns.
+     */
+    default Optional<? extends ConnectorPageSource> createAggregatedPageSource(
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            long start,
+            long length,
+            long fileSize,
+            Properties schema,
+            List<HiveColumnHandle> columns)
+    {
+        return Optional.empty();
+    }
 }
@@ -34,6 +34,7 @@ import org.joda.time.DateTimeZone;
 
 import javax.inject.Inject;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -42,6 +43,7 @@ import java.util.OptionalInt;
 import java.util.Properties;
 import java.util.Set;
 
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.AGGREGATED;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.PARTITION_KEY;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.SYNTHESIZED;
@@ -89,11 +91,16 @@ public class HivePageSourceProvider
 
         HiveSplit hiveSplit = (HiveSplit) split;
         Path path = new Path(hiveSplit.getPath());
+        Configuration configuration = hdfsEnvironment.getConfiguration(new HdfsContext(session, hiveSplit.getDatabase(), hiveSplit.getTable()), path);
+
+        if (hiveColumns.stream().anyMatch(column -> column.getColumnType() == AGGREGATED)) {
+            return createAggregatedPageSource(configuration, session, hiveSplit, path, hiveColumns);
+        }
 
         Optional<ConnectorPageSource> pageSource = createHivePageSource(
                 cursorProviders,
                 pageSourceFactories,
-                hdfsEnvironment.getConfiguration(new HdfsContext(session, hiveSplit.getDatabase(), hiveSplit.getTable()), path),
+                configuration,
                 session,
                 path,
                 hiveSplit.getBucketNumber(),
@@ -114,6 +121,71 @@ public class HivePageSourceProvider
         throw new RuntimeException("Could not find a file reader for split " + hiveSplit);
     }
 
+    private ConnectorPageSource createAggregatedPageSource(Configuration configuration, ConnectorSession session, HiveSplit hiveSplit, Path path, List<HiveColumnHandle> columns)
+    {
+        checkArgument(columns.stream().allMatch(column -> column.getColumnType() == AGGREGATED), "aggregated columns cannot be read together with other columns");
+
+        List<HiveColumnHandle> argumentColumns = new ArrayList<>();
+        int[] argumentChannels = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            Optional<HiveColumnHandle> argument = HiveSplitAggregator.getArgumentColumn(columns.get(i));
+            if (!argument.isPresent()) {
+                argumentChannels[i] = -1;
+                continue;
+            }
+            int channel = argumentColumns.indexOf(argument.get());
+            if (channel < 0) {
+                channel = argumentColumns.size();
+                argumentColumns.add(argument.get());
+            }
+            argumentChannels[i] = channel;
+        }
+
+        // file statistics describe the stored values, so they cannot be used when the
+        // values are coerced or only the rows of some buckets are returned
+        boolean statisticsUsable = !hiveSplit.getBucketConversion().isPresent() &&
+                argumentColumns.stream().noneMatch(column -> hiveSplit.getColumnCoercions().containsKey(column.getHiveColumnIndex()));
+        if (statisticsUsable) {
+            for (HivePageSourceFactory pageSourceFactory : pageSourceFactories) {
+                Optional<? extends ConnectorPageSource> pageSource = pageSourceFactory.createAggregatedPageSource(
+                        configuration,
+                        session,
+                        path,
+                        hiveSplit.getStart(),
+                        hiveSplit.getLength(),
+                        hiveSplit.getFileSize(),
+                        hiveSplit.getSchema(),
+                        columns);
+                if (pageSource.isPresent()) {
+                    return pageSource.get();
+                }
+            }
+        }
+
+        Optional<ConnectorPageSource> pageSource = createHivePageSource(
+                cursorProviders,
+                pageSourceFactories,
+                configuration,
+                session,
+                path,
+                hiveSplit.getBucketNumber(),
+                hiveSplit.getStart(),
+                hiveSplit.getLength(),
+                hiveSplit.getFileSize(),
+                hiveSplit.getSchema(),
+                hiveSplit.getEffectivePredicate(),
+                argumentColumns,
+                hiveSplit.getPartitionKeys(),
+                hiveStorageTimeZone,
+                typeManager,
+                hiveSplit.getColumnCoercions(),
+                hiveSplit.getBucketConversion());
+        if (!pageSource.isPresent()) {
+            throw new RuntimeException("Could not find a file reader for split " + hiveSplit);
+        }
+        return new HiveAggregatingPageSource(pageSource.get(), new HiveSplitAggregator(columns, typeManager), argumentChannels);
+    }
+
     public static Optional<ConnectorPageSource> createHivePageSource(
             Set<HiveRecordCursorProvider> cursorProviders,
             Set<HivePageSourceFactory> pageSourceFactories,
@@ -44,6 +44,8 @@ public final class HiveSessionProperties
     private static final String FORCE_LOCAL_SCHEDULING = "force_local_scheduling";
     private static final String INSERT_EXISTING_PARTITIONS_BEHAVIOR = "insert_existing_partitions_behavior";
     private static final String ORC_BLOOM_FILTERS_ENABLED = "orc_bloom_filters_enabled";
+    private static final String ORC_SELECTIVE_READER_ENABLED = "orc_selective_reader_enabled";
+    private static final String ORC_PREFETCH_ENABLED = "orc_prefetch_enabled";
     private static final String ORC_MAX_MERGE_DISTANCE = "orc_max_merge_distance";
     private static final String ORC_MAX_BUFFER_SIZE = "orc_max_buffer_size";
     private static final String ORC_STREAM_BUFFER_SIZE = "orc_stream_buffer_size";
@@ -62,6 +64,9 @@ public final class HiveSessionProperties
     private static final String HIVE_STORAGE_FORMAT = "hive_storage_format";
     private static final String RESPECT_TABLE_FORMAT = "respect_table_format";
     private static final String PARQUET_USE_COLUMN_NAME = "parquet_use_column_names";
+    private static final String PARQUET_PAGE_SKIPPING_ENABLED = "parquet_page_skipping_enabled";
+    private static final String PARQUET_MAX_READ_SIZE = "parquet_max_read_size";
+    private static final String PARQUET_OPTIMIZED_WRITER_ENABLED = "parquet_optimized_writer_enabled";
     private static final String PARQUET_WRITER_BLOCK_SIZE = "parquet_writer_block_size";
     private static final String PARQUET_WRITER_PAGE_SIZE = "parquet_writer_page_size";
     private static final String MAX_SPLIT_SIZE = "max_split_size";
@@ -123,6 +128,16 @@ public final class HiveSessionProperties
                         "ORC: Enable bloom filters for predicate pushdown",
                         hiveClientConfig.isOrcBloomFiltersEnabled(),
                         false),
+                booleanProperty(
+                        ORC_SELECTIVE_READER_ENABLED,
+                        "ORC: Evaluate simple predicates while reading, and skip the values of other columns for the filtered out rows",
+                        hiveClientConfig.isOrcSelectiveReaderEnabled(),
+                        false),
+                booleanProperty(
+                        ORC_PREFETCH_ENABLED,
+                        "ORC: Read the streams of the next stripe in the background while the current stripe is decoded",
+                        hiveClientConfig.isOrcPrefetchEnabled(),
+                        false),
                 dataSizeSessionProperty(
                         ORC_MAX_MERGE_DISTANCE,
                         "ORC: Maximum size of gap between two reads to merge into a single read",
@@ -225,6 +240,21 @@ public final class HiveSessionProperties
                         "Experimental: Parquet: Access Parquet columns using names from the file",
                         hiveClientConfig.isUseParquetColumnNames(),
                         false),
+                booleanProperty(
+                        PARQUET_PAGE_SKIPPING_ENABLED,
+                        "Parquet: Skip pages of predicate columns using page statistics, and the same rows in other columns",
+                        hiveClientConfig.isParquetPageSkippingEnabled(),
+                        false),
+                dataSizeSessionProperty(
+                        PARQUET_MAX_READ_SIZE,
+                        "Parquet: Size of the pieces in which column chunks are read",
+                        hiveClientConfig.getParquetMaxReadSize(),
+                        false),
+                booleanProperty(
+                        PARQUET_OPTIMIZED_WRITER_ENABLED,
+                        "Experimental: Parquet: Enable optimized writer",
+                        parquetFileWriterConfig.isParquetOptimizedWriterEnabled(),
+                        false),
                 dataSizeSessionProperty(
                         PARQUET_WRITER_BLOCK_SIZE,
                         "Parquet: Writer block size",
@@ -312,6 +342,16 @@ public final class HiveSessionProperties
         return session.getProperty(ORC_BLOOM_FILTERS_ENABLED, Boolean.class);
     }
 
+    public static boolean isOrcSelectiveReaderEnabled(ConnectorSession session)
+    {
+        return session.getProperty(ORC_SELECTIVE_READER_ENABLED, Boolean.class);
+    }
+
+    public static boolean isOrcPrefetchEnabled(ConnectorSession session)
+    {
+        return session.getProperty(ORC_PREFETCH_ENABLED, Boolean.class);
+    }
+
     public static DataSize getOrcMaxMergeDistance(ConnectorSession session)
     {
         return session.getProperty(ORC_MAX_MERGE_DISTANCE, DataSize.class);
@@ -409,6 +449,21 @@ public final class HiveSessionProperties
         return session.getProperty(PARQUET_USE_COLUMN_NAME, Boolean.class);
     }
 
+    public static boolean isParquetPageSkippingEnabled(ConnectorSession session)
+    {
+        return session.getProperty(PARQUET_PAGE_SKIPPING_ENABLED, Boolean.class);
+    }
+
+    public static DataSize getParquetMaxReadSize(ConnectorSession session)
+    {
+        return session.getProperty(PARQUET_MAX_READ_SIZE, DataSize.class);
+    }
+
+    public static boolean isParquetOptimizedWriterEnabled(ConnectorSession session)
+    {
+        return session.getProperty(PARQUET_OPTIMIZED_WRITER_ENABLED, Boolean.class);
+    }
+
     public static DataSize getParquetWriterBlockSize(ConnectorSession session)
     {
         return session.getProperty(PARQUET_WRITER_BLOCK_SIZE, DataSize.class);
@@ -0,0 +1,250 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.SplitAggregationType;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.TypeManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.AGGREGATED;
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.spi.SplitAggregationType.ROW_COUNT;
+import static com.facebook.presto.spi.StandardErrorCode.NUMERIC_VALUE_OUT_OF_RANGE;
+import static com.facebook.presto.spi.predicate.Utils.nativeValueToBlock;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Computes the values of {@link HiveColumnHandle.ColumnType#AGGREGATED} columns for a split,
+ * either from the rows of the split or from file statistics, and produces the single row
+ * returned for the split.
+ */
+public class HiveSplitAggregator
+{
+    private final List<ColumnAggregator> aggregators;
+
+    public HiveSplitAggregator(List<HiveColumnHandle> columns, TypeManager typeManager)
+    {
+        requireNonNull(typeManager, "typeManager is null");
+        this.aggregators = requireNonNull(columns, "columns is null").stream()
+                .map(column -> new ColumnAggregator(column, typeManager))
+                .collect(toImmutableList());
+    }
+
+    /**
+     * Returns the column the aggregation of the given column is computed over, or
+     * empty for the row count.
+     */
+    public static Optional<HiveColumnHandle> getArgumentColumn(HiveColumnHandle column)
+    {
+        checkArgument(column.getColumnType() == AGGREGATED, "column is not aggregated: %s", column);
+        if (column.getAggregationType().get() == ROW_COUNT) {
+            return Optional.empty();
+        }
+        return Optional.of(new HiveColumnHandle(
+                column.getName(),
+                column.getHiveType(),
+                column.getHiveType().getTypeSignature(),
+                column.getHiveColumnIndex(),
+                REGULAR,
+                Optional.empty()));
+    }
+
+    public void addRows(long rowCount)
+    {
+        for (ColumnAggregator aggregator : aggregators) {
+            if (aggregator.getAggregationType() == ROW_COUNT) {
+                aggregator.addNonNullCount(rowCount);
+            }
+        }
+    }
+
+    /**
+     * Adds the values of the argument of the given aggregated column.
+     */
+    public void addValues(int column, Block block)
+    {
+        aggregators.get(column).addValues(block);
+    }
+
+    /**
+     * Adds the statistics of the argument of the given aggregated column for a part of the split.
+     * Min, max and sum are passed as native values of the argument type, or null when unknown.
+     *
+     * @return false if the statistics are not sufficient to compute the aggregation
+     */
+    public boolean addStatistics(int column, long nonNullCount, Object min, Object max, Object sum)
+    {
+        return aggregators.get(column).addStatistics(nonNullCount, min, max, sum);
+    }
+
+    public Page buildPage()
+    {
+        Block[] blocks = new Block[aggregators.size()];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = aggregators.get(i).build();
+        }
+        return new Page(1, blocks);
+    }
+
+    private static class ColumnAggregator
+    {
+        private final SplitAggregationType aggregationType;
+        private final Type argumentType;
+        private final Type resultType;
+
+        private long count;
+        // single position block holding the current min or max
+        private Block extreme;
+        private boolean hasSum;
+        private long longSum;
+        private double doubleSum;
+
+        public ColumnAggregator(HiveColumnHandle column, TypeManager typeManager)
+        {
+            checkArgument(column.getColumnType() == AGGREGATED, "column is not aggregated: %s", column);
+            this.aggregationType = column.getAggregationType().get();
+            this.argumentType = typeManager.getType(column.getHiveType().getTypeSignature());
+            this.resultType = typeManager.getType(column.getTypeSignature());
+        }
+
+        public SplitAggregationType getAggregationType()
+        {
+            return aggregationType;
+        }
+
+        public void addNonNullCount(long nonNullCount)
+        {
+            count += nonNullCount;
+        }
+
+        public void addValues(Block block)
+        {
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                if (block.isNull(position)) {
+                    continue;
+                }
+                count++;
+                switch (aggregationType) {
+                    case MIN:
+                        if (extreme == null || argumentType.compareTo(block, position, extreme, 0) < 0) {
+                            extreme = block.getSingleValueBlock(position);
+                        }
+                        break;
+                    case MAX:
+                        if (extreme == null || argumentType.compareTo(block, position, extreme, 0) > 0) {
+                            extreme = block.getSingleValueBlock(position);
+                        }
+                        break;
+                    case SUM:
+                        if (resultType.equals(DOUBLE)) {
+                            addSum(argumentType.getDouble(block, position));
+                        }
+                        else {
+                            addSum(argumentType.getLong(block, position));
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        public boolean addStatistics(long nonNullCount, Object min, Object max, Object sum)
+        {
+            count += nonNullCount;
+            if (nonNullCount == 0) {
+                return true;
+            }
+            switch (aggregationType) {
+                case MIN:
+                    if (min == null) {
+                        return false;
+                    }
+                    Block minBlock = nativeValueToBlock(argumentType, min);
+                    if (extreme == null || argumentType.compareTo(minBlock, 0, extreme, 0) < 0) {
+                        extreme = minBlock;
+                    }
+                    return true;
+                case MAX:
+                    if (max == null) {
+                        return false;
+                    }
+                    Block maxBlock = nativeValueToBlock(argumentType, max);
+                    if (extreme == null || argumentType.compareTo(maxBlock, 0, extreme, 0) > 0) {
+                        extreme = maxBlock;
+                    }
+                    return true;
+                case SUM:
+                    if (sum == null) {
+                        return false;
+                    }
+                    if (resultType.equals(DOUBLE)) {
+                        addSum(((Number) sum).doubleValue());
+                    }
+                    else {
+                        addSum(((Number) sum).longValue());
+                    }
+                    return true;
+                default:
+                    return true;
+            }
+        }
+
+        private void addSum(long value)
+        {
+            try {
+                longSum = Math.addExact(longSum, value);
+            }
+            catch (ArithmeticException e) {
+                throw new PrestoException(NUMERIC_VALUE_OUT_OF_RANGE, "bigint addition overflow: " + longSum + " + " + value);
+            }
+            hasSum = true;
+        }
+
+        private void addSum(double value)
+        {
+            doubleSum += value;
+            hasSum = true;
+        }
+
+        public Block build()
+        {
+            switch (aggregationType) {
+                case ROW_COUNT:
+                case NON_NULL_COUNT:
+                    return nativeValueToBlock(BIGINT, count);
+                case MIN:
+                case MAX:
+                    return extreme == null ? nativeValueToBlock(resultType, null) : extreme;
+                case SUM:
+                    if (!hasSum) {
+                        return nativeValueToBlock(resultType, null);
+                    }
+                    return resultType.equals(DOUBLE) ? nativeValueToBlock(DOUBLE, doubleSum) : nativeValueToBlock(BIGINT, longSum);
+                default:
+                    throw new IllegalStateException("Unsupported aggregation type: " + aggregationType);
+            }
+        }
+    }
+}
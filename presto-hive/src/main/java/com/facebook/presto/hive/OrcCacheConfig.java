@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.airlift.units.MinDuration;
+
+import javax.validation.constraints.NotNull;
+
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.HOURS;
+
+public class OrcCacheConfig
+{
+    private boolean fileTailCacheEnabled;
+    private DataSize fileTailCacheSize = new DataSize(64, MEGABYTE);
+    private Duration fileTailCacheTtlSinceLastAccess = new Duration(1, HOURS);
+
+    private boolean stripeMetadataCacheEnabled;
+    private DataSize stripeFooterCacheSize = new DataSize(32, MEGABYTE);
+    private DataSize rowGroupIndexCacheSize = new DataSize(128, MEGABYTE);
+    private Duration stripeMetadataCacheTtlSinceLastAccess = new Duration(1, HOURS);
+
+    public boolean isFileTailCacheEnabled()
+    {
+        return fileTailCacheEnabled;
+    }
+
+    @Config("hive.orc.file-tail-cache-enabled")
+    @ConfigDescription("Cache the parsed footers and metadata of ORC files on the workers")
+    public OrcCacheConfig setFileTailCacheEnabled(boolean fileTailCacheEnabled)
+    {
+        this.fileTailCacheEnabled = fileTailCacheEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getFileTailCacheSize()
+    {
+        return fileTailCacheSize;
+    }
+
+    @Config("hive.orc.file-tail-cache-size")
+    public OrcCacheConfig setFileTailCacheSize(DataSize fileTailCacheSize)
+    {
+        this.fileTailCacheSize = fileTailCacheSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("0s")
+    public Duration getFileTailCacheTtlSinceLastAccess()
+    {
+        return fileTailCacheTtlSinceLastAccess;
+    }
+
+    @Config("hive.orc.file-tail-cache-ttl-since-last-access")
+    public OrcCacheConfig setFileTailCacheTtlSinceLastAccess(Duration fileTailCacheTtlSinceLastAccess)
+    {
+        this.fileTailCacheTtlSinceLastAccess = fileTailCacheTtlSinceLastAccess;
+        return this;
+    }
+
+    public boolean isStripeMetadataCacheEnabled()
+    {
+        return stripeMetadataCacheEnabled;
+    }
+
+    @Config("hive.orc.stripe-metadata-cache-enabled")
+    @ConfigDescription("Cache the parsed stripe footers and row group indexes of ORC files on the workers")
+    public OrcCacheConfig setStripeMetadataCacheEnabled(boolean stripeMetadataCacheEnabled)
+    {
+        this.stripeMetadataCacheEnabled = stripeMetadataCacheEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getStripeFooterCacheSize()
+    {
+        return stripeFooterCacheSize;
+    }
+
+    @Config("hive.orc.stripe-footer-cache-size")
+    public OrcCacheConfig setStripeFooterCacheSize(DataSize stripeFooterCacheSize)
+    {
+        this.stripeFooterCacheSize = stripeFooterCacheSize;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getRowGroupIndexCacheSize()
+    {
+        return rowGroupIndexCacheSize;
+    }
+
+    @Config("hive.orc.row-group-index-cache-size")
+    public OrcCacheConfig setRowGroupIndexCacheSize(DataSize rowGroupIndexCacheSize)
+    {
+        this.rowGroupIndexCacheSize = rowGroupIndexCacheSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("0s")
+    public Duration getStripeMetadataCacheTtlSinceLastAccess()
+    {
+        return stripeMetadataCacheTtlSinceLastAccess;
+    }
+
+    @Config("hive.orc.stripe-metadata-cache-ttl-since-last-access")
+    public OrcCacheConfig setStripeMetadataCacheTtlSinceLastAccess(Duration stripeMetadataCacheTtlSinceLastAccess)
+    {
+        this.stripeMetadataCacheTtlSinceLastAccess = stripeMetadataCacheTtlSinceLastAccess;
+        return this;
+    }
+}
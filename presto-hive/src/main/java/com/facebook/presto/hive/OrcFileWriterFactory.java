@@ -29,6 +29,7 @@ import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.io.orc.OrcFile.OrcTableProperties;
@@ -47,6 +48,7 @@ import java.util.Properties;
 import java.util.concurrent.Callable;
 import java.util.function.Supplier;
 
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_METADATA;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNSUPPORTED_FORMAT;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_OPEN_ERROR;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITE_VALIDATION_FAILED;
@@ -193,7 +195,7 @@ public class OrcFileWriterFactory
                     fileColumnNames,
                     fileColumnTypes,
                     compression,
-                    orcWriterOptions
+                    getBloomFilterOptions(orcWriterOptions, schema, orcEncoding)
                             .withStripeMinSize(getOrcOptimizedWriterMinStripeSize(session))
                             .withStripeMaxSize(getOrcOptimizedWriterMaxStripeSize(session))
                             .withStripeMaxRowCount(getOrcOptimizedWriterMaxStripeRows(session))
@@ -223,6 +225,27 @@ public class OrcFileWriterFactory
         return new OutputStreamOrcDataSink(fileSystem.create(path));
     }
 
+    private static OrcWriterOptions getBloomFilterOptions(OrcWriterOptions orcWriterOptions, Properties schema, OrcEncoding orcEncoding)
+    {
+        String bloomFilterColumns = schema.getProperty(OrcTableProperties.BLOOM_FILTER_COLUMNS.getPropName());
+        if (bloomFilterColumns == null || orcEncoding == DWRF) {
+            // DWRF does not support bloom filters
+            return orcWriterOptions;
+        }
+
+        orcWriterOptions = orcWriterOptions.withBloomFilterColumns(ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(bloomFilterColumns.toLowerCase(ENGLISH))));
+        String bloomFilterFpp = schema.getProperty(OrcTableProperties.BLOOM_FILTER_FPP.getPropName());
+        if (bloomFilterFpp == null) {
+            return orcWriterOptions;
+        }
+        try {
+            return orcWriterOptions.withBloomFilterFpp(Double.parseDouble(bloomFilterFpp));
+        }
+        catch (IllegalArgumentException e) {
+            throw new PrestoException(HIVE_INVALID_METADATA, "Invalid ORC bloom filter false positive probability: " + bloomFilterFpp);
+        }
+    }
+
     private static CompressionKind getCompression(Properties schema, JobConf configuration, OrcEncoding orcEncoding)
     {
         String compressionName = schema.getProperty(OrcTableProperties.COMPRESSION.getPropName());
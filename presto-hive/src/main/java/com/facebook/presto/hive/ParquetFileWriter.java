@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.parquet.writer.ParquetWriter;
+import com.facebook.presto.parquet.writer.ParquetWriterOptions;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jol.info.ClassLayout;
+import parquet.hadoop.metadata.CompressionCodecName;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_CLOSE_ERROR;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_DATA_ERROR;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+public class ParquetFileWriter
+        implements HiveFileWriter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(ParquetFileWriter.class).instanceSize();
+
+    private final ParquetWriter parquetWriter;
+    private final Callable<Void> rollbackAction;
+    private final int[] fileInputColumnIndexes;
+    private final List<Block> nullBlocks;
+
+    public ParquetFileWriter(
+            OutputStream outputStream,
+            Callable<Void> rollbackAction,
+            List<String> columnNames,
+            List<Type> fileColumnTypes,
+            ParquetWriterOptions options,
+            CompressionCodecName compressionCodecName,
+            int[] fileInputColumnIndexes,
+            Map<String, String> metadata)
+    {
+        requireNonNull(outputStream, "outputStream is null");
+
+        this.parquetWriter = new ParquetWriter(
+                outputStream,
+                columnNames,
+                fileColumnTypes,
+                options,
+                compressionCodecName,
+                metadata);
+        this.rollbackAction = requireNonNull(rollbackAction, "rollbackAction is null");
+
+        this.fileInputColumnIndexes = requireNonNull(fileInputColumnIndexes, "fileInputColumnIndexes is null");
+
+        ImmutableList.Builder<Block> nullBlocks = ImmutableList.builder();
+        for (Type fileColumnType : fileColumnTypes) {
+            BlockBuilder blockBuilder = fileColumnType.createBlockBuilder(null, 1, 0);
+            blockBuilder.appendNull();
+            nullBlocks.add(blockBuilder.build());
+        }
+        this.nullBlocks = nullBlocks.build();
+    }
+
+    @Override
+    public long getWrittenBytes()
+    {
+        return parquetWriter.getWrittenBytes() + parquetWriter.getBufferedBytes();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return INSTANCE_SIZE + parquetWriter.getRetainedBytes();
+    }
+
+    @Override
+    public void appendRows(Page dataPage)
+    {
+        Block[] blocks = new Block[fileInputColumnIndexes.length];
+        for (int i = 0; i < fileInputColumnIndexes.length; i++) {
+            int inputColumnIndex = fileInputColumnIndexes[i];
+            if (inputColumnIndex < 0) {
+                blocks[i] = new RunLengthEncodedBlock(nullBlocks.get(i), dataPage.getPositionCount());
+            }
+            else {
+                blocks[i] = dataPage.getBlock(inputColumnIndex);
+            }
+        }
+        Page page = new Page(dataPage.getPositionCount(), blocks);
+        try {
+            parquetWriter.write(page);
+        }
+        catch (IOException | UncheckedIOException e) {
+            throw new PrestoException(HIVE_WRITER_DATA_ERROR, e);
+        }
+    }
+
+    @Override
+    public void commit()
+    {
+        try {
+            parquetWriter.close();
+        }
+        catch (IOException | UncheckedIOException e) {
+            try {
+                rollbackAction.call();
+            }
+            catch (Exception ignored) {
+                // ignore
+            }
+            throw new PrestoException(HIVE_WRITER_CLOSE_ERROR, "Error committing write to Hive", e);
+        }
+    }
+
+    @Override
+    public void rollback()
+    {
+        try {
+            try {
+                parquetWriter.close();
+            }
+            finally {
+                rollbackAction.call();
+            }
+        }
+        catch (Exception e) {
+            throw new PrestoException(HIVE_WRITER_CLOSE_ERROR, "Error rolling back write to Hive", e);
+        }
+    }
+
+    @Override
+    public long getValidationCpuNanos()
+    {
+        return 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("writer", parquetWriter)
+                .toString();
+    }
+}
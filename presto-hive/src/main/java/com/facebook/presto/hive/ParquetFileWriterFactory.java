@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.metastore.StorageFormat;
+import com.facebook.presto.parquet.writer.ParquetSchemaConverter;
+import com.facebook.presto.parquet.writer.ParquetWriterOptions;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.TypeManager;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.parquet.MapredParquetOutputFormat;
+import org.apache.hadoop.mapred.JobConf;
+import parquet.hadoop.ParquetOutputFormat;
+import parquet.hadoop.metadata.CompressionCodecName;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNSUPPORTED_FORMAT;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_OPEN_ERROR;
+import static com.facebook.presto.hive.HiveSessionProperties.getParquetWriterBlockSize;
+import static com.facebook.presto.hive.HiveSessionProperties.getParquetWriterPageSize;
+import static com.facebook.presto.hive.HiveType.toHiveTypes;
+import static java.util.Locale.ENGLISH;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMNS;
+import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMN_TYPES;
+import static parquet.hadoop.metadata.CompressionCodecName.GZIP;
+import static parquet.hadoop.metadata.CompressionCodecName.SNAPPY;
+import static parquet.hadoop.metadata.CompressionCodecName.UNCOMPRESSED;
+
+public class ParquetFileWriterFactory
+        implements HiveFileWriterFactory
+{
+    private static final Set<CompressionCodecName> SUPPORTED_COMPRESSION_CODECS = ImmutableSet.of(UNCOMPRESSED, SNAPPY, GZIP);
+
+    private final HdfsEnvironment hdfsEnvironment;
+    private final TypeManager typeManager;
+    private final NodeVersion nodeVersion;
+    private final ParquetWriterOptions parquetWriterOptions;
+
+    @Inject
+    public ParquetFileWriterFactory(HdfsEnvironment hdfsEnvironment, TypeManager typeManager, NodeVersion nodeVersion)
+    {
+        this(hdfsEnvironment, typeManager, nodeVersion, new ParquetWriterOptions());
+    }
+
+    public ParquetFileWriterFactory(HdfsEnvironment hdfsEnvironment, TypeManager typeManager, NodeVersion nodeVersion, ParquetWriterOptions parquetWriterOptions)
+    {
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.nodeVersion = requireNonNull(nodeVersion, "nodeVersion is null");
+        this.parquetWriterOptions = requireNonNull(parquetWriterOptions, "parquetWriterOptions is null");
+    }
+
+    @Override
+    public Optional<HiveFileWriter> createFileWriter(
+            Path path,
+            List<String> inputColumnNames,
+            StorageFormat storageFormat,
+            Properties schema,
+            JobConf configuration,
+            ConnectorSession session)
+    {
+        if (!HiveSessionProperties.isParquetOptimizedWriterEnabled(session)) {
+            return Optional.empty();
+        }
+
+        if (!MapredParquetOutputFormat.class.getName().equals(storageFormat.getOutputFormat())) {
+            return Optional.empty();
+        }
+
+        // existing tables and partitions may have columns in a different order than the writer is providing, so build
+        // an index to rearrange columns in the proper order
+        List<String> fileColumnNames = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(schema.getProperty(META_TABLE_COLUMNS, ""));
+        List<Type> fileColumnTypes = toHiveTypes(schema.getProperty(META_TABLE_COLUMN_TYPES, "")).stream()
+                .map(hiveType -> hiveType.getType(typeManager))
+                .collect(toList());
+
+        // nested types and other compression codecs are written by the Hive record writer
+        if (!fileColumnTypes.stream().allMatch(ParquetSchemaConverter::isSupportedType)) {
+            return Optional.empty();
+        }
+
+        CompressionCodecName compressionCodecName = getCompression(schema, configuration);
+        if (!SUPPORTED_COMPRESSION_CODECS.contains(compressionCodecName)) {
+            return Optional.empty();
+        }
+
+        int[] fileInputColumnIndexes = fileColumnNames.stream()
+                .mapToInt(inputColumnNames::indexOf)
+                .toArray();
+
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), path, configuration);
+            OutputStream outputStream = fileSystem.create(path);
+
+            Callable<Void> rollbackAction = () -> {
+                fileSystem.delete(path, false);
+                return null;
+            };
+
+            return Optional.of(new ParquetFileWriter(
+                    outputStream,
+                    rollbackAction,
+                    fileColumnNames,
+                    fileColumnTypes,
+                    parquetWriterOptions
+                            .withMaxRowGroupSize(getParquetWriterBlockSize(session))
+                            .withMaxPageSize(getParquetWriterPageSize(session)),
+                    compressionCodecName,
+                    fileInputColumnIndexes,
+                    ImmutableMap.<String, String>builder()
+                            .put(HiveMetadata.PRESTO_VERSION_NAME, nodeVersion.toString())
+                            .put(HiveMetadata.PRESTO_QUERY_ID_NAME, session.getQueryId())
+                            .build()));
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_OPEN_ERROR, "Error creating Parquet file", e);
+        }
+    }
+
+    private static CompressionCodecName getCompression(Properties schema, JobConf configuration)
+    {
+        String compressionName = schema.getProperty(ParquetOutputFormat.COMPRESSION);
+        if (compressionName == null) {
+            compressionName = configuration.get(ParquetOutputFormat.COMPRESSION);
+        }
+        if (compressionName == null) {
+            return UNCOMPRESSED;
+        }
+
+        CompressionCodecName compression;
+        try {
+            compression = CompressionCodecName.valueOf(compressionName.toUpperCase(ENGLISH));
+        }
+        catch (IllegalArgumentException e) {
+            throw new PrestoException(HIVE_UNSUPPORTED_FORMAT, "Unknown Parquet compression type " + compressionName);
+        }
+        return compression;
+    }
+}
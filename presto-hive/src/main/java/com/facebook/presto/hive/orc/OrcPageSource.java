@@ -58,6 +58,8 @@ public class OrcPageSource
 
     private int batchId;
     private boolean closed;
+    // time spent in the reader, including the time waiting for reads
+    private long readerNanos;
 
     private final AggregatedMemoryContext systemMemoryContext;
 
@@ -130,6 +132,7 @@ public class OrcPageSource
     @Override
     public Page getNextPage()
     {
+        long start = System.nanoTime();
         try {
             batchId++;
             int batchSize = recordReader.nextBatch();
@@ -162,6 +165,9 @@ public class OrcPageSource
             closeWithSuppression(e);
             throw new PrestoException(HIVE_CURSOR_ERROR, format("Failed to read ORC file: %s", orcDataSource.getId()), e);
         }
+        finally {
+            readerNanos += System.nanoTime() - start;
+        }
     }
 
     @Override
@@ -175,6 +181,7 @@ public class OrcPageSource
 
         try {
             stats.addMaxCombinedBytesPerRow(recordReader.getMaxCombinedBytesPerRow());
+            stats.addOrcSplitTime(orcDataSource.getReadTimeNanos(), Math.max(readerNanos - orcDataSource.getReadTimeNanos(), 0));
             recordReader.close();
         }
         catch (IOException e) {
@@ -234,6 +241,7 @@ public class OrcPageSource
 
             checkState(batchId == expectedBatchId);
 
+            long start = System.nanoTime();
             try {
                 Block block = recordReader.readBlock(type, columnIndex);
                 lazyBlock.setBlock(block);
@@ -244,6 +252,9 @@ public class OrcPageSource
             catch (IOException | RuntimeException e) {
                 throw new PrestoException(HIVE_CURSOR_ERROR, format("Failed to read ORC file: %s", orcDataSource.getId()), e);
             }
+            finally {
+                readerNanos += System.nanoTime() - start;
+            }
 
             loaded = true;
         }
@@ -14,10 +14,13 @@
 package com.facebook.presto.hive.orc;
 
 import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.ForHiveClient;
 import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveClientConfig;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
+import com.facebook.presto.hive.HiveSplitAggregator;
+import com.facebook.presto.hive.s3.PrestoS3FileSystem;
 import com.facebook.presto.memory.context.AggregatedMemoryContext;
 import com.facebook.presto.orc.OrcDataSource;
 import com.facebook.presto.orc.OrcDataSourceId;
@@ -27,10 +30,23 @@ import com.facebook.presto.orc.OrcReader;
 import com.facebook.presto.orc.OrcRecordReader;
 import com.facebook.presto.orc.TupleDomainOrcPredicate;
 import com.facebook.presto.orc.TupleDomainOrcPredicate.ColumnReference;
+import com.facebook.presto.orc.cache.OrcFileTailSource;
+import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
+import com.facebook.presto.orc.cache.StorageStripeMetadataSource;
+import com.facebook.presto.orc.cache.StripeMetadataSource;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
+import com.facebook.presto.orc.metadata.statistics.DateStatistics;
+import com.facebook.presto.orc.metadata.statistics.DoubleStatistics;
+import com.facebook.presto.orc.metadata.statistics.IntegerStatistics;
+import com.facebook.presto.orc.metadata.statistics.StripeStatistics;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
@@ -52,6 +68,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.regex.Pattern;
 
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
@@ -65,11 +83,23 @@ import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxReadBlockS
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcStreamBufferSize;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcTinyStripeThreshold;
 import static com.facebook.presto.hive.HiveSessionProperties.isOrcBloomFiltersEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcPrefetchEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcSelectiveReaderEnabled;
 import static com.facebook.presto.hive.HiveUtil.isDeserializerClass;
+import static com.facebook.presto.hive.HiveWriteUtils.getRawFileSystem;
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.facebook.presto.orc.OrcEncoding.ORC;
 import static com.facebook.presto.orc.OrcReader.INITIAL_BATCH_SIZE;
+import static com.facebook.presto.spi.SplitAggregationType.ROW_COUNT;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
 import static com.google.common.base.Strings.nullToEmpty;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
@@ -81,19 +111,73 @@ public class OrcPageSourceFactory
     private final boolean useOrcColumnNames;
     private final HdfsEnvironment hdfsEnvironment;
     private final FileFormatDataSourceStats stats;
+    private final OrcFileTailSource orcFileTailSource;
+    private final StripeMetadataSource stripeMetadataSource;
+    private final Executor prefetchExecutor;
+    private final int prefetchMaxConcurrentReads;
+    private final DataSize prefetchMaxBufferSize;
 
-    @Inject
     public OrcPageSourceFactory(TypeManager typeManager, HiveClientConfig config, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats)
     {
-        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseOrcColumnNames(), hdfsEnvironment, stats);
+        this(
+                typeManager,
+                requireNonNull(config, "hiveClientConfig is null").isUseOrcColumnNames(),
+                hdfsEnvironment,
+                stats,
+                new StorageOrcFileTailSource(),
+                new StorageStripeMetadataSource(),
+                directExecutor(),
+                config.getOrcPrefetchMaxConcurrentReads(),
+                config.getOrcPrefetchMaxBufferSize());
+    }
+
+    @Inject
+    public OrcPageSourceFactory(
+            TypeManager typeManager,
+            HiveClientConfig config,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            OrcFileTailSource orcFileTailSource,
+            StripeMetadataSource stripeMetadataSource,
+            @ForHiveClient ExecutorService prefetchExecutor)
+    {
+        this(
+                typeManager,
+                requireNonNull(config, "hiveClientConfig is null").isUseOrcColumnNames(),
+                hdfsEnvironment,
+                stats,
+                orcFileTailSource,
+                stripeMetadataSource,
+                prefetchExecutor,
+                config.getOrcPrefetchMaxConcurrentReads(),
+                config.getOrcPrefetchMaxBufferSize());
     }
 
     public OrcPageSourceFactory(TypeManager typeManager, boolean useOrcColumnNames, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats)
+    {
+        this(typeManager, useOrcColumnNames, hdfsEnvironment, stats, new StorageOrcFileTailSource(), new StorageStripeMetadataSource(), directExecutor(), 1, new DataSize(0, MEGABYTE));
+    }
+
+    public OrcPageSourceFactory(
+            TypeManager typeManager,
+            boolean useOrcColumnNames,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            OrcFileTailSource orcFileTailSource,
+            StripeMetadataSource stripeMetadataSource,
+            Executor prefetchExecutor,
+            int prefetchMaxConcurrentReads,
+            DataSize prefetchMaxBufferSize)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.useOrcColumnNames = useOrcColumnNames;
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.stats = requireNonNull(stats, "stats is null");
+        this.orcFileTailSource = requireNonNull(orcFileTailSource, "orcFileTailSource is null");
+        this.stripeMetadataSource = requireNonNull(stripeMetadataSource, "stripeMetadataSource is null");
+        this.prefetchExecutor = requireNonNull(prefetchExecutor, "prefetchExecutor is null");
+        this.prefetchMaxConcurrentReads = prefetchMaxConcurrentReads;
+        this.prefetchMaxBufferSize = requireNonNull(prefetchMaxBufferSize, "prefetchMaxBufferSize is null");
     }
 
     @Override
@@ -139,7 +223,152 @@ public class OrcPageSourceFactory
                 getOrcMaxReadBlockSize(session),
                 getOrcLazyReadSmallRanges(session),
                 isOrcBloomFiltersEnabled(session),
-                stats));
+                isOrcSelectiveReaderEnabled(session),
+                stats,
+                orcFileTailSource,
+                stripeMetadataSource,
+                isOrcPrefetchEnabled(session),
+                prefetchExecutor,
+                prefetchMaxConcurrentReads,
+                prefetchMaxBufferSize));
+    }
+
+    @Override
+    public Optional<? extends ConnectorPageSource> createAggregatedPageSource(
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            long start,
+            long length,
+            long fileSize,
+            Properties schema,
+            List<HiveColumnHandle> columns)
+    {
+        if (!isDeserializerClass(schema, OrcSerde.class)) {
+            return Optional.empty();
+        }
+
+        HiveSplitAggregator aggregator = new HiveSplitAggregator(columns, typeManager);
+        if (fileSize == 0) {
+            return Optional.of(new FixedPageSource(ImmutableList.of(aggregator.buildPage())));
+        }
+
+        OrcDataSource orcDataSource;
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), path, configuration);
+            orcDataSource = new HdfsOrcDataSource(
+                    new OrcDataSourceId(path.toString()),
+                    fileSize,
+                    getOrcMaxMergeDistance(session),
+                    getOrcMaxBufferSize(session),
+                    getOrcStreamBufferSize(session),
+                    false,
+                    fileSystem.open(path),
+                    stats);
+        }
+        catch (Exception e) {
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, splitError(e, path, start, length), e);
+        }
+
+        try {
+            OrcReader reader = new OrcReader(
+                    orcDataSource,
+                    ORC,
+                    getOrcMaxMergeDistance(session),
+                    getOrcMaxBufferSize(session),
+                    getOrcTinyStripeThreshold(session),
+                    getOrcMaxReadBlockSize(session),
+                    orcFileTailSource,
+                    stripeMetadataSource);
+            if (!addStripeStatistics(aggregator, reader, start, length, getPhysicalHiveColumnHandles(columns, useOrcColumnNames, reader, path))) {
+                return Optional.empty();
+            }
+            return Optional.of(new FixedPageSource(ImmutableList.of(aggregator.buildPage())));
+        }
+        catch (PrestoException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, splitError(e, path, start, length), e);
+        }
+        finally {
+            try {
+                orcDataSource.close();
+            }
+            catch (IOException ignored) {
+            }
+        }
+    }
+
+    private boolean addStripeStatistics(HiveSplitAggregator aggregator, OrcReader reader, long start, long length, List<HiveColumnHandle> columns)
+    {
+        Footer footer = reader.getFooter();
+        List<StripeInformation> stripes = footer.getStripes();
+        List<StripeStatistics> stripeStatistics = reader.getMetadata().getStripeStatsList();
+        OrcType rootType = footer.getTypes().get(0);
+
+        for (int stripeIndex = 0; stripeIndex < stripes.size(); stripeIndex++) {
+            // same stripe selection as the record reader
+            StripeInformation stripe = stripes.get(stripeIndex);
+            if (stripe.getOffset() < start || stripe.getOffset() >= start + length) {
+                continue;
+            }
+
+            aggregator.addRows(stripe.getNumberOfRows());
+            for (int column = 0; column < columns.size(); column++) {
+                HiveColumnHandle columnHandle = columns.get(column);
+                if (columnHandle.getAggregationType().get() == ROW_COUNT) {
+                    continue;
+                }
+                if (columnHandle.getHiveColumnIndex() >= rootType.getFieldCount()) {
+                    // the column is missing from the file, so all values are null
+                    aggregator.addStatistics(column, 0, null, null, null);
+                    continue;
+                }
+                if (stripeStatistics.size() != stripes.size()) {
+                    return false;
+                }
+                ColumnStatistics statistics = stripeStatistics.get(stripeIndex).getColumnStatistics().get(rootType.getFieldTypeIndex(columnHandle.getHiveColumnIndex()));
+                if (!addColumnStatistics(aggregator, column, typeManager.getType(columnHandle.getHiveType().getTypeSignature()), statistics)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean addColumnStatistics(HiveSplitAggregator aggregator, int column, Type type, ColumnStatistics statistics)
+    {
+        if (statistics == null || !statistics.hasNumberOfValues()) {
+            return false;
+        }
+
+        // string statistics may be truncated by the writer, and timestamps have no statistics
+        Object min = null;
+        Object max = null;
+        Object sum = null;
+        if ((type.equals(BIGINT) || type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT)) && statistics.getIntegerStatistics() != null) {
+            IntegerStatistics integerStatistics = statistics.getIntegerStatistics();
+            min = integerStatistics.getMin();
+            max = integerStatistics.getMax();
+            sum = integerStatistics.getSum();
+        }
+        else if (type.equals(DATE) && statistics.getDateStatistics() != null) {
+            DateStatistics dateStatistics = statistics.getDateStatistics();
+            min = dateStatistics.getMin() == null ? null : dateStatistics.getMin().longValue();
+            max = dateStatistics.getMax() == null ? null : dateStatistics.getMax().longValue();
+        }
+        else if (type.equals(DOUBLE) && statistics.getDoubleStatistics() != null) {
+            DoubleStatistics doubleStatistics = statistics.getDoubleStatistics();
+            min = doubleStatistics.getMin();
+            max = doubleStatistics.getMax();
+            // the writer does not order NaN, so the statistics cannot be used for min and max
+            if ((min != null && ((Double) min).isNaN()) || (max != null && ((Double) max).isNaN())) {
+                min = null;
+                max = null;
+            }
+        }
+        return aggregator.addStatistics(column, statistics.getNumberOfValues(), min, max, sum);
     }
 
     public static OrcPageSource createOrcPageSource(
@@ -163,21 +392,45 @@ public class OrcPageSourceFactory
             DataSize maxReadBlockSize,
             boolean lazyReadSmallRanges,
             boolean orcBloomFiltersEnabled,
-            FileFormatDataSourceStats stats)
+            boolean selectiveReaderEnabled,
+            FileFormatDataSourceStats stats,
+            OrcFileTailSource orcFileTailSource,
+            StripeMetadataSource stripeMetadataSource,
+            boolean prefetchEnabled,
+            Executor prefetchExecutor,
+            int prefetchMaxConcurrentReads,
+            DataSize prefetchMaxBufferSize)
     {
         OrcDataSource orcDataSource;
         try {
             FileSystem fileSystem = hdfsEnvironment.getFileSystem(sessionUser, path, configuration);
-            FSDataInputStream inputStream = fileSystem.open(path);
-            orcDataSource = new HdfsOrcDataSource(
-                    new OrcDataSourceId(path.toString()),
-                    fileSize,
-                    maxMergeDistance,
-                    maxBufferSize,
-                    streamBufferSize,
-                    lazyReadSmallRanges,
-                    inputStream,
-                    stats);
+            if (prefetchEnabled) {
+                FSDataInputStream inputStream = openForConcurrentReads(fileSystem, path);
+                orcDataSource = new PrefetchingOrcDataSource(
+                        new OrcDataSourceId(path.toString()),
+                        fileSize,
+                        maxMergeDistance,
+                        maxBufferSize,
+                        streamBufferSize,
+                        lazyReadSmallRanges,
+                        inputStream,
+                        stats,
+                        prefetchExecutor,
+                        prefetchMaxConcurrentReads,
+                        prefetchMaxBufferSize);
+            }
+            else {
+                FSDataInputStream inputStream = fileSystem.open(path);
+                orcDataSource = new HdfsOrcDataSource(
+                        new OrcDataSourceId(path.toString()),
+                        fileSize,
+                        maxMergeDistance,
+                        maxBufferSize,
+                        streamBufferSize,
+                        lazyReadSmallRanges,
+                        inputStream,
+                        stats);
+            }
         }
         catch (Exception e) {
             if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
@@ -189,7 +442,15 @@ public class OrcPageSourceFactory
 
         AggregatedMemoryContext systemMemoryUsage = newSimpleAggregatedMemoryContext();
         try {
-            OrcReader reader = new OrcReader(orcDataSource, orcEncoding, maxMergeDistance, maxBufferSize, tinyStripeThreshold, maxReadBlockSize);
+            OrcReader reader = new OrcReader(
+                    orcDataSource,
+                    orcEncoding,
+                    maxMergeDistance,
+                    maxBufferSize,
+                    tinyStripeThreshold,
+                    maxReadBlockSize,
+                    orcFileTailSource,
+                    stripeMetadataSource);
 
             List<HiveColumnHandle> physicalColumns = getPhysicalHiveColumnHandles(columns, useOrcColumnNames, reader, path);
             ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
@@ -204,9 +465,22 @@ public class OrcPageSourceFactory
 
             OrcPredicate predicate = new TupleDomainOrcPredicate<>(effectivePredicate, columnReferences.build(), orcBloomFiltersEnabled);
 
+            // the engine still applies the predicate, so the filters only need to cover part of it
+            ImmutableMap.Builder<Integer, Domain> filters = ImmutableMap.builder();
+            if (selectiveReaderEnabled && effectivePredicate.getDomains().isPresent()) {
+                Map<HiveColumnHandle, Domain> domains = effectivePredicate.getDomains().get();
+                for (ColumnReference<HiveColumnHandle> columnReference : columnReferences.build()) {
+                    Domain domain = domains.get(columnReference.getColumn());
+                    if (domain != null && !domain.isAll() && domain.getType().equals(columnReference.getType()) && OrcReader.isFilterSupported(columnReference.getType())) {
+                        filters.put(columnReference.getOrdinal(), domain);
+                    }
+                }
+            }
+
             OrcRecordReader recordReader = reader.createRecordReader(
                     includedColumns.build(),
                     predicate,
+                    filters.build(),
                     start,
                     length,
                     hiveStorageTimeZone,
@@ -243,6 +517,17 @@ public class OrcPageSourceFactory
         return format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, t.getMessage());
     }
 
+    private static FSDataInputStream openForConcurrentReads(FileSystem fileSystem, Path path)
+            throws IOException
+    {
+        // the sequential S3 stream serializes positioned reads, so the prefetched ranges are read with independent requests
+        FileSystem rawFileSystem = getRawFileSystem(fileSystem);
+        if (rawFileSystem instanceof PrestoS3FileSystem) {
+            return ((PrestoS3FileSystem) rawFileSystem).openForConcurrentReads(path);
+        }
+        return fileSystem.open(path);
+    }
+
     private static List<HiveColumnHandle> getPhysicalHiveColumnHandles(List<HiveColumnHandle> columns, boolean useOrcColumnNames, OrcReader reader, Path path)
     {
         if (!useOrcColumnNames) {
@@ -263,7 +548,7 @@ public class OrcPageSourceFactory
                 physicalOrdinal = nextMissingColumnIndex;
                 nextMissingColumnIndex++;
             }
-            physicalColumns.add(new HiveColumnHandle(column.getName(), column.getHiveType(), column.getTypeSignature(), physicalOrdinal, column.getColumnType(), column.getComment()));
+            physicalColumns.add(new HiveColumnHandle(column.getName(), column.getHiveType(), column.getTypeSignature(), physicalOrdinal, column.getColumnType(), column.getComment(), column.getAggregationType()));
         }
         return physicalColumns.build();
     }
@@ -0,0 +1,249 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.orc.DiskRange;
+import com.facebook.presto.orc.OrcDataSourceId;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.concurrent.BoundedExecutor;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.FSDataInputStream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNKNOWN_ERROR;
+import static com.facebook.presto.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static java.lang.Math.toIntExact;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the disk ranges hinted by {@link #prefetch} in parallel in the background.
+ * Ranges are merged the same way as by {@link #readFully(java.util.Map)}, so the reads
+ * of the stripe are served from the prefetched buffers. At most {@code maxConcurrentReads}
+ * reads are in flight, and at most {@code maxPrefetchSize} bytes are buffered. The buffered
+ * bytes are accounted in the memory context passed to {@link #prefetch}.
+ */
+public class PrefetchingOrcDataSource
+        extends HdfsOrcDataSource
+{
+    private final DataSize maxMergeDistance;
+    private final DataSize maxBufferSize;
+    private final Executor executor;
+    private final long maxPrefetchSize;
+    private final FileFormatDataSourceStats stats;
+
+    private final List<PrefetchedRange> prefetchedRanges = new ArrayList<>();
+    private long prefetchedBytes;
+    private LocalMemoryContext systemMemoryContext;
+    // ranges ending before the first range of the previous prefetch are not read anymore
+    private long previousPrefetchOffset;
+
+    public PrefetchingOrcDataSource(
+            OrcDataSourceId id,
+            long size,
+            DataSize maxMergeDistance,
+            DataSize maxBufferSize,
+            DataSize streamBufferSize,
+            boolean lazyReadSmallRanges,
+            FSDataInputStream inputStream,
+            FileFormatDataSourceStats stats,
+            Executor executor,
+            int maxConcurrentReads,
+            DataSize maxPrefetchSize)
+    {
+        super(id, size, maxMergeDistance, maxBufferSize, streamBufferSize, lazyReadSmallRanges, inputStream, stats);
+        this.maxMergeDistance = requireNonNull(maxMergeDistance, "maxMergeDistance is null");
+        this.maxBufferSize = requireNonNull(maxBufferSize, "maxBufferSize is null");
+        checkArgument(maxConcurrentReads > 0, "maxConcurrentReads must be at least 1");
+        this.executor = new BoundedExecutor(requireNonNull(executor, "executor is null"), maxConcurrentReads);
+        this.maxPrefetchSize = requireNonNull(maxPrefetchSize, "maxPrefetchSize is null").toBytes();
+        this.stats = requireNonNull(stats, "stats is null");
+    }
+
+    @Override
+    public boolean isPrefetching()
+    {
+        return true;
+    }
+
+    @Override
+    public void prefetch(Collection<DiskRange> diskRanges, LocalMemoryContext systemMemoryContext)
+    {
+        this.systemMemoryContext = requireNonNull(systemMemoryContext, "systemMemoryContext is null");
+        if (diskRanges.isEmpty()) {
+            return;
+        }
+
+        Iterator<PrefetchedRange> iterator = prefetchedRanges.iterator();
+        while (iterator.hasNext()) {
+            PrefetchedRange prefetchedRange = iterator.next();
+            if (prefetchedRange.getDiskRange().getEnd() <= previousPrefetchOffset) {
+                release(prefetchedRange);
+                iterator.remove();
+            }
+        }
+
+        List<DiskRange> mergedRanges = mergeAdjacentDiskRanges(diskRanges, maxMergeDistance, maxBufferSize);
+        previousPrefetchOffset = mergedRanges.get(0).getOffset();
+        for (DiskRange diskRange : mergedRanges) {
+            // large ranges are streamed in chunks, so the cost of the request is already amortized
+            if (diskRange.getLength() > maxBufferSize.toBytes() || findPrefetchedRange(diskRange.getOffset(), diskRange.getLength()) != null) {
+                continue;
+            }
+            if (prefetchedBytes + diskRange.getLength() > maxPrefetchSize) {
+                break;
+            }
+            PrefetchedRange prefetchedRange = new PrefetchedRange(diskRange);
+            prefetchedRanges.add(prefetchedRange);
+            prefetchedBytes += diskRange.getLength();
+            executor.execute(prefetchedRange::load);
+        }
+        updateMemoryUsage();
+    }
+
+    @Override
+    protected void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
+    {
+        PrefetchedRange prefetchedRange = findPrefetchedRange(position, bufferLength);
+        if (prefetchedRange == null) {
+            super.readInternal(position, buffer, bufferOffset, bufferLength);
+            return;
+        }
+
+        long start = System.nanoTime();
+        byte[] data = prefetchedRange.getData();
+        stats.addOrcPrefetchWaitTime(System.nanoTime() - start);
+
+        System.arraycopy(data, toIntExact(position - prefetchedRange.getDiskRange().getOffset()), buffer, bufferOffset, bufferLength);
+        if (prefetchedRange.consume(bufferLength)) {
+            prefetchedRanges.remove(prefetchedRange);
+            release(prefetchedRange);
+            updateMemoryUsage();
+        }
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        for (PrefetchedRange prefetchedRange : prefetchedRanges) {
+            prefetchedRange.cancel();
+        }
+        prefetchedRanges.clear();
+        prefetchedBytes = 0;
+        updateMemoryUsage();
+        super.close();
+    }
+
+    private PrefetchedRange findPrefetchedRange(long position, int length)
+    {
+        DiskRange diskRange = new DiskRange(position, length);
+        for (PrefetchedRange prefetchedRange : prefetchedRanges) {
+            if (prefetchedRange.getDiskRange().contains(diskRange)) {
+                return prefetchedRange;
+            }
+        }
+        return null;
+    }
+
+    private void release(PrefetchedRange prefetchedRange)
+    {
+        prefetchedRange.cancel();
+        prefetchedBytes -= prefetchedRange.getDiskRange().getLength();
+    }
+
+    private void updateMemoryUsage()
+    {
+        // the buffers of the hinted ranges are reserved before they are allocated by the reads
+        if (systemMemoryContext != null) {
+            systemMemoryContext.setBytes(prefetchedBytes);
+        }
+    }
+
+    private final class PrefetchedRange
+    {
+        private final DiskRange diskRange;
+        private final SettableFuture<byte[]> data = SettableFuture.create();
+        private long remainingBytes;
+
+        public PrefetchedRange(DiskRange diskRange)
+        {
+            this.diskRange = requireNonNull(diskRange, "diskRange is null");
+            this.remainingBytes = diskRange.getLength();
+        }
+
+        public DiskRange getDiskRange()
+        {
+            return diskRange;
+        }
+
+        public void load()
+        {
+            if (data.isDone()) {
+                return;
+            }
+            try {
+                long start = System.nanoTime();
+                byte[] buffer = new byte[diskRange.getLength()];
+                PrefetchingOrcDataSource.super.readInternal(diskRange.getOffset(), buffer, 0, buffer.length);
+                stats.addOrcPrefetchReadTime(System.nanoTime() - start);
+                data.set(buffer);
+            }
+            catch (Throwable t) {
+                data.setException(t);
+            }
+        }
+
+        public byte[] getData()
+        {
+            try {
+                return data.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PrestoException(HIVE_UNKNOWN_ERROR, format("Interrupted while reading from %s at position %s", PrefetchingOrcDataSource.this, diskRange.getOffset()), e);
+            }
+            catch (ExecutionException e) {
+                throwIfUnchecked(e.getCause());
+                throw new PrestoException(HIVE_UNKNOWN_ERROR, format("Error reading from %s at position %s", PrefetchingOrcDataSource.this, diskRange.getOffset()), e.getCause());
+            }
+        }
+
+        /**
+         * Returns true when all bytes of the range have been read.
+         */
+        public boolean consume(int length)
+        {
+            remainingBytes -= length;
+            return remainingBytes <= 0;
+        }
+
+        public void cancel()
+        {
+            data.cancel(false);
+        }
+    }
+}
@@ -17,28 +17,39 @@ import com.facebook.presto.hive.FileFormatDataSourceStats;
 import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
+import com.facebook.presto.hive.HiveSplitAggregator;
 import com.facebook.presto.memory.context.AggregatedMemoryContext;
 import com.facebook.presto.parquet.ParquetDataSource;
 import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.predicate.ParquetIntegerStatistics;
 import com.facebook.presto.parquet.predicate.Predicate;
 import com.facebook.presto.parquet.reader.MetadataReader;
 import com.facebook.presto.parquet.reader.ParquetReader;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import io.airlift.units.DataSize;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.joda.time.DateTimeZone;
 import parquet.column.ColumnDescriptor;
+import parquet.column.statistics.DoubleStatistics;
+import parquet.column.statistics.IntStatistics;
+import parquet.column.statistics.LongStatistics;
+import parquet.column.statistics.Statistics;
 import parquet.hadoop.metadata.BlockMetaData;
+import parquet.hadoop.metadata.ColumnChunkMetaData;
+import parquet.hadoop.metadata.ColumnPath;
 import parquet.hadoop.metadata.FileMetaData;
 import parquet.hadoop.metadata.ParquetMetadata;
 import parquet.io.MessageColumnIO;
@@ -60,6 +71,8 @@ import java.util.Set;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_MISSING_DATA;
+import static com.facebook.presto.hive.HiveSessionProperties.getParquetMaxReadSize;
+import static com.facebook.presto.hive.HiveSessionProperties.isParquetPageSkippingEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isUseParquetColumnNames;
 import static com.facebook.presto.hive.HiveUtil.getDeserializerClassName;
 import static com.facebook.presto.hive.parquet.HdfsParquetDataSource.buildHdfsParquetDataSource;
@@ -68,7 +81,15 @@ import static com.facebook.presto.parquet.ParquetTypeUtils.getColumnIO;
 import static com.facebook.presto.parquet.ParquetTypeUtils.getDescriptors;
 import static com.facebook.presto.parquet.ParquetTypeUtils.getParquetTypeByName;
 import static com.facebook.presto.parquet.predicate.PredicateUtils.buildPredicate;
+import static com.facebook.presto.parquet.predicate.PredicateUtils.isStatisticsOverflow;
 import static com.facebook.presto.parquet.predicate.PredicateUtils.predicateMatches;
+import static com.facebook.presto.spi.SplitAggregationType.ROW_COUNT;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
 import static com.google.common.base.Strings.nullToEmpty;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -123,11 +144,110 @@ public class ParquetPageSourceFactory
                 schema,
                 columns,
                 isUseParquetColumnNames(session),
+                isParquetPageSkippingEnabled(session),
+                getParquetMaxReadSize(session),
                 typeManager,
                 effectivePredicate,
                 stats));
     }
 
+    @Override
+    public Optional<? extends ConnectorPageSource> createAggregatedPageSource(
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            long start,
+            long length,
+            long fileSize,
+            Properties schema,
+            List<HiveColumnHandle> columns)
+    {
+        if (!PARQUET_SERDE_CLASS_NAMES.contains(getDeserializerClassName(schema))) {
+            return Optional.empty();
+        }
+
+        ParquetMetadata parquetMetadata;
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), path, configuration);
+            try (FSDataInputStream inputStream = fileSystem.open(path)) {
+                parquetMetadata = MetadataReader.readFooter(inputStream, path, fileSize);
+            }
+        }
+        catch (PrestoException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, e.getMessage()), e);
+        }
+
+        MessageType fileSchema = parquetMetadata.getFileMetaData().getSchema();
+        boolean useParquetColumnNames = isUseParquetColumnNames(session);
+        HiveSplitAggregator aggregator = new HiveSplitAggregator(columns, typeManager);
+        for (BlockMetaData block : parquetMetadata.getBlocks()) {
+            // same row group selection as the page source
+            long firstDataPage = block.getColumns().get(0).getFirstDataPageOffset();
+            if (firstDataPage < start || firstDataPage >= start + length) {
+                continue;
+            }
+
+            aggregator.addRows(block.getRowCount());
+            for (int column = 0; column < columns.size(); column++) {
+                HiveColumnHandle columnHandle = columns.get(column);
+                if (columnHandle.getAggregationType().get() == ROW_COUNT) {
+                    continue;
+                }
+                parquet.schema.Type parquetType = getParquetType(columnHandle, fileSchema, useParquetColumnNames);
+                if (parquetType == null) {
+                    // the column is missing from the file, so all values are null
+                    aggregator.addStatistics(column, 0, null, null, null);
+                    continue;
+                }
+                // statistics of nested columns describe the leaves, not the column values
+                if (!parquetType.isPrimitive()) {
+                    return Optional.empty();
+                }
+                Optional<ColumnChunkMetaData> columnChunk = block.getColumns().stream()
+                        .filter(chunk -> chunk.getPath().equals(ColumnPath.get(parquetType.getName())))
+                        .findFirst();
+                if (!columnChunk.isPresent() || !addColumnStatistics(aggregator, column, typeManager.getType(columnHandle.getHiveType().getTypeSignature()), block.getRowCount(), columnChunk.get().getStatistics())) {
+                    return Optional.empty();
+                }
+            }
+        }
+        return Optional.of(new FixedPageSource(ImmutableList.of(aggregator.buildPage())));
+    }
+
+    private static boolean addColumnStatistics(HiveSplitAggregator aggregator, int column, Type type, long rowCount, Statistics<?> statistics)
+    {
+        if (statistics == null || statistics.isEmpty()) {
+            return rowCount == 0;
+        }
+
+        // binary statistics may be truncated or ordered incorrectly by older writers
+        Object min = null;
+        Object max = null;
+        if (statistics.genericGetMin() != null && statistics.genericGetMax() != null) {
+            if ((type.equals(BIGINT) || type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT) || type.equals(DATE)) &&
+                    (statistics instanceof LongStatistics || statistics instanceof IntStatistics)) {
+                long minValue = ((Number) statistics.genericGetMin()).longValue();
+                long maxValue = ((Number) statistics.genericGetMax()).longValue();
+                if (minValue <= maxValue && !isStatisticsOverflow(type, new ParquetIntegerStatistics(minValue, maxValue))) {
+                    min = minValue;
+                    max = maxValue;
+                }
+            }
+            else if (type.equals(DOUBLE) && statistics instanceof DoubleStatistics) {
+                double minValue = ((DoubleStatistics) statistics).getMin();
+                double maxValue = ((DoubleStatistics) statistics).getMax();
+                if (!Double.isNaN(minValue) && !Double.isNaN(maxValue) && minValue <= maxValue) {
+                    min = minValue;
+                    max = maxValue;
+                }
+            }
+        }
+        return aggregator.addStatistics(column, rowCount - statistics.getNumNulls(), min, max, null);
+    }
+
     public static ParquetPageSource createParquetPageSource(
             HdfsEnvironment hdfsEnvironment,
             String user,
@@ -139,6 +259,8 @@ public class ParquetPageSourceFactory
             Properties schema,
             List<HiveColumnHandle> columns,
             boolean useParquetColumnNames,
+            boolean pageSkippingEnabled,
+            DataSize maxReadSize,
             TypeManager typeManager,
             TupleDomain<HiveColumnHandle> effectivePredicate,
             FileFormatDataSourceStats stats)
@@ -182,7 +304,10 @@ public class ParquetPageSourceFactory
                     messageColumnIO,
                     blocks,
                     dataSource,
-                    systemMemoryContext);
+                    systemMemoryContext,
+                    maxReadSize,
+                    pageSkippingEnabled ? parquetPredicate : Predicate.TRUE,
+                    pageSkippingEnabled ? parquetTupleDomain : TupleDomain.all());
 
             return new ParquetPageSource(
                     parquetReader,
@@ -51,6 +51,7 @@ import com.amazonaws.services.s3.transfer.Upload;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.AbstractSequentialIterator;
 import com.google.common.collect.Iterators;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Closer;
 import io.airlift.log.Logger;
 import io.airlift.units.DataSize;
@@ -73,6 +74,7 @@ import org.apache.hadoop.util.Progressable;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -136,6 +138,8 @@ import static java.nio.file.Files.createDirectories;
 import static java.nio.file.Files.createTempFile;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.IO_FILE_BUFFER_SIZE_DEFAULT;
+import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.IO_FILE_BUFFER_SIZE_KEY;
 import static org.apache.http.HttpStatus.SC_BAD_REQUEST;
 import static org.apache.http.HttpStatus.SC_FORBIDDEN;
 import static org.apache.http.HttpStatus.SC_NOT_FOUND;
@@ -342,10 +346,24 @@ public class PrestoS3FileSystem
 
     @Override
     public FSDataInputStream open(Path path, int bufferSize)
+    {
+        return open(path, bufferSize, false);
+    }
+
+    /**
+     * Opens the file for concurrent positioned reads. Each positioned read is served by an
+     * independent ranged request instead of seeking the sequential stream of the file.
+     */
+    public FSDataInputStream openForConcurrentReads(Path path)
+    {
+        return open(path, getConf().getInt(IO_FILE_BUFFER_SIZE_KEY, IO_FILE_BUFFER_SIZE_DEFAULT), true);
+    }
+
+    private FSDataInputStream open(Path path, int bufferSize, boolean rangedPositionedReads)
     {
         return new FSDataInputStream(
                 new BufferedFSInputStream(
-                        new PrestoS3InputStream(s3, getBucketName(uri), path, maxAttempts, maxBackoffTime, maxRetryTime),
+                        new PrestoS3InputStream(s3, getBucketName(uri), path, maxAttempts, maxBackoffTime, maxRetryTime, rangedPositionedReads),
                         bufferSize));
     }
 
@@ -774,13 +792,14 @@ public class PrestoS3FileSystem
         private final int maxAttempts;
         private final Duration maxBackoffTime;
         private final Duration maxRetryTime;
+        private final boolean rangedPositionedReads;
 
         private boolean closed;
         private InputStream in;
         private long streamPosition;
         private long nextReadPosition;
 
-        public PrestoS3InputStream(AmazonS3 s3, String host, Path path, int maxAttempts, Duration maxBackoffTime, Duration maxRetryTime)
+        public PrestoS3InputStream(AmazonS3 s3, String host, Path path, int maxAttempts, Duration maxBackoffTime, Duration maxRetryTime, boolean rangedPositionedReads)
         {
             this.s3 = requireNonNull(s3, "s3 is null");
             this.host = requireNonNull(host, "host is null");
@@ -790,6 +809,7 @@ public class PrestoS3FileSystem
             this.maxAttempts = maxAttempts;
             this.maxBackoffTime = requireNonNull(maxBackoffTime, "maxBackoffTime is null");
             this.maxRetryTime = requireNonNull(maxRetryTime, "maxRetryTime is null");
+            this.rangedPositionedReads = rangedPositionedReads;
         }
 
         @Override
@@ -861,6 +881,58 @@ public class PrestoS3FileSystem
             }
         }
 
+        @Override
+        public void readFully(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            if (!rangedPositionedReads) {
+                super.readFully(position, buffer, offset, length);
+                return;
+            }
+
+            checkState(!closed, "already closed");
+            if (length == 0) {
+                return;
+            }
+
+            // use a ranged request instead of the sequential stream, so concurrent positioned reads
+            // are not serialized on the stream, and do not invalidate its position
+            try {
+                retry()
+                        .maxAttempts(maxAttempts)
+                        .exponentialBackoff(BACKOFF_MIN_SLEEP, maxBackoffTime, maxRetryTime, 2.0)
+                        .stopOn(InterruptedException.class, UnrecoverableS3OperationException.class, AbortedException.class, EOFException.class)
+                        .onRetry(STATS::newReadRetry)
+                        .run("readFully", () -> {
+                            InputStream stream = openStream(path, position, position + length - 1);
+                            STATS.connectionOpened();
+                            try {
+                                ByteStreams.readFully(stream, buffer, offset, length);
+                                // the response has been fully consumed, so closing the stream returns its connection to the pool
+                                stream.close();
+                                return null;
+                            }
+                            catch (Exception e) {
+                                STATS.newReadError(e);
+                                abortStream(stream);
+                                throw e;
+                            }
+                            finally {
+                                STATS.connectionReleased();
+                            }
+                        });
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            catch (Exception e) {
+                throwIfInstanceOf(e, IOException.class);
+                throwIfUnchecked(e);
+                throw new RuntimeException(e);
+            }
+        }
+
         @Override
         public boolean seekToNewSource(long targetPos)
         {
@@ -910,6 +982,18 @@ public class PrestoS3FileSystem
 
         private InputStream openStream(Path path, long start)
                 throws IOException
+        {
+            return openStream(new GetObjectRequest(host, keyFromPath(path)).withRange(start));
+        }
+
+        private InputStream openStream(Path path, long start, long end)
+                throws IOException
+        {
+            return openStream(new GetObjectRequest(host, keyFromPath(path)).withRange(start, end));
+        }
+
+        private InputStream openStream(GetObjectRequest request)
+                throws IOException
         {
             try {
                 return retry()
@@ -919,7 +1003,6 @@ public class PrestoS3FileSystem
                         .onRetry(STATS::newGetObjectRetry)
                         .run("getS3Object", () -> {
                             try {
-                                GetObjectRequest request = new GetObjectRequest(host, keyFromPath(path)).withRange(start);
                                 return s3.getObject(request).getObjectContent();
                             }
                             catch (RuntimeException e) {
@@ -953,21 +1036,26 @@ public class PrestoS3FileSystem
         private void closeStream()
         {
             if (in != null) {
-                try {
-                    if (in instanceof S3ObjectInputStream) {
-                        ((S3ObjectInputStream) in).abort();
-                    }
-                    else {
-                        in.close();
-                    }
-                }
-                catch (IOException | AbortedException ignored) {
-                    // thrown if the current thread is in the interrupted state
-                }
+                abortStream(in);
                 in = null;
                 STATS.connectionReleased();
             }
         }
+
+        private static void abortStream(InputStream in)
+        {
+            try {
+                if (in instanceof S3ObjectInputStream) {
+                    ((S3ObjectInputStream) in).abort();
+                }
+                else {
+                    in.close();
+                }
+            }
+            catch (IOException | AbortedException ignored) {
+                // thrown if the current thread is in the interrupted state
+            }
+        }
     }
 
     private static class PrestoS3OutputStream
@@ -91,6 +91,7 @@ public final class HiveTestUtils
         return ImmutableSet.<HiveFileWriterFactory>builder()
                 .add(new RcFileFileWriterFactory(testHdfsEnvironment, TYPE_MANAGER, new NodeVersion("test_version"), hiveClientConfig, new FileFormatDataSourceStats()))
                 .add(getDefaultOrcFileWriterFactory(hiveClientConfig))
+                .add(new ParquetFileWriterFactory(testHdfsEnvironment, TYPE_MANAGER, new NodeVersion("test_version")))
                 .build();
     }
 
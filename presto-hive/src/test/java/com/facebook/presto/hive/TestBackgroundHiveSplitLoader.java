@@ -19,9 +19,11 @@ import com.facebook.presto.hive.authentication.NoHdfsAuthentication;
 import com.facebook.presto.hive.metastore.Column;
 import com.facebook.presto.hive.metastore.StorageFormat;
 import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.testing.TestingConnectorSession;
 import com.google.common.collect.AbstractIterator;
@@ -49,6 +51,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import static com.facebook.presto.hive.BackgroundHiveSplitLoader.BucketSplitInfo.createBucketSplitInfo;
 import static com.facebook.presto.hive.HiveColumnHandle.pathColumnHandle;
@@ -200,6 +203,47 @@ public class TestBackgroundHiveSplitLoader
         assertThrows(RuntimeException.class, () -> hiveSplitSource.isFinished());
     }
 
+    @Test
+    public void testDynamicFilterPrunesPartitions()
+            throws Exception
+    {
+        HiveColumnHandle partitionColumn = new HiveColumnHandle("partitionColumn", HIVE_INT, INTEGER.getTypeSignature(), 0, ColumnType.PARTITION_KEY, Optional.empty());
+        List<HivePartitionMetadata> partitions = ImmutableList.of(
+                partitionMetadata(partitionColumn, 1),
+                partitionMetadata(partitionColumn, 2));
+
+        BackgroundHiveSplitLoader backgroundHiveSplitLoader = backgroundHiveSplitLoader(partitions, TupleDomain::all);
+        HiveSplitSource hiveSplitSource = hiveSplitSource(backgroundHiveSplitLoader, TupleDomain.all());
+        backgroundHiveSplitLoader.start(hiveSplitSource);
+        assertEquals(drain(hiveSplitSource).size(), 4);
+
+        TupleDomain<ColumnHandle> dynamicFilter = withColumnDomains(ImmutableMap.of(partitionColumn, Domain.singleValue(INTEGER, 2L)));
+        backgroundHiveSplitLoader = backgroundHiveSplitLoader(partitions, () -> dynamicFilter);
+        hiveSplitSource = hiveSplitSource(backgroundHiveSplitLoader, TupleDomain.all());
+        backgroundHiveSplitLoader.start(hiveSplitSource);
+        List<HiveSplit> splits = drainSplits(hiveSplitSource);
+        assertEquals(splits.size(), 2);
+        for (HiveSplit split : splits) {
+            assertEquals(split.getPartitionName(), "partitionColumn=2");
+        }
+
+        backgroundHiveSplitLoader = backgroundHiveSplitLoader(partitions, TupleDomain::none);
+        hiveSplitSource = hiveSplitSource(backgroundHiveSplitLoader, TupleDomain.all());
+        backgroundHiveSplitLoader.start(hiveSplitSource);
+        assertEquals(drain(hiveSplitSource).size(), 0);
+    }
+
+    private static HivePartitionMetadata partitionMetadata(HiveColumnHandle partitionColumn, long value)
+    {
+        return new HivePartitionMetadata(
+                new HivePartition(
+                        new SchemaTableName("testSchema", "table_name"),
+                        "partitionColumn=" + value,
+                        ImmutableMap.of(partitionColumn, NullableValue.of(INTEGER, value))),
+                Optional.empty(),
+                ImmutableMap.of());
+    }
+
     private static List<String> drain(HiveSplitSource source)
             throws Exception
     {
@@ -254,6 +298,7 @@ public class TestBackgroundHiveSplitLoader
                 table,
                 hivePartitionMetadatas,
                 compactEffectivePredicate,
+                TupleDomain::all,
                 createBucketSplitInfo(bucketHandle, hiveBucketFilter),
                 connectorSession,
                 new TestingHdfsEnvironment(),
@@ -264,6 +309,28 @@ public class TestBackgroundHiveSplitLoader
                 false);
     }
 
+    private static BackgroundHiveSplitLoader backgroundHiveSplitLoader(
+            List<HivePartitionMetadata> partitions,
+            Supplier<TupleDomain<ColumnHandle>> dynamicFilter)
+    {
+        ConnectorSession connectorSession = new TestingConnectorSession(
+                new HiveSessionProperties(new HiveClientConfig().setMaxSplitSize(new DataSize(1.0, GIGABYTE)), new OrcFileWriterConfig(), new ParquetFileWriterConfig()).getSessionProperties());
+
+        return new BackgroundHiveSplitLoader(
+                SIMPLE_TABLE,
+                partitions,
+                TupleDomain.all(),
+                dynamicFilter,
+                createBucketSplitInfo(Optional.empty(), Optional.empty()),
+                connectorSession,
+                new TestingHdfsEnvironment(),
+                new NamenodeStats(),
+                new TestingDirectoryLister(TEST_FILES),
+                EXECUTOR,
+                2,
+                false);
+    }
+
     private static BackgroundHiveSplitLoader backgroundHiveSplitLoaderOfflinePartitions()
     {
         ConnectorSession connectorSession = new TestingConnectorSession(
@@ -273,6 +340,7 @@ public class TestBackgroundHiveSplitLoader
                 SIMPLE_TABLE,
                 createPartitionMetadataWithOfflinePartitions(),
                 TupleDomain.all(),
+                TupleDomain::all,
                 createBucketSplitInfo(Optional.empty(), Optional.empty()),
                 connectorSession,
                 new TestingHdfsEnvironment(),
@@ -80,9 +80,15 @@ public class TestHiveClientConfig
                 .setWriteValidationThreads(16)
                 .setTextMaxLineLength(new DataSize(100, Unit.MEGABYTE))
                 .setUseParquetColumnNames(false)
+                .setParquetPageSkippingEnabled(true)
+                .setParquetMaxReadSize(new DataSize(1, Unit.MEGABYTE))
                 .setUseOrcColumnNames(false)
                 .setAssumeCanonicalPartitionKeys(false)
                 .setOrcBloomFiltersEnabled(false)
+                .setOrcSelectiveReaderEnabled(false)
+                .setOrcPrefetchEnabled(false)
+                .setOrcPrefetchMaxConcurrentReads(4)
+                .setOrcPrefetchMaxBufferSize(new DataSize(64, Unit.MEGABYTE))
                 .setOrcDefaultBloomFilterFpp(0.05)
                 .setOrcMaxMergeDistance(new DataSize(1, Unit.MEGABYTE))
                 .setOrcMaxBufferSize(new DataSize(8, Unit.MEGABYTE))
@@ -160,8 +166,14 @@ public class TestHiveClientConfig
                 .put("hive.assume-canonical-partition-keys", "true")
                 .put("hive.text.max-line-length", "13MB")
                 .put("hive.parquet.use-column-names", "true")
+                .put("hive.parquet.page-skipping.enabled", "false")
+                .put("hive.parquet.max-read-size", "64kB")
                 .put("hive.orc.use-column-names", "true")
                 .put("hive.orc.bloom-filters.enabled", "true")
+                .put("hive.orc.selective-reader.enabled", "true")
+                .put("hive.orc.prefetch.enabled", "true")
+                .put("hive.orc.prefetch.max-concurrent-reads", "8")
+                .put("hive.orc.prefetch.max-buffer-size", "128MB")
                 .put("hive.orc.default-bloom-filter-fpp", "0.96")
                 .put("hive.orc.max-merge-distance", "22kB")
                 .put("hive.orc.max-buffer-size", "44kB")
@@ -236,9 +248,15 @@ public class TestHiveClientConfig
                 .setS3FileSystemType(S3FileSystemType.EMRFS)
                 .setTextMaxLineLength(new DataSize(13, Unit.MEGABYTE))
                 .setUseParquetColumnNames(true)
+                .setParquetPageSkippingEnabled(false)
+                .setParquetMaxReadSize(new DataSize(64, Unit.KILOBYTE))
                 .setUseOrcColumnNames(true)
                 .setAssumeCanonicalPartitionKeys(true)
                 .setOrcBloomFiltersEnabled(true)
+                .setOrcSelectiveReaderEnabled(true)
+                .setOrcPrefetchEnabled(true)
+                .setOrcPrefetchMaxConcurrentReads(8)
+                .setOrcPrefetchMaxBufferSize(new DataSize(128, Unit.MEGABYTE))
                 .setOrcDefaultBloomFilterFpp(0.96)
                 .setOrcMaxMergeDistance(new DataSize(22, Unit.KILOBYTE))
                 .setOrcMaxBufferSize(new DataSize(44, Unit.KILOBYTE))
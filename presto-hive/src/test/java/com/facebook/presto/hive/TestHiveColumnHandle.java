@@ -21,6 +21,8 @@ import java.util.Optional;
 
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.PARTITION_KEY;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.spi.SplitAggregationType.MAX;
+import static com.facebook.presto.spi.SplitAggregationType.ROW_COUNT;
 import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
 import static org.testng.Assert.assertEquals;
 
@@ -49,6 +51,18 @@ public class TestHiveColumnHandle
         testRoundTrip(expectedRegularColumn);
     }
 
+    @Test
+    public void testAggregatedColumn()
+    {
+        HiveColumnHandle argument = new HiveColumnHandle("name", HiveType.HIVE_LONG, parseTypeSignature(StandardTypes.BIGINT), 3, REGULAR, Optional.empty());
+        HiveColumnHandle expectedAggregatedColumn = HiveColumnHandle.aggregatedColumnHandle(MAX, Optional.of(argument), parseTypeSignature(StandardTypes.BIGINT));
+        testRoundTrip(expectedAggregatedColumn);
+        assertEquals(codec.fromJson(codec.toJson(expectedAggregatedColumn)), expectedAggregatedColumn);
+
+        HiveColumnHandle rowCountColumn = HiveColumnHandle.aggregatedColumnHandle(ROW_COUNT, Optional.empty(), parseTypeSignature(StandardTypes.BIGINT));
+        assertEquals(codec.fromJson(codec.toJson(rowCountColumn)), rowCountColumn);
+    }
+
     private void testRoundTrip(HiveColumnHandle expected)
     {
         String json = codec.toJson(expected);
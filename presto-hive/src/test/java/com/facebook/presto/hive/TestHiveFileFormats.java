@@ -367,6 +367,42 @@ public class TestHiveFileFormats
                 .isReadableByPageSource(new ParquetPageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT, STATS));
     }
 
+    @Test(dataProvider = "rowCount")
+    public void testParquetOptimizedWriter(int rowCount)
+            throws Exception
+    {
+        TestingConnectorSession session = new TestingConnectorSession(
+                new HiveSessionProperties(
+                        new HiveClientConfig(),
+                        new OrcFileWriterConfig(),
+                        new ParquetFileWriterConfig().setParquetOptimizedWriterEnabled(true)).getSessionProperties());
+
+        // the optimized writer only supports primitive types
+        List<TestColumn> testColumns = TEST_COLUMNS.stream()
+                .filter(column -> column.getObjectInspector().getCategory() == ObjectInspector.Category.PRIMITIVE)
+                .collect(toList());
+
+        for (HiveCompressionCodec compressionCodec : HiveCompressionCodec.values()) {
+            assertThatFileFormat(PARQUET)
+                    .withColumns(testColumns)
+                    .withRowsCount(rowCount)
+                    .withSession(session)
+                    .withCompressionCodec(compressionCodec)
+                    .withFileWriterFactory(new ParquetFileWriterFactory(HDFS_ENVIRONMENT, TYPE_MANAGER, new NodeVersion("test")))
+                    .isReadableByPageSource(new ParquetPageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT, STATS));
+        }
+
+        // the Hive record cursor adjusts Parquet timestamps to the storage time zone, while the page source does not
+        assertThatFileFormat(PARQUET)
+                .withColumns(testColumns.stream()
+                        .filter(column -> !hasType(column.getObjectInspector(), PrimitiveCategory.TIMESTAMP))
+                        .collect(toList()))
+                .withRowsCount(rowCount)
+                .withSession(session)
+                .withFileWriterFactory(new ParquetFileWriterFactory(HDFS_ENVIRONMENT, TYPE_MANAGER, new NodeVersion("test")))
+                .isReadableByRecordCursor(new GenericHiveRecordCursorProvider(HDFS_ENVIRONMENT));
+    }
+
     private static List<TestColumn> getTestColumnsSupportedByParquet()
     {
         // Write of complex hive data to Parquet is broken
@@ -912,6 +912,66 @@ public class TestHiveIntegrationSmokeTest
         assertUpdate("DROP TABLE " + tableName);
     }
 
+    @Test
+    public void testOrcSelectiveReader()
+    {
+        Session session = Session.builder(getSession())
+                .setCatalogSessionProperty(catalog, "orc_selective_reader_enabled", "true")
+                .build();
+
+        assertUpdate("CREATE TABLE test_orc_selective_reader WITH (format = 'ORC') AS SELECT orderkey, custkey, orderstatus, comment FROM orders", "SELECT count(*) FROM orders");
+
+        assertQuery(session, "SELECT orderkey, comment FROM test_orc_selective_reader WHERE custkey BETWEEN 100 AND 200", "SELECT orderkey, comment FROM orders WHERE custkey BETWEEN 100 AND 200");
+        assertQuery(session, "SELECT orderkey, custkey FROM test_orc_selective_reader WHERE orderstatus IN ('P', 'O') AND orderkey < 1000", "SELECT orderkey, custkey FROM orders WHERE orderstatus IN ('P', 'O') AND orderkey < 1000");
+        assertQuery(session, "SELECT count(*) FROM test_orc_selective_reader WHERE custkey IS NULL", "SELECT 0");
+        assertQuery(session, "SELECT count(*) FROM test_orc_selective_reader WHERE orderkey = -1", "SELECT 0");
+
+        assertUpdate("DROP TABLE test_orc_selective_reader");
+    }
+
+    @Test
+    public void testParquetPageSkipping()
+    {
+        Session writeSession = Session.builder(getSession())
+                .setCatalogSessionProperty(catalog, "parquet_writer_page_size", "1kB")
+                .build();
+        Session pageSkippingDisabled = Session.builder(getSession())
+                .setCatalogSessionProperty(catalog, "parquet_page_skipping_enabled", "false")
+                .build();
+        Session smallReads = Session.builder(getSession())
+                .setCatalogSessionProperty(catalog, "parquet_max_read_size", "2kB")
+                .build();
+
+        assertUpdate(writeSession, "CREATE TABLE test_parquet_page_skipping WITH (format = 'PARQUET') AS SELECT orderkey, custkey, orderstatus, comment FROM orders ORDER BY orderkey", "SELECT count(*) FROM orders");
+
+        for (Session session : ImmutableList.of(getSession(), pageSkippingDisabled, smallReads)) {
+            assertQuery(session, "SELECT orderkey, comment FROM test_parquet_page_skipping WHERE orderkey BETWEEN 1000 AND 2000", "SELECT orderkey, comment FROM orders WHERE orderkey BETWEEN 1000 AND 2000");
+            assertQuery(session, "SELECT orderkey, custkey FROM test_parquet_page_skipping WHERE orderkey < 5000 AND custkey > 500", "SELECT orderkey, custkey FROM orders WHERE orderkey < 5000 AND custkey > 500");
+            assertQuery(session, "SELECT count(*) FROM test_parquet_page_skipping WHERE orderkey = -1", "SELECT 0");
+        }
+
+        assertUpdate("DROP TABLE test_parquet_page_skipping");
+    }
+
+    @Test
+    public void testOrcBloomFilters()
+    {
+        Session session = Session.builder(getSession())
+                .setCatalogSessionProperty(catalog, "orc_bloom_filters_enabled", "true")
+                .build();
+
+        assertUpdate("" +
+                "CREATE TABLE test_orc_bloom_filters (orderkey bigint, custkey bigint, comment varchar) " +
+                "WITH (format = 'ORC', orc_bloom_filter_columns = ARRAY['orderkey', 'comment'], orc_bloom_filter_fpp = 0.01)");
+        assertUpdate("INSERT INTO test_orc_bloom_filters SELECT orderkey, custkey, comment FROM orders", "SELECT count(*) FROM orders");
+
+        assertQuery(session, "SELECT custkey FROM test_orc_bloom_filters WHERE orderkey = 7", "SELECT custkey FROM orders WHERE orderkey = 7");
+        assertQuery(session, "SELECT orderkey FROM test_orc_bloom_filters WHERE orderkey IN (1, 3, 100, 1000, -1)", "SELECT orderkey FROM orders WHERE orderkey IN (1, 3, 100, 1000, -1)");
+        assertQuery(session, "SELECT count(*) FROM test_orc_bloom_filters WHERE comment = 'no such comment'", "SELECT 0");
+
+        assertUpdate("DROP TABLE test_orc_bloom_filters");
+    }
+
     @Test
     public void testCreateEmptyBucketedPartition()
     {
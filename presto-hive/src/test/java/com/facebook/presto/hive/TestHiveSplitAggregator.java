@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.SplitAggregationType;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.HiveColumnHandle.aggregatedColumnHandle;
+import static com.facebook.presto.hive.HiveTestUtils.TYPE_MANAGER;
+import static com.facebook.presto.hive.HiveType.HIVE_DOUBLE;
+import static com.facebook.presto.hive.HiveType.HIVE_INT;
+import static com.facebook.presto.spi.SplitAggregationType.MAX;
+import static com.facebook.presto.spi.SplitAggregationType.MIN;
+import static com.facebook.presto.spi.SplitAggregationType.NON_NULL_COUNT;
+import static com.facebook.presto.spi.SplitAggregationType.ROW_COUNT;
+import static com.facebook.presto.spi.SplitAggregationType.SUM;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestHiveSplitAggregator
+{
+    private static final HiveColumnHandle INT_COLUMN = new HiveColumnHandle("i", HIVE_INT, INTEGER.getTypeSignature(), 0, REGULAR, Optional.empty());
+    private static final HiveColumnHandle DOUBLE_COLUMN = new HiveColumnHandle("d", HIVE_DOUBLE, DOUBLE.getTypeSignature(), 1, REGULAR, Optional.empty());
+
+    @Test
+    public void testAddValues()
+    {
+        HiveSplitAggregator aggregator = new HiveSplitAggregator(
+                ImmutableList.of(
+                        aggregated(ROW_COUNT, Optional.empty(), BIGINT),
+                        aggregated(NON_NULL_COUNT, Optional.of(INT_COLUMN), BIGINT),
+                        aggregated(MIN, Optional.of(INT_COLUMN), INTEGER),
+                        aggregated(MAX, Optional.of(INT_COLUMN), INTEGER),
+                        aggregated(SUM, Optional.of(INT_COLUMN), BIGINT),
+                        aggregated(SUM, Optional.of(DOUBLE_COLUMN), DOUBLE)),
+                TYPE_MANAGER);
+
+        Block ints = createIntegerBlock(5, null, -3, 7);
+        Block doubles = createDoubleBlock(1.5, 2.5, null, null);
+        aggregator.addRows(4);
+        for (int column = 1; column < 5; column++) {
+            aggregator.addValues(column, ints);
+        }
+        aggregator.addValues(5, doubles);
+
+        Page page = aggregator.buildPage();
+        assertEquals(page.getPositionCount(), 1);
+        assertEquals(BIGINT.getLong(page.getBlock(0), 0), 4);
+        assertEquals(BIGINT.getLong(page.getBlock(1), 0), 3);
+        assertEquals(INTEGER.getLong(page.getBlock(2), 0), -3);
+        assertEquals(INTEGER.getLong(page.getBlock(3), 0), 7);
+        assertEquals(BIGINT.getLong(page.getBlock(4), 0), 9);
+        assertEquals(DOUBLE.getDouble(page.getBlock(5), 0), 4.0);
+    }
+
+    @Test
+    public void testAddStatistics()
+    {
+        HiveSplitAggregator aggregator = new HiveSplitAggregator(
+                ImmutableList.of(
+                        aggregated(NON_NULL_COUNT, Optional.of(INT_COLUMN), BIGINT),
+                        aggregated(MIN, Optional.of(INT_COLUMN), INTEGER),
+                        aggregated(SUM, Optional.of(INT_COLUMN), BIGINT)),
+                TYPE_MANAGER);
+
+        for (int column = 0; column < 3; column++) {
+            assertTrue(aggregator.addStatistics(column, 10, 4L, 20L, 100L));
+            assertTrue(aggregator.addStatistics(column, 5, 2L, 8L, 25L));
+            // part with only nulls does not need statistics
+            assertTrue(aggregator.addStatistics(column, 0, null, null, null));
+        }
+
+        Page page = aggregator.buildPage();
+        assertEquals(BIGINT.getLong(page.getBlock(0), 0), 15);
+        assertEquals(INTEGER.getLong(page.getBlock(1), 0), 2);
+        assertEquals(BIGINT.getLong(page.getBlock(2), 0), 125);
+    }
+
+    @Test
+    public void testMissingStatistics()
+    {
+        HiveSplitAggregator aggregator = new HiveSplitAggregator(
+                ImmutableList.of(
+                        aggregated(NON_NULL_COUNT, Optional.of(INT_COLUMN), BIGINT),
+                        aggregated(MAX, Optional.of(INT_COLUMN), INTEGER)),
+                TYPE_MANAGER);
+
+        assertTrue(aggregator.addStatistics(0, 10, null, null, null));
+        assertFalse(aggregator.addStatistics(1, 10, 1L, null, null));
+    }
+
+    @Test
+    public void testEmptySplit()
+    {
+        HiveSplitAggregator aggregator = new HiveSplitAggregator(
+                ImmutableList.of(
+                        aggregated(ROW_COUNT, Optional.empty(), BIGINT),
+                        aggregated(MIN, Optional.of(INT_COLUMN), INTEGER),
+                        aggregated(SUM, Optional.of(DOUBLE_COLUMN), DOUBLE)),
+                TYPE_MANAGER);
+
+        Page page = aggregator.buildPage();
+        assertEquals(BIGINT.getLong(page.getBlock(0), 0), 0);
+        assertTrue(page.getBlock(1).isNull(0));
+        assertTrue(page.getBlock(2).isNull(0));
+    }
+
+    private static HiveColumnHandle aggregated(SplitAggregationType aggregationType, Optional<HiveColumnHandle> argument, Type type)
+    {
+        return aggregatedColumnHandle(aggregationType, argument, type.getTypeSignature());
+    }
+
+    private static Block createIntegerBlock(Integer... values)
+    {
+        BlockBuilder blockBuilder = INTEGER.createBlockBuilder(null, values.length);
+        for (Integer value : values) {
+            if (value == null) {
+                blockBuilder.appendNull();
+            }
+            else {
+                INTEGER.writeLong(blockBuilder, value);
+            }
+        }
+        return blockBuilder.build();
+    }
+
+    private static Block createDoubleBlock(Double... values)
+    {
+        BlockBuilder blockBuilder = DOUBLE.createBlockBuilder(null, values.length);
+        for (Double value : values) {
+            if (value == null) {
+                blockBuilder.appendNull();
+            }
+            else {
+                DOUBLE.writeDouble(blockBuilder, value);
+            }
+        }
+        return blockBuilder.build();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static io.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
+import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
+import static io.airlift.configuration.testing.ConfigAssertions.recordDefaults;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+public class TestOrcCacheConfig
+{
+    @Test
+    public void testDefaults()
+    {
+        assertRecordedDefaults(recordDefaults(OrcCacheConfig.class)
+                .setFileTailCacheEnabled(false)
+                .setFileTailCacheSize(new DataSize(64, MEGABYTE))
+                .setFileTailCacheTtlSinceLastAccess(new Duration(1, HOURS))
+                .setStripeMetadataCacheEnabled(false)
+                .setStripeFooterCacheSize(new DataSize(32, MEGABYTE))
+                .setRowGroupIndexCacheSize(new DataSize(128, MEGABYTE))
+                .setStripeMetadataCacheTtlSinceLastAccess(new Duration(1, HOURS)));
+    }
+
+    @Test
+    public void testExplicitPropertyMappings()
+    {
+        Map<String, String> properties = new ImmutableMap.Builder<String, String>()
+                .put("hive.orc.file-tail-cache-enabled", "true")
+                .put("hive.orc.file-tail-cache-size", "1MB")
+                .put("hive.orc.file-tail-cache-ttl-since-last-access", "10m")
+                .put("hive.orc.stripe-metadata-cache-enabled", "true")
+                .put("hive.orc.stripe-footer-cache-size", "2MB")
+                .put("hive.orc.row-group-index-cache-size", "512kB")
+                .put("hive.orc.stripe-metadata-cache-ttl-since-last-access", "5m")
+                .build();
+
+        OrcCacheConfig expected = new OrcCacheConfig()
+                .setFileTailCacheEnabled(true)
+                .setFileTailCacheSize(new DataSize(1, MEGABYTE))
+                .setFileTailCacheTtlSinceLastAccess(new Duration(10, MINUTES))
+                .setStripeMetadataCacheEnabled(true)
+                .setStripeFooterCacheSize(new DataSize(2, MEGABYTE))
+                .setRowGroupIndexCacheSize(new DataSize(512, KILOBYTE))
+                .setStripeMetadataCacheTtlSinceLastAccess(new Duration(5, MINUTES));
+
+        assertFullMapping(properties, expected);
+    }
+}
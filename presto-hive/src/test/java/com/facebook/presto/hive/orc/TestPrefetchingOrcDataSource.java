@@ -0,0 +1,153 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.orc.DiskRange;
+import com.facebook.presto.orc.OrcDataSourceId;
+import com.facebook.presto.orc.OrcDataSourceInput;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+
+public class TestPrefetchingOrcDataSource
+{
+    private static final int FILE_SIZE = 1024 * 1024;
+
+    private final byte[] data = new byte[FILE_SIZE];
+    private File tempDir;
+    private File file;
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void setUp()
+            throws IOException
+    {
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        tempDir = Files.createTempDirectory(null).toFile();
+        file = new File(tempDir, "data");
+        Files.write(file.toPath(), data);
+        executor = newCachedThreadPool(daemonThreadsNamed("test-prefetch-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        executor.shutdownNow();
+        deleteRecursively(tempDir.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testReadPrefetchedRanges()
+            throws IOException
+    {
+        FileFormatDataSourceStats stats = new FileFormatDataSourceStats();
+        LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
+        try (PrefetchingOrcDataSource dataSource = createDataSource(stats, new DataSize(1, MEGABYTE))) {
+            Map<String, DiskRange> diskRanges = ImmutableMap.of(
+                    "a", new DiskRange(100, 1000),
+                    "b", new DiskRange(1200, 3000),
+                    "c", new DiskRange(200_000, 5000));
+            dataSource.prefetch(diskRanges.values(), memoryContext);
+            // the buffers of the merged range of a and b, and of c
+            assertEquals(memoryContext.getBytes(), 4100 + 5000);
+
+            Map<String, OrcDataSourceInput> inputs = dataSource.readFully(diskRanges);
+            for (Map.Entry<String, DiskRange> entry : diskRanges.entrySet()) {
+                assertRange(inputs.get(entry.getKey()), entry.getValue());
+            }
+
+            // ranges not prefetched are read directly
+            byte[] buffer = new byte[100];
+            dataSource.readFully(500_000, buffer);
+            assertEquals(buffer, Arrays.copyOfRange(data, 500_000, 500_100));
+        }
+        assertEquals(memoryContext.getBytes(), 0);
+        // the two close ranges are merged into one read
+        assertEquals(stats.getOrcPrefetchReadTime().getAllTime().getCount(), 2.0);
+        assertEquals(stats.getOrcPrefetchWaitTime().getAllTime().getCount(), 2.0);
+    }
+
+    @Test
+    public void testPrefetchSizeLimit()
+            throws IOException
+    {
+        FileFormatDataSourceStats stats = new FileFormatDataSourceStats();
+        try (PrefetchingOrcDataSource dataSource = createDataSource(stats, new DataSize(8, KILOBYTE))) {
+            Map<String, DiskRange> diskRanges = ImmutableMap.of(
+                    "a", new DiskRange(0, 6000),
+                    "b", new DiskRange(300_000, 6000));
+            dataSource.prefetch(ImmutableList.copyOf(diskRanges.values()), newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+
+            Map<String, OrcDataSourceInput> inputs = dataSource.readFully(diskRanges);
+            for (Map.Entry<String, DiskRange> entry : diskRanges.entrySet()) {
+                assertRange(inputs.get(entry.getKey()), entry.getValue());
+            }
+        }
+        assertEquals(stats.getOrcPrefetchReadTime().getAllTime().getCount(), 1.0);
+    }
+
+    private PrefetchingOrcDataSource createDataSource(FileFormatDataSourceStats stats, DataSize maxPrefetchSize)
+            throws IOException
+    {
+        FileSystem fileSystem = FileSystem.getLocal(new Configuration());
+        return new PrefetchingOrcDataSource(
+                new OrcDataSourceId(file.getPath()),
+                FILE_SIZE,
+                new DataSize(1, KILOBYTE),
+                new DataSize(64, KILOBYTE),
+                new DataSize(64, KILOBYTE),
+                false,
+                fileSystem.open(new Path(file.toURI())),
+                stats,
+                executor,
+                2,
+                maxPrefetchSize);
+    }
+
+    private void assertRange(OrcDataSourceInput input, DiskRange diskRange)
+            throws IOException
+    {
+        byte[] buffer = new byte[diskRange.getLength()];
+        input.getInput().readFully(buffer);
+        int offset = (int) diskRange.getOffset();
+        assertEquals(buffer, Arrays.copyOfRange(data, offset, offset + diskRange.getLength()));
+    }
+}
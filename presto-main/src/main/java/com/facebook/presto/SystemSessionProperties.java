@@ -15,6 +15,7 @@ package com.facebook.presto;
 
 import com.facebook.presto.execution.QueryManagerConfig;
 import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.execution.buffer.PageCompression;
 import com.facebook.presto.memory.MemoryManagerConfig;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.session.PropertyMetadata;
@@ -34,7 +35,9 @@ import java.util.stream.Stream;
 
 import static com.facebook.presto.spi.StandardErrorCode.INVALID_SESSION_PROPERTY;
 import static com.facebook.presto.spi.session.PropertyMetadata.booleanProperty;
+import static com.facebook.presto.spi.session.PropertyMetadata.doubleProperty;
 import static com.facebook.presto.spi.session.PropertyMetadata.integerProperty;
+import static com.facebook.presto.spi.session.PropertyMetadata.longProperty;
 import static com.facebook.presto.spi.session.PropertyMetadata.stringProperty;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
@@ -96,6 +99,8 @@ public final class SystemSessionProperties
     public static final String ITERATIVE_OPTIMIZER = "iterative_optimizer_enabled";
     public static final String ITERATIVE_OPTIMIZER_TIMEOUT = "iterative_optimizer_timeout";
     public static final String EXCHANGE_COMPRESSION = "exchange_compression";
+    public static final String EXCHANGE_COMPRESSION_CODEC = "exchange_compression_codec";
+    public static final String EXCHANGE_ADAPTIVE_COMPRESSION = "exchange_adaptive_compression";
     public static final String LEGACY_TIMESTAMP = "legacy_timestamp";
     public static final String ENABLE_INTERMEDIATE_AGGREGATIONS = "enable_intermediate_aggregations";
     public static final String PUSH_AGGREGATION_THROUGH_JOIN = "push_aggregation_through_join";
@@ -114,6 +119,14 @@ public final class SystemSessionProperties
     public static final String ENABLE_STATS_CALCULATOR = "enable_stats_calculator";
     public static final String IGNORE_STATS_CALCULATOR_FAILURES = "ignore_stats_calculator_failures";
     public static final String MAX_DRIVERS_PER_TASK = "max_drivers_per_task";
+    public static final String ENABLE_DYNAMIC_FILTERING = "enable_dynamic_filtering";
+    public static final String DYNAMIC_FILTERING_MAX_PER_DRIVER_VALUE_COUNT = "dynamic_filtering_max_per_driver_value_count";
+    public static final String ENABLE_DISTRIBUTED_DYNAMIC_FILTERING = "enable_distributed_dynamic_filtering";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION = "adaptive_partial_aggregation";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS = "adaptive_partial_aggregation_min_rows";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD = "adaptive_partial_aggregation_unique_rows_ratio_threshold";
+    public static final String MERGE_TOPN_WITH_AGGREGATION = "merge_topn_with_aggregation";
+    public static final String PUSH_AGGREGATION_INTO_TABLE_SCAN = "push_aggregation_into_table_scan";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -434,6 +447,24 @@ public final class SystemSessionProperties
                         "Enable compression in exchanges",
                         featuresConfig.isExchangeCompressionEnabled(),
                         false),
+                new PropertyMetadata<>(
+                        EXCHANGE_COMPRESSION_CODEC,
+                        format("Codec used to compress pages in exchanges. Options are %s",
+                                Stream.of(PageCompression.values())
+                                        .filter(PageCompression::isCompressed)
+                                        .map(PageCompression::name)
+                                        .collect(joining(","))),
+                        VARCHAR,
+                        PageCompression.class,
+                        featuresConfig.getExchangeCompressionCodec(),
+                        false,
+                        value -> PageCompression.valueOf(((String) value).toUpperCase()),
+                        PageCompression::name),
+                booleanProperty(
+                        EXCHANGE_ADAPTIVE_COMPRESSION,
+                        "Stop compressing pages in exchanges for a while after pages that do not compress well",
+                        featuresConfig.isExchangeAdaptiveCompressionEnabled(),
+                        false),
                 booleanProperty(
                         LEGACY_TIMESTAMP,
                         "Use legacy TIME & TIMESTAMP semantics (warning: this will be removed)",
@@ -531,6 +562,46 @@ public final class SystemSessionProperties
                         IGNORE_STATS_CALCULATOR_FAILURES,
                         "Ignore statistics calculator failures",
                         featuresConfig.isIgnoreStatsCalculatorFailures(),
+                        false),
+                booleanProperty(
+                        ENABLE_DYNAMIC_FILTERING,
+                        "Experimental: Filter probe side table scans using the join keys of the hash join build side",
+                        featuresConfig.isEnableDynamicFiltering(),
+                        false),
+                integerProperty(
+                        DYNAMIC_FILTERING_MAX_PER_DRIVER_VALUE_COUNT,
+                        "Experimental: Maximum number of distinct build side join keys collected by a single driver for dynamic filtering",
+                        featuresConfig.getDynamicFilteringMaxPerDriverValueCount(),
+                        false),
+                booleanProperty(
+                        ENABLE_DISTRIBUTED_DYNAMIC_FILTERING,
+                        "Experimental: Skip splits of the probe side table scans using the dynamic filters collected by all tasks",
+                        featuresConfig.isEnableDistributedDynamicFiltering(),
+                        false),
+                booleanProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION,
+                        "Stop partial aggregation and pass rows through when it does not reduce the number of rows",
+                        featuresConfig.isAdaptivePartialAggregationEnabled(),
+                        false),
+                longProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS,
+                        "Minimum number of rows processed by partial aggregation before its reduction is evaluated",
+                        featuresConfig.getAdaptivePartialAggregationMinRows(),
+                        false),
+                doubleProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD,
+                        "Ratio of output to input rows of partial aggregation above which it is disabled",
+                        featuresConfig.getAdaptivePartialAggregationUniqueRowsRatioThreshold(),
+                        false),
+                booleanProperty(
+                        MERGE_TOPN_WITH_AGGREGATION,
+                        "Output only the top N groups of a final aggregation followed by ORDER BY and LIMIT",
+                        featuresConfig.isMergeTopNWithAggregation(),
+                        false),
+                booleanProperty(
+                        PUSH_AGGREGATION_INTO_TABLE_SCAN,
+                        "Compute global aggregations over a table scan from per split values provided by the connector",
+                        featuresConfig.isPushAggregationIntoTableScan(),
                         false));
     }
 
@@ -782,6 +853,19 @@ public final class SystemSessionProperties
         return session.getSystemProperty(EXCHANGE_COMPRESSION, Boolean.class);
     }
 
+    public static PageCompression getExchangeCompressionCodec(Session session)
+    {
+        if (!isExchangeCompressionEnabled(session)) {
+            return PageCompression.UNCOMPRESSED;
+        }
+        return session.getSystemProperty(EXCHANGE_COMPRESSION_CODEC, PageCompression.class);
+    }
+
+    public static boolean isExchangeAdaptiveCompressionEnabled(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_ADAPTIVE_COMPRESSION, Boolean.class);
+    }
+
     public static boolean isEnableIntermediateAggregations(Session session)
     {
         return session.getSystemProperty(ENABLE_INTERMEDIATE_AGGREGATIONS, Boolean.class);
@@ -903,4 +987,44 @@ public final class SystemSessionProperties
     {
         return session.getSystemProperty(IGNORE_STATS_CALCULATOR_FAILURES, Boolean.class);
     }
+
+    public static boolean isEnableDynamicFiltering(Session session)
+    {
+        return session.getSystemProperty(ENABLE_DYNAMIC_FILTERING, Boolean.class);
+    }
+
+    public static int getDynamicFilteringMaxPerDriverValueCount(Session session)
+    {
+        return session.getSystemProperty(DYNAMIC_FILTERING_MAX_PER_DRIVER_VALUE_COUNT, Integer.class);
+    }
+
+    public static boolean isEnableDistributedDynamicFiltering(Session session)
+    {
+        return isEnableDynamicFiltering(session) && session.getSystemProperty(ENABLE_DISTRIBUTED_DYNAMIC_FILTERING, Boolean.class);
+    }
+
+    public static boolean isAdaptivePartialAggregationEnabled(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION, Boolean.class);
+    }
+
+    public static long getAdaptivePartialAggregationMinRows(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS, Long.class);
+    }
+
+    public static double getAdaptivePartialAggregationUniqueRowsRatioThreshold(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD, Double.class);
+    }
+
+    public static boolean isMergeTopNWithAggregation(Session session)
+    {
+        return session.getSystemProperty(MERGE_TOPN_WITH_AGGREGATION, Boolean.class);
+    }
+
+    public static boolean isPushAggregationIntoTableScan(Session session)
+    {
+        return session.getSystemProperty(PUSH_AGGREGATION_INTO_TABLE_SCAN, Boolean.class);
+    }
 }
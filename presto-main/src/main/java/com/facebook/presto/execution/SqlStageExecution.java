@@ -49,6 +49,7 @@ import java.util.Map.Entry;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -104,6 +105,8 @@ public final class SqlStageExecution
 
     private final ListenerManager<Set<Lifespan>> completedLifespansChangeListeners = new ListenerManager<>();
 
+    private final List<StateChangeListener<TaskStatus>> taskStatusListeners = new CopyOnWriteArrayList<>();
+
     public SqlStageExecution(
             StageId stageId,
             URI location,
@@ -175,6 +178,15 @@ public final class SqlStageExecution
         completedLifespansChangeListeners.addListener(newlyCompletedDriverGroupConsumer);
     }
 
+    /**
+     * Listener is notified of every status update of the tasks of this stage.
+     * It must be added before the stage creates its first task.
+     */
+    public void addTaskStatusListener(StateChangeListener<TaskStatus> taskStatusListener)
+    {
+        taskStatusListeners.add(requireNonNull(taskStatusListener, "taskStatusListener is null"));
+    }
+
     public PlanFragment getFragment()
     {
         return stateMachine.getFragment();
@@ -535,6 +547,7 @@ public final class SqlStageExecution
             try {
                 updateMemoryUsage(taskStatus);
                 updateCompletedDriverGroups(taskStatus);
+                taskStatusListeners.forEach(listener -> listener.stateChanged(taskStatus));
             }
             finally {
                 updateTaskStatus(taskStatus);
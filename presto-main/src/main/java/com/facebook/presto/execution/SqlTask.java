@@ -26,10 +26,12 @@ import com.facebook.presto.operator.PipelineContext;
 import com.facebook.presto.operator.PipelineStatus;
 import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.operator.TaskStats;
+import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -44,6 +46,7 @@ import javax.annotation.Nullable;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
@@ -220,6 +223,7 @@ public class SqlTask
         DataSize systemMemoryReservation = new DataSize(0, BYTE);
         // TODO: add a mechanism to avoid sending the whole completedDriverGroups set over the wire for every task status reply
         Set<Lifespan> completedDriverGroups = ImmutableSet.of();
+        Map<String, Domain> dynamicFilterDomains = ImmutableMap.of();
         long fullGcCount = 0;
         Duration fullGcTime = new Duration(0, MILLISECONDS);
         if (taskHolder.getFinalTaskInfo() != null) {
@@ -231,6 +235,7 @@ public class SqlTask
             systemMemoryReservation = taskStats.getSystemMemoryReservation();
             fullGcCount = taskStats.getFullGcCount();
             fullGcTime = taskStats.getFullGcTime();
+            dynamicFilterDomains = taskHolder.getFinalTaskInfo().getTaskStatus().getDynamicFilterDomains();
         }
         else if (taskHolder.getTaskExecution() != null) {
             long physicalWrittenBytes = 0;
@@ -245,6 +250,7 @@ public class SqlTask
             userMemoryReservation = taskContext.getMemoryReservation();
             systemMemoryReservation = taskContext.getSystemMemoryReservation();
             completedDriverGroups = taskContext.getCompletedDriverGroups();
+            dynamicFilterDomains = taskContext.getDynamicFilterDomains();
             fullGcCount = taskContext.getFullGcCount();
             fullGcTime = taskContext.getFullGcTime();
         }
@@ -256,6 +262,7 @@ public class SqlTask
                 location,
                 nodeId,
                 completedDriverGroups,
+                dynamicFilterDomains,
                 failures,
                 queuedPartitionedDrivers,
                 runningPartitionedDrivers,
@@ -386,6 +393,14 @@ public class SqlTask
         return outputBuffer.get(bufferId, startingSequenceId, maxSize);
     }
 
+    public ListenableFuture<BufferResult> getTaskResultsWithoutAcknowledge(OutputBufferId bufferId, long startingSequenceId, DataSize maxSize)
+    {
+        requireNonNull(bufferId, "bufferId is null");
+        checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
+
+        return outputBuffer.getWithoutAcknowledge(bufferId, startingSequenceId, maxSize);
+    }
+
     public void acknowledgeTaskResults(OutputBufferId bufferId, long sequenceId)
     {
         requireNonNull(bufferId, "bufferId is null");
@@ -392,6 +392,17 @@ public class SqlTaskManager
         return tasks.getUnchecked(taskId).getTaskResults(bufferId, startingSequenceId, maxSize);
     }
 
+    @Override
+    public ListenableFuture<BufferResult> getTaskResultsWithoutAcknowledge(TaskId taskId, OutputBufferId bufferId, long startingSequenceId, DataSize maxSize)
+    {
+        requireNonNull(taskId, "taskId is null");
+        requireNonNull(bufferId, "bufferId is null");
+        checkArgument(startingSequenceId >= 0, "startingSequenceId is negative");
+        requireNonNull(maxSize, "maxSize is null");
+
+        return tasks.getUnchecked(taskId).getTaskResultsWithoutAcknowledge(bufferId, startingSequenceId, maxSize);
+    }
+
     @Override
     public void acknowledgeTaskResults(TaskId taskId, OutputBufferId bufferId, long sequenceId)
     {
@@ -108,6 +108,14 @@ public interface TaskManager
      */
     ListenableFuture<BufferResult> getTaskResults(TaskId taskId, OutputBufferId bufferId, long startingSequenceId, DataSize maxSize);
 
+    /**
+     * Gets results from a task like {@link #getTaskResults}, but does not acknowledge
+     * the results before the starting sequence id, so a client can read ahead of the
+     * results it has received. The results must be acknowledged with
+     * {@link #acknowledgeTaskResults}.
+     */
+    ListenableFuture<BufferResult> getTaskResultsWithoutAcknowledge(TaskId taskId, OutputBufferId bufferId, long startingSequenceId, DataSize maxSize);
+
     /**
      * Acknowledges previously received results.
      */
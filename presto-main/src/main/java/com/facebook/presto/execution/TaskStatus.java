@@ -13,15 +13,18 @@
  */
 package com.facebook.presto.execution;
 
+import com.facebook.presto.spi.predicate.Domain;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static com.facebook.presto.execution.TaskState.PLANNED;
@@ -58,6 +61,7 @@ public class TaskStatus
     private final URI self;
     private final String nodeId;
     private final Set<Lifespan> completedDriverGroups;
+    private final Map<String, Domain> dynamicFilterDomains;
 
     private final int queuedPartitionedDrivers;
     private final int runningPartitionedDrivers;
@@ -80,6 +84,7 @@ public class TaskStatus
             @JsonProperty("self") URI self,
             @JsonProperty("nodeId") String nodeId,
             @JsonProperty("completedDriverGroups") Set<Lifespan> completedDriverGroups,
+            @JsonProperty("dynamicFilterDomains") Map<String, Domain> dynamicFilterDomains,
             @JsonProperty("failures") List<ExecutionFailureInfo> failures,
             @JsonProperty("queuedPartitionedDrivers") int queuedPartitionedDrivers,
             @JsonProperty("runningPartitionedDrivers") int runningPartitionedDrivers,
@@ -99,6 +104,7 @@ public class TaskStatus
         this.self = requireNonNull(self, "self is null");
         this.nodeId = requireNonNull(nodeId, "nodeId is null");
         this.completedDriverGroups = requireNonNull(completedDriverGroups, "completedDriverGroups is null");
+        this.dynamicFilterDomains = ImmutableMap.copyOf(requireNonNull(dynamicFilterDomains, "dynamicFilterDomains is null"));
 
         checkArgument(queuedPartitionedDrivers >= 0, "queuedPartitionedDrivers must be positive");
         this.queuedPartitionedDrivers = queuedPartitionedDrivers;
@@ -161,6 +167,15 @@ public class TaskStatus
         return completedDriverGroups;
     }
 
+    /**
+     * Build side key domains of the dynamic filters completed by this task, by dynamic filter id.
+     */
+    @JsonProperty
+    public Map<String, Domain> getDynamicFilterDomains()
+    {
+        return dynamicFilterDomains;
+    }
+
     @JsonProperty
     public List<ExecutionFailureInfo> getFailures()
     {
@@ -234,6 +249,7 @@ public class TaskStatus
                 location,
                 nodeId,
                 ImmutableSet.of(),
+                ImmutableMap.of(),
                 ImmutableList.of(),
                 0,
                 0,
@@ -255,6 +271,7 @@ public class TaskStatus
                 taskStatus.getSelf(),
                 taskStatus.getNodeId(),
                 taskStatus.getCompletedDriverGroups(),
+                taskStatus.getDynamicFilterDomains(),
                 exceptions,
                 taskStatus.getQueuedPartitionedDrivers(),
                 taskStatus.getRunningPartitionedDrivers(),
@@ -254,6 +254,16 @@ public class ArbitraryOutputBuffer
         return getBuffer(bufferId).getPages(startingSequenceId, maxSize, Optional.of(masterBuffer));
     }
 
+    @Override
+    public ListenableFuture<BufferResult> getWithoutAcknowledge(OutputBufferId bufferId, long startingSequenceId, DataSize maxSize)
+    {
+        checkState(!Thread.holdsLock(this), "Can not get pages while holding a lock on this");
+        requireNonNull(bufferId, "bufferId is null");
+        checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
+
+        return getBuffer(bufferId).getPagesWithoutAcknowledge(startingSequenceId, maxSize, Optional.of(masterBuffer));
+    }
+
     @Override
     public void acknowledge(OutputBufferId bufferId, long sequenceId)
     {
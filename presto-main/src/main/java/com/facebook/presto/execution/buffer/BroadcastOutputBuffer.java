@@ -251,6 +251,16 @@ public class BroadcastOutputBuffer
         return getBuffer(outputBufferId).getPages(startingSequenceId, maxSize);
     }
 
+    @Override
+    public ListenableFuture<BufferResult> getWithoutAcknowledge(OutputBufferId outputBufferId, long startingSequenceId, DataSize maxSize)
+    {
+        checkState(!Thread.holdsLock(this), "Can not get pages while holding a lock on this");
+        requireNonNull(outputBufferId, "outputBufferId is null");
+        checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
+
+        return getBuffer(outputBufferId).getPagesWithoutAcknowledge(startingSequenceId, maxSize);
+    }
+
     @Override
     public void acknowledge(OutputBufferId bufferId, long sequenceId)
     {
@@ -172,8 +172,23 @@ class ClientBuffer
         // acknowledge pages first, out side of locks to not trigger callbacks while holding the lock
         acknowledgePages(sequenceId);
 
+        return getPagesWithoutAcknowledge(sequenceId, maxSize, pagesSupplier);
+    }
+
+    public ListenableFuture<BufferResult> getPagesWithoutAcknowledge(long sequenceId, DataSize maxSize)
+    {
+        return getPagesWithoutAcknowledge(sequenceId, maxSize, Optional.empty());
+    }
+
+    /**
+     * Gets the pages starting at the specified sequence id, without acknowledging the pages before it.
+     * This allows a client to read ahead of the pages it has received, which stay in the buffer until
+     * they are acknowledged with {@link #acknowledgePages}.
+     */
+    public ListenableFuture<BufferResult> getPagesWithoutAcknowledge(long sequenceId, DataSize maxSize, Optional<PagesSupplier> pagesSupplier)
+    {
         // attempt to load some data before processing the read
-        pagesSupplier.ifPresent(supplier -> loadPagesIfNecessary(supplier, maxSize));
+        pagesSupplier.ifPresent(supplier -> loadPagesIfNecessary(supplier, sequenceId, maxSize));
 
         PendingRead oldPendingRead = null;
         try {
@@ -184,7 +199,7 @@ class ClientBuffer
 
                 // Return results immediately if we have data, there will be no more data, or this is
                 // an out of order request
-                if (!pages.isEmpty() || noMorePages || sequenceId != currentSequenceId.get()) {
+                if (hasPagesAfter(sequenceId) || noMorePages || sequenceId < currentSequenceId.get()) {
                     return immediateFuture(processRead(sequenceId, maxSize));
                 }
 
@@ -230,15 +245,17 @@ class ClientBuffer
         // Get the max size from the current pending read, which may not be the
         // same pending read instance by the time pages are loaded but this is
         // safe since the size is rechecked before returning pages.
+        long sequenceId;
         DataSize maxSize;
         synchronized (this) {
             if (pendingRead == null) {
                 return;
             }
+            sequenceId = pendingRead.getSequenceId();
             maxSize = pendingRead.getMaxSize();
         }
 
-        boolean dataAddedOrNoMorePages = loadPagesIfNecessary(pagesSupplier, maxSize);
+        boolean dataAddedOrNoMorePages = loadPagesIfNecessary(pagesSupplier, sequenceId, maxSize);
 
         if (dataAddedOrNoMorePages) {
             PendingRead pendingRead;
@@ -252,9 +269,9 @@ class ClientBuffer
     }
 
     /**
-     * If there no data, attempt to load some from the pages supplier.
+     * If there no data after the sequence id, attempt to load some from the pages supplier.
      */
-    private boolean loadPagesIfNecessary(PagesSupplier pagesSupplier, DataSize maxSize)
+    private boolean loadPagesIfNecessary(PagesSupplier pagesSupplier, long sequenceId, DataSize maxSize)
     {
         checkState(!Thread.holdsLock(this), "Can not load pages while holding a lock on this");
 
@@ -265,7 +282,7 @@ class ClientBuffer
                 return false;
             }
 
-            if (!pages.isEmpty()) {
+            if (hasPagesAfter(Math.max(sequenceId, currentSequenceId.get()))) {
                 return false;
             }
 
@@ -341,19 +358,27 @@ class ClientBuffer
             return emptyResults(taskInstanceId, currentSequenceId.get(), true);
         }
 
-        // if request is for pages after the current position, there is a bug somewhere
-        // a read call is always proceeded by acknowledge pages, which
-        // will advance the sequence id to at least the request position, unless
-        // the buffer is destroyed, and in that case the buffer will be empty with
-        // no more pages set, which is checked above
-        verify(sequenceId == currentSequenceId.get(), "Invalid sequence id");
+        // if request is for pages after the end of the buffer, there is a bug somewhere
+        // a read call is either proceeded by acknowledge pages, which will advance
+        // the sequence id to the request position, or reads ahead of the acknowledged
+        // pages from a position the buffer has returned, unless the buffer is destroyed,
+        // and in that case the buffer will be empty with no more pages set, which is
+        // checked above
+        int skipPages = toIntExact(sequenceId - currentSequenceId.get());
+        verify(skipPages <= pages.size(), "Invalid sequence id");
+
+        // if all pages have been read ahead of the acknowledgements, and this buffer is finished,
+        // the client has received all pages
+        if (skipPages == pages.size() && noMorePages) {
+            return emptyResults(taskInstanceId, sequenceId, true);
+        }
 
-        // read the new pages
+        // read the new pages, skipping the pages that have been read but not acknowledged
         long maxBytes = maxSize.toBytes();
         List<SerializedPage> result = new ArrayList<>();
         long bytes = 0;
 
-        for (SerializedPageReference page : pages) {
+        for (SerializedPageReference page : pages.subList(skipPages, pages.size())) {
             bytes += page.getRetainedSizeInBytes();
             // break (and don't add) if this page would exceed the limit
             if (!result.isEmpty() && bytes > maxBytes) {
@@ -364,6 +389,12 @@ class ClientBuffer
         return new BufferResult(taskInstanceId, sequenceId, sequenceId + result.size(), false, result);
     }
 
+    @GuardedBy("this")
+    private boolean hasPagesAfter(long sequenceId)
+    {
+        return pages.size() > sequenceId - currentSequenceId.get();
+    }
+
     /**
      * Drops pages up to the specified sequence id
      */
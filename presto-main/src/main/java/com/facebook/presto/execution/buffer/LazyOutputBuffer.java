@@ -189,6 +189,17 @@ public class LazyOutputBuffer
 
     @Override
     public ListenableFuture<BufferResult> get(OutputBufferId bufferId, long token, DataSize maxSize)
+    {
+        return get(bufferId, token, maxSize, true);
+    }
+
+    @Override
+    public ListenableFuture<BufferResult> getWithoutAcknowledge(OutputBufferId bufferId, long token, DataSize maxSize)
+    {
+        return get(bufferId, token, maxSize, false);
+    }
+
+    private ListenableFuture<BufferResult> get(OutputBufferId bufferId, long token, DataSize maxSize, boolean acknowledge)
     {
         OutputBuffer outputBuffer;
         synchronized (this) {
@@ -197,13 +208,16 @@ public class LazyOutputBuffer
                     return immediateFuture(emptyResults(taskInstanceId, 0, true));
                 }
 
-                PendingRead pendingRead = new PendingRead(bufferId, token, maxSize);
+                PendingRead pendingRead = new PendingRead(bufferId, token, maxSize, acknowledge);
                 pendingReads.add(pendingRead);
                 return pendingRead.getFutureResult();
             }
             outputBuffer = delegate;
         }
-        return outputBuffer.get(bufferId, token, maxSize);
+        if (acknowledge) {
+            return outputBuffer.get(bufferId, token, maxSize);
+        }
+        return outputBuffer.getWithoutAcknowledge(bufferId, token, maxSize);
     }
 
     @Override
@@ -342,14 +356,16 @@ public class LazyOutputBuffer
         private final OutputBufferId bufferId;
         private final long startingSequenceId;
         private final DataSize maxSize;
+        private final boolean acknowledge;
 
         private final ExtendedSettableFuture<BufferResult> futureResult = ExtendedSettableFuture.create();
 
-        public PendingRead(OutputBufferId bufferId, long startingSequenceId, DataSize maxSize)
+        public PendingRead(OutputBufferId bufferId, long startingSequenceId, DataSize maxSize, boolean acknowledge)
         {
             this.bufferId = requireNonNull(bufferId, "bufferId is null");
             this.startingSequenceId = startingSequenceId;
             this.maxSize = requireNonNull(maxSize, "maxSize is null");
+            this.acknowledge = acknowledge;
         }
 
         public ExtendedSettableFuture<BufferResult> getFutureResult()
@@ -364,7 +380,13 @@ public class LazyOutputBuffer
             }
 
             try {
-                ListenableFuture<BufferResult> result = delegate.get(bufferId, startingSequenceId, maxSize);
+                ListenableFuture<BufferResult> result;
+                if (acknowledge) {
+                    result = delegate.get(bufferId, startingSequenceId, maxSize);
+                }
+                else {
+                    result = delegate.getWithoutAcknowledge(bufferId, startingSequenceId, maxSize);
+                }
                 futureResult.setAsync(result);
             }
             catch (Exception e) {
@@ -64,6 +64,13 @@ public interface OutputBuffer
      */
     ListenableFuture<BufferResult> get(OutputBufferId bufferId, long token, DataSize maxSize);
 
+    /**
+     * Gets pages from the output buffer starting at the token, without acknowledging the
+     * pages before it. This allows a client to read ahead of the pages it has received.
+     * The pages stay in the buffer until they are acknowledged with {@link #acknowledge}.
+     */
+    ListenableFuture<BufferResult> getWithoutAcknowledge(OutputBufferId bufferId, long token, DataSize maxSize);
+
     /**
      * Acknowledges the previously received pages from the output buffer.
      */
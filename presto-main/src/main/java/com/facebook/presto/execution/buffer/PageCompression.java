@@ -14,13 +14,35 @@
 package com.facebook.presto.execution.buffer;
 
 import com.facebook.presto.spi.PrestoException;
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.snappy.SnappyCompressor;
+import io.airlift.compress.snappy.SnappyDecompressor;
+import io.airlift.compress.zstd.ZstdDecompressor;
 
 import static com.facebook.presto.spi.StandardErrorCode.CORRUPT_PAGE;
 
+/**
+ * Compression codec of a serialized page. The marker is written with the page,
+ * so a page can always be decompressed regardless of the codec the reader is
+ * configured to compress with.
+ */
 public enum PageCompression
 {
     UNCOMPRESSED((byte) 0),
-    COMPRESSED((byte) 1);
+    LZ4((byte) 1),
+    ZSTD((byte) 2),
+    SNAPPY((byte) 3);
+
+    private static final PageCompression[] BY_MARKER = new PageCompression[values().length];
+
+    static {
+        for (PageCompression compression : values()) {
+            BY_MARKER[compression.getMarker()] = compression;
+        }
+    }
 
     private final byte marker;
 
@@ -34,11 +56,45 @@ public enum PageCompression
         return marker;
     }
 
+    public boolean isCompressed()
+    {
+        return this != UNCOMPRESSED;
+    }
+
+    public Compressor createCompressor()
+    {
+        switch (this) {
+            case LZ4:
+                return new Lz4Compressor();
+            case ZSTD:
+                // aircompressor only provides a decompressor for zstd
+                return new ZstdJniCompressor();
+            case SNAPPY:
+                return new SnappyCompressor();
+            default:
+                throw new IllegalStateException("Page compression does not use a compressor: " + this);
+        }
+    }
+
+    public Decompressor createDecompressor()
+    {
+        switch (this) {
+            case LZ4:
+                return new Lz4Decompressor();
+            case ZSTD:
+                return new ZstdDecompressor();
+            case SNAPPY:
+                return new SnappyDecompressor();
+            default:
+                throw new IllegalStateException("Page compression does not use a decompressor: " + this);
+        }
+    }
+
     public static PageCompression lookupCodecFromMarker(byte marker)
     {
-        if (marker != UNCOMPRESSED.getMarker() && marker != COMPRESSED.getMarker()) {
+        if (marker < 0 || marker >= BY_MARKER.length) {
             throw new PrestoException(CORRUPT_PAGE, "Page marker did not contain expected value");
         }
-        return UNCOMPRESSED.getMarker() == marker ? UNCOMPRESSED : COMPRESSED;
+        return BY_MARKER[marker];
     }
 }
@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import com.facebook.presto.util.Mergeable;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.Duration;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Compression or decompression statistics of the pages serialized or deserialized with one codec.
+ */
+public class PageCompressionStats
+        implements Mergeable<PageCompressionStats>
+{
+    private final PageCompression compression;
+    private final long pages;
+    private final long uncompressedPages;
+    private final long uncompressedBytes;
+    private final long compressedBytes;
+    private final Duration time;
+
+    @JsonCreator
+    public PageCompressionStats(
+            @JsonProperty("compression") PageCompression compression,
+            @JsonProperty("pages") long pages,
+            @JsonProperty("uncompressedPages") long uncompressedPages,
+            @JsonProperty("uncompressedBytes") long uncompressedBytes,
+            @JsonProperty("compressedBytes") long compressedBytes,
+            @JsonProperty("time") Duration time)
+    {
+        this.compression = requireNonNull(compression, "compression is null");
+        this.pages = pages;
+        this.uncompressedPages = uncompressedPages;
+        this.uncompressedBytes = uncompressedBytes;
+        this.compressedBytes = compressedBytes;
+        this.time = requireNonNull(time, "time is null");
+    }
+
+    @JsonProperty
+    public PageCompression getCompression()
+    {
+        return compression;
+    }
+
+    /**
+     * Number of pages the codec was used for.
+     */
+    @JsonProperty
+    public long getPages()
+    {
+        return pages;
+    }
+
+    /**
+     * Number of pages sent uncompressed, because they did not compress well enough
+     * or because compression was skipped by adaptive compression.
+     */
+    @JsonProperty
+    public long getUncompressedPages()
+    {
+        return uncompressedPages;
+    }
+
+    @JsonProperty
+    public long getUncompressedBytes()
+    {
+        return uncompressedBytes;
+    }
+
+    @JsonProperty
+    public long getCompressedBytes()
+    {
+        return compressedBytes;
+    }
+
+    /**
+     * Time spent in the codec.
+     */
+    @JsonProperty
+    public Duration getTime()
+    {
+        return time;
+    }
+
+    public double getCompressionRatio()
+    {
+        if (uncompressedBytes == 0) {
+            return 1.0;
+        }
+        return (double) compressedBytes / uncompressedBytes;
+    }
+
+    @Override
+    public PageCompressionStats mergeWith(PageCompressionStats other)
+    {
+        checkArgument(compression == other.compression, "Cannot merge statistics of %s with %s", compression, other.compression);
+        return new PageCompressionStats(
+                compression,
+                pages + other.pages,
+                uncompressedPages + other.uncompressedPages,
+                uncompressedBytes + other.uncompressedBytes,
+                compressedBytes + other.compressedBytes,
+                new Duration(time.getValue(NANOSECONDS) + other.time.getValue(NANOSECONDS), NANOSECONDS).convertToMostSuccinctTimeUnit());
+    }
+
+    public static List<PageCompressionStats> mergeStats(List<PageCompressionStats> first, List<PageCompressionStats> second)
+    {
+        Map<PageCompression, PageCompressionStats> merged = new EnumMap<>(PageCompression.class);
+        for (PageCompressionStats stats : ImmutableList.<PageCompressionStats>builder().addAll(first).addAll(second).build()) {
+            merged.merge(stats.getCompression(), stats, PageCompressionStats::mergeWith);
+        }
+        return ImmutableList.copyOf(merged.values());
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("compression", compression)
+                .add("pages", pages)
+                .add("uncompressedPages", uncompressedPages)
+                .add("uncompressedBytes", uncompressedBytes)
+                .add("compressedBytes", compressedBytes)
+                .add("compressionRatio", getCompressionRatio())
+                .add("time", time)
+                .toString();
+    }
+}
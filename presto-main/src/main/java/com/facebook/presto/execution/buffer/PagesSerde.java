@@ -15,80 +15,194 @@ package com.facebook.presto.execution.buffer;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.google.common.collect.ImmutableList;
 import io.airlift.compress.Compressor;
 import io.airlift.compress.Decompressor;
 import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
 import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
+import io.airlift.units.Duration;
 
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.NotThreadSafe;
 
+import java.util.List;
 import java.util.Optional;
 
-import static com.facebook.presto.execution.buffer.PageCompression.COMPRESSED;
 import static com.facebook.presto.execution.buffer.PageCompression.UNCOMPRESSED;
 import static com.facebook.presto.execution.buffer.PagesSerdeUtil.readRawPage;
 import static com.facebook.presto.execution.buffer.PagesSerdeUtil.writeRawPage;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
-import static io.airlift.compress.lz4.Lz4RawCompressor.maxCompressedLength;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 @NotThreadSafe
 public class PagesSerde
 {
     private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
+    // the most pages adaptive compression sends uncompressed before trying to compress again
+    private static final int MAX_SKIPPED_PAGES = 64;
 
     private final BlockEncodingSerde blockEncodingSerde;
+    private final PageCompression compression;
     private final Optional<Compressor> compressor;
-    private final Optional<Decompressor> decompressor;
+    private final boolean adaptiveCompression;
+    // pages carry their codec, so a decompressor is created for each codec seen
+    private final Decompressor[] decompressors = new Decompressor[PageCompression.values().length];
+    private final CompressionCounters[] counters = new CompressionCounters[PageCompression.values().length];
 
-    public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<Compressor> compressor, Optional<Decompressor> decompressor)
+    // number of pages after a page that did not compress well for which adaptive compression
+    // does not try to compress, doubled every time the next attempt does not compress well either
+    private int skipLength;
+    private int pagesToSkip;
+
+    public PagesSerde(BlockEncodingSerde blockEncodingSerde, PageCompression compression, boolean adaptiveCompression)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
-        this.compressor = requireNonNull(compressor, "compressor is null");
-        this.decompressor = requireNonNull(decompressor, "decompressor is null");
-        checkArgument(compressor.isPresent() == decompressor.isPresent(), "compressor and decompressor must both be present or both be absent");
+        this.compression = requireNonNull(compression, "compression is null");
+        this.compressor = compression.isCompressed() ? Optional.of(compression.createCompressor()) : Optional.empty();
+        this.adaptiveCompression = adaptiveCompression;
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new CompressionCounters();
+        }
     }
 
     public SerializedPage serialize(Page page)
     {
         SliceOutput serializationBuffer = new DynamicSliceOutput(toIntExact((page.getSizeInBytes() + Integer.BYTES))); // block length is an int
         writeRawPage(page, serializationBuffer, blockEncodingSerde);
+        Slice serializedPage = serializationBuffer.slice();
 
         if (!compressor.isPresent()) {
-            return new SerializedPage(serializationBuffer.slice(), UNCOMPRESSED, page.getPositionCount(), serializationBuffer.size());
+            return new SerializedPage(serializedPage, UNCOMPRESSED, page.getPositionCount(), serializedPage.length());
+        }
+
+        CompressionCounters codecCounters = counters[compression.ordinal()];
+        if (pagesToSkip > 0) {
+            pagesToSkip--;
+            codecCounters.record(false, serializedPage.length(), serializedPage.length(), 0);
+            return new SerializedPage(serializedPage, UNCOMPRESSED, page.getPositionCount(), serializedPage.length());
         }
 
-        int maxCompressedLength = maxCompressedLength(serializationBuffer.size());
+        long start = System.nanoTime();
+        int maxCompressedLength = compressor.get().maxCompressedLength(serializedPage.length());
         byte[] compressionBuffer = new byte[maxCompressedLength];
-        int actualCompressedLength = compressor.get().compress(serializationBuffer.slice().getBytes(), 0, serializationBuffer.size(), compressionBuffer, 0, maxCompressedLength);
+        int actualCompressedLength = compressor.get().compress(serializedPage.byteArray(), serializedPage.byteArrayOffset(), serializedPage.length(), compressionBuffer, 0, maxCompressedLength);
+        boolean compressed = ((1.0 * actualCompressedLength) / serializedPage.length()) <= MINIMUM_COMPRESSION_RATIO;
+        codecCounters.record(compressed, serializedPage.length(), actualCompressedLength, System.nanoTime() - start);
+
+        if (adaptiveCompression) {
+            if (compressed) {
+                skipLength = 0;
+            }
+            else {
+                skipLength = min(max(1, skipLength * 2), MAX_SKIPPED_PAGES);
+                pagesToSkip = skipLength;
+            }
+        }
 
-        if (((1.0 * actualCompressedLength) / serializationBuffer.size()) > MINIMUM_COMPRESSION_RATIO) {
-            return new SerializedPage(serializationBuffer.slice(), UNCOMPRESSED, page.getPositionCount(), serializationBuffer.size());
+        if (!compressed) {
+            return new SerializedPage(serializedPage, UNCOMPRESSED, page.getPositionCount(), serializedPage.length());
         }
 
         return new SerializedPage(
                 Slices.copyOf(Slices.wrappedBuffer(compressionBuffer, 0, actualCompressedLength)),
-                COMPRESSED,
+                compression,
                 page.getPositionCount(),
-                serializationBuffer.size());
+                serializedPage.length());
     }
 
     public Page deserialize(SerializedPage serializedPage)
     {
         checkArgument(serializedPage != null, "serializedPage is null");
 
-        if (!decompressor.isPresent() || serializedPage.getCompression() == UNCOMPRESSED) {
+        PageCompression pageCompression = serializedPage.getCompression();
+        if (!pageCompression.isCompressed()) {
             return readRawPage(serializedPage.getPositionCount(), serializedPage.getSlice().getInput(), blockEncodingSerde);
         }
 
+        long start = System.nanoTime();
+        Slice slice = serializedPage.getSlice();
         int uncompressedSize = serializedPage.getUncompressedSizeInBytes();
         byte[] decompressed = new byte[uncompressedSize];
-        int actualUncompressedSize = decompressor.get().decompress(serializedPage.getSlice().getBytes(), 0, serializedPage.getSlice().length(), decompressed, 0, uncompressedSize);
+        int actualUncompressedSize;
+        if (slice.hasByteArray()) {
+            // decompress straight from the received page, without copying it first
+            actualUncompressedSize = getDecompressor(pageCompression).decompress(slice.byteArray(), slice.byteArrayOffset(), slice.length(), decompressed, 0, uncompressedSize);
+        }
+        else {
+            actualUncompressedSize = getDecompressor(pageCompression).decompress(slice.getBytes(), 0, slice.length(), decompressed, 0, uncompressedSize);
+        }
         checkState(uncompressedSize == actualUncompressedSize);
+        counters[pageCompression.ordinal()].record(true, uncompressedSize, slice.length(), System.nanoTime() - start);
 
         return readRawPage(serializedPage.getPositionCount(), Slices.wrappedBuffer(decompressed, 0, uncompressedSize).getInput(), blockEncodingSerde);
     }
+
+    /**
+     * Returns the statistics of each codec used to compress or decompress pages. This method may be called concurrently
+     * with serialize or deserialize.
+     */
+    public List<PageCompressionStats> getCompressionStats()
+    {
+        ImmutableList.Builder<PageCompressionStats> stats = ImmutableList.builder();
+        for (PageCompression codec : PageCompression.values()) {
+            counters[codec.ordinal()].getStats(codec).ifPresent(stats::add);
+        }
+        return stats.build();
+    }
+
+    private Decompressor getDecompressor(PageCompression pageCompression)
+    {
+        Decompressor decompressor = decompressors[pageCompression.ordinal()];
+        if (decompressor == null) {
+            decompressor = pageCompression.createDecompressor();
+            decompressors[pageCompression.ordinal()] = decompressor;
+        }
+        return decompressor;
+    }
+
+    private static class CompressionCounters
+    {
+        @GuardedBy("this")
+        private long pages;
+        @GuardedBy("this")
+        private long uncompressedPages;
+        @GuardedBy("this")
+        private long uncompressedBytes;
+        @GuardedBy("this")
+        private long compressedBytes;
+        @GuardedBy("this")
+        private long nanos;
+
+        public synchronized void record(boolean compressed, long uncompressedSize, long compressedSize, long elapsedNanos)
+        {
+            pages++;
+            if (!compressed) {
+                uncompressedPages++;
+            }
+            uncompressedBytes += uncompressedSize;
+            compressedBytes += compressedSize;
+            nanos += elapsedNanos;
+        }
+
+        public synchronized Optional<PageCompressionStats> getStats(PageCompression compression)
+        {
+            if (pages == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new PageCompressionStats(
+                    compression,
+                    pages,
+                    uncompressedPages,
+                    uncompressedBytes,
+                    compressedBytes,
+                    new Duration(nanos, NANOSECONDS).convertToMostSuccinctTimeUnit()));
+        }
+    }
 }
@@ -17,21 +17,34 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
 import io.airlift.slice.Slice;
 import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Iterator;
+import java.util.List;
 
 import static com.facebook.presto.block.BlockSerdeUtil.readBlock;
 import static com.facebook.presto.block.BlockSerdeUtil.writeBlock;
 import static com.facebook.presto.execution.buffer.PageCompression.lookupCodecFromMarker;
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
 import static java.lang.Math.toIntExact;
 import static java.util.Arrays.asList;
 import static java.util.Objects.requireNonNull;
 
 public class PagesSerdeUtil
 {
+    // position count, codec marker, uncompressed size and size of a serialized page
+    private static final int SERIALIZED_PAGE_HEADER_SIZE = SIZE_OF_INT + SIZE_OF_BYTE + SIZE_OF_INT + SIZE_OF_INT;
+
     private PagesSerdeUtil()
     {
     }
@@ -86,6 +99,28 @@ public class PagesSerdeUtil
         return size;
     }
 
+    /**
+     * Writes the pages to the stream in the same format as {@link #writeSerializedPages(SliceOutput, Iterable)}.
+     * The data of the pages is written straight from the page slices, without copying it to an intermediate buffer.
+     */
+    public static long writeSerializedPages(OutputStream output, Iterable<SerializedPage> pages)
+            throws IOException
+    {
+        byte[] header = new byte[SERIALIZED_PAGE_HEADER_SIZE];
+        Slice headerSlice = Slices.wrappedBuffer(header);
+        long size = 0;
+        for (SerializedPage page : pages) {
+            headerSlice.setInt(0, page.getPositionCount());
+            headerSlice.setByte(SIZE_OF_INT, page.getCompression().getMarker());
+            headerSlice.setInt(SIZE_OF_INT + SIZE_OF_BYTE, page.getUncompressedSizeInBytes());
+            headerSlice.setInt(SIZE_OF_INT + SIZE_OF_BYTE + SIZE_OF_INT, page.getSizeInBytes());
+            output.write(header);
+            page.getSlice().getBytes(0, output, page.getSizeInBytes());
+            size += page.getSizeInBytes();
+        }
+        return size;
+    }
+
     public static long writePages(PagesSerde serde, SliceOutput sliceOutput, Page... pages)
     {
         return writePages(serde, sliceOutput, asList(pages).iterator());
@@ -155,4 +190,54 @@ public class PagesSerdeUtil
             return readSerializedPage(input);
         }
     }
+
+    /**
+     * Reads all pages from the stream. The data of each page is read straight from the stream into an array
+     * of the exact size of the page, so it is copied once and the retained size of the page is not inflated.
+     */
+    public static List<SerializedPage> readSerializedPages(InputStream input)
+            throws IOException
+    {
+        ImmutableList.Builder<SerializedPage> pages = ImmutableList.builder();
+        byte[] header = new byte[SERIALIZED_PAGE_HEADER_SIZE];
+        while (true) {
+            int headerLength = ByteStreams.read(input, header, 0, header.length);
+            if (headerLength == 0) {
+                return pages.build();
+            }
+            if (headerLength != header.length) {
+                throw new EOFException("Unexpected end of stream in serialized page header");
+            }
+            pages.add(readSerializedPage(input, header));
+        }
+    }
+
+    /**
+     * Reads the specified number of pages from the stream, which may contain more data after them.
+     */
+    public static List<SerializedPage> readSerializedPages(InputStream input, int pageCount)
+            throws IOException
+    {
+        ImmutableList.Builder<SerializedPage> pages = ImmutableList.builder();
+        byte[] header = new byte[SERIALIZED_PAGE_HEADER_SIZE];
+        for (int i = 0; i < pageCount; i++) {
+            ByteStreams.readFully(input, header);
+            pages.add(readSerializedPage(input, header));
+        }
+        return pages.build();
+    }
+
+    private static SerializedPage readSerializedPage(InputStream input, byte[] header)
+            throws IOException
+    {
+        Slice headerSlice = Slices.wrappedBuffer(header);
+        int positionCount = headerSlice.getInt(0);
+        byte codecMarker = headerSlice.getByte(SIZE_OF_INT);
+        int uncompressedSizeInBytes = headerSlice.getInt(SIZE_OF_INT + SIZE_OF_BYTE);
+        int sizeInBytes = headerSlice.getInt(SIZE_OF_INT + SIZE_OF_BYTE + SIZE_OF_INT);
+
+        byte[] data = new byte[sizeInBytes];
+        ByteStreams.readFully(input, data);
+        return new SerializedPage(Slices.wrappedBuffer(data), lookupCodecFromMarker(codecMarker), positionCount, uncompressedSizeInBytes);
+    }
 }
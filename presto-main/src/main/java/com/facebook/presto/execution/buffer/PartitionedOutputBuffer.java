@@ -209,6 +209,15 @@ public class PartitionedOutputBuffer
         return partitions.get(outputBufferId.getId()).getPages(startingSequenceId, maxSize);
     }
 
+    @Override
+    public ListenableFuture<BufferResult> getWithoutAcknowledge(OutputBufferId outputBufferId, long startingSequenceId, DataSize maxSize)
+    {
+        requireNonNull(outputBufferId, "outputBufferId is null");
+        checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
+
+        return partitions.get(outputBufferId.getId()).getPagesWithoutAcknowledge(startingSequenceId, maxSize);
+    }
+
     @Override
     public void acknowledge(OutputBufferId outputBufferId, long sequenceId)
     {
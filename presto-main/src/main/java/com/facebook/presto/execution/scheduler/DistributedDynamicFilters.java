@@ -0,0 +1,264 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.presto.execution.RemoteTask;
+import com.facebook.presto.execution.SqlStageExecution;
+import com.facebook.presto.execution.StageState;
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskStatus;
+import com.facebook.presto.operator.LocalDynamicFilter;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanFragment;
+import com.facebook.presto.sql.planner.SubPlan;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanFragmentId;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.RemoteSourceNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ListMultimap;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static com.facebook.presto.execution.StageState.FINISHED;
+import static com.facebook.presto.execution.StageState.RUNNING;
+import static com.facebook.presto.execution.StageState.SCHEDULED;
+import static com.facebook.presto.sql.planner.DynamicFilters.findProbeSources;
+import static com.facebook.presto.sql.planner.DynamicFilters.getDynamicFilterId;
+import static com.facebook.presto.sql.planner.DynamicFilters.isDynamicFilteringSupported;
+import static com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Merges the dynamic filters reported by the tasks of the stages running hash
+ * joins, and exposes them to the split sources of the table scans on the probe
+ * side of these joins, which may be in other stages.
+ * <p>
+ * The build side of a replicated join is complete in every task, so the first
+ * reported domain is used. The build side of a partitioned join is spread over
+ * all tasks of the stage, so the filter is only completed once the stage has
+ * created all of its tasks and every task has reported its domain.
+ */
+@ThreadSafe
+public class DistributedDynamicFilters
+{
+    private final Map<String, DynamicFilter> dynamicFilters;
+    private final ListMultimap<PlanFragmentId, DynamicFilter> dynamicFiltersByFragment;
+    private final ListMultimap<PlanNodeId, DynamicFilterTarget> targets;
+
+    public static DistributedDynamicFilters disabled()
+    {
+        return new DistributedDynamicFilters(ImmutableList.of(), ImmutableListMultimap.of());
+    }
+
+    public static DistributedDynamicFilters create(SubPlan plan)
+    {
+        Map<PlanFragmentId, PlanFragment> fragments = plan.getAllFragments().stream()
+                .collect(toImmutableMap(PlanFragment::getId, fragment -> fragment));
+
+        ImmutableList.Builder<DynamicFilter> dynamicFilters = ImmutableList.builder();
+        ImmutableListMultimap.Builder<PlanNodeId, DynamicFilterTarget> targets = ImmutableListMultimap.builder();
+        for (PlanFragment fragment : fragments.values()) {
+            List<JoinNode> joins = searchFrom(fragment.getRoot())
+                    .where(JoinNode.class::isInstance)
+                    .findAll();
+            for (JoinNode join : joins) {
+                if (!isDynamicFilteringSupported(join)) {
+                    continue;
+                }
+                for (int i = 0; i < join.getCriteria().size(); i++) {
+                    Symbol probeSymbol = join.getCriteria().get(i).getLeft();
+                    Type type = fragment.getSymbols().get(probeSymbol);
+                    if (!LocalDynamicFilter.isSupportedType(type)) {
+                        continue;
+                    }
+                    String dynamicFilterId = getDynamicFilterId(join.getId(), i);
+                    Map<PlanNodeId, ColumnHandle> columns = new HashMap<>();
+                    findTableScanColumns(fragments, join.getLeft(), probeSymbol, columns);
+                    if (columns.isEmpty()) {
+                        continue;
+                    }
+                    dynamicFilters.add(new DynamicFilter(dynamicFilterId, fragment.getId(), join.getDistributionType().equals(Optional.of(REPLICATED))));
+                    columns.forEach((tableScanId, column) -> targets.put(tableScanId, new DynamicFilterTarget(dynamicFilterId, column)));
+                }
+            }
+        }
+        return new DistributedDynamicFilters(dynamicFilters.build(), targets.build());
+    }
+
+    private static void findTableScanColumns(Map<PlanFragmentId, PlanFragment> fragments, PlanNode node, Symbol symbol, Map<PlanNodeId, ColumnHandle> columns)
+    {
+        findProbeSources(node, symbol, (source, sourceSymbol) -> {
+            if (source instanceof TableScanNode) {
+                columns.put(source.getId(), ((TableScanNode) source).getAssignments().get(sourceSymbol));
+                return;
+            }
+            // remote source outputs are laid out as the outputs of the source fragments
+            int channel = source.getOutputSymbols().indexOf(sourceSymbol);
+            for (PlanFragmentId sourceFragmentId : ((RemoteSourceNode) source).getSourceFragmentIds()) {
+                PlanFragment sourceFragment = fragments.get(sourceFragmentId);
+                Symbol outputSymbol = sourceFragment.getPartitioningScheme().getOutputLayout().get(channel);
+                findTableScanColumns(fragments, sourceFragment.getRoot(), outputSymbol, columns);
+            }
+        });
+    }
+
+    private DistributedDynamicFilters(List<DynamicFilter> dynamicFilters, ListMultimap<PlanNodeId, DynamicFilterTarget> targets)
+    {
+        this.dynamicFilters = dynamicFilters.stream()
+                .collect(toImmutableMap(DynamicFilter::getId, filter -> filter));
+        this.dynamicFiltersByFragment = this.dynamicFilters.values().stream()
+                .collect(toImmutableListMultimap(DynamicFilter::getFragmentId, filter -> filter));
+        this.targets = ImmutableListMultimap.copyOf(requireNonNull(targets, "targets is null"));
+    }
+
+    /**
+     * Returns the current dynamic filter of the given table scan. It is narrowed each time
+     * a join with the table scan on its probe side completes its dynamic filter.
+     */
+    public Supplier<TupleDomain<ColumnHandle>> getDynamicFilter(PlanNodeId tableScanId)
+    {
+        List<DynamicFilterTarget> tableScanTargets = targets.get(tableScanId);
+        if (tableScanTargets.isEmpty()) {
+            return TupleDomain::all;
+        }
+        return () -> {
+            TupleDomain<ColumnHandle> dynamicFilter = TupleDomain.all();
+            for (DynamicFilterTarget target : tableScanTargets) {
+                Optional<Domain> domain = dynamicFilters.get(target.getDynamicFilterId()).getCompletedDomain();
+                if (domain.isPresent()) {
+                    dynamicFilter = dynamicFilter.intersect(TupleDomain.withColumnDomains(ImmutableMap.of(target.getColumn(), domain.get())));
+                }
+            }
+            return dynamicFilter;
+        };
+    }
+
+    public void addStage(SqlStageExecution stage)
+    {
+        List<DynamicFilter> stageDynamicFilters = dynamicFiltersByFragment.get(stage.getFragment().getId());
+        if (stageDynamicFilters.isEmpty()) {
+            return;
+        }
+        stage.addTaskStatusListener(taskStatus -> stageDynamicFilters.forEach(filter -> filter.addTaskStatus(stage, taskStatus)));
+        stage.addStateChangeListener(state -> stageDynamicFilters.forEach(filter -> filter.update(stage)));
+    }
+
+    private static class DynamicFilter
+    {
+        private final String id;
+        private final PlanFragmentId fragmentId;
+        private final boolean replicated;
+
+        @GuardedBy("this")
+        private final Map<TaskId, Domain> taskDomains = new HashMap<>();
+        private volatile Optional<Domain> completedDomain = Optional.empty();
+
+        private DynamicFilter(String id, PlanFragmentId fragmentId, boolean replicated)
+        {
+            this.id = requireNonNull(id, "id is null");
+            this.fragmentId = requireNonNull(fragmentId, "fragmentId is null");
+            this.replicated = replicated;
+        }
+
+        public String getId()
+        {
+            return id;
+        }
+
+        public PlanFragmentId getFragmentId()
+        {
+            return fragmentId;
+        }
+
+        public Optional<Domain> getCompletedDomain()
+        {
+            return completedDomain;
+        }
+
+        public synchronized void addTaskStatus(SqlStageExecution stage, TaskStatus taskStatus)
+        {
+            Domain domain = taskStatus.getDynamicFilterDomains().get(id);
+            if (domain == null || completedDomain.isPresent()) {
+                return;
+            }
+            taskDomains.put(taskStatus.getTaskId(), domain);
+            update(stage);
+        }
+
+        public synchronized void update(SqlStageExecution stage)
+        {
+            if (taskDomains.isEmpty() || completedDomain.isPresent()) {
+                return;
+            }
+            if (replicated) {
+                completedDomain = Optional.of(taskDomains.values().iterator().next());
+                return;
+            }
+
+            StageState state = stage.getState();
+            if (state != SCHEDULED && state != RUNNING && state != FINISHED) {
+                // more tasks may be created
+                return;
+            }
+            if (!taskDomains.keySet().containsAll(stage.getAllTasks().stream()
+                    .map(RemoteTask::getTaskId)
+                    .collect(toImmutableSet()))) {
+                return;
+            }
+            completedDomain = Optional.of(Domain.union(ImmutableList.copyOf(taskDomains.values())));
+        }
+    }
+
+    private static class DynamicFilterTarget
+    {
+        private final String dynamicFilterId;
+        private final ColumnHandle column;
+
+        public DynamicFilterTarget(String dynamicFilterId, ColumnHandle column)
+        {
+            this.dynamicFilterId = requireNonNull(dynamicFilterId, "dynamicFilterId is null");
+            this.column = requireNonNull(column, "column is null");
+        }
+
+        public String getDynamicFilterId()
+        {
+            return dynamicFilterId;
+        }
+
+        public ColumnHandle getColumn()
+        {
+            return column;
+        }
+    }
+}
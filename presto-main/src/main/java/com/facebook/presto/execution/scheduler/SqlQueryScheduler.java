@@ -133,7 +133,8 @@ public class SqlQueryScheduler
             OutputBuffers rootOutputBuffers,
             NodeTaskMap nodeTaskMap,
             ExecutionPolicy executionPolicy,
-            SplitSchedulerStats schedulerStats)
+            SplitSchedulerStats schedulerStats,
+            DistributedDynamicFilters dynamicFilters)
     {
         this.queryStateMachine = requireNonNull(queryStateMachine, "queryStateMachine is null");
         this.executionPolicy = requireNonNull(executionPolicy, "schedulerPolicyFactory is null");
@@ -173,6 +174,9 @@ public class SqlQueryScheduler
         this.stages = stages.stream()
                 .collect(toImmutableMap(SqlStageExecution::getStageId, identity()));
 
+        requireNonNull(dynamicFilters, "dynamicFilters is null");
+        stages.forEach(dynamicFilters::addStage);
+
         this.stageSchedulers = stageSchedulers.build();
         this.stageLinkages = stageLinkages.build();
 
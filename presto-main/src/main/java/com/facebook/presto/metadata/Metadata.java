@@ -21,6 +21,7 @@ import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.Constraint;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.SplitAggregationType;
 import com.facebook.presto.spi.SystemTable;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.connector.ConnectorOutputMetadata;
@@ -219,6 +220,11 @@ public interface Metadata
      */
     ColumnHandle getUpdateRowIdColumnHandle(Session session, TableHandle tableHandle);
 
+    /**
+     * Returns a handle for a column with the given aggregation over the rows of each split of the layout, if the connector supports it.
+     */
+    Optional<ColumnHandle> getSplitAggregationColumnHandle(Session session, TableLayoutHandle tableLayoutHandle, SplitAggregationType aggregationType, Optional<ColumnHandle> argument);
+
     /**
      * @return whether delete without table scan is supported
      */
@@ -34,6 +34,7 @@ import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.SplitAggregationType;
 import com.facebook.presto.spi.SystemTable;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.connector.ConnectorMetadata;
@@ -723,6 +724,14 @@ public class MetadataManager
         return metadata.getUpdateRowIdColumnHandle(session.toConnectorSession(connectorId), tableHandle.getConnectorHandle());
     }
 
+    @Override
+    public Optional<ColumnHandle> getSplitAggregationColumnHandle(Session session, TableLayoutHandle tableLayoutHandle, SplitAggregationType aggregationType, Optional<ColumnHandle> argument)
+    {
+        ConnectorId connectorId = tableLayoutHandle.getConnectorId();
+        ConnectorMetadata metadata = getMetadata(session, connectorId);
+        return metadata.getSplitAggregationColumnHandle(session.toConnectorSession(connectorId), tableLayoutHandle.getConnectorHandle(), aggregationType, argument);
+    }
+
     @Override
     public boolean supportsMetadataDelete(Session session, TableHandle tableHandle, TableLayoutHandle tableLayoutHandle)
     {
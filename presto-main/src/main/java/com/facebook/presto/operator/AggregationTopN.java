@@ -0,0 +1,58 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.block.SortOrder;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The groups to output from a {@link HashAggregationOperator} which is followed by a top N:
+ * only the first {@code count} groups, ordered by the given channels of the aggregation output.
+ */
+public class AggregationTopN
+{
+    private final int count;
+    private final List<Integer> sortChannels;
+    private final List<SortOrder> sortOrders;
+
+    public AggregationTopN(int count, List<Integer> sortChannels, List<SortOrder> sortOrders)
+    {
+        checkArgument(count > 0, "count must be positive");
+        this.count = count;
+        this.sortChannels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
+        this.sortOrders = ImmutableList.copyOf(requireNonNull(sortOrders, "sortOrders is null"));
+        checkArgument(!sortChannels.isEmpty(), "sortChannels is empty");
+        checkArgument(sortChannels.size() == sortOrders.size(), "sortChannels and sortOrders must have the same size");
+    }
+
+    public int getCount()
+    {
+        return count;
+    }
+
+    public List<Integer> getSortChannels()
+    {
+        return sortChannels;
+    }
+
+    public List<SortOrder> getSortOrders()
+    {
+        return sortOrders;
+    }
+}
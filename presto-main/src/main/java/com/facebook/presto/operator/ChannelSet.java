@@ -20,6 +20,7 @@ import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -81,6 +82,17 @@ public class ChannelSet
         private final LocalMemoryContext localMemoryContext;
 
         public ChannelSetBuilder(Type type, Optional<Integer> hashChannel, int expectedPositions, OperatorContext operatorContext, JoinCompiler joinCompiler)
+        {
+            this(type, hashChannel, expectedPositions, operatorContext, joinCompiler, operatorContext.localUserMemoryContext());
+        }
+
+        public ChannelSetBuilder(
+                Type type,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                OperatorContext operatorContext,
+                JoinCompiler joinCompiler,
+                LocalMemoryContext localMemoryContext)
         {
             List<Type> types = ImmutableList.of(type);
             this.hash = createGroupByHash(
@@ -93,12 +105,17 @@ public class ChannelSet
                     this::updateMemoryReservation);
             this.nullBlockPage = new Page(type.createBlockBuilder(null, 1, UNKNOWN.getFixedSize()).appendNull().build());
             this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
-            this.localMemoryContext = operatorContext.localUserMemoryContext();
+            this.localMemoryContext = requireNonNull(localMemoryContext, "localMemoryContext is null");
         }
 
         public ChannelSet build()
         {
-            return new ChannelSet(hash, hash.contains(0, nullBlockPage, HASH_CHANNELS), HASH_CHANNELS);
+            return new ChannelSet(hash, containsNull(), HASH_CHANNELS);
+        }
+
+        public boolean containsNull()
+        {
+            return hash.contains(0, nullBlockPage, HASH_CHANNELS);
         }
 
         public long getEstimatedSize()
@@ -106,6 +123,23 @@ public class ChannelSet
             return hash.getEstimatedSize();
         }
 
+        /**
+         * Types of the pages returned by {@link #getValues()}: the set channel,
+         * followed by the hash channel if the input has one.
+         */
+        public List<Type> getTypes()
+        {
+            return hash.getTypes();
+        }
+
+        /**
+         * Returns the distinct values added so far, including null if it has been added.
+         */
+        public Iterator<Page> getValues()
+        {
+            return hash.getGroups();
+        }
+
         public int size()
         {
             return hash.getGroupCount();
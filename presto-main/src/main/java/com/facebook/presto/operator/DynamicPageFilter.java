@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.spi.type.TypeUtils.readNativeValue;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Removes rows of table scan pages whose join keys can not match the build
+ * side of a downstream hash join. Constraints are only applied once their
+ * {@link LocalDynamicFilter} has been completed by the build side, so pages
+ * read before that are returned as is.
+ */
+public class DynamicPageFilter
+{
+    public static final DynamicPageFilter ALWAYS_TRUE = new DynamicPageFilter(ImmutableList.of());
+
+    private final List<Constraint> constraints;
+
+    public DynamicPageFilter(List<Constraint> constraints)
+    {
+        this.constraints = ImmutableList.copyOf(requireNonNull(constraints, "constraints is null"));
+    }
+
+    public boolean isAlwaysTrue()
+    {
+        return constraints.isEmpty();
+    }
+
+    public Page filter(Page page)
+    {
+        if (constraints.isEmpty() || page.getPositionCount() == 0) {
+            return page;
+        }
+
+        int[] positions = null;
+        int positionCount = page.getPositionCount();
+        for (Constraint constraint : constraints) {
+            Optional<Set<Object>> values = constraint.getValues();
+            if (!values.isPresent()) {
+                continue;
+            }
+            if (positions == null) {
+                positions = new int[positionCount];
+                for (int position = 0; position < positionCount; position++) {
+                    positions[position] = position;
+                }
+            }
+            positionCount = filterPositions(page.getBlock(constraint.getChannel()), constraint.getType(), values.get(), positions, positionCount);
+        }
+
+        if (positions == null || positionCount == page.getPositionCount()) {
+            return page;
+        }
+        return getPositions(page, positions, positionCount);
+    }
+
+    private static int filterPositions(Block block, Type type, Set<Object> values, int[] positions, int positionCount)
+    {
+        int retained = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            Object value = readNativeValue(type, block, position);
+            if (value != null && values.contains(value)) {
+                positions[retained] = position;
+                retained++;
+            }
+        }
+        return retained;
+    }
+
+    private static Page getPositions(Page page, int[] positions, int positionCount)
+    {
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            Block block = page.getBlock(channel);
+            if (block instanceof LazyBlock && !((LazyBlock) block).isLoaded()) {
+                // the filter columns have been loaded to evaluate the constraints, but the other columns
+                // can stay lazy, so that they are only read for the retained rows
+                blocks[channel] = new LazyBlock(positionCount, lazyBlock -> lazyBlock.setBlock(block.getPositions(positions, 0, positionCount)));
+            }
+            else {
+                blocks[channel] = block.getPositions(positions, 0, positionCount);
+            }
+        }
+        return new Page(positionCount, blocks);
+    }
+
+    public static class Constraint
+    {
+        private final LocalDynamicFilter dynamicFilter;
+        private final int keyIndex;
+        private final int channel;
+
+        public Constraint(LocalDynamicFilter dynamicFilter, int keyIndex, int channel)
+        {
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+            this.keyIndex = keyIndex;
+            this.channel = channel;
+        }
+
+        public Optional<Set<Object>> getValues()
+        {
+            return dynamicFilter.getValues(keyIndex);
+        }
+
+        public Type getType()
+        {
+            return dynamicFilter.getTypes().get(keyIndex);
+        }
+
+        public int getChannel()
+        {
+            return channel;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.facebook.presto.execution.buffer.SerializedPage;
 import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.operator.HttpPageBufferClient.ClientCallback;
 import com.facebook.presto.operator.WorkProcessor.ProcessState;
+import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -33,12 +34,16 @@ import java.io.Closeable;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -49,6 +54,8 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Throwables.throwIfUnchecked;
 import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static io.airlift.slice.Slices.EMPTY_SLICE;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
@@ -56,6 +63,7 @@ public class ExchangeClient
         implements Closeable
 {
     private static final SerializedPage NO_MORE_PAGES = new SerializedPage(EMPTY_SLICE, UNCOMPRESSED, 0, 0);
+    private static final long MIN_STREAM_CREDIT_BYTES = new DataSize(64, KILOBYTE).toBytes();
 
     private final long bufferCapacity;
     private final DataSize maxResponseSize;
@@ -88,11 +96,18 @@ public class ExchangeClient
     @GuardedBy("this")
     private long averageBytesPerRequest;
 
+    // credit granted to the streams of the clients, for pages that have not been received yet
+    @GuardedBy("this")
+    private final Map<HttpPageBufferClient, Long> streamCredits = new HashMap<>();
+    @GuardedBy("this")
+    private long streamCreditBytes;
+
     private final AtomicBoolean closed = new AtomicBoolean();
     private final AtomicReference<Throwable> failure = new AtomicReference<>();
 
     private final LocalMemoryContext systemMemoryContext;
     private final Executor pageBufferClientCallbackExecutor;
+    private final Optional<ExecutorService> streamReaderExecutor;
 
     // ExchangeClientStatus.mergeWith assumes all clients have the same bufferCapacity.
     // Please change that method accordingly when this assumption becomes not true.
@@ -106,6 +121,25 @@ public class ExchangeClient
             ScheduledExecutorService scheduler,
             LocalMemoryContext systemMemoryContext,
             Executor pageBufferClientCallbackExecutor)
+    {
+        this(bufferCapacity, maxResponseSize, concurrentRequestMultiplier, maxErrorDuration, acknowledgePages, httpClient, scheduler, systemMemoryContext, pageBufferClientCallbackExecutor, Optional.empty());
+    }
+
+    /**
+     * If the stream reader executor is present, the pages are pushed by the remote buffers on streams,
+     * and the credit granted to the streams keeps the buffered pages within the buffer capacity.
+     */
+    public ExchangeClient(
+            DataSize bufferCapacity,
+            DataSize maxResponseSize,
+            int concurrentRequestMultiplier,
+            Duration maxErrorDuration,
+            boolean acknowledgePages,
+            HttpClient httpClient,
+            ScheduledExecutorService scheduler,
+            LocalMemoryContext systemMemoryContext,
+            Executor pageBufferClientCallbackExecutor,
+            Optional<ExecutorService> streamReaderExecutor)
     {
         this.bufferCapacity = bufferCapacity.toBytes();
         this.maxResponseSize = maxResponseSize;
@@ -117,6 +151,7 @@ public class ExchangeClient
         this.systemMemoryContext = systemMemoryContext;
         this.maxBufferRetainedSizeInBytes = Long.MIN_VALUE;
         this.pageBufferClientCallbackExecutor = requireNonNull(pageBufferClientCallbackExecutor, "pageBufferClientCallbackExecutor is null");
+        this.streamReaderExecutor = requireNonNull(streamReaderExecutor, "streamReaderExecutor is null");
     }
 
     public ExchangeClientStatus getStatus()
@@ -134,7 +169,7 @@ public class ExchangeClient
             if (bufferedPages > 0 && pageBuffer.peekLast() == NO_MORE_PAGES) {
                 bufferedPages--;
             }
-            return new ExchangeClientStatus(bufferRetainedSizeInBytes, maxBufferRetainedSizeInBytes, averageBytesPerRequest, successfulRequests, bufferedPages, noMoreLocations, pageBufferClientStatus);
+            return new ExchangeClientStatus(bufferRetainedSizeInBytes, maxBufferRetainedSizeInBytes, averageBytesPerRequest, successfulRequests, bufferedPages, noMoreLocations, pageBufferClientStatus, ImmutableList.of());
         }
     }
 
@@ -163,7 +198,9 @@ public class ExchangeClient
                 location,
                 new ExchangeClientCallback(),
                 scheduler,
-                pageBufferClientCallbackExecutor);
+                Ticker.systemTicker(),
+                pageBufferClientCallbackExecutor,
+                streamReaderExecutor);
         allClients.put(location, client);
         queuedClients.add(client);
 
@@ -268,6 +305,8 @@ public class ExchangeClient
         pageBuffer.clear();
         systemMemoryContext.setBytes(0);
         bufferRetainedSizeInBytes = 0;
+        streamCredits.clear();
+        streamCreditBytes = 0;
         if (pageBuffer.peekLast() != NO_MORE_PAGES) {
             checkState(pageBuffer.add(NO_MORE_PAGES), "Could not add no more pages marker");
         }
@@ -292,6 +331,11 @@ public class ExchangeClient
             return;
         }
 
+        if (streamReaderExecutor.isPresent()) {
+            grantStreamCredits();
+            return;
+        }
+
         long neededBytes = bufferCapacity - bufferRetainedSizeInBytes;
         if (neededBytes <= 0) {
             return;
@@ -313,6 +357,69 @@ public class ExchangeClient
         }
     }
 
+    @GuardedBy("this")
+    private void grantStreamCredits()
+    {
+        // the credit of each client is topped up to its share of the buffer capacity, as long as the buffered
+        // pages and the credit that may still be used fit in the buffer, so the clients are served in turn
+        long targetCredit = getTargetStreamCredit();
+        while (!queuedClients.isEmpty()) {
+            HttpPageBufferClient client = queuedClients.peek();
+            long outstandingCredit = streamCredits.getOrDefault(client, 0L);
+            long credit = Math.max(targetCredit - outstandingCredit, 0);
+            boolean idle = bufferRetainedSizeInBytes == 0 && streamCreditBytes == 0;
+            if (!idle && bufferRetainedSizeInBytes + streamCreditBytes + credit > bufferCapacity) {
+                // wait for the buffer to drain, or for credit to be released
+                return;
+            }
+
+            queuedClients.poll();
+            if (credit > 0 && client.scheduleStream(new DataSize(credit, BYTE))) {
+                streamCredits.put(client, outstandingCredit + credit);
+                streamCreditBytes += credit;
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private long getTargetStreamCredit()
+    {
+        int activeClients = Math.max(allClients.size() - completedClients.size(), 1);
+        long targetCredit = Math.min(bufferCapacity / activeClients, maxResponseSize.toBytes());
+        return Math.max(targetCredit, MIN_STREAM_CREDIT_BYTES);
+    }
+
+    @GuardedBy("this")
+    private void consumeStreamCredit(HttpPageBufferClient client, List<SerializedPage> pages)
+    {
+        Long credit = streamCredits.get(client);
+        if (credit == null) {
+            return;
+        }
+
+        // a page larger than the remaining credit is still sent, which uses up the credit
+        long receivedBytes = pages.stream()
+                .mapToLong(SerializedPage::getSizeInBytes)
+                .sum();
+        long remainingCredit = Math.max(credit - receivedBytes, 0);
+        streamCredits.put(client, remainingCredit);
+        streamCreditBytes -= credit - remainingCredit;
+
+        // grant more credit to the open stream before it runs out
+        if (remainingCredit < getTargetStreamCredit() / 2 && !queuedClients.contains(client)) {
+            queuedClients.add(client);
+        }
+    }
+
+    @GuardedBy("this")
+    private void releaseStreamCredit(HttpPageBufferClient client)
+    {
+        Long credit = streamCredits.remove(client);
+        if (credit != null) {
+            streamCreditBytes -= credit;
+        }
+    }
+
     public synchronized ListenableFuture<?> isBlocked()
     {
         if (isClosed() || isFailed() || pageBuffer.peek() != null) {
@@ -323,12 +430,16 @@ public class ExchangeClient
         return future;
     }
 
-    private synchronized boolean addPages(List<SerializedPage> pages)
+    private synchronized boolean addPages(HttpPageBufferClient client, List<SerializedPage> pages)
     {
         if (isClosed() || isFailed()) {
             return false;
         }
 
+        if (streamReaderExecutor.isPresent()) {
+            consumeStreamCredit(client, pages);
+        }
+
         pageBuffer.addAll(pages);
 
         if (!pages.isEmpty()) {
@@ -351,6 +462,9 @@ public class ExchangeClient
         // AVG_n = AVG_(n-1) * (n-1)/n + VALUE_n / n
         averageBytesPerRequest = (long) (1.0 * averageBytesPerRequest * (successfulRequests - 1) / successfulRequests + responseSize / successfulRequests);
 
+        if (streamReaderExecutor.isPresent()) {
+            grantStreamCredits();
+        }
         return true;
     }
 
@@ -366,6 +480,8 @@ public class ExchangeClient
 
     private synchronized void requestComplete(HttpPageBufferClient client)
     {
+        // the credit of an ended stream is lost, as the next stream is opened with new credit
+        releaseStreamCredit(client);
         if (!queuedClients.contains(client)) {
             queuedClients.add(client);
         }
@@ -376,6 +492,7 @@ public class ExchangeClient
     {
         requireNonNull(client, "client is null");
         completedClients.add(client);
+        releaseStreamCredit(client);
         scheduleRequestIfNecessary();
     }
 
@@ -411,7 +528,7 @@ public class ExchangeClient
         {
             requireNonNull(client, "client is null");
             requireNonNull(pages, "pages is null");
-            return ExchangeClient.this.addPages(pages);
+            return ExchangeClient.this.addPages(client, pages);
         }
 
         @Override
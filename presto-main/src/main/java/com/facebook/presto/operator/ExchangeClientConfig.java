@@ -36,6 +36,7 @@ public class ExchangeClientConfig
     private int clientThreads = 25;
     private int pageBufferClientMaxCallbackThreads = 25;
     private boolean acknowledgePages = true;
+    private boolean streamingEnabled;
 
     @NotNull
     public DataSize getMaxBufferSize()
@@ -141,4 +142,16 @@ public class ExchangeClientConfig
         this.acknowledgePages = acknowledgePages;
         return this;
     }
+
+    public boolean isStreamingEnabled()
+    {
+        return streamingEnabled;
+    }
+
+    @Config("exchange.streaming-enabled")
+    public ExchangeClientConfig setStreamingEnabled(boolean streamingEnabled)
+    {
+        this.streamingEnabled = streamingEnabled;
+        return this;
+    }
 }
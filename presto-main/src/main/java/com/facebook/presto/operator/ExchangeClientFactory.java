@@ -24,6 +24,7 @@ import org.weakref.jmx.Nested;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -32,6 +33,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 
 public class ExchangeClientFactory
@@ -46,6 +48,7 @@ public class ExchangeClientFactory
     private final ScheduledExecutorService scheduler;
     private final ThreadPoolExecutorMBean executorMBean;
     private final ExecutorService pageBufferClientCallbackExecutor;
+    private final Optional<ExecutorService> streamReaderExecutor;
 
     @Inject
     public ExchangeClientFactory(
@@ -59,6 +62,7 @@ public class ExchangeClientFactory
                 config.getConcurrentRequestMultiplier(),
                 config.getMaxErrorDuration(),
                 config.isAcknowledgePages(),
+                config.isStreamingEnabled(),
                 config.getPageBufferClientMaxCallbackThreads(),
                 httpClient,
                 scheduler);
@@ -70,6 +74,7 @@ public class ExchangeClientFactory
             int concurrentRequestMultiplier,
             Duration maxErrorDuration,
             boolean acknowledgePages,
+            boolean streamingEnabled,
             int pageBufferClientMaxCallbackThreads,
             HttpClient httpClient,
             ScheduledExecutorService scheduler)
@@ -91,6 +96,9 @@ public class ExchangeClientFactory
         this.pageBufferClientCallbackExecutor = newFixedThreadPool(pageBufferClientMaxCallbackThreads, daemonThreadsNamed("page-buffer-client-callback-%s"));
         this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) pageBufferClientCallbackExecutor);
 
+        // each open stream blocks a reader thread while it waits for pages
+        this.streamReaderExecutor = streamingEnabled ? Optional.of(newCachedThreadPool(daemonThreadsNamed("exchange-stream-reader-%s"))) : Optional.empty();
+
         checkArgument(maxBufferedBytes.toBytes() > 0, "maxBufferSize must be at least 1 byte: %s", maxBufferedBytes);
         checkArgument(maxResponseSize.toBytes() > 0, "maxResponseSize must be at least 1 byte: %s", maxResponseSize);
         checkArgument(concurrentRequestMultiplier > 0, "concurrentRequestMultiplier must be at least 1: %s", concurrentRequestMultiplier);
@@ -100,6 +108,7 @@ public class ExchangeClientFactory
     public void stop()
     {
         pageBufferClientCallbackExecutor.shutdownNow();
+        streamReaderExecutor.ifPresent(ExecutorService::shutdownNow);
     }
 
     @Managed
@@ -121,6 +130,7 @@ public class ExchangeClientFactory
                 httpClient,
                 scheduler,
                 systemMemoryContext,
-                pageBufferClientCallbackExecutor);
+                pageBufferClientCallbackExecutor,
+                streamReaderExecutor);
     }
 }
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.execution.buffer.PageCompressionStats;
 import com.facebook.presto.util.Mergeable;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -20,6 +21,7 @@ import com.google.common.collect.ImmutableList;
 
 import java.util.List;
 
+import static com.facebook.presto.execution.buffer.PageCompressionStats.mergeStats;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static java.util.Objects.requireNonNull;
 
@@ -33,6 +35,7 @@ public class ExchangeClientStatus
     private final int bufferedPages;
     private final boolean noMoreLocations;
     private final List<PageBufferClientStatus> pageBufferClientStatuses;
+    private final List<PageCompressionStats> compressionStats;
 
     @JsonCreator
     public ExchangeClientStatus(
@@ -42,7 +45,8 @@ public class ExchangeClientStatus
             @JsonProperty("successfulRequestsCount") long successFullRequestsCount,
             @JsonProperty("bufferedPages") int bufferedPages,
             @JsonProperty("noMoreLocations") boolean noMoreLocations,
-            @JsonProperty("pageBufferClientStatuses") List<PageBufferClientStatus> pageBufferClientStatuses)
+            @JsonProperty("pageBufferClientStatuses") List<PageBufferClientStatus> pageBufferClientStatuses,
+            @JsonProperty("compressionStats") List<PageCompressionStats> compressionStats)
     {
         this.bufferedBytes = bufferedBytes;
         this.maxBufferedBytes = maxBufferedBytes;
@@ -51,6 +55,7 @@ public class ExchangeClientStatus
         this.bufferedPages = bufferedPages;
         this.noMoreLocations = noMoreLocations;
         this.pageBufferClientStatuses = ImmutableList.copyOf(requireNonNull(pageBufferClientStatuses, "pageBufferClientStatuses is null"));
+        this.compressionStats = ImmutableList.copyOf(requireNonNull(compressionStats, "compressionStats is null"));
     }
 
     @JsonProperty
@@ -95,6 +100,25 @@ public class ExchangeClientStatus
         return pageBufferClientStatuses;
     }
 
+    @JsonProperty
+    public List<PageCompressionStats> getCompressionStats()
+    {
+        return compressionStats;
+    }
+
+    public ExchangeClientStatus withCompressionStats(List<PageCompressionStats> compressionStats)
+    {
+        return new ExchangeClientStatus(
+                bufferedBytes,
+                maxBufferedBytes,
+                averageBytesPerRequest,
+                successfulRequestsCount,
+                bufferedPages,
+                noMoreLocations,
+                pageBufferClientStatuses,
+                compressionStats);
+    }
+
     @Override
     public boolean isFinal()
     {
@@ -112,6 +136,7 @@ public class ExchangeClientStatus
                 .add("bufferedPages", bufferedPages)
                 .add("noMoreLocations", noMoreLocations)
                 .add("pageBufferClientStatuses", pageBufferClientStatuses)
+                .add("compressionStats", compressionStats)
                 .toString();
     }
 
@@ -125,7 +150,8 @@ public class ExchangeClientStatus
                 successfulRequestsCount + other.successfulRequestsCount,
                 bufferedPages + other.bufferedPages,
                 noMoreLocations && other.noMoreLocations, // if at least one has some locations, mergee has some too
-                ImmutableList.of()); // pageBufferClientStatuses may be long, so we don't want to combine the lists
+                ImmutableList.of(), // pageBufferClientStatuses may be long, so we don't want to combine the lists
+                mergeStats(compressionStats, other.compressionStats));
     }
 
     private static long mergeAvgs(long value1, long count1, long value2, long count2)
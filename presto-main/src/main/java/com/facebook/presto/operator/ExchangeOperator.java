@@ -105,7 +105,7 @@ public class ExchangeOperator
         this.exchangeClient = requireNonNull(exchangeClient, "exchangeClient is null");
         this.serde = requireNonNull(serde, "serde is null");
 
-        operatorContext.setInfoSupplier(exchangeClient::getStatus);
+        operatorContext.setInfoSupplier(() -> exchangeClient.getStatus().withCompressionStats(serde.getCompressionStats()));
     }
 
     @Override
@@ -0,0 +1,687 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.array.IntBigArray;
+import com.facebook.presto.array.LongBigArray;
+import com.facebook.presto.operator.scalar.CombineHashFunction;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.AbstractLongType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.optimizations.HashGenerationOptimizer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INSUFFICIENT_RESOURCES;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.type.TypeUtils.NULL_HASH_CODE;
+import static com.facebook.presto.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Group by hash for keys made only of fixed width integral types. The keys of a row,
+ * along with a null bit per key, are packed into one or two longs, so that the hash
+ * table only compares and stores primitive values.
+ * <p>
+ * The input pages are packed one column at a time before grouping, so the hash table
+ * loop does not access the blocks. The raw hash of a group matches the hash computed
+ * by {@link InterpretedHashGenerator} for the same keys.
+ */
+public class FixedWidthGroupByHash
+        implements GroupByHash
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(FixedWidthGroupByHash.class).instanceSize();
+
+    private static final float FILL_RATIO = 0.75f;
+    private static final int MAX_WORDS = 2;
+
+    private final List<Type> types;
+    private final Type[] keyTypes;
+    private final int[] hashChannels;
+    private final boolean outputRawHash;
+    private final KeyLayout layout;
+
+    private int hashCapacity;
+    private int maxFill;
+    private int mask;
+
+    // the hash table from packed keys to groupIds
+    private LongBigArray keys0;
+    private LongBigArray keys1;
+    private IntBigArray groupIds;
+
+    // reverse index from the groupId back to the packed keys
+    private final LongBigArray keys0ByGroupId;
+    private final LongBigArray keys1ByGroupId;
+
+    private int nextGroupId;
+    private long hashCollisions;
+    private double expectedHashCollisions;
+
+    // reserve enough memory before rehash
+    private final UpdateMemory updateMemory;
+    private long preallocatedMemoryInBytes;
+    private long currentPageSizeInBytes;
+
+    public static boolean isSupported(List<? extends Type> types)
+    {
+        return KeyLayout.create(types).isPresent();
+    }
+
+    public FixedWidthGroupByHash(List<? extends Type> hashTypes, int[] hashChannels, boolean outputRawHash, int expectedSize, UpdateMemory updateMemory)
+    {
+        requireNonNull(hashTypes, "hashTypes is null");
+        requireNonNull(hashChannels, "hashChannels is null");
+        checkArgument(hashTypes.size() == hashChannels.length, "hashTypes and hashChannels have different sizes");
+        checkArgument(expectedSize > 0, "expectedSize must be greater than zero");
+
+        this.layout = KeyLayout.create(hashTypes)
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported hash types: " + hashTypes));
+        this.keyTypes = hashTypes.toArray(new Type[0]);
+        this.hashChannels = hashChannels.clone();
+        this.outputRawHash = outputRawHash;
+
+        ImmutableList.Builder<Type> types = ImmutableList.<Type>builder().addAll(hashTypes);
+        if (outputRawHash) {
+            types.add(BIGINT);
+        }
+        this.types = types.build();
+
+        hashCapacity = arraySize(expectedSize, FILL_RATIO);
+
+        maxFill = calculateMaxFill(hashCapacity);
+        mask = hashCapacity - 1;
+        keys0 = new LongBigArray();
+        keys0.ensureCapacity(hashCapacity);
+        keys1 = new LongBigArray();
+        if (layout.getWordCount() > 1) {
+            keys1.ensureCapacity(hashCapacity);
+        }
+        groupIds = new IntBigArray(-1);
+        groupIds.ensureCapacity(hashCapacity);
+
+        keys0ByGroupId = new LongBigArray();
+        keys0ByGroupId.ensureCapacity(hashCapacity);
+        keys1ByGroupId = new LongBigArray();
+        if (layout.getWordCount() > 1) {
+            keys1ByGroupId.ensureCapacity(hashCapacity);
+        }
+
+        // This interface is used for actively reserving memory (push model) for rehash.
+        // The caller can also query memory usage on this object (pull model)
+        this.updateMemory = requireNonNull(updateMemory, "updateMemory is null");
+    }
+
+    @Override
+    public long getEstimatedSize()
+    {
+        return INSTANCE_SIZE +
+                groupIds.sizeOf() +
+                keys0.sizeOf() +
+                keys1.sizeOf() +
+                keys0ByGroupId.sizeOf() +
+                keys1ByGroupId.sizeOf() +
+                preallocatedMemoryInBytes;
+    }
+
+    @Override
+    public long getHashCollisions()
+    {
+        return hashCollisions;
+    }
+
+    @Override
+    public double getExpectedHashCollisions()
+    {
+        return expectedHashCollisions + estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public int getGroupCount()
+    {
+        return nextGroupId;
+    }
+
+    @Override
+    public void appendValuesTo(int groupId, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        checkArgument(groupId >= 0, "groupId is negative");
+        long key0 = keys0ByGroupId.get(groupId);
+        long key1 = layout.getWordCount() > 1 ? keys1ByGroupId.get(groupId) : 0;
+        for (int i = 0; i < keyTypes.length; i++) {
+            BlockBuilder blockBuilder = pageBuilder.getBlockBuilder(outputChannelOffset + i);
+            if (layout.isNull(key0, key1, i)) {
+                blockBuilder.appendNull();
+            }
+            else {
+                keyTypes[i].writeLong(blockBuilder, layout.getValue(key0, key1, i));
+            }
+        }
+
+        if (outputRawHash) {
+            BIGINT.writeLong(pageBuilder.getBlockBuilder(outputChannelOffset + keyTypes.length), getRawHash(groupId));
+        }
+    }
+
+    @Override
+    public Work<?> addPage(Page page)
+    {
+        currentPageSizeInBytes = page.getRetainedSizeInBytes();
+        return new AddPageWork(pack(page, hashChannels));
+    }
+
+    @Override
+    public Work<GroupByIdBlock> getGroupIds(Page page)
+    {
+        currentPageSizeInBytes = page.getRetainedSizeInBytes();
+        return new GetGroupIdsWork(pack(page, hashChannels));
+    }
+
+    @Override
+    public boolean contains(int position, Page page, int[] hashChannels)
+    {
+        long key0 = 0;
+        long key1 = 0;
+        for (int i = 0; i < keyTypes.length; i++) {
+            Block block = page.getBlock(hashChannels[i]);
+            if (block.isNull(position)) {
+                if (layout.getNullWord() == 0) {
+                    key0 |= layout.getNullBit(i);
+                }
+                else {
+                    key1 |= layout.getNullBit(i);
+                }
+            }
+            else if (layout.getWord(i) == 0) {
+                key0 |= layout.encode(i, keyTypes[i].getLong(block, position));
+            }
+            else {
+                key1 |= layout.encode(i, keyTypes[i].getLong(block, position));
+            }
+        }
+
+        long hashPosition = getHashPosition(key0, key1, mask);
+
+        // look for an empty slot or a slot containing this key
+        while (true) {
+            int groupId = groupIds.get(hashPosition);
+            if (groupId == -1) {
+                return false;
+            }
+            else if (isSameKey(hashPosition, key0, key1)) {
+                return true;
+            }
+
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+        }
+    }
+
+    @Override
+    public long getRawHash(int groupId)
+    {
+        long key0 = keys0ByGroupId.get(groupId);
+        long key1 = layout.getWordCount() > 1 ? keys1ByGroupId.get(groupId) : 0;
+        long result = HashGenerationOptimizer.INITIAL_HASH_VALUE;
+        for (int i = 0; i < keyTypes.length; i++) {
+            long hash = layout.isNull(key0, key1, i) ? NULL_HASH_CODE : AbstractLongType.hash(layout.getValue(key0, key1, i));
+            result = CombineHashFunction.getHash(result, hash);
+        }
+        return result;
+    }
+
+    @VisibleForTesting
+    @Override
+    public int getCapacity()
+    {
+        return hashCapacity;
+    }
+
+    private PackedKeys pack(Page page, int[] channels)
+    {
+        int positionCount = page.getPositionCount();
+        long[] packed0 = new long[positionCount];
+        long[] packed1 = layout.getWordCount() > 1 ? new long[positionCount] : null;
+
+        // pack one key at a time, so that each loop only deals with a single type and block
+        for (int i = 0; i < keyTypes.length; i++) {
+            Type type = keyTypes[i];
+            Block block = page.getBlock(channels[i]);
+            long[] valueWord = layout.getWord(i) == 0 ? packed0 : packed1;
+            long[] nullWord = layout.getNullWord() == 0 ? packed0 : packed1;
+            long nullBit = layout.getNullBit(i);
+            boolean mayHaveNull = block.mayHaveNull();
+            for (int position = 0; position < positionCount; position++) {
+                if (mayHaveNull && block.isNull(position)) {
+                    nullWord[position] |= nullBit;
+                }
+                else {
+                    valueWord[position] |= layout.encode(i, type.getLong(block, position));
+                }
+            }
+        }
+        return new PackedKeys(packed0, packed1);
+    }
+
+    private int putIfAbsent(long key0, long key1)
+    {
+        long hashPosition = getHashPosition(key0, key1, mask);
+
+        // look for an empty slot or a slot containing this key
+        while (true) {
+            int groupId = groupIds.get(hashPosition);
+            if (groupId == -1) {
+                break;
+            }
+
+            if (isSameKey(hashPosition, key0, key1)) {
+                return groupId;
+            }
+
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+            hashCollisions++;
+        }
+
+        return addNewGroup(hashPosition, key0, key1);
+    }
+
+    private boolean isSameKey(long hashPosition, long key0, long key1)
+    {
+        return key0 == keys0.get(hashPosition) && (layout.getWordCount() == 1 || key1 == keys1.get(hashPosition));
+    }
+
+    private int addNewGroup(long hashPosition, long key0, long key1)
+    {
+        // record group id in hash
+        int groupId = nextGroupId++;
+
+        keys0.set(hashPosition, key0);
+        keys0ByGroupId.set(groupId, key0);
+        if (layout.getWordCount() > 1) {
+            keys1.set(hashPosition, key1);
+            keys1ByGroupId.set(groupId, key1);
+        }
+        groupIds.set(hashPosition, groupId);
+
+        // increase capacity, if necessary
+        if (needRehash()) {
+            tryRehash();
+        }
+        return groupId;
+    }
+
+    private boolean tryRehash()
+    {
+        long newCapacityLong = hashCapacity * 2L;
+        if (newCapacityLong > Integer.MAX_VALUE) {
+            throw new PrestoException(GENERIC_INSUFFICIENT_RESOURCES, "Size of hash table cannot exceed 1 billion entries");
+        }
+        int newCapacity = toIntExact(newCapacityLong);
+        int wordCount = layout.getWordCount();
+
+        // An estimate of how much extra memory is needed before we can go ahead and expand the hash table.
+        // This includes the new capacity for keys, groupIds, and keysByGroupId as well as the size of the current page
+        preallocatedMemoryInBytes = (newCapacity - hashCapacity) * (long) (wordCount * Long.BYTES + Integer.BYTES) +
+                (calculateMaxFill(newCapacity) - maxFill) * (long) (wordCount * Long.BYTES) +
+                currentPageSizeInBytes;
+        if (!updateMemory.update()) {
+            // reserved memory but has exceeded the limit
+            return false;
+        }
+        preallocatedMemoryInBytes = 0;
+
+        expectedHashCollisions += estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
+
+        int newMask = newCapacity - 1;
+        LongBigArray newKeys0 = new LongBigArray();
+        newKeys0.ensureCapacity(newCapacity);
+        LongBigArray newKeys1 = new LongBigArray();
+        if (wordCount > 1) {
+            newKeys1.ensureCapacity(newCapacity);
+        }
+        IntBigArray newGroupIds = new IntBigArray(-1);
+        newGroupIds.ensureCapacity(newCapacity);
+
+        for (int groupId = 0; groupId < nextGroupId; groupId++) {
+            long key0 = keys0ByGroupId.get(groupId);
+            long key1 = wordCount > 1 ? keys1ByGroupId.get(groupId) : 0;
+
+            // find an empty slot for the address
+            long hashPosition = getHashPosition(key0, key1, newMask);
+            while (newGroupIds.get(hashPosition) != -1) {
+                hashPosition = (hashPosition + 1) & newMask;
+                hashCollisions++;
+            }
+
+            // record the mapping
+            newKeys0.set(hashPosition, key0);
+            if (wordCount > 1) {
+                newKeys1.set(hashPosition, key1);
+            }
+            newGroupIds.set(hashPosition, groupId);
+        }
+
+        mask = newMask;
+        hashCapacity = newCapacity;
+        maxFill = calculateMaxFill(hashCapacity);
+        keys0 = newKeys0;
+        keys1 = newKeys1;
+        groupIds = newGroupIds;
+
+        keys0ByGroupId.ensureCapacity(maxFill);
+        if (wordCount > 1) {
+            keys1ByGroupId.ensureCapacity(maxFill);
+        }
+        return true;
+    }
+
+    private boolean needRehash()
+    {
+        return nextGroupId >= maxFill;
+    }
+
+    private static long getHashPosition(long key0, long key1, int mask)
+    {
+        return murmurHash3(murmurHash3(key0) ^ key1) & mask;
+    }
+
+    private static int calculateMaxFill(int hashSize)
+    {
+        checkArgument(hashSize > 0, "hashSize must be greater than 0");
+        int maxFill = (int) Math.ceil(hashSize * FILL_RATIO);
+        if (maxFill == hashSize) {
+            maxFill--;
+        }
+        checkArgument(hashSize > maxFill, "hashSize must be larger than maxFill");
+        return maxFill;
+    }
+
+    private static int getBitWidth(Type type)
+    {
+        if (type.equals(TINYINT)) {
+            return Byte.SIZE;
+        }
+        if (type.equals(SMALLINT)) {
+            return Short.SIZE;
+        }
+        if (type.equals(INTEGER) || type.equals(DATE)) {
+            return Integer.SIZE;
+        }
+        if (type.equals(BIGINT)) {
+            return Long.SIZE;
+        }
+        return -1;
+    }
+
+    /**
+     * Places each key, and then the null bits of all keys, in the first of the
+     * words with enough room left, starting with the widest keys.
+     */
+    private static class KeyLayout
+    {
+        private final int wordCount;
+        private final int[] words;
+        private final int[] offsets;
+        private final int[] widths;
+        private final int nullWord;
+        private final int nullOffset;
+
+        private KeyLayout(int wordCount, int[] words, int[] offsets, int[] widths, int nullWord, int nullOffset)
+        {
+            this.wordCount = wordCount;
+            this.words = words;
+            this.offsets = offsets;
+            this.widths = widths;
+            this.nullWord = nullWord;
+            this.nullOffset = nullOffset;
+        }
+
+        public static Optional<KeyLayout> create(List<? extends Type> types)
+        {
+            if (types.isEmpty()) {
+                return Optional.empty();
+            }
+            int[] widths = new int[types.size()];
+            for (int i = 0; i < types.size(); i++) {
+                widths[i] = getBitWidth(types.get(i));
+                if (widths[i] < 0) {
+                    return Optional.empty();
+                }
+            }
+
+            int[] usedBits = new int[MAX_WORDS];
+            int[] words = new int[types.size()];
+            int[] offsets = new int[types.size()];
+            for (int width = Long.SIZE; width >= Byte.SIZE; width /= 2) {
+                for (int i = 0; i < widths.length; i++) {
+                    if (widths[i] != width) {
+                        continue;
+                    }
+                    int word = findWord(usedBits, width);
+                    if (word < 0) {
+                        return Optional.empty();
+                    }
+                    words[i] = word;
+                    offsets[i] = usedBits[word];
+                    usedBits[word] += width;
+                }
+            }
+            int nullWord = findWord(usedBits, types.size());
+            if (nullWord < 0) {
+                return Optional.empty();
+            }
+            int nullOffset = usedBits[nullWord];
+            usedBits[nullWord] += types.size();
+
+            int wordCount = usedBits[1] > 0 ? 2 : 1;
+            return Optional.of(new KeyLayout(wordCount, words, offsets, widths, nullWord, nullOffset));
+        }
+
+        private static int findWord(int[] usedBits, int width)
+        {
+            for (int word = 0; word < usedBits.length; word++) {
+                if (usedBits[word] + width <= Long.SIZE) {
+                    return word;
+                }
+            }
+            return -1;
+        }
+
+        public int getWordCount()
+        {
+            return wordCount;
+        }
+
+        public int getWord(int key)
+        {
+            return words[key];
+        }
+
+        public int getNullWord()
+        {
+            return nullWord;
+        }
+
+        public long getNullBit(int key)
+        {
+            return 1L << (nullOffset + key);
+        }
+
+        public long encode(int key, long value)
+        {
+            int width = widths[key];
+            if (width == Long.SIZE) {
+                return value;
+            }
+            return (value & ((1L << width) - 1)) << offsets[key];
+        }
+
+        public boolean isNull(long word0, long word1, int key)
+        {
+            return ((nullWord == 0 ? word0 : word1) & getNullBit(key)) != 0;
+        }
+
+        public long getValue(long word0, long word1, int key)
+        {
+            long word = words[key] == 0 ? word0 : word1;
+            int width = widths[key];
+            if (width == Long.SIZE) {
+                return word;
+            }
+            // restore the sign of the value
+            return (word << (Long.SIZE - width - offsets[key])) >> (Long.SIZE - width);
+        }
+    }
+
+    private static class PackedKeys
+    {
+        private final long[] keys0;
+        private final long[] keys1;
+
+        private PackedKeys(long[] keys0, long[] keys1)
+        {
+            this.keys0 = keys0;
+            this.keys1 = keys1;
+        }
+
+        public int getPositionCount()
+        {
+            return keys0.length;
+        }
+
+        public long getKey0(int position)
+        {
+            return keys0[position];
+        }
+
+        public long getKey1(int position)
+        {
+            return keys1 == null ? 0 : keys1[position];
+        }
+    }
+
+    private class AddPageWork
+            implements Work<Void>
+    {
+        private final PackedKeys keys;
+
+        private int lastPosition;
+
+        public AddPageWork(PackedKeys keys)
+        {
+            this.keys = requireNonNull(keys, "keys is null");
+        }
+
+        @Override
+        public boolean process()
+        {
+            int positionCount = keys.getPositionCount();
+            checkState(lastPosition < positionCount, "position count out of bound");
+
+            // needRehash() == false indicates we have reached capacity boundary and a rehash is needed.
+            // We can only proceed if tryRehash() successfully did a rehash.
+            if (needRehash() && !tryRehash()) {
+                return false;
+            }
+
+            // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
+            // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
+            while (lastPosition < positionCount && !needRehash()) {
+                // get the group for the current row
+                putIfAbsent(keys.getKey0(lastPosition), keys.getKey1(lastPosition));
+                lastPosition++;
+            }
+            return lastPosition == positionCount;
+        }
+
+        @Override
+        public Void getResult()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class GetGroupIdsWork
+            implements Work<GroupByIdBlock>
+    {
+        private final BlockBuilder blockBuilder;
+        private final PackedKeys keys;
+
+        private boolean finished;
+        private int lastPosition;
+
+        public GetGroupIdsWork(PackedKeys keys)
+        {
+            this.keys = requireNonNull(keys, "keys is null");
+            // we know the exact size required for the block
+            this.blockBuilder = BIGINT.createFixedSizeBlockBuilder(keys.getPositionCount());
+        }
+
+        @Override
+        public boolean process()
+        {
+            int positionCount = keys.getPositionCount();
+            checkState(lastPosition < positionCount, "position count out of bound");
+            checkState(!finished);
+
+            // needRehash() == false indicates we have reached capacity boundary and a rehash is needed.
+            // We can only proceed if tryRehash() successfully did a rehash.
+            if (needRehash() && !tryRehash()) {
+                return false;
+            }
+
+            // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
+            // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
+            while (lastPosition < positionCount && !needRehash()) {
+                // output the group id for this row
+                BIGINT.writeLong(blockBuilder, putIfAbsent(keys.getKey0(lastPosition), keys.getKey1(lastPosition)));
+                lastPosition++;
+            }
+            return lastPosition == positionCount;
+        }
+
+        @Override
+        public GroupByIdBlock getResult()
+        {
+            checkState(lastPosition == keys.getPositionCount(), "process has not yet finished");
+            checkState(!finished, "result has produced");
+            finished = true;
+            return new GroupByIdBlock(nextGroupId, blockBuilder.build());
+        }
+    }
+}
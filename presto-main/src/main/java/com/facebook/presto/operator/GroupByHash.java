@@ -19,7 +19,9 @@ import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -52,6 +54,9 @@ public interface GroupByHash
         if (hashTypes.size() == 1 && hashTypes.get(0).equals(BIGINT) && hashChannels.length == 1) {
             return new BigintGroupByHash(hashChannels[0], inputHashChannel.isPresent(), expectedSize, updateMemory);
         }
+        if (hashTypes.size() > 1 && FixedWidthGroupByHash.isSupported(hashTypes)) {
+            return new FixedWidthGroupByHash(hashTypes, hashChannels, inputHashChannel.isPresent(), expectedSize, updateMemory);
+        }
         return new MultiChannelGroupByHash(hashTypes, hashChannels, inputHashChannel, expectedSize, processDictionary, joinCompiler, updateMemory);
     }
 
@@ -67,6 +72,33 @@ public interface GroupByHash
 
     void appendValuesTo(int groupId, PageBuilder pageBuilder, int outputChannelOffset);
 
+    /**
+     * Returns the values of the groups added so far, laid out as {@link #getTypes()}, in group id order.
+     */
+    default Iterator<Page> getGroups()
+    {
+        return new AbstractIterator<Page>()
+        {
+            private final PageBuilder pageBuilder = new PageBuilder(getTypes());
+            private int groupId;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (groupId == getGroupCount()) {
+                    return endOfData();
+                }
+                pageBuilder.reset();
+                while (!pageBuilder.isFull() && groupId < getGroupCount()) {
+                    pageBuilder.declarePosition();
+                    appendValuesTo(groupId, pageBuilder, 0);
+                    groupId++;
+                }
+                return pageBuilder.build();
+            }
+        };
+    }
+
     Work<?> addPage(Page page);
 
     Work<GroupByIdBlock> getGroupIds(Page page);
@@ -17,6 +17,7 @@ import com.facebook.presto.operator.aggregation.Accumulator;
 import com.facebook.presto.operator.aggregation.AccumulatorFactory;
 import com.facebook.presto.operator.aggregation.builder.HashAggregationBuilder;
 import com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder;
+import com.facebook.presto.operator.aggregation.builder.SkipAggregationBuilder;
 import com.facebook.presto.operator.aggregation.builder.SpillableHashAggregationBuilder;
 import com.facebook.presto.operator.scalar.CombineHashFunction;
 import com.facebook.presto.spi.Page;
@@ -39,6 +40,7 @@ import java.util.stream.Collectors;
 import static com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder.toTypes;
 import static com.facebook.presto.sql.planner.optimizations.HashGenerationOptimizer.INITIAL_HASH_VALUE;
 import static com.facebook.presto.type.TypeUtils.NULL_HASH_CODE;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
@@ -71,6 +73,8 @@ public class HashAggregationOperator
         private final SpillerFactory spillerFactory;
         private final JoinCompiler joinCompiler;
         private final boolean useSystemMemory;
+        private final Optional<PartialAggregationController> partialAggregationController;
+        private final Optional<AggregationTopN> topN;
 
         private boolean closed;
 
@@ -130,6 +134,48 @@ public class HashAggregationOperator
                 SpillerFactory spillerFactory,
                 JoinCompiler joinCompiler,
                 boolean useSystemMemory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    globalAggregationGroupIds,
+                    step,
+                    produceDefaultOutput,
+                    accumulatorFactories,
+                    hashChannel,
+                    groupIdChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    spillEnabled,
+                    unspillMemoryLimit,
+                    spillerFactory,
+                    joinCompiler,
+                    useSystemMemory,
+                    Optional.empty(),
+                    Optional.empty());
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                List<Integer> globalAggregationGroupIds,
+                Step step,
+                boolean produceDefaultOutput,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                Optional<Integer> groupIdChannel,
+                int expectedGroups,
+                Optional<DataSize> maxPartialMemory,
+                boolean spillEnabled,
+                DataSize unspillMemoryLimit,
+                SpillerFactory spillerFactory,
+                JoinCompiler joinCompiler,
+                boolean useSystemMemory,
+                Optional<PartialAggregationController> partialAggregationController,
+                Optional<AggregationTopN> topN)
         {
             this(operatorId,
                     planNodeId,
@@ -148,7 +194,9 @@ public class HashAggregationOperator
                     DataSize.succinctBytes((long) (unspillMemoryLimit.toBytes() * MERGE_WITH_MEMORY_RATIO)),
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController,
+                    topN);
         }
 
         @VisibleForTesting
@@ -171,6 +219,50 @@ public class HashAggregationOperator
                 SpillerFactory spillerFactory,
                 JoinCompiler joinCompiler,
                 boolean useSystemMemory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    globalAggregationGroupIds,
+                    step,
+                    produceDefaultOutput,
+                    accumulatorFactories,
+                    hashChannel,
+                    groupIdChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    spillEnabled,
+                    memoryLimitForMerge,
+                    memoryLimitForMergeWithMemory,
+                    spillerFactory,
+                    joinCompiler,
+                    useSystemMemory,
+                    Optional.empty(),
+                    Optional.empty());
+        }
+
+        private HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                List<Integer> globalAggregationGroupIds,
+                Step step,
+                boolean produceDefaultOutput,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                Optional<Integer> groupIdChannel,
+                int expectedGroups,
+                Optional<DataSize> maxPartialMemory,
+                boolean spillEnabled,
+                DataSize memoryLimitForMerge,
+                DataSize memoryLimitForMergeWithMemory,
+                SpillerFactory spillerFactory,
+                JoinCompiler joinCompiler,
+                boolean useSystemMemory,
+                Optional<PartialAggregationController> partialAggregationController,
+                Optional<AggregationTopN> topN)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -190,6 +282,10 @@ public class HashAggregationOperator
             this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
             this.useSystemMemory = useSystemMemory;
+            this.partialAggregationController = requireNonNull(partialAggregationController, "partialAggregationController is null");
+            checkArgument(!partialAggregationController.isPresent() || step == Step.PARTIAL, "partialAggregationController is only supported for partial aggregations");
+            this.topN = requireNonNull(topN, "topN is null");
+            checkArgument(!topN.isPresent() || (!step.isOutputPartial() && !spillEnabled && !produceDefaultOutput), "topN is only supported for final aggregations without spill or default output");
         }
 
         @Override
@@ -215,7 +311,9 @@ public class HashAggregationOperator
                     memoryLimitForMergeWithMemory,
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController,
+                    topN);
             return hashAggregationOperator;
         }
 
@@ -246,7 +344,9 @@ public class HashAggregationOperator
                     memoryLimitForMergeWithMemory,
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController,
+                    topN);
         }
     }
 
@@ -267,6 +367,8 @@ public class HashAggregationOperator
     private final SpillerFactory spillerFactory;
     private final JoinCompiler joinCompiler;
     private final boolean useSystemMemory;
+    private final Optional<PartialAggregationController> partialAggregationController;
+    private final Optional<AggregationTopN> topN;
 
     private final List<Type> types;
     private final HashCollisionsCounter hashCollisionsCounter;
@@ -277,6 +379,10 @@ public class HashAggregationOperator
     private boolean finishing;
     private boolean finished;
 
+    // number of input rows added to the current partial aggregation, reported to partialAggregationController when it is flushed
+    private long aggregationInputRows;
+    private volatile long skippedInputPositions;
+
     // for yield when memory is not available
     private Work<?> unfinishedWork;
 
@@ -297,7 +403,9 @@ public class HashAggregationOperator
             DataSize memoryLimitForMergeWithMemory,
             SpillerFactory spillerFactory,
             JoinCompiler joinCompiler,
-            boolean useSystemMemory)
+            boolean useSystemMemory,
+            Optional<PartialAggregationController> partialAggregationController,
+            Optional<AggregationTopN> topN)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(step, "step is null");
@@ -321,8 +429,15 @@ public class HashAggregationOperator
         this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
         this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
         this.hashCollisionsCounter = new HashCollisionsCounter(operatorContext);
-        operatorContext.setInfoSupplier(hashCollisionsCounter);
         this.useSystemMemory = useSystemMemory;
+        this.partialAggregationController = requireNonNull(partialAggregationController, "partialAggregationController is null");
+        this.topN = requireNonNull(topN, "topN is null");
+        if (partialAggregationController.isPresent()) {
+            operatorContext.setInfoSupplier(() -> new PartialAggregationInfo(hashCollisionsCounter.get(), skippedInputPositions));
+        }
+        else {
+            operatorContext.setInfoSupplier(hashCollisionsCounter);
+        }
     }
 
     @Override
@@ -367,7 +482,10 @@ public class HashAggregationOperator
 
         if (aggregationBuilder == null) {
             // TODO: We ignore spillEnabled here if any aggregate has ORDER BY clause or DISTINCT because they are not yet implemented for spilling.
-            if (step.isOutputPartial() || !spillEnabled || hasOrderBy() || hasDistinct()) {
+            if (isPartialAggregationDisabled()) {
+                aggregationBuilder = new SkipAggregationBuilder(groupByChannels, hashChannel, accumulatorFactories);
+            }
+            else if (step.isOutputPartial() || !spillEnabled || hasOrderBy() || hasDistinct()) {
                 aggregationBuilder = new InMemoryHashAggregationBuilder(
                         accumulatorFactories,
                         step,
@@ -403,6 +521,13 @@ public class HashAggregationOperator
             checkState(!aggregationBuilder.isFull(), "Aggregation buffer is full");
         }
 
+        if (aggregationBuilder instanceof SkipAggregationBuilder) {
+            skippedInputPositions += page.getPositionCount();
+        }
+        else {
+            aggregationInputRows += page.getPositionCount();
+        }
+
         // process the current page; save the unfinished work if we are waiting for memory
         unfinishedWork = aggregationBuilder.processPage(page);
         if (unfinishedWork.process()) {
@@ -411,6 +536,18 @@ public class HashAggregationOperator
         aggregationBuilder.updateMemory();
     }
 
+    private boolean isPartialAggregationDisabled()
+    {
+        return partialAggregationController.isPresent() && partialAggregationController.get().isPartialAggregationDisabled();
+    }
+
+    private boolean shouldFlushPartialAggregation()
+    {
+        return partialAggregationController.isPresent() &&
+                aggregationBuilder instanceof InMemoryHashAggregationBuilder &&
+                partialAggregationController.get().shouldFlush(aggregationInputRows, ((InMemoryHashAggregationBuilder) aggregationBuilder).getGroupCount());
+    }
+
     private boolean hasOrderBy()
     {
         return accumulatorFactories.stream().anyMatch(AccumulatorFactory::hasOrderBy);
@@ -469,12 +606,23 @@ public class HashAggregationOperator
                 }
             }
 
-            // only flush if we are finishing or the aggregation builder is full
-            if (!finishing && (aggregationBuilder == null || !aggregationBuilder.isFull())) {
+            // only flush if we are finishing or the aggregation builder is full,
+            // or if partial aggregation does not reduce the number of rows enough
+            if (!finishing && (aggregationBuilder == null || !(aggregationBuilder.isFull() || shouldFlushPartialAggregation()))) {
                 return null;
             }
 
-            outputPages = aggregationBuilder.buildResult();
+            if (partialAggregationController.isPresent() && aggregationBuilder instanceof InMemoryHashAggregationBuilder) {
+                partialAggregationController.get().onFlush(aggregationInputRows, ((InMemoryHashAggregationBuilder) aggregationBuilder).getGroupCount());
+            }
+            if (topN.isPresent()) {
+                // only the top groups are output, so they are all known only once all input has been added
+                verify(finishing, "aggregation with top N flushed before finishing");
+                outputPages = ((InMemoryHashAggregationBuilder) aggregationBuilder).buildTopNResult(topN.get());
+            }
+            else {
+                outputPages = aggregationBuilder.buildResult();
+            }
         }
 
         if (!outputPages.process()) {
@@ -511,6 +659,7 @@ public class HashAggregationOperator
             // The reference must be set to null afterwards to avoid unaccounted memory.
             aggregationBuilder = null;
         }
+        aggregationInputRows = 0;
         operatorContext.localUserMemoryContext().setBytes(0);
         operatorContext.localRevocableMemoryContext().setBytes(0);
     }
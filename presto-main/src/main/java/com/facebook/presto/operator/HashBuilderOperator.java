@@ -68,6 +68,7 @@ public class HashBuilderOperator
         private final int expectedPositions;
         private final boolean spillEnabled;
         private final SingleStreamSpillerFactory singleStreamSpillerFactory;
+        private final Optional<LocalDynamicFilter> dynamicFilter;
 
         private final Map<Lifespan, Integer> partitionIndexManager = new HashMap<>();
 
@@ -86,7 +87,8 @@ public class HashBuilderOperator
                 int expectedPositions,
                 PagesIndex.Factory pagesIndexFactory,
                 boolean spillEnabled,
-                SingleStreamSpillerFactory singleStreamSpillerFactory)
+                SingleStreamSpillerFactory singleStreamSpillerFactory,
+                Optional<LocalDynamicFilter> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -104,6 +106,7 @@ public class HashBuilderOperator
             this.pagesIndexFactory = requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
             this.spillEnabled = spillEnabled;
             this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
 
             this.expectedPositions = expectedPositions;
         }
@@ -130,7 +133,8 @@ public class HashBuilderOperator
                     expectedPositions,
                     pagesIndexFactory,
                     spillEnabled,
-                    singleStreamSpillerFactory);
+                    singleStreamSpillerFactory,
+                    dynamicFilter.map(filter -> filter.createPartitionCollector(operatorContext.localSystemMemoryContext())));
         }
 
         @Override
@@ -213,6 +217,8 @@ public class HashBuilderOperator
 
     private final HashCollisionsCounter hashCollisionsCounter;
 
+    private final Optional<LocalDynamicFilter.PartitionCollector> dynamicFilterCollector;
+
     private State state = State.CONSUMING_INPUT;
     private Optional<ListenableFuture<?>> lookupSourceNotNeeded = Optional.empty();
     private final SpilledLookupSourceHandle spilledLookupSourceHandle = new SpilledLookupSourceHandle();
@@ -238,7 +244,8 @@ public class HashBuilderOperator
             int expectedPositions,
             PagesIndex.Factory pagesIndexFactory,
             boolean spillEnabled,
-            SingleStreamSpillerFactory singleStreamSpillerFactory)
+            SingleStreamSpillerFactory singleStreamSpillerFactory,
+            Optional<LocalDynamicFilter.PartitionCollector> dynamicFilterCollector)
     {
         requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
 
@@ -263,6 +270,7 @@ public class HashBuilderOperator
 
         this.spillEnabled = spillEnabled;
         this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
+        this.dynamicFilterCollector = requireNonNull(dynamicFilterCollector, "dynamicFilterCollector is null");
     }
 
     @Override
@@ -324,6 +332,8 @@ public class HashBuilderOperator
             return;
         }
 
+        dynamicFilterCollector.ifPresent(collector -> collector.add(page));
+
         if (state == State.SPILLING_INPUT) {
             spillInput(page);
             return;
@@ -483,6 +493,8 @@ public class HashBuilderOperator
             return;
         }
 
+        dynamicFilterCollector.ifPresent(LocalDynamicFilter.PartitionCollector::finish);
+
         LookupSourceSupplier partition = buildLookupSource();
         if (spillEnabled) {
             localRevocableMemoryContext.setBytes(partition.get().getInMemorySizeInBytes());
@@ -518,6 +530,7 @@ public class HashBuilderOperator
             return;
         }
         checkSuccess(spillInProgress, "spilling failed");
+        dynamicFilterCollector.ifPresent(LocalDynamicFilter.PartitionCollector::finish);
         state = State.INPUT_SPILLED;
     }
 
@@ -627,6 +640,7 @@ public class HashBuilderOperator
             spiller.ifPresent(closer::register);
             closer.register(() -> localUserMemoryContext.setBytes(0));
             closer.register(() -> localRevocableMemoryContext.setBytes(0));
+            dynamicFilterCollector.ifPresent(collector -> closer.register(collector::close));
         }
         catch (IOException e) {
             throw new RuntimeException(e);
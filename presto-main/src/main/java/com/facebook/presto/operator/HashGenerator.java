@@ -21,6 +21,16 @@ public interface HashGenerator
 {
     long hashPosition(int position, Page page);
 
+    /**
+     * Calculates the hashes of {@code length} positions of {@code page} starting at {@code positionOffset} into {@code hashes}.
+     */
+    default void hashPositions(Page page, int positionOffset, int length, long[] hashes)
+    {
+        for (int i = 0; i < length; i++) {
+            hashes[i] = hashPosition(positionOffset + i, page);
+        }
+    }
+
     default int getPartition(int partitionCount, int position, Page page)
     {
         long rawHash = hashPosition(position, page);
@@ -13,20 +13,33 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.operator.PartitionedConsumption.Partition;
 import com.facebook.presto.operator.SetBuilderOperator.SetSupplier;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
+import static io.airlift.concurrent.MoreFutures.getDone;
 import static io.airlift.concurrent.MoreFutures.tryGetFutureValue;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
 public class HashSemiJoinOperator
@@ -42,9 +55,21 @@ public class HashSemiJoinOperator
         private final SetSupplier setSupplier;
         private final List<Type> probeTypes;
         private final int probeJoinChannel;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
         private boolean closed;
 
         public HashSemiJoinOperatorFactory(int operatorId, PlanNodeId planNodeId, SetSupplier setSupplier, List<? extends Type> probeTypes, int probeJoinChannel)
+        {
+            this(operatorId, planNodeId, setSupplier, probeTypes, probeJoinChannel, unsupportedPartitioningSpillerFactory());
+        }
+
+        public HashSemiJoinOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                SetSupplier setSupplier,
+                List<? extends Type> probeTypes,
+                int probeJoinChannel,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -52,6 +77,7 @@ public class HashSemiJoinOperator
             this.probeTypes = ImmutableList.copyOf(probeTypes);
             checkArgument(probeJoinChannel >= 0, "probeJoinChannel is negative");
             this.probeJoinChannel = probeJoinChannel;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -59,7 +85,7 @@ public class HashSemiJoinOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, HashSemiJoinOperator.class.getSimpleName());
-            return new HashSemiJoinOperator(operatorContext, setSupplier, probeJoinChannel);
+            return new HashSemiJoinOperator(operatorContext, setSupplier, probeTypes, probeJoinChannel, partitioningSpillerFactory);
         }
 
         @Override
@@ -71,18 +97,42 @@ public class HashSemiJoinOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new HashSemiJoinOperatorFactory(operatorId, planNodeId, setSupplier, probeTypes, probeJoinChannel);
+            return new HashSemiJoinOperatorFactory(operatorId, planNodeId, setSupplier, probeTypes, probeJoinChannel, partitioningSpillerFactory);
         }
     }
 
     private final int probeJoinChannel;
-    private final ListenableFuture<ChannelSet> channelSetFuture;
+    private final SetSupplier setSupplier;
+    private final List<Type> probeTypes;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
 
     private ChannelSet channelSet;
     private Page outputPage;
     private boolean finishing;
+    private boolean closed;
+
+    // if the set has been spilled, all input is partitioned to disk the same way, and joined partition by partition
+    private SpilledChannelSet spilledChannelSet;
+    private Optional<PartitioningSpiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = NOT_BLOCKED;
+    private ListenableFuture<PartitionedConsumption<ChannelSet>> partitionedConsumption;
+    private Iterator<Partition<ChannelSet>> spilledPartitions;
+    private Optional<Partition<ChannelSet>> currentPartition = Optional.empty();
+    private ListenableFuture<ChannelSet> unspilledChannelSet;
+    private Iterator<Page> unspilledInput;
+    private boolean unspillingFinished;
 
     public HashSemiJoinOperator(OperatorContext operatorContext, SetSupplier channelSetFuture, int probeJoinChannel)
+    {
+        this(operatorContext, channelSetFuture, ImmutableList.of(), probeJoinChannel, unsupportedPartitioningSpillerFactory());
+    }
+
+    public HashSemiJoinOperator(
+            OperatorContext operatorContext,
+            SetSupplier channelSetFuture,
+            List<Type> probeTypes,
+            int probeJoinChannel,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
 
@@ -90,8 +140,10 @@ public class HashSemiJoinOperator
         requireNonNull(channelSetFuture, "hashProvider is null");
         checkArgument(probeJoinChannel >= 0, "probeJoinChannel is negative");
 
-        this.channelSetFuture = channelSetFuture.getChannelSet();
+        this.setSupplier = channelSetFuture;
+        this.probeTypes = ImmutableList.copyOf(requireNonNull(probeTypes, "probeTypes is null"));
         this.probeJoinChannel = probeJoinChannel;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
     }
 
     @Override
@@ -109,26 +161,51 @@ public class HashSemiJoinOperator
     @Override
     public boolean isFinished()
     {
-        return finishing && outputPage == null;
+        if (!finishing || outputPage != null) {
+            return false;
+        }
+        if (!setSupplier.getProbeOperatorsCount().isPresent()) {
+            // the set can not be spilled, so the probe can finish before the set is built
+            return true;
+        }
+        // all probe operators must take part in the consumption of a spilled set
+        return tryFetchSet() && (spilledChannelSet == null || unspillingFinished);
     }
 
     @Override
     public ListenableFuture<?> isBlocked()
     {
-        return channelSetFuture;
+        if (!setSupplier.getSetAvailable().isDone()) {
+            return setSupplier.getSetAvailable();
+        }
+        if (!spillInProgress.isDone()) {
+            return spillInProgress;
+        }
+        if (partitionedConsumption != null && !partitionedConsumption.isDone()) {
+            return partitionedConsumption;
+        }
+        if (unspilledChannelSet != null && !unspilledChannelSet.isDone()) {
+            return unspilledChannelSet;
+        }
+        return NOT_BLOCKED;
     }
 
     @Override
     public boolean needsInput()
     {
-        if (finishing || outputPage != null) {
+        if (finishing || outputPage != null || !spillInProgress.isDone()) {
             return false;
         }
+        return tryFetchSet();
+    }
 
-        if (channelSet == null) {
-            channelSet = tryGetFutureValue(channelSetFuture).orElse(null);
+    private boolean tryFetchSet()
+    {
+        if (channelSet == null && spilledChannelSet == null) {
+            channelSet = tryGetFutureValue(setSupplier.getChannelSet()).orElse(null);
+            spilledChannelSet = tryGetFutureValue(setSupplier.getSpilledChannelSet()).orElse(null);
         }
-        return channelSet != null;
+        return channelSet != null || spilledChannelSet != null;
     }
 
     @Override
@@ -136,9 +213,20 @@ public class HashSemiJoinOperator
     {
         requireNonNull(page, "page is null");
         checkState(!finishing, "Operator is finishing");
-        checkState(channelSet != null, "Set has not been built yet");
+        checkState(channelSet != null || spilledChannelSet != null, "Set has not been built yet");
         checkState(outputPage == null, "Operator still has pending output");
 
+        if (spilledChannelSet != null) {
+            checkSuccess(spillInProgress, "spilling failed");
+            spillInProgress = getSpiller().partitionAndSpill(page, partition -> true).getSpillingFuture();
+            return;
+        }
+
+        outputPage = semiJoin(page, channelSet, channelSet.isEmpty(), channelSet.containsNull());
+    }
+
+    private Page semiJoin(Page page, ChannelSet channelSet, boolean setEmpty, boolean setContainsNull)
+    {
         // create the block builder for the new boolean column
         // we know the exact size required for the block
         BlockBuilder blockBuilder = BOOLEAN.createFixedSizeBlockBuilder(page.getPositionCount());
@@ -148,7 +236,7 @@ public class HashSemiJoinOperator
         // update hashing strategy to use probe cursor
         for (int position = 0; position < page.getPositionCount(); position++) {
             if (probeJoinPage.getBlock(0).isNull(position)) {
-                if (channelSet.isEmpty()) {
+                if (setEmpty) {
                     BOOLEAN.writeBoolean(blockBuilder, false);
                 }
                 else {
@@ -157,7 +245,7 @@ public class HashSemiJoinOperator
             }
             else {
                 boolean contains = channelSet.contains(position, probeJoinPage);
-                if (!contains && channelSet.containsNull()) {
+                if (!contains && setContainsNull) {
                     blockBuilder.appendNull();
                 }
                 else {
@@ -167,14 +255,130 @@ public class HashSemiJoinOperator
         }
 
         // add the new boolean column to the page
-        outputPage = page.appendColumn(blockBuilder.build());
+        return page.appendColumn(blockBuilder.build());
     }
 
     @Override
     public Page getOutput()
     {
+        if (outputPage == null && finishing && tryFetchSet() && spilledChannelSet != null && !unspillingFinished) {
+            outputPage = unspillNextPage();
+        }
         Page result = outputPage;
         outputPage = null;
         return result;
     }
+
+    private Page unspillNextPage()
+    {
+        if (!spillInProgress.isDone()) {
+            return null;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
+        if (partitionedConsumption == null) {
+            partitionedConsumption = spilledChannelSet.finishProbeOperator();
+        }
+        if (!partitionedConsumption.isDone()) {
+            return null;
+        }
+        if (spilledPartitions == null) {
+            spilledPartitions = getDone(partitionedConsumption).beginConsumption();
+        }
+
+        while (true) {
+            if (currentPartition.isPresent()) {
+                if (!unspilledChannelSet.isDone()) {
+                    return null;
+                }
+                if (unspilledInput.hasNext()) {
+                    // the result for null probe values and values not in the partition depends on the whole set
+                    return semiJoin(unspilledInput.next(), getDone(unspilledChannelSet), spilledChannelSet.isEmpty(), spilledChannelSet.containsNull());
+                }
+                currentPartition.get().release();
+                currentPartition = Optional.empty();
+                unspilledChannelSet = null;
+                unspilledInput = null;
+            }
+
+            if (!spilledPartitions.hasNext()) {
+                spiller.ifPresent(PartitioningSpiller::verifyAllPartitionsRead);
+                unspillingFinished = true;
+                return null;
+            }
+            Partition<ChannelSet> partition = spilledPartitions.next();
+            currentPartition = Optional.of(partition);
+            unspilledChannelSet = partition.load();
+            unspilledInput = spiller
+                    .map(partitioningSpiller -> partitioningSpiller.getSpilledPages(partition.number()))
+                    .orElse(emptyIterator());
+        }
+    }
+
+    private PartitioningSpiller getSpiller()
+    {
+        if (!spiller.isPresent()) {
+            Type probeJoinType = probeTypes.get(probeJoinChannel);
+            // the precomputed hash channel is not used, as the values must be partitioned the same way as the spilled set
+            spiller = Optional.of(partitioningSpillerFactory.create(
+                    probeTypes,
+                    new LocalPartitionGenerator(new InterpretedHashGenerator(ImmutableList.of(probeJoinType), new int[] {probeJoinChannel}), spilledChannelSet.getPartitionsCount()),
+                    operatorContext.getSpillContext().newLocalSpillContext(),
+                    operatorContext.newAggregateSystemMemoryContext()));
+        }
+        return spiller.get();
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        outputPage = null;
+        try (Closer closer = Closer.create()) {
+            if (setSupplier.getProbeOperatorsCount().isPresent() && !unspillingFinished) {
+                closer.register(this::leaveSpilledSetConsumption);
+            }
+            spiller.ifPresent(closer::register);
+            closer.register(setSupplier::probeOperatorClosed);
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        currentPartition = Optional.empty();
+        spilledPartitions = null;
+        spiller = Optional.empty();
+    }
+
+    /**
+     * A probe operator closed before it consumed all partitions of a spilled set must still count itself out of
+     * the consumption, otherwise the other probe operators and the set builder wait for it forever.
+     */
+    private void leaveSpilledSetConsumption()
+    {
+        if (partitionedConsumption == null) {
+            // the set may also be spilled after this operator is closed
+            ListenableFuture<SpilledChannelSet> spilledChannelSetFuture = setSupplier.getSpilledChannelSet();
+            spilledChannelSetFuture.addListener(() -> getDone(spilledChannelSetFuture).closeProbeOperator(), directExecutor());
+            return;
+        }
+
+        currentPartition.ifPresent(HashSemiJoinOperator::releaseWhenLoaded);
+        if (spilledPartitions != null) {
+            spilledPartitions.forEachRemaining(HashSemiJoinOperator::releaseWhenLoaded);
+        }
+        else {
+            // this operator is a participant of the consumption, so it must release every partition
+            ListenableFuture<PartitionedConsumption<ChannelSet>> consumption = partitionedConsumption;
+            consumption.addListener(() -> getDone(consumption).beginConsumption().forEachRemaining(HashSemiJoinOperator::releaseWhenLoaded), directExecutor());
+        }
+    }
+
+    private static void releaseWhenLoaded(Partition<ChannelSet> partition)
+    {
+        // a partition can only be released once loaded, and is only loaded once the previous one has been released by all participants
+        partition.load().addListener(partition::release, directExecutor());
+    }
 }
@@ -18,6 +18,7 @@ import com.facebook.presto.server.remotetask.Backoff;
 import com.facebook.presto.spi.PrestoException;
 import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
 import com.google.common.net.MediaType;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
@@ -30,8 +31,7 @@ import io.airlift.http.client.Response;
 import io.airlift.http.client.ResponseHandler;
 import io.airlift.http.client.ResponseTooLargeException;
 import io.airlift.log.Logger;
-import io.airlift.slice.InputStreamSliceInput;
-import io.airlift.slice.SliceInput;
+import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import org.joda.time.DateTime;
@@ -42,17 +42,22 @@ import javax.annotation.concurrent.ThreadSafe;
 
 import java.io.BufferedReader;
 import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES_TYPE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
@@ -78,9 +83,15 @@ import static io.airlift.http.client.Request.Builder.prepareGet;
 import static io.airlift.http.client.ResponseHandlerUtils.propagate;
 import static io.airlift.http.client.StatusResponseHandler.StatusResponse;
 import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.lang.String.format;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
+import static java.util.UUID.randomUUID;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -132,6 +143,15 @@ public final class HttpPageBufferClient
     @GuardedBy("this")
     private String taskInstanceId;
 
+    // the stream of pages pushed by the remote buffer, which is set from when the stream is scheduled until it ends
+    @GuardedBy("this")
+    private String streamId;
+    @GuardedBy("this")
+    private Future<?> streamFuture;
+    // credit granted to the stream before it is opened, which is sent with the request opening it
+    @GuardedBy("this")
+    private long pendingStreamCredit;
+
     private final AtomicLong rowsReceived = new AtomicLong();
     private final AtomicInteger pagesReceived = new AtomicInteger();
 
@@ -143,6 +163,7 @@ public final class HttpPageBufferClient
     private final AtomicInteger requestsFailed = new AtomicInteger();
 
     private final Executor pageBufferClientCallbackExecutor;
+    private final Optional<ExecutorService> streamReaderExecutor;
 
     public HttpPageBufferClient(
             HttpClient httpClient,
@@ -167,6 +188,25 @@ public final class HttpPageBufferClient
             ScheduledExecutorService scheduler,
             Ticker ticker,
             Executor pageBufferClientCallbackExecutor)
+    {
+        this(httpClient, maxResponseSize, maxErrorDuration, acknowledgePages, location, clientCallback, scheduler, ticker, pageBufferClientCallbackExecutor, Optional.empty());
+    }
+
+    /**
+     * If the stream reader executor is present, the pages are read from a stream pushed by the remote buffer
+     * with {@link #scheduleStream}, instead of being fetched with requests scheduled with {@link #scheduleRequest}.
+     */
+    public HttpPageBufferClient(
+            HttpClient httpClient,
+            DataSize maxResponseSize,
+            Duration maxErrorDuration,
+            boolean acknowledgePages,
+            URI location,
+            ClientCallback clientCallback,
+            ScheduledExecutorService scheduler,
+            Ticker ticker,
+            Executor pageBufferClientCallbackExecutor,
+            Optional<ExecutorService> streamReaderExecutor)
     {
         this.httpClient = requireNonNull(httpClient, "httpClient is null");
         this.maxResponseSize = requireNonNull(maxResponseSize, "maxResponseSize is null");
@@ -175,6 +215,7 @@ public final class HttpPageBufferClient
         this.clientCallback = requireNonNull(clientCallback, "clientCallback is null");
         this.scheduler = requireNonNull(scheduler, "scheduler is null");
         this.pageBufferClientCallbackExecutor = requireNonNull(pageBufferClientCallbackExecutor, "pageBufferClientCallbackExecutor is null");
+        this.streamReaderExecutor = requireNonNull(streamReaderExecutor, "streamReaderExecutor is null");
         requireNonNull(maxErrorDuration, "maxErrorDuration is null");
         requireNonNull(ticker, "ticker is null");
         this.backoff = new Backoff(maxErrorDuration, ticker);
@@ -186,7 +227,7 @@ public final class HttpPageBufferClient
         if (closed) {
             state = "closed";
         }
-        else if (future != null) {
+        else if (future != null || streamFuture != null) {
             state = "running";
         }
         else if (scheduled) {
@@ -202,6 +243,9 @@ public final class HttpPageBufferClient
         if (future != null) {
             httpRequestState = future.getState();
         }
+        else if (streamFuture != null) {
+            httpRequestState = "streaming";
+        }
 
         long rejectedRows = rowsRejected.get();
         int rejectedPages = pagesRejected.get();
@@ -222,7 +266,7 @@ public final class HttpPageBufferClient
 
     public synchronized boolean isRunning()
     {
-        return future != null;
+        return future != null || streamFuture != null;
     }
 
     @Override
@@ -230,14 +274,18 @@ public final class HttpPageBufferClient
     {
         boolean shouldSendDelete;
         Future<?> future;
+        Future<?> streamFuture;
         synchronized (this) {
             shouldSendDelete = !closed;
 
             closed = true;
 
             future = this.future;
+            streamFuture = this.streamFuture;
 
             this.future = null;
+            this.streamFuture = null;
+            this.streamId = null;
 
             lastUpdate = DateTime.now();
         }
@@ -245,6 +293,10 @@ public final class HttpPageBufferClient
         if (future != null && !future.isDone()) {
             future.cancel(true);
         }
+        if (streamFuture != null && !streamFuture.isDone()) {
+            // interrupts the reader blocked on the stream
+            streamFuture.cancel(true);
+        }
 
         // abort the output buffer on the remote node; response of delete is ignored
         if (shouldSendDelete) {
@@ -277,6 +329,229 @@ public final class HttpPageBufferClient
         requestsScheduled.incrementAndGet();
     }
 
+    /**
+     * Grants the credit to the stream of the remote buffer, which pushes pages as long as it has credit for
+     * them. If no stream is open, a stream is opened with the credit. Once the stream ends, the client callback
+     * is notified with requestComplete, and the credit that has not been used is lost.
+     *
+     * @return false if the credit was not granted, because the client is closed, or the remote buffer is
+     * complete, in which case the buffer is deleted
+     */
+    public synchronized boolean scheduleStream(DataSize credit)
+    {
+        requireNonNull(credit, "credit is null");
+        checkState(streamReaderExecutor.isPresent(), "streaming is not enabled");
+        if (closed || (future != null)) {
+            return false;
+        }
+
+        if (streamId != null) {
+            if (completed) {
+                // the stream is ending, and will delete the buffer
+                return false;
+            }
+            if (streamFuture == null) {
+                pendingStreamCredit += credit.toBytes();
+            }
+            else {
+                // the credit request also acknowledges the pages received so far
+                String streamId = this.streamId;
+                long token = this.token;
+                scheduler.execute(() -> sendStreamCredit(streamId, token, credit));
+            }
+            return true;
+        }
+
+        if (completed) {
+            scheduleRequest();
+            return false;
+        }
+
+        streamId = randomUUID().toString();
+        pendingStreamCredit = credit.toBytes();
+        scheduled = true;
+
+        // start before scheduling to include error delay
+        backoff.startRequest();
+
+        long delayNanos = backoff.getBackoffDelayNanos();
+        scheduler.schedule(() -> {
+            try {
+                openStream();
+            }
+            catch (Throwable t) {
+                // should not happen, but be safe and fail the operator
+                clientCallback.clientFailed(HttpPageBufferClient.this, t);
+            }
+        }, delayNanos, NANOSECONDS);
+
+        lastUpdate = DateTime.now();
+        requestsScheduled.incrementAndGet();
+        return true;
+    }
+
+    private synchronized void openStream()
+    {
+        scheduled = false;
+        if (closed || (streamId == null)) {
+            return;
+        }
+
+        String streamId = this.streamId;
+        long token = this.token;
+        DataSize credit = new DataSize(pendingStreamCredit, BYTE);
+        pendingStreamCredit = 0;
+        streamFuture = streamReaderExecutor.get().submit(() -> readStream(streamId, token, credit));
+
+        lastUpdate = DateTime.now();
+    }
+
+    private void readStream(String streamId, long startingToken, DataSize credit)
+    {
+        checkNotHoldsLock(this);
+
+        URI uri = HttpUriBuilder.uriBuilderFrom(location)
+                .appendPath(String.valueOf(startingToken))
+                .appendPath("stream")
+                .appendPath(streamId)
+                .build();
+        try {
+            // the stream is read on this thread as the pages arrive, rather than buffered like the responses of executeAsync
+            httpClient.execute(
+                    prepareGet()
+                            .setHeader(PRESTO_MAX_SIZE, credit.toString())
+                            .setUri(uri).build(),
+                    new PageStreamResponseHandler(response -> addStreamPages(streamId, uri, response)));
+        }
+        catch (Throwable t) {
+            log.debug("Stream from %s failed %s", uri, t);
+            synchronized (this) {
+                if (closed) {
+                    // the stream was interrupted by close
+                    return;
+                }
+            }
+
+            t = rewriteException(t);
+            if (!(t instanceof PrestoException) && backoff.failure()) {
+                String message = format("%s (%s - %s failures, failure duration %s, total failed request time %s)",
+                        WORKER_NODE_ERROR,
+                        uri,
+                        backoff.getFailureCount(),
+                        backoff.getFailureDuration().convertTo(SECONDS),
+                        backoff.getFailureRequestTimeTotal().convertTo(SECONDS));
+                t = new PageTransportTimeoutException(fromUri(uri), message, t);
+            }
+
+            requestsFailed.incrementAndGet();
+            requestsCompleted.incrementAndGet();
+            if (t instanceof PrestoException) {
+                clientCallback.clientFailed(HttpPageBufferClient.this, t);
+            }
+            streamEnded(streamId);
+            clientCallback.requestComplete(HttpPageBufferClient.this);
+            return;
+        }
+
+        backoff.success();
+        requestsCompleted.incrementAndGet();
+        if (streamEnded(streamId)) {
+            // the remote buffer is complete, so delete it, which finishes the client
+            scheduleRequest();
+            return;
+        }
+        clientCallback.requestComplete(HttpPageBufferClient.this);
+    }
+
+    /**
+     * @return true if the remote buffer is complete
+     */
+    private synchronized boolean streamEnded(String streamId)
+    {
+        if (streamId.equals(this.streamId)) {
+            this.streamId = null;
+            streamFuture = null;
+            pendingStreamCredit = 0;
+        }
+        lastUpdate = DateTime.now();
+        return completed;
+    }
+
+    /**
+     * @return false if the stream is no longer read
+     */
+    private boolean addStreamPages(String streamId, URI uri, PagesResponse result)
+    {
+        checkNotHoldsLock(this);
+
+        List<SerializedPage> pages;
+        synchronized (this) {
+            if (closed || !streamId.equals(this.streamId)) {
+                return false;
+            }
+
+            if (taskInstanceId == null) {
+                taskInstanceId = result.getTaskInstanceId();
+            }
+
+            if (!isNullOrEmpty(taskInstanceId) && !result.getTaskInstanceId().equals(taskInstanceId)) {
+                // TODO: update error message
+                throw new PrestoException(REMOTE_TASK_MISMATCH, format("%s (%s)", REMOTE_TASK_MISMATCH_ERROR, fromUri(uri)));
+            }
+
+            // the stream reads the buffer ahead of the acknowledgements, so the pages always follow the previous pages
+            if (result.getToken() != token) {
+                throw new PageTransportErrorException(format("Expected pages from token %s, but the stream from %s sent pages from token %s", token, uri, result.getToken()));
+            }
+
+            pages = result.getPages();
+            token = result.getNextToken();
+            if (result.isClientComplete()) {
+                completed = true;
+            }
+            lastUpdate = DateTime.now();
+        }
+
+        if (clientCallback.addPages(HttpPageBufferClient.this, pages)) {
+            pagesReceived.addAndGet(pages.size());
+            rowsReceived.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
+        }
+        else {
+            pagesRejected.addAndGet(pages.size());
+            rowsRejected.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
+        }
+        return true;
+    }
+
+    private void sendStreamCredit(String streamId, long token, DataSize credit)
+    {
+        URI uri = HttpUriBuilder.uriBuilderFrom(location)
+                .appendPath(String.valueOf(token))
+                .appendPath("stream")
+                .appendPath(streamId)
+                .appendPath("credit")
+                .build();
+        // a lost credit request stalls the stream, which then ends, and the next stream is opened with new credit
+        httpClient.executeAsync(prepareGet().setHeader(PRESTO_MAX_SIZE, credit.toString()).setUri(uri).build(), new ResponseHandler<Void, RuntimeException>()
+        {
+            @Override
+            public Void handleException(Request request, Exception exception)
+            {
+                log.debug(exception, "Stream credit request failed: %s", uri);
+                return null;
+            }
+
+            @Override
+            public Void handle(Request request, Response response)
+            {
+                if (familyForStatusCode(response.getStatusCode()) != HttpStatus.Family.SUCCESSFUL) {
+                    log.debug("Unexpected stream credit response code: %s", response.getStatusCode());
+                }
+                return null;
+            }
+        });
+    }
+
     private synchronized void initiateRequest()
     {
         scheduled = false;
@@ -515,7 +790,7 @@ public final class HttpPageBufferClient
             if (closed) {
                 state = "CLOSED";
             }
-            else if (future != null) {
+            else if (future != null || streamFuture != null) {
                 state = "RUNNING";
             }
             else {
@@ -555,42 +830,15 @@ public final class HttpPageBufferClient
                     return createEmptyPagesResponse(getTaskInstanceId(response), getToken(response), getNextToken(response), getComplete(response));
                 }
 
-                // otherwise we must have gotten an OK response, everything else is considered fatal
-                if (response.getStatusCode() != HttpStatus.OK.code()) {
-                    StringBuilder body = new StringBuilder();
-                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getInputStream(), UTF_8))) {
-                        // Get up to 1000 lines for debugging
-                        for (int i = 0; i < 1000; i++) {
-                            String line = reader.readLine();
-                            // Don't output more than 100KB
-                            if (line == null || body.length() + line.length() > 100 * 1024) {
-                                break;
-                            }
-                            body.append(line + "\n");
-                        }
-                    }
-                    catch (RuntimeException | IOException e) {
-                        // Ignored. Just return whatever message we were able to decode
-                    }
-                    throw new PageTransportErrorException(format("Expected response code to be 200, but was %s %s:%n%s", response.getStatusCode(), response.getStatusMessage(), body.toString()));
-                }
-
-                // invalid content type can happen when an error page is returned, but is unlikely given the above 200
-                String contentType = response.getHeader(CONTENT_TYPE);
-                if (contentType == null) {
-                    throw new PageTransportErrorException(format("%s header is not set: %s", CONTENT_TYPE, response));
-                }
-                if (!mediaTypeMatches(contentType, PRESTO_PAGES_TYPE)) {
-                    throw new PageTransportErrorException(format("Expected %s response from server but got %s", PRESTO_PAGES_TYPE, contentType));
-                }
+                checkPagesResponse(response);
 
                 String taskInstanceId = getTaskInstanceId(response);
                 long token = getToken(response);
                 long nextToken = getNextToken(response);
                 boolean complete = getComplete(response);
 
-                try (SliceInput input = new InputStreamSliceInput(response.getInputStream())) {
-                    List<SerializedPage> pages = ImmutableList.copyOf(readSerializedPages(input));
+                try (InputStream input = response.getInputStream()) {
+                    List<SerializedPage> pages = readSerializedPages(input);
                     return createPagesResponse(taskInstanceId, token, nextToken, pages, complete);
                 }
                 catch (IOException e) {
@@ -602,6 +850,38 @@ public final class HttpPageBufferClient
             }
         }
 
+        private static void checkPagesResponse(Response response)
+        {
+        // otherwise we must have gotten an OK response, everything else is considered fatal
+        if (response.getStatusCode() != HttpStatus.OK.code()) {
+            StringBuilder body = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getInputStream(), UTF_8))) {
+                // Get up to 1000 lines for debugging
+                for (int i = 0; i < 1000; i++) {
+                    String line = reader.readLine();
+                    // Don't output more than 100KB
+                    if (line == null || body.length() + line.length() > 100 * 1024) {
+                        break;
+                    }
+                    body.append(line + "\n");
+                }
+            }
+            catch (RuntimeException | IOException e) {
+                // Ignored. Just return whatever message we were able to decode
+            }
+            throw new PageTransportErrorException(format("Expected response code to be 200, but was %s %s:%n%s", response.getStatusCode(), response.getStatusMessage(), body.toString()));
+        }
+
+        // invalid content type can happen when an error page is returned, but is unlikely given the above 200
+        String contentType = response.getHeader(CONTENT_TYPE);
+        if (contentType == null) {
+            throw new PageTransportErrorException(format("%s header is not set: %s", CONTENT_TYPE, response));
+        }
+        if (!mediaTypeMatches(contentType, PRESTO_PAGES_TYPE)) {
+            throw new PageTransportErrorException(format("Expected %s response from server but got %s", PRESTO_PAGES_TYPE, contentType));
+        }
+        }
+
         private static String getTaskInstanceId(Response response)
         {
             String taskInstanceId = response.getHeader(PRESTO_TASK_INSTANCE_ID);
@@ -649,6 +929,68 @@ public final class HttpPageBufferClient
         }
     }
 
+    /**
+     * Reads the frames of a page stream as they arrive, and passes them to the listener, until the stream
+     * ends or the listener stops the reading. The format of the frames is documented in TaskResultsStream.
+     */
+    public static class PageStreamResponseHandler
+            implements ResponseHandler<Void, RuntimeException>
+    {
+        private static final int FRAME_HEADER_SIZE = SIZE_OF_LONG + SIZE_OF_LONG + SIZE_OF_BYTE + SIZE_OF_INT;
+
+        private final Predicate<PagesResponse> frameListener;
+
+        public PageStreamResponseHandler(Predicate<PagesResponse> frameListener)
+        {
+            this.frameListener = requireNonNull(frameListener, "frameListener is null");
+        }
+
+        @Override
+        public Void handleException(Request request, Exception exception)
+        {
+            throw propagate(request, exception);
+        }
+
+        @Override
+        public Void handle(Request request, Response response)
+        {
+            try {
+                PageResponseHandler.checkPagesResponse(response);
+                String taskInstanceId = PageResponseHandler.getTaskInstanceId(response);
+
+                byte[] header = new byte[FRAME_HEADER_SIZE];
+                Slice headerSlice = wrappedBuffer(header);
+                try (InputStream input = response.getInputStream()) {
+                    while (true) {
+                        int headerSize = ByteStreams.read(input, header, 0, header.length);
+                        if (headerSize == 0) {
+                            return null;
+                        }
+                        if (headerSize != header.length) {
+                            throw new EOFException("Page stream ended within a frame header");
+                        }
+
+                        long token = headerSlice.getLong(0);
+                        long nextToken = headerSlice.getLong(SIZE_OF_LONG);
+                        boolean complete = headerSlice.getByte(SIZE_OF_LONG + SIZE_OF_LONG) != 0;
+                        int pageCount = headerSlice.getInt(SIZE_OF_LONG + SIZE_OF_LONG + SIZE_OF_BYTE);
+                        List<SerializedPage> pages = readSerializedPages(input, pageCount);
+
+                        if (!frameListener.test(createPagesResponse(taskInstanceId, token, nextToken, pages, complete)) || complete) {
+                            return null;
+                        }
+                    }
+                }
+                catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            catch (PageTransportErrorException e) {
+                throw new PageTransportErrorException(format("Error streaming %s: %s", request.getUri().toASCIIString(), e.getMessage()), e);
+            }
+        }
+    }
+
     public static class PagesResponse
     {
         public static PagesResponse createPagesResponse(String taskInstanceId, long token, long nextToken, Iterable<SerializedPage> pages, boolean complete)
@@ -21,6 +21,7 @@ import com.facebook.presto.sql.planner.optimizations.HashGenerationOptimizer;
 import com.facebook.presto.type.TypeUtils;
 import com.google.common.collect.ImmutableList;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.IntFunction;
 
@@ -62,6 +63,20 @@ public class InterpretedHashGenerator
         return result;
     }
 
+    @Override
+    public void hashPositions(Page page, int positionOffset, int length, long[] hashes)
+    {
+        Arrays.fill(hashes, 0, length, HashGenerationOptimizer.INITIAL_HASH_VALUE);
+        // hash one channel at a time, so that each loop only deals with a single type and block
+        for (int i = 0; i < hashChannels.length; i++) {
+            Type type = hashChannelTypes.get(i);
+            Block block = page.getBlock(hashChannels[i]);
+            for (int position = 0; position < length; position++) {
+                hashes[position] = CombineHashFunction.getHash(hashes[position], TypeUtils.hashPosition(type, block, positionOffset + position));
+            }
+        }
+    }
+
     @Override
     public String toString()
     {
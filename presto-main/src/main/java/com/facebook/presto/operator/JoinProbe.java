@@ -16,11 +16,15 @@ package com.facebook.presto.operator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 
+import javax.annotation.Nullable;
+
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
 
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
 
 public class JoinProbe
 {
@@ -29,17 +33,37 @@ public class JoinProbe
         private final int[] probeOutputChannels;
         private final List<Integer> probeJoinChannels;
         private final OptionalInt probeHashChannel;
+        private final Optional<PagesHashStrategy> probeHashStrategy;
 
         public JoinProbeFactory(int[] probeOutputChannels, List<Integer> probeJoinChannels, OptionalInt probeHashChannel)
+        {
+            this(probeOutputChannels, probeJoinChannels, probeHashChannel, Optional.empty());
+        }
+
+        /**
+         * @param probeHashStrategy if present and there is no precomputed hash channel, the hashes of all positions
+         * of a probe page are calculated up front in a batch, using {@link PagesHashStrategy#hashRows} over the join channels
+         */
+        public JoinProbeFactory(int[] probeOutputChannels, List<Integer> probeJoinChannels, OptionalInt probeHashChannel, Optional<PagesHashStrategy> probeHashStrategy)
         {
             this.probeOutputChannels = probeOutputChannels;
             this.probeJoinChannels = probeJoinChannels;
             this.probeHashChannel = probeHashChannel;
+            this.probeHashStrategy = requireNonNull(probeHashStrategy, "probeHashStrategy is null");
         }
 
         public JoinProbe createJoinProbe(Page page)
         {
-            return new JoinProbe(probeOutputChannels, page, probeJoinChannels, probeHashChannel);
+            return createJoinProbe(page, new long[page.getPositionCount()]);
+        }
+
+        /**
+         * @param rawHashes buffer for the batch calculated hashes, which must have room for all positions of the page;
+         * it is owned by the returned probe until the probe is discarded
+         */
+        public JoinProbe createJoinProbe(Page page, long[] rawHashes)
+        {
+            return new JoinProbe(probeOutputChannels, page, probeJoinChannels, probeHashChannel, probeHashStrategy, rawHashes);
         }
     }
 
@@ -49,10 +73,12 @@ public class JoinProbe
     private final Page page;
     private final Page probePage;
     private final Optional<Block> probeHashBlock;
+    @Nullable
+    private final long[] probeRawHashes;
 
     private int position = -1;
 
-    private JoinProbe(int[] probeOutputChannels, Page page, List<Integer> probeJoinChannels, OptionalInt probeHashChannel)
+    private JoinProbe(int[] probeOutputChannels, Page page, List<Integer> probeJoinChannels, OptionalInt probeHashChannel, Optional<PagesHashStrategy> probeHashStrategy, long[] rawHashes)
     {
         this.probeOutputChannels = probeOutputChannels;
         this.positionCount = page.getPositionCount();
@@ -64,6 +90,14 @@ public class JoinProbe
         this.page = page;
         this.probePage = new Page(page.getPositionCount(), probeBlocks);
         this.probeHashBlock = probeHashChannel.isPresent() ? Optional.of(page.getBlock(probeHashChannel.getAsInt())) : Optional.empty();
+        if (!probeHashBlock.isPresent() && probeHashStrategy.isPresent()) {
+            checkArgument(rawHashes.length >= positionCount, "rawHashes buffer is too small");
+            this.probeRawHashes = rawHashes;
+            probeHashStrategy.get().hashRows(probePage, 0, positionCount, probeRawHashes);
+        }
+        else {
+            this.probeRawHashes = null;
+        }
     }
 
     public int[] getOutputChannels()
@@ -82,6 +116,9 @@ public class JoinProbe
         if (currentRowContainsNull()) {
             return -1;
         }
+        if (probeRawHashes != null) {
+            return lookupSource.getJoinPosition(position, probePage, page, probeRawHashes[position]);
+        }
         if (probeHashBlock.isPresent()) {
             long rawHash = BIGINT.getLong(probeHashBlock.get(), position);
             return lookupSource.getJoinPosition(position, probePage, page, rawHash);
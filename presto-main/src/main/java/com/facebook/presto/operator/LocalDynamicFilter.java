@@ -0,0 +1,252 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.BigintType;
+import com.facebook.presto.spi.type.DateType;
+import com.facebook.presto.spi.type.IntegerType;
+import com.facebook.presto.spi.type.SmallintType;
+import com.facebook.presto.spi.type.TinyintType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.VarbinaryType;
+import com.facebook.presto.spi.type.VarcharType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.openjdk.jol.info.ClassLayout;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.spi.type.TypeUtils.readNativeValue;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Summary of the join keys of a hash join build side, shared between the
+ * {@link HashBuilderOperator}s of the build pipeline and the table scans of
+ * the probe side within the same task.
+ * <p>
+ * The filter is created while the probe side is planned, and bound to the
+ * build side channels and partition count once the build side is planned.
+ * Each build partition contributes the distinct values of its join keys. The
+ * filter becomes available only after every partition has finished its input,
+ * so a probe row rejected by the filter can never match the build side.
+ * If any partition sees more distinct values than allowed, the filter is
+ * abandoned and the probe side is not filtered at all.
+ * <p>
+ * The values of a partition are accounted in the system memory of its build
+ * operator until the operator is closed, which also covers their copy in the
+ * combined filter.
+ */
+@ThreadSafe
+public class LocalDynamicFilter
+{
+    private static final Set<Type> SUPPORTED_TYPES = ImmutableSet.of(
+            BigintType.BIGINT,
+            IntegerType.INTEGER,
+            SmallintType.SMALLINT,
+            TinyintType.TINYINT,
+            DateType.DATE,
+            VarbinaryType.VARBINARY);
+
+    // HashMap.Node of a set entry and its slot in the table, excluding the value itself
+    private static final long SET_ENTRY_SIZE = 40;
+    private static final long LONG_VALUE_SIZE = ClassLayout.parseClass(Long.class).instanceSize();
+
+    private final List<Type> types;
+    private final int maxDistinctValuesPerPartition;
+
+    @GuardedBy("this")
+    private List<Integer> buildChannels;
+    @GuardedBy("this")
+    private int pendingPartitions;
+    @GuardedBy("this")
+    private final List<Set<Object>> values;
+    @GuardedBy("this")
+    private boolean unbounded;
+
+    private volatile Optional<List<Set<Object>>> result = Optional.empty();
+    private final SettableFuture<?> completed = SettableFuture.create();
+
+    public LocalDynamicFilter(List<Type> types, int maxDistinctValuesPerPartition)
+    {
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        checkArgument(this.types.stream().allMatch(LocalDynamicFilter::isSupportedType), "Unsupported types: %s", types);
+        checkArgument(maxDistinctValuesPerPartition > 0, "maxDistinctValuesPerPartition must be positive");
+        this.maxDistinctValuesPerPartition = maxDistinctValuesPerPartition;
+        this.values = new ArrayList<>();
+        for (int i = 0; i < types.size(); i++) {
+            values.add(new HashSet<>());
+        }
+    }
+
+    public static boolean isSupportedType(Type type)
+    {
+        return SUPPORTED_TYPES.contains(type) || type instanceof VarcharType;
+    }
+
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    /**
+     * Returns the distinct build side values of the join key at {@code keyIndex},
+     * or empty if the build side has not finished yet or has too many distinct values.
+     */
+    public Optional<Set<Object>> getValues(int keyIndex)
+    {
+        return result.map(keyValues -> keyValues.get(keyIndex));
+    }
+
+    /**
+     * Returns a future that completes once every build partition has been added,
+     * whether or not the values are available.
+     */
+    public ListenableFuture<?> isCompleted()
+    {
+        return completed;
+    }
+
+    public synchronized void bindBuildSide(List<Integer> buildChannels, int partitionCount)
+    {
+        requireNonNull(buildChannels, "buildChannels is null");
+        checkArgument(buildChannels.size() == types.size(), "buildChannels and types do not match");
+        checkArgument(partitionCount > 0, "partitionCount must be positive");
+        checkState(this.buildChannels == null, "Build side is already bound");
+        this.buildChannels = ImmutableList.copyOf(buildChannels);
+        this.pendingPartitions = partitionCount;
+    }
+
+    public synchronized PartitionCollector createPartitionCollector(LocalMemoryContext memoryContext)
+    {
+        checkState(buildChannels != null, "Build side is not bound");
+        return new PartitionCollector(buildChannels, memoryContext);
+    }
+
+    private synchronized void addPartition(Optional<List<Set<Object>>> partitionValues)
+    {
+        checkState(pendingPartitions > 0, "All partitions have already been added");
+        pendingPartitions--;
+        if (!partitionValues.isPresent()) {
+            unbounded = true;
+        }
+        if (!unbounded) {
+            for (int i = 0; i < values.size(); i++) {
+                values.get(i).addAll(partitionValues.get().get(i));
+            }
+        }
+        if (pendingPartitions == 0 && !unbounded) {
+            result = Optional.of(values.stream()
+                    .map(ImmutableSet::copyOf)
+                    .collect(toImmutableList()));
+        }
+        if (unbounded) {
+            values.forEach(Set::clear);
+        }
+        if (pendingPartitions == 0) {
+            completed.set(null);
+        }
+    }
+
+    /**
+     * Collects the join key values of a single build partition.
+     * Not thread safe, as each instance is owned by a single operator.
+     */
+    public class PartitionCollector
+    {
+        private final List<Integer> keyChannels;
+        private final LocalMemoryContext memoryContext;
+        private List<Set<Object>> partitionValues = new ArrayList<>();
+        private long estimatedSize;
+        private boolean finished;
+
+        private PartitionCollector(List<Integer> keyChannels, LocalMemoryContext memoryContext)
+        {
+            this.keyChannels = requireNonNull(keyChannels, "keyChannels is null");
+            this.memoryContext = requireNonNull(memoryContext, "memoryContext is null");
+            for (int i = 0; i < keyChannels.size(); i++) {
+                partitionValues.add(new HashSet<>());
+            }
+        }
+
+        public void add(Page page)
+        {
+            if (partitionValues == null) {
+                return;
+            }
+            for (int keyIndex = 0; keyIndex < keyChannels.size(); keyIndex++) {
+                Type type = types.get(keyIndex);
+                Block block = page.getBlock(keyChannels.get(keyIndex));
+                Set<Object> keyValues = partitionValues.get(keyIndex);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    Object value = readNativeValue(type, block, position);
+                    if (value == null) {
+                        // nulls never match in an equi-join
+                        continue;
+                    }
+                    if (value instanceof Slice) {
+                        // avoid retaining the whole block
+                        value = Slices.copyOf((Slice) value);
+                    }
+                    if (keyValues.add(value)) {
+                        estimatedSize += SET_ENTRY_SIZE + (value instanceof Slice ? ((Slice) value).getRetainedSize() : LONG_VALUE_SIZE);
+                    }
+                }
+                if (keyValues.size() > maxDistinctValuesPerPartition) {
+                    partitionValues = null;
+                    estimatedSize = 0;
+                    break;
+                }
+            }
+            memoryContext.setBytes(estimatedSize);
+        }
+
+        public void finish()
+        {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            addPartition(Optional.ofNullable(partitionValues));
+            partitionValues = null;
+        }
+
+        /**
+         * Releases the memory of the collected values. Called once the probe side
+         * no longer needs the filter.
+         */
+        public void close()
+        {
+            partitionValues = null;
+            estimatedSize = 0;
+            memoryContext.setBytes(0);
+        }
+    }
+}
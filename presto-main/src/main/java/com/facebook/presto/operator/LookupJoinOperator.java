@@ -71,6 +71,8 @@ public class LookupJoinOperator
     private final ListenableFuture<LookupSourceProvider> lookupSourceProviderFuture;
     private LookupSourceProvider lookupSourceProvider;
     private JoinProbe probe;
+    // reused for the batch calculated hashes of the probe pages, grown to the largest page
+    private long[] probeRawHashes = new long[0];
 
     private Page outputPage;
 
@@ -216,7 +218,10 @@ public class LookupJoinOperator
 
         // create probe
         inputPageSpillEpoch = spillInfoSnapshot.getSpillEpoch();
-        probe = joinProbeFactory.createJoinProbe(page);
+        if (probeRawHashes.length < page.getPositionCount()) {
+            probeRawHashes = new long[page.getPositionCount()];
+        }
+        probe = joinProbeFactory.createJoinProbe(page, probeRawHashes);
 
         // initialize to invalid join position to force output code to advance the cursors
         joinPosition = -1;
@@ -16,7 +16,9 @@ package com.facebook.presto.operator;
 import com.facebook.presto.operator.JoinProbe.JoinProbeFactory;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spiller.PartitioningSpillerFactory;
+import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.google.common.collect.ImmutableList;
 
 import javax.inject.Inject;
 
@@ -26,6 +28,8 @@ import java.util.OptionalInt;
 import java.util.stream.IntStream;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Collections.nCopies;
+import static java.util.Objects.requireNonNull;
 
 public class LookupJoinOperators
 {
@@ -37,9 +41,12 @@ public class LookupJoinOperators
         FULL_OUTER,
     }
 
+    private final JoinCompiler joinCompiler;
+
     @Inject
-    public LookupJoinOperators()
+    public LookupJoinOperators(JoinCompiler joinCompiler)
     {
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
     }
 
     public OperatorFactory innerJoin(int operatorId, PlanNodeId planNodeId, JoinBridgeManager<LookupSourceFactory> lookupSourceFactory, List<Type> probeTypes, List<Integer> probeJoinChannel, OptionalInt probeHashChannel, Optional<List<Integer>> probeOutputChannels, OptionalInt totalOperatorsCount, PartitioningSpillerFactory partitioningSpillerFactory)
@@ -84,6 +91,15 @@ public class LookupJoinOperators
         List<Type> probeOutputChannelTypes = probeOutputChannels.stream()
                 .map(probeTypes::get)
                 .collect(toImmutableList());
+        // a precomputed hash channel is read directly by the probe, otherwise the probe pages are hashed with a compiled strategy
+        Optional<PagesHashStrategy> probeHashStrategy = Optional.empty();
+        if (!probeHashChannel.isPresent()) {
+            List<Type> probeJoinChannelTypes = probeJoinChannel.stream()
+                    .map(probeTypes::get)
+                    .collect(toImmutableList());
+            probeHashStrategy = Optional.of(joinCompiler.compilePagesHashStrategyFactory(probeJoinChannelTypes, rangeList(probeJoinChannelTypes.size()))
+                    .createPagesHashStrategy(nCopies(probeJoinChannelTypes.size(), ImmutableList.of()), OptionalInt.empty()));
+        }
 
         return new LookupJoinOperatorFactory(
                 operatorId,
@@ -93,7 +109,7 @@ public class LookupJoinOperators
                 probeOutputChannelTypes,
                 lookupSourceFactory.getBuildOutputTypes(),
                 joinType,
-                new JoinProbeFactory(probeOutputChannels.stream().mapToInt(i -> i).toArray(), probeJoinChannel, probeHashChannel),
+                new JoinProbeFactory(probeOutputChannels.stream().mapToInt(i -> i).toArray(), probeJoinChannel, probeHashChannel, probeHashStrategy),
                 totalOperatorsCount,
                 probeJoinChannel,
                 probeHashChannel,
@@ -21,6 +21,7 @@ import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -48,6 +49,23 @@ public class MarkDistinctHash
         return groupByHash.getEstimatedSize();
     }
 
+    /**
+     * Types of the pages returned by {@link #getDistinctRows()}: the distinct
+     * channels, followed by the hash channel if the input has one.
+     */
+    public List<Type> getTypes()
+    {
+        return groupByHash.getTypes();
+    }
+
+    /**
+     * Returns the distinct rows seen so far, in the order they were first seen.
+     */
+    public Iterator<Page> getDistinctRows()
+    {
+        return groupByHash.getGroups();
+    }
+
     public Work<Block> markDistinctRows(Page page)
     {
         return new TransformWork<>(
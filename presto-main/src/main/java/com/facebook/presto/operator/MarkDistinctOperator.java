@@ -14,22 +14,32 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static java.util.Objects.requireNonNull;
 
 public class MarkDistinctOperator
@@ -44,6 +54,8 @@ public class MarkDistinctOperator
         private final List<Integer> markDistinctChannels;
         private final List<Type> types;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
         private boolean closed;
 
         public MarkDistinctOperatorFactory(
@@ -53,6 +65,19 @@ public class MarkDistinctOperator
                 Collection<Integer> markDistinctChannels,
                 Optional<Integer> hashChannel,
                 JoinCompiler joinCompiler)
+        {
+            this(operatorId, planNodeId, sourceTypes, markDistinctChannels, hashChannel, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+        }
+
+        public MarkDistinctOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                Collection<Integer> markDistinctChannels,
+                Optional<Integer> hashChannel,
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -64,6 +89,8 @@ public class MarkDistinctOperator
                     .addAll(sourceTypes)
                     .add(BOOLEAN)
                     .build();
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -71,7 +98,7 @@ public class MarkDistinctOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, MarkDistinctOperator.class.getSimpleName());
-            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler);
+            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
 
         @Override
@@ -83,13 +110,25 @@ public class MarkDistinctOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, joinCompiler);
+            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
+    @VisibleForTesting
+    static final int SPILL_PARTITION_COUNT = 16;
+
     private final OperatorContext operatorContext;
-    private final MarkDistinctHash markDistinctHash;
+    private final List<Type> sourceTypes;
+    private final List<Type> distinctTypes;
+    private final int[] markDistinctChannels;
+    private final Optional<Integer> hashChannel;
+    private final JoinCompiler joinCompiler;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
+
+    private MarkDistinctHash markDistinctHash;
 
     private Page inputPage;
     private boolean finishing;
@@ -97,19 +136,52 @@ public class MarkDistinctOperator
     // for yield when memory is not available
     private Work<Block> unfinishedWork;
 
+    // once spilled, the distinct rows seen so far and all further input are partitioned to disk,
+    // and each partition is marked with its own hash after the input is finished
+    private Optional<PartitioningSpiller> distinctRowsSpiller = Optional.empty();
+    private Optional<PartitioningSpiller> inputSpiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = NOT_BLOCKED;
+    private Optional<Runnable> finishMemoryRevoke = Optional.empty();
+
+    private int unspilledPartitions;
+    private Iterator<Page> unspilledDistinctRows;
+    private Iterator<Page> unspilledInput;
+    private Work<Block> unfinishedDistinctRowsWork;
+
     public MarkDistinctOperator(OperatorContext operatorContext, List<Type> types, List<Integer> markDistinctChannels, Optional<Integer> hashChannel, JoinCompiler joinCompiler)
+    {
+        this(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+    }
+
+    public MarkDistinctOperator(
+            OperatorContext operatorContext,
+            List<Type> types,
+            List<Integer> markDistinctChannels,
+            Optional<Integer> hashChannel,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
 
+        requireNonNull(types, "types is null");
         requireNonNull(hashChannel, "hashChannel is null");
         requireNonNull(markDistinctChannels, "markDistinctChannels is null");
 
+        this.sourceTypes = ImmutableList.copyOf(types.subList(0, types.size() - 1));
         ImmutableList.Builder<Type> distinctTypes = ImmutableList.builder();
         for (int channel : markDistinctChannels) {
             distinctTypes.add(types.get(channel));
         }
-        this.markDistinctHash = new MarkDistinctHash(operatorContext.getSession(), distinctTypes.build(), Ints.toArray(markDistinctChannels), hashChannel, joinCompiler, this::updateMemoryReservation);
+        this.distinctTypes = distinctTypes.build();
+        this.markDistinctChannels = Ints.toArray(markDistinctChannels);
+        this.hashChannel = hashChannel;
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
+        this.markDistinctHash = createMarkDistinctHash();
     }
 
     @Override
@@ -127,13 +199,19 @@ public class MarkDistinctOperator
     @Override
     public boolean isFinished()
     {
-        return finishing && !hasUnfinishedInput();
+        return finishing && !hasUnfinishedInput() && !inputSpiller.isPresent();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress;
     }
 
     @Override
     public boolean needsInput()
     {
-        return !finishing && !hasUnfinishedInput();
+        return !finishing && !hasUnfinishedInput() && spillInProgress.isDone();
     }
 
     @Override
@@ -142,16 +220,27 @@ public class MarkDistinctOperator
         requireNonNull(page, "page is null");
         checkState(needsInput());
 
+        if (inputSpiller.isPresent()) {
+            checkSuccess(spillInProgress, "spilling failed");
+            spillInProgress = inputSpiller.get().partitionAndSpill(page, partition -> true).getSpillingFuture();
+            return;
+        }
+
         inputPage = page;
 
-        unfinishedWork = markDistinctHash.markDistinctRows(page);
+        unfinishedWork = markDistinctHash.markDistinctRows(getDistinctPage(page));
         updateMemoryReservation();
     }
 
     @Override
     public Page getOutput()
     {
-        if (unfinishedWork == null) {
+        if (!spillInProgress.isDone()) {
+            return null;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
+        if (unfinishedWork == null && !(finishing && inputSpiller.isPresent() && unspillNextPage())) {
             return null;
         }
 
@@ -169,11 +258,140 @@ public class MarkDistinctOperator
         return outputPage;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        checkState(!finishMemoryRevoke.isPresent(), "Memory revoke already in progress");
+        if (!spillEnabled || finishing || inputSpiller.isPresent() || hasUnfinishedInput()) {
+            // rows of a partially marked page can not be spilled, the revoke is retried later
+            return NOT_BLOCKED;
+        }
+
+        distinctRowsSpiller = Optional.of(createSpiller(markDistinctHash.getTypes(), IntStream.range(0, markDistinctChannels.length).toArray()));
+        inputSpiller = Optional.of(createSpiller(sourceTypes, markDistinctChannels));
+        spillInProgress = distinctRowsSpiller.get().partitionAndSpill(markDistinctHash.getDistinctRows());
+        finishMemoryRevoke = Optional.of(() -> {
+            markDistinctHash = null;
+            localRevocableMemoryContext.setBytes(0);
+        });
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        checkSuccess(spillInProgress, "spilling failed");
+        finishMemoryRevoke.ifPresent(Runnable::run);
+        finishMemoryRevoke = Optional.empty();
+    }
+
+    @Override
+    public void close()
+    {
+        markDistinctHash = null;
+        unfinishedWork = null;
+        unfinishedDistinctRowsWork = null;
+        finishMemoryRevoke = Optional.empty();
+        try (Closer closer = Closer.create()) {
+            distinctRowsSpiller.ifPresent(closer::register);
+            inputSpiller.ifPresent(closer::register);
+            closer.register(() -> localUserMemoryContext.setBytes(0));
+            closer.register(() -> localRevocableMemoryContext.setBytes(0));
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        distinctRowsSpiller = Optional.empty();
+        inputSpiller = Optional.empty();
+    }
+
     private boolean hasUnfinishedInput()
     {
         return inputPage != null || unfinishedWork != null;
     }
 
+    /**
+     * Loads the next spilled input page along with the work marking its rows.
+     * The distinct rows spilled for a partition are added to its hash before any of its input.
+     *
+     * @return false if the hash could not reserve memory, or if all partitions are done
+     */
+    private boolean unspillNextPage()
+    {
+        while (true) {
+            if (unfinishedDistinctRowsWork != null) {
+                if (!unfinishedDistinctRowsWork.process()) {
+                    return false;
+                }
+                unfinishedDistinctRowsWork = null;
+                updateMemoryReservation();
+            }
+
+            if (unspilledInput == null) {
+                if (unspilledPartitions == SPILL_PARTITION_COUNT) {
+                    distinctRowsSpiller.get().verifyAllPartitionsRead();
+                    inputSpiller.get().verifyAllPartitionsRead();
+                    close();
+                    return false;
+                }
+                markDistinctHash = createMarkDistinctHash();
+                updateMemoryReservation();
+                unspilledDistinctRows = distinctRowsSpiller.get().getSpilledPages(unspilledPartitions);
+                unspilledInput = inputSpiller.get().getSpilledPages(unspilledPartitions);
+                unspilledPartitions++;
+            }
+
+            if (unspilledDistinctRows.hasNext()) {
+                // these rows were already marked before spilling
+                unfinishedDistinctRowsWork = markDistinctHash.markDistinctRows(unspilledDistinctRows.next());
+                continue;
+            }
+
+            if (unspilledInput.hasNext()) {
+                inputPage = unspilledInput.next();
+                unfinishedWork = markDistinctHash.markDistinctRows(getDistinctPage(inputPage));
+                return true;
+            }
+
+            unspilledDistinctRows = null;
+            unspilledInput = null;
+        }
+    }
+
+    private MarkDistinctHash createMarkDistinctHash()
+    {
+        int[] channels = IntStream.range(0, markDistinctChannels.length).toArray();
+        Optional<Integer> distinctHashChannel = hashChannel.map(channel -> markDistinctChannels.length);
+        return new MarkDistinctHash(operatorContext.getSession(), distinctTypes, channels, distinctHashChannel, joinCompiler, this::updateMemoryReservation);
+    }
+
+    /**
+     * Returns the distinct channels of an input page, followed by its hash channel if any,
+     * which is the layout of the pages added to the hash and of the spilled distinct rows.
+     */
+    private Page getDistinctPage(Page page)
+    {
+        Block[] blocks = new Block[markDistinctChannels.length + (hashChannel.isPresent() ? 1 : 0)];
+        for (int i = 0; i < markDistinctChannels.length; i++) {
+            blocks[i] = page.getBlock(markDistinctChannels[i]);
+        }
+        hashChannel.ifPresent(channel -> blocks[markDistinctChannels.length] = page.getBlock(channel));
+        return new Page(page.getPositionCount(), blocks);
+    }
+
+    private PartitioningSpiller createSpiller(List<Type> types, int[] distinctChannels)
+    {
+        // both spillers must partition the same distinct rows the same way, so the precomputed hash channel is not used
+        List<Type> hashTypes = IntStream.of(distinctChannels)
+                .mapToObj(types::get)
+                .collect(ImmutableList.toImmutableList());
+        return partitioningSpillerFactory.create(
+                types,
+                new LocalPartitionGenerator(new InterpretedHashGenerator(hashTypes, distinctChannels), SPILL_PARTITION_COUNT),
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.newAggregateSystemMemoryContext());
+    }
+
     /**
      * Update memory usage.
      *
@@ -184,9 +402,16 @@ public class MarkDistinctOperator
     // The following implementation is a hybrid model, where the push model is going to call the pull model causing reentrancy
     private boolean updateMemoryReservation()
     {
+        long estimatedSize = markDistinctHash == null ? 0 : markDistinctHash.getEstimatedSize();
+        if (spillEnabled && !inputSpiller.isPresent()) {
+            // the hash is revocable until it is spilled. Never yield on revocable memory: the revoke waits
+            // for the unfinished page to be marked, so yielding here would block both the work and the revoke.
+            localRevocableMemoryContext.setBytes(estimatedSize);
+            return true;
+        }
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
-        localUserMemoryContext.setBytes(markDistinctHash.getEstimatedSize());
+        localUserMemoryContext.setBytes(estimatedSize);
         // If memory is not available, inform the caller that we cannot proceed for allocation.
         return operatorContext.isWaitingForMemory().isDone();
     }
@@ -264,6 +264,26 @@ public class MultiChannelGroupByHash
         return hashCapacity;
     }
 
+    /**
+     * Calculates the raw hashes of all positions of the page up front, one column at a time,
+     * so that probing the hash table does not interleave with the virtual calls of hashing.
+     */
+    private long[] getRawHashes(Page page)
+    {
+        long[] rawHashes = new long[page.getPositionCount()];
+        if (precomputedHashChannel.isPresent()) {
+            hashGenerator.hashPositions(page, 0, page.getPositionCount(), rawHashes);
+        }
+        else {
+            Block[] hashBlocks = new Block[channels.length];
+            for (int i = 0; i < channels.length; i++) {
+                hashBlocks[i] = page.getBlock(channels[i]);
+            }
+            hashStrategy.hashRows(new Page(page.getPositionCount(), hashBlocks), 0, page.getPositionCount(), rawHashes);
+        }
+        return rawHashes;
+    }
+
     private int putIfAbsent(int position, Page page)
     {
         long rawHash = hashGenerator.hashPosition(position, page);
@@ -559,12 +579,14 @@ public class MultiChannelGroupByHash
             implements Work<Void>
     {
         private final Page page;
+        private final long[] rawHashes;
 
         private int lastPosition;
 
         public AddNonDictionaryPageWork(Page page)
         {
             this.page = requireNonNull(page, "page is null");
+            this.rawHashes = getRawHashes(page);
         }
 
         @Override
@@ -583,7 +605,7 @@ public class MultiChannelGroupByHash
             // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
             while (lastPosition < positionCount && !needRehash()) {
                 // get the group for the current row
-                putIfAbsent(lastPosition, page);
+                putIfAbsent(lastPosition, page, rawHashes[lastPosition]);
                 lastPosition++;
             }
             return lastPosition == positionCount;
@@ -689,6 +711,7 @@ public class MultiChannelGroupByHash
     {
         private final BlockBuilder blockBuilder;
         private final Page page;
+        private final long[] rawHashes;
 
         private boolean finished;
         private int lastPosition;
@@ -696,6 +719,7 @@ public class MultiChannelGroupByHash
         public GetNonDictionaryGroupIdsWork(Page page)
         {
             this.page = requireNonNull(page, "page is null");
+            this.rawHashes = getRawHashes(page);
             // we know the exact size required for the block
             this.blockBuilder = BIGINT.createFixedSizeBlockBuilder(page.getPositionCount());
         }
@@ -717,7 +741,7 @@ public class MultiChannelGroupByHash
             // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
             while (lastPosition < positionCount && !needRehash()) {
                 // output the group id for this row
-                BIGINT.writeLong(blockBuilder, putIfAbsent(lastPosition, page));
+                BIGINT.writeLong(blockBuilder, putIfAbsent(lastPosition, page, rawHashes[lastPosition]));
                 lastPosition++;
             }
             return lastPosition == positionCount;
@@ -80,7 +80,7 @@ public class OperatorContext
 
     private final OperationTiming finishTiming = new OperationTiming();
 
-    private final SpillContext spillContext;
+    private final OperatorSpillContext spillContext;
     private final AtomicReference<Supplier<OperatorInfo>> infoSupplier = new AtomicReference<>();
 
     private final AtomicLong peakUserMemoryReservation = new AtomicLong();
@@ -477,6 +477,8 @@ public class OperatorContext
                 succinctBytes(peakSystemMemoryReservation.get()),
                 succinctBytes(peakTotalMemoryReservation.get()),
 
+                succinctBytes(spillContext.getSpilledBytes()),
+
                 memoryFuture.get().isDone() ? Optional.empty() : Optional.of(WAITING_FOR_MEMORY),
                 info);
     }
@@ -520,6 +522,7 @@ public class OperatorContext
     {
         private final DriverContext driverContext;
         private final AtomicLong reservedBytes = new AtomicLong();
+        private final AtomicLong spilledBytes = new AtomicLong();
 
         public OperatorSpillContext(DriverContext driverContext)
         {
@@ -531,6 +534,7 @@ public class OperatorContext
         {
             if (bytes >= 0) {
                 reservedBytes.addAndGet(bytes);
+                spilledBytes.addAndGet(bytes);
                 driverContext.reserveSpill(bytes);
             }
             else {
@@ -539,6 +543,11 @@ public class OperatorContext
             }
         }
 
+        public long getSpilledBytes()
+        {
+            return spilledBytes.get();
+        }
+
         private long decrementSpilledReservation(long reservedBytes, long bytesBeingFreed)
         {
             checkArgument(bytesBeingFreed >= 0);
@@ -15,16 +15,28 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spi.Page;
-import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
+import static com.facebook.presto.util.MergeSortedPages.mergeSortedPages;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static java.util.Objects.requireNonNull;
 
 public class OrderByOperator
@@ -42,6 +54,8 @@ public class OrderByOperator
         private final List<SortOrder> sortOrder;
         private boolean closed;
         private final PagesIndex.Factory pagesIndexFactory;
+        private final boolean spillEnabled;
+        private final Optional<SpillerFactory> spillerFactory;
 
         public OrderByOperatorFactory(
                 int operatorId,
@@ -52,6 +66,21 @@ public class OrderByOperator
                 List<Integer> sortChannels,
                 List<SortOrder> sortOrder,
                 PagesIndex.Factory pagesIndexFactory)
+        {
+            this(operatorId, planNodeId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder, pagesIndexFactory, false, Optional.empty());
+        }
+
+        public OrderByOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                int expectedPositions,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                PagesIndex.Factory pagesIndexFactory,
+                boolean spillEnabled,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -62,6 +91,9 @@ public class OrderByOperator
             this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
 
             this.pagesIndexFactory = requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
+            this.spillEnabled = spillEnabled;
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+            checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
         }
 
         @Override
@@ -77,7 +109,9 @@ public class OrderByOperator
                     expectedPositions,
                     sortChannels,
                     sortOrder,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    spillEnabled,
+                    spillerFactory);
         }
 
         @Override
@@ -89,7 +123,7 @@ public class OrderByOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new OrderByOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder, pagesIndexFactory);
+            return new OrderByOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder, pagesIndexFactory, spillEnabled, spillerFactory);
         }
     }
 
@@ -101,15 +135,25 @@ public class OrderByOperator
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final List<Integer> sortChannels;
     private final List<SortOrder> sortOrder;
     private final int[] outputChannels;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext revocableMemoryContext;
 
     private final PagesIndex pageIndex;
 
-    private final PageBuilder pageBuilder;
-    private int currentPosition;
+    private final boolean spillEnabled;
+    private final Optional<SpillerFactory> spillerFactory;
+
+    private Optional<Spiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Optional<Runnable> finishMemoryRevoke = Optional.empty();
+    // the last run is being spilled, before the sorted runs are merged
+    private boolean spillingLastRun;
+
+    private Iterator<Optional<Page>> sortedPages;
 
     private State state = State.NEEDS_INPUT;
 
@@ -121,18 +165,36 @@ public class OrderByOperator
             List<Integer> sortChannels,
             List<SortOrder> sortOrder,
             PagesIndex.Factory pagesIndexFactory)
+    {
+        this(operatorContext, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder, pagesIndexFactory, false, Optional.empty());
+    }
+
+    public OrderByOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            int expectedPositions,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            PagesIndex.Factory pagesIndexFactory,
+            boolean spillEnabled,
+            Optional<SpillerFactory> spillerFactory)
     {
         requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
 
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.sourceTypes = ImmutableList.copyOf(requireNonNull(sourceTypes, "sourceTypes is null"));
         this.outputChannels = Ints.toArray(requireNonNull(outputChannels, "outputChannels is null"));
         this.sortChannels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
         this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.revocableMemoryContext = operatorContext.localRevocableMemoryContext();
 
         this.pageIndex = pagesIndexFactory.newPagesIndex(sourceTypes, expectedPositions);
 
-        this.pageBuilder = new PageBuilder(toTypes(sourceTypes, outputChannels));
+        this.spillEnabled = spillEnabled;
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
     }
 
     @Override
@@ -141,15 +203,72 @@ public class OrderByOperator
         return operatorContext;
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (spillingLastRun && !spillInProgress.isDone()) {
+            return spillInProgress;
+        }
+        return NOT_BLOCKED;
+    }
+
     @Override
     public void finish()
     {
+        if (!spillInProgress.isDone()) {
+            return;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
         if (state == State.NEEDS_INPUT) {
             state = State.HAS_OUTPUT;
 
-            // sort the index
-            pageIndex.sort(sortChannels, sortOrder);
+            // the sorted pages hold on to the index, so its memory can no longer be revoked
+            if (revocableMemoryContext.getBytes() > 0) {
+                long currentRevocableBytes = revocableMemoryContext.getBytes();
+                revocableMemoryContext.setBytes(0);
+                if (!localUserMemoryContext.trySetBytes(localUserMemoryContext.getBytes() + currentRevocableBytes)) {
+                    // not enough memory to keep the last run in memory, spill it as well, and merge the
+                    // sorted runs once the spill has completed, which is awaited through isBlocked()
+                    revocableMemoryContext.setBytes(currentRevocableBytes);
+                    spillToDisk();
+                    spillingLastRun = true;
+                    return;
+                }
+            }
+
+            prepareSortedPages();
+        }
+    }
+
+    private void prepareSortedPages()
+    {
+        // sort the index
+        pageIndex.sort(sortChannels, sortOrder);
+
+        List<WorkProcessor<Page>> spilledPages = getSpilledPages();
+        if (spilledPages.isEmpty()) {
+            sortedPages = Iterators.transform(pageIndex.getSortedPages(), Optional::of);
+        }
+        else {
+            sortedPages = mergeSpilledAndMemoryPages(spilledPages).yieldingIterator();
+        }
+    }
+
+    /**
+     * @return true if the spill of the last run has completed and the sorted runs are being merged, false otherwise
+     */
+    private boolean finishSpillingLastRun()
+    {
+        if (!spillInProgress.isDone()) {
+            return false;
         }
+        checkSuccess(spillInProgress, "spilling failed");
+        spillingLastRun = false;
+        pageIndex.clear();
+        updateMemoryUsage();
+        prepareSortedPages();
+        return true;
     }
 
     @Override
@@ -169,13 +288,10 @@ public class OrderByOperator
     {
         checkState(state == State.NEEDS_INPUT, "Operator is already finishing");
         requireNonNull(page, "page is null");
+        checkSuccess(spillInProgress, "spilling failed");
 
         pageIndex.addPage(page);
-
-        if (!localUserMemoryContext.trySetBytes(pageIndex.getEstimatedSize().toBytes())) {
-            pageIndex.compact();
-            localUserMemoryContext.setBytes(pageIndex.getEstimatedSize().toBytes());
-        }
+        updateMemoryUsage();
     }
 
     @Override
@@ -185,37 +301,130 @@ public class OrderByOperator
             return null;
         }
 
-        if (currentPosition >= pageIndex.getPositionCount()) {
-            state = State.FINISHED;
+        if (spillingLastRun && !finishSpillingLastRun()) {
+            // the spill is exposed through isBlocked()
             return null;
         }
 
-        // iterate through the positions sequentially until we have one full page
-        pageBuilder.reset();
-        currentPosition = pageIndex.buildPage(currentPosition, outputChannels, pageBuilder);
-
-        // output the page if we have any data
-        if (pageBuilder.isEmpty()) {
+        verify(sortedPages != null, "sortedPages is null");
+        if (!sortedPages.hasNext()) {
             state = State.FINISHED;
             return null;
         }
 
-        Page page = pageBuilder.build();
-        return page;
+        Optional<Page> next = sortedPages.next();
+        if (!next.isPresent()) {
+            // the merge has yielded
+            return null;
+        }
+        Page page = next.get();
+        Block[] blocks = new Block[outputChannels.length];
+        for (int i = 0; i < outputChannels.length; i++) {
+            blocks[i] = page.getBlock(outputChannels[i]);
+        }
+        return new Page(page.getPositionCount(), blocks);
     }
 
     @Override
-    public void close()
+    public ListenableFuture<?> startMemoryRevoke()
     {
-        pageIndex.clear();
+        if (spillingLastRun) {
+            // the memory of the last run is released once its spill has completed
+            finishMemoryRevoke = Optional.of(() -> {});
+            return spillInProgress;
+        }
+        verify(state == State.NEEDS_INPUT || revocableMemoryContext.getBytes() == 0, "Cannot spill in state: %s", state);
+        return spillToDisk();
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.orElseThrow(() -> new IllegalStateException("finishMemoryRevoke called without startMemoryRevoke")).run();
+        finishMemoryRevoke = Optional.empty();
+    }
+
+    private ListenableFuture<?> spillToDisk()
+    {
+        checkSuccess(spillInProgress, "spilling failed");
+
+        if (revocableMemoryContext.getBytes() == 0) {
+            verify(pageIndex.getPositionCount() == 0 || state == State.HAS_OUTPUT);
+            finishMemoryRevoke = Optional.of(() -> {});
+            return immediateFuture(null);
+        }
+
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.get().create(
+                    sourceTypes,
+                    operatorContext.getSpillContext(),
+                    operatorContext.newAggregateSystemMemoryContext()));
+        }
+
+        // each spill writes a sorted run, which are merged once all input has been received
+        pageIndex.sort(sortChannels, sortOrder);
+        spillInProgress = spiller.get().spill(pageIndex.getSortedPages());
+        finishMemoryRevoke = Optional.of(() -> {
+            pageIndex.clear();
+            updateMemoryUsage();
+        });
+
+        return spillInProgress;
+    }
+
+    private void updateMemoryUsage()
+    {
+        if (spillEnabled && state == State.NEEDS_INPUT) {
+            if (pageIndex.getPositionCount() == 0) {
+                localUserMemoryContext.setBytes(pageIndex.getEstimatedSize().toBytes());
+                revocableMemoryContext.setBytes(0L);
+            }
+            else {
+                localUserMemoryContext.setBytes(0);
+                revocableMemoryContext.setBytes(pageIndex.getEstimatedSize().toBytes());
+            }
+        }
+        else {
+            revocableMemoryContext.setBytes(0);
+            if (!localUserMemoryContext.trySetBytes(pageIndex.getEstimatedSize().toBytes())) {
+                pageIndex.compact();
+                localUserMemoryContext.setBytes(pageIndex.getEstimatedSize().toBytes());
+            }
+        }
     }
 
-    private static List<Type> toTypes(List<? extends Type> sourceTypes, List<Integer> outputChannels)
+    private List<WorkProcessor<Page>> getSpilledPages()
     {
-        ImmutableList.Builder<Type> types = ImmutableList.builder();
-        for (int channel : outputChannels) {
-            types.add(sourceTypes.get(channel));
+        if (!spiller.isPresent()) {
+            return ImmutableList.of();
         }
-        return types.build();
+
+        return spiller.get().getSpills().stream()
+                .map(WorkProcessor::fromIterator)
+                .collect(toImmutableList());
+    }
+
+    private WorkProcessor<Page> mergeSpilledAndMemoryPages(List<WorkProcessor<Page>> spilledPages)
+    {
+        List<WorkProcessor<Page>> sortedStreams = ImmutableList.<WorkProcessor<Page>>builder()
+                .addAll(spilledPages)
+                .add(WorkProcessor.fromIterator(pageIndex.getSortedPages()))
+                .build();
+
+        return mergeSortedPages(
+                sortedStreams,
+                new SimplePageWithPositionComparator(sourceTypes, sortChannels, sortOrder),
+                sourceTypes,
+                operatorContext.aggregateUserMemoryContext(),
+                operatorContext.getDriverContext().getYieldSignal());
+    }
+
+    @Override
+    public void close()
+    {
+        pageIndex.clear();
+        spiller.ifPresent(Spiller::close);
+        localUserMemoryContext.setBytes(0);
+        revocableMemoryContext.setBytes(0);
     }
 }
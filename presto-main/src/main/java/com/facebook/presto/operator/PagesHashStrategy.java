@@ -44,6 +44,13 @@ public interface PagesHashStrategy
      */
     long hashRow(int position, Page page);
 
+    /**
+     * Calculates the hash codes of {@code length} rows of {@code page} starting at {@code positionOffset}
+     * into {@code hashes}, column by column. The hash codes are the same as the ones of {@link #hashRow}.
+     * Page must have the same number of Blocks as the hashed columns and each entry is expected to be the same type.
+     */
+    void hashRows(Page page, int positionOffset, int length, long[] hashes);
+
     /**
      * Compares the values in the specified pages. The values are compared positionally, so {@code leftPage}
      * and {@code rightPage} must have the same number of entries as the hashed columns and each entry
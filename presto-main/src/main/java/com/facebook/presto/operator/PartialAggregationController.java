@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decides whether the partial aggregations of a pipeline are worth running. Each time a
+ * partial aggregation flushes its groups, it reports how many rows it aggregated and how
+ * many groups these rows produced. Once enough rows have been seen and the groups are
+ * nearly as many as the rows, partial aggregation is disabled for the remaining input,
+ * which is then passed through to the final aggregation without building a hash table.
+ * <p>
+ * The decision is shared by all drivers of the pipeline and is never reverted.
+ */
+@ThreadSafe
+public class PartialAggregationController
+{
+    private final long minRows;
+    private final double uniqueRowsRatioThreshold;
+
+    @GuardedBy("this")
+    private long totalRows;
+    @GuardedBy("this")
+    private long totalUniqueRows;
+    private volatile boolean partialAggregationDisabled;
+
+    public PartialAggregationController(long minRows, double uniqueRowsRatioThreshold)
+    {
+        checkArgument(minRows > 0, "minRows must be positive");
+        checkArgument(uniqueRowsRatioThreshold >= 0 && uniqueRowsRatioThreshold <= 1, "uniqueRowsRatioThreshold must be between 0 and 1");
+        this.minRows = minRows;
+        this.uniqueRowsRatioThreshold = uniqueRowsRatioThreshold;
+    }
+
+    public long getMinRows()
+    {
+        return minRows;
+    }
+
+    public boolean isPartialAggregationDisabled()
+    {
+        return partialAggregationDisabled;
+    }
+
+    /**
+     * Returns true if a partial aggregation which has aggregated the given number of rows into
+     * the given number of groups should flush early, so that its statistics are reported.
+     */
+    public boolean shouldFlush(long rows, long uniqueRows)
+    {
+        return rows >= minRows && isAboveThreshold(rows, uniqueRows);
+    }
+
+    public synchronized void onFlush(long rows, long uniqueRows)
+    {
+        if (partialAggregationDisabled) {
+            return;
+        }
+        totalRows += rows;
+        totalUniqueRows += uniqueRows;
+        if (totalRows >= minRows && isAboveThreshold(totalRows, totalUniqueRows)) {
+            partialAggregationDisabled = true;
+        }
+    }
+
+    private boolean isAboveThreshold(long rows, long uniqueRows)
+    {
+        return uniqueRows > rows * uniqueRowsRatioThreshold;
+    }
+}
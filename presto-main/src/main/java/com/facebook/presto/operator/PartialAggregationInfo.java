@@ -0,0 +1,60 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.util.Mergeable;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import static java.util.Objects.requireNonNull;
+
+public class PartialAggregationInfo
+        implements Mergeable<PartialAggregationInfo>, OperatorInfo
+{
+    private final HashCollisionsInfo hashCollisionsInfo;
+    private final long skippedInputPositions;
+
+    @JsonCreator
+    public PartialAggregationInfo(
+            @JsonProperty("hashCollisionsInfo") HashCollisionsInfo hashCollisionsInfo,
+            @JsonProperty("skippedInputPositions") long skippedInputPositions)
+    {
+        this.hashCollisionsInfo = requireNonNull(hashCollisionsInfo, "hashCollisionsInfo is null");
+        this.skippedInputPositions = skippedInputPositions;
+    }
+
+    @JsonProperty
+    public HashCollisionsInfo getHashCollisionsInfo()
+    {
+        return hashCollisionsInfo;
+    }
+
+    /**
+     * Number of input rows which were passed through without being aggregated,
+     * because partial aggregation was disabled.
+     */
+    @JsonProperty
+    public long getSkippedInputPositions()
+    {
+        return skippedInputPositions;
+    }
+
+    @Override
+    public PartialAggregationInfo mergeWith(PartialAggregationInfo other)
+    {
+        return new PartialAggregationInfo(
+                hashCollisionsInfo.mergeWith(other.getHashCollisionsInfo()),
+                skippedInputPositions + other.getSkippedInputPositions());
+    }
+}
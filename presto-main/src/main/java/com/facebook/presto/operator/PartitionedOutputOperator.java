@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.execution.buffer.OutputBuffer;
+import com.facebook.presto.execution.buffer.PageCompressionStats;
 import com.facebook.presto.execution.buffer.PagesSerde;
 import com.facebook.presto.execution.buffer.PagesSerdeFactory;
 import com.facebook.presto.execution.buffer.SerializedPage;
@@ -21,6 +22,8 @@ import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.DictionaryBlock;
 import com.facebook.presto.spi.block.RunLengthEncodedBlock;
 import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.type.Type;
@@ -28,8 +31,10 @@ import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.util.Mergeable;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 
 import java.util.List;
 import java.util.Optional;
@@ -37,6 +42,7 @@ import java.util.OptionalInt;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
+import static com.facebook.presto.execution.buffer.PageCompressionStats.mergeStats;
 import static com.facebook.presto.execution.buffer.PageSplitterUtil.splitPage;
 import static com.facebook.presto.spi.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -301,6 +307,10 @@ public class PartitionedOutputOperator
         private final List<Optional<Block>> partitionConstants;
         private final PagesSerde serde;
         private final PageBuilder[] pageBuilders;
+        // positions of the current page for each partition, reused across pages
+        private final IntArrayList[] partitionPositions;
+        // a part of a page at least this large is sent as a page of its own instead of being copied to the page builder
+        private final long minDirectOutputSizeInBytes;
         private final boolean replicatesAnyRow;
         private final OptionalInt nullChannel; // when present, send the position to every partition if this channel is null.
         private final AtomicLong rowsAdded = new AtomicLong();
@@ -333,9 +343,13 @@ public class PartitionedOutputOperator
             int pageSize = min(DEFAULT_MAX_PAGE_SIZE_IN_BYTES, ((int) maxMemory.toBytes()) / partitionCount);
             pageSize = max(1, pageSize);
 
+            this.minDirectOutputSizeInBytes = pageSize / 2;
+
             this.pageBuilders = new PageBuilder[partitionCount];
+            this.partitionPositions = new IntArrayList[partitionCount];
             for (int i = 0; i < partitionCount; i++) {
                 pageBuilders[i] = PageBuilder.withMaxPageSize(pageSize, sourceTypes);
+                partitionPositions[i] = new IntArrayList();
             }
         }
 
@@ -369,31 +383,94 @@ public class PartitionedOutputOperator
 
         public PartitionedOutputInfo getInfo()
         {
-            return new PartitionedOutputInfo(rowsAdded.get(), pagesAdded.get(), outputBuffer.getPeakMemoryUsage());
+            return new PartitionedOutputInfo(rowsAdded.get(), pagesAdded.get(), outputBuffer.getPeakMemoryUsage(), serde.getCompressionStats());
         }
 
         public void partitionPage(Page page)
         {
             requireNonNull(page, "page is null");
 
+            // assign the positions of the whole page to partitions first, so that each
+            // partition can then be written one column at a time
             Page partitionFunctionArgs = getPartitionFunctionArguments(page);
+            Block nullBlock = nullChannel.isPresent() ? page.getBlock(nullChannel.getAsInt()) : null;
+            for (IntArrayList positions : partitionPositions) {
+                positions.clear();
+            }
             for (int position = 0; position < page.getPositionCount(); position++) {
                 boolean shouldReplicate = (replicatesAnyRow && !hasAnyRowBeenReplicated) ||
-                        nullChannel.isPresent() && page.getBlock(nullChannel.getAsInt()).isNull(position);
+                        nullBlock != null && nullBlock.isNull(position);
                 if (shouldReplicate) {
-                    for (PageBuilder pageBuilder : pageBuilders) {
-                        appendRow(pageBuilder, page, position);
+                    for (IntArrayList positions : partitionPositions) {
+                        positions.add(position);
                     }
                     hasAnyRowBeenReplicated = true;
                 }
                 else {
                     int partition = partitionFunction.getPartition(partitionFunctionArgs, position);
-                    appendRow(pageBuilders[partition], page, position);
+                    partitionPositions[partition].add(position);
+                }
+            }
+
+            for (int partition = 0; partition < partitionPositions.length; partition++) {
+                IntArrayList positions = partitionPositions[partition];
+                if (!positions.isEmpty()) {
+                    appendPositions(partition, page, positions.elements(), positions.size());
                 }
             }
             flush(false);
         }
 
+        private void appendPositions(int partition, Page page, int[] positions, int length)
+        {
+            // Large parts of the page are sent without going through the page builder. The blocks
+            // are either used as they are or compacted with copyPositions, which keeps dictionary
+            // and run length encoded blocks in their encoding.
+            if (page.getSizeInBytes() * length / page.getPositionCount() >= minDirectOutputSizeInBytes) {
+                Page partitionPage = page;
+                if (length != page.getPositionCount()) {
+                    Block[] blocks = new Block[page.getChannelCount()];
+                    for (int channel = 0; channel < blocks.length; channel++) {
+                        blocks[channel] = page.getBlock(channel).copyPositions(positions, 0, length);
+                    }
+                    partitionPage = new Page(length, blocks);
+                }
+                // send the rows already buffered for the partition first, to keep the order of the rows
+                flushPartition(partition);
+                enqueuePage(partition, partitionPage);
+                return;
+            }
+
+            PageBuilder pageBuilder = pageBuilders[partition];
+            pageBuilder.declarePositions(length);
+            for (int channel = 0; channel < sourceTypes.size(); channel++) {
+                appendPositions(sourceTypes.get(channel), page.getBlock(channel), positions, length, pageBuilder.getBlockBuilder(channel));
+            }
+        }
+
+        private static void appendPositions(Type type, Block block, int[] positions, int length, BlockBuilder blockBuilder)
+        {
+            // unwrap the encoded blocks once per column rather than once per position
+            if (block instanceof RunLengthEncodedBlock) {
+                Block value = ((RunLengthEncodedBlock) block).getValue();
+                for (int i = 0; i < length; i++) {
+                    type.appendTo(value, 0, blockBuilder);
+                }
+            }
+            else if (block instanceof DictionaryBlock) {
+                DictionaryBlock dictionaryBlock = (DictionaryBlock) block;
+                Block dictionary = dictionaryBlock.getDictionary();
+                for (int i = 0; i < length; i++) {
+                    type.appendTo(dictionary, dictionaryBlock.getId(positions[i]), blockBuilder);
+                }
+            }
+            else {
+                for (int i = 0; i < length; i++) {
+                    type.appendTo(block, positions[i], blockBuilder);
+                }
+            }
+        }
+
         private Page getPartitionFunctionArguments(Page page)
         {
             Block[] blocks = new Block[partitionChannels.size()];
@@ -409,35 +486,37 @@ public class PartitionedOutputOperator
             return new Page(page.getPositionCount(), blocks);
         }
 
-        private void appendRow(PageBuilder pageBuilder, Page page, int position)
-        {
-            pageBuilder.declarePosition();
-
-            for (int channel = 0; channel < sourceTypes.size(); channel++) {
-                Type type = sourceTypes.get(channel);
-                type.appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
-            }
-        }
-
         public void flush(boolean force)
         {
             // add all full pages to output buffer
             for (int partition = 0; partition < pageBuilders.length; partition++) {
                 PageBuilder partitionPageBuilder = pageBuilders[partition];
-                if (!partitionPageBuilder.isEmpty() && (force || partitionPageBuilder.isFull())) {
-                    Page pagePartition = partitionPageBuilder.build();
-                    partitionPageBuilder.reset();
-
-                    List<SerializedPage> serializedPages = splitPage(pagePartition, DEFAULT_MAX_PAGE_SIZE_IN_BYTES).stream()
-                            .map(serde::serialize)
-                            .collect(toImmutableList());
-
-                    outputBuffer.enqueue(partition, serializedPages);
-                    pagesAdded.incrementAndGet();
-                    rowsAdded.addAndGet(pagePartition.getPositionCount());
+                if (force || partitionPageBuilder.isFull()) {
+                    flushPartition(partition);
                 }
             }
         }
+
+        private void flushPartition(int partition)
+        {
+            PageBuilder partitionPageBuilder = pageBuilders[partition];
+            if (!partitionPageBuilder.isEmpty()) {
+                Page pagePartition = partitionPageBuilder.build();
+                partitionPageBuilder.reset();
+                enqueuePage(partition, pagePartition);
+            }
+        }
+
+        private void enqueuePage(int partition, Page page)
+        {
+            List<SerializedPage> serializedPages = splitPage(page, DEFAULT_MAX_PAGE_SIZE_IN_BYTES).stream()
+                    .map(serde::serialize)
+                    .collect(toImmutableList());
+
+            outputBuffer.enqueue(partition, serializedPages);
+            pagesAdded.incrementAndGet();
+            rowsAdded.addAndGet(page.getPositionCount());
+        }
     }
 
     public static class PartitionedOutputInfo
@@ -446,16 +525,19 @@ public class PartitionedOutputOperator
         private final long rowsAdded;
         private final long pagesAdded;
         private final long outputBufferPeakMemoryUsage;
+        private final List<PageCompressionStats> compressionStats;
 
         @JsonCreator
         public PartitionedOutputInfo(
                 @JsonProperty("rowsAdded") long rowsAdded,
                 @JsonProperty("pagesAdded") long pagesAdded,
-                @JsonProperty("outputBufferPeakMemoryUsage") long outputBufferPeakMemoryUsage)
+                @JsonProperty("outputBufferPeakMemoryUsage") long outputBufferPeakMemoryUsage,
+                @JsonProperty("compressionStats") List<PageCompressionStats> compressionStats)
         {
             this.rowsAdded = rowsAdded;
             this.pagesAdded = pagesAdded;
             this.outputBufferPeakMemoryUsage = outputBufferPeakMemoryUsage;
+            this.compressionStats = ImmutableList.copyOf(requireNonNull(compressionStats, "compressionStats is null"));
         }
 
         @JsonProperty
@@ -476,13 +558,20 @@ public class PartitionedOutputOperator
             return outputBufferPeakMemoryUsage;
         }
 
+        @JsonProperty
+        public List<PageCompressionStats> getCompressionStats()
+        {
+            return compressionStats;
+        }
+
         @Override
         public PartitionedOutputInfo mergeWith(PartitionedOutputInfo other)
         {
             return new PartitionedOutputInfo(
                     rowsAdded + other.rowsAdded,
                     pagesAdded + other.pagesAdded,
-                    Math.max(outputBufferPeakMemoryUsage, other.outputBufferPeakMemoryUsage));
+                    Math.max(outputBufferPeakMemoryUsage, other.outputBufferPeakMemoryUsage),
+                    mergeStats(compressionStats, other.compressionStats));
         }
 
         @Override
@@ -498,6 +587,7 @@ public class PartitionedOutputOperator
                     .add("rowsAdded", rowsAdded)
                     .add("pagesAdded", pagesAdded)
                     .add("outputBufferPeakMemoryUsage", outputBufferPeakMemoryUsage)
+                    .add("compressionStats", compressionStats)
                     .toString();
         }
     }
@@ -61,6 +61,7 @@ public class ScanFilterAndProjectOperator
     private final PageBuilder pageBuilder;
     private final CursorProcessor cursorProcessor;
     private final PageProcessor pageProcessor;
+    private final DynamicPageFilter dynamicFilter;
     private final LocalMemoryContext pageSourceMemoryContext;
     private final LocalMemoryContext pageBuilderMemoryContext;
     private final SettableFuture<?> blocked = SettableFuture.create();
@@ -82,12 +83,14 @@ public class ScanFilterAndProjectOperator
             PageSourceProvider pageSourceProvider,
             CursorProcessor cursorProcessor,
             PageProcessor pageProcessor,
+            DynamicPageFilter dynamicFilter,
             Iterable<ColumnHandle> columns,
             Iterable<Type> types,
             MergingPageOutput mergingOutput)
     {
         this.cursorProcessor = requireNonNull(cursorProcessor, "cursorProcessor is null");
         this.pageProcessor = requireNonNull(pageProcessor, "pageProcessor is null");
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.planNodeId = requireNonNull(sourceId, "sourceId is null");
         this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
@@ -281,8 +284,11 @@ public class ScanFilterAndProjectOperator
                 completedBytes = endCompletedBytes;
                 readTimeNanos = endReadTimeNanos;
 
-                PageProcessorOutput output = pageProcessor.process(operatorContext.getSession().toConnectorSession(), yieldSignal, page);
-                mergingOutput.addInput(output);
+                page = dynamicFilter.filter(page);
+                if (page.getPositionCount() > 0) {
+                    PageProcessorOutput output = pageProcessor.process(operatorContext.getSession().toConnectorSession(), yieldSignal, page);
+                    mergingOutput.addInput(output);
+                }
             }
 
             if (finishing) {
@@ -325,6 +331,7 @@ public class ScanFilterAndProjectOperator
         private final PlanNodeId planNodeId;
         private final Supplier<CursorProcessor> cursorProcessor;
         private final Supplier<PageProcessor> pageProcessor;
+        private final DynamicPageFilter dynamicFilter;
         private final PlanNodeId sourceId;
         private final PageSourceProvider pageSourceProvider;
         private final List<ColumnHandle> columns;
@@ -344,11 +351,28 @@ public class ScanFilterAndProjectOperator
                 List<Type> types,
                 DataSize minOutputPageSize,
                 int minOutputPageRowCount)
+        {
+            this(operatorId, planNodeId, sourceId, pageSourceProvider, cursorProcessor, pageProcessor, DynamicPageFilter.ALWAYS_TRUE, columns, types, minOutputPageSize, minOutputPageRowCount);
+        }
+
+        public ScanFilterAndProjectOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                Supplier<CursorProcessor> cursorProcessor,
+                Supplier<PageProcessor> pageProcessor,
+                DynamicPageFilter dynamicFilter,
+                Iterable<ColumnHandle> columns,
+                List<Type> types,
+                DataSize minOutputPageSize,
+                int minOutputPageRowCount)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
             this.cursorProcessor = requireNonNull(cursorProcessor, "cursorProcessor is null");
             this.pageProcessor = requireNonNull(pageProcessor, "pageProcessor is null");
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
             this.sourceId = requireNonNull(sourceId, "sourceId is null");
             this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
@@ -374,6 +398,7 @@ public class ScanFilterAndProjectOperator
                     pageSourceProvider,
                     cursorProcessor.get(),
                     pageProcessor.get(),
+                    dynamicFilter,
                     columns,
                     types,
                     new MergingPageOutput(types, minOutputPageSize.toBytes(), minOutputPageRowCount));
@@ -13,23 +13,39 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.operator.ChannelSet.ChannelSetBuilder;
+import com.facebook.presto.operator.SpilledChannelSet.SpilledPartition;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verify;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
+import static io.airlift.concurrent.MoreFutures.whenAnyComplete;
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
@@ -39,11 +55,22 @@ public class SetBuilderOperator
     public static class SetSupplier
     {
         private final Type type;
+        private final OptionalInt probeOperatorsCount;
         private final SettableFuture<ChannelSet> channelSetFuture = SettableFuture.create();
+        private final SettableFuture<SpilledChannelSet> spilledChannelSetFuture = SettableFuture.create();
+        private final ListenableFuture<?> setAvailable = whenAnyComplete(ImmutableList.of(channelSetFuture, spilledChannelSetFuture));
+        private final AtomicInteger closedProbeOperators = new AtomicInteger();
+        private final SettableFuture<?> probeOperatorsClosed = SettableFuture.create();
 
         public SetSupplier(Type type)
+        {
+            this(type, OptionalInt.empty());
+        }
+
+        public SetSupplier(Type type, OptionalInt probeOperatorsCount)
         {
             this.type = requireNonNull(type, "type is null");
+            this.probeOperatorsCount = requireNonNull(probeOperatorsCount, "probeOperatorsCount is null");
         }
 
         public Type getType()
@@ -51,6 +78,11 @@ public class SetBuilderOperator
             return type;
         }
 
+        public OptionalInt getProbeOperatorsCount()
+        {
+            return probeOperatorsCount;
+        }
+
         public ListenableFuture<ChannelSet> getChannelSet()
         {
             return channelSetFuture;
@@ -61,6 +93,41 @@ public class SetBuilderOperator
             boolean wasSet = channelSetFuture.set(requireNonNull(channelSet, "channelSet is null"));
             checkState(wasSet, "ChannelSet already set");
         }
+
+        public ListenableFuture<SpilledChannelSet> getSpilledChannelSet()
+        {
+            return spilledChannelSetFuture;
+        }
+
+        void setSpilledChannelSet(SpilledChannelSet spilledChannelSet)
+        {
+            boolean wasSet = spilledChannelSetFuture.set(requireNonNull(spilledChannelSet, "spilledChannelSet is null"));
+            checkState(wasSet, "SpilledChannelSet already set");
+        }
+
+        /**
+         * Completed when either the set or the spilled set is available.
+         */
+        public ListenableFuture<?> getSetAvailable()
+        {
+            return setAvailable;
+        }
+
+        void probeOperatorClosed()
+        {
+            if (probeOperatorsCount.isPresent() && closedProbeOperators.incrementAndGet() == probeOperatorsCount.getAsInt()) {
+                probeOperatorsClosed.set(null);
+            }
+        }
+
+        /**
+         * Completed when all probe operators are closed, so a spilled set no longer needs to be unspilled.
+         * Never completed if the number of probe operators is unknown.
+         */
+        ListenableFuture<?> getProbeOperatorsClosed()
+        {
+            return probeOperatorsClosed;
+        }
     }
 
     public static class SetBuilderOperatorFactory
@@ -74,6 +141,8 @@ public class SetBuilderOperator
         private final int expectedPositions;
         private boolean closed;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
 
         public SetBuilderOperatorFactory(
                 int operatorId,
@@ -83,15 +152,33 @@ public class SetBuilderOperator
                 Optional<Integer> hashChannel,
                 int expectedPositions,
                 JoinCompiler joinCompiler)
+        {
+            this(operatorId, planNodeId, type, setChannel, hashChannel, expectedPositions, joinCompiler, false, OptionalInt.empty(), unsupportedPartitioningSpillerFactory());
+        }
+
+        public SetBuilderOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                Type type,
+                int setChannel,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                OptionalInt probeOperatorsCount,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
             Preconditions.checkArgument(setChannel >= 0, "setChannel is negative");
-            this.setProvider = new SetSupplier(requireNonNull(type, "type is null"));
+            checkArgument(!spillEnabled || probeOperatorsCount.isPresent(), "the number of probe operators must be known to spill");
+            this.setProvider = new SetSupplier(requireNonNull(type, "type is null"), probeOperatorsCount);
             this.setChannel = setChannel;
             this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
             this.expectedPositions = expectedPositions;
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         public SetSupplier getSetProvider()
@@ -104,7 +191,7 @@ public class SetBuilderOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, SetBuilderOperator.class.getSimpleName());
-            return new SetBuilderOperator(operatorContext, setProvider, setChannel, hashChannel, expectedPositions, joinCompiler);
+            return new SetBuilderOperator(operatorContext, setProvider, setChannel, hashChannel, expectedPositions, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
 
         @Override
@@ -116,22 +203,90 @@ public class SetBuilderOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new SetBuilderOperatorFactory(operatorId, planNodeId, setProvider.getType(), setChannel, hashChannel, expectedPositions, joinCompiler);
+            return new SetBuilderOperatorFactory(
+                    operatorId,
+                    planNodeId,
+                    setProvider.getType(),
+                    setChannel,
+                    hashChannel,
+                    expectedPositions,
+                    joinCompiler,
+                    spillEnabled,
+                    setProvider.getProbeOperatorsCount(),
+                    partitioningSpillerFactory);
         }
     }
 
+    @VisibleForTesting
+    public enum State
+    {
+        /**
+         * Operator accepts input
+         */
+        CONSUMING_INPUT,
+
+        /**
+         * Memory revoking occurred during {@link #CONSUMING_INPUT}. Operator accepts input and spills it
+         */
+        SPILLING_INPUT,
+
+        /**
+         * ChannelSet has been built and passed on without any spill occurring
+         */
+        SET_BUILT,
+
+        /**
+         * Input has been finished and spilled, the next partition is unspilled when requested by the probe operators
+         */
+        INPUT_SPILLED,
+
+        /**
+         * Spilled partition is being unspilled
+         */
+        INPUT_UNSPILLING,
+
+        /**
+         * Spilled partition has been unspilled, ChannelSet built from it
+         */
+        INPUT_UNSPILLED_AND_BUILT,
+
+        /**
+         * No longer needed
+         */
+        CLOSED
+    }
+
+    @VisibleForTesting
+    static final int SPILL_PARTITION_COUNT = 16;
+
     private final OperatorContext operatorContext;
     private final SetSupplier setSupplier;
     private final int setChannel;
     private final Optional<Integer> hashChannel;
+    private final int expectedPositions;
+    private final JoinCompiler joinCompiler;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+    private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
 
-    private final ChannelSetBuilder channelSetBuilder;
-
-    private boolean finished;
+    private State state = State.CONSUMING_INPUT;
+    private ChannelSetBuilder channelSetBuilder;
 
     @Nullable
     private Work<?> unfinishedWork;  // The pending work for current page.
 
+    private Optional<PartitioningSpiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = NOT_BLOCKED;
+    private Optional<Runnable> finishMemoryRevoke = Optional.empty();
+    // whether the spilled values are empty or contain null decides the result for the probe rows of every partition
+    private boolean spilledEmpty = true;
+    private boolean spilledContainsNull;
+
+    private SpilledChannelSet spilledChannelSet;
+    private int unspilledPartitions;
+    private Iterator<Page> unspilledValues;
+
     public SetBuilderOperator(
             OperatorContext operatorContext,
             SetSupplier setSupplier,
@@ -139,20 +294,48 @@ public class SetBuilderOperator
             Optional<Integer> hashChannel,
             int expectedPositions,
             JoinCompiler joinCompiler)
+    {
+        this(operatorContext, setSupplier, setChannel, hashChannel, expectedPositions, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+    }
+
+    public SetBuilderOperator(
+            OperatorContext operatorContext,
+            SetSupplier setSupplier,
+            int setChannel,
+            Optional<Integer> hashChannel,
+            int expectedPositions,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.setSupplier = requireNonNull(setSupplier, "setProvider is null");
         this.setChannel = setChannel;
 
         this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.expectedPositions = expectedPositions;
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+        this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
+        checkArgument(!spillEnabled || setSupplier.getProbeOperatorsCount().isPresent(), "the number of probe operators must be known to spill");
+
+        // the set built from the input can be revoked as long as nothing has been spilled
+        this.channelSetBuilder = createChannelSetBuilder(spillEnabled ? localRevocableMemoryContext : localUserMemoryContext);
+    }
+
+    private ChannelSetBuilder createChannelSetBuilder(LocalMemoryContext memoryContext)
+    {
         // Set builder is has a single channel which goes in channel 0, if hash is present, add a hachBlock to channel 1
         Optional<Integer> channelSetHashChannel = hashChannel.isPresent() ? Optional.of(1) : Optional.empty();
-        this.channelSetBuilder = new ChannelSetBuilder(
+        return new ChannelSetBuilder(
                 setSupplier.getType(),
                 channelSetHashChannel,
                 expectedPositions,
-                requireNonNull(operatorContext, "operatorContext is null"),
-                requireNonNull(joinCompiler, "joinCompiler is null"));
+                operatorContext,
+                joinCompiler,
+                memoryContext);
     }
 
     @Override
@@ -161,53 +344,248 @@ public class SetBuilderOperator
         return operatorContext;
     }
 
+    @VisibleForTesting
+    public State getState()
+    {
+        return state;
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        switch (state) {
+            case CONSUMING_INPUT:
+            case SPILLING_INPUT:
+                return spillInProgress;
+            case INPUT_SPILLED:
+                return whenAnyComplete(ImmutableList.of(getUnspilledPartition().getUnspillingRequested(), setSupplier.getProbeOperatorsClosed()));
+            case INPUT_UNSPILLED_AND_BUILT:
+                return whenAnyComplete(ImmutableList.of(getUnspilledPartition().getDisposeRequested(), setSupplier.getProbeOperatorsClosed()));
+            default:
+                return NOT_BLOCKED;
+        }
+    }
+
     @Override
     public void finish()
     {
-        if (finished) {
+        if (finishMemoryRevoke.isPresent()) {
             return;
         }
 
+        switch (state) {
+            case CONSUMING_INPUT:
+                finishInput();
+                return;
+            case SPILLING_INPUT:
+                finishSpilledInput();
+                return;
+            case INPUT_SPILLED:
+            case INPUT_UNSPILLING:
+            case INPUT_UNSPILLED_AND_BUILT:
+                unspillPartitions();
+                return;
+            case SET_BUILT:
+            case CLOSED:
+                // no-op
+                return;
+        }
+        throw new IllegalStateException("Unhandled state: " + state);
+    }
+
+    private void finishInput()
+    {
         ChannelSet channelSet = channelSetBuilder.build();
         setSupplier.setChannelSet(channelSet);
         operatorContext.recordOutput(channelSet.getEstimatedSizeInBytes(), channelSet.size());
-        finished = true;
+        if (spillEnabled) {
+            // the set is shared with the probe operators from now on, so it can not be revoked anymore
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(channelSetBuilder.getEstimatedSize());
+        }
+        state = State.SET_BUILT;
+    }
+
+    private void finishSpilledInput()
+    {
+        if (!spillInProgress.isDone()) {
+            return;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+        spilledChannelSet = new SpilledChannelSet(setSupplier.getProbeOperatorsCount().getAsInt(), SPILL_PARTITION_COUNT, spilledEmpty, spilledContainsNull);
+        setSupplier.setSpilledChannelSet(spilledChannelSet);
+        state = State.INPUT_SPILLED;
+        unspillPartitions();
+    }
+
+    private void unspillPartitions()
+    {
+        while (true) {
+            if (setSupplier.getProbeOperatorsClosed().isDone() || unspilledPartitions == SPILL_PARTITION_COUNT) {
+                close();
+                return;
+            }
+
+            SpilledPartition partition = getUnspilledPartition();
+            if (state == State.INPUT_SPILLED) {
+                if (!partition.getUnspillingRequested().isDone()) {
+                    return;
+                }
+                channelSetBuilder = createChannelSetBuilder(localUserMemoryContext);
+                unspilledValues = spiller.get().getSpilledPages(unspilledPartitions);
+                state = State.INPUT_UNSPILLING;
+            }
+
+            if (state == State.INPUT_UNSPILLING) {
+                if (unfinishedWork != null && !processUnfinishedWork()) {
+                    return;
+                }
+                if (unspilledValues.hasNext()) {
+                    unfinishedWork = channelSetBuilder.addPage(unspilledValues.next());
+                    continue;
+                }
+                unspilledValues = null;
+                partition.setChannelSet(channelSetBuilder.build());
+                state = State.INPUT_UNSPILLED_AND_BUILT;
+            }
+
+            verify(state == State.INPUT_UNSPILLED_AND_BUILT);
+            if (!partition.getDisposeRequested().isDone()) {
+                return;
+            }
+            channelSetBuilder = null;
+            localUserMemoryContext.setBytes(0);
+            unspilledPartitions++;
+            if (unspilledPartitions == SPILL_PARTITION_COUNT) {
+                spiller.get().verifyAllPartitionsRead();
+            }
+            state = State.INPUT_SPILLED;
+        }
+    }
+
+    private SpilledPartition getUnspilledPartition()
+    {
+        return spilledChannelSet.getPartition(unspilledPartitions);
     }
 
     @Override
     public boolean isFinished()
     {
-        return finished;
+        return state == State.SET_BUILT || state == State.CLOSED;
     }
 
     @Override
     public boolean needsInput()
     {
+        if (finishMemoryRevoke.isPresent() || !spillInProgress.isDone()) {
+            return false;
+        }
+        if (state == State.SPILLING_INPUT) {
+            return true;
+        }
+
         // Since SetBuilderOperator doesn't produce any output, the getOutput()
         // method may never be called. We need to handle any unfinished work
         // before addInput() can be called again.
-        return !finished && (unfinishedWork == null || processUnfinishedWork());
+        return state == State.CONSUMING_INPUT && (unfinishedWork == null || processUnfinishedWork());
     }
 
     @Override
     public void addInput(Page page)
     {
         requireNonNull(page, "page is null");
-        checkState(!isFinished(), "Operator is already finished");
+        checkState(state == State.CONSUMING_INPUT || state == State.SPILLING_INPUT, "Operator is already finished");
 
         Block sourceBlock = page.getBlock(setChannel);
         Page sourcePage = hashChannel.isPresent() ? new Page(sourceBlock, page.getBlock(hashChannel.get())) : new Page(sourceBlock);
 
+        if (state == State.SPILLING_INPUT) {
+            checkSuccess(spillInProgress, "spilling failed");
+            spilledEmpty &= sourceBlock.getPositionCount() == 0;
+            spilledContainsNull |= containsNull(sourceBlock);
+            spillInProgress = spiller.get().partitionAndSpill(sourcePage, partition -> true).getSpillingFuture();
+            return;
+        }
+
         unfinishedWork = channelSetBuilder.addPage(sourcePage);
         processUnfinishedWork();
     }
 
+    private static boolean containsNull(Block block)
+    {
+        if (!block.mayHaveNull()) {
+            return false;
+        }
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public Page getOutput()
     {
         return null;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        checkState(!finishMemoryRevoke.isPresent(), "Memory revoke already in progress");
+        if (!spillEnabled || state != State.CONSUMING_INPUT || unfinishedWork != null) {
+            // values of a partially added page can not be spilled, the revoke is retried later
+            return NOT_BLOCKED;
+        }
+
+        spilledEmpty = channelSetBuilder.size() == 0;
+        spilledContainsNull = channelSetBuilder.containsNull();
+        spiller = Optional.of(partitioningSpillerFactory.create(
+                channelSetBuilder.getTypes(),
+                new LocalPartitionGenerator(new InterpretedHashGenerator(ImmutableList.of(setSupplier.getType()), new int[] {0}), SPILL_PARTITION_COUNT),
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.newAggregateSystemMemoryContext()));
+        spillInProgress = spiller.get().partitionAndSpill(channelSetBuilder.getValues());
+        finishMemoryRevoke = Optional.of(() -> {
+            channelSetBuilder = null;
+            localRevocableMemoryContext.setBytes(0);
+            state = State.SPILLING_INPUT;
+        });
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        checkSuccess(spillInProgress, "spilling failed");
+        finishMemoryRevoke.ifPresent(Runnable::run);
+        finishMemoryRevoke = Optional.empty();
+    }
+
+    @Override
+    public void close()
+    {
+        if (state == State.SET_BUILT) {
+            // the memory of the set is released with the operator context
+            return;
+        }
+        state = State.CLOSED;
+        channelSetBuilder = null;
+        unfinishedWork = null;
+        unspilledValues = null;
+        finishMemoryRevoke = Optional.empty();
+        try (Closer closer = Closer.create()) {
+            spiller.ifPresent(closer::register);
+            closer.register(() -> localUserMemoryContext.setBytes(0));
+            closer.register(() -> localRevocableMemoryContext.setBytes(0));
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        spiller = Optional.empty();
+    }
+
     private boolean processUnfinishedWork()
     {
         // Processes the unfinishedWork for this page by adding the data to the hash table. If this page
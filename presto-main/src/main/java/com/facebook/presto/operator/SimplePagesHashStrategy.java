@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableList;
 import org.openjdk.jol.info.ClassLayout;
 
 import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
@@ -134,6 +135,19 @@ public class SimplePagesHashStrategy
         return result;
     }
 
+    @Override
+    public void hashRows(Page page, int positionOffset, int length, long[] hashes)
+    {
+        Arrays.fill(hashes, 0, length, 0);
+        for (int i = 0; i < hashChannels.size(); i++) {
+            Type type = types.get(hashChannels.get(i));
+            Block block = page.getBlock(i);
+            for (int position = 0; position < length; position++) {
+                hashes[position] = hashes[position] * 31 + TypeUtils.hashPosition(type, block, positionOffset + position);
+            }
+        }
+    }
+
     @Override
     public boolean rowEqualsRow(int leftPosition, Page leftPage, int rightPosition, Page rightPage)
     {
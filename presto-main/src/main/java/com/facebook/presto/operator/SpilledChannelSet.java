@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The set of a semi join which has been spilled by the {@link SetBuilderOperator}.
+ * The probe operators spill their input with the same partitioning, and once all of them
+ * have finished, the set builder unspills the partitions of the set one at a time, as they
+ * are requested by the probe operators.
+ * <p>
+ * Whether the set is empty or contains null is known upfront, as these decide the result
+ * of the semi join for the probe rows of any partition.
+ */
+@ThreadSafe
+public final class SpilledChannelSet
+{
+    private final int probeOperatorsCount;
+    private final boolean empty;
+    private final boolean containsNull;
+    private final List<SpilledPartition> partitions;
+    private final SettableFuture<PartitionedConsumption<ChannelSet>> partitionedConsumption = SettableFuture.create();
+
+    @GuardedBy("this")
+    private int finishedProbeOperators;
+    @GuardedBy("this")
+    private int partitionedConsumptionParticipants;
+
+    public SpilledChannelSet(int probeOperatorsCount, int partitionsCount, boolean empty, boolean containsNull)
+    {
+        checkArgument(probeOperatorsCount > 0, "probeOperatorsCount must be positive");
+        checkArgument(partitionsCount > 0, "partitionsCount must be positive");
+        this.probeOperatorsCount = probeOperatorsCount;
+        this.empty = empty;
+        this.containsNull = containsNull;
+        this.partitions = IntStream.range(0, partitionsCount)
+                .mapToObj(partition -> new SpilledPartition())
+                .collect(toImmutableList());
+    }
+
+    public boolean isEmpty()
+    {
+        return empty;
+    }
+
+    public boolean containsNull()
+    {
+        return containsNull;
+    }
+
+    public int getPartitionsCount()
+    {
+        return partitions.size();
+    }
+
+    public SpilledPartition getPartition(int partition)
+    {
+        return partitions.get(partition);
+    }
+
+    /**
+     * Called by each probe operator once all of its input has been spilled. The partitions
+     * are consumed once all probe operators have finished or have been closed.
+     */
+    public synchronized ListenableFuture<PartitionedConsumption<ChannelSet>> finishProbeOperator()
+    {
+        partitionedConsumptionParticipants++;
+        probeOperatorDone();
+        return partitionedConsumption;
+    }
+
+    /**
+     * Called by a probe operator which is closed before it finished, e.g. under a limit.
+     * It does not take part in the consumption of the partitions.
+     */
+    public synchronized void closeProbeOperator()
+    {
+        probeOperatorDone();
+    }
+
+    @GuardedBy("this")
+    private void probeOperatorDone()
+    {
+        finishedProbeOperators++;
+        checkState(finishedProbeOperators <= probeOperatorsCount, "%s probe operators finished out of %s declared", finishedProbeOperators, probeOperatorsCount);
+        if (finishedProbeOperators == probeOperatorsCount && partitionedConsumptionParticipants > 0) {
+            // if all probe operators have been closed instead, the set builder stops unspilling on its own
+            partitionedConsumption.set(new PartitionedConsumption<>(
+                    partitionedConsumptionParticipants,
+                    IntStream.range(0, partitions.size()).boxed().collect(toImmutableList()),
+                    partition -> partitions.get(partition).requestUnspilling(),
+                    partition -> partitions.get(partition).requestDispose()));
+        }
+    }
+
+    @ThreadSafe
+    public static final class SpilledPartition
+    {
+        private final SettableFuture<?> unspillingRequested = SettableFuture.create();
+        private final SettableFuture<ChannelSet> channelSet = SettableFuture.create();
+        private final SettableFuture<?> disposeRequested = SettableFuture.create();
+
+        public ListenableFuture<?> getUnspillingRequested()
+        {
+            return unspillingRequested;
+        }
+
+        public ListenableFuture<?> getDisposeRequested()
+        {
+            return disposeRequested;
+        }
+
+        public void setChannelSet(ChannelSet channelSet)
+        {
+            boolean wasSet = this.channelSet.set(requireNonNull(channelSet, "channelSet is null"));
+            checkState(wasSet, "ChannelSet already set");
+        }
+
+        private ListenableFuture<ChannelSet> requestUnspilling()
+        {
+            unspillingRequested.set(null);
+            return channelSet;
+        }
+
+        private void requestDispose()
+        {
+            disposeRequested.set(null);
+        }
+    }
+}
@@ -49,6 +49,7 @@ public class TableScanOperator
         private final PlanNodeId sourceId;
         private final PageSourceProvider pageSourceProvider;
         private final List<ColumnHandle> columns;
+        private final DynamicPageFilter dynamicFilter;
         private boolean closed;
 
         public TableScanOperatorFactory(
@@ -56,11 +57,22 @@ public class TableScanOperator
                 PlanNodeId sourceId,
                 PageSourceProvider pageSourceProvider,
                 Iterable<ColumnHandle> columns)
+        {
+            this(operatorId, sourceId, pageSourceProvider, columns, DynamicPageFilter.ALWAYS_TRUE);
+        }
+
+        public TableScanOperatorFactory(
+                int operatorId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                Iterable<ColumnHandle> columns,
+                DynamicPageFilter dynamicFilter)
         {
             this.operatorId = operatorId;
             this.sourceId = requireNonNull(sourceId, "sourceId is null");
             this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         }
 
         @Override
@@ -78,7 +90,8 @@ public class TableScanOperator
                     operatorContext,
                     sourceId,
                     pageSourceProvider,
-                    columns);
+                    columns,
+                    dynamicFilter);
         }
 
         @Override
@@ -92,6 +105,7 @@ public class TableScanOperator
     private final PlanNodeId planNodeId;
     private final PageSourceProvider pageSourceProvider;
     private final List<ColumnHandle> columns;
+    private final DynamicPageFilter dynamicFilter;
     private final LocalMemoryContext systemMemoryContext;
     private final SettableFuture<?> blocked = SettableFuture.create();
 
@@ -108,11 +122,22 @@ public class TableScanOperator
             PlanNodeId planNodeId,
             PageSourceProvider pageSourceProvider,
             Iterable<ColumnHandle> columns)
+    {
+        this(operatorContext, planNodeId, pageSourceProvider, columns, DynamicPageFilter.ALWAYS_TRUE);
+    }
+
+    public TableScanOperator(
+            OperatorContext operatorContext,
+            PlanNodeId planNodeId,
+            PageSourceProvider pageSourceProvider,
+            Iterable<ColumnHandle> columns,
+            DynamicPageFilter dynamicFilter)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
         this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
         this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         this.systemMemoryContext = operatorContext.newLocalSystemMemoryContext(TableScanOperator.class.getSimpleName());
     }
 
@@ -251,6 +276,11 @@ public class TableScanOperator
             operatorContext.recordProcessedInput(page.getSizeInBytes(), page.getPositionCount());
             completedBytes = endCompletedBytes;
             readTimeNanos = endReadTimeNanos;
+
+            page = dynamicFilter.filter(page);
+            if (page.getPositionCount() == 0) {
+                page = null;
+            }
         }
 
         // updating system memory usage should happen after page is loaded.
@@ -23,8 +23,10 @@ import com.facebook.presto.memory.QueryContext;
 import com.facebook.presto.memory.QueryContextVisitor;
 import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.memory.context.MemoryTrackingContext;
+import com.facebook.presto.spi.predicate.Domain;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.AtomicDouble;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -38,8 +40,10 @@ import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
 import java.util.List;
+import java.util.Map;
 import java.util.OptionalInt;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
@@ -84,6 +88,8 @@ public class TaskContext
 
     private final Set<Lifespan> completedDriverGroups = newConcurrentHashSet();
 
+    private final Map<String, Domain> dynamicFilterDomains = new ConcurrentHashMap<>();
+
     private final List<PipelineContext> pipelineContexts = new CopyOnWriteArrayList<>();
 
     private final boolean perOperatorCpuTimerEnabled;
@@ -260,6 +266,19 @@ public class TaskContext
         completedDriverGroups.add(driverGroup);
     }
 
+    /**
+     * Returns the build side key domains of the completed dynamic filters of this task, by dynamic filter id.
+     */
+    public Map<String, Domain> getDynamicFilterDomains()
+    {
+        return ImmutableMap.copyOf(dynamicFilterDomains);
+    }
+
+    public void addDynamicFilterDomains(Map<String, Domain> domains)
+    {
+        dynamicFilterDomains.putAll(domains);
+    }
+
     public List<PipelineContext> getPipelineContexts()
     {
         return pipelineContexts;
@@ -21,13 +21,17 @@ import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
@@ -36,11 +40,15 @@ import java.util.function.BiPredicate;
 import java.util.stream.Stream;
 
 import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
+import static com.facebook.presto.util.MergeSortedPages.mergeSortedPages;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkPositionIndex;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterables.concat;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
 
@@ -63,6 +71,8 @@ public class WindowOperator
         private final int expectedPositions;
         private boolean closed;
         private final PagesIndex.Factory pagesIndexFactory;
+        private final boolean spillEnabled;
+        private final Optional<SpillerFactory> spillerFactory;
 
         public WindowOperatorFactory(
                 int operatorId,
@@ -77,6 +87,39 @@ public class WindowOperator
                 int preSortedChannelPrefix,
                 int expectedPositions,
                 PagesIndex.Factory pagesIndexFactory)
+        {
+            this(
+                    operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    windowFunctionDefinitions,
+                    partitionChannels,
+                    preGroupedChannels,
+                    sortChannels,
+                    sortOrder,
+                    preSortedChannelPrefix,
+                    expectedPositions,
+                    pagesIndexFactory,
+                    false,
+                    Optional.empty());
+        }
+
+        public WindowOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<WindowFunctionDefinition> windowFunctionDefinitions,
+                List<Integer> partitionChannels,
+                List<Integer> preGroupedChannels,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                int preSortedChannelPrefix,
+                int expectedPositions,
+                PagesIndex.Factory pagesIndexFactory,
+                boolean spillEnabled,
+                Optional<SpillerFactory> spillerFactory)
         {
             requireNonNull(sourceTypes, "sourceTypes is null");
             requireNonNull(planNodeId, "planNodeId is null");
@@ -104,6 +147,9 @@ public class WindowOperator
             this.sortOrder = ImmutableList.copyOf(sortOrder);
             this.preSortedChannelPrefix = preSortedChannelPrefix;
             this.expectedPositions = expectedPositions;
+            this.spillEnabled = spillEnabled;
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+            checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
         }
 
         @Override
@@ -123,7 +169,9 @@ public class WindowOperator
                     sortOrder,
                     preSortedChannelPrefix,
                     expectedPositions,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    spillEnabled,
+                    spillerFactory);
         }
 
         @Override
@@ -147,7 +195,9 @@ public class WindowOperator
                     sortOrder,
                     preSortedChannelPrefix,
                     expectedPositions,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    spillEnabled,
+                    spillerFactory);
         }
     }
 
@@ -165,8 +215,16 @@ public class WindowOperator
     private final List<Integer> orderChannels;
     private final List<SortOrder> ordering;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
+
+    private final List<Type> sourceTypes;
+    private final boolean spillEnabled;
+    private final Optional<SpillerFactory> spillerFactory;
+    private final List<Integer> spillSortChannels;
+    private final List<SortOrder> spillSortOrder;
 
     private final int[] preGroupedChannels;
+    private final int[] unGroupedPartitionChannels;
 
     private final PagesHashStrategy preGroupedPartitionHashStrategy;
     private final PagesHashStrategy unGroupedPartitionHashStrategy;
@@ -186,6 +244,19 @@ public class WindowOperator
 
     private Page pendingInput;
 
+    private Optional<Spiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Optional<Runnable> finishMemoryRevoke = Optional.empty();
+    // pre-grouped channels of the group being spilled, as the spilled rows are no longer in the pagesIndex
+    private Page spilledGroup;
+    // the rest of a complete group is being spilled, before its sorted runs are merged back
+    private boolean spillingGroup;
+
+    // merged sorted runs of the spilled group, which are loaded into the pagesIndex one partition at a time
+    private Optional<Iterator<Optional<Page>>> unspilledPages = Optional.empty();
+    private Page pendingUnspilledPage;
+    private boolean unspillingPartition;
+
     public WindowOperator(
             OperatorContext operatorContext,
             List<Type> sourceTypes,
@@ -198,6 +269,37 @@ public class WindowOperator
             int preSortedChannelPrefix,
             int expectedPositions,
             PagesIndex.Factory pagesIndexFactory)
+    {
+        this(
+                operatorContext,
+                sourceTypes,
+                outputChannels,
+                windowFunctionDefinitions,
+                partitionChannels,
+                preGroupedChannels,
+                sortChannels,
+                sortOrder,
+                preSortedChannelPrefix,
+                expectedPositions,
+                pagesIndexFactory,
+                false,
+                Optional.empty());
+    }
+
+    public WindowOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<WindowFunctionDefinition> windowFunctionDefinitions,
+            List<Integer> partitionChannels,
+            List<Integer> preGroupedChannels,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            int preSortedChannelPrefix,
+            int expectedPositions,
+            PagesIndex.Factory pagesIndexFactory,
+            boolean spillEnabled,
+            Optional<SpillerFactory> spillerFactory)
     {
         requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(outputChannels, "outputChannels is null");
@@ -211,9 +313,15 @@ public class WindowOperator
         checkArgument(sortChannels.size() == sortOrder.size(), "Must have same number of sort channels as sort orders");
         checkArgument(preSortedChannelPrefix <= sortChannels.size(), "Cannot have more pre-sorted channels than specified sorted channels");
         checkArgument(preSortedChannelPrefix == 0 || ImmutableSet.copyOf(preGroupedChannels).equals(ImmutableSet.copyOf(partitionChannels)), "preSortedChannelPrefix can only be greater than zero if all partition channels are pre-grouped");
+        requireNonNull(spillerFactory, "spillerFactory is null");
+        checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
 
         this.operatorContext = operatorContext;
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
+        this.sourceTypes = ImmutableList.copyOf(sourceTypes);
+        this.spillEnabled = spillEnabled;
+        this.spillerFactory = spillerFactory;
         this.outputChannels = Ints.toArray(outputChannels);
         this.windowFunctions = windowFunctionDefinitions.stream()
                 .map(functionDefinition -> new FramedWindowFunction(functionDefinition.createWindowFunction(), functionDefinition.getFrameInfo()))
@@ -232,6 +340,7 @@ public class WindowOperator
         List<Integer> unGroupedPartitionChannels = partitionChannels.stream()
                 .filter(channel -> !preGroupedChannels.contains(channel))
                 .collect(toImmutableList());
+        this.unGroupedPartitionChannels = Ints.toArray(unGroupedPartitionChannels);
         this.unGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(unGroupedPartitionChannels, OptionalInt.empty());
         List<Integer> preSortedChannels = sortChannels.stream()
                 .limit(preSortedChannelPrefix)
@@ -252,6 +361,17 @@ public class WindowOperator
             this.ordering = ImmutableList.copyOf(concat(nCopies(unGroupedPartitionChannels.size(), ASC_NULLS_LAST), sortOrder));
         }
 
+        if (preSortedChannelPrefix > 0) {
+            // A spilled run spans several pre-sorted groups, so it is sorted by all sort channels.
+            // The pre-sorted groups arrive in that order, hence merging the runs yields the same order as sortPagesIndexIfNecessary
+            this.spillSortChannels = ImmutableList.copyOf(sortChannels);
+            this.spillSortOrder = ImmutableList.copyOf(sortOrder);
+        }
+        else {
+            this.spillSortChannels = orderChannels;
+            this.spillSortOrder = ordering;
+        }
+
         windowInfo = new WindowInfo.DriverWindowInfoBuilder();
         operatorContext.setInfoSupplier(this::getWindowInfo);
     }
@@ -267,12 +387,26 @@ public class WindowOperator
         return operatorContext;
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (spillingGroup && !spillInProgress.isDone()) {
+            return spillInProgress;
+        }
+        return NOT_BLOCKED;
+    }
+
     @Override
     public void finish()
     {
         if (state == State.FINISHING || state == State.FINISHED) {
             return;
         }
+        if (!spillInProgress.isDone()) {
+            return;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
         if (state == State.NEEDS_INPUT) {
             // Since was waiting for more input, prepare what we have for output since we will not be getting any more input
             finishPagesIndex();
@@ -298,6 +432,7 @@ public class WindowOperator
         checkState(state == State.NEEDS_INPUT, "Operator can not take input at this time");
         requireNonNull(page, "page is null");
         checkState(pendingInput == null, "Operator already has pending input");
+        checkSuccess(spillInProgress, "spilling failed");
 
         if (page.getPositionCount() == 0) {
             return;
@@ -307,7 +442,7 @@ public class WindowOperator
         if (processPendingInput()) {
             state = State.HAS_OUTPUT;
         }
-        localUserMemoryContext.setBytes(pagesIndex.getEstimatedSize().toBytes());
+        updateMemoryUsage();
     }
 
     /**
@@ -330,7 +465,7 @@ public class WindowOperator
 
     /**
      * @return the unused section of the page, or null if fully applied.
-     * pagesIndex guaranteed to have at least one row after this method returns
+     * pagesIndex guaranteed to have at least one row after this method returns, unless the current group has been spilled
      */
     private Page updatePagesIndex(Page page)
     {
@@ -338,7 +473,7 @@ public class WindowOperator
 
         // TODO: Fix pagesHashStrategy to allow specifying channels for comparison, it currently requires us to rearrange the right side blocks in consecutive channel order
         Page preGroupedPage = rearrangePage(page, preGroupedChannels);
-        if (pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(preGroupedPartitionHashStrategy, 0, 0, preGroupedPage)) {
+        if (isCurrentGroup(preGroupedPage)) {
             // Find the position where the pre-grouped columns change
             int groupEnd = findGroupEnd(preGroupedPage, preGroupedPartitionHashStrategy, 0);
 
@@ -360,6 +495,17 @@ public class WindowOperator
         }
     }
 
+    private boolean isCurrentGroup(Page preGroupedPage)
+    {
+        if (pagesIndex.getPositionCount() > 0) {
+            return pagesIndex.positionEqualsRow(preGroupedPartitionHashStrategy, 0, 0, preGroupedPage);
+        }
+        if (spilledGroup != null) {
+            return preGroupedPartitionHashStrategy.rowEqualsRow(0, spilledGroup, 0, preGroupedPage);
+        }
+        return true;
+    }
+
     private static Page rearrangePage(Page page, int[] channels)
     {
         Block[] newBlocks = new Block[channels.length];
@@ -377,7 +523,7 @@ public class WindowOperator
         }
 
         Page page = extractOutput();
-        localUserMemoryContext.setBytes(pagesIndex.getEstimatedSize().toBytes());
+        updateMemoryUsage();
         return page;
     }
 
@@ -385,6 +531,16 @@ public class WindowOperator
     {
         // INVARIANT: pagesIndex contains the full grouped & sorted data for one or more partitions
 
+        if (spillingGroup && !finishSpillingGroup()) {
+            // the spill is exposed through isBlocked()
+            return null;
+        }
+
+        if (unspillingPartition && !unspillPartition()) {
+            // the merge of the spilled runs has yielded
+            return null;
+        }
+
         // Iterate through the positions sequentially until we have one full page
         while (!pageBuilder.isFull()) {
             if (partition == null || !partition.hasNext()) {
@@ -395,9 +551,27 @@ public class WindowOperator
                     partition = null;
                     pagesIndex.clear();
 
+                    if (unspilledPages.isPresent()) {
+                        if (!unspillPartition()) {
+                            // the merge of the spilled runs has yielded
+                            return null;
+                        }
+                        if (pagesIndex.getPositionCount() > 0) {
+                            continue;
+                        }
+                        // all partitions of the spilled group have been processed
+                        unspilledPages = Optional.empty();
+                        spiller.ifPresent(Spiller::close);
+                        spiller = Optional.empty();
+                    }
+
                     // Try to extract more partitions from the pendingInput
                     if (pendingInput != null && processPendingInput()) {
-                        partitionStart = 0;
+                        if (spillingGroup) {
+                            // the first partition of the group is unspilled once the spill has completed
+                            return null;
+                        }
+                        continue;
                     }
                     else if (state == State.FINISHING) {
                         state = State.FINISHED;
@@ -442,10 +616,173 @@ public class WindowOperator
 
     private void finishPagesIndex()
     {
+        boolean spillGroup = spiller.isPresent();
+        if (spillEnabled && !spillGroup && localRevocableMemoryContext.getBytes() > 0) {
+            // the group is about to be processed, so its memory can no longer be revoked
+            long revocableBytes = localRevocableMemoryContext.getBytes();
+            localRevocableMemoryContext.setBytes(0);
+            if (!localUserMemoryContext.trySetBytes(localUserMemoryContext.getBytes() + revocableBytes)) {
+                localRevocableMemoryContext.setBytes(revocableBytes);
+                spillGroup = true;
+            }
+        }
+
+        if (spillGroup) {
+            // the rest of the group is spilled as well, and the sorted runs are merged back one partition at a time
+            // once the spill has completed, which is awaited through isBlocked() rather than on the driver thread
+            spillToDisk();
+            spillingGroup = true;
+            return;
+        }
+
         sortPagesIndexIfNecessary();
         windowInfo.addIndex(pagesIndex);
     }
 
+    /**
+     * @return true if the spill of the current group has completed and its sorted runs are being merged, false otherwise
+     */
+    private boolean finishSpillingGroup()
+    {
+        if (!spillInProgress.isDone()) {
+            return false;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+        spillingGroup = false;
+        pagesIndex.clear();
+        updateMemoryUsage();
+        unspilledPages = Optional.of(mergeSpilledPages().yieldingIterator());
+        spilledGroup = null;
+        return true;
+    }
+
+    /**
+     * Loads the next partition of the merged spilled runs into the pagesIndex.
+     *
+     * @return false if the merge yielded before the partition was fully loaded
+     */
+    private boolean unspillPartition()
+    {
+        unspillingPartition = true;
+        Iterator<Optional<Page>> pages = unspilledPages.get();
+        while (true) {
+            if (pendingUnspilledPage == null) {
+                if (!pages.hasNext()) {
+                    break;
+                }
+                Optional<Page> page = pages.next();
+                if (!page.isPresent()) {
+                    return false;
+                }
+                pendingUnspilledPage = page.get();
+            }
+
+            Page partitionPage = rearrangePage(pendingUnspilledPage, unGroupedPartitionChannels);
+            if (pagesIndex.getPositionCount() > 0 && !pagesIndex.positionEqualsRow(unGroupedPartitionHashStrategy, 0, 0, partitionPage)) {
+                break;
+            }
+            int partitionEnd = findGroupEnd(partitionPage, unGroupedPartitionHashStrategy, 0);
+            pagesIndex.addPage(pendingUnspilledPage.getRegion(0, partitionEnd));
+            if (partitionEnd < pendingUnspilledPage.getPositionCount()) {
+                pendingUnspilledPage = pendingUnspilledPage.getRegion(partitionEnd, pendingUnspilledPage.getPositionCount() - partitionEnd);
+                break;
+            }
+            pendingUnspilledPage = null;
+        }
+
+        unspillingPartition = false;
+        if (pagesIndex.getPositionCount() > 0) {
+            windowInfo.addIndex(pagesIndex);
+        }
+        return true;
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (spillingGroup) {
+            // the memory of the group is released once its spill has completed
+            finishMemoryRevoke = Optional.of(() -> {});
+            return spillInProgress;
+        }
+        if (state != State.NEEDS_INPUT) {
+            // the buffered rows are being processed
+            verify(localRevocableMemoryContext.getBytes() == 0, "Cannot spill in state: %s", state);
+            finishMemoryRevoke = Optional.of(() -> {});
+            return immediateFuture(null);
+        }
+        return spillToDisk();
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.orElseThrow(() -> new IllegalStateException("finishMemoryRevoke called without startMemoryRevoke")).run();
+        finishMemoryRevoke = Optional.empty();
+    }
+
+    private ListenableFuture<?> spillToDisk()
+    {
+        checkSuccess(spillInProgress, "spilling failed");
+
+        if (pagesIndex.getPositionCount() == 0) {
+            finishMemoryRevoke = Optional.of(() -> {});
+            return immediateFuture(null);
+        }
+
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.get().create(
+                    sourceTypes,
+                    operatorContext.getSpillContext(),
+                    operatorContext.newAggregateSystemMemoryContext()));
+        }
+
+        if (spilledGroup == null) {
+            Block[] blocks = new Block[preGroupedChannels.length];
+            for (int i = 0; i < preGroupedChannels.length; i++) {
+                blocks[i] = pagesIndex.getSingleValueBlock(preGroupedChannels[i], 0);
+            }
+            spilledGroup = new Page(1, blocks);
+        }
+
+        // each spill writes a sorted run of the current pre-grouped group
+        pagesIndex.sort(spillSortChannels, spillSortOrder);
+        spillInProgress = spiller.get().spill(pagesIndex.getSortedPages());
+        finishMemoryRevoke = Optional.of(() -> {
+            pagesIndex.clear();
+            updateMemoryUsage();
+        });
+
+        return spillInProgress;
+    }
+
+    private WorkProcessor<Page> mergeSpilledPages()
+    {
+        List<WorkProcessor<Page>> spilledPages = spiller.get().getSpills().stream()
+                .map(WorkProcessor::fromIterator)
+                .collect(toImmutableList());
+
+        return mergeSortedPages(
+                spilledPages,
+                new SimplePageWithPositionComparator(sourceTypes, spillSortChannels, spillSortOrder),
+                sourceTypes,
+                operatorContext.aggregateUserMemoryContext(),
+                operatorContext.getDriverContext().getYieldSignal());
+    }
+
+    private void updateMemoryUsage()
+    {
+        long bytes = pagesIndex.getEstimatedSize().toBytes();
+        if (spillEnabled && (state == State.NEEDS_INPUT || spillingGroup) && pagesIndex.getPositionCount() > 0) {
+            localUserMemoryContext.setBytes(0);
+            localRevocableMemoryContext.setBytes(bytes);
+        }
+        else {
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(bytes);
+        }
+    }
+
     // Assumes input grouped on relevant pagesHashStrategy columns
     private static int findGroupEnd(Page page, PagesHashStrategy pagesHashStrategy, int startPosition)
     {
@@ -497,5 +834,7 @@ public class WindowOperator
     public void close()
     {
         driverWindowInfo.set(Optional.of(windowInfo.build()));
+        spiller.ifPresent(Spiller::close);
+        localRevocableMemoryContext.setBytes(0);
     }
 }
@@ -33,6 +33,24 @@ public interface Accumulator
 
     void addInput(WindowIndex index, List<Integer> channels, int startPosition, int endPosition);
 
+    /**
+     * Returns true if {@link #removeInput(WindowIndex, List, int, int)} is supported.
+     */
+    default boolean isRemoveInputSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Removes rows previously added with {@link #addInput(WindowIndex, List, int, int)}.
+     * Once every row with non-null arguments has been removed, the accumulator
+     * must not be used anymore, as it may not be in its initial state.
+     */
+    default void removeInput(WindowIndex index, List<Integer> channels, int startPosition, int endPosition)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     void addIntermediate(Block block);
 
     void evaluateIntermediate(BlockBuilder blockBuilder);
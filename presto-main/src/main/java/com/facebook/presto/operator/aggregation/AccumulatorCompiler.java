@@ -141,7 +141,11 @@ public class AccumulatorCompiler
 
         // Generate methods
         generateAddInput(definition, stateFileds, inputChannelsField, maskChannelField, metadata.getInputMetadata(), metadata.getInputFunction(), callSiteBinder, grouped);
-        generateAddInputWindowIndex(definition, stateFileds, metadata.getInputMetadata(), metadata.getInputFunction(), callSiteBinder);
+        generateAddInputWindowIndex(definition, "addInput", stateFileds, metadata.getInputMetadata(), metadata.getInputFunction(), callSiteBinder);
+        if (!grouped && metadata.getRemoveInputFunction().isPresent()) {
+            generateAddInputWindowIndex(definition, "removeInput", stateFileds, metadata.getInputMetadata(), metadata.getRemoveInputFunction().get(), callSiteBinder);
+            generateIsRemoveInputSupported(definition);
+        }
         generateGetEstimatedSize(definition, stateFileds);
 
         generateGetIntermediateType(
@@ -286,6 +290,7 @@ public class AccumulatorCompiler
 
     private static void generateAddInputWindowIndex(
             ClassDefinition definition,
+            String methodName,
             List<FieldDefinition> stateField,
             List<ParameterMetadata> parameterMetadatas,
             MethodHandle inputFunction,
@@ -298,7 +303,7 @@ public class AccumulatorCompiler
         Parameter startPosition = arg("startPosition", int.class);
         Parameter endPosition = arg("endPosition", int.class);
 
-        MethodDefinition method = definition.declareMethod(a(PUBLIC), "addInput", type(void.class), ImmutableList.of(index, channels, startPosition, endPosition));
+        MethodDefinition method = definition.declareMethod(a(PUBLIC), methodName, type(void.class), ImmutableList.of(index, channels, startPosition, endPosition));
         Scope scope = method.getScope();
 
         Variable position = scope.declareVariable(int.class, "position");
@@ -329,6 +334,14 @@ public class AccumulatorCompiler
                 .ret();
     }
 
+    private static void generateIsRemoveInputSupported(ClassDefinition definition)
+    {
+        MethodDefinition method = definition.declareMethod(a(PUBLIC), "isRemoveInputSupported", type(boolean.class));
+        method.getBody()
+                .push(true)
+                .retBoolean();
+    }
+
     private static BytecodeExpression anyParametersAreNull(
             List<ParameterMetadata> parameterMetadatas,
             Variable index,
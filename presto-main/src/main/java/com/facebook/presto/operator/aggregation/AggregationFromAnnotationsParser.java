@@ -21,6 +21,7 @@ import com.facebook.presto.spi.function.AggregationStateSerializerFactory;
 import com.facebook.presto.spi.function.CombineFunction;
 import com.facebook.presto.spi.function.InputFunction;
 import com.facebook.presto.spi.function.OutputFunction;
+import com.facebook.presto.spi.function.RemoveInputFunction;
 import com.facebook.presto.spi.type.TypeSignature;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
@@ -77,7 +78,7 @@ public class AggregationFromAnnotationsParser
             for (Method outputFunction : getOutputFunctions(aggregationDefinition, stateClass)) {
                 for (Method inputFunction : getInputFunctions(aggregationDefinition, stateClass)) {
                     for (AggregationHeader header : parseHeaders(aggregationDefinition, outputFunction)) {
-                        AggregationImplementation onlyImplementation = parseImplementation(aggregationDefinition, header, stateClass, inputFunction, outputFunction, combineFunction, aggregationStateSerializerFactory);
+                        AggregationImplementation onlyImplementation = parseImplementation(aggregationDefinition, header, stateClass, inputFunction, getRemoveInputFunction(aggregationDefinition, inputFunction), outputFunction, combineFunction, aggregationStateSerializerFactory);
                         ParametricImplementationsGroup<AggregationImplementation> implementations = ParametricImplementationsGroup.of(onlyImplementation);
                         builder.add(new ParametricAggregation(implementations.getSignature(), header, implementations));
                     }
@@ -98,7 +99,7 @@ public class AggregationFromAnnotationsParser
             Optional<Method> aggregationStateSerializerFactory = getAggregationStateSerializerFactory(aggregationDefinition, stateClass);
             Method outputFunction = getOnlyElement(getOutputFunctions(aggregationDefinition, stateClass));
             for (Method inputFunction : getInputFunctions(aggregationDefinition, stateClass)) {
-                AggregationImplementation implementation = parseImplementation(aggregationDefinition, header, stateClass, inputFunction, outputFunction, combineFunction, aggregationStateSerializerFactory);
+                AggregationImplementation implementation = parseImplementation(aggregationDefinition, header, stateClass, inputFunction, getRemoveInputFunction(aggregationDefinition, inputFunction), outputFunction, combineFunction, aggregationStateSerializerFactory);
                 implementationsBuilder.addImplementation(implementation);
             }
         }
@@ -205,6 +206,22 @@ public class AggregationFromAnnotationsParser
         return inputFunctions;
     }
 
+    private static Optional<Method> getRemoveInputFunction(Class<?> clazz, Method inputFunction)
+    {
+        // Only include methods that match the parameters of this input function
+        List<Method> removeInputFunctions = FunctionsParserHelper.findPublicStaticMethodsWithAnnotation(clazz, RemoveInputFunction.class).stream()
+                .filter(method -> Arrays.equals(method.getParameterTypes(), inputFunction.getParameterTypes()))
+                .filter(method -> Arrays.deepEquals(method.getParameterAnnotations(), inputFunction.getParameterAnnotations()))
+                .collect(toImmutableList());
+
+        if (removeInputFunctions.isEmpty()) {
+            return Optional.empty();
+        }
+
+        checkArgument(removeInputFunctions.size() == 1, String.format("Expect at most 1 @RemoveInputFunction for the @InputFunction %s, found %s in %s", inputFunction.getName(), removeInputFunctions.size(), clazz.toGenericString()));
+        return Optional.of(getOnlyElement(removeInputFunctions));
+    }
+
     private static Set<Class<?>> getStateClasses(Class<?> clazz)
     {
         ImmutableSet.Builder<Class<?>> builder = ImmutableSet.builder();
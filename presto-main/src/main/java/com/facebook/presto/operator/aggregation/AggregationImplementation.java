@@ -33,6 +33,7 @@ import com.facebook.presto.spi.function.SqlType;
 import com.facebook.presto.spi.function.TypeParameter;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.spi.type.TypeSignature;
+import com.facebook.presto.util.Reflection;
 import com.google.common.collect.ImmutableList;
 
 import java.lang.annotation.Annotation;
@@ -93,6 +94,7 @@ public class AggregationImplementation
     private final Class<?> definitionClass;
     private final Class<?> stateClass;
     private final MethodHandle inputFunction;
+    private final Optional<MethodHandle> removeInputFunction;
     private final MethodHandle outputFunction;
     private final MethodHandle combineFunction;
     private final Optional<MethodHandle> stateSerializerFactory;
@@ -108,6 +110,7 @@ public class AggregationImplementation
             Class<?> definitionClass,
             Class<?> stateClass,
             MethodHandle inputFunction,
+            Optional<MethodHandle> removeInputFunction,
             MethodHandle outputFunction,
             MethodHandle combineFunction,
             Optional<MethodHandle> stateSerializerFactory,
@@ -122,6 +125,7 @@ public class AggregationImplementation
         this.definitionClass = requireNonNull(definitionClass, "definition class cannot be null");
         this.stateClass = requireNonNull(stateClass, "stateClass cannot be null");
         this.inputFunction = requireNonNull(inputFunction, "inputFunction cannot be null");
+        this.removeInputFunction = requireNonNull(removeInputFunction, "removeInputFunction cannot be null");
         this.outputFunction = requireNonNull(outputFunction, "outputFunction cannot be null");
         this.combineFunction = requireNonNull(combineFunction, "combineFunction cannot be null");
         this.stateSerializerFactory = requireNonNull(stateSerializerFactory, "stateSerializerFactory cannot be null");
@@ -160,6 +164,11 @@ public class AggregationImplementation
         return inputFunction;
     }
 
+    public Optional<MethodHandle> getRemoveInputFunction()
+    {
+        return removeInputFunction;
+    }
+
     public MethodHandle getOutputFunction()
     {
         return outputFunction;
@@ -227,6 +236,7 @@ public class AggregationImplementation
         private final Class<?> aggregationDefinition;
         private final Class<?> stateClass;
         private final MethodHandle inputHandle;
+        private final Optional<MethodHandle> removeInputHandle;
         private final MethodHandle outputHandle;
         private final MethodHandle combineHandle;
         private final Optional<MethodHandle> stateSerializerFactoryHandle;
@@ -251,6 +261,7 @@ public class AggregationImplementation
                 AggregationHeader header,
                 Class<?> stateClass,
                 Method inputFunction,
+                Optional<Method> removeInputFunction,
                 Method outputFunction,
                 Method combineFunction,
                 Optional<Method> stateSerializerFactoryFunction)
@@ -298,6 +309,8 @@ public class AggregationImplementation
             }
 
             inputHandle = methodHandle(inputFunction);
+            // the remove input function has the same parameters, and therefore the same dependencies, as the input function
+            removeInputHandle = removeInputFunction.map(Reflection::methodHandle);
             combineHandle = methodHandle(combineFunction);
             outputHandle = methodHandle(outputFunction);
         }
@@ -317,6 +330,7 @@ public class AggregationImplementation
                     aggregationDefinition,
                     stateClass,
                     inputHandle,
+                    removeInputHandle,
                     outputHandle,
                     combineHandle,
                     stateSerializerFactoryHandle,
@@ -333,11 +347,12 @@ public class AggregationImplementation
                 AggregationHeader header,
                 Class<?> stateClass,
                 Method inputFunction,
+                Optional<Method> removeInputFunction,
                 Method outputFunction,
                 Method combineFunction,
                 Optional<Method> stateSerializerFactoryFunction)
         {
-            return new Parser(aggregationDefinition, header, stateClass, inputFunction, outputFunction, combineFunction, stateSerializerFactoryFunction).get();
+            return new Parser(aggregationDefinition, header, stateClass, inputFunction, removeInputFunction, outputFunction, combineFunction, stateSerializerFactoryFunction).get();
         }
 
         private static List<ParameterType> parseParameterMetadataTypes(Method method)
@@ -25,6 +25,7 @@ import io.airlift.slice.Slice;
 import java.lang.invoke.MethodHandle;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import static com.facebook.presto.operator.aggregation.AggregationMetadata.ParameterMetadata.ParameterType.BLOCK_INDEX;
@@ -43,6 +44,7 @@ public class AggregationMetadata
     private final String name;
     private final List<ParameterMetadata> inputMetadata;
     private final MethodHandle inputFunction;
+    private final Optional<MethodHandle> removeInputFunction;
     private final MethodHandle combineFunction;
     private final MethodHandle outputFunction;
     private final List<AccumulatorStateDescriptor> accumulatorStateDescriptors;
@@ -56,16 +58,31 @@ public class AggregationMetadata
             MethodHandle outputFunction,
             List<AccumulatorStateDescriptor> accumulatorStateDescriptors,
             Type outputType)
+    {
+        this(name, inputMetadata, inputFunction, Optional.empty(), combineFunction, outputFunction, accumulatorStateDescriptors, outputType);
+    }
+
+    public AggregationMetadata(
+            String name,
+            List<ParameterMetadata> inputMetadata,
+            MethodHandle inputFunction,
+            Optional<MethodHandle> removeInputFunction,
+            MethodHandle combineFunction,
+            MethodHandle outputFunction,
+            List<AccumulatorStateDescriptor> accumulatorStateDescriptors,
+            Type outputType)
     {
         this.outputType = requireNonNull(outputType);
         this.inputMetadata = ImmutableList.copyOf(requireNonNull(inputMetadata, "inputMetadata is null"));
         this.name = requireNonNull(name, "name is null");
         this.inputFunction = requireNonNull(inputFunction, "inputFunction is null");
+        this.removeInputFunction = requireNonNull(removeInputFunction, "removeInputFunction is null");
         this.combineFunction = requireNonNull(combineFunction, "combineFunction is null");
         this.outputFunction = requireNonNull(outputFunction, "outputFunction is null");
         this.accumulatorStateDescriptors = requireNonNull(accumulatorStateDescriptors, "accumulatorStateDescriptors is null");
 
         verifyInputFunctionSignature(inputFunction, inputMetadata, accumulatorStateDescriptors);
+        removeInputFunction.ifPresent(function -> verifyRemoveInputFunction(function, inputFunction, inputMetadata));
         verifyCombineFunction(combineFunction, accumulatorStateDescriptors);
         verifyExactOutputFunction(outputFunction, accumulatorStateDescriptors);
     }
@@ -90,6 +107,11 @@ public class AggregationMetadata
         return inputFunction;
     }
 
+    public Optional<MethodHandle> getRemoveInputFunction()
+    {
+        return removeInputFunction;
+    }
+
     public MethodHandle getCombineFunction()
     {
         return combineFunction;
@@ -143,6 +165,13 @@ public class AggregationMetadata
         checkArgument(stateIndex == stateDescriptors.size(), String.format("Input function only has %d states, expected: %d.", stateIndex, stateDescriptors.size()));
     }
 
+    private static void verifyRemoveInputFunction(MethodHandle method, MethodHandle inputFunction, List<ParameterMetadata> parameterMetadatas)
+    {
+        checkArgument(method.type().equals(inputFunction.type()), "Remove input function must have the same parameters as the input function");
+        // rows with null inputs are skipped, so that the rows added and removed match
+        checkArgument(parameterMetadatas.stream().noneMatch(metadata -> metadata.getParameterType() == NULLABLE_BLOCK_INPUT_CHANNEL), "Remove input function does not support nullable inputs");
+    }
+
     private static void verifyCombineFunction(MethodHandle method, List<AccumulatorStateDescriptor> stateDescriptors)
     {
         Class<?>[] parameterTypes = method.type().parameterArray();
@@ -20,6 +20,7 @@ import com.facebook.presto.spi.function.AggregationState;
 import com.facebook.presto.spi.function.CombineFunction;
 import com.facebook.presto.spi.function.InputFunction;
 import com.facebook.presto.spi.function.OutputFunction;
+import com.facebook.presto.spi.function.RemoveInputFunction;
 import com.facebook.presto.spi.function.SqlType;
 import com.facebook.presto.spi.type.BigintType;
 import com.facebook.presto.spi.type.StandardTypes;
@@ -37,6 +38,12 @@ public final class LongSumAggregation
         state.setLong(BigintOperators.add(state.getLong(), value));
     }
 
+    @RemoveInputFunction
+    public static void removeInput(@AggregationState NullableLongState state, @SqlType(StandardTypes.BIGINT) long value)
+    {
+        state.setLong(BigintOperators.subtract(state.getLong(), value));
+    }
+
     @CombineFunction
     public static void combine(@AggregationState NullableLongState state, @AggregationState NullableLongState otherState)
     {
@@ -15,10 +15,13 @@ package com.facebook.presto.operator.aggregation.builder;
 
 import com.facebook.presto.array.IntBigArray;
 import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.AggregationTopN;
 import com.facebook.presto.operator.GroupByHash;
 import com.facebook.presto.operator.GroupByIdBlock;
 import com.facebook.presto.operator.HashCollisionsCounter;
 import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.PageWithPositionComparator;
+import com.facebook.presto.operator.SimplePageWithPositionComparator;
 import com.facebook.presto.operator.TransformWork;
 import com.facebook.presto.operator.UpdateMemory;
 import com.facebook.presto.operator.Work;
@@ -28,6 +31,7 @@ import com.facebook.presto.operator.aggregation.AccumulatorFactory;
 import com.facebook.presto.operator.aggregation.GroupedAccumulator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinCompiler;
@@ -38,7 +42,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
 import it.unimi.dsi.fastutil.ints.AbstractIntIterator;
+import it.unimi.dsi.fastutil.ints.IntHeapPriorityQueue;
 import it.unimi.dsi.fastutil.ints.IntIterator;
 import it.unimi.dsi.fastutil.ints.IntIterators;
 
@@ -46,16 +52,21 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.SystemSessionProperties.isDictionaryAggregationEnabled;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.slice.SizeOf.sizeOfIntArray;
 import static java.util.Objects.requireNonNull;
 
 public class InMemoryHashAggregationBuilder
         implements HashAggregationBuilder
 {
+    private static final int TOP_N_MEMORY_UPDATE_INTERVAL = 1024;
+
     private final GroupByHash groupByHash;
     private final List<Aggregator> aggregators;
     private final OperatorContext operatorContext;
@@ -259,6 +270,18 @@ public class InMemoryHashAggregationBuilder
         return buildResult(consecutiveGroupIds());
     }
 
+    /**
+     * Builds the result for the top groups only. The sort channels refer to the result layout,
+     * and are the only values evaluated for every group.
+     */
+    public WorkProcessor<Page> buildTopNResult(AggregationTopN topN)
+    {
+        for (Aggregator aggregator : aggregators) {
+            aggregator.prepareFinal();
+        }
+        return buildResult(topNGroupIds(topN));
+    }
+
     public WorkProcessor<Page> buildHashSortedResult()
     {
         return buildResult(hashSortedGroupIds());
@@ -349,6 +372,91 @@ public class InMemoryHashAggregationBuilder
         }
     }
 
+    /**
+     * Selects the top groups with a heap over the sort values of all groups. The sort values are
+     * reserved in the memory context of the operator on top of the groups, until the top groups are known.
+     */
+    private IntIterator topNGroupIds(AggregationTopN topN)
+    {
+        int groupCount = groupByHash.getGroupCount();
+        List<Type> types = buildTypes();
+        int keyChannels = groupByHash.getTypes().size();
+        List<Integer> sortChannels = topN.getSortChannels();
+        long sortValuesSize = 0;
+
+        Page keys = null;
+        if (sortChannels.stream().anyMatch(channel -> channel < keyChannels)) {
+            PageBuilder keysBuilder = new PageBuilder(groupCount, groupByHash.getTypes());
+            for (int groupId = 0; groupId < groupCount; groupId++) {
+                groupByHash.appendValuesTo(groupId, keysBuilder, 0);
+                keysBuilder.declarePosition();
+                if (groupId % TOP_N_MEMORY_UPDATE_INTERVAL == 0) {
+                    updateMemory(getSizeInMemory() + keysBuilder.getRetainedSizeInBytes());
+                }
+            }
+            keys = keysBuilder.build();
+            sortValuesSize += keys.getRetainedSizeInBytes();
+            updateMemory(getSizeInMemory() + sortValuesSize);
+        }
+
+        Block[] sortBlocks = new Block[sortChannels.size()];
+        ImmutableList.Builder<Type> sortTypes = ImmutableList.builder();
+        for (int i = 0; i < sortChannels.size(); i++) {
+            int channel = sortChannels.get(i);
+            sortTypes.add(types.get(channel));
+            if (channel < keyChannels) {
+                sortBlocks[i] = keys.getBlock(channel);
+            }
+            else {
+                Aggregator aggregator = aggregators.get(channel - keyChannels);
+                BlockBuilder blockBuilder = aggregator.getType().createBlockBuilder(null, groupCount);
+                for (int groupId = 0; groupId < groupCount; groupId++) {
+                    aggregator.evaluate(groupId, blockBuilder);
+                    if (groupId % TOP_N_MEMORY_UPDATE_INTERVAL == 0) {
+                        updateMemory(getSizeInMemory() + sortValuesSize + blockBuilder.getRetainedSizeInBytes());
+                    }
+                }
+                sortBlocks[i] = blockBuilder.build();
+                sortValuesSize += sortBlocks[i].getRetainedSizeInBytes();
+                updateMemory(getSizeInMemory() + sortValuesSize);
+            }
+        }
+        Page sortValues = new Page(groupCount, sortBlocks);
+        PageWithPositionComparator comparator = new SimplePageWithPositionComparator(
+                sortTypes.build(),
+                IntStream.range(0, sortChannels.size()).boxed().collect(toImmutableList()),
+                topN.getSortOrders());
+
+        // the head of the heap is the last of the top groups found so far
+        int count = Math.min(topN.getCount(), groupCount);
+        updateMemory(getSizeInMemory() + sortValuesSize + sizeOfIntArray(count));
+        IntHeapPriorityQueue heap = new IntHeapPriorityQueue(count, new AbstractIntComparator()
+        {
+            @Override
+            public int compare(int left, int right)
+            {
+                return comparator.compareTo(sortValues, right, sortValues, left);
+            }
+        });
+        for (int groupId = 0; groupId < groupCount; groupId++) {
+            if (heap.size() < count) {
+                heap.enqueue(groupId);
+            }
+            else if (comparator.compareTo(sortValues, groupId, sortValues, heap.firstInt()) < 0) {
+                heap.dequeueInt();
+                heap.enqueue(groupId);
+            }
+        }
+
+        int[] groupIds = new int[heap.size()];
+        for (int i = groupIds.length - 1; i >= 0; i--) {
+            groupIds[i] = heap.dequeueInt();
+        }
+        // the sort values are no longer referenced
+        updateMemory(getSizeInMemory());
+        return IntIterators.wrap(groupIds);
+    }
+
     private IntIterator consecutiveGroupIds()
     {
         return IntIterators.fromTo(0, groupByHash.getGroupCount());
@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation.builder;
+
+import com.facebook.presto.operator.CompletedWork;
+import com.facebook.presto.operator.GroupByIdBlock;
+import com.facebook.presto.operator.HashCollisionsCounter;
+import com.facebook.presto.operator.Work;
+import com.facebook.presto.operator.WorkProcessor;
+import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.operator.aggregation.GroupedAccumulator;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.LongArrayBlock;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Partial aggregation which does not aggregate: every input row is its own group, and is
+ * output with the intermediate state of the aggregations computed from that row alone.
+ * The output is laid out like the output of {@link InMemoryHashAggregationBuilder}.
+ * It is used once partial aggregation turned out not to reduce the number of rows.
+ */
+public class SkipAggregationBuilder
+        implements HashAggregationBuilder
+{
+    private final List<Integer> groupByChannels;
+    private final Optional<Integer> hashChannel;
+    private final List<AccumulatorFactory> accumulatorFactories;
+
+    @Nullable
+    private Page currentPage;
+
+    public SkipAggregationBuilder(
+            List<Integer> groupByChannels,
+            Optional<Integer> hashChannel,
+            List<AccumulatorFactory> accumulatorFactories)
+    {
+        this.groupByChannels = ImmutableList.copyOf(requireNonNull(groupByChannels, "groupByChannels is null"));
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.accumulatorFactories = ImmutableList.copyOf(requireNonNull(accumulatorFactories, "accumulatorFactories is null"));
+    }
+
+    @Override
+    public Work<?> processPage(Page page)
+    {
+        checkArgument(currentPage == null, "previous page has not been output yet");
+        currentPage = page;
+        return new CompletedWork<>(page);
+    }
+
+    @Override
+    public WorkProcessor<Page> buildResult()
+    {
+        if (currentPage == null) {
+            return WorkProcessor.fromIterable(ImmutableList.of());
+        }
+        Page result = convertToIntermediate(currentPage);
+        currentPage = null;
+        return WorkProcessor.fromIterable(ImmutableList.of(result));
+    }
+
+    @Override
+    public boolean isFull()
+    {
+        // output every page as soon as it is added
+        return currentPage != null;
+    }
+
+    @Override
+    public void updateMemory()
+    {
+        // pages are not retained
+    }
+
+    @Override
+    public void recordHashCollisions(HashCollisionsCounter hashCollisionsCounter)
+    {
+        // no hash table is built
+    }
+
+    @Override
+    public void close()
+    {
+        currentPage = null;
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        throw new UnsupportedOperationException("startMemoryRevoke not supported for SkipAggregationBuilder");
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        throw new UnsupportedOperationException("finishMemoryRevoke not supported for SkipAggregationBuilder");
+    }
+
+    private Page convertToIntermediate(Page page)
+    {
+        int positionCount = page.getPositionCount();
+        Block[] blocks = new Block[groupByChannels.size() + (hashChannel.isPresent() ? 1 : 0) + accumulatorFactories.size()];
+        int channel = 0;
+        for (int groupByChannel : groupByChannels) {
+            blocks[channel++] = page.getBlock(groupByChannel);
+        }
+        if (hashChannel.isPresent()) {
+            blocks[channel++] = page.getBlock(hashChannel.get());
+        }
+
+        GroupByIdBlock groupIds = createConsecutiveGroupIds(positionCount);
+        for (AccumulatorFactory accumulatorFactory : accumulatorFactories) {
+            GroupedAccumulator accumulator = accumulatorFactory.createGroupedAccumulator();
+            accumulator.addInput(groupIds, page);
+            accumulator.prepareFinal();
+            BlockBuilder output = accumulator.getIntermediateType().createBlockBuilder(null, positionCount);
+            for (int groupId = 0; groupId < positionCount; groupId++) {
+                accumulator.evaluateIntermediate(groupId, output);
+            }
+            blocks[channel++] = output.build();
+        }
+        return new Page(positionCount, blocks);
+    }
+
+    private static GroupByIdBlock createConsecutiveGroupIds(int positionCount)
+    {
+        long[] groupIds = new long[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            groupIds[position] = position;
+        }
+        return new GroupByIdBlock(positionCount, new LongArrayBlock(positionCount, Optional.empty(), groupIds));
+    }
+}
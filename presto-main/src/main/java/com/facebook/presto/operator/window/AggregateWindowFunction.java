@@ -20,6 +20,8 @@ import com.facebook.presto.operator.aggregation.InternalAggregationFunction;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.function.WindowFunction;
 import com.facebook.presto.spi.function.WindowIndex;
+import com.facebook.presto.spi.type.FixedWidthType;
+import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
@@ -27,27 +29,55 @@ import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Evaluates an aggregation over the window frame of each row.
+ * <p>
+ * When the frame start moves forward, the rows leaving the frame are removed
+ * from the accumulator if the aggregation supports it, making a sliding frame
+ * linear in the partition size. Otherwise, large sliding frames are aggregated
+ * with a {@link WindowSegmentTree}, built once per partition, instead of
+ * aggregating the whole frame again for every row.
+ */
 public class AggregateWindowFunction
         implements WindowFunction
 {
+    // smaller frames are cheaper to aggregate again than to look up in the segment tree
+    private static final int MIN_SEGMENT_TREE_FRAME_SIZE = 32;
+
     private final List<Integer> argumentChannels;
     private final AccumulatorFactory accumulatorFactory;
+    private final boolean removeInputSupported;
+    private final Optional<Type> segmentTreeIntermediateType;
 
     private WindowIndex windowIndex;
     private Accumulator accumulator;
     private int currentStart;
     private int currentEnd;
+    // number of rows with non-null arguments in the accumulator, tracked only if rows can be removed
+    private int currentInputRows;
+    private WindowSegmentTree segmentTree;
 
     private AggregateWindowFunction(InternalAggregationFunction function, List<Integer> argumentChannels)
     {
         this.argumentChannels = ImmutableList.copyOf(argumentChannels);
         this.accumulatorFactory = function.bind(createArgs(function), Optional.empty());
+        Accumulator accumulator = accumulatorFactory.createAccumulator();
+        this.removeInputSupported = accumulator.isRemoveInputSupported();
+        // the segment tree keeps an intermediate state for every few rows, which is only cheap for fixed width states
+        Type intermediateType = accumulator.getIntermediateType();
+        if (!removeInputSupported && intermediateType instanceof FixedWidthType) {
+            this.segmentTreeIntermediateType = Optional.of(intermediateType);
+        }
+        else {
+            this.segmentTreeIntermediateType = Optional.empty();
+        }
     }
 
     @Override
     public void reset(WindowIndex windowIndex)
     {
         this.windowIndex = windowIndex;
+        this.segmentTree = null;
         resetAccumulator();
     }
 
@@ -63,6 +93,22 @@ public class AggregateWindowFunction
             accumulate(currentEnd + 1, frameEnd);
             currentEnd = frameEnd;
         }
+        else if (removeInputSupported && (frameStart > currentStart) && (frameStart <= currentEnd) && (frameEnd >= currentEnd)) {
+            // sliding frame
+            remove(currentStart, frameStart - 1);
+            accumulate(currentEnd + 1, frameEnd);
+            currentStart = frameStart;
+            currentEnd = frameEnd;
+        }
+        else if (segmentTreeIntermediateType.isPresent() && (frameEnd - frameStart + 1 >= MIN_SEGMENT_TREE_FRAME_SIZE)) {
+            // different large frame
+            if (segmentTree == null) {
+                segmentTree = new WindowSegmentTree(accumulatorFactory, segmentTreeIntermediateType.get(), windowIndex, argumentChannels);
+            }
+            accumulator = segmentTree.aggregate(frameStart, frameEnd);
+            currentStart = frameStart;
+            currentEnd = frameEnd;
+        }
         else {
             // different frame
             resetAccumulator();
@@ -77,6 +123,40 @@ public class AggregateWindowFunction
     private void accumulate(int start, int end)
     {
         accumulator.addInput(windowIndex, argumentChannels, start, end);
+        if (removeInputSupported) {
+            currentInputRows += countInputRows(start, end);
+        }
+    }
+
+    private void remove(int start, int end)
+    {
+        accumulator.removeInput(windowIndex, argumentChannels, start, end);
+        currentInputRows -= countInputRows(start, end);
+        if (currentInputRows == 0) {
+            // the state may differ from the initial state, e.g. a sum is not null anymore
+            accumulator = accumulatorFactory.createAccumulator();
+        }
+    }
+
+    private int countInputRows(int start, int end)
+    {
+        int count = 0;
+        for (int position = start; position <= end; position++) {
+            if (!anyArgumentIsNull(position)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean anyArgumentIsNull(int position)
+    {
+        for (int channel : argumentChannels) {
+            if (windowIndex.isNull(channel, position)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private void resetAccumulator()
@@ -85,6 +165,7 @@ public class AggregateWindowFunction
             accumulator = accumulatorFactory.createAccumulator();
             currentStart = -1;
             currentEnd = -1;
+            currentInputRows = 0;
         }
     }
 
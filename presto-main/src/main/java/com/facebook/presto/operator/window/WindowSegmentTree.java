@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.window;
+
+import com.facebook.presto.operator.aggregation.Accumulator;
+import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.function.WindowIndex;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Tree of the intermediate aggregation states of a window partition, used to
+ * aggregate arbitrary frames in logarithmic time when the aggregation can not
+ * remove rows leaving the frame.
+ * <p>
+ * Each node of the first level aggregates {@code FANOUT} consecutive rows, and
+ * each node of the higher levels combines {@code FANOUT} nodes of the level below,
+ * as described in "Efficient Processing of Window Functions in Analytical SQL Queries"
+ * by Leis et al.
+ */
+final class WindowSegmentTree
+{
+    private static final int FANOUT = 16;
+
+    private final AccumulatorFactory accumulatorFactory;
+    private final WindowIndex windowIndex;
+    private final List<Integer> argumentChannels;
+    // levels.get(i) holds the intermediate states of the nodes at level i + 1, level 0 being the rows
+    private final List<Block> levels;
+
+    public WindowSegmentTree(AccumulatorFactory accumulatorFactory, Type intermediateType, WindowIndex windowIndex, List<Integer> argumentChannels)
+    {
+        this.accumulatorFactory = requireNonNull(accumulatorFactory, "accumulatorFactory is null");
+        this.windowIndex = requireNonNull(windowIndex, "windowIndex is null");
+        this.argumentChannels = ImmutableList.copyOf(requireNonNull(argumentChannels, "argumentChannels is null"));
+
+        ImmutableList.Builder<Block> levels = ImmutableList.builder();
+        int size = windowIndex.size();
+        Block level = null;
+        do {
+            int parentSize = (size + FANOUT - 1) / FANOUT;
+            BlockBuilder parents = intermediateType.createBlockBuilder(null, parentSize);
+            for (int parent = 0; parent < parentSize; parent++) {
+                Accumulator accumulator = accumulatorFactory.createAccumulator();
+                int start = parent * FANOUT;
+                int end = Math.min(start + FANOUT, size);
+                if (level == null) {
+                    accumulator.addInput(windowIndex, argumentChannels, start, end - 1);
+                }
+                else {
+                    accumulator.addIntermediate(level.getRegion(start, end - start));
+                }
+                accumulator.evaluateIntermediate(parents);
+            }
+            level = parents.build();
+            levels.add(level);
+            size = parentSize;
+        }
+        while (size > 1);
+        this.levels = levels.build();
+    }
+
+    /**
+     * Returns a new accumulator containing the rows between {@code start} and {@code end}, inclusive.
+     */
+    public Accumulator aggregate(int start, int end)
+    {
+        Accumulator accumulator = accumulatorFactory.createAccumulator();
+        int begin = start;
+        int limit = end + 1;
+        for (int level = 0; begin < limit; level++) {
+            int parentBegin = begin / FANOUT;
+            int parentLimit = limit / FANOUT;
+            if (parentBegin == parentLimit || level == levels.size()) {
+                add(accumulator, level, begin, limit);
+                break;
+            }
+            if (begin != parentBegin * FANOUT) {
+                parentBegin++;
+                add(accumulator, level, begin, parentBegin * FANOUT);
+            }
+            if (limit != parentLimit * FANOUT) {
+                add(accumulator, level, parentLimit * FANOUT, limit);
+            }
+            begin = parentBegin;
+            limit = parentLimit;
+        }
+        return accumulator;
+    }
+
+    private void add(Accumulator accumulator, int level, int begin, int limit)
+    {
+        if (begin >= limit) {
+            return;
+        }
+        if (level == 0) {
+            accumulator.addInput(windowIndex, argumentChannels, begin, limit - 1);
+        }
+        else {
+            accumulator.addIntermediate(levels.get(level - 1).getRegion(begin, limit - begin));
+        }
+    }
+}
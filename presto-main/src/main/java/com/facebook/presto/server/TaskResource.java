@@ -54,9 +54,12 @@ import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
@@ -92,6 +95,7 @@ public class TaskResource
     private final ScheduledExecutorService timeoutExecutor;
     private final TimeStat readFromOutputBufferTime = new TimeStat();
     private final TimeStat resultsRequestTime = new TimeStat();
+    private final ConcurrentMap<String, TaskResultsStream> resultsStreams = new ConcurrentHashMap<>();
 
     @Inject
     public TaskResource(
@@ -308,6 +312,64 @@ public class TaskResource
         taskManager.acknowledgeTaskResults(taskId, bufferId, token);
     }
 
+    @GET
+    @Path("{taskId}/results/{bufferId}/{token}/stream/{streamId}")
+    @Produces(PRESTO_PAGES)
+    public Response streamResults(
+            @PathParam("taskId") TaskId taskId,
+            @PathParam("bufferId") OutputBufferId bufferId,
+            @PathParam("token") long token,
+            @PathParam("streamId") String streamId,
+            @HeaderParam(PRESTO_MAX_SIZE) DataSize credit)
+    {
+        requireNonNull(taskId, "taskId is null");
+        requireNonNull(bufferId, "bufferId is null");
+        requireNonNull(streamId, "streamId is null");
+        requireNonNull(credit, "credit is null");
+
+        // the stream reads ahead of the acknowledgements, so the pages before the token are acknowledged here
+        taskManager.acknowledgeTaskResults(taskId, bufferId, token);
+
+        // the pages are written on the request thread, for as long as the stream is not idle
+        TaskResultsStream stream = new TaskResultsStream(taskManager, taskId, bufferId, token, credit, randomizeWaitTime(DEFAULT_MAX_WAIT_TIME));
+        resultsStreams.put(streamId, stream);
+        StreamingOutput output = outputStream -> {
+            try {
+                stream.write(outputStream);
+            }
+            finally {
+                resultsStreams.remove(streamId, stream);
+            }
+        };
+
+        return Response.ok(output)
+                .header(PRESTO_TASK_INSTANCE_ID, taskManager.getTaskInstanceId(taskId))
+                .build();
+    }
+
+    @GET
+    @Path("{taskId}/results/{bufferId}/{token}/stream/{streamId}/credit")
+    public void grantResultsStreamCredit(
+            @PathParam("taskId") TaskId taskId,
+            @PathParam("bufferId") OutputBufferId bufferId,
+            @PathParam("token") long token,
+            @PathParam("streamId") String streamId,
+            @HeaderParam(PRESTO_MAX_SIZE) DataSize credit)
+    {
+        requireNonNull(taskId, "taskId is null");
+        requireNonNull(bufferId, "bufferId is null");
+        requireNonNull(streamId, "streamId is null");
+        requireNonNull(credit, "credit is null");
+
+        taskManager.acknowledgeTaskResults(taskId, bufferId, token);
+
+        // credit for a stream that has ended is ignored, as the next stream is opened with its own credit
+        TaskResultsStream stream = resultsStreams.get(streamId);
+        if (stream != null) {
+            stream.grantCredit(credit);
+        }
+    }
+
     @DELETE
     @Path("{taskId}/results/{bufferId}")
     @Produces(MediaType.APPLICATION_JSON)
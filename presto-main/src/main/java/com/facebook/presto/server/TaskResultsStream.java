@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.OutputBuffers.OutputBufferId;
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskManager;
+import com.facebook.presto.execution.buffer.BufferResult;
+import io.airlift.slice.Slice;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Optional;
+
+import static com.facebook.presto.execution.buffer.PagesSerdeUtil.writeSerializedPages;
+import static io.airlift.concurrent.MoreFutures.tryGetFutureValue;
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Pushes the pages of a task output buffer to the client as a stream of frames, as long as the client
+ * has granted credit for them. Each frame has the following format, and its pages are serialized as by
+ * {@link PagesResponseWriter}:
+ * <pre>
+ * token (long) | next token (long) | buffer complete (byte) | page count (int) | pages
+ * </pre>
+ * The pages are read ahead of the acknowledgements of the client, so pages lost with a broken stream are
+ * sent again by the next stream of the client. The stream ends once the buffer is complete, or when no
+ * credit or no pages arrive within the max wait, which frees the thread writing it until the client opens
+ * the next stream.
+ */
+@ThreadSafe
+class TaskResultsStream
+        implements StreamingOutput
+{
+    private static final int FRAME_HEADER_SIZE = SIZE_OF_LONG + SIZE_OF_LONG + SIZE_OF_BYTE + SIZE_OF_INT;
+
+    private final TaskManager taskManager;
+    private final TaskId taskId;
+    private final OutputBufferId bufferId;
+    private final long startingToken;
+    private final Duration maxWait;
+
+    @GuardedBy("this")
+    private long credit;
+
+    public TaskResultsStream(TaskManager taskManager, TaskId taskId, OutputBufferId bufferId, long startingToken, DataSize credit, Duration maxWait)
+    {
+        this.taskManager = requireNonNull(taskManager, "taskManager is null");
+        this.taskId = requireNonNull(taskId, "taskId is null");
+        this.bufferId = requireNonNull(bufferId, "bufferId is null");
+        this.startingToken = startingToken;
+        this.credit = requireNonNull(credit, "credit is null").toBytes();
+        this.maxWait = requireNonNull(maxWait, "maxWait is null");
+    }
+
+    public synchronized void grantCredit(DataSize credit)
+    {
+        this.credit += credit.toBytes();
+        notifyAll();
+    }
+
+    @Override
+    public void write(OutputStream output)
+            throws IOException
+    {
+        byte[] header = new byte[FRAME_HEADER_SIZE];
+        Slice headerSlice = wrappedBuffer(header);
+        long token = startingToken;
+        try {
+            while (true) {
+                long availableCredit = awaitCredit();
+                if (availableCredit <= 0) {
+                    return;
+                }
+
+                Optional<BufferResult> result = tryGetFutureValue(
+                        taskManager.getTaskResultsWithoutAcknowledge(taskId, bufferId, token, new DataSize(availableCredit, BYTE)),
+                        toIntExact(maxWait.toMillis()),
+                        MILLISECONDS);
+                if (!result.isPresent()) {
+                    return;
+                }
+                BufferResult bufferResult = result.get();
+                if (bufferResult.isEmpty() && !bufferResult.isBufferComplete()) {
+                    // the read was abandoned, most likely for the read of a newer stream of the client
+                    return;
+                }
+
+                headerSlice.setLong(0, bufferResult.getToken());
+                headerSlice.setLong(SIZE_OF_LONG, bufferResult.getNextToken());
+                headerSlice.setByte(SIZE_OF_LONG + SIZE_OF_LONG, bufferResult.isBufferComplete() ? 1 : 0);
+                headerSlice.setInt(SIZE_OF_LONG + SIZE_OF_LONG + SIZE_OF_BYTE, bufferResult.size());
+                output.write(header);
+                long size = writeSerializedPages(output, bufferResult.getSerializedPages());
+                output.flush();
+
+                if (bufferResult.isBufferComplete()) {
+                    return;
+                }
+                consumeCredit(size);
+                token = bufferResult.getNextToken();
+            }
+        }
+        catch (EOFException e) {
+            // EOF exception occurs when the client disconnects while writing data
+            // This is not a "server" problem so we don't want to log this
+        }
+    }
+
+    private synchronized long awaitCredit()
+            throws InterruptedIOException
+    {
+        long deadline = System.nanoTime() + maxWait.roundTo(NANOSECONDS);
+        while (credit <= 0) {
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                return 0;
+            }
+            try {
+                NANOSECONDS.timedWait(this, remainingNanos);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+        return credit;
+    }
+
+    private synchronized void consumeCredit(long bytes)
+    {
+        // a single page larger than the credit is sent, which leaves the credit negative
+        credit -= bytes;
+    }
+}
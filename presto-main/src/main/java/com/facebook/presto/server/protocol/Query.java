@@ -73,7 +73,8 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 
-import static com.facebook.presto.SystemSessionProperties.isExchangeCompressionEnabled;
+import static com.facebook.presto.SystemSessionProperties.getExchangeCompressionCodec;
+import static com.facebook.presto.SystemSessionProperties.isExchangeAdaptiveCompressionEnabled;
 import static com.facebook.presto.execution.QueryState.FAILED;
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static com.facebook.presto.util.Failures.toFailure;
@@ -395,7 +396,7 @@ class Query
 
         if (session == null) {
             session = queryManager.getFullQueryInfo(queryId).getSession().toSession(sessionPropertyManager);
-            serde = new PagesSerdeFactory(blockEncodingSerde, isExchangeCompressionEnabled(session)).createPagesSerde();
+            serde = new PagesSerdeFactory(blockEncodingSerde, getExchangeCompressionCodec(session), isExchangeAdaptiveCompressionEnabled(session)).createPagesSerde();
         }
 
         // Remove as many pages as possible from the exchange until just greater than DESIRED_RESULT_BYTES
@@ -21,6 +21,9 @@ import java.io.IOException;
 import java.util.Iterator;
 import java.util.function.IntPredicate;
 
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.transformAsync;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.util.Objects.requireNonNull;
 
 public interface PartitioningSpiller
@@ -34,6 +37,21 @@ public interface PartitioningSpiller
      */
     PartitioningSpillResult partitionAndSpill(Page page, IntPredicate spillPartitionMask);
 
+    /**
+     * Partition and spill all given pages, one at a time. The returned future is completed
+     * when all pages are spilled.
+     * <p>
+     * This method may not be called if previously initiated spilling is not finished yet.
+     */
+    default ListenableFuture<?> partitionAndSpill(Iterator<Page> pages)
+    {
+        if (!pages.hasNext()) {
+            return immediateFuture(null);
+        }
+        ListenableFuture<?> spillingFuture = partitionAndSpill(pages.next(), partition -> true).getSpillingFuture();
+        return transformAsync(spillingFuture, ignored -> partitionAndSpill(pages), directExecutor());
+    }
+
     /**
      * Returns iterator of previously spilled pages from given partition. Callers are expected to call
      * this method once. Calling multiple times can results in undefined behavior.
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.sql.analyzer;
 
+import com.facebook.presto.execution.buffer.PageCompression;
 import com.facebook.presto.operator.aggregation.arrayagg.ArrayAggGroupImplementation;
 import com.facebook.presto.operator.aggregation.histogram.HistogramGroupImplementation;
 import com.facebook.presto.operator.aggregation.multimapagg.MultimapAggGroupImplementation;
@@ -36,6 +37,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 
+import static com.facebook.presto.execution.buffer.PageCompression.LZ4;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.JoinDistributionType.PARTITIONED;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.JoinReorderingStrategy.ELIMINATE_CROSS_JOINS;
 import static com.facebook.presto.sql.analyzer.RegexLibrary.JONI;
@@ -80,6 +82,8 @@ public class FeaturesConfig
     private boolean enableIntermediateAggregations;
     private boolean pushTableWriteThroughUnion = true;
     private boolean exchangeCompressionEnabled;
+    private PageCompression exchangeCompressionCodec = LZ4;
+    private boolean exchangeAdaptiveCompressionEnabled;
     private boolean legacyArrayAgg;
     private boolean legacyLogFunction;
     private boolean groupByUsesEqualTo;
@@ -122,6 +126,14 @@ public class FeaturesConfig
     private int filterAndProjectMinOutputPageRowCount = 256;
     private int maxGroupingSets = 2048;
     private boolean legacyUnnestArrayRows;
+    private boolean enableDynamicFiltering;
+    private int dynamicFilteringMaxPerDriverValueCount = 10_000;
+    private boolean enableDistributedDynamicFiltering;
+    private boolean adaptivePartialAggregationEnabled;
+    private long adaptivePartialAggregationMinRows = 100_000;
+    private double adaptivePartialAggregationUniqueRowsRatioThreshold = 0.8;
+    private boolean mergeTopNWithAggregation = true;
+    private boolean pushAggregationIntoTableScan;
 
     public enum JoinReorderingStrategy
     {
@@ -728,6 +740,33 @@ public class FeaturesConfig
         return this;
     }
 
+    @NotNull
+    public PageCompression getExchangeCompressionCodec()
+    {
+        return exchangeCompressionCodec;
+    }
+
+    @Config("exchange.compression-codec")
+    @ConfigDescription("Codec used to compress pages in exchanges when compression is enabled")
+    public FeaturesConfig setExchangeCompressionCodec(PageCompression exchangeCompressionCodec)
+    {
+        this.exchangeCompressionCodec = exchangeCompressionCodec;
+        return this;
+    }
+
+    public boolean isExchangeAdaptiveCompressionEnabled()
+    {
+        return exchangeAdaptiveCompressionEnabled;
+    }
+
+    @Config("exchange.adaptive-compression-enabled")
+    @ConfigDescription("Stop compressing pages in exchanges for a while after pages that do not compress well")
+    public FeaturesConfig setExchangeAdaptiveCompressionEnabled(boolean exchangeAdaptiveCompressionEnabled)
+    {
+        this.exchangeAdaptiveCompressionEnabled = exchangeAdaptiveCompressionEnabled;
+        return this;
+    }
+
     public boolean isEnableIntermediateAggregations()
     {
         return enableIntermediateAggregations;
@@ -885,4 +924,112 @@ public class FeaturesConfig
         this.legacyUnnestArrayRows = legacyUnnestArrayRows;
         return this;
     }
+
+    public boolean isEnableDynamicFiltering()
+    {
+        return enableDynamicFiltering;
+    }
+
+    @Config("experimental.enable-dynamic-filtering")
+    @ConfigDescription("Filter probe side table scans using the join keys of the hash join build side")
+    public FeaturesConfig setEnableDynamicFiltering(boolean value)
+    {
+        this.enableDynamicFiltering = value;
+        return this;
+    }
+
+    @Min(1)
+    public int getDynamicFilteringMaxPerDriverValueCount()
+    {
+        return dynamicFilteringMaxPerDriverValueCount;
+    }
+
+    @Config("experimental.dynamic-filtering-max-per-driver-value-count")
+    @ConfigDescription("Maximum number of distinct build side join keys collected by a single driver for dynamic filtering")
+    public FeaturesConfig setDynamicFilteringMaxPerDriverValueCount(int dynamicFilteringMaxPerDriverValueCount)
+    {
+        this.dynamicFilteringMaxPerDriverValueCount = dynamicFilteringMaxPerDriverValueCount;
+        return this;
+    }
+
+    public boolean isEnableDistributedDynamicFiltering()
+    {
+        return enableDistributedDynamicFiltering;
+    }
+
+    @Config("experimental.enable-distributed-dynamic-filtering")
+    @ConfigDescription("Report dynamic filters to the coordinator to skip splits of the probe side table scans. Requires experimental.enable-dynamic-filtering")
+    public FeaturesConfig setEnableDistributedDynamicFiltering(boolean value)
+    {
+        this.enableDistributedDynamicFiltering = value;
+        return this;
+    }
+
+    public boolean isAdaptivePartialAggregationEnabled()
+    {
+        return adaptivePartialAggregationEnabled;
+    }
+
+    @Config("adaptive-partial-aggregation.enabled")
+    @ConfigDescription("Stop partial aggregation and pass rows through when it does not reduce the number of rows")
+    public FeaturesConfig setAdaptivePartialAggregationEnabled(boolean adaptivePartialAggregationEnabled)
+    {
+        this.adaptivePartialAggregationEnabled = adaptivePartialAggregationEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public long getAdaptivePartialAggregationMinRows()
+    {
+        return adaptivePartialAggregationMinRows;
+    }
+
+    @Config("adaptive-partial-aggregation.min-rows")
+    @ConfigDescription("Minimum number of rows processed by partial aggregation before its reduction is evaluated")
+    public FeaturesConfig setAdaptivePartialAggregationMinRows(long adaptivePartialAggregationMinRows)
+    {
+        this.adaptivePartialAggregationMinRows = adaptivePartialAggregationMinRows;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getAdaptivePartialAggregationUniqueRowsRatioThreshold()
+    {
+        return adaptivePartialAggregationUniqueRowsRatioThreshold;
+    }
+
+    @Config("adaptive-partial-aggregation.unique-rows-ratio-threshold")
+    @ConfigDescription("Ratio of output to input rows of partial aggregation above which it is disabled")
+    public FeaturesConfig setAdaptivePartialAggregationUniqueRowsRatioThreshold(double adaptivePartialAggregationUniqueRowsRatioThreshold)
+    {
+        this.adaptivePartialAggregationUniqueRowsRatioThreshold = adaptivePartialAggregationUniqueRowsRatioThreshold;
+        return this;
+    }
+
+    public boolean isMergeTopNWithAggregation()
+    {
+        return mergeTopNWithAggregation;
+    }
+
+    @Config("optimizer.merge-topn-with-aggregation")
+    @ConfigDescription("Output only the top N groups of a final aggregation followed by ORDER BY and LIMIT")
+    public FeaturesConfig setMergeTopNWithAggregation(boolean mergeTopNWithAggregation)
+    {
+        this.mergeTopNWithAggregation = mergeTopNWithAggregation;
+        return this;
+    }
+
+    public boolean isPushAggregationIntoTableScan()
+    {
+        return pushAggregationIntoTableScan;
+    }
+
+    @Config("optimizer.push-aggregation-into-table-scan")
+    @ConfigDescription("Compute global aggregations over a table scan from per split values provided by the connector")
+    public FeaturesConfig setPushAggregationIntoTableScan(boolean pushAggregationIntoTableScan)
+    {
+        this.pushAggregationIntoTableScan = pushAggregationIntoTableScan;
+        return this;
+    }
 }
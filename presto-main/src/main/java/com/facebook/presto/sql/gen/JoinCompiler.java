@@ -60,6 +60,7 @@ import javax.inject.Inject;
 
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -78,12 +79,15 @@ import static io.airlift.bytecode.Access.STATIC;
 import static io.airlift.bytecode.Access.a;
 import static io.airlift.bytecode.Parameter.arg;
 import static io.airlift.bytecode.ParameterizedType.type;
+import static io.airlift.bytecode.expression.BytecodeExpressions.add;
 import static io.airlift.bytecode.expression.BytecodeExpressions.constantFalse;
 import static io.airlift.bytecode.expression.BytecodeExpressions.constantInt;
 import static io.airlift.bytecode.expression.BytecodeExpressions.constantLong;
 import static io.airlift.bytecode.expression.BytecodeExpressions.constantNull;
 import static io.airlift.bytecode.expression.BytecodeExpressions.constantTrue;
 import static io.airlift.bytecode.expression.BytecodeExpressions.getStatic;
+import static io.airlift.bytecode.expression.BytecodeExpressions.invokeStatic;
+import static io.airlift.bytecode.expression.BytecodeExpressions.lessThan;
 import static io.airlift.bytecode.expression.BytecodeExpressions.newInstance;
 import static io.airlift.bytecode.expression.BytecodeExpressions.notEqual;
 import static java.util.Objects.requireNonNull;
@@ -226,6 +230,7 @@ public class JoinCompiler
         generateAppendToMethod(classDefinition, callSiteBinder, types, outputChannels, channelFields);
         generateHashPositionMethod(classDefinition, callSiteBinder, joinChannelTypes, joinChannelFields, hashChannelField);
         generateHashRowMethod(classDefinition, callSiteBinder, joinChannelTypes);
+        generateHashRowsMethod(classDefinition, callSiteBinder, joinChannelTypes);
         generateRowEqualsRowMethod(classDefinition, callSiteBinder, joinChannelTypes);
         generatePositionEqualsRowMethod(classDefinition, callSiteBinder, joinChannelTypes, joinChannelFields, true);
         generatePositionEqualsRowMethod(classDefinition, callSiteBinder, joinChannelTypes, joinChannelFields, false);
@@ -491,6 +496,46 @@ public class JoinCompiler
                 .retLong();
     }
 
+    private static void generateHashRowsMethod(ClassDefinition classDefinition, CallSiteBinder callSiteBinder, List<Type> joinChannelTypes)
+    {
+        Parameter page = arg("page", Page.class);
+        Parameter positionOffset = arg("positionOffset", int.class);
+        Parameter length = arg("length", int.class);
+        Parameter hashes = arg("hashes", long[].class);
+        MethodDefinition hashRowsMethod = classDefinition.declareMethod(a(PUBLIC), "hashRows", type(void.class), page, positionOffset, length, hashes);
+
+        Scope scope = hashRowsMethod.getScope();
+        Variable block = scope.declareVariable(Block.class, "block");
+        Variable index = scope.declareVariable(int.class, "index");
+        BytecodeBlock body = hashRowsMethod.getBody();
+
+        body.comment("Arrays.fill(hashes, 0, length, 0)")
+                .append(invokeStatic(Arrays.class, "fill", void.class, hashes, constantInt(0), length, constantLong(0L)));
+
+        // hash one column at a time, so that each loop only deals with a single type and block
+        for (int channel = 0; channel < joinChannelTypes.size(); channel++) {
+            BytecodeExpression type = constantType(callSiteBinder, joinChannelTypes.get(channel));
+
+            body.comment("for (index = 0; index < length; index++) { hashes[index] = hashes[index] * 31 + hash(block_%s, positionOffset + index) }", channel)
+                    .append(block.set(page.invoke("getBlock", Block.class, constantInt(channel))))
+                    .append(new ForLoop()
+                            .initialize(index.set(constantInt(0)))
+                            .condition(lessThan(index, length))
+                            .update(index.increment())
+                            .body(new BytecodeBlock()
+                                    .append(hashes)
+                                    .append(index)
+                                    .append(hashes.getElement(index))
+                                    .push(31L)
+                                    .append(OpCode.LMUL)
+                                    .append(typeHashCode(type, block, add(positionOffset, index)))
+                                    .append(OpCode.LADD)
+                                    .append(OpCode.LASTORE)));
+        }
+
+        body.ret();
+    }
+
     private static BytecodeNode typeHashCode(BytecodeExpression type, BytecodeExpression blockRef, BytecodeExpression blockPosition)
     {
         return new IfStatement()
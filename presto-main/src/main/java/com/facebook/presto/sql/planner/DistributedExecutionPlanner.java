@@ -14,6 +14,7 @@
 package com.facebook.presto.sql.planner;
 
 import com.facebook.presto.Session;
+import com.facebook.presto.execution.scheduler.DistributedDynamicFilters;
 import com.facebook.presto.operator.StageExecutionStrategy;
 import com.facebook.presto.split.SampledSplitSource;
 import com.facebook.presto.split.SplitManager;
@@ -46,6 +47,7 @@ import com.facebook.presto.sql.planner.plan.SpatialJoinNode;
 import com.facebook.presto.sql.planner.plan.TableFinishNode;
 import com.facebook.presto.sql.planner.plan.TableScanNode;
 import com.facebook.presto.sql.planner.plan.TableWriterNode;
+import com.facebook.presto.sql.planner.plan.TopNAggregationNode;
 import com.facebook.presto.sql.planner.plan.TopNNode;
 import com.facebook.presto.sql.planner.plan.TopNRowNumberNode;
 import com.facebook.presto.sql.planner.plan.UnionNode;
@@ -78,11 +80,11 @@ public class DistributedExecutionPlanner
         this.splitManager = requireNonNull(splitManager, "splitManager is null");
     }
 
-    public StageExecutionPlan plan(SubPlan root, Session session)
+    public StageExecutionPlan plan(SubPlan root, Session session, DistributedDynamicFilters dynamicFilters)
     {
         ImmutableList.Builder<SplitSource> allSplitSources = ImmutableList.builder();
         try {
-            return doPlan(root, session, allSplitSources);
+            return doPlan(root, session, dynamicFilters, allSplitSources);
         }
         catch (Throwable t) {
             allSplitSources.build().forEach(DistributedExecutionPlanner::closeSplitSource);
@@ -100,17 +102,17 @@ public class DistributedExecutionPlanner
         }
     }
 
-    private StageExecutionPlan doPlan(SubPlan root, Session session, ImmutableList.Builder<SplitSource> allSplitSources)
+    private StageExecutionPlan doPlan(SubPlan root, Session session, DistributedDynamicFilters dynamicFilters, ImmutableList.Builder<SplitSource> allSplitSources)
     {
         PlanFragment currentFragment = root.getFragment();
 
         // get splits for this fragment, this is lazy so split assignments aren't actually calculated here
-        Map<PlanNodeId, SplitSource> splitSources = currentFragment.getRoot().accept(new Visitor(session, currentFragment.getStageExecutionStrategy(), allSplitSources), null);
+        Map<PlanNodeId, SplitSource> splitSources = currentFragment.getRoot().accept(new Visitor(session, currentFragment.getStageExecutionStrategy(), dynamicFilters, allSplitSources), null);
 
         // create child stages
         ImmutableList.Builder<StageExecutionPlan> dependencies = ImmutableList.builder();
         for (SubPlan childPlan : root.getChildren()) {
-            dependencies.add(doPlan(childPlan, session, allSplitSources));
+            dependencies.add(doPlan(childPlan, session, dynamicFilters, allSplitSources));
         }
 
         return new StageExecutionPlan(
@@ -124,12 +126,14 @@ public class DistributedExecutionPlanner
     {
         private final Session session;
         private final StageExecutionStrategy stageExecutionStrategy;
+        private final DistributedDynamicFilters dynamicFilters;
         private final ImmutableList.Builder<SplitSource> splitSources;
 
-        private Visitor(Session session, StageExecutionStrategy stageExecutionStrategy, ImmutableList.Builder<SplitSource> allSplitSources)
+        private Visitor(Session session, StageExecutionStrategy stageExecutionStrategy, DistributedDynamicFilters dynamicFilters, ImmutableList.Builder<SplitSource> allSplitSources)
         {
             this.session = session;
             this.stageExecutionStrategy = stageExecutionStrategy;
+            this.dynamicFilters = dynamicFilters;
             this.splitSources = allSplitSources;
         }
 
@@ -146,7 +150,8 @@ public class DistributedExecutionPlanner
             SplitSource splitSource = splitManager.getSplits(
                     session,
                     node.getLayout().get(),
-                    stageExecutionStrategy.isGroupedExecution(node.getId()) ? GROUPED_SCHEDULING : UNGROUPED_SCHEDULING);
+                    stageExecutionStrategy.isGroupedExecution(node.getId()) ? GROUPED_SCHEDULING : UNGROUPED_SCHEDULING,
+                    dynamicFilters.getDynamicFilter(node.getId()));
 
             splitSources.add(splitSource);
 
@@ -282,6 +287,12 @@ public class DistributedExecutionPlanner
             return node.getSource().accept(this, context);
         }
 
+        @Override
+        public Map<PlanNodeId, SplitSource> visitTopNAggregation(TopNAggregationNode node, Void context)
+        {
+            return node.getSource().accept(this, context);
+        }
+
         @Override
         public Map<PlanNodeId, SplitSource> visitTopN(TopNNode node, Void context)
         {
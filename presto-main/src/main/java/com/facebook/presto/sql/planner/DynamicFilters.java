@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.plan.ExchangeNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.RemoteSourceNode;
+import com.facebook.presto.sql.planner.plan.SemiJoinNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.SymbolReference;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Comparator;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.Scope.LOCAL;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
+import static java.util.Collections.max;
+import static java.util.Collections.min;
+
+/**
+ * Plan helpers shared by the workers, which collect the dynamic filters of
+ * hash joins, and the coordinator, which applies them to split enumeration.
+ */
+public final class DynamicFilters
+{
+    // larger domains are compacted to a range, to keep task status updates and split filtering cheap
+    private static final int MAX_DISCRETE_VALUES = 1_000;
+
+    private DynamicFilters() {}
+
+    /**
+     * Only probe rows that can not produce output, even as unmatched rows, may be filtered out.
+     */
+    public static boolean isDynamicFilteringSupported(JoinNode node)
+    {
+        return node.getType() == INNER || node.getType() == RIGHT;
+    }
+
+    /**
+     * Returns the identifier of the dynamic filter of the join criteria clause at the
+     * given index, which is the same on the workers and on the coordinator.
+     */
+    public static String getDynamicFilterId(PlanNodeId joinId, int clauseIndex)
+    {
+        return joinId + "/" + clauseIndex;
+    }
+
+    /**
+     * Finds the table scans and remote sources producing the given symbol within a
+     * plan fragment, following only nodes for which removing input rows with a
+     * non-matching value of the symbol can only remove output rows carrying that value.
+     */
+    public static void findProbeSources(PlanNode node, Symbol symbol, BiConsumer<PlanNode, Symbol> consumer)
+    {
+        if (node instanceof TableScanNode || node instanceof RemoteSourceNode) {
+            if (node.getOutputSymbols().contains(symbol)) {
+                consumer.accept(node, symbol);
+            }
+        }
+        else if (node instanceof FilterNode) {
+            findProbeSources(((FilterNode) node).getSource(), symbol, consumer);
+        }
+        else if (node instanceof ProjectNode) {
+            Expression expression = ((ProjectNode) node).getAssignments().get(symbol);
+            if (expression instanceof SymbolReference) {
+                findProbeSources(((ProjectNode) node).getSource(), Symbol.from(expression), consumer);
+            }
+        }
+        else if (node instanceof ExchangeNode && ((ExchangeNode) node).getScope() == LOCAL) {
+            ExchangeNode exchange = (ExchangeNode) node;
+            int index = exchange.getOutputSymbols().indexOf(symbol);
+            for (int i = 0; i < exchange.getSources().size(); i++) {
+                findProbeSources(exchange.getSources().get(i), exchange.getInputs().get(i).get(index), consumer);
+            }
+        }
+        else if (node instanceof JoinNode) {
+            JoinNode join = (JoinNode) node;
+            if ((join.getType() == INNER || join.getType() == LEFT) && join.getLeft().getOutputSymbols().contains(symbol)) {
+                findProbeSources(join.getLeft(), symbol, consumer);
+            }
+        }
+        else if (node instanceof SemiJoinNode) {
+            SemiJoinNode semiJoin = (SemiJoinNode) node;
+            if (semiJoin.getSource().getOutputSymbols().contains(symbol)) {
+                findProbeSources(semiJoin.getSource(), symbol, consumer);
+            }
+        }
+    }
+
+    /**
+     * Summarizes the distinct values of a join key as a domain, which is compacted
+     * to the range between the smallest and the largest value if there are too many values.
+     */
+    public static Domain createDomain(Type type, Set<Object> values)
+    {
+        if (values.isEmpty()) {
+            return Domain.none(type);
+        }
+        if (values.size() <= MAX_DISCRETE_VALUES) {
+            return Domain.multipleValues(type, ImmutableList.copyOf(values));
+        }
+        // all types supported by dynamic filtering are represented by longs or slices
+        @SuppressWarnings("unchecked")
+        Comparator<Object> comparator = (left, right) -> ((Comparable<Object>) left).compareTo(right);
+        return Domain.create(ValueSet.ofRanges(Range.range(type, min(values, comparator), true, max(values, comparator), true)), false);
+    }
+}
@@ -25,10 +25,12 @@ import com.facebook.presto.index.IndexManager;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.operator.AggregationOperator.AggregationOperatorFactory;
+import com.facebook.presto.operator.AggregationTopN;
 import com.facebook.presto.operator.AssignUniqueIdOperator;
 import com.facebook.presto.operator.DeleteOperator.DeleteOperatorFactory;
 import com.facebook.presto.operator.DevNullOperator.DevNullOperatorFactory;
 import com.facebook.presto.operator.DriverFactory;
+import com.facebook.presto.operator.DynamicPageFilter;
 import com.facebook.presto.operator.EnforceSingleRowOperator;
 import com.facebook.presto.operator.ExchangeClientSupplier;
 import com.facebook.presto.operator.ExchangeOperator.ExchangeOperatorFactory;
@@ -42,6 +44,7 @@ import com.facebook.presto.operator.JoinBridgeManager;
 import com.facebook.presto.operator.JoinOperatorFactory;
 import com.facebook.presto.operator.JoinOperatorFactory.OuterOperatorFactoryResult;
 import com.facebook.presto.operator.LimitOperator.LimitOperatorFactory;
+import com.facebook.presto.operator.LocalDynamicFilter;
 import com.facebook.presto.operator.LocalPlannerAware;
 import com.facebook.presto.operator.LookupJoinOperators;
 import com.facebook.presto.operator.LookupOuterOperator.LookupOuterOperatorFactory;
@@ -56,6 +59,7 @@ import com.facebook.presto.operator.OrderByOperator.OrderByOperatorFactory;
 import com.facebook.presto.operator.OutputFactory;
 import com.facebook.presto.operator.PagesIndex;
 import com.facebook.presto.operator.PagesSpatialIndexFactory;
+import com.facebook.presto.operator.PartialAggregationController;
 import com.facebook.presto.operator.PartitionFunction;
 import com.facebook.presto.operator.PartitionedLookupSourceFactory;
 import com.facebook.presto.operator.PartitionedOutputOperator.PartitionedOutputFactory;
@@ -102,6 +106,7 @@ import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.RecordSet;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spiller.PartitioningSpillerFactory;
@@ -153,6 +158,7 @@ import com.facebook.presto.sql.planner.plan.TableFinishNode;
 import com.facebook.presto.sql.planner.plan.TableScanNode;
 import com.facebook.presto.sql.planner.plan.TableWriterNode;
 import com.facebook.presto.sql.planner.plan.TableWriterNode.DeleteHandle;
+import com.facebook.presto.sql.planner.plan.TopNAggregationNode;
 import com.facebook.presto.sql.planner.plan.TopNNode;
 import com.facebook.presto.sql.planner.plan.TopNRowNumberNode;
 import com.facebook.presto.sql.planner.plan.UnionNode;
@@ -171,6 +177,7 @@ import com.facebook.presto.sql.tree.OrderBy;
 import com.facebook.presto.sql.tree.SortItem;
 import com.facebook.presto.sql.tree.SymbolReference;
 import com.google.common.base.VerifyException;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ContiguousSet;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableBiMap;
@@ -193,6 +200,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
@@ -206,12 +214,19 @@ import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static com.facebook.presto.SystemSessionProperties.getAdaptivePartialAggregationMinRows;
+import static com.facebook.presto.SystemSessionProperties.getAdaptivePartialAggregationUniqueRowsRatioThreshold;
 import static com.facebook.presto.SystemSessionProperties.getAggregationOperatorUnspillMemoryLimit;
+import static com.facebook.presto.SystemSessionProperties.getDynamicFilteringMaxPerDriverValueCount;
+import static com.facebook.presto.SystemSessionProperties.getExchangeCompressionCodec;
 import static com.facebook.presto.SystemSessionProperties.getFilterAndProjectMinOutputPageRowCount;
 import static com.facebook.presto.SystemSessionProperties.getFilterAndProjectMinOutputPageSize;
 import static com.facebook.presto.SystemSessionProperties.getTaskConcurrency;
 import static com.facebook.presto.SystemSessionProperties.getTaskWriterCount;
-import static com.facebook.presto.SystemSessionProperties.isExchangeCompressionEnabled;
+import static com.facebook.presto.SystemSessionProperties.isAdaptivePartialAggregationEnabled;
+import static com.facebook.presto.SystemSessionProperties.isEnableDistributedDynamicFiltering;
+import static com.facebook.presto.SystemSessionProperties.isEnableDynamicFiltering;
+import static com.facebook.presto.SystemSessionProperties.isExchangeAdaptiveCompressionEnabled;
 import static com.facebook.presto.SystemSessionProperties.isSpillEnabled;
 import static com.facebook.presto.metadata.FunctionKind.SCALAR;
 import static com.facebook.presto.operator.DistinctLimitOperator.DistinctLimitOperatorFactory;
@@ -231,6 +246,10 @@ import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.TypeUtils.writeNativeValue;
 import static com.facebook.presto.sql.analyzer.ExpressionAnalyzer.getExpressionTypes;
 import static com.facebook.presto.sql.analyzer.ExpressionAnalyzer.getExpressionTypesFromInput;
+import static com.facebook.presto.sql.planner.DynamicFilters.createDomain;
+import static com.facebook.presto.sql.planner.DynamicFilters.findProbeSources;
+import static com.facebook.presto.sql.planner.DynamicFilters.getDynamicFilterId;
+import static com.facebook.presto.sql.planner.DynamicFilters.isDynamicFilteringSupported;
 import static com.facebook.presto.sql.planner.ExpressionNodeInliner.replaceExpression;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.COORDINATOR_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_ARBITRARY_DISTRIBUTION;
@@ -265,6 +284,7 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Range.closedOpen;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
@@ -458,7 +478,7 @@ public class LocalExecutionPlanner
                                 plan.getId(),
                                 outputTypes,
                                 pagePreprocessor,
-                                new PagesSerdeFactory(blockEncodingSerde, isExchangeCompressionEnabled(session))))
+                                new PagesSerdeFactory(blockEncodingSerde, getExchangeCompressionCodec(session), isExchangeAdaptiveCompressionEnabled(session))))
                         .build(),
                 context.getDriverInstanceCount(),
                 physicalOperation.getPipelineExecutionStrategy());
@@ -568,6 +588,11 @@ public class LocalExecutionPlanner
             return taskContext.getTaskId().getStageId();
         }
 
+        public TaskContext getTaskContext()
+        {
+            return taskContext;
+        }
+
         public TypeProvider getTypes()
         {
             return types;
@@ -639,6 +664,35 @@ public class LocalExecutionPlanner
         }
     }
 
+    private static class DynamicFilterTarget
+    {
+        private final Symbol symbol;
+        private final LocalDynamicFilter dynamicFilter;
+        private final int keyIndex;
+
+        public DynamicFilterTarget(Symbol symbol, LocalDynamicFilter dynamicFilter, int keyIndex)
+        {
+            this.symbol = requireNonNull(symbol, "symbol is null");
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+            this.keyIndex = keyIndex;
+        }
+
+        private Symbol getSymbol()
+        {
+            return symbol;
+        }
+
+        private LocalDynamicFilter getDynamicFilter()
+        {
+            return dynamicFilter;
+        }
+
+        private int getKeyIndex()
+        {
+            return keyIndex;
+        }
+    }
+
     public static class LocalExecutionPlan
     {
         private final List<DriverFactory> driverFactories;
@@ -673,6 +727,8 @@ public class LocalExecutionPlanner
     {
         private final Session session;
         private final StageExecutionStrategy stageExecutionStrategy;
+        // dynamic filters to be applied by the table scans of the probe side of a join, by table scan node
+        private final Multimap<PlanNodeId, DynamicFilterTarget> dynamicFilterTargets = ArrayListMultimap.create();
 
         private Visitor(Session session, StageExecutionStrategy stageExecutionStrategy)
         {
@@ -711,7 +767,7 @@ public class LocalExecutionPlanner
                     context.getNextOperatorId(),
                     node.getId(),
                     exchangeClientSupplier,
-                    new PagesSerdeFactory(blockEncodingSerde, isExchangeCompressionEnabled(session)),
+                    new PagesSerdeFactory(blockEncodingSerde, getExchangeCompressionCodec(session), isExchangeAdaptiveCompressionEnabled(session)),
                     orderingCompiler,
                     types,
                     outputChannels,
@@ -731,7 +787,7 @@ public class LocalExecutionPlanner
                     context.getNextOperatorId(),
                     node.getId(),
                     exchangeClientSupplier,
-                    new PagesSerdeFactory(blockEncodingSerde, isExchangeCompressionEnabled(session)));
+                    new PagesSerdeFactory(blockEncodingSerde, getExchangeCompressionCodec(session), isExchangeAdaptiveCompressionEnabled(session)));
 
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, UNGROUPED_EXECUTION);
         }
@@ -928,7 +984,9 @@ public class LocalExecutionPlanner
                     sortOrder,
                     node.getPreSortedOrderPrefix(),
                     10_000,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    isSpillEnabled(context.getSession()),
+                    Optional.of(spillerFactory));
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), context, source);
         }
@@ -985,7 +1043,9 @@ public class LocalExecutionPlanner
                     10_000,
                     orderByChannels,
                     sortOrder.build(),
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    isSpillEnabled(context.getSession()),
+                    Optional.of(spillerFactory));
 
             return new PhysicalOperation(operator, source.getLayout(), context, source);
         }
@@ -1083,6 +1143,44 @@ public class LocalExecutionPlanner
             return planGroupByAggregation(node, source, spillEnabled, unspillMemoryLimit, context);
         }
 
+        @Override
+        public PhysicalOperation visitTopNAggregation(TopNAggregationNode node, LocalExecutionPlanContext context)
+        {
+            PhysicalOperation source = node.getSource().accept(this, context);
+
+            // sort channels refer to the output of the aggregation
+            Map<Symbol, Integer> outputLayout = makeLayout(node);
+            List<Integer> sortChannels = new ArrayList<>();
+            List<SortOrder> sortOrders = new ArrayList<>();
+            for (Symbol symbol : node.getOrderingScheme().getOrderBy()) {
+                sortChannels.add(outputLayout.get(symbol));
+                sortOrders.add(node.getOrderingScheme().getOrdering(symbol));
+            }
+
+            ImmutableMap.Builder<Symbol, Integer> mappings = ImmutableMap.builder();
+            OperatorFactory operatorFactory = createHashAggregationOperatorFactory(
+                    node.getId(),
+                    node.getAggregations(),
+                    ImmutableSet.of(),
+                    node.getGroupingKeys(),
+                    node.getStep(),
+                    node.getHashSymbol(),
+                    Optional.empty(),
+                    source,
+                    false,
+                    false,
+                    false,
+                    new DataSize(0, BYTE),
+                    context,
+                    0,
+                    mappings,
+                    10_000,
+                    Optional.empty(),
+                    false,
+                    Optional.of(new AggregationTopN((int) node.getCount(), sortChannels, sortOrders)));
+            return new PhysicalOperation(operatorFactory, mappings.build(), context, source);
+        }
+
         @Override
         public PhysicalOperation visitMarkDistinct(MarkDistinctNode node, LocalExecutionPlanContext context)
         {
@@ -1090,7 +1188,15 @@ public class LocalExecutionPlanner
 
             List<Integer> channels = getChannelsForSymbols(node.getDistinctSymbols(), source.getLayout());
             Optional<Integer> hashChannel = node.getHashSymbol().map(channelGetter(source));
-            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(context.getNextOperatorId(), node.getId(), source.getTypes(), channels, hashChannel, joinCompiler);
+            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    source.getTypes(),
+                    channels,
+                    hashChannel,
+                    joinCompiler,
+                    isSpillEnabled(context.getSession()),
+                    partitioningSpillerFactory);
             return new PhysicalOperation(operator, makeLayout(node), context, source);
         }
 
@@ -1220,6 +1326,7 @@ public class LocalExecutionPlanner
                             pageSourceProvider,
                             cursorProcessor,
                             pageProcessor,
+                            createDynamicPageFilter(sourceNode.getId(), sourceLayout),
                             columns,
                             getTypes(rewrittenProjections, expressionTypes),
                             getFilterAndProjectMinOutputPageSize(session),
@@ -1269,8 +1376,20 @@ public class LocalExecutionPlanner
                 columns.add(node.getAssignments().get(symbol));
             }
 
-            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, columns);
-            return new PhysicalOperation(operatorFactory, makeLayout(node), context, stageExecutionStrategy.isGroupedExecution(node.getId()) ? GROUPED_EXECUTION : UNGROUPED_EXECUTION);
+            ImmutableMap<Symbol, Integer> layout = makeLayout(node);
+            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, columns, createDynamicPageFilter(node.getId(), layout));
+            return new PhysicalOperation(operatorFactory, layout, context, stageExecutionStrategy.isGroupedExecution(node.getId()) ? GROUPED_EXECUTION : UNGROUPED_EXECUTION);
+        }
+
+        private DynamicPageFilter createDynamicPageFilter(PlanNodeId tableScanId, Map<Symbol, Integer> layout)
+        {
+            Collection<DynamicFilterTarget> targets = dynamicFilterTargets.get(tableScanId);
+            if (targets.isEmpty()) {
+                return DynamicPageFilter.ALWAYS_TRUE;
+            }
+            return new DynamicPageFilter(targets.stream()
+                    .map(target -> new DynamicPageFilter.Constraint(target.getDynamicFilter(), target.getKeyIndex(), layout.get(target.getSymbol())))
+                    .collect(toImmutableList()));
         }
 
         @Override
@@ -1884,12 +2003,16 @@ public class LocalExecutionPlanner
                 Optional<Symbol> buildHashSymbol,
                 LocalExecutionPlanContext context)
         {
+            // Dynamic filters have to be registered before the probe side table scans are planned
+            ImmutableList.Builder<Symbol> dynamicFilterBuildSymbols = ImmutableList.builder();
+            Optional<LocalDynamicFilter> dynamicFilter = createDynamicFilter(node, probeNode, probeSymbols, buildSymbols, dynamicFilterBuildSymbols, context);
+
             // Plan probe
             PhysicalOperation probeSource = probeNode.accept(this, context);
 
             // Plan build
             JoinBridgeManager<LookupSourceFactory> lookupSourceFactory =
-                    createLookupSourceFactory(node, buildNode, buildSymbols, buildHashSymbol, probeSource, context);
+                    createLookupSourceFactory(node, buildNode, buildSymbols, buildHashSymbol, probeSource, dynamicFilter, dynamicFilterBuildSymbols.build(), context);
 
             OperatorFactory operator = createLookupJoin(node, probeSource, probeSymbols, probeHashSymbol, lookupSourceFactory, context);
 
@@ -1909,6 +2032,8 @@ public class LocalExecutionPlanner
                 List<Symbol> buildSymbols,
                 Optional<Symbol> buildHashSymbol,
                 PhysicalOperation probeSource,
+                Optional<LocalDynamicFilter> dynamicFilter,
+                List<Symbol> dynamicFilterBuildSymbols,
                 LocalExecutionPlanContext context)
         {
             LocalExecutionPlanContext buildContext = context.createSubContext();
@@ -1964,6 +2089,12 @@ public class LocalExecutionPlanner
             ImmutableList<Type> buildOutputTypes = buildOutputChannels.stream()
                     .map(buildSource.getTypes()::get)
                     .collect(toImmutableList());
+
+            // a dynamic filter that is never bound is never completed, so the probe side is not filtered
+            Optional<LocalDynamicFilter> buildDynamicFilter = dynamicFilter
+                    .filter(filter -> buildSource.getPipelineExecutionStrategy() == UNGROUPED_EXECUTION);
+            buildDynamicFilter.ifPresent(filter -> filter.bindBuildSide(getChannelsForSymbols(dynamicFilterBuildSymbols, buildSource.getLayout()), partitionCount));
+
             JoinBridgeManager<LookupSourceFactory> lookupSourceFactoryManager = new JoinBridgeManager<>(
                     buildOuter,
                     probeSource.getPipelineExecutionStrategy(),
@@ -1991,7 +2122,8 @@ public class LocalExecutionPlanner
                     10_000,
                     pagesIndexFactory,
                     spillEnabled && !buildOuter && partitionCount > 1,
-                    singleStreamSpillerFactory);
+                    singleStreamSpillerFactory,
+                    buildDynamicFilter);
 
             context.addDriverFactory(
                     buildContext.isInputDriver(),
@@ -2006,6 +2138,81 @@ public class LocalExecutionPlanner
             return lookupSourceFactoryManager;
         }
 
+        private Optional<LocalDynamicFilter> createDynamicFilter(
+                JoinNode node,
+                PlanNode probeNode,
+                List<Symbol> probeSymbols,
+                List<Symbol> buildSymbols,
+                ImmutableList.Builder<Symbol> dynamicFilterBuildSymbols,
+                LocalExecutionPlanContext context)
+        {
+            if (!isEnableDynamicFiltering(session) || !isDynamicFilteringSupported(node)) {
+                return Optional.empty();
+            }
+            boolean distributed = isEnableDistributedDynamicFiltering(session);
+
+            ImmutableList.Builder<Type> types = ImmutableList.builder();
+            List<Map<PlanNodeId, Symbol>> keyTargets = new ArrayList<>();
+            Map<Integer, String> reportedKeys = new HashMap<>();
+            for (int i = 0; i < probeSymbols.size(); i++) {
+                Type type = context.getTypes().get(probeSymbols.get(i));
+                if (!LocalDynamicFilter.isSupportedType(type)) {
+                    continue;
+                }
+                Map<PlanNodeId, Symbol> targets = new HashMap<>();
+                Set<PlanNodeId> remoteSources = new HashSet<>();
+                findProbeSources(probeNode, probeSymbols.get(i), (source, symbol) -> {
+                    if (source instanceof RemoteSourceNode) {
+                        remoteSources.add(source.getId());
+                    }
+                    else if (!stageExecutionStrategy.isGroupedExecution(source.getId())) {
+                        targets.put(source.getId(), symbol);
+                    }
+                });
+                boolean reported = distributed && (!targets.isEmpty() || !remoteSources.isEmpty());
+                if (targets.isEmpty() && !reported) {
+                    continue;
+                }
+                if (reported) {
+                    reportedKeys.put(keyTargets.size(), getDynamicFilterId(node.getId(), i));
+                }
+                types.add(type);
+                dynamicFilterBuildSymbols.add(buildSymbols.get(i));
+                keyTargets.add(targets);
+            }
+            if (keyTargets.isEmpty()) {
+                return Optional.empty();
+            }
+
+            LocalDynamicFilter dynamicFilter = new LocalDynamicFilter(types.build(), getDynamicFilteringMaxPerDriverValueCount(session));
+            for (int keyIndex = 0; keyIndex < keyTargets.size(); keyIndex++) {
+                for (Map.Entry<PlanNodeId, Symbol> target : keyTargets.get(keyIndex).entrySet()) {
+                    dynamicFilterTargets.put(target.getKey(), new DynamicFilterTarget(target.getValue(), dynamicFilter, keyIndex));
+                }
+            }
+            if (!reportedKeys.isEmpty()) {
+                // the coordinator uses the domains to skip splits of the probe side table scans in other stages
+                TaskContext taskContext = context.getTaskContext();
+                dynamicFilter.isCompleted().addListener(
+                        () -> taskContext.addDynamicFilterDomains(getDynamicFilterDomains(dynamicFilter, reportedKeys)),
+                        directExecutor());
+            }
+            return Optional.of(dynamicFilter);
+        }
+
+        private Map<String, Domain> getDynamicFilterDomains(LocalDynamicFilter dynamicFilter, Map<Integer, String> dynamicFilterIds)
+        {
+            ImmutableMap.Builder<String, Domain> domains = ImmutableMap.builder();
+            for (Map.Entry<Integer, String> entry : dynamicFilterIds.entrySet()) {
+                Type type = dynamicFilter.getTypes().get(entry.getKey());
+                Domain domain = dynamicFilter.getValues(entry.getKey())
+                        .map(values -> createDomain(type, values))
+                        .orElseGet(() -> Domain.all(type));
+                domains.put(entry.getValue(), domain);
+            }
+            return domains.build();
+        }
+
         private JoinFilterFunctionFactory compileJoinFilterFunction(
                 Expression filterExpression,
                 Map<Symbol, Integer> probeLayout,
@@ -2111,6 +2318,12 @@ public class LocalExecutionPlanner
 
             Optional<Integer> buildHashChannel = node.getFilteringSourceHashSymbol().map(channelGetter(buildSource));
 
+            // a spilled set is consumed partition by partition by all probe operators, so their number must be known
+            OptionalInt probeOperatorsCount = context.getDriverInstanceCount();
+            boolean spillEnabled = isSpillEnabled(context.getSession())
+                    && probeOperatorsCount.isPresent()
+                    && probeSource.getPipelineExecutionStrategy() == UNGROUPED_EXECUTION;
+
             SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(
                     buildContext.getNextOperatorId(),
                     node.getId(),
@@ -2118,7 +2331,10 @@ public class LocalExecutionPlanner
                     buildChannel,
                     buildHashChannel,
                     10_000,
-                    joinCompiler);
+                    joinCompiler,
+                    spillEnabled,
+                    spillEnabled ? probeOperatorsCount : OptionalInt.empty(),
+                    partitioningSpillerFactory);
             SetSupplier setProvider = setBuilderOperatorFactory.getSetProvider();
             context.addDriverFactory(
                     buildContext.isInputDriver(),
@@ -2136,7 +2352,13 @@ public class LocalExecutionPlanner
                     .put(node.getSemiJoinOutput(), probeSource.getLayout().size())
                     .build();
 
-            HashSemiJoinOperatorFactory operator = new HashSemiJoinOperatorFactory(context.getNextOperatorId(), node.getId(), setProvider, probeSource.getTypes(), probeChannel);
+            HashSemiJoinOperatorFactory operator = new HashSemiJoinOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    setProvider,
+                    probeSource.getTypes(),
+                    probeChannel,
+                    partitioningSpillerFactory);
             return new PhysicalOperation(operator, outputMappings, context, probeSource);
         }
 
@@ -2194,7 +2416,8 @@ public class LocalExecutionPlanner
                         // Disabling partial pre-aggregation memory limit effectively
                         // turns PARTIAL aggregation into INTERMEDIATE.
                         Optional.empty(),
-                        true);
+                        true,
+                        Optional.empty());
             }).orElse(new DevNullOperatorFactory(context.getNextOperatorId(), node.getId()));
 
             List<Integer> inputChannels = node.getColumns().stream()
@@ -2253,7 +2476,8 @@ public class LocalExecutionPlanner
                         200,
                         // final aggregation ignores partial pre-aggregation memory limit
                         Optional.empty(),
-                        true);
+                        true,
+                        Optional.empty());
             }).orElse(new DevNullOperatorFactory(context.getNextOperatorId(), node.getId()));
 
             Map<Symbol, Integer> aggregationOutput = outputMapping.build();
@@ -2575,7 +2799,8 @@ public class LocalExecutionPlanner
                     mappings,
                     10_000,
                     Optional.of(maxPartialAggregationMemorySize),
-                    node.getStep().isOutputPartial());
+                    node.getStep().isOutputPartial(),
+                    Optional.empty());
             return new PhysicalOperation(operatorFactory, mappings.build(), context, source);
         }
 
@@ -2597,7 +2822,8 @@ public class LocalExecutionPlanner
                 ImmutableMap.Builder<Symbol, Integer> outputMappings,
                 int expectedGroups,
                 Optional<DataSize> maxPartialAggregationMemorySize,
-                boolean useSystemMemory)
+                boolean useSystemMemory,
+                Optional<AggregationTopN> topN)
         {
             List<Symbol> aggregationOutputSymbols = new ArrayList<>();
             List<AccumulatorFactory> accumulatorFactories = new ArrayList<>();
@@ -2649,6 +2875,12 @@ public class LocalExecutionPlanner
             }
             else {
                 Optional<Integer> hashChannel = hashSymbol.map(channelGetter(source));
+                Optional<PartialAggregationController> partialAggregationController = Optional.empty();
+                if (step == PARTIAL && isAdaptivePartialAggregationEnabled(context.getSession())) {
+                    partialAggregationController = Optional.of(new PartialAggregationController(
+                            getAdaptivePartialAggregationMinRows(context.getSession()),
+                            getAdaptivePartialAggregationUniqueRowsRatioThreshold(context.getSession())));
+                }
                 return new HashAggregationOperatorFactory(
                         context.getNextOperatorId(),
                         planNodeId,
@@ -2666,7 +2898,9 @@ public class LocalExecutionPlanner
                         unspillMemoryLimit,
                         spillerFactory,
                         joinCompiler,
-                        useSystemMemory);
+                        useSystemMemory,
+                        partialAggregationController,
+                        topN);
             }
         }
     }
@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.matching.Capture;
+import com.facebook.presto.matching.Captures;
+import com.facebook.presto.matching.Pattern;
+import com.facebook.presto.sql.planner.iterative.Rule;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.TopNAggregationNode;
+import com.facebook.presto.sql.planner.plan.TopNNode;
+
+import static com.facebook.presto.SystemSessionProperties.isMergeTopNWithAggregation;
+import static com.facebook.presto.SystemSessionProperties.isSpillEnabled;
+import static com.facebook.presto.matching.Capture.newCapture;
+import static com.facebook.presto.sql.planner.plan.Patterns.aggregation;
+import static com.facebook.presto.sql.planner.plan.Patterns.source;
+import static com.facebook.presto.sql.planner.plan.Patterns.topN;
+import static com.facebook.presto.sql.planner.plan.TopNNode.Step.PARTIAL;
+
+/**
+ * Merges a partial TopN with the grouped final aggregation below it, so that the aggregation
+ * keeps all of its groups but outputs only the top ones instead of all of them.
+ * <p>
+ * From:
+ * <pre>
+ * - TopN (PARTIAL)
+ *   - Aggregation (FINAL or SINGLE)
+ * </pre>
+ * To:
+ * <pre>
+ * - TopNAggregation
+ * </pre>
+ * <p>
+ * Aggregations are only split into their partial and final steps by AddExchanges, so this rule
+ * must run after the exchanges have been added.
+ */
+public class MergeTopNWithAggregation
+        implements Rule<TopNNode>
+{
+    private static final Capture<AggregationNode> AGGREGATION = newCapture();
+
+    private static final Pattern<TopNNode> PATTERN = topN()
+            .matching(topN -> topN.getStep() == PARTIAL)
+            .with(source().matching(aggregation()
+                    .matching(MergeTopNWithAggregation::isSupported)
+                    .capturedAs(AGGREGATION)));
+
+    private static boolean isSupported(AggregationNode aggregation)
+    {
+        return !aggregation.getStep().isOutputPartial() &&
+                !aggregation.getGroupingKeys().isEmpty() &&
+                aggregation.getGroupingSetCount() == 1 &&
+                !aggregation.hasEmptyGroupingSet() &&
+                !aggregation.getGroupIdSymbol().isPresent() &&
+                !aggregation.isStreamable() &&
+                !aggregation.hasOrderings();
+    }
+
+    @Override
+    public Pattern<TopNNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    @Override
+    public boolean isEnabled(Session session)
+    {
+        // the top groups are selected in memory, after all input has been aggregated
+        return isMergeTopNWithAggregation(session) && !isSpillEnabled(session);
+    }
+
+    @Override
+    public Result apply(TopNNode topN, Captures captures, Context context)
+    {
+        AggregationNode aggregation = captures.get(AGGREGATION);
+        return Result.ofPlanNode(new TopNAggregationNode(
+                aggregation.getId(),
+                aggregation.getSource(),
+                aggregation.getAggregations(),
+                aggregation.getGroupingKeys(),
+                aggregation.getStep(),
+                aggregation.getHashSymbol(),
+                topN.getCount(),
+                topN.getOrderingScheme()));
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.matching.Capture;
+import com.facebook.presto.matching.Captures;
+import com.facebook.presto.matching.Pattern;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.metadata.TableLayoutHandle;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.SplitAggregationType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.iterative.Rule;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.AggregationNode.Aggregation;
+import com.facebook.presto.sql.planner.plan.Assignments;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.tree.CoalesceExpression;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.GenericLiteral;
+import com.facebook.presto.sql.tree.QualifiedName;
+import com.facebook.presto.sql.tree.SymbolReference;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.isPushAggregationIntoTableScan;
+import static com.facebook.presto.matching.Capture.newCapture;
+import static com.facebook.presto.spi.SplitAggregationType.MAX;
+import static com.facebook.presto.spi.SplitAggregationType.MIN;
+import static com.facebook.presto.spi.SplitAggregationType.NON_NULL_COUNT;
+import static com.facebook.presto.spi.SplitAggregationType.ROW_COUNT;
+import static com.facebook.presto.spi.SplitAggregationType.SUM;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.SINGLE;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.globalAggregation;
+import static com.facebook.presto.sql.planner.plan.Patterns.aggregation;
+import static com.facebook.presto.sql.planner.plan.Patterns.source;
+import static com.facebook.presto.sql.planner.plan.Patterns.tableScan;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Pushes a global aggregation over a table scan into the connector, so that each split
+ * produces a single row of pre-aggregated values (for example from file statistics), e.g.
+ *
+ * - Aggregation: count(*), max(x)
+ *    - TableScan: x
+ *
+ * becomes
+ *
+ * - Project: count := coalesce(sum_count, 0), max
+ *    - Aggregation: sum_count := sum(split_count), max := max(split_max)
+ *       - TableScan: split_count, split_max
+ *
+ * The rule only applies when the connector provides a split aggregation column for
+ * every aggregation of the node.
+ */
+public class PushAggregationIntoTableScan
+        implements Rule<AggregationNode>
+{
+    private static final Capture<TableScanNode> TABLE_SCAN = newCapture();
+
+    private static final Pattern<AggregationNode> PATTERN = aggregation()
+            .matching(PushAggregationIntoTableScan::isGlobalSingleStep)
+            .with(source().matching(tableScan().capturedAs(TABLE_SCAN)));
+
+    private final Metadata metadata;
+
+    public PushAggregationIntoTableScan(Metadata metadata)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+    }
+
+    @Override
+    public Pattern<AggregationNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    @Override
+    public boolean isEnabled(Session session)
+    {
+        return isPushAggregationIntoTableScan(session);
+    }
+
+    private static boolean isGlobalSingleStep(AggregationNode node)
+    {
+        return node.getStep() == SINGLE &&
+                node.getGroupingKeys().isEmpty() &&
+                node.getGroupingSetCount() == 1 &&
+                !node.getHashSymbol().isPresent() &&
+                !node.getAggregations().isEmpty();
+    }
+
+    @Override
+    public Result apply(AggregationNode node, Captures captures, Context context)
+    {
+        TableScanNode tableScan = captures.get(TABLE_SCAN);
+        if (!tableScan.getLayout().isPresent()) {
+            return Result.empty();
+        }
+        TableLayoutHandle layout = tableScan.getLayout().get();
+
+        ImmutableList.Builder<Symbol> scanSymbols = ImmutableList.builder();
+        ImmutableMap.Builder<Symbol, ColumnHandle> scanAssignments = ImmutableMap.builder();
+        ImmutableMap.Builder<Symbol, Aggregation> aggregations = ImmutableMap.builder();
+        Assignments.Builder outputAssignments = Assignments.builder();
+        boolean needsProjection = false;
+
+        for (Map.Entry<Symbol, Aggregation> entry : node.getAggregations().entrySet()) {
+            Symbol output = entry.getKey();
+            Aggregation aggregation = entry.getValue();
+            FunctionCall call = aggregation.getCall();
+            if (aggregation.getMask().isPresent() || call.isDistinct() || call.getFilter().isPresent() || call.getOrderBy().isPresent()) {
+                return Result.empty();
+            }
+
+            Optional<SplitAggregationType> aggregationType = getAggregationType(call);
+            if (!aggregationType.isPresent()) {
+                return Result.empty();
+            }
+
+            Optional<ColumnHandle> argument = Optional.empty();
+            if (!call.getArguments().isEmpty()) {
+                Expression expression = getOnlyElement(call.getArguments());
+                if (!(expression instanceof SymbolReference)) {
+                    return Result.empty();
+                }
+                ColumnHandle column = tableScan.getAssignments().get(Symbol.from(expression));
+                if (column == null) {
+                    return Result.empty();
+                }
+                argument = Optional.of(column);
+            }
+
+            Optional<ColumnHandle> aggregatedColumn = metadata.getSplitAggregationColumnHandle(context.getSession(), layout, aggregationType.get(), argument);
+            if (!aggregatedColumn.isPresent()) {
+                return Result.empty();
+            }
+
+            Type outputType = context.getSymbolAllocator().getTypes().get(output);
+            Type columnType = metadata.getColumnMetadata(context.getSession(), tableScan.getTable(), aggregatedColumn.get()).getType();
+            boolean isCount = aggregationType.get() == ROW_COUNT || aggregationType.get() == NON_NULL_COUNT;
+            if (!columnType.equals(isCount ? BIGINT : outputType)) {
+                return Result.empty();
+            }
+
+            Symbol scanSymbol = context.getSymbolAllocator().newSymbol(call.getName().getSuffix(), columnType);
+            scanSymbols.add(scanSymbol);
+            scanAssignments.put(scanSymbol, aggregatedColumn.get());
+
+            // counts of the splits are added up, the other aggregations are applied again to the per split values
+            String combiningFunction = isCount ? "sum" : call.getName().getSuffix();
+            Symbol aggregationOutput = output;
+            if (isCount) {
+                // sum of no rows is null, while count is 0
+                aggregationOutput = context.getSymbolAllocator().newSymbol(combiningFunction, BIGINT);
+                outputAssignments.put(output, new CoalesceExpression(aggregationOutput.toSymbolReference(), new GenericLiteral("BIGINT", "0")));
+                needsProjection = true;
+            }
+            else {
+                outputAssignments.putIdentity(output);
+            }
+            aggregations.put(aggregationOutput, combiningAggregation(combiningFunction, scanSymbol, columnType));
+        }
+
+        List<Symbol> outputs = scanSymbols.build();
+        PlanNode result = new AggregationNode(
+                node.getId(),
+                new TableScanNode(
+                        tableScan.getId(),
+                        tableScan.getTable(),
+                        outputs,
+                        scanAssignments.build(),
+                        tableScan.getLayout(),
+                        tableScan.getCurrentConstraint(),
+                        tableScan.getEnforcedConstraint()),
+                aggregations.build(),
+                globalAggregation(),
+                ImmutableList.of(),
+                SINGLE,
+                Optional.empty(),
+                Optional.empty());
+
+        if (needsProjection) {
+            result = new ProjectNode(context.getIdAllocator().getNextId(), result, outputAssignments.build());
+        }
+        return Result.ofPlanNode(result);
+    }
+
+    private static Optional<SplitAggregationType> getAggregationType(FunctionCall call)
+    {
+        String name = call.getName().toString();
+        int arguments = call.getArguments().size();
+        if (name.equals("count") && arguments == 0) {
+            return Optional.of(ROW_COUNT);
+        }
+        if (arguments != 1) {
+            return Optional.empty();
+        }
+        switch (name) {
+            case "count":
+                return Optional.of(NON_NULL_COUNT);
+            case "min":
+                return Optional.of(MIN);
+            case "max":
+                return Optional.of(MAX);
+            case "sum":
+                return Optional.of(SUM);
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private Aggregation combiningAggregation(String name, Symbol argument, Type type)
+    {
+        QualifiedName functionName = QualifiedName.of(name);
+        Signature signature = metadata.getFunctionRegistry().resolveFunction(functionName, fromTypes(ImmutableList.of(type)));
+        return new Aggregation(
+                new FunctionCall(functionName, ImmutableList.of(argument.toSymbolReference())),
+                signature,
+                Optional.empty());
+    }
+}
@@ -43,6 +43,7 @@ import com.facebook.presto.sql.planner.plan.ProjectNode;
 import com.facebook.presto.sql.planner.plan.RowNumberNode;
 import com.facebook.presto.sql.planner.plan.SemiJoinNode;
 import com.facebook.presto.sql.planner.plan.SpatialJoinNode;
+import com.facebook.presto.sql.planner.plan.TopNAggregationNode;
 import com.facebook.presto.sql.planner.plan.TopNRowNumberNode;
 import com.facebook.presto.sql.planner.plan.UnionNode;
 import com.facebook.presto.sql.planner.plan.UnnestNode;
@@ -186,6 +187,33 @@ public class HashGenerationOptimizer
                     hashSymbol.isPresent() ? ImmutableMap.of(groupByHash.get(), hashSymbol.get()) : ImmutableMap.of());
         }
 
+        @Override
+        public PlanWithProperties visitTopNAggregation(TopNAggregationNode node, HashComputationSet parentPreference)
+        {
+            Optional<HashComputation> groupByHash = Optional.empty();
+            if (!canSkipHashGeneration(node.getGroupingKeys())) {
+                groupByHash = computeHash(node.getGroupingKeys());
+            }
+
+            // aggregation does not pass through preferred hash symbols
+            HashComputationSet requiredHashes = new HashComputationSet(groupByHash);
+            PlanWithProperties child = planAndEnforce(node.getSource(), requiredHashes, false, requiredHashes);
+
+            Optional<Symbol> hashSymbol = groupByHash.map(child::getRequiredHashSymbol);
+
+            return new PlanWithProperties(
+                    new TopNAggregationNode(
+                            node.getId(),
+                            child.getNode(),
+                            node.getAggregations(),
+                            node.getGroupingKeys(),
+                            node.getStep(),
+                            hashSymbol,
+                            node.getCount(),
+                            node.getOrderingScheme()),
+                    hashSymbol.isPresent() ? ImmutableMap.of(groupByHash.get(), hashSymbol.get()) : ImmutableMap.of());
+        }
+
         private boolean canSkipHashGeneration(List<Symbol> partitionSymbols)
         {
             // HACK: bigint grouped aggregation has special operators that do not use precomputed hash, so we can skip hash generation
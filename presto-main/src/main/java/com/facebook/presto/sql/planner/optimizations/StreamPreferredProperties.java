@@ -129,7 +129,9 @@ class StreamPreferredProperties
         Iterable<Symbol> desiredPartitioning = partitionSymbols;
         if (partitioningColumns.isPresent()) {
             if (exactColumnOrder) {
-                if (partitioningColumns.get().equals(desiredPartitioning)) {
+                // partitioned on (k_1, k_2, ..., k_n) => partitioned on (k_1, k_2, ..., k_n, k_n+1, ...), so keep the
+                // exact partitioning, otherwise the parent would have to repartition the stream a second time
+                if (ImmutableSet.copyOf(desiredPartitioning).containsAll(partitioningColumns.get())) {
                     return this;
                 }
             }
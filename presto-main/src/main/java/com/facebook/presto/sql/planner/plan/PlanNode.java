@@ -37,6 +37,7 @@ import static java.util.Objects.requireNonNull;
         @JsonSubTypes.Type(value = WindowNode.class, name = "window"),
         @JsonSubTypes.Type(value = RowNumberNode.class, name = "rowNumber"),
         @JsonSubTypes.Type(value = TopNRowNumberNode.class, name = "topnRowNumber"),
+        @JsonSubTypes.Type(value = TopNAggregationNode.class, name = "topnAggregation"),
         @JsonSubTypes.Type(value = LimitNode.class, name = "limit"),
         @JsonSubTypes.Type(value = DistinctLimitNode.class, name = "distinctlimit"),
         @JsonSubTypes.Type(value = TopNNode.class, name = "topn"),
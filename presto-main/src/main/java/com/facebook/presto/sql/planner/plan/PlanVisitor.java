@@ -174,6 +174,11 @@ public abstract class PlanVisitor<R, C>
         return visitPlan(node, context);
     }
 
+    public R visitTopNAggregation(TopNAggregationNode node, C context)
+    {
+        return visitPlan(node, context);
+    }
+
     public R visitExchange(ExchangeNode node, C context)
     {
         return visitPlan(node, context);
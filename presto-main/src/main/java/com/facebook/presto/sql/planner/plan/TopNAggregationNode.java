@@ -0,0 +1,153 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.plan;
+
+import com.facebook.presto.sql.planner.OrderingScheme;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.AggregationNode.Aggregation;
+import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.util.Failures.checkCondition;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A grouped aggregation which outputs only its first {@code count} groups in the given
+ * order, i.e. a final or single step {@link AggregationNode} merged with the partial
+ * {@link TopNNode} above it. The aggregated groups are not ordered in the output.
+ */
+@Immutable
+public class TopNAggregationNode
+        extends PlanNode
+{
+    private final PlanNode source;
+    private final Map<Symbol, Aggregation> aggregations;
+    private final List<Symbol> groupingKeys;
+    private final Step step;
+    private final Optional<Symbol> hashSymbol;
+    private final long count;
+    private final OrderingScheme orderingScheme;
+    private final List<Symbol> outputs;
+
+    @JsonCreator
+    public TopNAggregationNode(
+            @JsonProperty("id") PlanNodeId id,
+            @JsonProperty("source") PlanNode source,
+            @JsonProperty("aggregations") Map<Symbol, Aggregation> aggregations,
+            @JsonProperty("groupingKeys") List<Symbol> groupingKeys,
+            @JsonProperty("step") Step step,
+            @JsonProperty("hashSymbol") Optional<Symbol> hashSymbol,
+            @JsonProperty("count") long count,
+            @JsonProperty("orderingScheme") OrderingScheme orderingScheme)
+    {
+        super(id);
+
+        this.source = requireNonNull(source, "source is null");
+        this.aggregations = ImmutableMap.copyOf(requireNonNull(aggregations, "aggregations is null"));
+        this.groupingKeys = ImmutableList.copyOf(requireNonNull(groupingKeys, "groupingKeys is null"));
+        checkArgument(!groupingKeys.isEmpty(), "groupingKeys is empty");
+        this.step = requireNonNull(step, "step is null");
+        checkArgument(!step.isOutputPartial(), "step must not be partial: %s", step);
+        this.hashSymbol = requireNonNull(hashSymbol, "hashSymbol is null");
+        checkArgument(count > 0, "count must be positive");
+        checkCondition(count <= Integer.MAX_VALUE, NOT_SUPPORTED, "ORDER BY LIMIT > %s is not supported", Integer.MAX_VALUE);
+        this.count = count;
+        this.orderingScheme = requireNonNull(orderingScheme, "orderingScheme is null");
+
+        ImmutableList.Builder<Symbol> outputs = ImmutableList.builder();
+        outputs.addAll(groupingKeys);
+        hashSymbol.ifPresent(outputs::add);
+        outputs.addAll(aggregations.keySet());
+        this.outputs = outputs.build();
+        checkArgument(this.outputs.containsAll(orderingScheme.getOrderBy()), "ordering symbols must be outputs of the aggregation");
+    }
+
+    @Override
+    public List<PlanNode> getSources()
+    {
+        return ImmutableList.of(source);
+    }
+
+    @Override
+    public List<Symbol> getOutputSymbols()
+    {
+        return outputs;
+    }
+
+    @JsonProperty("source")
+    public PlanNode getSource()
+    {
+        return source;
+    }
+
+    @JsonProperty("aggregations")
+    public Map<Symbol, Aggregation> getAggregations()
+    {
+        return aggregations;
+    }
+
+    @JsonProperty("groupingKeys")
+    public List<Symbol> getGroupingKeys()
+    {
+        return groupingKeys;
+    }
+
+    @JsonProperty("step")
+    public Step getStep()
+    {
+        return step;
+    }
+
+    @JsonProperty("hashSymbol")
+    public Optional<Symbol> getHashSymbol()
+    {
+        return hashSymbol;
+    }
+
+    @JsonProperty("count")
+    public long getCount()
+    {
+        return count;
+    }
+
+    @JsonProperty("orderingScheme")
+    public OrderingScheme getOrderingScheme()
+    {
+        return orderingScheme;
+    }
+
+    @Override
+    public <R, C> R accept(PlanVisitor<R, C> visitor, C context)
+    {
+        return visitor.visitTopNAggregation(this, context);
+    }
+
+    @Override
+    public PlanNode replaceChildren(List<PlanNode> newChildren)
+    {
+        return new TopNAggregationNode(getId(), Iterables.getOnlyElement(newChildren), aggregations, groupingKeys, step, hashSymbol, count, orderingScheme);
+    }
+}
@@ -48,6 +48,7 @@ public class PlanNodeStats
     private final Map<String, OperatorInputStats> operatorInputStats;
     private final Map<String, OperatorHashCollisionsStats> operatorHashCollisionsStats;
     private final Optional<WindowOperatorStats> windowOperatorStats;
+    private final long partialAggregationSkippedPositions;
 
     PlanNodeStats(
             PlanNodeId planNodeId,
@@ -59,7 +60,8 @@ public class PlanNodeStats
             DataSize planNodeOutputDataSize,
             Map<String, OperatorInputStats> operatorInputStats,
             Map<String, OperatorHashCollisionsStats> operatorHashCollisionsStats,
-            Optional<WindowOperatorStats> windowOperatorStats)
+            Optional<WindowOperatorStats> windowOperatorStats,
+            long partialAggregationSkippedPositions)
     {
         this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
 
@@ -73,6 +75,7 @@ public class PlanNodeStats
         this.operatorInputStats = requireNonNull(operatorInputStats, "operatorInputStats is null");
         this.operatorHashCollisionsStats = requireNonNull(operatorHashCollisionsStats, "operatorHashCollisionsStats is null");
         this.windowOperatorStats = requireNonNull(windowOperatorStats, "windowOperatorStats is null");
+        this.partialAggregationSkippedPositions = partialAggregationSkippedPositions;
     }
 
     private static double computedStdDev(double sumSquared, double sum, long n)
@@ -182,6 +185,14 @@ public class PlanNodeStats
         return windowOperatorStats;
     }
 
+    /**
+     * Number of input rows which were not aggregated because partial aggregation was disabled at runtime.
+     */
+    public long getPartialAggregationSkippedPositions()
+    {
+        return partialAggregationSkippedPositions;
+    }
+
     @Override
     public PlanNodeStats mergeWith(PlanNodeStats other)
     {
@@ -204,6 +215,7 @@ public class PlanNodeStats
                 planNodeOutputPositions, planNodeOutputDataSize,
                 operatorInputStats,
                 operatorHashCollisionsStats,
-                windowNodeStats);
+                windowNodeStats,
+                partialAggregationSkippedPositions + other.partialAggregationSkippedPositions);
     }
 }
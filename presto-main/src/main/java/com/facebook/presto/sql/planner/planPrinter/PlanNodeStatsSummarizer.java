@@ -16,7 +16,9 @@ package com.facebook.presto.sql.planner.planPrinter;
 import com.facebook.presto.execution.StageInfo;
 import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.operator.HashCollisionsInfo;
+import com.facebook.presto.operator.OperatorInfo;
 import com.facebook.presto.operator.OperatorStats;
+import com.facebook.presto.operator.PartialAggregationInfo;
 import com.facebook.presto.operator.PipelineStats;
 import com.facebook.presto.operator.TaskStats;
 import com.facebook.presto.operator.WindowInfo;
@@ -78,6 +80,7 @@ public class PlanNodeStatsSummarizer
         Map<PlanNodeId, Map<String, OperatorInputStats>> operatorInputStats = new HashMap<>();
         Map<PlanNodeId, Map<String, OperatorHashCollisionsStats>> operatorHashCollisionsStats = new HashMap<>();
         Map<PlanNodeId, WindowOperatorStats> windowNodeStats = new HashMap<>();
+        Map<PlanNodeId, Long> partialAggregationSkippedPositions = new HashMap<>();
 
         for (PipelineStats pipelineStats : taskStats.getPipelines()) {
             // Due to eventual consistently collected stats, these could be empty
@@ -117,18 +120,23 @@ public class PlanNodeStatsSummarizer
                                         operatorStats.getSumSquaredInputPositions())),
                         (map1, map2) -> mergeMaps(map1, map2, OperatorInputStats::merge));
 
-                if (operatorStats.getInfo() instanceof HashCollisionsInfo) {
-                    HashCollisionsInfo hashCollisionsInfo = (HashCollisionsInfo) operatorStats.getInfo();
+                Optional<HashCollisionsInfo> hashCollisionsInfo = getHashCollisionsInfo(operatorStats.getInfo());
+                if (hashCollisionsInfo.isPresent()) {
                     operatorHashCollisionsStats.merge(planNodeId,
                             ImmutableMap.of(
                                     operatorStats.getOperatorType(),
                                     new OperatorHashCollisionsStats(
-                                            hashCollisionsInfo.getWeightedHashCollisions(),
-                                            hashCollisionsInfo.getWeightedSumSquaredHashCollisions(),
-                                            hashCollisionsInfo.getWeightedExpectedHashCollisions())),
+                                            hashCollisionsInfo.get().getWeightedHashCollisions(),
+                                            hashCollisionsInfo.get().getWeightedSumSquaredHashCollisions(),
+                                            hashCollisionsInfo.get().getWeightedExpectedHashCollisions())),
                             (map1, map2) -> mergeMaps(map1, map2, OperatorHashCollisionsStats::merge));
                 }
 
+                if (operatorStats.getInfo() instanceof PartialAggregationInfo) {
+                    PartialAggregationInfo partialAggregationInfo = (PartialAggregationInfo) operatorStats.getInfo();
+                    partialAggregationSkippedPositions.merge(planNodeId, partialAggregationInfo.getSkippedInputPositions(), Long::sum);
+                }
+
                 // The only statistics we have for Window Functions are very low level, thus displayed only in VERBOSE mode
                 if (operatorStats.getInfo() instanceof WindowInfo) {
                     WindowInfo windowInfo = (WindowInfo) operatorStats.getInfo();
@@ -179,8 +187,20 @@ public class PlanNodeStatsSummarizer
                     operatorInputStats.get(planNodeId),
                     // Only some operators emit hash collisions statistics
                     operatorHashCollisionsStats.getOrDefault(planNodeId, emptyMap()),
-                    Optional.ofNullable(windowNodeStats.get(planNodeId))));
+                    Optional.ofNullable(windowNodeStats.get(planNodeId)),
+                    partialAggregationSkippedPositions.getOrDefault(planNodeId, 0L)));
         }
         return stats;
     }
+
+    private static Optional<HashCollisionsInfo> getHashCollisionsInfo(OperatorInfo info)
+    {
+        if (info instanceof HashCollisionsInfo) {
+            return Optional.of((HashCollisionsInfo) info);
+        }
+        if (info instanceof PartialAggregationInfo) {
+            return Optional.of(((PartialAggregationInfo) info).getHashCollisionsInfo());
+        }
+        return Optional.empty();
+    }
 }
@@ -83,6 +83,7 @@ import com.facebook.presto.sql.planner.plan.StatisticAggregationsDescriptor;
 import com.facebook.presto.sql.planner.plan.TableFinishNode;
 import com.facebook.presto.sql.planner.plan.TableScanNode;
 import com.facebook.presto.sql.planner.plan.TableWriterNode;
+import com.facebook.presto.sql.planner.plan.TopNAggregationNode;
 import com.facebook.presto.sql.planner.plan.TopNNode;
 import com.facebook.presto.sql.planner.plan.TopNRowNumberNode;
 import com.facebook.presto.sql.planner.plan.UnionNode;
@@ -377,6 +378,14 @@ public class PlanPrinter
 
         printDistributions(indent, nodeStats);
 
+        if (nodeStats.getPartialAggregationSkippedPositions() > 0) {
+            output.append(indentString(indent));
+            output.append(format("Partial aggregation skipped for %s of %s",
+                    formatPositions(nodeStats.getPartialAggregationSkippedPositions()),
+                    formatPositions(nodeStats.getPlanNodeInputPositions())));
+            output.append('\n');
+        }
+
         if (nodeStats.getWindowOperatorStats().isPresent()) {
             // TODO: Once PlanNodeStats becomes broken into smaller classes, we should rely on toString() method of WindowOperatorStats here
             printWindowOperatorStats(indent, nodeStats.getWindowOperatorStats().get());
@@ -688,6 +697,37 @@ public class PlanPrinter
             return processChildren(node, indent + 1);
         }
 
+        @Override
+        public Void visitTopNAggregation(TopNAggregationNode node, Integer indent)
+        {
+            String type = "";
+            if (node.getStep() != AggregationNode.Step.SINGLE) {
+                type = format("(%s)", node.getStep().toString());
+            }
+            Iterable<String> orderBy = Iterables.transform(node.getOrderingScheme().getOrderBy(), input -> input + " " + node.getOrderingScheme().getOrdering(input));
+
+            print(indent, "- TopNAggregate%s%s%s[%s by (%s)] => [%s]",
+                    type,
+                    node.getGroupingKeys(),
+                    formatHash(node.getHashSymbol()),
+                    node.getCount(),
+                    Joiner.on(", ").join(orderBy),
+                    formatOutputs(node.getOutputSymbols()));
+            printPlanNodesStatsAndCost(indent + 2, node);
+            printStats(indent + 2, node.getId());
+
+            for (Map.Entry<Symbol, Aggregation> entry : node.getAggregations().entrySet()) {
+                if (entry.getValue().getMask().isPresent()) {
+                    print(indent + 2, "%s := %s (mask = %s)", entry.getKey(), entry.getValue().getCall(), entry.getValue().getMask().get());
+                }
+                else {
+                    print(indent + 2, "%s := %s", entry.getKey(), entry.getValue().getCall());
+                }
+            }
+
+            return processChildren(node, indent + 1);
+        }
+
         @Override
         public Void visitGroupId(GroupIdNode node, Integer indent)
         {
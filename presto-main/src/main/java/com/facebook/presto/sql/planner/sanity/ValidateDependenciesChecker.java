@@ -54,6 +54,7 @@ import com.facebook.presto.sql.planner.plan.SpatialJoinNode;
 import com.facebook.presto.sql.planner.plan.TableFinishNode;
 import com.facebook.presto.sql.planner.plan.TableScanNode;
 import com.facebook.presto.sql.planner.plan.TableWriterNode;
+import com.facebook.presto.sql.planner.plan.TopNAggregationNode;
 import com.facebook.presto.sql.planner.plan.TopNNode;
 import com.facebook.presto.sql.planner.plan.TopNRowNumberNode;
 import com.facebook.presto.sql.planner.plan.UnionNode;
@@ -131,6 +132,32 @@ public final class ValidateDependenciesChecker
             return null;
         }
 
+        @Override
+        public Void visitTopNAggregation(TopNAggregationNode node, Set<Symbol> boundSymbols)
+        {
+            PlanNode source = node.getSource();
+            source.accept(this, boundSymbols); // visit child
+
+            Set<Symbol> inputs = createInputs(source, boundSymbols);
+            checkDependencies(inputs, node.getGroupingKeys(), "Invalid node. Grouping key symbols (%s) not in source plan output (%s)", node.getGroupingKeys(), node.getSource().getOutputSymbols());
+
+            for (Aggregation aggregation : node.getAggregations().values()) {
+                Set<Symbol> dependencies = SymbolsExtractor.extractUnique(aggregation.getCall());
+                checkDependencies(inputs, dependencies, "Invalid node. Aggregation dependencies (%s) not in source plan output (%s)", dependencies, node.getSource().getOutputSymbols());
+                aggregation.getMask().ifPresent(mask -> {
+                    checkDependencies(inputs, ImmutableSet.of(mask), "Invalid node. Aggregation mask symbol (%s) not in source plan output (%s)", mask, node.getSource().getOutputSymbols());
+                });
+            }
+            checkDependencies(
+                    node.getOutputSymbols(),
+                    node.getOrderingScheme().getOrderBy(),
+                    "Invalid node. Order by dependencies (%s) not in aggregation output (%s)",
+                    node.getOrderingScheme().getOrderBy(),
+                    node.getOutputSymbols());
+
+            return null;
+        }
+
         @Override
         public Void visitGroupId(GroupIdNode node, Set<Symbol> boundSymbols)
         {
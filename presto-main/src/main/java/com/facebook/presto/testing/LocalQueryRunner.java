@@ -702,7 +702,7 @@ public class LocalQueryRunner
                 blockEncodingManager,
                 new PagesIndex.TestingFactory(false),
                 joinCompiler,
-                new LookupJoinOperators(),
+                new LookupJoinOperators(joinCompiler),
                 new OrderingCompiler());
 
         // plan query
@@ -46,6 +46,7 @@ import com.facebook.presto.sql.planner.plan.SpatialJoinNode;
 import com.facebook.presto.sql.planner.plan.TableFinishNode;
 import com.facebook.presto.sql.planner.plan.TableScanNode;
 import com.facebook.presto.sql.planner.plan.TableWriterNode;
+import com.facebook.presto.sql.planner.plan.TopNAggregationNode;
 import com.facebook.presto.sql.planner.plan.TopNNode;
 import com.facebook.presto.sql.planner.plan.TopNRowNumberNode;
 import com.facebook.presto.sql.planner.plan.UnionNode;
@@ -338,6 +339,24 @@ public final class GraphvizPrinter
             return node.getSource().accept(this, context);
         }
 
+        @Override
+        public Void visitTopNAggregation(TopNAggregationNode node, Void context)
+        {
+            StringBuilder builder = new StringBuilder();
+            for (Map.Entry<Symbol, Aggregation> entry : node.getAggregations().entrySet()) {
+                if (entry.getValue().getMask().isPresent()) {
+                    builder.append(format("%s := %s (mask = %s)\\n", entry.getKey(), entry.getValue().getCall(), entry.getValue().getMask().get()));
+                }
+                else {
+                    builder.append(format("%s := %s\\n", entry.getKey(), entry.getValue().getCall()));
+                }
+            }
+            Iterable<String> keys = Iterables.transform(node.getOrderingScheme().getOrderBy(), input -> input + " " + node.getOrderingScheme().getOrdering(input));
+            builder.append(Joiner.on(", ").join(keys));
+            printNode(node, format("TopNAggregate[%s, %s]", node.getStep(), node.getCount()), builder.toString(), NODE_COLORS.get(NodeType.AGGREGATE));
+            return node.getSource().accept(this, context);
+        }
+
         @Override
         public Void visitGroupId(GroupIdNode node, Void context)
         {
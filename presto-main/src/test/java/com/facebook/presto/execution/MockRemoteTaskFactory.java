@@ -239,6 +239,7 @@ public class MockRemoteTaskFactory
                             location,
                             nodeId,
                             ImmutableSet.of(),
+                            ImmutableMap.of(),
                             failures,
                             0,
                             0,
@@ -266,6 +267,7 @@ public class MockRemoteTaskFactory
                     location,
                     nodeId,
                     ImmutableSet.of(),
+                    ImmutableMap.of(),
                     ImmutableList.of(),
                     stats.getQueuedPartitionedDrivers(),
                     stats.getRunningPartitionedDrivers(),
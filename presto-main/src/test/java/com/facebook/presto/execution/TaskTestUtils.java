@@ -125,6 +125,7 @@ public final class TaskTestUtils
         NodePartitioningManager nodePartitioningManager = new NodePartitioningManager(nodeScheduler);
 
         PageFunctionCompiler pageFunctionCompiler = new PageFunctionCompiler(metadata, 0);
+        JoinCompiler joinCompiler = new JoinCompiler(MetadataManager.createTestMetadataManager(), new FeaturesConfig());
         return new LocalExecutionPlanner(
                 metadata,
                 new SqlParser(),
@@ -150,8 +151,8 @@ public final class TaskTestUtils
                 },
                 new BlockEncodingManager(new TestingTypeManager()),
                 new PagesIndex.TestingFactory(false),
-                new JoinCompiler(MetadataManager.createTestMetadataManager(), new FeaturesConfig()),
-                new LookupJoinOperators(),
+                joinCompiler,
+                new LookupJoinOperators(joinCompiler),
                 new OrderingCompiler());
     }
 
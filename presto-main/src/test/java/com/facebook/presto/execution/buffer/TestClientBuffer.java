@@ -174,6 +174,44 @@ public class TestClientBuffer
         assertBufferDestroyed(buffer, 6);
     }
 
+    @Test
+    public void testReadAheadWithoutAcknowledge()
+    {
+        ClientBuffer buffer = new ClientBuffer(TASK_INSTANCE_ID, BUFFER_ID);
+
+        // add three pages to the buffer
+        for (int i = 0; i < 3; i++) {
+            addPage(buffer, createPage(i));
+        }
+        assertBufferInfo(buffer, 3, 0);
+
+        // read ahead, which does not acknowledge the pages that were read
+        assertBufferResultEquals(TYPES, getFuture(buffer.getPagesWithoutAcknowledge(0, sizeOfPages(1)), NO_WAIT), bufferResult(0, createPage(0)));
+        assertBufferResultEquals(TYPES, getFuture(buffer.getPagesWithoutAcknowledge(1, sizeOfPages(10)), NO_WAIT), bufferResult(1, createPage(1), createPage(2)));
+        assertBufferInfo(buffer, 3, 0);
+
+        // the pages that were read ahead can be read again
+        assertBufferResultEquals(TYPES, getFuture(buffer.getPagesWithoutAcknowledge(1, sizeOfPages(1)), NO_WAIT), bufferResult(1, createPage(1)));
+
+        // a read after all pages waits for more pages
+        ListenableFuture<BufferResult> future = buffer.getPagesWithoutAcknowledge(3, sizeOfPages(10));
+        assertFalse(future.isDone());
+        addPage(buffer, createPage(3));
+        assertBufferResultEquals(TYPES, getFuture(future, NO_WAIT), bufferResult(3, createPage(3)));
+
+        // acknowledge the pages that were received
+        buffer.acknowledgePages(2);
+        assertBufferInfo(buffer, 2, 2);
+
+        // once no more pages are added, a read after the last page is the end of the buffer
+        buffer.setNoMorePages();
+        assertBufferResultEquals(TYPES, getFuture(buffer.getPagesWithoutAcknowledge(4, sizeOfPages(10)), NO_WAIT), emptyResults(TASK_INSTANCE_ID, 4, true));
+        assertBufferInfo(buffer, 2, 2);
+
+        buffer.destroy();
+        assertBufferDestroyed(buffer, 2);
+    }
+
     @Test
     public void testDuplicateRequests()
     {
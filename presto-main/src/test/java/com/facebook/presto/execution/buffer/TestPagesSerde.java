@@ -13,25 +13,39 @@
  */
 package com.facebook.presto.execution.buffer;
 
+import com.facebook.presto.block.BlockEncodingManager;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.type.TypeRegistry;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
+import static com.facebook.presto.execution.buffer.PageCompression.LZ4;
+import static com.facebook.presto.execution.buffer.PageCompression.UNCOMPRESSED;
 import static com.facebook.presto.execution.buffer.PagesSerdeUtil.readPages;
+import static com.facebook.presto.execution.buffer.PagesSerdeUtil.readSerializedPages;
 import static com.facebook.presto.execution.buffer.PagesSerdeUtil.writePages;
+import static com.facebook.presto.execution.buffer.PagesSerdeUtil.writeSerializedPages;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestPagesSerde
 {
@@ -59,6 +73,94 @@ public class TestPagesSerde
         assertFalse(pageIterator.hasNext());
     }
 
+    @Test
+    public void testStreamRoundTrip()
+            throws IOException
+    {
+        PagesSerde serde = new TestingPagesSerdeFactory().createPagesSerde();
+        Page compressiblePage = createVarcharPage(1000);
+        Page incompressiblePage = createRandomBigintPage(1000);
+        List<SerializedPage> serializedPages = ImmutableList.of(serde.serialize(compressiblePage), serde.serialize(incompressiblePage));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writeSerializedPages(output, serializedPages);
+        byte[] bytes = output.toByteArray();
+
+        // the stream format is the same as the format of the slice based methods
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        writeSerializedPages(sliceOutput, serializedPages);
+        assertEquals(bytes, sliceOutput.slice().getBytes());
+
+        List<SerializedPage> actualPages = readSerializedPages(new ByteArrayInputStream(bytes));
+        assertEquals(actualPages.size(), 2);
+        for (int i = 0; i < actualPages.size(); i++) {
+            SerializedPage actual = actualPages.get(i);
+            SerializedPage expected = serializedPages.get(i);
+            assertEquals(actual.getCompression(), expected.getCompression());
+            assertEquals(actual.getPositionCount(), expected.getPositionCount());
+            assertEquals(actual.getSlice(), expected.getSlice());
+            // each page is read into its own array of the exact size
+            assertEquals(actual.getSlice().getRetainedSize(), Slices.wrappedBuffer(new byte[expected.getSizeInBytes()]).getRetainedSize());
+        }
+        assertPageEquals(ImmutableList.of(VARCHAR), serde.deserialize(actualPages.get(0)), compressiblePage);
+        assertPageEquals(ImmutableList.of(BIGINT), serde.deserialize(actualPages.get(1)), incompressiblePage);
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void testStreamTruncated()
+            throws IOException
+    {
+        PagesSerde serde = new TestingPagesSerdeFactory().createPagesSerde();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writeSerializedPages(output, ImmutableList.of(serde.serialize(createVarcharPage(10))));
+        byte[] bytes = output.toByteArray();
+        readSerializedPages(new ByteArrayInputStream(bytes, 0, bytes.length - 1));
+    }
+
+    @Test
+    public void testCompressionCodecs()
+    {
+        Page page = createVarcharPage(1000);
+        // pages carry their codec, so the reading side does not need to be configured with the same one
+        PagesSerde reader = new PagesSerde(new BlockEncodingManager(new TypeRegistry()), UNCOMPRESSED, false);
+        for (PageCompression compression : PageCompression.values()) {
+            PagesSerde serde = new PagesSerde(new BlockEncodingManager(new TypeRegistry()), compression, false);
+            SerializedPage serializedPage = serde.serialize(page);
+            assertEquals(serializedPage.getCompression(), compression);
+            if (compression.isCompressed()) {
+                assertTrue(serializedPage.getSizeInBytes() < serializedPage.getUncompressedSizeInBytes());
+            }
+            assertPageEquals(ImmutableList.of(VARCHAR), reader.deserialize(serializedPage), page);
+        }
+    }
+
+    @Test
+    public void testAdaptiveCompression()
+    {
+        PagesSerde serde = new PagesSerde(new BlockEncodingManager(new TypeRegistry()), LZ4, true);
+        Page incompressiblePage = createRandomBigintPage(1000);
+        Page compressiblePage = createVarcharPage(1000);
+
+        assertEquals(serde.serialize(incompressiblePage).getCompression(), UNCOMPRESSED);
+        // compression is not attempted for the page after a page that did not compress well
+        assertEquals(serde.serialize(compressiblePage).getCompression(), UNCOMPRESSED);
+        assertEquals(serde.serialize(compressiblePage).getCompression(), LZ4);
+
+        PageCompressionStats stats = getOnlyElement(serde.getCompressionStats());
+        assertEquals(stats.getCompression(), LZ4);
+        assertEquals(stats.getPages(), 3);
+        assertEquals(stats.getUncompressedPages(), 2);
+        assertTrue(stats.getCompressionRatio() < 1.0);
+    }
+
+    @Test
+    public void testNonAdaptiveCompression()
+    {
+        PagesSerde serde = new PagesSerde(new BlockEncodingManager(new TypeRegistry()), LZ4, false);
+        assertEquals(serde.serialize(createRandomBigintPage(1000)).getCompression(), UNCOMPRESSED);
+        assertEquals(serde.serialize(createVarcharPage(1000)).getCompression(), LZ4);
+    }
+
     @Test
     public void testBigintSerializedSize()
     {
@@ -106,6 +208,25 @@ public class TestPagesSerde
         assertEquals(secondValueSize, 4 + 3); // length + "bob" (null shared with first entry)
     }
 
+    private static Page createVarcharPage(int positionCount)
+    {
+        BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(null, positionCount);
+        for (int i = 0; i < positionCount; i++) {
+            VARCHAR.writeString(blockBuilder, "value" + (i % 10));
+        }
+        return new Page(blockBuilder.build());
+    }
+
+    private static Page createRandomBigintPage(int positionCount)
+    {
+        Random random = new Random(42);
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, positionCount);
+        for (int i = 0; i < positionCount; i++) {
+            BIGINT.writeLong(blockBuilder, random.nextLong());
+        }
+        return new Page(blockBuilder.build());
+    }
+
     private static int serializedSize(List<? extends Type> types, Page expectedPage)
     {
         PagesSerde serde = new TestingPagesSerdeFactory().createPagesSerde();
@@ -20,6 +20,7 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.Constraint;
+import com.facebook.presto.spi.SplitAggregationType;
 import com.facebook.presto.spi.SystemTable;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.connector.ConnectorOutputMetadata;
@@ -279,6 +280,12 @@ public abstract class AbstractMockMetadata
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Optional<ColumnHandle> getSplitAggregationColumnHandle(Session session, TableLayoutHandle tableLayoutHandle, SplitAggregationType aggregationType, Optional<ColumnHandle> argument)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public boolean supportsMetadataDelete(Session session, TableHandle tableHandle, TableLayoutHandle tableLayoutHandle)
     {
@@ -17,8 +17,11 @@ import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.execution.Lifespan;
 import com.facebook.presto.operator.HashBuilderOperator.HashBuilderOperatorFactory;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spiller.SingleStreamSpillerFactory;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.TestingTaskContext;
 import com.google.common.collect.ImmutableList;
@@ -48,9 +51,11 @@ import java.util.OptionalInt;
 import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
@@ -59,6 +64,7 @@ import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static java.lang.String.format;
+import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
@@ -79,7 +85,8 @@ public class BenchmarkHashBuildAndJoinOperators
     private static final int HASH_BUILD_OPERATOR_ID = 1;
     private static final int HASH_JOIN_OPERATOR_ID = 2;
     private static final PlanNodeId TEST_PLAN_NODE_ID = new PlanNodeId("test");
-    private static final LookupJoinOperators LOOKUP_JOIN_OPERATORS = new LookupJoinOperators();
+    private static final JoinCompiler JOIN_COMPILER = new JoinCompiler(createTestMetadataManager(), new FeaturesConfig());
+    private static final LookupJoinOperators LOOKUP_JOIN_OPERATORS = new LookupJoinOperators(JOIN_COMPILER);
 
     @State(Thread)
     public static class BuildContext
@@ -145,6 +152,13 @@ public class BenchmarkHashBuildAndJoinOperators
             return types;
         }
 
+        public List<Type> getHashChannelTypes()
+        {
+            return hashChannels.stream()
+                    .map(types::get)
+                    .collect(toImmutableList());
+        }
+
         public List<Page> getBuildPages()
         {
             return buildPages;
@@ -308,7 +322,8 @@ public class BenchmarkHashBuildAndJoinOperators
                 10_000,
                 new PagesIndex.TestingFactory(false),
                 false,
-                SingleStreamSpillerFactory.unsupportedSingleStreamSpillerFactory());
+                SingleStreamSpillerFactory.unsupportedSingleStreamSpillerFactory(),
+                Optional.empty());
 
         Operator operator = hashBuilderOperatorFactory.createOperator(driverContext);
         for (Page page : buildContext.getBuildPages()) {
@@ -326,6 +341,43 @@ public class BenchmarkHashBuildAndJoinOperators
         return lookupSourceFactoryManager;
     }
 
+    @Benchmark
+    public long[] benchmarkProbeHashRowByRow(JoinContext joinContext)
+    {
+        HashGenerator hashGenerator = new InterpretedHashGenerator(joinContext.getHashChannelTypes(), joinContext.getHashChannels());
+        long[] rawHashes = new long[0];
+        for (Page page : joinContext.getProbePages()) {
+            if (rawHashes.length < page.getPositionCount()) {
+                rawHashes = new long[page.getPositionCount()];
+            }
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                rawHashes[position] = hashGenerator.hashPosition(position, page);
+            }
+        }
+        return rawHashes;
+    }
+
+    @Benchmark
+    public long[] benchmarkProbeHashBatch(JoinContext joinContext)
+    {
+        List<Type> hashChannelTypes = joinContext.getHashChannelTypes();
+        PagesHashStrategy hashStrategy = JOIN_COMPILER.compilePagesHashStrategyFactory(hashChannelTypes, IntStream.range(0, hashChannelTypes.size()).boxed().collect(toImmutableList()))
+                .createPagesHashStrategy(nCopies(hashChannelTypes.size(), ImmutableList.of()), OptionalInt.empty());
+        List<Integer> hashChannels = joinContext.getHashChannels();
+        Block[] hashBlocks = new Block[hashChannels.size()];
+        long[] rawHashes = new long[0];
+        for (Page page : joinContext.getProbePages()) {
+            if (rawHashes.length < page.getPositionCount()) {
+                rawHashes = new long[page.getPositionCount()];
+            }
+            for (int i = 0; i < hashBlocks.length; i++) {
+                hashBlocks[i] = page.getBlock(hashChannels.get(i));
+            }
+            hashStrategy.hashRows(new Page(page.getPositionCount(), hashBlocks), 0, page.getPositionCount(), rawHashes);
+        }
+        return rawHashes;
+    }
+
     @Benchmark
     public List<Page> benchmarkJoinHash(JoinContext joinContext)
     {
@@ -23,7 +23,10 @@ import com.facebook.presto.operator.PartitionedOutputOperator.PartitionedOutputF
 import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
 import com.facebook.presto.spi.type.RowType;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
@@ -37,7 +40,9 @@ import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.runner.Runner;
@@ -92,20 +97,34 @@ public class BenchmarkPartitionedOutputOperator
     @State(Scope.Thread)
     public static class BenchmarkData
     {
-        private static final int PAGE_COUNT = 5000;
-        private static final int PARTITION_COUNT = 512;
-        private static final int ENTRIES_PER_PAGE = 256;
+        // the same number of rows is processed for every page size
+        private static final int POSITION_COUNT = 5000 * 256;
         private static final DataSize MAX_MEMORY = new DataSize(1, GIGABYTE);
         private static final RowType rowType = RowType.anonymous(ImmutableList.of(VARCHAR, VARCHAR, VARCHAR, VARCHAR));
         private static final List<Type> TYPES = ImmutableList.of(BIGINT, rowType, rowType, rowType);
         private static final ExecutorService EXECUTOR = newCachedThreadPool(daemonThreadsNamed("test-EXECUTOR-%s"));
         private static final ScheduledExecutorService SCHEDULER = newScheduledThreadPool(1, daemonThreadsNamed("test-%s"));
 
-        private final Page dataPage = createPage();
+        @Param({"2", "16", "512"})
+        private int partitionCount = 512;
+
+        @Param({"256", "8192"})
+        private int entriesPerPage = 256;
+
+        @Param({"FLAT", "DICTIONARY", "RLE"})
+        private String encoding = "FLAT";
+
+        private Page dataPage;
+
+        @Setup
+        public void setup()
+        {
+            dataPage = createPage();
+        }
 
         private int getPageCount()
         {
-            return PAGE_COUNT;
+            return POSITION_COUNT / entriesPerPage;
         }
 
         public Page getDataPage()
@@ -115,10 +134,10 @@ public class BenchmarkPartitionedOutputOperator
 
         private PartitionedOutputOperator createPartitionedOutputOperator()
         {
-            PartitionFunction partitionFunction = new LocalPartitionGenerator(new InterpretedHashGenerator(ImmutableList.of(BIGINT), new int[] {0}), PARTITION_COUNT);
+            PartitionFunction partitionFunction = new LocalPartitionGenerator(new InterpretedHashGenerator(ImmutableList.of(BIGINT), new int[] {0}), partitionCount);
             PagesSerdeFactory serdeFactory = new PagesSerdeFactory(new BlockEncodingManager(new TypeRegistry()), false);
             OutputBuffers buffers = createInitialEmptyOutputBuffers(PARTITIONED);
-            for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            for (int partition = 0; partition < partitionCount; partition++) {
                 buffers = buffers.withBuffer(new OutputBuffers.OutputBufferId(partition), partition);
             }
             PartitionedOutputBuffer buffer = createPartitionedBuffer(
@@ -139,20 +158,41 @@ public class BenchmarkPartitionedOutputOperator
 
         private Page createPage()
         {
-            List<Object>[] testRows = generateTestRows(ImmutableList.of(VARCHAR, VARCHAR, VARCHAR, VARCHAR), ENTRIES_PER_PAGE);
+            List<Object>[] testRows = generateTestRows(ImmutableList.of(VARCHAR, VARCHAR, VARCHAR, VARCHAR), entriesPerPage);
             PageBuilder pageBuilder = new PageBuilder(TYPES);
             BlockBuilder bigintBlockBuilder = pageBuilder.getBlockBuilder(0);
             BlockBuilder rowBlockBuilder = pageBuilder.getBlockBuilder(1);
             BlockBuilder rowBlockBuilder2 = pageBuilder.getBlockBuilder(2);
             BlockBuilder rowBlockBuilder3 = pageBuilder.getBlockBuilder(3);
-            for (int i = 0; i < ENTRIES_PER_PAGE; i++) {
+            for (int i = 0; i < entriesPerPage; i++) {
                 BIGINT.writeLong(bigintBlockBuilder, i);
                 writeRow(testRows[i], rowBlockBuilder);
                 writeRow(testRows[i], rowBlockBuilder2);
                 writeRow(testRows[i], rowBlockBuilder3);
             }
-            pageBuilder.declarePositions(ENTRIES_PER_PAGE);
-            return pageBuilder.build();
+            pageBuilder.declarePositions(entriesPerPage);
+            Page page = pageBuilder.build();
+            if (encoding.equals("FLAT")) {
+                return page;
+            }
+
+            // the partitioning channel stays flat, the row channels are encoded
+            Block[] blocks = new Block[page.getChannelCount()];
+            blocks[0] = page.getBlock(0);
+            for (int channel = 1; channel < blocks.length; channel++) {
+                Block block = page.getBlock(channel);
+                if (encoding.equals("DICTIONARY")) {
+                    int[] ids = new int[entriesPerPage];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = ThreadLocalRandom.current().nextInt(entriesPerPage / 4);
+                    }
+                    blocks[channel] = new DictionaryBlock(block, ids);
+                }
+                else {
+                    blocks[channel] = new RunLengthEncodedBlock(block.getSingleValueBlock(0), entriesPerPage);
+                }
+            }
+            return new Page(entriesPerPage, blocks);
         }
 
         private void writeRow(List<Object> testRow, BlockBuilder rowBlockBuilder)
@@ -216,6 +256,7 @@ public class BenchmarkPartitionedOutputOperator
     {
         // assure the benchmarks are valid before running
         BenchmarkData data = new BenchmarkData();
+        data.setup();
         new BenchmarkPartitionedOutputOperator().addPage(data);
         Options options = new OptionsBuilder()
                 .verbosity(VerboseMode.NORMAL)
@@ -14,6 +14,11 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.operator.aggregation.InternalAggregationFunction;
+import com.facebook.presto.operator.window.AggregateWindowFunction;
+import com.facebook.presto.operator.window.FrameInfo;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.SortOrder;
@@ -41,16 +46,23 @@ import org.testng.annotations.Test;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createRLEBlock;
+import static com.facebook.presto.metadata.FunctionKind.AGGREGATE;
 import static com.facebook.presto.operator.BenchmarkWindowOperator.Context.ROWS_PER_PAGE;
 import static com.facebook.presto.operator.BenchmarkWindowOperator.Context.TOTAL_PAGES;
 import static com.facebook.presto.operator.TestWindowOperator.ROW_NUMBER;
 import static com.facebook.presto.operator.TestWindowOperator.createFactoryUnbounded;
+import static com.facebook.presto.operator.WindowFunctionDefinition.window;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.tree.FrameBound.Type.CURRENT_ROW;
+import static com.facebook.presto.sql.tree.FrameBound.Type.PRECEDING;
+import static com.facebook.presto.sql.tree.WindowFrame.Type.ROWS;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
@@ -213,13 +225,88 @@ public class BenchmarkWindowOperator
         }
     }
 
+    @State(Thread)
+    public static class SlidingFrameContext
+    {
+        private static final int TOTAL_PAGES = 20;
+        private static final MetadataManager METADATA = MetadataManager.createTestMetadataManager();
+
+        @Param({"sum", "max"})
+        public String function = "sum";
+
+        @Param({"10", "100", "1000"})
+        public int framePreceding = 1000;
+
+        private ExecutorService executor;
+        private ScheduledExecutorService scheduledExecutor;
+        private OperatorFactory operatorFactory;
+
+        private List<Page> pages;
+
+        @Setup
+        public void setup()
+        {
+            executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+            scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("test-scheduledExecutor-%s"));
+
+            // function(value) OVER (PARTITION BY page ORDER BY value ROWS BETWEEN framePreceding PRECEDING AND CURRENT ROW)
+            Signature signature = new Signature(function, AGGREGATE, BIGINT.getTypeSignature(), BIGINT.getTypeSignature());
+            InternalAggregationFunction aggregation = METADATA.getFunctionRegistry().getAggregateFunctionImplementation(signature);
+            FrameInfo frame = new FrameInfo(ROWS, PRECEDING, Optional.of(2), CURRENT_ROW, Optional.empty());
+            operatorFactory = createFactoryUnbounded(
+                    ImmutableList.of(BIGINT, BIGINT, BIGINT),
+                    Ints.asList(0, 1),
+                    ImmutableList.of(window(AggregateWindowFunction.supplier(signature, aggregation), BIGINT, frame, 1)),
+                    Ints.asList(0),
+                    Ints.asList(0),
+                    Ints.asList(1),
+                    ImmutableList.of(SortOrder.ASC_NULLS_LAST),
+                    1);
+
+            RowPagesBuilder pagesBuilder = RowPagesBuilder.rowPagesBuilder(BIGINT, BIGINT, BIGINT);
+            for (int i = 0; i < TOTAL_PAGES; i++) {
+                pagesBuilder.addBlocksPage(
+                        createRLEBlock(i, ROWS_PER_PAGE),
+                        createLongSequenceBlock(0, ROWS_PER_PAGE),
+                        createRLEBlock(framePreceding, ROWS_PER_PAGE));
+            }
+            pages = pagesBuilder.build();
+        }
+
+        public TaskContext createTaskContext()
+        {
+            return TestingTaskContext.createTaskContext(executor, scheduledExecutor, TEST_SESSION, new DataSize(2, GIGABYTE));
+        }
+
+        public OperatorFactory getOperatorFactory()
+        {
+            return operatorFactory;
+        }
+
+        public List<Page> getPages()
+        {
+            return pages;
+        }
+    }
+
     @Benchmark
     public List<Page> benchmark(BenchmarkWindowOperator.Context context)
     {
-        DriverContext driverContext = context.createTaskContext().addPipelineContext(0, true, true, false).addDriverContext();
-        Operator operator = context.getOperatorFactory().createOperator(driverContext);
+        return run(context.createTaskContext(), context.getOperatorFactory(), context.getPages());
+    }
+
+    @Benchmark
+    public List<Page> benchmarkSlidingFrame(SlidingFrameContext context)
+    {
+        return run(context.createTaskContext(), context.getOperatorFactory(), context.getPages());
+    }
+
+    private static List<Page> run(TaskContext taskContext, OperatorFactory operatorFactory, List<Page> pages)
+    {
+        DriverContext driverContext = taskContext.addPipelineContext(0, true, true, false).addDriverContext();
+        Operator operator = operatorFactory.createOperator(driverContext);
 
-        Iterator<Page> input = context.getPages().iterator();
+        Iterator<Page> input = pages.iterator();
         ImmutableList.Builder<Page> outputPages = ImmutableList.builder();
 
         boolean finishing = false;
@@ -292,6 +379,20 @@ public class BenchmarkWindowOperator
         verify(10, 3, true);
     }
 
+    @Test
+    public void verifySlidingFrame()
+    {
+        for (String function : ImmutableList.of("sum", "max")) {
+            SlidingFrameContext context = new SlidingFrameContext();
+            context.function = function;
+            context.framePreceding = 100;
+            context.setup();
+
+            List<Page> output = benchmarkSlidingFrame(context);
+            assertEquals(output.stream().mapToInt(Page::getPositionCount).sum(), SlidingFrameContext.TOTAL_PAGES * ROWS_PER_PAGE);
+        }
+    }
+
     private void verify(
             int numberOfRowsPerPartition,
             int numberOfPreGroupedColumns,
@@ -0,0 +1,293 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.buffer.PagesSerde;
+import com.facebook.presto.execution.buffer.SerializedPage;
+import com.facebook.presto.spi.Page;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableListMultimap;
+import io.airlift.http.client.HttpStatus;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.testing.TestingHttpClient;
+import io.airlift.http.client.testing.TestingResponse;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.units.DataSize;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
+import static com.facebook.presto.execution.buffer.PagesSerdeUtil.writeSerializedPages;
+import static com.facebook.presto.execution.buffer.TestingPagesSerdeFactory.testingPagesSerde;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Sets.newConcurrentHashSet;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Serves the page streams of the streaming exchange, honoring the credit granted by the client
+ * the way TaskResultsStream does.
+ */
+public class MockExchangeStreamProcessor
+        implements TestingHttpClient.Processor
+{
+    private static final String TASK_INSTANCE_ID = "task-instance-id";
+    private static final PagesSerde PAGES_SERDE = testingPagesSerde();
+    private static final long IDLE_TIMEOUT_NANOS = MILLISECONDS.toNanos(200);
+
+    private final LoadingCache<URI, MockBuffer> buffers = CacheBuilder.newBuilder().build(CacheLoader.from(MockBuffer::new));
+    private final ConcurrentMap<String, MockStream> streams = new ConcurrentHashMap<>();
+    private final Set<URI> deletedLocations = newConcurrentHashSet();
+
+    public void addPage(URI location, Page page)
+    {
+        buffers.getUnchecked(location).addPage(page);
+    }
+
+    public void setComplete(URI location)
+    {
+        buffers.getUnchecked(location).setCompleted();
+    }
+
+    public long getSentBytes()
+    {
+        return buffers.asMap().values().stream()
+                .mapToLong(MockBuffer::getSentBytes)
+                .sum();
+    }
+
+    public boolean isDeleted(URI location)
+    {
+        return deletedLocations.contains(location);
+    }
+
+    @Override
+    public Response handle(Request request)
+    {
+        if (request.getMethod().equalsIgnoreCase("DELETE")) {
+            deletedLocations.add(request.getUri());
+            return new TestingResponse(HttpStatus.NO_CONTENT, ImmutableListMultimap.of(), new byte[0]);
+        }
+
+        // {location}/{token}/stream/{streamId} or {location}/{token}/stream/{streamId}/credit
+        String uri = request.getUri().toString();
+        boolean creditRequest = uri.endsWith("/credit");
+        if (creditRequest) {
+            uri = uri.substring(0, uri.lastIndexOf('/'));
+        }
+        String streamId = uri.substring(uri.lastIndexOf('/') + 1);
+        uri = uri.substring(0, uri.lastIndexOf('/'));
+        assertTrue(uri.endsWith("/stream"), "Unexpected request: " + request.getUri());
+        uri = uri.substring(0, uri.lastIndexOf('/'));
+        long token = Long.parseLong(uri.substring(uri.lastIndexOf('/') + 1));
+        URI location = URI.create(uri.substring(0, uri.lastIndexOf('/')));
+
+        long credit = DataSize.valueOf(request.getHeader(PRESTO_MAX_SIZE)).toBytes();
+        assertTrue(credit > 0, "credit is not positive");
+
+        if (creditRequest) {
+            MockStream stream = streams.get(streamId);
+            if (stream != null) {
+                stream.grantCredit(credit);
+            }
+            return new TestingResponse(HttpStatus.NO_CONTENT, ImmutableListMultimap.of(), new byte[0]);
+        }
+
+        MockStream stream = new MockStream(buffers.getUnchecked(location), streamId, token, credit);
+        streams.put(streamId, stream);
+        return new TestingResponse(
+                HttpStatus.OK,
+                ImmutableListMultimap.of(
+                        CONTENT_TYPE, PRESTO_PAGES,
+                        PRESTO_TASK_INSTANCE_ID, TASK_INSTANCE_ID),
+                stream);
+    }
+
+    private class MockStream
+            extends InputStream
+    {
+        private final MockBuffer buffer;
+        private final String streamId;
+
+        @GuardedBy("this")
+        private long credit;
+
+        private long token;
+        private byte[] frame = new byte[0];
+        private int position;
+        private boolean ended;
+
+        public MockStream(MockBuffer buffer, String streamId, long token, long credit)
+        {
+            this.buffer = buffer;
+            this.streamId = streamId;
+            this.token = token;
+            this.credit = credit;
+        }
+
+        public synchronized void grantCredit(long bytes)
+        {
+            credit += bytes;
+            notifyAll();
+        }
+
+        @Override
+        public int read()
+                throws IOException
+        {
+            byte[] bytes = new byte[1];
+            int read = read(bytes, 0, 1);
+            return read < 0 ? -1 : bytes[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length)
+                throws IOException
+        {
+            if (position == frame.length) {
+                if (ended || !nextFrame()) {
+                    ended = true;
+                    streams.remove(streamId, this);
+                    return -1;
+                }
+            }
+            int read = Math.min(length, frame.length - position);
+            System.arraycopy(frame, position, bytes, offset, read);
+            position += read;
+            return read;
+        }
+
+        private synchronized boolean nextFrame()
+                throws InterruptedIOException
+        {
+            long deadline = System.nanoTime() + IDLE_TIMEOUT_NANOS;
+            while (credit <= 0 || !buffer.hasPagesAfter(token)) {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                try {
+                    NANOSECONDS.timedWait(this, Math.min(remainingNanos, MILLISECONDS.toNanos(10)));
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+
+            List<SerializedPage> pages = buffer.getPages(token, credit);
+            long nextToken = token + pages.size();
+            boolean complete = buffer.isComplete(nextToken);
+            long size = pages.stream()
+                    .mapToLong(SerializedPage::getSizeInBytes)
+                    .sum();
+
+            DynamicSliceOutput output = new DynamicSliceOutput(64);
+            output.writeLong(token);
+            output.writeLong(nextToken);
+            output.writeByte(complete ? 1 : 0);
+            output.writeInt(pages.size());
+            writeSerializedPages(output, pages);
+            frame = output.slice().getBytes();
+            position = 0;
+
+            credit -= size;
+            buffer.addSentBytes(size);
+            token = nextToken;
+            ended = complete;
+            return true;
+        }
+    }
+
+    private static class MockBuffer
+    {
+        private final URI location;
+
+        @GuardedBy("this")
+        private final List<SerializedPage> pages = new ArrayList<>();
+        @GuardedBy("this")
+        private boolean completed;
+        @GuardedBy("this")
+        private long sentBytes;
+
+        private MockBuffer(URI location)
+        {
+            this.location = location;
+        }
+
+        public synchronized void addPage(Page page)
+        {
+            checkState(!completed, "Location %s is complete", location);
+            pages.add(PAGES_SERDE.serialize(page));
+        }
+
+        public synchronized void setCompleted()
+        {
+            completed = true;
+        }
+
+        public synchronized boolean hasPagesAfter(long token)
+        {
+            return pages.size() > token || completed;
+        }
+
+        public synchronized boolean isComplete(long token)
+        {
+            return completed && pages.size() == token;
+        }
+
+        public synchronized List<SerializedPage> getPages(long token, long maxSize)
+        {
+            // like the output buffers, at least one page is returned even if it is larger than the max size
+            List<SerializedPage> result = new ArrayList<>();
+            long size = 0;
+            for (int i = (int) token; i < pages.size(); i++) {
+                SerializedPage page = pages.get(i);
+                if (!result.isEmpty() && size + page.getSizeInBytes() > maxSize) {
+                    break;
+                }
+                result.add(page);
+                size += page.getSizeInBytes();
+            }
+            return result;
+        }
+
+        public synchronized void addSentBytes(long bytes)
+        {
+            sentBytes += bytes;
+        }
+
+        public synchronized long getSentBytes()
+        {
+            return sentBytes;
+        }
+    }
+}
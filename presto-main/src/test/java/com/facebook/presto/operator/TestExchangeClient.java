@@ -30,19 +30,24 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import java.net.URI;
+import java.util.Optional;
+import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
 import static com.facebook.presto.execution.buffer.TestingPagesSerdeFactory.testingPagesSerde;
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Maps.uniqueIndex;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
 import static io.airlift.concurrent.MoreFutures.tryGetFutureValue;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.testing.Assertions.assertLessThan;
+import static java.lang.String.format;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -57,6 +62,7 @@ public class TestExchangeClient
 {
     private ScheduledExecutorService scheduler;
     private ExecutorService pageBufferClientCallbackExecutor;
+    private ExecutorService streamReaderExecutor;
 
     private static final PagesSerde PAGES_SERDE = testingPagesSerde();
 
@@ -65,6 +71,7 @@ public class TestExchangeClient
     {
         scheduler = newScheduledThreadPool(4, daemonThreadsNamed("test-%s"));
         pageBufferClientCallbackExecutor = Executors.newSingleThreadExecutor();
+        streamReaderExecutor = newCachedThreadPool(daemonThreadsNamed("test-stream-reader-%s"));
     }
 
     @AfterClass(alwaysRun = true)
@@ -78,6 +85,10 @@ public class TestExchangeClient
             pageBufferClientCallbackExecutor.shutdownNow();
             pageBufferClientCallbackExecutor = null;
         }
+        if (streamReaderExecutor != null) {
+            streamReaderExecutor.shutdownNow();
+            streamReaderExecutor = null;
+        }
     }
 
     @Test
@@ -320,6 +331,134 @@ public class TestExchangeClient
         assertEquals(clientStatus.getHttpRequestState(), "not scheduled", "httpRequestState");
     }
 
+    @Test(timeOut = 10000)
+    public void testStreaming()
+    {
+        MockExchangeStreamProcessor processor = new MockExchangeStreamProcessor();
+
+        URI location1 = URI.create("http://localhost:8081/foo");
+        URI location2 = URI.create("http://localhost:8082/bar");
+        processor.addPage(location1, createPage(1));
+        processor.addPage(location1, createPage(2));
+        processor.addPage(location1, createPage(3));
+        processor.setComplete(location1);
+        processor.addPage(location2, createPage(4));
+        processor.addPage(location2, createPage(5));
+        processor.setComplete(location2);
+
+        @SuppressWarnings("resource")
+        ExchangeClient exchangeClient = new ExchangeClient(
+                new DataSize(32, Unit.MEGABYTE),
+                new DataSize(10, Unit.MEGABYTE),
+                1,
+                new Duration(1, TimeUnit.MINUTES),
+                true,
+                new TestingHttpClient(processor, newCachedThreadPool(daemonThreadsNamed("test-%s"))),
+                scheduler,
+                new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
+                pageBufferClientCallbackExecutor,
+                Optional.of(streamReaderExecutor));
+
+        exchangeClient.addLocation(location1);
+        exchangeClient.addLocation(location2);
+        exchangeClient.noMoreLocations();
+
+        // the pages of each location arrive in order
+        int location1Pages = 0;
+        int location2Pages = 0;
+        for (int i = 0; i < 5; i++) {
+            SerializedPage page = getNextPage(exchangeClient);
+            assertNotNull(page);
+            if (page.getPositionCount() <= 3) {
+                assertEquals(page.getPositionCount(), ++location1Pages);
+            }
+            else {
+                assertEquals(page.getPositionCount(), 3 + ++location2Pages);
+            }
+        }
+        assertNull(getNextPage(exchangeClient));
+        assertEquals(exchangeClient.isClosed(), true);
+
+        // the remote buffers are deleted once they are complete
+        assertTrue(processor.isDeleted(location1));
+        assertTrue(processor.isDeleted(location2));
+
+        ImmutableMap<URI, PageBufferClientStatus> statuses = uniqueIndex(exchangeClient.getStatus().getPageBufferClientStatuses(), PageBufferClientStatus::getUri);
+        assertEquals(statuses.get(location1).getState(), "closed", "status");
+        assertEquals(statuses.get(location1).getPagesReceived(), 3, "pagesReceived");
+        assertEquals(statuses.get(location2).getState(), "closed", "status");
+        assertEquals(statuses.get(location2).getPagesReceived(), 2, "pagesReceived");
+    }
+
+    @Test(timeOut = 10000)
+    public void testStreamingCreditBackpressure()
+    {
+        MockExchangeStreamProcessor processor = new MockExchangeStreamProcessor();
+        DataSize bufferCapacity = new DataSize(256, Unit.KILOBYTE);
+
+        URI location1 = URI.create("http://localhost:8081/foo");
+        URI location2 = URI.create("http://localhost:8082/bar");
+        // random values do not compress, so each page is about 32kB on the wire
+        Random random = new Random(0);
+        int pageCount = 40;
+        long pageSize = 0;
+        for (int i = 0; i < 2 * pageCount; i++) {
+            Page page = new Page(createLongsBlock(random.longs(4000).boxed().collect(toImmutableList())));
+            pageSize = Math.max(pageSize, PAGES_SERDE.serialize(page).getSizeInBytes());
+            processor.addPage(i % 2 == 0 ? location1 : location2, page);
+        }
+        processor.setComplete(location1);
+        processor.setComplete(location2);
+
+        // the credit and the pages that are sent but not polled may exceed the capacity
+        // by one page of each stream, as a page larger than the remaining credit is still sent
+        long maxInFlightBytes = bufferCapacity.toBytes() + 2 * pageSize;
+
+        @SuppressWarnings("resource")
+        ExchangeClient exchangeClient = new ExchangeClient(
+                bufferCapacity,
+                new DataSize(1, Unit.MEGABYTE),
+                1,
+                new Duration(1, TimeUnit.MINUTES),
+                true,
+                new TestingHttpClient(processor, newCachedThreadPool(daemonThreadsNamed("test-%s"))),
+                scheduler,
+                new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
+                pageBufferClientCallbackExecutor,
+                Optional.of(streamReaderExecutor));
+
+        exchangeClient.addLocation(location1);
+        exchangeClient.addLocation(location2);
+        exchangeClient.noMoreLocations();
+
+        // without polling, the streams stop once the credit granted for the buffer is used up
+        long start = System.nanoTime();
+        long sentBytes;
+        do {
+            assertLessThan(Duration.nanosSince(start), new Duration(5, TimeUnit.SECONDS));
+            sentBytes = processor.getSentBytes();
+            sleepUninterruptibly(300, MILLISECONDS);
+        }
+        while (sentBytes == 0 || processor.getSentBytes() != sentBytes);
+        assertTrue(sentBytes <= maxInFlightBytes, format("sent %s bytes for a buffer of %s", sentBytes, bufferCapacity));
+        assertLessThan(exchangeClient.getStatus().getBufferedPages(), 2 * pageCount);
+
+        // polling grants more credit, but the pages in flight never exceed the buffer
+        long polledBytes = 0;
+        for (int i = 0; i < 2 * pageCount; i++) {
+            SerializedPage page = getNextPage(exchangeClient);
+            assertNotNull(page);
+            polledBytes += page.getSizeInBytes();
+            long inFlightBytes = processor.getSentBytes() - polledBytes;
+            assertTrue(inFlightBytes <= maxInFlightBytes, format("%s bytes in flight for a buffer of %s", inFlightBytes, bufferCapacity));
+        }
+        assertNull(getNextPage(exchangeClient));
+        assertEquals(exchangeClient.isClosed(), true);
+        assertEquals(processor.getSentBytes(), polledBytes);
+        assertTrue(processor.isDeleted(location1));
+        assertTrue(processor.isDeleted(location2));
+    }
+
     private static Page createPage(int size)
     {
         return new Page(BlockAssertions.createLongSequenceBlock(0, size));
@@ -40,7 +40,8 @@ public class TestExchangeClientConfig
                 .setMaxResponseSize(new HttpClientConfig().getMaxContentLength())
                 .setPageBufferClientMaxCallbackThreads(25)
                 .setClientThreads(25)
-                .setAcknowledgePages(true));
+                .setAcknowledgePages(true)
+                .setStreamingEnabled(false));
     }
 
     @Test
@@ -55,6 +56,7 @@ public class TestExchangeClientConfig
                 .put("exchange.client-threads", "2")
                 .put("exchange.page-buffer-client.max-callback-threads", "16")
                 .put("exchange.acknowledge-pages", "false")
+                .put("exchange.streaming-enabled", "true")
                 .build();
 
         ExchangeClientConfig expected = new ExchangeClientConfig()
@@ -65,7 +67,8 @@ public class TestExchangeClientConfig
                 .setMaxResponseSize(new DataSize(1, Unit.MEGABYTE))
                 .setClientThreads(2)
                 .setPageBufferClientMaxCallbackThreads(16)
-                .setAcknowledgePages(false);
+                .setAcknowledgePages(false)
+                .setStreamingEnabled(true);
 
         assertFullMapping(properties, expected);
     }
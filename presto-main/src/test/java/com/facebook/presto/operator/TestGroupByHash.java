@@ -32,8 +32,11 @@ import org.testng.annotations.Test;
 
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
@@ -44,6 +47,7 @@ import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
 import static com.facebook.presto.spi.block.DictionaryId.randomDictionaryId;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.type.TypeUtils.getHashBlock;
 import static com.google.common.math.DoubleMath.log2;
@@ -232,6 +236,58 @@ public class TestGroupByHash
         assertTrue(groupByHash.contains(0, new Page(testValuesBlock, testStringValuesBlock, testHashBlock), hashChannels));
     }
 
+    @Test
+    public void testFixedWidthMultipleColumns()
+    {
+        List<Integer> intValues = new ArrayList<>();
+        List<Long> longValues = new ArrayList<>();
+        Set<List<Object>> distinctRows = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            Integer intValue = i % 7 == 0 ? null : i % 10 - 5;
+            Long longValue = i % 11 == 0 ? null : (long) (i % 4) * Integer.MIN_VALUE;
+            intValues.add(intValue);
+            longValues.add(longValue);
+            distinctRows.add(Arrays.asList(intValue, longValue));
+        }
+        List<Type> types = ImmutableList.of(INTEGER, BIGINT);
+        Block intBlock = BlockAssertions.createIntsBlock(intValues);
+        Block longBlock = BlockAssertions.createLongsBlock(longValues);
+        Block hashBlock = TypeUtils.getHashBlock(types, intBlock, longBlock);
+        int[] hashChannels = {0, 1};
+
+        // a small expected size forces rehashing
+        GroupByHash groupByHash = createGroupByHash(TEST_SESSION, types, hashChannels, Optional.of(2), 4, JOIN_COMPILER);
+        assertTrue(groupByHash instanceof FixedWidthGroupByHash);
+        assertEquals(groupByHash.getTypes(), ImmutableList.of(INTEGER, BIGINT, BIGINT));
+        groupByHash.addPage(new Page(intBlock, longBlock, hashBlock)).process();
+        assertEquals(groupByHash.getGroupCount(), distinctRows.size());
+
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        for (int i = 0; i < groupByHash.getGroupCount(); i++) {
+            pageBuilder.declarePosition();
+            groupByHash.appendValuesTo(i, pageBuilder, 0);
+        }
+        Page outputPage = pageBuilder.build();
+        BlockAssertions.assertBlockEquals(BIGINT, outputPage.getBlock(2), TypeUtils.getHashBlock(types, outputPage.getBlock(0), outputPage.getBlock(1)));
+        for (int i = 0; i < groupByHash.getGroupCount(); i++) {
+            assertEquals(groupByHash.getRawHash(i), BIGINT.getLong(outputPage.getBlock(2), i));
+            assertTrue(groupByHash.contains(i, outputPage, hashChannels));
+        }
+
+        // the output rows map back to their own groups
+        Work<GroupByIdBlock> work = groupByHash.getGroupIds(outputPage);
+        work.process();
+        GroupByIdBlock groupIds = work.getResult();
+        for (int i = 0; i < groupIds.getPositionCount(); i++) {
+            assertEquals(groupIds.getGroupId(i), i);
+        }
+        assertEquals(groupByHash.getGroupCount(), distinctRows.size());
+
+        Block testIntBlock = BlockAssertions.createIntsBlock(3);
+        Block testLongBlock = BlockAssertions.createLongsBlock(5L);
+        assertFalse(groupByHash.contains(0, new Page(testIntBlock, testLongBlock), hashChannels));
+    }
+
     @Test
     public void testForceRehash()
     {
@@ -64,6 +64,7 @@ import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEqual
 import static com.facebook.presto.operator.OperatorAssertion.dropChannel;
 import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
 import static com.facebook.presto.operator.OperatorAssertion.toPages;
+import static com.facebook.presto.spi.block.SortOrder.DESC_NULLS_LAST;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
@@ -578,6 +579,119 @@ public class TestHashAggregationOperator
         assertEquals(driverContext.getMemoryUsage(), 0);
     }
 
+    @Test(dataProvider = "hashEnabled")
+    public void testAdaptivePartialAggregation(boolean hashEnabled)
+            throws Exception
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(500, 0)
+                .addSequencePage(500, 500)
+                .addSequencePage(500, 1000)
+                .addSequencePage(500, 1500)
+                .build();
+
+        PartialAggregationController partialAggregationController = new PartialAggregationController(500, 0.8);
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                Step.PARTIAL,
+                false,
+                ImmutableList.of(LONG_SUM.bind(ImmutableList.of(0), Optional.empty()),
+                        COUNT.bind(ImmutableList.of(), Optional.empty())),
+                rowPagesBuilder.getHashChannel(),
+                Optional.empty(),
+                100_000,
+                Optional.of(new DataSize(16, MEGABYTE)),
+                false,
+                succinctBytes(0),
+                spillerFactory,
+                joinCompiler,
+                false,
+                Optional.of(partialAggregationController),
+                Optional.empty());
+
+        DriverContext driverContext = createDriverContext();
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT, BIGINT);
+        for (long i = 0; i < 2000; i++) {
+            expected.row(i, i, 1L);
+        }
+
+        try (Operator operator = operatorFactory.createOperator(driverContext)) {
+            List<Page> outputPages = toPages(operator, input.iterator());
+
+            // the first page has as many groups as rows, so the remaining pages are passed through
+            assertTrue(partialAggregationController.isPartialAggregationDisabled());
+            PartialAggregationInfo info = (PartialAggregationInfo) operator.getOperatorContext().getOperatorStats().getInfo();
+            assertEquals(info.getSkippedInputPositions(), 1500);
+
+            if (hashEnabled) {
+                outputPages = dropChannel(outputPages, ImmutableList.of(1));
+            }
+            MaterializedResult actual = toMaterializedResult(driverContext.getSession(), expected.build().getTypes(), outputPages);
+            assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.build().getMaterializedRows());
+        }
+    }
+
+    @Test(dataProvider = "hashEnabled")
+    public void testTopN(boolean hashEnabled)
+            throws Exception
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT, BIGINT);
+        for (long i = 0; i < 1000; i++) {
+            rowPagesBuilder.row(i % 100, i);
+            if (i % 300 == 299) {
+                rowPagesBuilder.pageBreak();
+            }
+        }
+        List<Page> input = rowPagesBuilder.build();
+
+        // the sum is the second output channel, after the group by and hash channels
+        int sumChannel = hashEnabled ? 2 : 1;
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                Step.SINGLE,
+                false,
+                ImmutableList.of(LONG_SUM.bind(ImmutableList.of(1), Optional.empty())),
+                rowPagesBuilder.getHashChannel(),
+                Optional.empty(),
+                100_000,
+                Optional.empty(),
+                false,
+                succinctBytes(0),
+                spillerFactory,
+                joinCompiler,
+                false,
+                Optional.empty(),
+                Optional.of(new AggregationTopN(3, ImmutableList.of(sumChannel), ImmutableList.of(DESC_NULLS_LAST))));
+
+        DriverContext driverContext = createDriverContext();
+        // the sum of the group k is 10 * k + 4500
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT)
+                .row(99L, 5490L)
+                .row(98L, 5480L)
+                .row(97L, 5470L)
+                .build();
+
+        try (Operator operator = operatorFactory.createOperator(driverContext)) {
+            List<Page> outputPages = toPages(operator, input.iterator());
+            if (hashEnabled) {
+                outputPages = dropChannel(outputPages, ImmutableList.of(1));
+            }
+            MaterializedResult actual = toMaterializedResult(driverContext.getSession(), expected.getTypes(), outputPages);
+            assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
+        }
+    }
+
     @Test
     public void testMergeWithMemorySpill()
     {
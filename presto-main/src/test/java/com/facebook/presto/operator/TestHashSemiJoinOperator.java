@@ -19,6 +19,8 @@ import com.facebook.presto.operator.HashSemiJoinOperator.HashSemiJoinOperatorFac
 import com.facebook.presto.operator.SetBuilderOperator.SetBuilderOperatorFactory;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.GenericPartitioningSpillerFactory;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
@@ -33,6 +35,7 @@ import org.testng.annotations.Test;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -41,19 +44,23 @@ import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
 import static com.facebook.presto.operator.GroupByHashYieldAssertion.createPagesWithDistinctHashKeys;
 import static com.facebook.presto.operator.GroupByHashYieldAssertion.finishOperatorWithYieldingGroupByHash;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static com.google.common.collect.Iterables.concat;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static io.airlift.testing.Assertions.assertGreaterThan;
 import static io.airlift.testing.Assertions.assertGreaterThanOrEqual;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestHashSemiJoinOperator
@@ -151,6 +158,200 @@ public class TestHashSemiJoinOperator
         OperatorAssertion.assertOperatorEquals(joinOperatorFactory, driverContext, probeInput, expected, hashEnabled, ImmutableList.of(probeTypes.size()));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testSemiJoinWithSpill(boolean hashEnabled)
+            throws Exception
+    {
+        DriverContext buildDriverContext = taskContext.addPipelineContext(0, true, true, false).addDriverContext();
+        DriverContext probeDriverContext = taskContext.addPipelineContext(1, true, true, false).addDriverContext();
+        DummySingleStreamSpillerFactory spillerFactory = new DummySingleStreamSpillerFactory();
+        PartitioningSpillerFactory partitioningSpillerFactory = new GenericPartitioningSpillerFactory(spillerFactory);
+
+        // build, spilling the set after the first page
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT);
+        List<Page> buildInput = rowPagesBuilder
+                .row(10L)
+                .row(30L)
+                .row(35L)
+                .pageBreak()
+                .row(36L)
+                .row((Object) null)
+                .row(50L)
+                .build();
+        SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(
+                1,
+                new PlanNodeId("test"),
+                BIGINT,
+                0,
+                rowPagesBuilder.getHashChannel(),
+                10,
+                new JoinCompiler(createTestMetadataManager(), new FeaturesConfig()),
+                true,
+                OptionalInt.of(1),
+                partitioningSpillerFactory);
+        SetBuilderOperator setBuilderOperator = (SetBuilderOperator) setBuilderOperatorFactory.createOperator(buildDriverContext);
+
+        setBuilderOperator.addInput(buildInput.get(0));
+        getFutureValue(setBuilderOperator.startMemoryRevoke());
+        setBuilderOperator.finishMemoryRevoke();
+        assertEquals(setBuilderOperator.getState(), SetBuilderOperator.State.SPILLING_INPUT);
+        assertTrue(setBuilderOperator.needsInput());
+        setBuilderOperator.addInput(buildInput.get(1));
+        setBuilderOperator.finish();
+        assertEquals(setBuilderOperator.getState(), SetBuilderOperator.State.INPUT_SPILLED);
+
+        // probe
+        List<Page> probeInput = rowPagesBuilder(BIGINT)
+                .addSequencePage(10, 30)
+                .build();
+        HashSemiJoinOperatorFactory joinOperatorFactory = new HashSemiJoinOperatorFactory(
+                2,
+                new PlanNodeId("test"),
+                setBuilderOperatorFactory.getSetProvider(),
+                ImmutableList.of(BIGINT),
+                0,
+                partitioningSpillerFactory);
+        Operator joinOperator = joinOperatorFactory.createOperator(probeDriverContext);
+        assertTrue(joinOperator.needsInput());
+        joinOperator.addInput(probeInput.get(0));
+        joinOperator.finish();
+
+        // the partitions of the set are unspilled one at a time, as they are requested by the probe
+        ImmutableList.Builder<Page> output = ImmutableList.builder();
+        while (!joinOperator.isFinished()) {
+            setBuilderOperator.finish();
+            Page page = joinOperator.getOutput();
+            if (page != null) {
+                output.add(page);
+            }
+        }
+        joinOperator.close();
+        setBuilderOperator.finish();
+        assertEquals(setBuilderOperator.getState(), SetBuilderOperator.State.CLOSED);
+
+        // the null in the spilled set makes the result of non matching values unknown
+        MaterializedResult expected = resultBuilder(probeDriverContext.getSession(), BIGINT, BOOLEAN)
+                .row(30L, true)
+                .row(31L, null)
+                .row(32L, null)
+                .row(33L, null)
+                .row(34L, null)
+                .row(35L, true)
+                .row(36L, true)
+                .row(37L, null)
+                .row(38L, null)
+                .row(39L, null)
+                .build();
+        MaterializedResult actual = toMaterializedResult(probeDriverContext.getSession(), expected.getTypes(), output.build());
+        assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
+        assertGreaterThan(spillerFactory.getSpillsCount(), 0L);
+    }
+
+    @DataProvider
+    public static Object[][] closeDuringConsumptionValues()
+    {
+        return new Object[][] {{true}, {false}};
+    }
+
+    @Test(dataProvider = "closeDuringConsumptionValues", timeOut = 30_000)
+    public void testSemiJoinWithSpillAndEarlyClosedProbe(boolean closeDuringConsumption)
+    {
+        DriverContext buildDriverContext = taskContext.addPipelineContext(0, true, true, false).addDriverContext();
+        PipelineContext probePipelineContext = taskContext.addPipelineContext(1, true, true, false);
+        DriverContext probeDriverContext = probePipelineContext.addDriverContext();
+        DriverContext earlyClosedProbeDriverContext = probePipelineContext.addDriverContext();
+        PartitioningSpillerFactory partitioningSpillerFactory = new GenericPartitioningSpillerFactory(new DummySingleStreamSpillerFactory());
+
+        // build with two probe operators, spilling the set after the first page
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(false, Ints.asList(0), BIGINT);
+        List<Page> buildInput = rowPagesBuilder
+                .row(10L)
+                .row(30L)
+                .row(35L)
+                .pageBreak()
+                .row(36L)
+                .row(50L)
+                .build();
+        SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(
+                1,
+                new PlanNodeId("test"),
+                BIGINT,
+                0,
+                rowPagesBuilder.getHashChannel(),
+                10,
+                new JoinCompiler(createTestMetadataManager(), new FeaturesConfig()),
+                true,
+                OptionalInt.of(2),
+                partitioningSpillerFactory);
+        SetBuilderOperator setBuilderOperator = (SetBuilderOperator) setBuilderOperatorFactory.createOperator(buildDriverContext);
+
+        setBuilderOperator.addInput(buildInput.get(0));
+        getFutureValue(setBuilderOperator.startMemoryRevoke());
+        setBuilderOperator.finishMemoryRevoke();
+        setBuilderOperator.addInput(buildInput.get(1));
+        setBuilderOperator.finish();
+        assertEquals(setBuilderOperator.getState(), SetBuilderOperator.State.INPUT_SPILLED);
+
+        // probe
+        List<Page> probeInput = rowPagesBuilder(BIGINT)
+                .addSequencePage(10, 30)
+                .build();
+        HashSemiJoinOperatorFactory joinOperatorFactory = new HashSemiJoinOperatorFactory(
+                2,
+                new PlanNodeId("test"),
+                setBuilderOperatorFactory.getSetProvider(),
+                ImmutableList.of(BIGINT),
+                0,
+                partitioningSpillerFactory);
+        Operator joinOperator = joinOperatorFactory.createOperator(probeDriverContext);
+        Operator earlyClosedJoinOperator = joinOperatorFactory.createOperator(earlyClosedProbeDriverContext);
+
+        // the early closed operator either never finishes, or stops in the middle of the consumption of the partitions
+        earlyClosedJoinOperator.addInput(probeInput.get(0));
+        boolean earlyClosed = false;
+        if (closeDuringConsumption) {
+            earlyClosedJoinOperator.finish();
+        }
+        else {
+            earlyClosedJoinOperator.close();
+            earlyClosed = true;
+        }
+        joinOperator.addInput(probeInput.get(0));
+        joinOperator.finish();
+
+        ImmutableList.Builder<Page> output = ImmutableList.builder();
+        while (!joinOperator.isFinished()) {
+            setBuilderOperator.finish();
+            if (!earlyClosed && earlyClosedJoinOperator.getOutput() != null) {
+                earlyClosedJoinOperator.close();
+                earlyClosed = true;
+            }
+            Page page = joinOperator.getOutput();
+            if (page != null) {
+                output.add(page);
+            }
+        }
+        assertTrue(earlyClosed);
+        joinOperator.close();
+        setBuilderOperator.finish();
+        assertEquals(setBuilderOperator.getState(), SetBuilderOperator.State.CLOSED);
+
+        MaterializedResult expected = resultBuilder(probeDriverContext.getSession(), BIGINT, BOOLEAN)
+                .row(30L, true)
+                .row(31L, false)
+                .row(32L, false)
+                .row(33L, false)
+                .row(34L, false)
+                .row(35L, true)
+                .row(36L, true)
+                .row(37L, false)
+                .row(38L, false)
+                .row(39L, false)
+                .build();
+        MaterializedResult actual = toMaterializedResult(probeDriverContext.getSession(), expected.getTypes(), output.build());
+        assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
+    }
+
     @Test(dataProvider = "dataType")
     public void testSemiJoinMemoryReservationYield(Type type)
     {
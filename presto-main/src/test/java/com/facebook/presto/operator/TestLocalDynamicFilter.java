@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.memory.context.SimpleLocalMemoryContext;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestLocalDynamicFilter
+{
+    @Test
+    public void testCollectAllPartitions()
+    {
+        LocalDynamicFilter dynamicFilter = new LocalDynamicFilter(ImmutableList.of(BIGINT, VARCHAR), 100);
+        dynamicFilter.bindBuildSide(ImmutableList.of(1, 0), 2);
+
+        LocalDynamicFilter.PartitionCollector first = dynamicFilter.createPartitionCollector(newTestingMemoryContext());
+        LocalDynamicFilter.PartitionCollector second = dynamicFilter.createPartitionCollector(newTestingMemoryContext());
+
+        first.add(new Page(createStringsBlock("a", null), createLongsBlock(1L, null)));
+        first.finish();
+        assertFalse(dynamicFilter.getValues(0).isPresent());
+
+        second.add(new Page(createStringsBlock("b", "a"), createLongsBlock(2L, 1L)));
+        second.finish();
+        assertEquals(dynamicFilter.getValues(0), Optional.of(ImmutableSet.of(1L, 2L)));
+        assertEquals(dynamicFilter.getValues(1), Optional.of(ImmutableSet.of(utf8Slice("a"), utf8Slice("b"))));
+    }
+
+    @Test
+    public void testTooManyValues()
+    {
+        LocalDynamicFilter dynamicFilter = new LocalDynamicFilter(ImmutableList.of(BIGINT), 10);
+        dynamicFilter.bindBuildSide(ImmutableList.of(0), 2);
+
+        LocalDynamicFilter.PartitionCollector first = dynamicFilter.createPartitionCollector(newTestingMemoryContext());
+        first.add(new Page(createLongSequenceBlock(0, 100)));
+        first.finish();
+
+        LocalDynamicFilter.PartitionCollector second = dynamicFilter.createPartitionCollector(newTestingMemoryContext());
+        second.add(new Page(createLongSequenceBlock(0, 5)));
+        second.finish();
+
+        assertFalse(dynamicFilter.getValues(0).isPresent());
+    }
+
+    @Test
+    public void testMemoryAccounting()
+    {
+        LocalDynamicFilter dynamicFilter = new LocalDynamicFilter(ImmutableList.of(BIGINT), 10);
+        dynamicFilter.bindBuildSide(ImmutableList.of(0), 2);
+
+        LocalMemoryContext firstMemory = newTestingMemoryContext();
+        LocalDynamicFilter.PartitionCollector first = dynamicFilter.createPartitionCollector(firstMemory);
+        first.add(new Page(createLongSequenceBlock(0, 5)));
+        long reserved = firstMemory.getBytes();
+        assertTrue(reserved > 0);
+
+        // duplicate values do not need more memory
+        first.add(new Page(createLongSequenceBlock(0, 5)));
+        assertEquals(firstMemory.getBytes(), reserved);
+
+        // the values stay reserved while they are part of the filter
+        first.finish();
+        assertEquals(firstMemory.getBytes(), reserved);
+        first.close();
+        assertEquals(firstMemory.getBytes(), 0);
+
+        // the values are released as soon as the partition has too many of them
+        LocalMemoryContext secondMemory = newTestingMemoryContext();
+        LocalDynamicFilter.PartitionCollector second = dynamicFilter.createPartitionCollector(secondMemory);
+        second.add(new Page(createLongSequenceBlock(0, 100)));
+        assertEquals(secondMemory.getBytes(), 0);
+    }
+
+    @Test
+    public void testPageFilter()
+    {
+        LocalDynamicFilter dynamicFilter = new LocalDynamicFilter(ImmutableList.of(BIGINT), 100);
+        dynamicFilter.bindBuildSide(ImmutableList.of(0), 1);
+        DynamicPageFilter pageFilter = new DynamicPageFilter(ImmutableList.of(new DynamicPageFilter.Constraint(dynamicFilter, 0, 1)));
+
+        Page page = new Page(
+                createStringsBlock("a", "b", "c", "d"),
+                createLongsBlock(1L, 2L, null, 4L));
+
+        // filter is not applied until the build side is finished
+        assertSame(pageFilter.filter(page), page);
+
+        LocalDynamicFilter.PartitionCollector collector = dynamicFilter.createPartitionCollector(newTestingMemoryContext());
+        collector.add(new Page(createLongsBlock(2L, 4L, 5L)));
+        collector.finish();
+
+        Page filtered = pageFilter.filter(page);
+        assertEquals(filtered.getPositionCount(), 2);
+        assertEquals(VARCHAR.getSlice(filtered.getBlock(0), 0), utf8Slice("b"));
+        assertEquals(VARCHAR.getSlice(filtered.getBlock(0), 1), utf8Slice("d"));
+        assertEquals(BIGINT.getLong(filtered.getBlock(1), 0), 2L);
+        assertEquals(BIGINT.getLong(filtered.getBlock(1), 1), 4L);
+    }
+
+    @Test
+    public void testPageFilterPreservesLazyBlocks()
+    {
+        LocalDynamicFilter dynamicFilter = new LocalDynamicFilter(ImmutableList.of(BIGINT), 100);
+        dynamicFilter.bindBuildSide(ImmutableList.of(0), 1);
+        LocalDynamicFilter.PartitionCollector collector = dynamicFilter.createPartitionCollector(newTestingMemoryContext());
+        collector.add(new Page(createLongsBlock(3L)));
+        collector.finish();
+
+        DynamicPageFilter pageFilter = new DynamicPageFilter(ImmutableList.of(new DynamicPageFilter.Constraint(dynamicFilter, 0, 0)));
+        LazyBlock lazyBlock = new LazyBlock(5, block -> block.setBlock(createLongSequenceBlock(10, 15)));
+        Page filtered = pageFilter.filter(new Page(createLongSequenceBlock(0, 5), lazyBlock));
+
+        assertEquals(filtered.getPositionCount(), 1);
+        assertFalse(lazyBlock.isLoaded());
+        assertTrue(filtered.getBlock(1) instanceof LazyBlock);
+        assertEquals(BIGINT.getLong(filtered.getBlock(1), 0), 13L);
+        assertTrue(lazyBlock.isLoaded());
+    }
+
+    private static LocalMemoryContext newTestingMemoryContext()
+    {
+        return new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test");
+    }
+}
@@ -18,6 +18,7 @@ import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.operator.MarkDistinctOperator.MarkDistinctOperatorFactory;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.GenericPartitioningSpillerFactory;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
@@ -106,6 +107,42 @@ public class TestMarkDistinctOperator
         OperatorAssertion.assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected.build(), hashEnabled, Optional.of(1));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testMarkDistinctWithSpill(boolean hashEnabled)
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0, 1), BIGINT, VARCHAR);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(100, 0, 0)
+                .addSequencePage(100, 50, 50)
+                .addSequencePage(100, 0, 0)
+                .build();
+
+        DummySingleStreamSpillerFactory spillerFactory = new DummySingleStreamSpillerFactory();
+        OperatorFactory operatorFactory = new MarkDistinctOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                rowPagesBuilder.getTypes(),
+                ImmutableList.of(0, 1),
+                rowPagesBuilder.getHashChannel(),
+                joinCompiler,
+                true,
+                new GenericPartitioningSpillerFactory(spillerFactory));
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, VARCHAR, BOOLEAN);
+        for (long i = 0; i < 150; i++) {
+            expected.row(i, String.valueOf(i), true);
+        }
+        for (long i = 50; i < 100; i++) {
+            expected.row(i, String.valueOf(i), false);
+        }
+        for (long i = 0; i < 100; i++) {
+            expected.row(i, String.valueOf(i), false);
+        }
+
+        OperatorAssertion.assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected.build(), hashEnabled, Optional.of(2));
+        assertGreaterThan(spillerFactory.getSpillsCount(), 0L);
+    }
+
     @Test(dataProvider = "dataType")
     public void testMemoryReservationYield(Type type)
     {
@@ -26,6 +26,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -43,6 +44,7 @@ import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestOrderByOperator
@@ -161,6 +163,46 @@ public class TestOrderByOperator
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
     }
 
+    @Test
+    public void testMultiFieldKeyWithSpill()
+    {
+        List<Page> input = rowPagesBuilder(VARCHAR, BIGINT)
+                .row("a", 1L)
+                .row("b", 2L)
+                .pageBreak()
+                .row("b", 3L)
+                .row("a", 4L)
+                .pageBreak()
+                .row("c", 0L)
+                .row("a", 2L)
+                .build();
+
+        DummySpillerFactory spillerFactory = new DummySpillerFactory();
+        OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(VARCHAR, BIGINT),
+                ImmutableList.of(0, 1),
+                10,
+                ImmutableList.of(0, 1),
+                ImmutableList.of(ASC_NULLS_LAST, DESC_NULLS_LAST),
+                new PagesIndex.TestingFactory(false),
+                true,
+                Optional.of(spillerFactory));
+
+        MaterializedResult expected = MaterializedResult.resultBuilder(driverContext.getSession(), VARCHAR, BIGINT)
+                .row("a", 4L)
+                .row("a", 2L)
+                .row("a", 1L)
+                .row("b", 3L)
+                .row("b", 2L)
+                .row("c", 0L)
+                .build();
+
+        assertOperatorEquals(operatorFactory, driverContext, input, expected);
+        assertTrue(spillerFactory.getSpillsCount() > 1, "Expected several spilled runs");
+    }
+
     @Test(expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Query exceeded per-node user memory limit of 10B")
     public void testMemoryLimit()
     {
@@ -0,0 +1,240 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.OutputBuffers;
+import com.facebook.presto.OutputBuffers.OutputBufferId;
+import com.facebook.presto.block.BlockEncodingManager;
+import com.facebook.presto.execution.StateMachine;
+import com.facebook.presto.execution.buffer.BufferResult;
+import com.facebook.presto.execution.buffer.PagesSerde;
+import com.facebook.presto.execution.buffer.PagesSerdeFactory;
+import com.facebook.presto.execution.buffer.PartitionedOutputBuffer;
+import com.facebook.presto.memory.context.SimpleLocalMemoryContext;
+import com.facebook.presto.operator.PartitionedOutputOperator.PartitionedOutputFactory;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.testing.TestingTaskContext;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+import static com.facebook.presto.OutputBuffers.BufferType.PARTITIONED;
+import static com.facebook.presto.OutputBuffers.createInitialEmptyOutputBuffers;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringSequenceBlock;
+import static com.facebook.presto.execution.buffer.BufferState.OPEN;
+import static com.facebook.presto.execution.buffer.BufferState.TERMINAL_BUFFER_STATES;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestPartitionedOutputOperator
+{
+    private static final int PARTITION_COUNT = 3;
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR);
+    private static final PagesSerde PAGES_SERDE = new PagesSerdeFactory(new BlockEncodingManager(new TypeRegistry()), false).createPagesSerde();
+
+    private final ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+    private final ScheduledExecutorService scheduler = newScheduledThreadPool(1, daemonThreadsNamed("test-scheduler-%s"));
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testPartitioning()
+    {
+        PartitionedOutputBuffer buffer = createPartitionedBuffer();
+        PartitionedOutputOperator operator = createPartitionedOutputOperator(buffer, OptionalInt.empty(), new DataSize(1, MEGABYTE));
+
+        Block values = createStringSequenceBlock(0, 100);
+        operator.addInput(new Page(createLongSequenceBlock(0, 100), values));
+        // dictionary and run length encoded blocks are copied to the page builders as values
+        operator.addInput(new Page(
+                new DictionaryBlock(createLongSequenceBlock(100, 200), new int[] {5, 5, 1, 0, 99}),
+                new RunLengthEncodedBlock(values.getSingleValueBlock(7), 5)));
+        operator.finish();
+        buffer.setNoMorePages();
+
+        int rows = 0;
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            for (Page page : getPartitionPages(buffer, partition)) {
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    long key = BIGINT.getLong(page.getBlock(0), position);
+                    assertEquals(key % PARTITION_COUNT, partition);
+                    String value = VARCHAR.getSlice(page.getBlock(1), position).toStringUtf8();
+                    assertEquals(value, key < 100 ? String.valueOf(key) : "7");
+                    rows++;
+                }
+            }
+        }
+        assertEquals(rows, 105);
+    }
+
+    @Test
+    public void testReplicateNulls()
+    {
+        PartitionedOutputBuffer buffer = createPartitionedBuffer();
+        PartitionedOutputOperator operator = createPartitionedOutputOperator(buffer, OptionalInt.of(0), new DataSize(1, MEGABYTE));
+
+        operator.addInput(new Page(createLongsBlock(1L, null, 2L), createStringSequenceBlock(0, 3)));
+        operator.finish();
+        buffer.setNoMorePages();
+
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            List<Long> keys = new ArrayList<>();
+            for (Page page : getPartitionPages(buffer, partition)) {
+                Block block = page.getBlock(0);
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    keys.add(block.isNull(position) ? null : BIGINT.getLong(block, position));
+                }
+            }
+            List<Long> expected = new ArrayList<>();
+            if (partition == 1) {
+                expected.add(1L);
+            }
+            expected.add(null);
+            if (partition == 2) {
+                expected.add(2L);
+            }
+            assertEquals(keys, expected);
+        }
+    }
+
+    @Test
+    public void testLargePartitionKeepsEncoding()
+    {
+        PartitionedOutputBuffer buffer = createPartitionedBuffer();
+        // a tiny memory limit makes every part of a page large enough to be sent on its own
+        PartitionedOutputOperator operator = createPartitionedOutputOperator(buffer, OptionalInt.empty(), new DataSize(PARTITION_COUNT, BYTE));
+
+        int[] ids = new int[300];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i % 10;
+        }
+        Block values = createStringSequenceBlock(0, 10);
+        operator.addInput(new Page(
+                createLongSequenceBlock(0, 300),
+                new DictionaryBlock(values, ids)));
+        operator.addInput(new Page(
+                createLongSequenceBlock(0, 300),
+                new RunLengthEncodedBlock(values.getSingleValueBlock(3), 300)));
+        operator.finish();
+        buffer.setNoMorePages();
+
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            List<Page> pages = getPartitionPages(buffer, partition);
+            assertEquals(pages.size(), 2);
+            assertEquals(pages.get(0).getPositionCount(), 100);
+            assertTrue(pages.get(0).getBlock(1) instanceof DictionaryBlock);
+            assertEquals(pages.get(1).getPositionCount(), 100);
+            assertTrue(pages.get(1).getBlock(1) instanceof RunLengthEncodedBlock);
+            for (int position = 0; position < 100; position++) {
+                long key = BIGINT.getLong(pages.get(0).getBlock(0), position);
+                assertEquals(key % PARTITION_COUNT, partition);
+                assertEquals(VARCHAR.getSlice(pages.get(0).getBlock(1), position).toStringUtf8(), String.valueOf(key % 10));
+                assertEquals(VARCHAR.getSlice(pages.get(1).getBlock(1), position).toStringUtf8(), "3");
+            }
+        }
+    }
+
+    private PartitionedOutputOperator createPartitionedOutputOperator(PartitionedOutputBuffer buffer, OptionalInt nullChannel, DataSize maxMemory)
+    {
+        PartitionedOutputFactory operatorFactory = new PartitionedOutputFactory(
+                new ModuloPartitionFunction(),
+                ImmutableList.of(0),
+                ImmutableList.of(Optional.empty()),
+                false,
+                nullChannel,
+                buffer,
+                maxMemory);
+        DriverContext driverContext = TestingTaskContext.builder(executor, scheduler, TEST_SESSION)
+                .build()
+                .addPipelineContext(0, true, true, false)
+                .addDriverContext();
+        return (PartitionedOutputOperator) operatorFactory
+                .createOutputOperator(0, new PlanNodeId("test"), TYPES, Function.identity(), new PagesSerdeFactory(new BlockEncodingManager(new TypeRegistry()), false))
+                .createOperator(driverContext);
+    }
+
+    private PartitionedOutputBuffer createPartitionedBuffer()
+    {
+        OutputBuffers buffers = createInitialEmptyOutputBuffers(PARTITIONED);
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            buffers = buffers.withBuffer(new OutputBufferId(partition), partition);
+        }
+        return new PartitionedOutputBuffer(
+                "task-instance-id",
+                new StateMachine<>("bufferState", scheduler, OPEN, TERMINAL_BUFFER_STATES),
+                buffers.withNoMoreBufferIds(),
+                new DataSize(Long.MAX_VALUE, BYTE),
+                () -> new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
+                scheduler);
+    }
+
+    private static List<Page> getPartitionPages(PartitionedOutputBuffer buffer, int partition)
+    {
+        BufferResult result = getFutureValue(buffer.get(new OutputBufferId(partition), 0, new DataSize(1, GIGABYTE)));
+        return result.getSerializedPages().stream()
+                .map(PAGES_SERDE::deserialize)
+                .collect(toImmutableList());
+    }
+
+    private static class ModuloPartitionFunction
+            implements PartitionFunction
+    {
+        @Override
+        public int getPartitionCount()
+        {
+            return PARTITION_COUNT;
+        }
+
+        @Override
+        public int getPartition(Page page, int position)
+        {
+            return (int) (BIGINT.getLong(page.getBlock(0), position) % PARTITION_COUNT);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import com.facebook.presto.operator.window.RowNumberFunction;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
@@ -60,6 +61,7 @@ import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestWindowOperator
@@ -581,6 +583,90 @@ public class TestWindowOperator
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
     }
 
+    @Test
+    public void testRowNumberPartitionWithSpill()
+    {
+        List<Page> input = rowPagesBuilder(VARCHAR, BIGINT, DOUBLE, BOOLEAN)
+                .row("b", -1L, -0.1, true)
+                .row("a", 2L, 0.3, false)
+                .row("a", 4L, 0.2, true)
+                .pageBreak()
+                .row("b", 5L, 0.4, false)
+                .row("a", 6L, 0.1, true)
+                .pageBreak()
+                .row("a", 3L, 0.5, false)
+                .build();
+
+        DummySpillerFactory spillerFactory = new DummySpillerFactory();
+        WindowOperatorFactory operatorFactory = createFactoryUnbounded(
+                ImmutableList.of(VARCHAR, BIGINT, DOUBLE, BOOLEAN),
+                Ints.asList(0, 1, 2, 3),
+                ROW_NUMBER,
+                Ints.asList(0),
+                ImmutableList.of(),
+                Ints.asList(1),
+                ImmutableList.of(SortOrder.ASC_NULLS_LAST),
+                0,
+                spillerFactory);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT, DOUBLE, BOOLEAN, BIGINT)
+                .row("a", 2L, 0.3, false, 1L)
+                .row("a", 3L, 0.5, false, 2L)
+                .row("a", 4L, 0.2, true, 3L)
+                .row("a", 6L, 0.1, true, 4L)
+                .row("b", -1L, -0.1, true, 1L)
+                .row("b", 5L, 0.4, false, 2L)
+                .build();
+
+        assertOperatorEquals(operatorFactory, driverContext, input, expected);
+        assertTrue(spillerFactory.getSpillsCount() > 1, "Expected several spilled runs");
+    }
+
+    @Test
+    public void testFullyPreGroupedAndPartiallySortedPartitionWithSpill()
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, VARCHAR, BIGINT, VARCHAR)
+                .pageBreak()
+                .row(1L, "a", 100L, "A")
+                .pageBreak()
+                .row(2L, "a", 100L, "A")
+                .pageBreak()
+                .row(2L, "b", 102L, "A")
+                .row(2L, "b", 101L, "A")
+                .row(2L, "b", 100L, "B")
+                .row(1L, "b", 101L, "A")
+                .pageBreak()
+                .row(1L, "b", 100L, "A")
+                .row(3L, "c", 100L, "A")
+                .build();
+
+        DummySpillerFactory spillerFactory = new DummySpillerFactory();
+        WindowOperatorFactory operatorFactory = createFactoryUnbounded(
+                ImmutableList.of(BIGINT, VARCHAR, BIGINT, VARCHAR),
+                Ints.asList(0, 1, 2, 3),
+                ROW_NUMBER,
+                Ints.asList(1, 0),
+                Ints.asList(0, 1),
+                Ints.asList(3, 2),
+                ImmutableList.of(SortOrder.ASC_NULLS_LAST, SortOrder.ASC_NULLS_LAST),
+                1,
+                spillerFactory);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, VARCHAR, BIGINT, VARCHAR, BIGINT)
+                .row(1L, "a", 100L, "A", 1L)
+                .row(2L, "a", 100L, "A", 1L)
+                .row(2L, "b", 101L, "A", 1L)
+                .row(2L, "b", 102L, "A", 2L)
+                .row(2L, "b", 100L, "B", 3L)
+                .row(1L, "b", 100L, "A", 1L)
+                .row(1L, "b", 101L, "A", 2L)
+                .row(3L, "c", 100L, "A", 1L)
+                .build();
+
+        assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected);
+        assertTrue(spillerFactory.getSpillsCount() > 0, "Expected spill");
+    }
+
     @Test
     public void testFindEndPosition()
     {
@@ -641,6 +727,52 @@ public class TestWindowOperator
             List<Integer> sortChannels,
             List<SortOrder> sortOrder,
             int preSortedChannelPrefix)
+    {
+        return createFactoryUnbounded(
+                sourceTypes,
+                outputChannels,
+                functions,
+                partitionChannels,
+                preGroupedChannels,
+                sortChannels,
+                sortOrder,
+                preSortedChannelPrefix,
+                Optional.empty());
+    }
+
+    private static WindowOperatorFactory createFactoryUnbounded(
+            List<? extends Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<WindowFunctionDefinition> functions,
+            List<Integer> partitionChannels,
+            List<Integer> preGroupedChannels,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            int preSortedChannelPrefix,
+            DummySpillerFactory spillerFactory)
+    {
+        return createFactoryUnbounded(
+                sourceTypes,
+                outputChannels,
+                functions,
+                partitionChannels,
+                preGroupedChannels,
+                sortChannels,
+                sortOrder,
+                preSortedChannelPrefix,
+                Optional.of(spillerFactory));
+    }
+
+    private static WindowOperatorFactory createFactoryUnbounded(
+            List<? extends Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<WindowFunctionDefinition> functions,
+            List<Integer> partitionChannels,
+            List<Integer> preGroupedChannels,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            int preSortedChannelPrefix,
+            Optional<SpillerFactory> spillerFactory)
     {
         return new WindowOperatorFactory(
                 0,
@@ -654,6 +786,8 @@ public class TestWindowOperator
                 sortOrder,
                 preSortedChannelPrefix,
                 10,
-                new PagesIndex.TestingFactory(false));
+                new PagesIndex.TestingFactory(false),
+                spillerFactory.isPresent(),
+                spillerFactory);
     }
 }
@@ -22,6 +22,8 @@ import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.IntegerType.INTEGER;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
+import static java.lang.String.format;
+import static org.testng.Assert.assertEquals;
 
 public class TestAggregateWindowFunction
         extends AbstractTestWindowFunction
@@ -530,4 +532,30 @@ public class TestAggregateWindowFunction
                         .row(null, null, null)
                         .build());
     }
+
+    @Test
+    public void testSlidingFrames()
+    {
+        // frames are large enough for the segment tree, and contain only nulls in the middle of the partition
+        assertSlidingFrame("ROWS BETWEEN 50 PRECEDING AND CURRENT ROW", "b.x BETWEEN a.x - 50 AND a.x");
+        assertSlidingFrame("ROWS BETWEEN 40 PRECEDING AND 20 FOLLOWING", "b.x BETWEEN a.x - 40 AND a.x + 20");
+        assertSlidingFrame("ROWS BETWEEN 10 FOLLOWING AND 60 FOLLOWING", "b.x BETWEEN a.x + 10 AND a.x + 60");
+        assertSlidingFrame("ROWS BETWEEN 3 PRECEDING AND 1 PRECEDING", "b.x BETWEEN a.x - 3 AND a.x - 1");
+    }
+
+    private void assertSlidingFrame(String frame, String condition)
+    {
+        String values = "(SELECT x, IF(x % 7 = 0 OR x BETWEEN 100 AND 180, NULL, x % 13) y FROM UNNEST(sequence(1, 300)) t(x))";
+        MaterializedResult actual = queryRunner.execute(format("" +
+                        "SELECT x, count(*) OVER (%1$s), count(y) OVER (%1$s), sum(y) OVER (%1$s), avg(y) OVER (%1$s), min(y) OVER (%1$s), max(y) OVER (%1$s) " +
+                        "FROM %2$s ORDER BY x",
+                "ORDER BY x " + frame,
+                values));
+        MaterializedResult expected = queryRunner.execute(format("" +
+                        "SELECT a.x, count(IF(%1$s, b.x)), count(IF(%1$s, b.y)), sum(IF(%1$s, b.y)), avg(IF(%1$s, b.y)), min(IF(%1$s, b.y)), max(IF(%1$s, b.y)) " +
+                        "FROM %2$s a CROSS JOIN %2$s b GROUP BY a.x ORDER BY a.x",
+                condition,
+                values));
+        assertEquals(actual.getMaterializedRows(), expected.getMaterializedRows());
+    }
 }
@@ -25,6 +25,8 @@ import org.testng.annotations.Test;
 
 import java.util.Map;
 
+import static com.facebook.presto.execution.buffer.PageCompression.LZ4;
+import static com.facebook.presto.execution.buffer.PageCompression.ZSTD;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.JoinDistributionType.BROADCAST;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.JoinDistributionType.PARTITIONED;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.JoinReorderingStrategy.ELIMINATE_CROSS_JOINS;
@@ -87,6 +89,8 @@ public class TestFeaturesConfig
                 .setEnableStatsCalculator(true)
                 .setIgnoreStatsCalculatorFailures(true)
                 .setExchangeCompressionEnabled(false)
+                .setExchangeCompressionCodec(LZ4)
+                .setExchangeAdaptiveCompressionEnabled(false)
                 .setLegacyTimestamp(true)
                 .setLegacyRowFieldOrdinalAccess(false)
                 .setLegacyCharToVarcharCoercion(false)
@@ -105,7 +109,15 @@ public class TestFeaturesConfig
                 .setMultimapAggGroupImplementation(MultimapAggGroupImplementation.NEW)
                 .setDistributedSortEnabled(true)
                 .setMaxGroupingSets(2048)
-                .setLegacyUnnestArrayRows(false));
+                .setLegacyUnnestArrayRows(false)
+                .setEnableDynamicFiltering(false)
+                .setDynamicFilteringMaxPerDriverValueCount(10_000)
+                .setEnableDistributedDynamicFiltering(false)
+                .setAdaptivePartialAggregationEnabled(false)
+                .setAdaptivePartialAggregationMinRows(100_000)
+                .setAdaptivePartialAggregationUniqueRowsRatioThreshold(0.8)
+                .setMergeTopNWithAggregation(true)
+                .setPushAggregationIntoTableScan(false));
     }
 
     @Test
@@ -155,6 +167,8 @@ public class TestFeaturesConfig
                 .put("experimental.memory-revoking-threshold", "0.2")
                 .put("experimental.memory-revoking-target", "0.8")
                 .put("exchange.compression-enabled", "true")
+                .put("exchange.compression-codec", "ZSTD")
+                .put("exchange.adaptive-compression-enabled", "true")
                 .put("deprecated.legacy-timestamp", "false")
                 .put("optimizer.enable-intermediate-aggregations", "true")
                 .put("parse-decimal-literals-as-double", "true")
@@ -171,6 +185,14 @@ public class TestFeaturesConfig
                 .put("distributed-sort", "false")
                 .put("analyzer.max-grouping-sets", "2047")
                 .put("deprecated.legacy-unnest-array-rows", "true")
+                .put("experimental.enable-dynamic-filtering", "true")
+                .put("experimental.dynamic-filtering-max-per-driver-value-count", "256")
+                .put("experimental.enable-distributed-dynamic-filtering", "true")
+                .put("adaptive-partial-aggregation.enabled", "true")
+                .put("adaptive-partial-aggregation.min-rows", "1000")
+                .put("adaptive-partial-aggregation.unique-rows-ratio-threshold", "0.5")
+                .put("optimizer.merge-topn-with-aggregation", "false")
+                .put("optimizer.push-aggregation-into-table-scan", "true")
                 .build();
 
         FeaturesConfig expected = new FeaturesConfig()
@@ -215,6 +237,8 @@ public class TestFeaturesConfig
                 .setMemoryRevokingTarget(0.8)
                 .setLegacyLogFunction(true)
                 .setExchangeCompressionEnabled(true)
+                .setExchangeCompressionCodec(ZSTD)
+                .setExchangeAdaptiveCompressionEnabled(true)
                 .setLegacyTimestamp(false)
                 .setLegacyRowFieldOrdinalAccess(true)
                 .setLegacyCharToVarcharCoercion(true)
@@ -232,7 +256,15 @@ public class TestFeaturesConfig
                 .setMultimapAggGroupImplementation(MultimapAggGroupImplementation.LEGACY)
                 .setDistributedSortEnabled(false)
                 .setMaxGroupingSets(2047)
-                .setLegacyUnnestArrayRows(true);
+                .setLegacyUnnestArrayRows(true)
+                .setEnableDynamicFiltering(true)
+                .setDynamicFilteringMaxPerDriverValueCount(256)
+                .setEnableDistributedDynamicFiltering(true)
+                .setAdaptivePartialAggregationEnabled(true)
+                .setAdaptivePartialAggregationMinRows(1000)
+                .setAdaptivePartialAggregationUniqueRowsRatioThreshold(0.5)
+                .setMergeTopNWithAggregation(false)
+                .setPushAggregationIntoTableScan(true);
         assertFullMapping(properties, expected);
     }
 
@@ -262,6 +262,14 @@ public class TestJoinCompiler
                 hashStrategy.appendTo(leftBlockIndex, leftBlockPosition, pageBuilder, 0);
             }
 
+            // hash codes of a batch of rows must match the hash codes of the single rows
+            long[] hashes = new long[leftPositionCount - 1];
+            hashStrategy.hashRows(new Page(leftBlocks), 1, hashes.length, hashes);
+            for (int position = 0; position < hashes.length; position++) {
+                assertEquals(hashes[position], hashStrategy.hashRow(position + 1, new Page(leftBlocks)));
+                assertEquals(hashes[position], expectedHashStrategy.hashRow(position + 1, new Page(leftBlocks)));
+            }
+
             // verify output block matches
             Page page = pageBuilder.build();
             if (hashEnabled) {
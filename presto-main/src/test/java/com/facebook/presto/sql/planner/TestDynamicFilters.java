@@ -0,0 +1,58 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.planner.DynamicFilters.createDomain;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+
+public class TestDynamicFilters
+{
+    @Test
+    public void testCreateDomain()
+    {
+        assertEquals(createDomain(BIGINT, ImmutableSet.of()), Domain.none(BIGINT));
+        assertEquals(
+                createDomain(BIGINT, ImmutableSet.of(3L, 1L)),
+                Domain.multipleValues(BIGINT, ImmutableList.of(1L, 3L)));
+        assertEquals(
+                createDomain(VARCHAR, ImmutableSet.of(utf8Slice("b"), utf8Slice("a"))),
+                Domain.multipleValues(VARCHAR, ImmutableList.of(utf8Slice("a"), utf8Slice("b"))));
+    }
+
+    @Test
+    public void testCreateDomainWithManyValues()
+    {
+        Set<Object> values = LongStream.range(0, 2_000)
+                .map(value -> value * 2 + 10)
+                .boxed()
+                .collect(Collectors.toSet());
+        assertEquals(
+                createDomain(BIGINT, values),
+                Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 10L, true, 4008L, true)), false));
+    }
+}
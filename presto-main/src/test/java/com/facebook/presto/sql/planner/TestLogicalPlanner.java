@@ -15,6 +15,7 @@ package com.facebook.presto.sql.planner;
 
 import com.facebook.presto.Session;
 import com.facebook.presto.sql.analyzer.FeaturesConfig.JoinDistributionType;
+import com.facebook.presto.sql.analyzer.FeaturesConfig.JoinReorderingStrategy;
 import com.facebook.presto.sql.planner.assertions.BasePlanTest;
 import com.facebook.presto.sql.planner.assertions.PlanMatchPattern;
 import com.facebook.presto.sql.planner.optimizations.AddLocalExchanges;
@@ -48,7 +49,9 @@ import java.util.function.Predicate;
 import static com.facebook.presto.SystemSessionProperties.DISTRIBUTED_SORT;
 import static com.facebook.presto.SystemSessionProperties.FORCE_SINGLE_NODE_OUTPUT;
 import static com.facebook.presto.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static com.facebook.presto.SystemSessionProperties.JOIN_REORDERING_STRATEGY;
 import static com.facebook.presto.SystemSessionProperties.OPTIMIZE_HASH_GENERATION;
+import static com.facebook.presto.SystemSessionProperties.TASK_CONCURRENCY;
 import static com.facebook.presto.spi.StandardErrorCode.SUBQUERY_MULTIPLE_ROWS;
 import static com.facebook.presto.spi.predicate.Domain.singleValue;
 import static com.facebook.presto.spi.type.VarcharType.createVarcharType;
@@ -759,6 +762,38 @@ public class TestLogicalPlanner
                                                 node(TableScanNode.class))))));
     }
 
+    @Test
+    public void testJoinBuildSideReusesLocalPartitioning()
+    {
+        Session session = Session.builder(this.getQueryRunner().getDefaultSession())
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, JoinDistributionType.PARTITIONED.name())
+                .setSystemProperty(JOIN_REORDERING_STRATEGY, JoinReorderingStrategy.NONE.name())
+                .setSystemProperty(TASK_CONCURRENCY, "4")
+                .build();
+
+        // the aggregation on the build side is partitioned on the join key, so the
+        // hash build can consume its streams without another local exchange
+        assertPlanWithSession(
+                "SELECT * FROM orders o JOIN (SELECT custkey, orderstatus, count(*) FROM orders GROUP BY orderstatus, custkey) a ON o.custkey = a.custkey",
+                session,
+                false,
+                anyTree(
+                        node(JoinNode.class,
+                                anyTree(
+                                        node(TableScanNode.class)),
+                                anyTree(
+                                        node(AggregationNode.class,
+                                                anyTree(
+                                                        node(TableScanNode.class)))))),
+                plan -> assertEquals(
+                        countOfMatchingNodes(
+                                plan,
+                                node -> node instanceof ExchangeNode
+                                        && ((ExchangeNode) node).getScope() == LOCAL
+                                        && ((ExchangeNode) node).getType() == REPARTITION),
+                        1));
+    }
+
     @Test
     public void testDistributedSort()
     {
@@ -0,0 +1,109 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.sql.planner.iterative.rule.test.BaseRuleTest;
+import com.facebook.presto.sql.planner.plan.TopNAggregationNode;
+import com.facebook.presto.sql.planner.plan.TopNNode;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.SystemSessionProperties.MERGE_TOPN_WITH_AGGREGATION;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.node;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.values;
+import static com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder.expression;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.FINAL;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.PARTIAL;
+
+public class TestMergeTopNWithAggregation
+        extends BaseRuleTest
+{
+    @Test
+    public void testMergesPartialTopNWithFinalAggregation()
+    {
+        tester().assertThat(new MergeTopNWithAggregation())
+                .on(p -> p.topN(
+                        10,
+                        ImmutableList.of(p.symbol("sum")),
+                        TopNNode.Step.PARTIAL,
+                        p.aggregation(builder -> builder
+                                .source(p.values(p.symbol("key"), p.symbol("value")))
+                                .addAggregation(p.symbol("sum"), expression("sum(value)"), ImmutableList.of(BIGINT))
+                                .singleGroupingSet(p.symbol("key"))
+                                .step(FINAL))))
+                .matches(node(TopNAggregationNode.class, values("key", "value")));
+    }
+
+    @Test
+    public void testDoesNotFireOnSingleTopN()
+    {
+        tester().assertThat(new MergeTopNWithAggregation())
+                .on(p -> p.topN(
+                        10,
+                        ImmutableList.of(p.symbol("sum")),
+                        p.aggregation(builder -> builder
+                                .source(p.values(p.symbol("key"), p.symbol("value")))
+                                .addAggregation(p.symbol("sum"), expression("sum(value)"), ImmutableList.of(BIGINT))
+                                .singleGroupingSet(p.symbol("key")))))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireOnPartialAggregation()
+    {
+        tester().assertThat(new MergeTopNWithAggregation())
+                .on(p -> p.topN(
+                        10,
+                        ImmutableList.of(p.symbol("sum")),
+                        TopNNode.Step.PARTIAL,
+                        p.aggregation(builder -> builder
+                                .source(p.values(p.symbol("key"), p.symbol("value")))
+                                .addAggregation(p.symbol("sum"), expression("sum(value)"), ImmutableList.of(BIGINT))
+                                .singleGroupingSet(p.symbol("key"))
+                                .step(PARTIAL))))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireOnGlobalAggregation()
+    {
+        tester().assertThat(new MergeTopNWithAggregation())
+                .on(p -> p.topN(
+                        10,
+                        ImmutableList.of(p.symbol("sum")),
+                        TopNNode.Step.PARTIAL,
+                        p.aggregation(builder -> builder
+                                .source(p.values(p.symbol("value")))
+                                .addAggregation(p.symbol("sum"), expression("sum(value)"), ImmutableList.of(BIGINT))
+                                .globalGrouping())))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireWhenDisabled()
+    {
+        tester().assertThat(new MergeTopNWithAggregation())
+                .setSystemProperty(MERGE_TOPN_WITH_AGGREGATION, "false")
+                .on(p -> p.topN(
+                        10,
+                        ImmutableList.of(p.symbol("sum")),
+                        TopNNode.Step.PARTIAL,
+                        p.aggregation(builder -> builder
+                                .source(p.values(p.symbol("key"), p.symbol("value")))
+                                .addAggregation(p.symbol("sum"), expression("sum(value)"), ImmutableList.of(BIGINT))
+                                .singleGroupingSet(p.symbol("key")))))
+                .doesNotFire();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.connector.ConnectorId;
+import com.facebook.presto.metadata.TableHandle;
+import com.facebook.presto.metadata.TableLayoutHandle;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.sql.planner.iterative.rule.test.BaseRuleTest;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.QualifiedName;
+import com.facebook.presto.testing.TestingTransactionHandle;
+import com.facebook.presto.tpch.TpchColumnHandle;
+import com.facebook.presto.tpch.TpchTableHandle;
+import com.facebook.presto.tpch.TpchTableLayoutHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.PUSH_AGGREGATION_INTO_TABLE_SCAN;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+
+public class TestPushAggregationIntoTableScan
+        extends BaseRuleTest
+{
+    private TableHandle nationTableHandle;
+    private TableLayoutHandle nationTableLayoutHandle;
+
+    @BeforeClass
+    public void setUpBeforeClass()
+    {
+        ConnectorId connectorId = tester().getCurrentConnectorId();
+        nationTableHandle = new TableHandle(
+                connectorId,
+                new TpchTableHandle(connectorId.toString(), "nation", 1.0));
+        nationTableLayoutHandle = new TableLayoutHandle(
+                connectorId,
+                TestingTransactionHandle.create(),
+                new TpchTableLayoutHandle((TpchTableHandle) nationTableHandle.getConnectorHandle(), TupleDomain.all()));
+    }
+
+    @Test
+    public void testDoesNotFireWhenDisabled()
+    {
+        tester().assertThat(new PushAggregationIntoTableScan(tester().getMetadata()))
+                .on(p -> p.aggregation(a -> a
+                        .globalGrouping()
+                        .addAggregation(p.symbol("count", BIGINT), new FunctionCall(QualifiedName.of("count"), ImmutableList.of()), ImmutableList.of())
+                        .source(p.tableScan(nationTableHandle, ImmutableList.of(), ImmutableMap.of(), Optional.of(nationTableLayoutHandle)))))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireWithoutTableLayout()
+    {
+        tester().assertThat(new PushAggregationIntoTableScan(tester().getMetadata()))
+                .setSystemProperty(PUSH_AGGREGATION_INTO_TABLE_SCAN, "true")
+                .on(p -> p.aggregation(a -> a
+                        .globalGrouping()
+                        .addAggregation(p.symbol("count", BIGINT), new FunctionCall(QualifiedName.of("count"), ImmutableList.of()), ImmutableList.of())
+                        .source(p.tableScan(nationTableHandle, ImmutableList.of(), ImmutableMap.of()))))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireWhenConnectorDoesNotProvideColumn()
+    {
+        tester().assertThat(new PushAggregationIntoTableScan(tester().getMetadata()))
+                .setSystemProperty(PUSH_AGGREGATION_INTO_TABLE_SCAN, "true")
+                .on(p -> p.aggregation(a -> a
+                        .globalGrouping()
+                        .addAggregation(
+                                p.symbol("max", BIGINT),
+                                new FunctionCall(QualifiedName.of("max"), ImmutableList.of(p.symbol("nationkey", BIGINT).toSymbolReference())),
+                                ImmutableList.of(BIGINT))
+                        .source(p.tableScan(
+                                nationTableHandle,
+                                ImmutableList.of(p.symbol("nationkey", BIGINT)),
+                                ImmutableMap.of(p.symbol("nationkey", BIGINT), new TpchColumnHandle("nationkey", BIGINT)),
+                                Optional.of(nationTableLayoutHandle)))))
+                .doesNotFire();
+    }
+}
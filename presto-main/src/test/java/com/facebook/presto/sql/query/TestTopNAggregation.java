@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.query;
+
+import com.facebook.presto.sql.planner.assertions.BasePlanTest;
+import com.facebook.presto.sql.planner.plan.TopNAggregationNode;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.anyTree;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.node;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.tableScan;
+
+public class TestTopNAggregation
+        extends BasePlanTest
+{
+    private QueryAssertions assertions;
+
+    @BeforeClass
+    public void init()
+    {
+        assertions = new QueryAssertions();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void teardown()
+    {
+        assertions.close();
+        assertions = null;
+    }
+
+    @Test
+    public void testOrderByAggregation()
+    {
+        assertions.assertQuery(
+                "SELECT k, sum(x) FROM (VALUES (1, 10), (2, 20), (1, 30), (3, 5), (2, 1), (4, NULL)) t(k, x) " +
+                        "GROUP BY k ORDER BY sum(x) DESC LIMIT 2",
+                "VALUES (1, BIGINT '40'), (2, BIGINT '21')",
+                true);
+
+        assertions.assertQuery(
+                "SELECT k, sum(x) FROM (VALUES (1, 10), (2, 20), (1, 30), (3, 5), (2, 1), (4, NULL)) t(k, x) " +
+                        "GROUP BY k ORDER BY sum(x) ASC NULLS FIRST LIMIT 3",
+                "VALUES (4, CAST(NULL AS BIGINT)), (3, BIGINT '5'), (2, BIGINT '21')",
+                true);
+    }
+
+    @Test
+    public void testOrderByGroupingKey()
+    {
+        assertions.assertQuery(
+                "SELECT k, count(*) FROM (VALUES 'a', 'c', 'b', 'c', 'a', 'd') t(k) " +
+                        "GROUP BY k ORDER BY k DESC LIMIT 3",
+                "VALUES ('d', BIGINT '1'), ('c', BIGINT '2'), ('b', BIGINT '1')",
+                true);
+
+        assertions.assertQuery(
+                "SELECT k, count(*) FROM (VALUES ('a', 1), ('c', 2), ('b', 1), ('c', 2), ('a', 1), ('d', 3)) t(k, x) " +
+                        "GROUP BY k ORDER BY count(*) DESC, k LIMIT 2",
+                "VALUES ('a', BIGINT '2'), ('c', BIGINT '2')",
+                true);
+    }
+
+    @Test
+    public void testLimitLargerThanGroupCount()
+    {
+        assertions.assertQuery(
+                "SELECT k, max(x) FROM (VALUES (1, 10), (2, 20), (1, 30)) t(k, x) " +
+                        "GROUP BY k ORDER BY max(x) LIMIT 10",
+                "VALUES (2, 20), (1, 30)",
+                true);
+    }
+
+    @Test
+    public void testMergesTopNWithFinalAggregation()
+    {
+        assertDistributedPlan(
+                "SELECT orderstatus, sum(totalprice) FROM orders GROUP BY orderstatus ORDER BY sum(totalprice) DESC LIMIT 2",
+                anyTree(
+                        node(TopNAggregationNode.class,
+                                anyTree(
+                                        tableScan("orders")))));
+    }
+}
@@ -13,8 +13,11 @@
  */
 package com.facebook.presto.orc;
 
+import com.facebook.presto.memory.context.LocalMemoryContext;
+
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Map;
 
 public interface OrcDataSource
@@ -37,6 +40,23 @@ public interface OrcDataSource
     <K> Map<K, OrcDataSourceInput> readFully(Map<K, DiskRange> diskRanges)
             throws IOException;
 
+    /**
+     * Returns true if the data source reads the disk ranges hinted by {@link #prefetch} ahead.
+     */
+    default boolean isPrefetching()
+    {
+        return false;
+    }
+
+    /**
+     * Hints that the disk ranges will be read soon. Data sources may start reading them
+     * in the background, so they are available when requested. The buffers holding the
+     * prefetched data are accounted in the memory context.
+     */
+    default void prefetch(Collection<DiskRange> diskRanges, LocalMemoryContext systemMemoryContext)
+    {
+    }
+
     @Override
     default void close()
             throws IOException
@@ -14,24 +14,27 @@
 package com.facebook.presto.orc;
 
 import com.facebook.presto.memory.context.AggregatedMemoryContext;
+import com.facebook.presto.orc.cache.OrcFileTail;
+import com.facebook.presto.orc.cache.OrcFileTailSource;
+import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
+import com.facebook.presto.orc.cache.StorageStripeMetadataSource;
+import com.facebook.presto.orc.cache.StripeMetadataSource;
 import com.facebook.presto.orc.metadata.CompressionKind;
 import com.facebook.presto.orc.metadata.ExceptionWrappingMetadataReader;
 import com.facebook.presto.orc.metadata.Footer;
 import com.facebook.presto.orc.metadata.Metadata;
 import com.facebook.presto.orc.metadata.PostScript;
 import com.facebook.presto.orc.metadata.PostScript.HiveWriterVersion;
-import com.facebook.presto.orc.stream.OrcInputStream;
+import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
-import io.airlift.slice.Slices;
 import io.airlift.units.DataSize;
 import org.joda.time.DateTimeZone;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -39,10 +42,8 @@ import java.util.function.Predicate;
 
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.facebook.presto.orc.OrcDecompressor.createOrcDecompressor;
-import static com.facebook.presto.orc.metadata.PostScript.MAGIC;
-import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
-import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 
@@ -56,7 +57,6 @@ public class OrcReader
 
     private static final int CURRENT_MAJOR_VERSION = 0;
     private static final int CURRENT_MINOR_VERSION = 12;
-    private static final int EXPECTED_FOOTER_SIZE = 16 * 1024;
 
     private final OrcDataSource orcDataSource;
     private final ExceptionWrappingMetadataReader metadataReader;
@@ -70,14 +70,28 @@ public class OrcReader
     private final Optional<OrcDecompressor> decompressor;
     private final Footer footer;
     private final Metadata metadata;
+    private final StripeMetadataSource stripeMetadataSource;
 
     private final Optional<OrcWriteValidation> writeValidation;
 
-    // This is based on the Apache Hive ORC code
     public OrcReader(OrcDataSource orcDataSource, OrcEncoding orcEncoding, DataSize maxMergeDistance, DataSize maxReadSize, DataSize tinyStripeThreshold, DataSize maxBlockSize)
             throws IOException
     {
-        this(orcDataSource, orcEncoding, maxMergeDistance, maxReadSize, tinyStripeThreshold, maxBlockSize, Optional.empty());
+        this(orcDataSource, orcEncoding, maxMergeDistance, maxReadSize, tinyStripeThreshold, maxBlockSize, new StorageOrcFileTailSource(), new StorageStripeMetadataSource());
+    }
+
+    public OrcReader(
+            OrcDataSource orcDataSource,
+            OrcEncoding orcEncoding,
+            DataSize maxMergeDistance,
+            DataSize maxReadSize,
+            DataSize tinyStripeThreshold,
+            DataSize maxBlockSize,
+            OrcFileTailSource orcFileTailSource,
+            StripeMetadataSource stripeMetadataSource)
+            throws IOException
+    {
+        this(orcDataSource, orcEncoding, maxMergeDistance, maxReadSize, tinyStripeThreshold, maxBlockSize, Optional.empty(), orcFileTailSource, stripeMetadataSource);
     }
 
     OrcReader(
@@ -89,6 +103,21 @@ public class OrcReader
             DataSize maxBlockSize,
             Optional<OrcWriteValidation> writeValidation)
             throws IOException
+    {
+        this(orcDataSource, orcEncoding, maxMergeDistance, maxReadSize, tinyStripeThreshold, maxBlockSize, writeValidation, new StorageOrcFileTailSource(), new StorageStripeMetadataSource());
+    }
+
+    private OrcReader(
+            OrcDataSource orcDataSource,
+            OrcEncoding orcEncoding,
+            DataSize maxMergeDistance,
+            DataSize maxReadSize,
+            DataSize tinyStripeThreshold,
+            DataSize maxBlockSize,
+            Optional<OrcWriteValidation> writeValidation,
+            OrcFileTailSource orcFileTailSource,
+            StripeMetadataSource stripeMetadataSource)
+            throws IOException
     {
         orcDataSource = wrapWithCacheIfTiny(orcDataSource, tinyStripeThreshold);
         this.orcDataSource = orcDataSource;
@@ -98,45 +127,12 @@ public class OrcReader
         this.maxReadSize = requireNonNull(maxReadSize, "maxReadSize is null");
         this.tinyStripeThreshold = requireNonNull(tinyStripeThreshold, "tinyStripeThreshold is null");
         this.maxBlockSize = requireNonNull(maxBlockSize, "maxBlockSize is null");
+        this.stripeMetadataSource = requireNonNull(stripeMetadataSource, "stripeMetadataSource is null");
 
         this.writeValidation = requireNonNull(writeValidation, "writeValidation is null");
 
-        //
-        // Read the file tail:
-        //
-        // variable: Footer
-        // variable: Metadata
-        // variable: PostScript - contains length of footer and metadata
-        // 1 byte: postScriptSize
-
-        // figure out the size of the file using the option or filesystem
-        long size = orcDataSource.getSize();
-        if (size <= MAGIC.length()) {
-            throw new OrcCorruptionException(orcDataSource.getId(), "Invalid file size %s", size);
-        }
-
-        // Read the tail of the file
-        byte[] buffer = new byte[toIntExact(min(size, EXPECTED_FOOTER_SIZE))];
-        orcDataSource.readFully(size - buffer.length, buffer);
-
-        // get length of PostScript - last byte of the file
-        int postScriptSize = buffer[buffer.length - SIZE_OF_BYTE] & 0xff;
-        if (postScriptSize >= buffer.length) {
-            throw new OrcCorruptionException(orcDataSource.getId(), "Invalid postscript length %s", postScriptSize);
-        }
-
-        // decode the post script
-        PostScript postScript;
-        try {
-            postScript = metadataReader.readPostScript(buffer, buffer.length - SIZE_OF_BYTE - postScriptSize, postScriptSize);
-        }
-        catch (OrcCorruptionException e) {
-            // check if this is an ORC file and not an RCFile or something else
-            if (!isValidHeaderMagic(orcDataSource)) {
-                throw new OrcCorruptionException(orcDataSource.getId(), "Not an ORC file");
-            }
-            throw e;
-        }
+        OrcFileTail orcFileTail = requireNonNull(orcFileTailSource, "orcFileTailSource is null").getOrcFileTail(orcDataSource, metadataReader);
+        PostScript postScript = orcFileTail.getPostScript();
 
         // verify this is a supported version
         checkOrcVersion(orcDataSource, postScript.getVersion());
@@ -150,40 +146,8 @@ public class OrcReader
         validateWrite(validation -> validation.getCompression() == compressionKind, "Unexpected compression");
 
         this.hiveWriterVersion = postScript.getHiveWriterVersion();
-
-        int footerSize = toIntExact(postScript.getFooterLength());
-        int metadataSize = toIntExact(postScript.getMetadataLength());
-
-        // check if extra bytes need to be read
-        Slice completeFooterSlice;
-        int completeFooterSize = footerSize + metadataSize + postScriptSize + SIZE_OF_BYTE;
-        if (completeFooterSize > buffer.length) {
-            // allocate a new buffer large enough for the complete footer
-            byte[] newBuffer = new byte[completeFooterSize];
-            completeFooterSlice = Slices.wrappedBuffer(newBuffer);
-
-            // initial read was not large enough, so read missing section
-            orcDataSource.readFully(size - completeFooterSize, newBuffer, 0, completeFooterSize - buffer.length);
-
-            // copy already read bytes into the new buffer
-            completeFooterSlice.setBytes(completeFooterSize - buffer.length, buffer);
-        }
-        else {
-            // footer is already in the bytes in buffer, just adjust position, length
-            completeFooterSlice = Slices.wrappedBuffer(buffer, buffer.length - completeFooterSize, completeFooterSize);
-        }
-
-        // read metadata
-        Slice metadataSlice = completeFooterSlice.slice(0, metadataSize);
-        try (InputStream metadataInputStream = new OrcInputStream(orcDataSource.getId(), metadataSlice.getInput(), decompressor, newSimpleAggregatedMemoryContext(), metadataSize)) {
-            this.metadata = metadataReader.readMetadata(hiveWriterVersion, metadataInputStream);
-        }
-
-        // read footer
-        Slice footerSlice = completeFooterSlice.slice(metadataSize, footerSize);
-        try (InputStream footerInputStream = new OrcInputStream(orcDataSource.getId(), footerSlice.getInput(), decompressor, newSimpleAggregatedMemoryContext(), footerSize)) {
-            this.footer = metadataReader.readFooter(hiveWriterVersion, footerInputStream);
-        }
+        this.metadata = orcFileTail.getMetadata();
+        this.footer = orcFileTail.getFooter();
 
         validateWrite(validation -> validation.getColumnNames().equals(getColumnNames()), "Unexpected column names");
         validateWrite(validation -> validation.getRowGroupMaxRowCount() == footer.getRowsInRowGroup(), "Unexpected rows in group");
@@ -233,6 +197,29 @@ public class OrcReader
             AggregatedMemoryContext systemMemoryUsage,
             int initialBatchSize)
     {
+        return createRecordReader(includedColumns, predicate, ImmutableMap.of(), offset, length, hiveStorageTimeZone, systemMemoryUsage, initialBatchSize);
+    }
+
+    /**
+     * Creates a reader which only returns the rows matching the filters, which are
+     * evaluated on the values of the filter columns as they are read. The values of
+     * the other columns are skipped for the rows which do not match.
+     *
+     * @param filters the domains of the included columns the rows must match,
+     * on types for which {@link #isFilterSupported} is true
+     */
+    public OrcRecordReader createRecordReader(
+            Map<Integer, Type> includedColumns,
+            OrcPredicate predicate,
+            Map<Integer, Domain> filters,
+            long offset,
+            long length,
+            DateTimeZone hiveStorageTimeZone,
+            AggregatedMemoryContext systemMemoryUsage,
+            int initialBatchSize)
+    {
+        requireNonNull(filters, "filters is null");
+        filters.forEach((column, domain) -> checkArgument(isFilterSupported(includedColumns.get(column)), "Filter on column %s of type %s is not supported", column, includedColumns.get(column)));
         return new OrcRecordReader(
                 requireNonNull(includedColumns, "includedColumns is null"),
                 requireNonNull(predicate, "predicate is null"),
@@ -255,7 +242,18 @@ public class OrcReader
                 footer.getUserMetadata(),
                 systemMemoryUsage,
                 writeValidation,
-                initialBatchSize);
+                initialBatchSize,
+                stripeMetadataSource,
+                filters);
+    }
+
+    public static boolean isFilterSupported(Type type)
+    {
+        if (type == null) {
+            return false;
+        }
+        Class<?> javaType = type.getJavaType();
+        return javaType == boolean.class || javaType == long.class || javaType == double.class || javaType == Slice.class;
     }
 
     private static OrcDataSource wrapWithCacheIfTiny(OrcDataSource dataSource, DataSize maxCacheSize)
@@ -270,18 +268,6 @@ public class OrcReader
         return new CachingOrcDataSource(dataSource, desiredOffset -> diskRange);
     }
 
-    /**
-     * Does the file start with the ORC magic bytes?
-     */
-    private static boolean isValidHeaderMagic(OrcDataSource source)
-            throws IOException
-    {
-        byte[] headerMagic = new byte[MAGIC.length()];
-        source.readFully(0, headerMagic);
-
-        return MAGIC.equals(Slices.wrappedBuffer(headerMagic));
-    }
-
     /**
      * Check to see if this ORC file is from a future version and if so,
      * warn the user that we may not be able to read all of the column encodings.
@@ -14,9 +14,11 @@
 package com.facebook.presto.orc;
 
 import com.facebook.presto.memory.context.AggregatedMemoryContext;
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.orc.OrcWriteValidation.StatisticsValidation;
 import com.facebook.presto.orc.OrcWriteValidation.WriteChecksum;
 import com.facebook.presto.orc.OrcWriteValidation.WriteChecksumBuilder;
+import com.facebook.presto.orc.cache.StripeMetadataSource;
 import com.facebook.presto.orc.metadata.ColumnEncoding;
 import com.facebook.presto.orc.metadata.MetadataReader;
 import com.facebook.presto.orc.metadata.OrcType;
@@ -25,11 +27,13 @@ import com.facebook.presto.orc.metadata.PostScript.HiveWriterVersion;
 import com.facebook.presto.orc.metadata.StripeInformation;
 import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
 import com.facebook.presto.orc.metadata.statistics.StripeStatistics;
+import com.facebook.presto.orc.reader.ColumnFilter;
 import com.facebook.presto.orc.reader.StreamReader;
 import com.facebook.presto.orc.reader.StreamReaders;
 import com.facebook.presto.orc.stream.InputStreamSources;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
@@ -47,6 +51,7 @@ import org.openjdk.jol.info.ClassLayout;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -60,6 +65,7 @@ import static com.facebook.presto.orc.OrcReader.BATCH_SIZE_GROWTH_FACTOR;
 import static com.facebook.presto.orc.OrcReader.MAX_BATCH_SIZE;
 import static com.facebook.presto.orc.OrcRecordReader.LinearProbeRangeFinder.createTinyStripesRangeFinder;
 import static com.facebook.presto.orc.OrcWriteValidation.WriteChecksumBuilder.createWriteChecksumBuilder;
+import static com.facebook.presto.orc.reader.ColumnFilters.createColumnFilter;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
@@ -94,6 +100,7 @@ public class OrcRecordReader
     private int currentStripe = -1;
     private AggregatedMemoryContext currentStripeSystemMemoryContext;
     private AggregatedMemoryContext streamReadersSystemMemoryContext;
+    private final LocalMemoryContext prefetchSystemMemoryContext;
 
     private final long fileRowCount;
     private final List<Long> stripeFilePositions;
@@ -114,6 +121,12 @@ public class OrcRecordReader
     private final Optional<StatisticsValidation> stripeStatisticsValidation;
     private final Optional<StatisticsValidation> fileStatisticsValidation;
 
+    private final Map<Integer, ColumnFilter> filters;
+    private final Block[] filterBlocks;
+    private final int[][] filterBlockPositions;
+    private int[] selectedPositions = new int[0];
+    private int selectedPositionCount;
+
     public OrcRecordReader(
             Map<Integer, Type> includedColumns,
             OrcPredicate predicate,
@@ -136,7 +149,9 @@ public class OrcRecordReader
             Map<String, Slice> userMetadata,
             AggregatedMemoryContext systemMemoryUsage,
             Optional<OrcWriteValidation> writeValidation,
-            int initialBatchSize)
+            int initialBatchSize,
+            StripeMetadataSource stripeMetadataSource,
+            Map<Integer, Domain> filters)
     {
         requireNonNull(includedColumns, "includedColumns is null");
         requireNonNull(predicate, "predicate is null");
@@ -171,6 +186,20 @@ public class OrcRecordReader
         }
         this.presentColumns = presentColumns.build();
 
+        // filters on columns missing from the file are left to the caller
+        requireNonNull(filters, "filters is null");
+        checkArgument(includedColumns.keySet().containsAll(filters.keySet()), "filters must be on included columns");
+        checkArgument(filters.isEmpty() || !writeValidation.isPresent(), "filters are not supported with write validation");
+        ImmutableMap.Builder<Integer, ColumnFilter> columnFilters = ImmutableMap.builder();
+        for (Map.Entry<Integer, Domain> entry : filters.entrySet()) {
+            if (this.presentColumns.contains(entry.getKey())) {
+                // domains which can not be compiled are left to the caller as well
+                createColumnFilter(includedColumns.get(entry.getKey()), entry.getValue())
+                        .ifPresent(filter -> columnFilters.put(entry.getKey(), filter));
+            }
+        }
+        this.filters = columnFilters.build();
+
         this.maxBlockBytes = requireNonNull(maxBlockSize, "maxBlockSize is null").toBytes();
 
         // it is possible that old versions of orc use 0 to mean there are no row groups
@@ -226,6 +255,7 @@ public class OrcRecordReader
         // ListStreamReader and StructStreamReader) instance sizes were not counted, because calling setBytes() in
         // their constructors is confusing.
         this.streamReadersSystemMemoryContext = this.systemMemoryUsage.newAggregatedMemoryContext();
+        this.prefetchSystemMemoryContext = this.systemMemoryUsage.newLocalMemoryContext(OrcRecordReader.class.getSimpleName());
 
         stripeReader = new StripeReader(
                 orcDataSource,
@@ -236,9 +266,12 @@ public class OrcRecordReader
                 predicate,
                 hiveWriterVersion,
                 metadataReader,
-                writeValidation);
+                writeValidation,
+                stripeMetadataSource);
 
         streamReaders = createStreamReaders(orcDataSource, types, hiveStorageTimeZone, presentColumnsAndTypes.build(), streamReadersSystemMemoryContext);
+        filterBlocks = new Block[streamReaders.length];
+        filterBlockPositions = new int[streamReaders.length][];
         maxBytesPerCell = new long[streamReaders.length];
         nextBatchSize = initialBatchSize;
     }
@@ -368,8 +401,32 @@ public class OrcRecordReader
         return presentColumns.contains(hiveColumnIndex);
     }
 
+    /**
+     * Advances to the next batch, and returns the number of positions of the batch, or -1
+     * if there are no more rows. When the reader has filters, the filter columns are read
+     * first, and only the positions passing all filters are returned. Batches without any
+     * such positions are skipped, so the positions of the reader advance by more than the
+     * returned number of positions.
+     */
     public int nextBatch()
             throws IOException
+    {
+        int batchSize = advanceBatch();
+        if (filters.isEmpty()) {
+            return batchSize;
+        }
+        while (batchSize > 0) {
+            int selectedPositionCount = filterBatch(batchSize);
+            if (selectedPositionCount > 0) {
+                return selectedPositionCount;
+            }
+            batchSize = advanceBatch();
+        }
+        return batchSize;
+    }
+
+    private int advanceBatch()
+            throws IOException
     {
         // update position for current row group (advancing resets them)
         filePosition += currentBatchSize;
@@ -412,7 +469,19 @@ public class OrcRecordReader
     public Block readBlock(Type type, int columnIndex)
             throws IOException
     {
-        Block block = streamReaders[columnIndex].readBlock(type);
+        Block block;
+        if (filters.isEmpty()) {
+            block = streamReaders[columnIndex].readBlock(type);
+        }
+        else if (filterBlocks[columnIndex] != null) {
+            block = getFilterBlock(columnIndex);
+        }
+        else if (selectedPositionCount == currentBatchSize) {
+            block = streamReaders[columnIndex].readBlock(type);
+        }
+        else {
+            block = streamReaders[columnIndex].readBlock(type, selectedPositions, selectedPositionCount);
+        }
         if (block.getPositionCount() > 0) {
             long bytesPerCell = block.getSizeInBytes() / block.getPositionCount();
             if (maxBytesPerCell[columnIndex] < bytesPerCell) {
@@ -424,6 +493,65 @@ public class OrcRecordReader
         return block;
     }
 
+    /**
+     * Reads the filter columns of the current batch, and returns the number of positions
+     * which pass all filters. Once some positions have been filtered out, only the
+     * remaining positions of the following filter columns are read.
+     */
+    private int filterBatch(int batchSize)
+            throws IOException
+    {
+        if (selectedPositions.length < batchSize) {
+            selectedPositions = new int[batchSize];
+        }
+        for (int position = 0; position < batchSize; position++) {
+            selectedPositions[position] = position;
+        }
+        selectedPositionCount = batchSize;
+        Arrays.fill(filterBlocks, null);
+
+        for (Map.Entry<Integer, ColumnFilter> entry : filters.entrySet()) {
+            int columnIndex = entry.getKey();
+
+            // the stream reader tests the values as they are decoded, and narrows down the selected positions
+            Block block = streamReaders[columnIndex].readBlock(includedColumns.get(columnIndex), selectedPositions, selectedPositionCount, entry.getValue());
+            selectedPositionCount = block.getPositionCount();
+            filterBlocks[columnIndex] = block;
+
+            int[] blockPositions = filterBlockPositions[columnIndex];
+            if (blockPositions == null || blockPositions.length < selectedPositionCount) {
+                blockPositions = new int[batchSize];
+                filterBlockPositions[columnIndex] = blockPositions;
+            }
+            System.arraycopy(selectedPositions, 0, blockPositions, 0, selectedPositionCount);
+            if (selectedPositionCount == 0) {
+                break;
+            }
+        }
+        return selectedPositionCount;
+    }
+
+    private Block getFilterBlock(int columnIndex)
+    {
+        Block block = filterBlocks[columnIndex];
+        if (block.getPositionCount() == selectedPositionCount) {
+            return block;
+        }
+
+        // the block was read before the positions were narrowed down by the following filters
+        int[] blockPositions = filterBlockPositions[columnIndex];
+        int[] indexes = new int[selectedPositionCount];
+        int blockIndex = 0;
+        for (int i = 0; i < selectedPositionCount; i++) {
+            int position = selectedPositions[i];
+            while (blockPositions[blockIndex] != position) {
+                blockIndex++;
+            }
+            indexes[i] = blockIndex;
+        }
+        return block.copyPositions(indexes, 0, selectedPositionCount);
+    }
+
     public StreamReader getStreamReader(int index)
     {
         checkArgument(index < streamReaders.length, "index does not exist");
@@ -508,6 +636,14 @@ public class OrcRecordReader
         validateWriteStripe(stripeInformation.getNumberOfRows());
 
         Stripe stripe = stripeReader.readStripe(stripeInformation, currentStripeSystemMemoryContext);
+
+        // start reading the next stripe while this one is decoded
+        if (orcDataSource.isPrefetching() && currentStripe + 1 < stripes.size()) {
+            AggregatedMemoryContext footerSystemMemoryContext = systemMemoryUsage.newAggregatedMemoryContext();
+            stripeReader.prefetchStripe(stripes.get(currentStripe + 1), footerSystemMemoryContext, prefetchSystemMemoryContext);
+            footerSystemMemoryContext.close();
+        }
+
         if (stripe != null) {
             // Give readers access to dictionary streams
             InputStreamSources dictionaryStreamSources = stripe.getDictionaryStreamSources();
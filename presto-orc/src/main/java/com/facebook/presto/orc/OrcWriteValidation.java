@@ -250,7 +250,7 @@ public class OrcWriteValidation
                     throw new OrcCorruptionException(orcDataSourceId, "Unexpected column in row group %s in stripe at offset %s", rowGroupIndex, stripeOffset);
                 }
                 for (Entry<StreamId, List<RowGroupIndex>> entry : actualRowGroupStatistics.entrySet()) {
-                    ColumnStatistics actual = entry.getValue().get(rowGroupIndex).getColumnStatistics();
+                    ColumnStatistics actual = getRowGroupColumnStatistics(entry.getValue().get(rowGroupIndex));
                     ColumnStatistics expected = expectedStatistics.get(entry.getKey().getColumn());
                     validateColumnStatisticsEquivalent(orcDataSourceId, "Row group " + rowGroupIndex + " in stripe at offset " + stripeOffset, actual, expected);
                 }
@@ -271,7 +271,17 @@ public class OrcWriteValidation
                 BOTH,
                 actualRowGroupStatistics.entrySet()
                         .stream()
-                        .collect(Collectors.toMap(entry -> entry.getKey().getColumn(), entry -> entry.getValue().get(rowGroupIndex).getColumnStatistics())));
+                        .collect(Collectors.toMap(entry -> entry.getKey().getColumn(), entry -> getRowGroupColumnStatistics(entry.getValue().get(rowGroupIndex)))));
+    }
+
+    private static ColumnStatistics getRowGroupColumnStatistics(RowGroupIndex rowGroupIndex)
+    {
+        // bloom filters are written in a separate stream, and are not part of the statistics collected by the writer
+        ColumnStatistics columnStatistics = rowGroupIndex.getColumnStatistics();
+        if (columnStatistics.getBloomFilter() == null) {
+            return columnStatistics;
+        }
+        return columnStatistics.withBloomFilter(null);
     }
 
     public void validateRowGroupStatistics(
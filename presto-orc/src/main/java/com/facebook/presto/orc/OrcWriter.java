@@ -29,6 +29,7 @@ import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
 import com.facebook.presto.orc.metadata.statistics.StripeStatistics;
 import com.facebook.presto.orc.stream.OrcDataOutput;
 import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.orc.writer.BloomFilterColumnWriter;
 import com.facebook.presto.orc.writer.ColumnWriter;
 import com.facebook.presto.orc.writer.SliceDictionaryColumnWriter;
 import com.facebook.presto.spi.Page;
@@ -55,6 +56,7 @@ import java.util.Map.Entry;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import static com.facebook.presto.orc.OrcEncoding.DWRF;
 import static com.facebook.presto.orc.OrcReader.validateFile;
 import static com.facebook.presto.orc.OrcWriterStats.FlushReason.CLOSED;
 import static com.facebook.presto.orc.OrcWriterStats.FlushReason.DICTIONARY_FULL;
@@ -63,6 +65,7 @@ import static com.facebook.presto.orc.OrcWriterStats.FlushReason.MAX_ROWS;
 import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
 import static com.facebook.presto.orc.metadata.PostScript.MAGIC;
 import static com.facebook.presto.orc.stream.OrcDataOutput.createDataOutput;
+import static com.facebook.presto.orc.writer.BloomFilterColumnWriter.isBloomFilterSupported;
 import static com.facebook.presto.orc.writer.ColumnWriters.createColumnWriter;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -158,6 +161,7 @@ public class OrcWriter
         this.stats = requireNonNull(stats, "stats is null");
 
         requireNonNull(columnNames, "columnNames is null");
+        checkArgument(orcEncoding != DWRF || options.getBloomFilterColumns().isEmpty(), "DWRF does not support bloom filters");
         this.orcTypes = OrcType.createOrcRowType(0, columnNames, types);
         recordValidation(validation -> validation.setColumnNames(columnNames));
 
@@ -170,7 +174,12 @@ public class OrcWriter
             int fieldColumnIndex = rootType.getFieldTypeIndex(fieldId);
             Type fieldType = types.get(fieldId);
             ColumnWriter columnWriter = createColumnWriter(fieldColumnIndex, orcTypes, fieldType, compression, maxCompressionBufferSize, orcEncoding, hiveStorageTimeZone, options.getMaxStringStatisticsLimit());
-            columnWriters.add(columnWriter);
+            if (options.getBloomFilterColumns().contains(columnNames.get(fieldId)) && isBloomFilterSupported(fieldType)) {
+                columnWriters.add(new BloomFilterColumnWriter(columnWriter, fieldColumnIndex, fieldType, rowGroupMaxRowCount, options.getBloomFilterFpp()));
+            }
+            else {
+                columnWriters.add(columnWriter);
+            }
 
             if (columnWriter instanceof SliceDictionaryColumnWriter) {
                 sliceColumnWriters.add((SliceDictionaryColumnWriter) columnWriter);
@@ -14,6 +14,8 @@
 package com.facebook.presto.orc;
 
 import com.facebook.presto.memory.context.AggregatedMemoryContext;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.orc.cache.StripeMetadataSource;
 import com.facebook.presto.orc.checkpoint.InvalidCheckpointException;
 import com.facebook.presto.orc.checkpoint.StreamCheckpoint;
 import com.facebook.presto.orc.metadata.ColumnEncoding;
@@ -83,6 +85,10 @@ public class StripeReader
     private final OrcPredicate predicate;
     private final MetadataReader metadataReader;
     private final Optional<OrcWriteValidation> writeValidation;
+    private final StripeMetadataSource stripeMetadataSource;
+
+    private StripeInformation prefetchedStripe;
+    private StripeFooter prefetchedStripeFooter;
 
     public StripeReader(OrcDataSource orcDataSource,
             Optional<OrcDecompressor> decompressor,
@@ -92,7 +98,8 @@ public class StripeReader
             OrcPredicate predicate,
             HiveWriterVersion hiveWriterVersion,
             MetadataReader metadataReader,
-            Optional<OrcWriteValidation> writeValidation)
+            Optional<OrcWriteValidation> writeValidation,
+            StripeMetadataSource stripeMetadataSource)
     {
         this.orcDataSource = requireNonNull(orcDataSource, "orcDataSource is null");
         this.decompressor = requireNonNull(decompressor, "decompressor is null");
@@ -103,13 +110,22 @@ public class StripeReader
         this.hiveWriterVersion = requireNonNull(hiveWriterVersion, "hiveWriterVersion is null");
         this.metadataReader = requireNonNull(metadataReader, "metadataReader is null");
         this.writeValidation = requireNonNull(writeValidation, "writeValidation is null");
+        this.stripeMetadataSource = requireNonNull(stripeMetadataSource, "stripeMetadataSource is null");
     }
 
     public Stripe readStripe(StripeInformation stripe, AggregatedMemoryContext systemMemoryUsage)
             throws IOException
     {
         // read the stripe footer
-        StripeFooter stripeFooter = readStripeFooter(stripe, systemMemoryUsage);
+        StripeFooter stripeFooter;
+        if (stripe == prefetchedStripe) {
+            stripeFooter = prefetchedStripeFooter;
+        }
+        else {
+            stripeFooter = readStripeFooter(stripe, systemMemoryUsage);
+        }
+        prefetchedStripe = null;
+        prefetchedStripeFooter = null;
         List<ColumnEncoding> columnEncodings = stripeFooter.getColumnEncodings();
 
         // get streams for selected columns
@@ -145,13 +161,20 @@ public class StripeReader
             diskRanges = Maps.filterKeys(diskRanges, Predicates.in(streams.keySet()));
 
             // read the file regions
-            Map<StreamId, OrcInputStream> streamsData = readDiskRanges(stripe.getOffset(), diskRanges, systemMemoryUsage);
+            // with a predicate, the index streams are read first, so the data streams are not read when all row groups are skipped
+            Map<StreamId, OrcInputStream> streamsData;
+            if (predicate == OrcPredicate.TRUE) {
+                streamsData = readDiskRanges(stripe.getOffset(), diskRanges, systemMemoryUsage);
+            }
+            else {
+                streamsData = readDiskRanges(stripe.getOffset(), Maps.filterKeys(diskRanges, streamId -> isIndexStream(streams.get(streamId))), systemMemoryUsage);
+            }
 
             // read the bloom filter for each column
             Map<StreamId, List<HiveBloomFilter>> bloomFilterIndexes = readBloomFilterIndexes(streams, streamsData);
 
             // read the row index for each column
-            Map<StreamId, List<RowGroupIndex>> columnIndexes = readColumnIndexes(streams, streamsData, bloomFilterIndexes);
+            Map<StreamId, List<RowGroupIndex>> columnIndexes = readColumnIndexes(stripe, streams, streamsData, bloomFilterIndexes);
             if (writeValidation.isPresent()) {
                 writeValidation.get().validateRowGroupStatistics(orcDataSource.getId(), stripe.getOffset(), columnIndexes);
             }
@@ -166,6 +189,10 @@ public class StripeReader
                 return null;
             }
 
+            if (predicate != OrcPredicate.TRUE) {
+                streamsData = readDiskRanges(stripe.getOffset(), Maps.filterKeys(diskRanges, streamId -> !isIndexStream(streams.get(streamId))), systemMemoryUsage);
+            }
+
             // value streams
             Map<StreamId, ValueInputStream<?>> valueStreams = createValueStreams(streams, streamsData, columnEncodings);
 
@@ -211,7 +238,13 @@ public class StripeReader
         long minAverageRowBytes = 0;
         for (Entry<StreamId, Stream> entry : streams.entrySet()) {
             if (entry.getKey().getStreamKind() == ROW_INDEX) {
-                List<RowGroupIndex> rowGroupIndexes = metadataReader.readRowIndexes(hiveWriterVersion, streamsData.get(entry.getKey()));
+                OrcInputStream inputStream = streamsData.get(entry.getKey());
+                List<RowGroupIndex> rowGroupIndexes = stripeMetadataSource.getRowGroupIndexes(
+                        orcDataSource,
+                        stripe,
+                        entry.getKey(),
+                        false,
+                        () -> metadataReader.readRowIndexes(hiveWriterVersion, inputStream));
                 checkState(rowGroupIndexes.size() == 1 || invalidCheckPoint, "expect a single row group or an invalid check point");
                 long totalBytes = 0;
                 long totalRows = 0;
@@ -244,6 +277,30 @@ public class StripeReader
         return new Stripe(stripe.getNumberOfRows(), columnEncodings, ImmutableList.of(rowGroup), dictionaryStreamSources);
     }
 
+    /**
+     * Reads the footer of the stripe, and hints the data source to start reading the streams
+     * of the included columns, so they can be fetched while the previous stripe is decoded.
+     *
+     * @param prefetchSystemMemoryContext accounts the buffers of the prefetched streams
+     */
+    public void prefetchStripe(StripeInformation stripe, AggregatedMemoryContext systemMemoryUsage, LocalMemoryContext prefetchSystemMemoryContext)
+            throws IOException
+    {
+        StripeFooter stripeFooter = readStripeFooter(stripe, systemMemoryUsage);
+
+        ImmutableList.Builder<DiskRange> diskRanges = ImmutableList.builder();
+        for (Entry<StreamId, DiskRange> entry : getDiskRanges(stripeFooter.getStreams()).entrySet()) {
+            if (includedOrcColumns.contains(entry.getKey().getColumn())) {
+                DiskRange diskRange = entry.getValue();
+                diskRanges.add(new DiskRange(stripe.getOffset() + diskRange.getOffset(), diskRange.getLength()));
+            }
+        }
+
+        prefetchedStripe = stripe;
+        prefetchedStripeFooter = stripeFooter;
+        orcDataSource.prefetch(diskRanges.build(), prefetchSystemMemoryContext);
+    }
+
     public Map<StreamId, OrcInputStream> readDiskRanges(long stripeOffset, Map<StreamId, DiskRange> diskRanges, AggregatedMemoryContext systemMemoryUsage)
             throws IOException
     {
@@ -375,6 +432,12 @@ public class StripeReader
 
     public StripeFooter readStripeFooter(StripeInformation stripe, AggregatedMemoryContext systemMemoryUsage)
             throws IOException
+    {
+        return stripeMetadataSource.getStripeFooter(orcDataSource, stripe, () -> loadStripeFooter(stripe, systemMemoryUsage));
+    }
+
+    private StripeFooter loadStripeFooter(StripeInformation stripe, AggregatedMemoryContext systemMemoryUsage)
+            throws IOException
     {
         long offset = stripe.getOffset() + stripe.getIndexLength() + stripe.getDataLength();
         int tailLength = toIntExact(stripe.getFooterLength());
@@ -407,7 +470,7 @@ public class StripeReader
         return bloomFilters.build();
     }
 
-    private Map<StreamId, List<RowGroupIndex>> readColumnIndexes(Map<StreamId, Stream> streams, Map<StreamId, OrcInputStream> streamsData, Map<StreamId, List<HiveBloomFilter>> bloomFilterIndexes)
+    private Map<StreamId, List<RowGroupIndex>> readColumnIndexes(StripeInformation stripe, Map<StreamId, Stream> streams, Map<StreamId, OrcInputStream> streamsData, Map<StreamId, List<HiveBloomFilter>> bloomFilterIndexes)
             throws IOException
     {
         ImmutableMap.Builder<StreamId, List<RowGroupIndex>> columnIndexes = ImmutableMap.builder();
@@ -415,24 +478,36 @@ public class StripeReader
             Stream stream = entry.getValue();
             if (stream.getStreamKind() == ROW_INDEX) {
                 OrcInputStream inputStream = streamsData.get(entry.getKey());
-                List<HiveBloomFilter> bloomFilters = bloomFilterIndexes.get(entry.getKey());
-                List<RowGroupIndex> rowGroupIndexes = metadataReader.readRowIndexes(hiveWriterVersion, inputStream);
-                if (bloomFilters != null && !bloomFilters.isEmpty()) {
-                    ImmutableList.Builder<RowGroupIndex> newRowGroupIndexes = ImmutableList.builder();
-                    for (int i = 0; i < rowGroupIndexes.size(); i++) {
-                        RowGroupIndex rowGroupIndex = rowGroupIndexes.get(i);
-                        ColumnStatistics columnStatistics = rowGroupIndex.getColumnStatistics()
-                                .withBloomFilter(bloomFilters.get(i));
-                        newRowGroupIndexes.add(new RowGroupIndex(rowGroupIndex.getPositions(), columnStatistics));
-                    }
-                    rowGroupIndexes = newRowGroupIndexes.build();
-                }
+                List<HiveBloomFilter> bloomFilters = bloomFilterIndexes.get(new StreamId(stream.getColumn(), stream.getSequence(), BLOOM_FILTER));
+                List<RowGroupIndex> rowGroupIndexes = stripeMetadataSource.getRowGroupIndexes(
+                        orcDataSource,
+                        stripe,
+                        entry.getKey(),
+                        bloomFilters != null && !bloomFilters.isEmpty(),
+                        () -> readRowGroupIndexes(inputStream, bloomFilters));
                 columnIndexes.put(entry.getKey(), rowGroupIndexes);
             }
         }
         return columnIndexes.build();
     }
 
+    private List<RowGroupIndex> readRowGroupIndexes(OrcInputStream inputStream, List<HiveBloomFilter> bloomFilters)
+            throws IOException
+    {
+        List<RowGroupIndex> rowGroupIndexes = metadataReader.readRowIndexes(hiveWriterVersion, inputStream);
+        if (bloomFilters == null || bloomFilters.isEmpty()) {
+            return rowGroupIndexes;
+        }
+        ImmutableList.Builder<RowGroupIndex> newRowGroupIndexes = ImmutableList.builder();
+        for (int i = 0; i < rowGroupIndexes.size(); i++) {
+            RowGroupIndex rowGroupIndex = rowGroupIndexes.get(i);
+            ColumnStatistics columnStatistics = rowGroupIndex.getColumnStatistics()
+                    .withBloomFilter(bloomFilters.get(i));
+            newRowGroupIndexes.add(new RowGroupIndex(rowGroupIndex.getPositions(), columnStatistics));
+        }
+        return newRowGroupIndexes.build();
+    }
+
     private Set<Integer> selectRowGroups(StripeInformation stripe, Map<StreamId, List<RowGroupIndex>> columnIndexes)
     {
         int rowsInStripe = toIntExact(stripe.getNumberOfRows());
@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.cache;
+
+import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcDataSourceId;
+import com.facebook.presto.orc.metadata.MetadataReader;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Caches the parsed tails of ORC files, so that splits of the same file, and
+ * later queries reading the file, do not have to read and decode them again.
+ * Files are identified by their path and size, as a rewritten file is very
+ * unlikely to have the same size. The entries are weighed by their retained size.
+ */
+public class CachingOrcFileTailSource
+        implements OrcFileTailSource
+{
+    private final OrcFileTailSource delegate;
+    private final Cache<OrcFileKey, OrcFileTail> cache;
+
+    public CachingOrcFileTailSource(OrcFileTailSource delegate, DataSize maxSize, Duration ttl)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        requireNonNull(maxSize, "maxSize is null");
+        requireNonNull(ttl, "ttl is null");
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .<OrcFileKey, OrcFileTail>weigher((key, tail) -> toIntExact(min(tail.getRetainedSizeInBytes(), Integer.MAX_VALUE)))
+                .expireAfterAccess(ttl.toMillis(), MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public OrcFileTail getOrcFileTail(OrcDataSource orcDataSource, MetadataReader metadataReader)
+            throws IOException
+    {
+        OrcFileKey key = new OrcFileKey(orcDataSource.getId(), orcDataSource.getSize());
+        try {
+            return cache.get(key, () -> delegate.getOrcFileTail(orcDataSource, metadataReader));
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            throwIfInstanceOf(e.getCause(), IOException.class);
+            throwIfUnchecked(e.getCause());
+            throw new IOException("Unexpected error reading ORC file tail", e.getCause());
+        }
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getFileTailCacheStats()
+    {
+        return new CacheStatsMBean(cache);
+    }
+
+    @Managed
+    public long getFileTailCacheWeight()
+    {
+        return cache.asMap().values().stream()
+                .mapToLong(OrcFileTail::getRetainedSizeInBytes)
+                .sum();
+    }
+
+    private static final class OrcFileKey
+    {
+        private final OrcDataSourceId id;
+        private final long size;
+
+        public OrcFileKey(OrcDataSourceId id, long size)
+        {
+            this.id = requireNonNull(id, "id is null");
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            OrcFileKey that = (OrcFileKey) o;
+            return size == that.size &&
+                    Objects.equals(id, that.id);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(id, size);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("id", id)
+                    .add("size", size)
+                    .toString();
+        }
+    }
+}
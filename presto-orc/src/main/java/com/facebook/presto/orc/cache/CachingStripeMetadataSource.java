@@ -0,0 +1,241 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.cache;
+
+import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcDataSourceId;
+import com.facebook.presto.orc.StreamId;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static io.airlift.slice.SizeOf.sizeOfObjectArray;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Caches the parsed stripe footers and row group indexes of ORC files. The entries
+ * are weighed by their retained size, and stripes are identified by the path and
+ * size of the file and by their offset in the file.
+ */
+public class CachingStripeMetadataSource
+        implements StripeMetadataSource
+{
+    private final StripeMetadataSource delegate;
+    private final Cache<StripeKey, StripeFooter> footerCache;
+    private final Cache<RowGroupIndexKey, WeightedRowGroupIndexes> rowGroupIndexCache;
+
+    public CachingStripeMetadataSource(StripeMetadataSource delegate, DataSize maxFooterCacheSize, DataSize maxRowGroupIndexCacheSize, Duration ttl)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        requireNonNull(maxFooterCacheSize, "maxFooterCacheSize is null");
+        requireNonNull(maxRowGroupIndexCacheSize, "maxRowGroupIndexCacheSize is null");
+        requireNonNull(ttl, "ttl is null");
+        this.footerCache = CacheBuilder.newBuilder()
+                .maximumWeight(maxFooterCacheSize.toBytes())
+                .<StripeKey, StripeFooter>weigher((key, footer) -> toIntExact(min(footer.getRetainedSizeInBytes(), Integer.MAX_VALUE)))
+                .expireAfterAccess(ttl.toMillis(), MILLISECONDS)
+                .recordStats()
+                .build();
+        this.rowGroupIndexCache = CacheBuilder.newBuilder()
+                .maximumWeight(maxRowGroupIndexCacheSize.toBytes())
+                .<RowGroupIndexKey, WeightedRowGroupIndexes>weigher((key, indexes) -> indexes.getWeight())
+                .expireAfterAccess(ttl.toMillis(), MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public StripeFooter getStripeFooter(OrcDataSource orcDataSource, StripeInformation stripe, MetadataLoader<StripeFooter> loader)
+            throws IOException
+    {
+        StripeKey key = new StripeKey(orcDataSource.getId(), orcDataSource.getSize(), stripe);
+        try {
+            return footerCache.get(key, () -> delegate.getStripeFooter(orcDataSource, stripe, loader));
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            throw propagate(e.getCause());
+        }
+    }
+
+    @Override
+    public List<RowGroupIndex> getRowGroupIndexes(OrcDataSource orcDataSource, StripeInformation stripe, StreamId streamId, boolean withBloomFilters, MetadataLoader<List<RowGroupIndex>> loader)
+            throws IOException
+    {
+        RowGroupIndexKey key = new RowGroupIndexKey(new StripeKey(orcDataSource.getId(), orcDataSource.getSize(), stripe), streamId, withBloomFilters);
+        try {
+            return rowGroupIndexCache.get(key, () -> new WeightedRowGroupIndexes(delegate.getRowGroupIndexes(orcDataSource, stripe, streamId, withBloomFilters, loader)))
+                    .getRowGroupIndexes();
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            throw propagate(e.getCause());
+        }
+    }
+
+    private static IOException propagate(Throwable throwable)
+            throws IOException
+    {
+        throwIfInstanceOf(throwable, IOException.class);
+        throwIfUnchecked(throwable);
+        throw new IOException("Unexpected error reading ORC stripe metadata", throwable);
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getStripeFooterCacheStats()
+    {
+        return new CacheStatsMBean(footerCache);
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getRowGroupIndexCacheStats()
+    {
+        return new CacheStatsMBean(rowGroupIndexCache);
+    }
+
+    private static final class StripeKey
+    {
+        private final OrcDataSourceId id;
+        private final long fileSize;
+        private final long stripeOffset;
+
+        public StripeKey(OrcDataSourceId id, long fileSize, StripeInformation stripe)
+        {
+            this.id = requireNonNull(id, "id is null");
+            this.fileSize = fileSize;
+            this.stripeOffset = stripe.getOffset();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            StripeKey that = (StripeKey) o;
+            return fileSize == that.fileSize &&
+                    stripeOffset == that.stripeOffset &&
+                    Objects.equals(id, that.id);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(id, fileSize, stripeOffset);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("id", id)
+                    .add("fileSize", fileSize)
+                    .add("stripeOffset", stripeOffset)
+                    .toString();
+        }
+    }
+
+    private static final class RowGroupIndexKey
+    {
+        private final StripeKey stripeKey;
+        private final StreamId streamId;
+        // the same indexes are read with and without bloom filters
+        private final boolean withBloomFilters;
+
+        public RowGroupIndexKey(StripeKey stripeKey, StreamId streamId, boolean withBloomFilters)
+        {
+            this.stripeKey = requireNonNull(stripeKey, "stripeKey is null");
+            this.streamId = requireNonNull(streamId, "streamId is null");
+            this.withBloomFilters = withBloomFilters;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            RowGroupIndexKey that = (RowGroupIndexKey) o;
+            return withBloomFilters == that.withBloomFilters &&
+                    Objects.equals(stripeKey, that.stripeKey) &&
+                    Objects.equals(streamId, that.streamId);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(stripeKey, streamId, withBloomFilters);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("stripeKey", stripeKey)
+                    .add("streamId", streamId)
+                    .add("withBloomFilters", withBloomFilters)
+                    .toString();
+        }
+    }
+
+    private static final class WeightedRowGroupIndexes
+    {
+        private final List<RowGroupIndex> rowGroupIndexes;
+        private final int weight;
+
+        public WeightedRowGroupIndexes(List<RowGroupIndex> rowGroupIndexes)
+        {
+            this.rowGroupIndexes = requireNonNull(rowGroupIndexes, "rowGroupIndexes is null");
+            long retainedSizeInBytes = sizeOfObjectArray(rowGroupIndexes.size());
+            for (RowGroupIndex rowGroupIndex : rowGroupIndexes) {
+                retainedSizeInBytes += rowGroupIndex.getRetainedSizeInBytes();
+            }
+            this.weight = toIntExact(min(retainedSizeInBytes, Integer.MAX_VALUE));
+        }
+
+        public List<RowGroupIndex> getRowGroupIndexes()
+        {
+            return rowGroupIndexes;
+        }
+
+        public int getWeight()
+        {
+            return weight;
+        }
+    }
+}
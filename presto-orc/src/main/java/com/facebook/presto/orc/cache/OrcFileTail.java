@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.cache;
+
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.Metadata;
+import com.facebook.presto.orc.metadata.PostScript;
+import org.openjdk.jol.info.ClassLayout;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static io.airlift.slice.SizeOf.sizeOfObjectArray;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The parsed post script, footer and metadata at the end of an ORC file.
+ */
+public class OrcFileTail
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(OrcFileTail.class).instanceSize();
+    private static final int POST_SCRIPT_INSTANCE_SIZE = ClassLayout.parseClass(PostScript.class).instanceSize();
+    private static final int INTEGER_INSTANCE_SIZE = ClassLayout.parseClass(Integer.class).instanceSize();
+
+    private final PostScript postScript;
+    private final Footer footer;
+    private final Metadata metadata;
+    private final long retainedSizeInBytes;
+
+    public OrcFileTail(PostScript postScript, Footer footer, Metadata metadata)
+    {
+        this.postScript = requireNonNull(postScript, "postScript is null");
+        this.footer = requireNonNull(footer, "footer is null");
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.retainedSizeInBytes = INSTANCE_SIZE +
+                POST_SCRIPT_INSTANCE_SIZE + sizeOfObjectArray(postScript.getVersion().size()) + (long) postScript.getVersion().size() * INTEGER_INSTANCE_SIZE +
+                footer.getRetainedSizeInBytes() +
+                metadata.getRetainedSizeInBytes();
+    }
+
+    public PostScript getPostScript()
+    {
+        return postScript;
+    }
+
+    public Footer getFooter()
+    {
+        return footer;
+    }
+
+    public Metadata getMetadata()
+    {
+        return metadata;
+    }
+
+    /**
+     * Returns the size of the parsed tail in memory, which can be much larger than the serialized tail in the file.
+     */
+    public long getRetainedSizeInBytes()
+    {
+        return retainedSizeInBytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("postScript", postScript)
+                .add("footer", footer)
+                .add("retainedSizeInBytes", retainedSizeInBytes)
+                .toString();
+    }
+}
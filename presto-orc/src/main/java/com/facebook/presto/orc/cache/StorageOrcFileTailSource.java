@@ -0,0 +1,140 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.cache;
+
+import com.facebook.presto.orc.OrcCorruptionException;
+import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcDecompressor;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.Metadata;
+import com.facebook.presto.orc.metadata.MetadataReader;
+import com.facebook.presto.orc.metadata.PostScript;
+import com.facebook.presto.orc.metadata.PostScript.HiveWriterVersion;
+import com.facebook.presto.orc.stream.OrcInputStream;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.orc.OrcDecompressor.createOrcDecompressor;
+import static com.facebook.presto.orc.metadata.PostScript.MAGIC;
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+
+public class StorageOrcFileTailSource
+        implements OrcFileTailSource
+{
+    private static final int EXPECTED_FOOTER_SIZE = 16 * 1024;
+
+    // This is based on the Apache Hive ORC code
+    @Override
+    public OrcFileTail getOrcFileTail(OrcDataSource orcDataSource, MetadataReader metadataReader)
+            throws IOException
+    {
+        //
+        // Read the file tail:
+        //
+        // variable: Footer
+        // variable: Metadata
+        // variable: PostScript - contains length of footer and metadata
+        // 1 byte: postScriptSize
+
+        // figure out the size of the file using the option or filesystem
+        long size = orcDataSource.getSize();
+        if (size <= MAGIC.length()) {
+            throw new OrcCorruptionException(orcDataSource.getId(), "Invalid file size %s", size);
+        }
+
+        // Read the tail of the file
+        byte[] buffer = new byte[toIntExact(min(size, EXPECTED_FOOTER_SIZE))];
+        orcDataSource.readFully(size - buffer.length, buffer);
+
+        // get length of PostScript - last byte of the file
+        int postScriptSize = buffer[buffer.length - SIZE_OF_BYTE] & 0xff;
+        if (postScriptSize >= buffer.length) {
+            throw new OrcCorruptionException(orcDataSource.getId(), "Invalid postscript length %s", postScriptSize);
+        }
+
+        // decode the post script
+        PostScript postScript;
+        try {
+            postScript = metadataReader.readPostScript(buffer, buffer.length - SIZE_OF_BYTE - postScriptSize, postScriptSize);
+        }
+        catch (OrcCorruptionException e) {
+            // check if this is an ORC file and not an RCFile or something else
+            if (!isValidHeaderMagic(orcDataSource)) {
+                throw new OrcCorruptionException(orcDataSource.getId(), "Not an ORC file");
+            }
+            throw e;
+        }
+
+        int bufferSize = toIntExact(postScript.getCompressionBlockSize());
+        Optional<OrcDecompressor> decompressor = createOrcDecompressor(orcDataSource.getId(), postScript.getCompression(), bufferSize);
+        HiveWriterVersion hiveWriterVersion = postScript.getHiveWriterVersion();
+
+        int footerSize = toIntExact(postScript.getFooterLength());
+        int metadataSize = toIntExact(postScript.getMetadataLength());
+
+        // check if extra bytes need to be read
+        Slice completeFooterSlice;
+        int completeFooterSize = footerSize + metadataSize + postScriptSize + SIZE_OF_BYTE;
+        if (completeFooterSize > buffer.length) {
+            // allocate a new buffer large enough for the complete footer
+            byte[] newBuffer = new byte[completeFooterSize];
+            completeFooterSlice = Slices.wrappedBuffer(newBuffer);
+
+            // initial read was not large enough, so read missing section
+            orcDataSource.readFully(size - completeFooterSize, newBuffer, 0, completeFooterSize - buffer.length);
+
+            // copy already read bytes into the new buffer
+            completeFooterSlice.setBytes(completeFooterSize - buffer.length, buffer);
+        }
+        else {
+            // footer is already in the bytes in buffer, just adjust position, length
+            completeFooterSlice = Slices.wrappedBuffer(buffer, buffer.length - completeFooterSize, completeFooterSize);
+        }
+
+        // read metadata
+        Slice metadataSlice = completeFooterSlice.slice(0, metadataSize);
+        Metadata metadata;
+        try (InputStream metadataInputStream = new OrcInputStream(orcDataSource.getId(), metadataSlice.getInput(), decompressor, newSimpleAggregatedMemoryContext(), metadataSize)) {
+            metadata = metadataReader.readMetadata(hiveWriterVersion, metadataInputStream);
+        }
+
+        // read footer
+        Slice footerSlice = completeFooterSlice.slice(metadataSize, footerSize);
+        Footer footer;
+        try (InputStream footerInputStream = new OrcInputStream(orcDataSource.getId(), footerSlice.getInput(), decompressor, newSimpleAggregatedMemoryContext(), footerSize)) {
+            footer = metadataReader.readFooter(hiveWriterVersion, footerInputStream);
+        }
+
+        return new OrcFileTail(postScript, footer, metadata);
+    }
+
+    /**
+     * Does the file start with the ORC magic bytes?
+     */
+    private static boolean isValidHeaderMagic(OrcDataSource source)
+            throws IOException
+    {
+        byte[] headerMagic = new byte[MAGIC.length()];
+        source.readFully(0, headerMagic);
+
+        return MAGIC.equals(Slices.wrappedBuffer(headerMagic));
+    }
+}
@@ -17,6 +17,7 @@ import com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind;
 import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
 import com.facebook.presto.orc.metadata.Stream.StreamKind;
 import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
+import com.facebook.presto.orc.metadata.statistics.HiveBloomFilter;
 import com.facebook.presto.orc.proto.DwrfProto;
 import com.facebook.presto.orc.proto.DwrfProto.RowIndexEntry;
 import com.facebook.presto.orc.proto.DwrfProto.Type;
@@ -313,6 +314,12 @@ public class DwrfMetadataWriter
                 .build();
     }
 
+    @Override
+    public int writeBloomFilters(SliceOutput output, List<HiveBloomFilter> bloomFilters)
+    {
+        throw new UnsupportedOperationException("DWRF does not support bloom filters");
+    }
+
     private static DwrfProto.CompressionKind toCompression(CompressionKind compressionKind)
     {
         switch (compressionKind) {
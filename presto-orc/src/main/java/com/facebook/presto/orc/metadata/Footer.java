@@ -18,16 +18,26 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
+import org.openjdk.jol.info.ClassLayout;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.collect.Maps.transformValues;
+import static io.airlift.slice.SizeOf.sizeOfCharArray;
+import static io.airlift.slice.SizeOf.sizeOfObjectArray;
 import static java.util.Objects.requireNonNull;
 
 public class Footer
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(Footer.class).instanceSize();
+    private static final int STRIPE_INSTANCE_SIZE = ClassLayout.parseClass(StripeInformation.class).instanceSize();
+    private static final int TYPE_INSTANCE_SIZE = ClassLayout.parseClass(OrcType.class).instanceSize();
+    private static final int INTEGER_INSTANCE_SIZE = ClassLayout.parseClass(Integer.class).instanceSize();
+    private static final int STRING_INSTANCE_SIZE = ClassLayout.parseClass(String.class).instanceSize();
+
     private final long numberOfRows;
     private final int rowsInRowGroup;
     private final List<StripeInformation> stripes;
@@ -76,6 +86,32 @@ public class Footer
         return ImmutableMap.copyOf(transformValues(userMetadata, Slices::copyOf));
     }
 
+    public long getRetainedSizeInBytes()
+    {
+        long retainedSizeInBytes = INSTANCE_SIZE + sizeOfObjectArray(stripes.size()) + (long) stripes.size() * STRIPE_INSTANCE_SIZE;
+        retainedSizeInBytes += sizeOfObjectArray(types.size());
+        for (OrcType type : types) {
+            retainedSizeInBytes += TYPE_INSTANCE_SIZE + sizeOfObjectArray(type.getFieldTypeIndexes().size()) + (long) type.getFieldTypeIndexes().size() * INTEGER_INSTANCE_SIZE;
+            retainedSizeInBytes += sizeOfObjectArray(type.getFieldNames().size());
+            for (String fieldName : type.getFieldNames()) {
+                retainedSizeInBytes += sizeOf(fieldName);
+            }
+        }
+        retainedSizeInBytes += sizeOfObjectArray(fileStats.size());
+        for (ColumnStatistics statistics : fileStats) {
+            retainedSizeInBytes += statistics.getRetainedSizeInBytes();
+        }
+        for (Entry<String, Slice> entry : userMetadata.entrySet()) {
+            retainedSizeInBytes += sizeOf(entry.getKey()) + entry.getValue().getRetainedSize();
+        }
+        return retainedSizeInBytes;
+    }
+
+    private static long sizeOf(String value)
+    {
+        return STRING_INSTANCE_SIZE + sizeOfCharArray(value.length());
+    }
+
     @Override
     public String toString()
     {
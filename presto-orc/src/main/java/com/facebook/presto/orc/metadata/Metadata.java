@@ -14,11 +14,16 @@
 package com.facebook.presto.orc.metadata;
 
 import com.facebook.presto.orc.metadata.statistics.StripeStatistics;
+import org.openjdk.jol.info.ClassLayout;
 
 import java.util.List;
 
+import static io.airlift.slice.SizeOf.sizeOfObjectArray;
+
 public class Metadata
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(Metadata.class).instanceSize();
+
     private final List<StripeStatistics> stripeStatistics;
 
     public Metadata(List<StripeStatistics> stripeStatistics)
@@ -30,4 +35,13 @@ public class Metadata
     {
         return stripeStatistics;
     }
+
+    public long getRetainedSizeInBytes()
+    {
+        long retainedSizeInBytes = INSTANCE_SIZE + sizeOfObjectArray(stripeStatistics.size());
+        for (StripeStatistics statistics : stripeStatistics) {
+            retainedSizeInBytes += statistics.getRetainedSizeInBytes();
+        }
+        return retainedSizeInBytes;
+    }
 }
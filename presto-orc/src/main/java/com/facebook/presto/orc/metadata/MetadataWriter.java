@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.orc.metadata;
 
+import com.facebook.presto.orc.metadata.statistics.HiveBloomFilter;
 import io.airlift.slice.SliceOutput;
 
 import java.io.IOException;
@@ -36,4 +37,7 @@ public interface MetadataWriter
 
     int writeRowIndexes(SliceOutput output, List<RowGroupIndex> rowGroupIndexes)
             throws IOException;
+
+    int writeBloomFilters(SliceOutput output, List<HiveBloomFilter> bloomFilters)
+            throws IOException;
 }
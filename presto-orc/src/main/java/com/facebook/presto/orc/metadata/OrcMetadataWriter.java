@@ -17,6 +17,7 @@ import com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind;
 import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
 import com.facebook.presto.orc.metadata.Stream.StreamKind;
 import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
+import com.facebook.presto.orc.metadata.statistics.HiveBloomFilter;
 import com.facebook.presto.orc.metadata.statistics.StripeStatistics;
 import com.facebook.presto.orc.proto.OrcProto;
 import com.facebook.presto.orc.proto.OrcProto.RowIndexEntry;
@@ -27,6 +28,7 @@ import com.facebook.presto.orc.protobuf.ByteString;
 import com.facebook.presto.orc.protobuf.MessageLite;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.CountingOutputStream;
+import com.google.common.primitives.Longs;
 import io.airlift.slice.Slice;
 import io.airlift.slice.SliceOutput;
 
@@ -306,6 +308,8 @@ public class OrcMetadataWriter
                 return OrcProto.Stream.Kind.SECONDARY;
             case ROW_INDEX:
                 return OrcProto.Stream.Kind.ROW_INDEX;
+            case BLOOM_FILTER:
+                return OrcProto.Stream.Kind.BLOOM_FILTER;
         }
         throw new IllegalArgumentException("Unsupported stream kind: " + streamKind);
     }
@@ -359,6 +363,26 @@ public class OrcMetadataWriter
                 .build();
     }
 
+    @Override
+    public int writeBloomFilters(SliceOutput output, List<HiveBloomFilter> bloomFilters)
+            throws IOException
+    {
+        OrcProto.BloomFilterIndex bloomFilterIndexProtobuf = OrcProto.BloomFilterIndex.newBuilder()
+                .addAllBloomFilter(bloomFilters.stream()
+                        .map(OrcMetadataWriter::toBloomFilter)
+                        .collect(toList()))
+                .build();
+        return writeProtobufObject(output, bloomFilterIndexProtobuf);
+    }
+
+    private static OrcProto.BloomFilter toBloomFilter(HiveBloomFilter bloomFilter)
+    {
+        return OrcProto.BloomFilter.newBuilder()
+                .addAllBitset(Longs.asList(bloomFilter.getBitSet()))
+                .setNumHashFunctions(bloomFilter.getNumHashFunctions())
+                .build();
+    }
+
     private static OrcProto.CompressionKind toCompression(CompressionKind compressionKind)
     {
         switch (compressionKind) {
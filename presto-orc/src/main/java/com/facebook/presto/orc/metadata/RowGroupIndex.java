@@ -15,13 +15,18 @@ package com.facebook.presto.orc.metadata;
 
 import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
 import com.google.common.collect.ImmutableList;
+import org.openjdk.jol.info.ClassLayout;
 
 import java.util.List;
 
+import static io.airlift.slice.SizeOf.sizeOfObjectArray;
 import static java.util.Objects.requireNonNull;
 
 public class RowGroupIndex
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(RowGroupIndex.class).instanceSize();
+    private static final int INTEGER_INSTANCE_SIZE = ClassLayout.parseClass(Integer.class).instanceSize();
+
     private final List<Integer> positions;
     private final ColumnStatistics statistics;
 
@@ -40,4 +45,9 @@ public class RowGroupIndex
     {
         return statistics;
     }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + sizeOfObjectArray(positions.size()) + (long) positions.size() * INTEGER_INSTANCE_SIZE + statistics.getRetainedSizeInBytes();
+    }
 }
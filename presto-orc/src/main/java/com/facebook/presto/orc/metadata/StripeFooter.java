@@ -14,13 +14,20 @@
 package com.facebook.presto.orc.metadata;
 
 import com.google.common.collect.ImmutableList;
+import org.openjdk.jol.info.ClassLayout;
 
 import java.util.List;
 
+import static io.airlift.slice.SizeOf.sizeOfObjectArray;
 import static java.util.Objects.requireNonNull;
 
 public class StripeFooter
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(StripeFooter.class).instanceSize();
+    private static final int STREAM_INSTANCE_SIZE = ClassLayout.parseClass(Stream.class).instanceSize();
+    private static final int COLUMN_ENCODING_INSTANCE_SIZE = ClassLayout.parseClass(ColumnEncoding.class).instanceSize();
+    private static final int SEQUENCE_ENCODING_INSTANCE_SIZE = ClassLayout.parseClass(DwrfSequenceEncoding.class).instanceSize();
+
     private final List<Stream> streams;
     private final List<ColumnEncoding> columnEncodings;
 
@@ -39,4 +46,16 @@ public class StripeFooter
     {
         return streams;
     }
+
+    public long getRetainedSizeInBytes()
+    {
+        long retainedSizeInBytes = INSTANCE_SIZE + sizeOfObjectArray(streams.size()) + (long) streams.size() * STREAM_INSTANCE_SIZE + sizeOfObjectArray(columnEncodings.size());
+        for (ColumnEncoding columnEncoding : columnEncodings) {
+            retainedSizeInBytes += COLUMN_ENCODING_INSTANCE_SIZE;
+            if (columnEncoding.getAdditionalSequenceEncodings().isPresent()) {
+                retainedSizeInBytes += (long) columnEncoding.getAdditionalSequenceEncodings().get().size() * (SEQUENCE_ENCODING_INSTANCE_SIZE + COLUMN_ENCODING_INSTANCE_SIZE);
+            }
+        }
+        return retainedSizeInBytes;
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.reader;
+
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.Slice;
+
+/**
+ * A filter on the values of a column, which the stream readers evaluate on the decoded
+ * values. Each filter only supports the methods matching the Java type of its column.
+ *
+ * @see ColumnFilters#createColumnFilter
+ */
+public interface ColumnFilter
+{
+    boolean testNull();
+
+    default boolean testLong(long value)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support long values");
+    }
+
+    default boolean testDouble(double value)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support double values");
+    }
+
+    default boolean testBoolean(boolean value)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support boolean values");
+    }
+
+    default boolean testSlice(Slice value, int offset, int length)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support slice values");
+    }
+
+    default boolean testPosition(Type type, Block block, int position)
+    {
+        if (block.isNull(position)) {
+            return testNull();
+        }
+        Class<?> javaType = type.getJavaType();
+        if (javaType == long.class) {
+            return testLong(type.getLong(block, position));
+        }
+        if (javaType == double.class) {
+            return testDouble(type.getDouble(block, position));
+        }
+        if (javaType == boolean.class) {
+            return testBoolean(type.getBoolean(block, position));
+        }
+        Slice value = type.getSlice(block, position);
+        return testSlice(value, 0, value.length());
+    }
+}
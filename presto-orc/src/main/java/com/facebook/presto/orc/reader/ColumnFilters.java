@@ -0,0 +1,396 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.reader;
+
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Marker;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.VarbinaryType;
+import io.airlift.slice.Slice;
+import io.airlift.slice.XxHash64;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.spi.predicate.Marker.Bound.ABOVE;
+import static com.facebook.presto.spi.predicate.Marker.Bound.BELOW;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.Chars.isCharType;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.Varchars.isVarcharType;
+import static java.lang.Integer.highestOneBit;
+import static java.lang.Math.max;
+
+public final class ColumnFilters
+{
+    private ColumnFilters()
+    {
+    }
+
+    /**
+     * Compiles the domain of a column of the given type into a filter on its decoded values,
+     * or returns empty if the values of the type can not be compared without the type.
+     */
+    public static Optional<ColumnFilter> createColumnFilter(Type type, Domain domain)
+    {
+        boolean nullAllowed = domain.isNullAllowed();
+        if (isLongType(type)) {
+            return Optional.of(createLongFilter(domain.getValues().getRanges().getOrderedRanges(), nullAllowed));
+        }
+        if (type.equals(DOUBLE)) {
+            return Optional.of(new DoubleRangesFilter(domain.getValues().getRanges().getOrderedRanges(), nullAllowed));
+        }
+        if (type.equals(BOOLEAN)) {
+            return Optional.of(new BooleanFilter(domain.getValues().containsValue(true), domain.getValues().containsValue(false), nullAllowed));
+        }
+        if (isVarcharType(type) || isCharType(type) || type instanceof VarbinaryType) {
+            List<Range> ranges = domain.getValues().getRanges().getOrderedRanges();
+            if (ranges.stream().allMatch(Range::isSingleValue)) {
+                return Optional.of(new SliceSetFilter(ranges, nullAllowed));
+            }
+            return Optional.of(new SliceRangesFilter(ranges, nullAllowed));
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isLongType(Type type)
+    {
+        // the encoding of real values and of long decimals is not ordered as longs
+        return type.equals(BIGINT) ||
+                type.equals(INTEGER) ||
+                type.equals(SMALLINT) ||
+                type.equals(TINYINT) ||
+                type.equals(DATE) ||
+                type.equals(TIMESTAMP) ||
+                (type instanceof DecimalType && ((DecimalType) type).isShort());
+    }
+
+    private static ColumnFilter createLongFilter(List<Range> ranges, boolean nullAllowed)
+    {
+        if (ranges.size() > 1 && ranges.stream().allMatch(Range::isSingleValue)) {
+            LongOpenHashSet values = new LongOpenHashSet(ranges.size());
+            for (Range range : ranges) {
+                values.add((long) range.getSingleValue());
+            }
+            return new LongSetFilter(values, nullAllowed);
+        }
+
+        // convert the ranges to inclusive bounds, and drop the ones left empty
+        long[] lows = new long[ranges.size()];
+        long[] highs = new long[ranges.size()];
+        int rangeCount = 0;
+        for (Range range : ranges) {
+            Marker low = range.getLow();
+            Marker high = range.getHigh();
+            long lowValue = low.isLowerUnbounded() ? Long.MIN_VALUE : (long) low.getValue();
+            long highValue = high.isUpperUnbounded() ? Long.MAX_VALUE : (long) high.getValue();
+            if (!low.isLowerUnbounded() && low.getBound() == ABOVE) {
+                if (lowValue == Long.MAX_VALUE) {
+                    continue;
+                }
+                lowValue++;
+            }
+            if (!high.isUpperUnbounded() && high.getBound() == BELOW) {
+                if (highValue == Long.MIN_VALUE) {
+                    continue;
+                }
+                highValue--;
+            }
+            if (lowValue <= highValue) {
+                lows[rangeCount] = lowValue;
+                highs[rangeCount] = highValue;
+                rangeCount++;
+            }
+        }
+        if (rangeCount == 1) {
+            return new LongRangeFilter(lows[0], highs[0], nullAllowed);
+        }
+        return new LongRangesFilter(Arrays.copyOf(lows, rangeCount), Arrays.copyOf(highs, rangeCount), nullAllowed);
+    }
+
+    private static final class LongRangeFilter
+            implements ColumnFilter
+    {
+        private final long low;
+        private final long high;
+        private final boolean nullAllowed;
+
+        private LongRangeFilter(long low, long high, boolean nullAllowed)
+        {
+            this.low = low;
+            this.high = high;
+            this.nullAllowed = nullAllowed;
+        }
+
+        @Override
+        public boolean testNull()
+        {
+            return nullAllowed;
+        }
+
+        @Override
+        public boolean testLong(long value)
+        {
+            return value >= low && value <= high;
+        }
+    }
+
+    private static final class LongRangesFilter
+            implements ColumnFilter
+    {
+        // sorted and non-overlapping inclusive ranges
+        private final long[] lows;
+        private final long[] highs;
+        private final boolean nullAllowed;
+
+        private LongRangesFilter(long[] lows, long[] highs, boolean nullAllowed)
+        {
+            this.lows = lows;
+            this.highs = highs;
+            this.nullAllowed = nullAllowed;
+        }
+
+        @Override
+        public boolean testNull()
+        {
+            return nullAllowed;
+        }
+
+        @Override
+        public boolean testLong(long value)
+        {
+            int index = Arrays.binarySearch(lows, value);
+            if (index >= 0) {
+                return true;
+            }
+            // the range with the greatest low bound below the value
+            int rangeIndex = -index - 2;
+            return rangeIndex >= 0 && value <= highs[rangeIndex];
+        }
+    }
+
+    private static final class LongSetFilter
+            implements ColumnFilter
+    {
+        private final LongOpenHashSet values;
+        private final boolean nullAllowed;
+
+        private LongSetFilter(LongOpenHashSet values, boolean nullAllowed)
+        {
+            this.values = values;
+            this.nullAllowed = nullAllowed;
+        }
+
+        @Override
+        public boolean testNull()
+        {
+            return nullAllowed;
+        }
+
+        @Override
+        public boolean testLong(long value)
+        {
+            return values.contains(value);
+        }
+    }
+
+    private static final class DoubleRangesFilter
+            implements ColumnFilter
+    {
+        private final double[] lows;
+        private final boolean[] lowsInclusive;
+        private final double[] highs;
+        private final boolean[] highsInclusive;
+        private final boolean nullAllowed;
+
+        private DoubleRangesFilter(List<Range> ranges, boolean nullAllowed)
+        {
+            lows = new double[ranges.size()];
+            lowsInclusive = new boolean[ranges.size()];
+            highs = new double[ranges.size()];
+            highsInclusive = new boolean[ranges.size()];
+            for (int i = 0; i < ranges.size(); i++) {
+                Marker low = ranges.get(i).getLow();
+                Marker high = ranges.get(i).getHigh();
+                lows[i] = low.isLowerUnbounded() ? Double.NEGATIVE_INFINITY : (double) low.getValue();
+                lowsInclusive[i] = low.isLowerUnbounded() || low.getBound() != ABOVE;
+                highs[i] = high.isUpperUnbounded() ? Double.POSITIVE_INFINITY : (double) high.getValue();
+                highsInclusive[i] = high.isUpperUnbounded() || high.getBound() != BELOW;
+            }
+            this.nullAllowed = nullAllowed;
+        }
+
+        @Override
+        public boolean testNull()
+        {
+            return nullAllowed;
+        }
+
+        @Override
+        public boolean testDouble(double value)
+        {
+            // NaN is not part of any range, and fails all comparisons
+            for (int i = 0; i < lows.length; i++) {
+                if ((lowsInclusive[i] ? value >= lows[i] : value > lows[i]) &&
+                        (highsInclusive[i] ? value <= highs[i] : value < highs[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class BooleanFilter
+            implements ColumnFilter
+    {
+        private final boolean trueAllowed;
+        private final boolean falseAllowed;
+        private final boolean nullAllowed;
+
+        private BooleanFilter(boolean trueAllowed, boolean falseAllowed, boolean nullAllowed)
+        {
+            this.trueAllowed = trueAllowed;
+            this.falseAllowed = falseAllowed;
+            this.nullAllowed = nullAllowed;
+        }
+
+        @Override
+        public boolean testNull()
+        {
+            return nullAllowed;
+        }
+
+        @Override
+        public boolean testBoolean(boolean value)
+        {
+            return value ? trueAllowed : falseAllowed;
+        }
+    }
+
+    private static final class SliceSetFilter
+            implements ColumnFilter
+    {
+        // open addressing hash table, so values can be looked up without wrapping them in a slice
+        private final Slice[] table;
+        private final int mask;
+        private final boolean nullAllowed;
+
+        private SliceSetFilter(List<Range> ranges, boolean nullAllowed)
+        {
+            int tableSize = max(highestOneBit(ranges.size()) * 4, 2);
+            table = new Slice[tableSize];
+            mask = tableSize - 1;
+            for (Range range : ranges) {
+                Slice value = (Slice) range.getSingleValue();
+                int index = hashPosition(value, 0, value.length());
+                while (table[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+            this.nullAllowed = nullAllowed;
+        }
+
+        @Override
+        public boolean testNull()
+        {
+            return nullAllowed;
+        }
+
+        @Override
+        public boolean testSlice(Slice value, int offset, int length)
+        {
+            int index = hashPosition(value, offset, length);
+            while (table[index] != null) {
+                Slice candidate = table[index];
+                if (candidate.length() == length && value.equals(offset, length, candidate, 0, length)) {
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+
+        private int hashPosition(Slice value, int offset, int length)
+        {
+            return (int) XxHash64.hash(value, offset, length) & mask;
+        }
+    }
+
+    private static final class SliceRangesFilter
+            implements ColumnFilter
+    {
+        private final Slice[] lows;
+        private final boolean[] lowsInclusive;
+        private final Slice[] highs;
+        private final boolean[] highsInclusive;
+        private final boolean nullAllowed;
+
+        private SliceRangesFilter(List<Range> ranges, boolean nullAllowed)
+        {
+            lows = new Slice[ranges.size()];
+            lowsInclusive = new boolean[ranges.size()];
+            highs = new Slice[ranges.size()];
+            highsInclusive = new boolean[ranges.size()];
+            for (int i = 0; i < ranges.size(); i++) {
+                // unbounded ends are left null
+                Marker low = ranges.get(i).getLow();
+                Marker high = ranges.get(i).getHigh();
+                lows[i] = low.isLowerUnbounded() ? null : (Slice) low.getValue();
+                lowsInclusive[i] = low.isLowerUnbounded() || low.getBound() != ABOVE;
+                highs[i] = high.isUpperUnbounded() ? null : (Slice) high.getValue();
+                highsInclusive[i] = high.isUpperUnbounded() || high.getBound() != BELOW;
+            }
+            this.nullAllowed = nullAllowed;
+        }
+
+        @Override
+        public boolean testNull()
+        {
+            return nullAllowed;
+        }
+
+        @Override
+        public boolean testSlice(Slice value, int offset, int length)
+        {
+            for (int i = 0; i < lows.length; i++) {
+                if (lows[i] != null) {
+                    int comparison = value.compareTo(offset, length, lows[i], 0, lows[i].length());
+                    if (comparison < 0 || (comparison == 0 && !lowsInclusive[i])) {
+                        // the ranges are sorted, so the value is below all following ranges
+                        return false;
+                    }
+                }
+                if (highs[i] == null) {
+                    return true;
+                }
+                int comparison = value.compareTo(offset, length, highs[i], 0, highs[i].length());
+                if (comparison < 0 || (comparison == 0 && highsInclusive[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -83,19 +83,7 @@ public class LongDirectStreamReader
             openRowGroup();
         }
 
-        if (readOffset > 0) {
-            if (presentStream != null) {
-                // skip ahead the present bit reader, but count the set bits
-                // and use this as the skip size for the data reader
-                readOffset = presentStream.countBitsSet(readOffset);
-            }
-            if (readOffset > 0) {
-                if (dataStream == null) {
-                    throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
-                }
-                dataStream.skip(readOffset);
-            }
-        }
+        skipToReadOffset();
 
         BlockBuilder builder = type.createBlockBuilder(null, nextBatchSize);
         if (presentStream == null) {
@@ -122,6 +110,129 @@ public class LongDirectStreamReader
         return builder.build();
     }
 
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        if (!rowGroupOpen) {
+            openRowGroup();
+        }
+
+        skipToReadOffset();
+
+        if (presentStream == null && dataStream == null) {
+            throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
+        }
+
+        BlockBuilder builder = type.createBlockBuilder(null, positionCount);
+        int selectedPositions = 0;
+        long skipSize = 0;
+        for (int position = 0; position < nextBatchSize; position++) {
+            boolean present = presentStream == null || presentStream.nextBit();
+            if (selectedPositions < positionCount && positions[selectedPositions] == position) {
+                if (present) {
+                    verify(dataStream != null);
+                    if (skipSize > 0) {
+                        dataStream.skip(skipSize);
+                        skipSize = 0;
+                    }
+                    type.writeLong(builder, dataStream.next());
+                }
+                else {
+                    builder.appendNull();
+                }
+                selectedPositions++;
+            }
+            else if (present) {
+                skipSize++;
+            }
+        }
+        if (skipSize > 0) {
+            verify(dataStream != null);
+            dataStream.skip(skipSize);
+        }
+
+        readOffset = 0;
+        nextBatchSize = 0;
+
+        return builder.build();
+    }
+
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount, ColumnFilter filter)
+            throws IOException
+    {
+        if (!rowGroupOpen) {
+            openRowGroup();
+        }
+
+        skipToReadOffset();
+
+        if (presentStream == null && dataStream == null) {
+            throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
+        }
+
+        // test the decoded values, and only add the passing ones to the block
+        BlockBuilder builder = type.createBlockBuilder(null, positionCount);
+        int selectedPositions = 0;
+        int passingPositions = 0;
+        long skipSize = 0;
+        for (int position = 0; position < nextBatchSize; position++) {
+            boolean present = presentStream == null || presentStream.nextBit();
+            if (selectedPositions < positionCount && positions[selectedPositions] == position) {
+                if (present) {
+                    verify(dataStream != null);
+                    if (skipSize > 0) {
+                        dataStream.skip(skipSize);
+                        skipSize = 0;
+                    }
+                    long value = dataStream.next();
+                    if (filter.testLong(value)) {
+                        type.writeLong(builder, value);
+                        positions[passingPositions] = position;
+                        passingPositions++;
+                    }
+                }
+                else if (filter.testNull()) {
+                    builder.appendNull();
+                    positions[passingPositions] = position;
+                    passingPositions++;
+                }
+                selectedPositions++;
+            }
+            else if (present) {
+                skipSize++;
+            }
+        }
+        if (skipSize > 0) {
+            verify(dataStream != null);
+            dataStream.skip(skipSize);
+        }
+
+        readOffset = 0;
+        nextBatchSize = 0;
+
+        return builder.build();
+    }
+
+    private void skipToReadOffset()
+            throws IOException
+    {
+        if (readOffset > 0) {
+            if (presentStream != null) {
+                // skip ahead the present bit reader, but count the set bits
+                // and use this as the skip size for the data reader
+                readOffset = presentStream.countBitsSet(readOffset);
+            }
+            if (readOffset > 0) {
+                if (dataStream == null) {
+                    throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
+                }
+                dataStream.skip(readOffset);
+            }
+        }
+    }
+
     private void openRowGroup()
             throws IOException
     {
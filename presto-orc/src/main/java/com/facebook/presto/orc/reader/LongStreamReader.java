@@ -64,6 +64,20 @@ public class LongStreamReader
         return currentReader.readBlock(type);
     }
 
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        return currentReader.readBlock(type, positions, positionCount);
+    }
+
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount, ColumnFilter filter)
+            throws IOException
+    {
+        return currentReader.readBlock(type, positions, positionCount, filter);
+    }
+
     @Override
     public void startStripe(InputStreamSources dictionaryStreamSources, List<ColumnEncoding> encoding)
             throws IOException
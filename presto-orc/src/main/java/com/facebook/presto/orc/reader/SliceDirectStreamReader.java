@@ -98,56 +98,14 @@ public class SliceDirectStreamReader
             openRowGroup();
         }
 
-        if (readOffset > 0) {
-            if (presentStream != null) {
-                // skip ahead the present bit reader, but count the set bits
-                // and use this as the skip size for the length reader
-                readOffset = presentStream.countBitsSet(readOffset);
-            }
-            if (readOffset > 0) {
-                if (lengthStream == null) {
-                    throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but length stream is not present");
-                }
-                long dataSkipSize = lengthStream.sum(readOffset);
-                if (dataSkipSize > 0) {
-                    if (dataStream == null) {
-                        throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
-                    }
-                    dataStream.skip(dataSkipSize);
-                }
-            }
-        }
-
-        // create new isNullVector and offsetVector for VariableWidthBlock
-        boolean[] isNullVector = null;
+        skipToReadOffset();
 
         // We will use the offsetVector as the buffer to read the length values from lengthStream,
         // and the length values will be converted in-place to an offset vector.
         int[] offsetVector = new int[nextBatchSize + 1];
 
-        if (presentStream == null) {
-            if (lengthStream == null) {
-                throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but length stream is not present");
-            }
-            lengthStream.nextIntVector(nextBatchSize, offsetVector, 0);
-        }
-        else {
-            isNullVector = new boolean[nextBatchSize];
-            int nullValues = presentStream.getUnsetBits(nextBatchSize, isNullVector);
-            if (nullValues != nextBatchSize) {
-                if (lengthStream == null) {
-                    throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but length stream is not present");
-                }
-
-                if (nullValues == 0) {
-                    isNullVector = null;
-                    lengthStream.nextIntVector(nextBatchSize, offsetVector, 0);
-                }
-                else {
-                    lengthStream.nextIntVector(nextBatchSize, offsetVector, 0, isNullVector);
-                }
-            }
-        }
+        // create new isNullVector for VariableWidthBlock
+        boolean[] isNullVector = readLengths(offsetVector);
 
         // Calculate the total length for all entries. Note that the values in the offsetVector are still length values now.
         long totalLength = 0;
@@ -207,6 +165,217 @@ public class SliceDirectStreamReader
         return new VariableWidthBlock(currentBatchSize, slice, offsetVector, Optional.ofNullable(isNullVector));
     }
 
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        if (!rowGroupOpen) {
+            openRowGroup();
+        }
+
+        skipToReadOffset();
+
+        int[] lengthVector = new int[nextBatchSize];
+        boolean[] isNullVector = readLengths(lengthVector);
+
+        long totalLength = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            if (isNullVector == null || !isNullVector[position]) {
+                totalLength += lengthVector[position];
+            }
+        }
+        if (totalLength > ONE_GIGABYTE) {
+            throw new PrestoException(GENERIC_INTERNAL_ERROR,
+                    format("Values in column \"%s\" are too large to process for Presto. %s column values are larger than 1GB [%s]", streamDescriptor.getFieldName(), positionCount, streamDescriptor.getOrcDataSourceId()));
+        }
+
+        byte[] data = new byte[toIntExact(totalLength)];
+        Slice slice = Slices.wrappedBuffer(data);
+        int[] offsetVector = new int[positionCount + 1];
+        boolean[] selectedIsNullVector = isNullVector == null ? null : new boolean[positionCount];
+
+        // read the values at the selected positions, and skip the bytes of the others
+        int maxCodePointCount = getMaxCodePointCount(type);
+        boolean isCharType = isCharType(type);
+        int selectedPositions = 0;
+        long skipSize = 0;
+        for (int position = 0; position < nextBatchSize; position++) {
+            boolean isNull = isNullVector != null && isNullVector[position];
+            int length = isNull ? 0 : lengthVector[position];
+            if (selectedPositions < positionCount && positions[selectedPositions] == position) {
+                int offset = offsetVector[selectedPositions];
+                if (isNull) {
+                    selectedIsNullVector[selectedPositions] = true;
+                }
+                if (length == 0) {
+                    offsetVector[selectedPositions + 1] = offset;
+                }
+                else {
+                    skipData(skipSize);
+                    skipSize = 0;
+                    dataStream.next(data, offset, offset + length);
+                    int truncatedLength = computeTruncatedLength(slice, offset, length, maxCodePointCount, isCharType);
+                    verify(truncatedLength >= 0);
+                    offsetVector[selectedPositions + 1] = offset + truncatedLength;
+                }
+                selectedPositions++;
+            }
+            else {
+                skipSize += length;
+            }
+        }
+        skipData(skipSize);
+
+        readOffset = 0;
+        nextBatchSize = 0;
+
+        return new VariableWidthBlock(positionCount, slice, offsetVector, Optional.ofNullable(selectedIsNullVector));
+    }
+
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount, ColumnFilter filter)
+            throws IOException
+    {
+        if (!rowGroupOpen) {
+            openRowGroup();
+        }
+
+        skipToReadOffset();
+
+        int[] lengthVector = new int[nextBatchSize];
+        boolean[] isNullVector = readLengths(lengthVector);
+
+        long totalLength = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            if (isNullVector == null || !isNullVector[position]) {
+                totalLength += lengthVector[position];
+            }
+        }
+        if (totalLength > ONE_GIGABYTE) {
+            throw new PrestoException(GENERIC_INTERNAL_ERROR,
+                    format("Values in column \"%s\" are too large to process for Presto. %s column values are larger than 1GB [%s]", streamDescriptor.getFieldName(), positionCount, streamDescriptor.getOrcDataSourceId()));
+        }
+
+        byte[] data = new byte[toIntExact(totalLength)];
+        Slice slice = Slices.wrappedBuffer(data);
+        int[] offsetVector = new int[positionCount + 1];
+        boolean[] passingIsNullVector = isNullVector == null ? null : new boolean[positionCount];
+
+        // read the values at the selected positions, and test them in the data buffer; the
+        // values failing the filter are overwritten by the next value read
+        int maxCodePointCount = getMaxCodePointCount(type);
+        boolean isCharType = isCharType(type);
+        int selectedPositions = 0;
+        int passingPositions = 0;
+        long skipSize = 0;
+        for (int position = 0; position < nextBatchSize; position++) {
+            boolean isNull = isNullVector != null && isNullVector[position];
+            int length = isNull ? 0 : lengthVector[position];
+            if (selectedPositions < positionCount && positions[selectedPositions] == position) {
+                int offset = offsetVector[passingPositions];
+                boolean passing;
+                if (isNull) {
+                    passing = filter.testNull();
+                    if (passing) {
+                        passingIsNullVector[passingPositions] = true;
+                    }
+                    offsetVector[passingPositions + 1] = offset;
+                }
+                else {
+                    int truncatedLength = 0;
+                    if (length > 0) {
+                        skipData(skipSize);
+                        skipSize = 0;
+                        dataStream.next(data, offset, offset + length);
+                        truncatedLength = computeTruncatedLength(slice, offset, length, maxCodePointCount, isCharType);
+                        verify(truncatedLength >= 0);
+                    }
+                    passing = filter.testSlice(slice, offset, truncatedLength);
+                    offsetVector[passingPositions + 1] = offset + truncatedLength;
+                }
+                if (passing) {
+                    positions[passingPositions] = position;
+                    passingPositions++;
+                }
+                selectedPositions++;
+            }
+            else {
+                skipSize += length;
+            }
+        }
+        skipData(skipSize);
+
+        readOffset = 0;
+        nextBatchSize = 0;
+
+        return new VariableWidthBlock(passingPositions, slice, offsetVector, Optional.ofNullable(passingIsNullVector));
+    }
+
+    private void skipToReadOffset()
+            throws IOException
+    {
+        if (readOffset > 0) {
+            if (presentStream != null) {
+                // skip ahead the present bit reader, but count the set bits
+                // and use this as the skip size for the length reader
+                readOffset = presentStream.countBitsSet(readOffset);
+            }
+            if (readOffset > 0) {
+                if (lengthStream == null) {
+                    throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but length stream is not present");
+                }
+                skipData(lengthStream.sum(readOffset));
+            }
+        }
+    }
+
+    /**
+     * Reads the lengths of the values of the next batch, and returns the null flags
+     * of the values, or null if none of the values is null.
+     */
+    @Nullable
+    private boolean[] readLengths(int[] lengthVector)
+            throws IOException
+    {
+        if (presentStream == null) {
+            if (lengthStream == null) {
+                throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but length stream is not present");
+            }
+            lengthStream.nextIntVector(nextBatchSize, lengthVector, 0);
+            return null;
+        }
+
+        boolean[] isNullVector = new boolean[nextBatchSize];
+        int nullValues = presentStream.getUnsetBits(nextBatchSize, isNullVector);
+        if (nullValues != nextBatchSize) {
+            if (lengthStream == null) {
+                throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but length stream is not present");
+            }
+
+            if (nullValues == 0) {
+                isNullVector = null;
+                lengthStream.nextIntVector(nextBatchSize, lengthVector, 0);
+            }
+            else {
+                lengthStream.nextIntVector(nextBatchSize, lengthVector, 0, isNullVector);
+            }
+        }
+        return isNullVector;
+    }
+
+    private void skipData(long skipSize)
+            throws IOException
+    {
+        if (skipSize > 0) {
+            if (dataStream == null) {
+                throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
+            }
+            dataStream.skip(skipSize);
+        }
+    }
+
     private void openRowGroup()
             throws IOException
     {
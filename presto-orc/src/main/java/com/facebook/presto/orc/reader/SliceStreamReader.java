@@ -67,6 +67,20 @@ public class SliceStreamReader
         return currentReader.readBlock(type);
     }
 
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        return currentReader.readBlock(type, positions, positionCount);
+    }
+
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount, ColumnFilter filter)
+            throws IOException
+    {
+        return currentReader.readBlock(type, positions, positionCount, filter);
+    }
+
     @Override
     public void prepareNextRead(int batchSize)
     {
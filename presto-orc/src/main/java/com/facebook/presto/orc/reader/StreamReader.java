@@ -26,6 +26,40 @@ public interface StreamReader
     Block readBlock(Type type)
             throws IOException;
 
+    /**
+     * Reads the values at the given positions of the next batch. The positions must be
+     * sorted, and the values at the other positions of the batch are skipped.
+     */
+    default Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        return readBlock(type).copyPositions(positions, 0, positionCount);
+    }
+
+    /**
+     * Reads the values at the given positions of the next batch, and returns the values
+     * which pass the filter. The positions of the returned values are moved to the start
+     * of the positions array, so the number of positions passing the filter is the
+     * position count of the returned block.
+     */
+    default Block readBlock(Type type, int[] positions, int positionCount, ColumnFilter filter)
+            throws IOException
+    {
+        Block block = readBlock(type);
+        int passingPositionCount = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            if (filter.testPosition(type, block, position)) {
+                positions[passingPositionCount] = position;
+                passingPositionCount++;
+            }
+        }
+        if (passingPositionCount == block.getPositionCount()) {
+            return block;
+        }
+        return block.copyPositions(positions, 0, passingPositionCount);
+    }
+
     void prepareNextRead(int batchSize);
 
     void startStripe(InputStreamSources dictionaryStreamSources, List<ColumnEncoding> encoding)
@@ -33,7 +33,8 @@ public final class LongBitPacker
     // We use this temp buffer to work around poor read performance of single bytes from Slice.
     // Benchmarks show that reading from this byte[] is ~3x faster, even after accounting for the
     // extra write to this buffer, than reading byte at a time from the InputStream.
-    private final byte[] tmp = new byte[SIZE_OF_LONG * MAX_BUFFERED_POSITIONS];
+    // The padding allows unpackBulk to read the 8-byte word and the byte following the start of the last value.
+    private final byte[] tmp = new byte[SIZE_OF_LONG * MAX_BUFFERED_POSITIONS + SIZE_OF_LONG + 1];
     private final Slice slice = Slices.wrappedBuffer(tmp);
 
     // TODO: refactor calling code, so that input can be a byte[]. (See comment above about performance)
@@ -76,34 +77,32 @@ public final class LongBitPacker
                 unpack64(buffer, offset, len, input);
                 break;
             default:
-                unpackGeneric(buffer, offset, len, bitSize, input);
+                unpackBulk(buffer, offset, len, bitSize, input);
         }
     }
 
-    private static void unpackGeneric(long[] buffer, int offset, int len, int bitSize, InputStream input)
+    private void unpackBulk(long[] buffer, int offset, int len, int bitSize, InputStream input)
             throws IOException
     {
-        int bitsLeft = 0;
-        int current = 0;
-
-        for (int i = offset; i < (offset + len); i++) {
-            long result = 0;
-            int bitsLeftToRead = bitSize;
-            while (bitsLeftToRead > bitsLeft) {
-                result <<= bitsLeft;
-                result |= current & ((1 << bitsLeft) - 1);
-                bitsLeftToRead -= bitsLeft;
-                current = input.read();
-                bitsLeft = 8;
-            }
+        fill(input, (len * bitSize + 7) / 8);
+        int shiftRight = 64 - bitSize;
+        for (int i = 0; i < len; i++) {
+            // Each value starts in the first byte of a big endian word. Shifting in the top bits of the
+            // following byte completes the word, so every width up to 64 is extracted without branches.
+            int bitPosition = i * bitSize;
+            int byteIndex = bitPosition >>> 3;
+            int shiftLeft = bitPosition & 7;
+            long word = Long.reverseBytes(getLongUnchecked(slice, byteIndex)) << shiftLeft;
+            word |= (0xFFL & tmp[byteIndex + SIZE_OF_LONG]) >>> (8 - shiftLeft);
+            buffer[offset + i] = word >>> shiftRight;
+        }
+    }
 
-            // handle the left over bits
-            if (bitsLeftToRead > 0) {
-                result <<= bitsLeftToRead;
-                bitsLeft -= bitsLeftToRead;
-                result |= (current >> bitsLeft) & ((1 << bitsLeftToRead) - 1);
-            }
-            buffer[i] = result;
+    private void fill(InputStream input, int length)
+            throws IOException
+    {
+        for (int i = 0; i < length; ) {
+            i += input.read(tmp, i, length - i);
         }
     }
 
@@ -116,9 +115,7 @@ public final class LongBitPacker
         }
 
         int blockReadableBytes = (len + 7) / 8;
-        for (int i = 0; i < blockReadableBytes; ) {
-            i += input.read(tmp, i, blockReadableBytes - i);
-        }
+        fill(input, blockReadableBytes);
         int outputIndex = offset;
         int end = offset + len;
         int tmpIndex = 0;
@@ -177,9 +174,7 @@ public final class LongBitPacker
         }
 
         int blockReadableBytes = (2 * len + 7) / 8;
-        for (int i = 0; i < blockReadableBytes; ) {
-            i += input.read(tmp, i, blockReadableBytes - i);
-        }
+        fill(input, blockReadableBytes);
         int outputIndex = offset;
         int end = offset + len;
         int tmpIndex = 0;
@@ -226,9 +221,7 @@ public final class LongBitPacker
         }
 
         int blockReadableBytes = (4 * len + 7) / 8;
-        for (int i = 0; i < blockReadableBytes; ) {
-            i += input.read(tmp, i, blockReadableBytes - i);
-        }
+        fill(input, blockReadableBytes);
         int outputIndex = offset;
         int end = offset + len;
         int tmpIndex = 0;
@@ -249,9 +242,7 @@ public final class LongBitPacker
     private void unpack8(long[] buffer, int offset, int len, InputStream input)
             throws IOException
     {
-        for (int i = 0; i < len; ) {
-            i += input.read(tmp, i, len - i);
-        }
+        fill(input, len);
         for (int i = 0; i < len; i++) {
             buffer[offset + i] = 0xFFL & tmp[i];
         }
@@ -261,9 +252,7 @@ public final class LongBitPacker
             throws IOException
     {
         int blockReadableBytes = len * 16 / 8;
-        for (int i = 0; i < blockReadableBytes; ) {
-            i += input.read(tmp, i, blockReadableBytes - i);
-        }
+        fill(input, blockReadableBytes);
         for (int i = 0; i < len; i++) {
             buffer[offset + i] = 0xFFFFL & Short.reverseBytes(getShortUnchecked(slice, 2 * i));
         }
@@ -273,9 +262,7 @@ public final class LongBitPacker
             throws IOException
     {
         int blockReadableBytes = len * 24 / 8;
-        for (int i = 0; i < blockReadableBytes; ) {
-            i += input.read(tmp, i, blockReadableBytes - i);
-        }
+        fill(input, blockReadableBytes);
         for (int i = 0; i < len; i++) {
             // It's safe to read 4-bytes at a time and shift, because slice is a view over tmp,
             // which has 8 bytes of buffer space for every position
@@ -287,9 +274,7 @@ public final class LongBitPacker
             throws IOException
     {
         int blockReadableBytes = len * 32 / 8;
-        for (int i = 0; i < blockReadableBytes; ) {
-            i += input.read(tmp, i, blockReadableBytes - i);
-        }
+        fill(input, blockReadableBytes);
         for (int i = 0; i < len; i++) {
             buffer[offset + i] = 0xFFFF_FFFFL & Integer.reverseBytes(getIntUnchecked(slice, 4 * i));
         }
@@ -299,9 +284,7 @@ public final class LongBitPacker
             throws IOException
     {
         int blockReadableBytes = len * 40 / 8;
-        for (int i = 0; i < blockReadableBytes; ) {
-            i += input.read(tmp, i, blockReadableBytes - i);
-        }
+        fill(input, blockReadableBytes);
         for (int i = 0; i < len; i++) {
             // It's safe to read 8-bytes at a time and shift, because slice is a view over tmp,
             // which has 8 bytes of buffer space for every position
@@ -313,9 +296,7 @@ public final class LongBitPacker
             throws IOException
     {
         int blockReadableBytes = len * 48 / 8;
-        for (int i = 0; i < blockReadableBytes; ) {
-            i += input.read(tmp, i, blockReadableBytes - i);
-        }
+        fill(input, blockReadableBytes);
         for (int i = 0; i < len; i++) {
             // It's safe to read 8-bytes at a time and shift, because slice is a view over tmp,
             // which has 8 bytes of buffer space for every position
@@ -327,9 +308,7 @@ public final class LongBitPacker
             throws IOException
     {
         int blockReadableBytes = len * 56 / 8;
-        for (int i = 0; i < blockReadableBytes; ) {
-            i += input.read(tmp, i, blockReadableBytes - i);
-        }
+        fill(input, blockReadableBytes);
         for (int i = 0; i < len; i++) {
             // It's safe to read 8-bytes at a time and shift, because slice is a view over tmp,
             // which has 8 bytes of buffer space for every position
@@ -341,9 +320,7 @@ public final class LongBitPacker
             throws IOException
     {
         int blockReadableBytes = len * 64 / 8;
-        for (int i = 0; i < blockReadableBytes; ) {
-            i += input.read(tmp, i, blockReadableBytes - i);
-        }
+        fill(input, blockReadableBytes);
         for (int i = 0; i < len; i++) {
             buffer[offset + i] = Long.reverseBytes(getLongUnchecked(slice, 8 * i));
         }
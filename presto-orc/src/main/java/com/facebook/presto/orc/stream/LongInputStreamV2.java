@@ -16,9 +16,16 @@ package com.facebook.presto.orc.stream;
 import com.facebook.presto.orc.OrcCorruptionException;
 import com.facebook.presto.orc.checkpoint.LongStreamCheckpoint;
 import com.facebook.presto.orc.checkpoint.LongStreamV2Checkpoint;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkPositionIndex;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
 
 /**
  * @see {@link org.apache.hadoop.hive.ql.io.orc.RunLengthIntegerWriterV2} for description of various lightweight compression techniques.
@@ -29,6 +36,8 @@ public class LongInputStreamV2
 {
     private static final int MIN_REPEAT_SIZE = 3;
     private static final int MAX_LITERAL_SIZE = 512;
+    // the length of the patch list is stored in 5 bits
+    private static final int MAX_PATCH_LIST_LENGTH = 31;
 
     private enum EncodingType
     {
@@ -39,6 +48,7 @@ public class LongInputStreamV2
     private final OrcInputStream input;
     private final boolean signed;
     private final long[] literals = new long[MAX_LITERAL_SIZE];
+    private final long[] patches = new long[MAX_PATCH_LIST_LENGTH];
     private int numLiterals;
     private int used;
     private final boolean skipCorrupt;
@@ -106,9 +116,9 @@ public class LongInputStreamV2
             // if all number are positive)
             long fixedDelta = LongDecode.readSignedVInt(input);
 
-            // add fixed deltas to adjacent values
-            for (int i = 0; i < length; i++) {
-                literals[numLiterals++] = literals[numLiterals - 2] + fixedDelta;
+            // add fixed deltas to the first value; the positions do not depend on each other
+            for (int i = 1; i <= length; i++) {
+                literals[numLiterals++] = firstVal + i * fixedDelta;
             }
         }
         else {
@@ -122,17 +132,20 @@ public class LongInputStreamV2
             // value to result buffer. if the delta base value is negative then it
             // is a decreasing sequence else an increasing sequence
             packer.unpack(literals, numLiterals, length, fixedBits, input);
-            while (length > 0) {
-                if (deltaBase < 0) {
-                    literals[numLiterals] = prevVal - literals[numLiterals];
+            int end = numLiterals + length;
+            if (deltaBase < 0) {
+                for (int i = numLiterals; i < end; i++) {
+                    prevVal -= literals[i];
+                    literals[i] = prevVal;
                 }
-                else {
-                    literals[numLiterals] = prevVal + literals[numLiterals];
+            }
+            else {
+                for (int i = numLiterals; i < end; i++) {
+                    prevVal += literals[i];
+                    literals[i] = prevVal;
                 }
-                prevVal = literals[numLiterals];
-                length--;
-                numLiterals++;
             }
+            numLiterals = end;
         }
     }
 
@@ -176,77 +189,41 @@ public class LongInputStreamV2
             base = -base;
         }
 
-        // unpack the data blob
-        long[] unpacked = new long[length];
-        packer.unpack(unpacked, 0, length, fb, input);
-
-        // unpack the patch blob
-        long[] unpackedPatch = new long[patchListLength];
-
         if ((patchWidth + patchGapWidth) > 64 && !skipCorrupt) {
             throw new OrcCorruptionException(input.getOrcDataSourceId(), "Invalid RLEv2 encoded stream");
         }
 
+        // unpack the data blob directly into the result buffer and add the base to every value
+        int start = numLiterals;
+        packer.unpack(literals, start, length, fb, input);
+        numLiterals += length;
+        for (int i = start; i < numLiterals; i++) {
+            literals[i] += base;
+        }
+
+        // unpack the patch blob
         int bitSize = LongDecode.getClosestFixedBits(patchWidth + patchGapWidth);
-        packer.unpack(unpackedPatch, 0, patchListLength, bitSize, input);
+        packer.unpack(patches, 0, patchListLength, bitSize, input);
 
-        // apply the patch directly when decoding the packed data
-        int patchIndex = 0;
-        long currentGap;
-        long currentPatch;
+        // apply the patches to the values. The patch bits are above the fb bits of the
+        // unpacked value, so adding them after the base is the same as or-ing them before.
         long patchMask = ((1L << patchWidth) - 1);
-        currentGap = unpackedPatch[patchIndex] >>> patchWidth;
-        currentPatch = unpackedPatch[patchIndex] & patchMask;
-        long actualGap = 0;
-
-        // special case: gap is >255 then patch value will be 0.
-        // if gap is <=255 then patch value cannot be 0
-        while (currentGap == 255 && currentPatch == 0) {
-            actualGap += 255;
-            patchIndex++;
-            currentGap = unpackedPatch[patchIndex] >>> patchWidth;
-            currentPatch = unpackedPatch[patchIndex] & patchMask;
-        }
-        // add the left over gap
-        actualGap += currentGap;
-
-        // unpack data blob, patch it (if required), add base to get final result
-        for (int i = 0; i < unpacked.length; i++) {
-            if (i == actualGap) {
-                // extract the patch value
-                long patchedValue = unpacked[i] | (currentPatch << fb);
-
-                // add base to patched value
-                literals[numLiterals++] = base + patchedValue;
-
-                // increment the patch to point to next entry in patch list
-                patchIndex++;
-
-                if (patchIndex < patchListLength) {
-                    // read the next gap and patch
-                    currentGap = unpackedPatch[patchIndex] >>> patchWidth;
-                    currentPatch = unpackedPatch[patchIndex] & patchMask;
-                    actualGap = 0;
-
-                    // special case: gap is >255 then patch will be 0. if gap is
-                    // <=255 then patch cannot be 0
-                    while (currentGap == 255 && currentPatch == 0) {
-                        actualGap += 255;
-                        patchIndex++;
-                        currentGap = unpackedPatch[patchIndex] >>> patchWidth;
-                        currentPatch = unpackedPatch[patchIndex] & patchMask;
-                    }
-                    // add the left over gap
-                    actualGap += currentGap;
-
-                    // next gap is relative to the current gap
-                    actualGap += i;
-                }
+        long patchPosition = 0;
+        for (int patchIndex = 0; patchIndex < patchListLength; patchIndex++) {
+            long currentGap = patches[patchIndex] >>> patchWidth;
+            long currentPatch = patches[patchIndex] & patchMask;
+            // each gap is relative to the previous patch
+            patchPosition += currentGap;
+
+            // special case: gap is >255 then patch value will be 0.
+            // if gap is <=255 then patch value cannot be 0
+            if (currentGap == 255 && currentPatch == 0) {
+                continue;
             }
-            else {
-                // no patching required. add base to unpacked value to get final value
-                literals[numLiterals++] = base + unpacked[i];
+            if (patchPosition >= length) {
+                throw new OrcCorruptionException(input.getOrcDataSourceId(), "Invalid RLEv2 patch position");
             }
+            literals[start + (int) patchPosition] += currentPatch << fb;
         }
     }
 
@@ -265,15 +242,13 @@ public class LongInputStreamV2
 
         // write the unpacked values and zigzag decode to result buffer
         packer.unpack(literals, numLiterals, length, fixedBits, input);
+        int end = numLiterals + length;
         if (signed) {
-            for (int i = 0; i < length; i++) {
-                literals[numLiterals] = LongDecode.zigzagDecode(literals[numLiterals]);
-                numLiterals++;
+            for (int i = numLiterals; i < end; i++) {
+                literals[i] = LongDecode.zigzagDecode(literals[i]);
             }
         }
-        else {
-            numLiterals += length;
-        }
+        numLiterals = end;
     }
 
     // This comes from the Apache Hive ORC code
@@ -298,9 +273,8 @@ public class LongInputStreamV2
         }
 
         // repeat the value for length times
-        for (int i = 0; i < length; i++) {
-            literals[numLiterals++] = val;
-        }
+        Arrays.fill(literals, numLiterals, numLiterals + length, val);
+        numLiterals += length;
     }
 
     /**
@@ -332,6 +306,87 @@ public class LongInputStreamV2
         return literals[used++];
     }
 
+    @Override
+    public void nextIntVector(int items, int[] vector, int offset)
+            throws IOException
+    {
+        checkPositionIndex(items + offset, vector.length);
+
+        int end = offset + items;
+        while (offset < end) {
+            int chunk = prepareChunk(end - offset);
+            for (int i = 0; i < chunk; i++) {
+                vector[offset + i] = toIntExact(literals[used + i]);
+            }
+            used += chunk;
+            offset += chunk;
+        }
+    }
+
+    @Override
+    public void nextLongVector(int items, long[] vector)
+            throws IOException
+    {
+        checkPositionIndex(items, vector.length);
+
+        int offset = 0;
+        while (offset < items) {
+            int chunk = prepareChunk(items - offset);
+            System.arraycopy(literals, used, vector, offset, chunk);
+            used += chunk;
+            offset += chunk;
+        }
+    }
+
+    @Override
+    public void nextLongVector(Type type, int items, BlockBuilder builder)
+            throws IOException
+    {
+        int offset = 0;
+        while (offset < items) {
+            int chunk = prepareChunk(items - offset);
+            for (int i = used; i < used + chunk; i++) {
+                type.writeLong(builder, literals[i]);
+            }
+            used += chunk;
+            offset += chunk;
+        }
+    }
+
+    @Override
+    public long sum(int items)
+            throws IOException
+    {
+        long sum = 0;
+        int offset = 0;
+        while (offset < items) {
+            int chunk = prepareChunk(items - offset);
+            for (int i = used; i < used + chunk; i++) {
+                sum += literals[i];
+            }
+            used += chunk;
+            offset += chunk;
+        }
+        return sum;
+    }
+
+    /**
+     * Decodes the next run if the current one is exhausted, and returns the number
+     * of values, up to the requested count, that can be consumed from the buffer.
+     * The vector methods use this to process a whole run in a tight loop, instead of
+     * checking for the end of the run on every value.
+     */
+    private int prepareChunk(int items)
+            throws IOException
+    {
+        if (used == numLiterals) {
+            numLiterals = 0;
+            used = 0;
+            readValues();
+        }
+        return min(items, numLiterals - used);
+    }
+
     @Override
     public Class<LongStreamV2Checkpoint> getCheckpointType()
     {
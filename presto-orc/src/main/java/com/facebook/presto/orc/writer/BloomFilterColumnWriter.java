@@ -0,0 +1,186 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.CompressedMetadataWriter;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
+import com.facebook.presto.orc.metadata.statistics.HiveBloomFilter;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.VarbinaryType;
+import com.facebook.presto.spi.type.VarcharType;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import org.apache.hive.common.util.BloomFilter;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.BLOOM_FILTER;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Adds a bloom filter of the values of each row group to the index streams of a column.
+ * The values are hashed the same way as by the Hive ORC writer, so the filters can be
+ * used by {@link com.facebook.presto.orc.TupleDomainOrcPredicate} to skip the row groups
+ * which can not contain the values of an equality or IN predicate.
+ */
+public class BloomFilterColumnWriter
+        implements ColumnWriter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(BloomFilterColumnWriter.class).instanceSize();
+
+    private final ColumnWriter delegate;
+    private final int column;
+    private final Type type;
+    private final BloomFilter bloomFilter;
+
+    private final List<HiveBloomFilter> rowGroupBloomFilters = new ArrayList<>();
+
+    public BloomFilterColumnWriter(ColumnWriter delegate, int column, Type type, int expectedEntries, double fpp)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        checkArgument(column >= 0, "column is negative");
+        this.column = column;
+        this.type = requireNonNull(type, "type is null");
+        checkArgument(isBloomFilterSupported(type), "Bloom filters are not supported for %s type", type);
+        this.bloomFilter = new BloomFilter(expectedEntries, fpp);
+    }
+
+    public static boolean isBloomFilterSupported(Type type)
+    {
+        // these are the types the reader can check against a bloom filter
+        return type == TINYINT || type == SMALLINT || type == INTEGER || type == BIGINT || type == DOUBLE || type instanceof VarcharType || type instanceof VarbinaryType;
+    }
+
+    public ColumnWriter getDelegate()
+    {
+        return delegate;
+    }
+
+    @Override
+    public List<ColumnWriter> getNestedColumnWriters()
+    {
+        return delegate.getNestedColumnWriters();
+    }
+
+    @Override
+    public Map<Integer, ColumnEncoding> getColumnEncodings()
+    {
+        return delegate.getColumnEncodings();
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        delegate.beginRowGroup();
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        delegate.writeBlock(block);
+
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                continue;
+            }
+            if (type == DOUBLE) {
+                bloomFilter.addDouble(type.getDouble(block, position));
+            }
+            else if (type.getJavaType() == long.class) {
+                bloomFilter.addLong(type.getLong(block, position));
+            }
+            else {
+                Slice value = type.getSlice(block, position);
+                bloomFilter.add(value.getBytes());
+            }
+        }
+    }
+
+    @Override
+    public Map<Integer, ColumnStatistics> finishRowGroup()
+    {
+        rowGroupBloomFilters.add(new HiveBloomFilter(bloomFilter));
+        bloomFilter.reset();
+        return delegate.finishRowGroup();
+    }
+
+    @Override
+    public void close()
+    {
+        delegate.close();
+    }
+
+    @Override
+    public Map<Integer, ColumnStatistics> getColumnStripeStatistics()
+    {
+        return delegate.getColumnStripeStatistics();
+    }
+
+    @Override
+    public List<StreamDataOutput> getIndexStreams(CompressedMetadataWriter metadataWriter)
+            throws IOException
+    {
+        Slice slice = metadataWriter.writeBloomFilters(rowGroupBloomFilters);
+        Stream stream = new Stream(column, BLOOM_FILTER, slice.length(), false);
+        return ImmutableList.<StreamDataOutput>builder()
+                .addAll(delegate.getIndexStreams(metadataWriter))
+                .add(new StreamDataOutput(slice, stream))
+                .build();
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        return delegate.getDataStreams();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return delegate.getBufferedBytes();
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        long retainedBytes = INSTANCE_SIZE + delegate.getRetainedBytes() + sizeOf(bloomFilter.getBitSet());
+        for (HiveBloomFilter rowGroupBloomFilter : rowGroupBloomFilters) {
+            retainedBytes += rowGroupBloomFilter.getRetainedSizeInBytes();
+        }
+        return retainedBytes;
+    }
+
+    @Override
+    public void reset()
+    {
+        delegate.reset();
+        rowGroupBloomFilters.clear();
+        bloomFilter.reset();
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.TupleDomainOrcPredicate.ColumnReference;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slice;
+import io.airlift.units.DataSize;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.orc.OrcEncoding.ORC;
+import static com.facebook.presto.orc.OrcReader.INITIAL_BATCH_SIZE;
+import static com.facebook.presto.orc.OrcWriteValidation.OrcWriteValidationMode.BOTH;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.joda.time.DateTimeZone.UTC;
+
+/**
+ * Measures point lookups and IN lists on high cardinality keys, which are spread over
+ * all row groups, so the row groups can only be pruned with bloom filters. The bytes read
+ * from the file are reported in the {@code readBytes} counter, along with the number of {@code reads}.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(3)
+@Warmup(iterations = 10, time = 500, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkOrcBloomFilters
+{
+    public static final int ROWS = 1_000_000;
+    private static final int STRIPE_ROWS = 100_000;
+    private static final int IN_LIST_SIZE = 5;
+
+    @Benchmark
+    public Object lookupBigint(BenchmarkData data, ReadCounters counters)
+            throws Throwable
+    {
+        return read(data, counters, data.getBigintPredicate());
+    }
+
+    @Benchmark
+    public Object lookupVarcharInList(BenchmarkData data, ReadCounters counters)
+            throws Throwable
+    {
+        return read(data, counters, data.getVarcharPredicate());
+    }
+
+    private static List<Block> read(BenchmarkData data, ReadCounters counters, TupleDomain<Integer> predicate)
+            throws IOException
+    {
+        List<Block> blocks = new ArrayList<>();
+        OrcDataSource dataSource = new FileOrcDataSource(data.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true);
+        OrcReader orcReader = new OrcReader(dataSource, ORC, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE));
+        OrcPredicate orcPredicate = new TupleDomainOrcPredicate<>(
+                predicate,
+                ImmutableList.of(new ColumnReference<>(0, 0, BIGINT), new ColumnReference<>(1, 1, VARCHAR)),
+                data.bloomFiltersEnabled);
+        try (OrcRecordReader recordReader = orcReader.createRecordReader(
+                ImmutableMap.<Integer, Type>of(0, BIGINT, 1, VARCHAR),
+                orcPredicate,
+                UTC, // arbitrary
+                newSimpleAggregatedMemoryContext(),
+                INITIAL_BATCH_SIZE)) {
+            while (recordReader.nextBatch() > 0) {
+                blocks.add(recordReader.readBlock(BIGINT, 0));
+                blocks.add(recordReader.readBlock(VARCHAR, 1));
+            }
+        }
+        counters.reads++;
+        counters.readBytes += dataSource.getReadBytes();
+        return blocks;
+    }
+
+    @SuppressWarnings("PublicField")
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class ReadCounters
+    {
+        public long reads;
+        public long readBytes;
+    }
+
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"true", "false"})
+        private boolean bloomFiltersEnabled = true;
+
+        private File temporaryDirectory;
+        private File file;
+        private long[] keys;
+
+        @Setup
+        public void setup()
+                throws Exception
+        {
+            Random random = new Random(0);
+            keys = new long[ROWS];
+            for (int i = 0; i < ROWS; i++) {
+                keys[i] = random.nextLong();
+            }
+
+            temporaryDirectory = createTempDir();
+            file = new File(temporaryDirectory, randomUUID().toString());
+            OrcWriter writer = new OrcWriter(
+                    new OutputStreamOrcDataSink(new FileOutputStream(file)),
+                    ImmutableList.of("key", "value"),
+                    ImmutableList.of(BIGINT, VARCHAR),
+                    ORC,
+                    ZLIB,
+                    new OrcWriterOptions()
+                            .withStripeMaxRowCount(STRIPE_ROWS)
+                            .withBloomFilterColumns(ImmutableSet.of("key", "value")),
+                    ImmutableMap.of(),
+                    UTC,
+                    false,
+                    BOTH,
+                    new OrcWriterStats());
+            BlockBuilder keyBlockBuilder = BIGINT.createBlockBuilder(null, ROWS);
+            BlockBuilder valueBlockBuilder = VARCHAR.createBlockBuilder(null, ROWS);
+            for (long key : keys) {
+                BIGINT.writeLong(keyBlockBuilder, key);
+                VARCHAR.writeSlice(valueBlockBuilder, value(key));
+            }
+            writer.write(new Page(keyBlockBuilder.build(), valueBlockBuilder.build()));
+            writer.close();
+        }
+
+        @TearDown
+        public void tearDown()
+                throws IOException
+        {
+            deleteRecursively(temporaryDirectory.toPath(), ALLOW_INSECURE);
+        }
+
+        public File getFile()
+        {
+            return file;
+        }
+
+        public TupleDomain<Integer> getBigintPredicate()
+        {
+            return TupleDomain.withColumnDomains(ImmutableMap.of(0, Domain.singleValue(BIGINT, keys[ROWS / 2])));
+        }
+
+        public TupleDomain<Integer> getVarcharPredicate()
+        {
+            List<Object> values = new ArrayList<>();
+            for (int i = 0; i < IN_LIST_SIZE; i++) {
+                values.add(value(keys[i * (ROWS / IN_LIST_SIZE)]));
+            }
+            return TupleDomain.withColumnDomains(ImmutableMap.of(1, Domain.multipleValues(VARCHAR, values)));
+        }
+
+        private static Slice value(long key)
+        {
+            return utf8Slice("value_" + key);
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkOrcBloomFilters.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
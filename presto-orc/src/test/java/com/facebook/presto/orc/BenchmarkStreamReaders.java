@@ -235,6 +235,19 @@ public class BenchmarkStreamReaders
         return blocks;
     }
 
+    @Benchmark
+    public Object readLongPackedNoNull(BigintPackedNoNullBenchmarkData data)
+            throws Throwable
+    {
+        OrcRecordReader recordReader = data.createRecordReader();
+        List<Block> blocks = new ArrayList<>();
+        while (recordReader.nextBatch() > 0) {
+            Block block = recordReader.readBlock(BIGINT, 0);
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
     @Benchmark
     public Object readSliceDictionaryNoNull(VarcharNoNullBenchmarkData data)
             throws Throwable
@@ -838,6 +851,67 @@ public class BenchmarkStreamReaders
         }
     }
 
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class BigintPackedNoNullBenchmarkData
+    {
+        protected File temporaryDirectory;
+        protected File bigintPackedNoNullFile;
+        private Random random;
+
+        @Setup
+        public void setup()
+                throws Exception
+        {
+            random = new Random(0);
+            temporaryDirectory = createTempDir();
+
+            bigintPackedNoNullFile = new File(temporaryDirectory, randomUUID().toString());
+            writeOrcColumnHive(bigintPackedNoNullFile, ORC_12, NONE, BIGINT, createBigintPackedValuesNoNull().iterator());
+        }
+
+        @TearDown
+        public void tearDown()
+                throws IOException
+        {
+            deleteRecursively(temporaryDirectory.toPath(), ALLOW_INSECURE);
+        }
+
+        private OrcRecordReader createRecordReader()
+                throws IOException
+        {
+            OrcDataSource dataSource = new FileOrcDataSource(bigintPackedNoNullFile, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true);
+            OrcReader orcReader = new OrcReader(dataSource, ORC, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE));
+            return orcReader.createRecordReader(
+                    ImmutableMap.of(0, BIGINT),
+                    OrcPredicate.TRUE,
+                    UTC, // arbitrary
+                    newSimpleAggregatedMemoryContext(),
+                    INITIAL_BATCH_SIZE);
+        }
+
+        private List<Long> createBigintPackedValuesNoNull()
+        {
+            List<Long> values = new ArrayList<>();
+            // alternate between runs written with the bit packed DIRECT, PATCHED_BASE and DELTA sub-encodings
+            long value = 0;
+            for (int i = 0; i < ROWS; ++i) {
+                switch ((i / 1000) % 3) {
+                    case 0:
+                        values.add(Long.valueOf(random.nextInt(1 << 13)));
+                        break;
+                    case 1:
+                        values.add(Long.valueOf(random.nextInt(100) == 0 ? random.nextInt() : random.nextInt(1 << 5)));
+                        break;
+                    default:
+                        value += random.nextInt(1 << 11);
+                        values.add(Long.valueOf(value));
+                }
+            }
+            return values;
+        }
+    }
+
     @SuppressWarnings("FieldMayBeFinal")
     @State(Scope.Thread)
     public static class BigintWithNullBenchmarkData
@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.cache.CachingOrcFileTailSource;
+import com.facebook.presto.orc.cache.CachingStripeMetadataSource;
+import com.facebook.presto.orc.cache.OrcFileTailSource;
+import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
+import com.facebook.presto.orc.cache.StorageStripeMetadataSource;
+import com.facebook.presto.orc.cache.StripeMetadataSource;
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.stream.LongStream;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.orc.OrcEncoding.ORC;
+import static com.facebook.presto.orc.OrcReader.MAX_BATCH_SIZE;
+import static com.facebook.presto.orc.OrcTester.Format.ORC_12;
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static com.facebook.presto.orc.OrcTester.writeOrcColumnHive;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestCachingOrcMetadata
+{
+    private static final long ROW_COUNT = 35_000;
+
+    @Test
+    public void testCachedMetadataIsReused()
+            throws Exception
+    {
+        CachingOrcFileTailSource orcFileTailSource = new CachingOrcFileTailSource(new StorageOrcFileTailSource(), new DataSize(1, MEGABYTE), new Duration(10, MINUTES));
+        CachingStripeMetadataSource stripeMetadataSource = new CachingStripeMetadataSource(
+                new StorageStripeMetadataSource(),
+                new DataSize(1, MEGABYTE),
+                new DataSize(1, MEGABYTE),
+                new Duration(10, MINUTES));
+
+        try (TempFile tempFile = new TempFile()) {
+            writeOrcColumnHive(tempFile.getFile(), ORC_12, ZLIB, BIGINT, LongStream.range(0, ROW_COUNT).boxed().iterator());
+
+            assertEquals(readSum(tempFile, orcFileTailSource, stripeMetadataSource), sum());
+            assertEquals(orcFileTailSource.getFileTailCacheStats().getRequestCount(), 1);
+            assertEquals(orcFileTailSource.getFileTailCacheStats().getMissRate(), 1.0);
+            long rowGroupIndexes = stripeMetadataSource.getRowGroupIndexCacheStats().size();
+            assertTrue(rowGroupIndexes > 0);
+
+            assertEquals(readSum(tempFile, orcFileTailSource, stripeMetadataSource), sum());
+            assertEquals(orcFileTailSource.getFileTailCacheStats().getRequestCount(), 2);
+            assertEquals(orcFileTailSource.getFileTailCacheStats().getHitRate(), 0.5);
+            assertEquals(orcFileTailSource.getFileTailCacheStats().size(), 1);
+            assertEquals(stripeMetadataSource.getStripeFooterCacheStats().getHitRate(), 0.5);
+            assertEquals(stripeMetadataSource.getRowGroupIndexCacheStats().getHitRate(), 0.5);
+            assertEquals(stripeMetadataSource.getRowGroupIndexCacheStats().size(), rowGroupIndexes);
+        }
+    }
+
+    @Test
+    public void testCacheEviction()
+            throws Exception
+    {
+        CachingOrcFileTailSource orcFileTailSource = new CachingOrcFileTailSource(new StorageOrcFileTailSource(), new DataSize(1, BYTE), new Duration(10, MINUTES));
+
+        try (TempFile tempFile = new TempFile()) {
+            writeOrcColumnHive(tempFile.getFile(), ORC_12, ZLIB, BIGINT, LongStream.range(0, ROW_COUNT).boxed().iterator());
+
+            assertEquals(readSum(tempFile, orcFileTailSource, new StorageStripeMetadataSource()), sum());
+            assertEquals(readSum(tempFile, orcFileTailSource, new StorageStripeMetadataSource()), sum());
+            assertEquals(orcFileTailSource.getFileTailCacheStats().getHitRate(), 0.0);
+            assertEquals(orcFileTailSource.getFileTailCacheStats().size(), 0);
+        }
+    }
+
+    private static long readSum(TempFile tempFile, OrcFileTailSource orcFileTailSource, StripeMetadataSource stripeMetadataSource)
+            throws IOException
+    {
+        OrcDataSource orcDataSource = new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true);
+        OrcReader orcReader = new OrcReader(
+                orcDataSource,
+                ORC,
+                new DataSize(1, MEGABYTE),
+                new DataSize(1, MEGABYTE),
+                new DataSize(1, BYTE),
+                new DataSize(1, MEGABYTE),
+                orcFileTailSource,
+                stripeMetadataSource);
+
+        long sum = 0;
+        try (OrcRecordReader reader = orcReader.createRecordReader(ImmutableMap.of(0, BIGINT), OrcPredicate.TRUE, HIVE_STORAGE_TIME_ZONE, newSimpleAggregatedMemoryContext(), MAX_BATCH_SIZE)) {
+            while (reader.nextBatch() > 0) {
+                Block block = reader.readBlock(BIGINT, 0);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    sum += BIGINT.getLong(block, position);
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static long sum()
+    {
+        return LongStream.range(0, ROW_COUNT).sum();
+    }
+}
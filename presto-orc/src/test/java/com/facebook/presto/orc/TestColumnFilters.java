@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.reader.ColumnFilter;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.orc.reader.ColumnFilters.createColumnFilter;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestColumnFilters
+{
+    @Test
+    public void testLongRanges()
+    {
+        ColumnFilter filter = createColumnFilter(BIGINT, Domain.create(
+                ValueSet.ofRanges(Range.lessThan(BIGINT, -10L), Range.range(BIGINT, 0L, false, 5L, true), Range.greaterThanOrEqual(BIGINT, 100L)),
+                false)).get();
+        assertTrue(filter.testLong(Long.MIN_VALUE));
+        assertTrue(filter.testLong(-11));
+        assertFalse(filter.testLong(-10));
+        assertFalse(filter.testLong(0));
+        assertTrue(filter.testLong(1));
+        assertTrue(filter.testLong(5));
+        assertFalse(filter.testLong(6));
+        assertFalse(filter.testLong(99));
+        assertTrue(filter.testLong(100));
+        assertTrue(filter.testLong(Long.MAX_VALUE));
+        assertFalse(filter.testNull());
+
+        filter = createColumnFilter(BIGINT, Domain.create(ValueSet.ofRanges(Range.greaterThan(BIGINT, Long.MAX_VALUE)), true)).get();
+        assertFalse(filter.testLong(Long.MAX_VALUE));
+        assertTrue(filter.testNull());
+    }
+
+    @Test
+    public void testLongSet()
+    {
+        ColumnFilter filter = createColumnFilter(BIGINT, Domain.multipleValues(BIGINT, ImmutableList.of(-3L, 7L, 42L))).get();
+        assertTrue(filter.testLong(-3));
+        assertTrue(filter.testLong(7));
+        assertTrue(filter.testLong(42));
+        assertFalse(filter.testLong(0));
+        assertFalse(filter.testLong(8));
+        assertFalse(filter.testNull());
+    }
+
+    @Test
+    public void testDouble()
+    {
+        ColumnFilter filter = createColumnFilter(DOUBLE, Domain.create(
+                ValueSet.ofRanges(Range.range(DOUBLE, 1.5, true, 2.5, false), Range.equal(DOUBLE, 10.0)),
+                false)).get();
+        assertTrue(filter.testDouble(1.5));
+        assertTrue(filter.testDouble(2.0));
+        assertFalse(filter.testDouble(2.5));
+        assertTrue(filter.testDouble(10.0));
+        assertFalse(filter.testDouble(Double.NaN));
+
+        filter = createColumnFilter(DOUBLE, Domain.notNull(DOUBLE)).get();
+        assertTrue(filter.testDouble(Double.NEGATIVE_INFINITY));
+        assertFalse(filter.testNull());
+    }
+
+    @Test
+    public void testBoolean()
+    {
+        ColumnFilter filter = createColumnFilter(BOOLEAN, Domain.singleValue(BOOLEAN, true)).get();
+        assertTrue(filter.testBoolean(true));
+        assertFalse(filter.testBoolean(false));
+        assertFalse(filter.testNull());
+    }
+
+    @Test
+    public void testSliceSet()
+    {
+        ColumnFilter filter = createColumnFilter(VARCHAR, Domain.multipleValues(VARCHAR, ImmutableList.of(utf8Slice("apple"), utf8Slice("banana"), utf8Slice("")))).get();
+        assertTrue(testSlice(filter, "apple"));
+        assertTrue(testSlice(filter, "banana"));
+        assertTrue(testSlice(filter, ""));
+        assertFalse(testSlice(filter, "apples"));
+        assertFalse(testSlice(filter, "cherry"));
+        assertFalse(filter.testNull());
+    }
+
+    @Test
+    public void testSliceRanges()
+    {
+        ColumnFilter filter = createColumnFilter(VARCHAR, Domain.create(
+                ValueSet.ofRanges(Range.lessThan(VARCHAR, utf8Slice("b")), Range.range(VARCHAR, utf8Slice("d"), false, utf8Slice("f"), true)),
+                true)).get();
+        assertTrue(testSlice(filter, "a"));
+        assertTrue(testSlice(filter, "azzz"));
+        assertFalse(testSlice(filter, "b"));
+        assertFalse(testSlice(filter, "d"));
+        assertTrue(testSlice(filter, "da"));
+        assertTrue(testSlice(filter, "f"));
+        assertFalse(testSlice(filter, "fa"));
+        assertTrue(filter.testNull());
+    }
+
+    @Test
+    public void testUnsupportedType()
+    {
+        assertFalse(createColumnFilter(REAL, Domain.singleValue(REAL, (long) Float.floatToIntBits(1.0f))).isPresent());
+    }
+
+    private static boolean testSlice(ColumnFilter filter, String value)
+    {
+        // test the value in the middle of a larger slice, as the readers do
+        Slice slice = utf8Slice("xx" + value + "yy");
+        return filter.testSlice(slice, 2, slice.length() - 4);
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.orc.OrcEncoding.ORC;
+import static com.facebook.presto.orc.OrcReader.MAX_BATCH_SIZE;
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static com.facebook.presto.orc.OrcWriteValidation.OrcWriteValidationMode.BOTH;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestOrcSelectiveReader
+{
+    private static final int ROW_COUNT = 25_000;
+
+    private TempFile tempFile;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        tempFile = new TempFile();
+        OrcWriter writer = new OrcWriter(
+                new OutputStreamOrcDataSink(new FileOutputStream(tempFile.getFile())),
+                ImmutableList.of("key", "value", "other"),
+                ImmutableList.of(BIGINT, VARCHAR, BIGINT),
+                ORC,
+                ZLIB,
+                new OrcWriterOptions(),
+                ImmutableMap.of(),
+                HIVE_STORAGE_TIME_ZONE,
+                false,
+                BOTH,
+                new OrcWriterStats());
+
+        BlockBuilder keys = BIGINT.createBlockBuilder(null, ROW_COUNT);
+        BlockBuilder values = VARCHAR.createBlockBuilder(null, ROW_COUNT);
+        BlockBuilder others = BIGINT.createBlockBuilder(null, ROW_COUNT);
+        for (int row = 0; row < ROW_COUNT; row++) {
+            Long key = key(row);
+            if (key == null) {
+                keys.appendNull();
+            }
+            else {
+                BIGINT.writeLong(keys, key);
+            }
+            String value = value(row);
+            if (value == null) {
+                values.appendNull();
+            }
+            else {
+                VARCHAR.writeSlice(values, utf8Slice(value));
+            }
+            BIGINT.writeLong(others, row);
+        }
+        writer.write(new Page(keys.build(), values.build(), others.build()));
+        writer.close();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws Exception
+    {
+        tempFile.close();
+    }
+
+    @Test
+    public void testNoFilters()
+            throws Exception
+    {
+        assertRows(ImmutableMap.of(), row -> true);
+    }
+
+    @Test
+    public void testRange()
+            throws Exception
+    {
+        assertRows(
+                ImmutableMap.of(0, Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 1_000L, true, 1_200L, false)), false)),
+                row -> key(row) != null && key(row) >= 1_000 && key(row) < 1_200);
+    }
+
+    @Test
+    public void testInList()
+            throws Exception
+    {
+        assertRows(
+                ImmutableMap.of(1, Domain.multipleValues(VARCHAR, ImmutableList.of(utf8Slice("value_17"), utf8Slice("value_4242"), utf8Slice("value_24999")))),
+                row -> Objects.equals(value(row), "value_17") || Objects.equals(value(row), "value_4242") || Objects.equals(value(row), "value_24999"));
+    }
+
+    @Test
+    public void testIsNull()
+            throws Exception
+    {
+        assertRows(ImmutableMap.of(0, Domain.onlyNull(BIGINT)), row -> key(row) == null);
+        assertRows(ImmutableMap.of(1, Domain.notNull(VARCHAR)), row -> value(row) != null);
+    }
+
+    @Test
+    public void testMultipleFilters()
+            throws Exception
+    {
+        assertRows(
+                ImmutableMap.of(
+                        0, Domain.create(ValueSet.ofRanges(Range.lessThan(BIGINT, 10_000L)), true),
+                        1, Domain.create(ValueSet.ofRanges(Range.greaterThan(VARCHAR, utf8Slice("value_5"))), false)),
+                row -> (key(row) == null || key(row) < 10_000) && value(row) != null && value(row).compareTo("value_5") > 0);
+    }
+
+    @Test
+    public void testNoMatches()
+            throws Exception
+    {
+        assertRows(ImmutableMap.of(0, Domain.singleValue(BIGINT, -1L)), row -> false);
+    }
+
+    @Test
+    public void testFilterSupport()
+    {
+        assertTrue(OrcReader.isFilterSupported(BIGINT));
+        assertTrue(OrcReader.isFilterSupported(VARCHAR));
+        assertFalse(OrcReader.isFilterSupported(null));
+    }
+
+    private void assertRows(Map<Integer, Domain> filters, Predicate<Integer> expectedRows)
+            throws IOException
+    {
+        List<Long> expected = new ArrayList<>();
+        for (int row = 0; row < ROW_COUNT; row++) {
+            if (expectedRows.test(row)) {
+                expected.add((long) row);
+            }
+        }
+
+        OrcDataSource orcDataSource = new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true);
+        OrcReader orcReader = new OrcReader(orcDataSource, ORC, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE));
+        List<Long> actual = new ArrayList<>();
+        try (OrcRecordReader reader = orcReader.createRecordReader(
+                ImmutableMap.of(0, BIGINT, 1, VARCHAR, 2, BIGINT),
+                OrcPredicate.TRUE,
+                filters,
+                0,
+                orcDataSource.getSize(),
+                HIVE_STORAGE_TIME_ZONE,
+                newSimpleAggregatedMemoryContext(),
+                MAX_BATCH_SIZE)) {
+            for (int batchSize = reader.nextBatch(); batchSize > 0; batchSize = reader.nextBatch()) {
+                // read the columns in a different order than the filters
+                Block others = reader.readBlock(BIGINT, 2);
+                Block values = reader.readBlock(VARCHAR, 1);
+                Block keys = reader.readBlock(BIGINT, 0);
+                assertEquals(others.getPositionCount(), batchSize);
+                assertEquals(values.getPositionCount(), batchSize);
+                assertEquals(keys.getPositionCount(), batchSize);
+                for (int position = 0; position < batchSize; position++) {
+                    int row = (int) BIGINT.getLong(others, position);
+                    assertEquals(keys.isNull(position) ? null : BIGINT.getLong(keys, position), key(row));
+                    assertEquals(values.isNull(position) ? null : VARCHAR.getSlice(values, position).toStringUtf8(), value(row));
+                    actual.add((long) row);
+                }
+            }
+            assertEquals(reader.getFilePosition(), ROW_COUNT);
+        }
+        assertEquals(actual, expected);
+    }
+
+    private static Long key(int row)
+    {
+        if (row % 7 == 0) {
+            return null;
+        }
+        return (long) row;
+    }
+
+    private static String value(int row)
+    {
+        if (row % 5 == 0) {
+            return null;
+        }
+        return "value_" + row;
+    }
+}
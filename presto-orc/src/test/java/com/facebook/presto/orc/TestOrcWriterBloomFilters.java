@@ -0,0 +1,184 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.TupleDomainOrcPredicate.ColumnReference;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Set;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.orc.OrcEncoding.DWRF;
+import static com.facebook.presto.orc.OrcEncoding.ORC;
+import static com.facebook.presto.orc.OrcReader.MAX_BATCH_SIZE;
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static com.facebook.presto.orc.OrcWriteValidation.OrcWriteValidationMode.BOTH;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+
+public class TestOrcWriterBloomFilters
+{
+    private static final int ROW_COUNT = 50_000;
+    private static final int ROW_GROUP_ROW_COUNT = 10_000;
+
+    private TempFile bloomFilterFile;
+    private TempFile plainFile;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        bloomFilterFile = new TempFile();
+        writeFile(bloomFilterFile, ImmutableSet.of("key", "value"));
+        plainFile = new TempFile();
+        writeFile(plainFile, ImmutableSet.of());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws Exception
+    {
+        bloomFilterFile.close();
+        plainFile.close();
+    }
+
+    @Test
+    public void testPointLookup()
+            throws Exception
+    {
+        // the keys are spread over all row groups, so only the bloom filters can prune them
+        TupleDomain<String> predicate = TupleDomain.withColumnDomains(ImmutableMap.of("key", Domain.singleValue(BIGINT, key(12_345))));
+        assertEquals(readRowCount(bloomFilterFile, predicate, true), ROW_GROUP_ROW_COUNT);
+        assertEquals(readRowCount(bloomFilterFile, predicate, false), ROW_COUNT);
+        assertEquals(readRowCount(plainFile, predicate, true), ROW_COUNT);
+    }
+
+    @Test
+    public void testInList()
+            throws Exception
+    {
+        TupleDomain<String> predicate = TupleDomain.withColumnDomains(ImmutableMap.of("value", Domain.multipleValues(VARCHAR, ImmutableList.of(
+                utf8Slice(value(1)),
+                utf8Slice(value(45_678))))));
+        assertEquals(readRowCount(bloomFilterFile, predicate, true), 2 * ROW_GROUP_ROW_COUNT);
+        assertEquals(readRowCount(bloomFilterFile, predicate, false), ROW_COUNT);
+        assertEquals(readRowCount(plainFile, predicate, true), ROW_COUNT);
+    }
+
+    @Test
+    public void testMissingValue()
+            throws Exception
+    {
+        TupleDomain<String> predicate = TupleDomain.withColumnDomains(ImmutableMap.of("value", Domain.singleValue(VARCHAR, utf8Slice("value_123456789"))));
+        assertEquals(readRowCount(bloomFilterFile, predicate, true), 0);
+        assertEquals(readRowCount(bloomFilterFile, predicate, false), ROW_COUNT);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "DWRF does not support bloom filters")
+    public void testDwrfBloomFilters()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            createWriter(tempFile, DWRF, ImmutableSet.of("key"));
+        }
+    }
+
+    private static void writeFile(TempFile tempFile, Set<String> bloomFilterColumns)
+            throws IOException
+    {
+        OrcWriter writer = createWriter(tempFile, ORC, bloomFilterColumns);
+
+        BlockBuilder keys = BIGINT.createBlockBuilder(null, ROW_COUNT);
+        BlockBuilder values = VARCHAR.createBlockBuilder(null, ROW_COUNT);
+        for (int row = 0; row < ROW_COUNT; row++) {
+            BIGINT.writeLong(keys, key(row));
+            VARCHAR.writeSlice(values, utf8Slice(value(row)));
+        }
+        writer.write(new Page(keys.build(), values.build()));
+        writer.close();
+
+        writer.validate(new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true));
+    }
+
+    private static OrcWriter createWriter(TempFile tempFile, OrcEncoding encoding, Set<String> bloomFilterColumns)
+            throws IOException
+    {
+        return new OrcWriter(
+                new OutputStreamOrcDataSink(new FileOutputStream(tempFile.getFile())),
+                ImmutableList.of("key", "value"),
+                ImmutableList.of(BIGINT, VARCHAR),
+                encoding,
+                ZLIB,
+                new OrcWriterOptions()
+                        .withRowGroupMaxRowCount(ROW_GROUP_ROW_COUNT)
+                        .withBloomFilterColumns(bloomFilterColumns)
+                        .withBloomFilterFpp(0.01),
+                ImmutableMap.of(),
+                HIVE_STORAGE_TIME_ZONE,
+                true,
+                BOTH,
+                new OrcWriterStats());
+    }
+
+    private static int readRowCount(TempFile tempFile, TupleDomain<String> predicate, boolean bloomFiltersEnabled)
+            throws IOException
+    {
+        OrcPredicate orcPredicate = new TupleDomainOrcPredicate<>(
+                predicate,
+                ImmutableList.of(new ColumnReference<>("key", 0, BIGINT), new ColumnReference<>("value", 1, VARCHAR)),
+                bloomFiltersEnabled);
+        OrcDataSource orcDataSource = new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true);
+        OrcReader orcReader = new OrcReader(orcDataSource, ORC, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE));
+        int rowCount = 0;
+        try (OrcRecordReader reader = orcReader.createRecordReader(
+                ImmutableMap.<Integer, Type>of(0, BIGINT, 1, VARCHAR),
+                orcPredicate,
+                HIVE_STORAGE_TIME_ZONE,
+                newSimpleAggregatedMemoryContext(),
+                MAX_BATCH_SIZE)) {
+            for (int batchSize = reader.nextBatch(); batchSize > 0; batchSize = reader.nextBatch()) {
+                rowCount += batchSize;
+            }
+        }
+        return rowCount;
+    }
+
+    private static long key(int row)
+    {
+        // a permutation of the rows, so each row group covers the full range of keys
+        return (row * 7919L) % ROW_COUNT;
+    }
+
+    private static String value(int row)
+    {
+        return "value_" + key(row);
+    }
+}
@@ -16,6 +16,7 @@ package com.facebook.presto.orc.stream;
 import com.facebook.presto.orc.OrcCorruptionException;
 import com.facebook.presto.orc.OrcDecompressor;
 import com.facebook.presto.orc.checkpoint.LongStreamCheckpoint;
+import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
 import org.testng.annotations.Test;
 
@@ -23,11 +24,13 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.facebook.presto.orc.OrcDecompressor.createOrcDecompressor;
 import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static org.testng.Assert.assertEquals;
 
 public class TestLongStreamV2
         extends AbstractTestValueStream<Long, LongStreamCheckpoint, LongOutputStreamV2, LongInputStreamV2>
@@ -47,6 +50,93 @@ public class TestLongStreamV2
         testWriteValue(groups);
     }
 
+    @Test
+    public void testVectorReads()
+            throws IOException
+    {
+        // mix values that are written with each of the RLEv2 sub-encodings
+        Random random = new Random(0);
+        List<Long> values = new ArrayList<>();
+        for (int run = 0; run < 200; run++) {
+            long start = random.nextInt(1_000_000) - 500_000;
+            int length = 1 + random.nextInt(600);
+            switch (run % 6) {
+                case 0:
+                    // short repeat
+                    for (int i = 0; i < Math.min(length, 10); i++) {
+                        values.add(start);
+                    }
+                    break;
+                case 1:
+                    // delta with a fixed delta
+                    for (int i = 0; i < length; i++) {
+                        values.add(start - 7 * i);
+                    }
+                    break;
+                case 2:
+                    // delta with bit packed increasing deltas
+                    for (int i = 0; i < length; i++) {
+                        start += random.nextInt(1000);
+                        values.add(start);
+                    }
+                    break;
+                case 3:
+                    // patched base: small values with a few large outliers
+                    for (int i = 0; i < length; i++) {
+                        values.add(random.nextInt(100) == 0 ? start * 1000 : start + random.nextInt(16));
+                    }
+                    break;
+                default:
+                    // direct with various bit widths
+                    int bits = 1 + random.nextInt(31);
+                    for (int i = 0; i < length; i++) {
+                        values.add((long) random.nextInt(1 << bits) - (1 << (bits - 1)));
+                    }
+            }
+        }
+
+        LongOutputStreamV2 outputStream = createValueOutputStream();
+        values.forEach(outputStream::writeLong);
+        outputStream.close();
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1000);
+        outputStream.getStreamDataOutput(33).writeData(sliceOutput);
+
+        LongInputStreamV2 valueStream = createValueStream(sliceOutput.slice());
+        int position = 0;
+        int method = 0;
+        while (position < values.size()) {
+            int items = Math.min(1 + random.nextInt(1200), values.size() - position);
+            switch (method++ % 4) {
+                case 0:
+                    long[] longVector = new long[items];
+                    valueStream.nextLongVector(items, longVector);
+                    for (int i = 0; i < items; i++) {
+                        assertEquals(longVector[i], (long) values.get(position + i), "position=" + (position + i));
+                    }
+                    break;
+                case 1:
+                    int[] intVector = new int[items + 3];
+                    valueStream.nextIntVector(items, intVector, 3);
+                    for (int i = 0; i < items; i++) {
+                        assertEquals(intVector[i + 3], (long) values.get(position + i), "position=" + (position + i));
+                    }
+                    break;
+                case 2:
+                    long expectedSum = 0;
+                    for (int i = 0; i < items; i++) {
+                        expectedSum += values.get(position + i);
+                    }
+                    assertEquals(valueStream.sum(items), expectedSum, "position=" + position);
+                    break;
+                default:
+                    for (int i = 0; i < items; i++) {
+                        assertEquals(valueStream.next(), (long) values.get(position + i), "position=" + (position + i));
+                    }
+            }
+            position += items;
+        }
+    }
+
     @Override
     protected LongOutputStreamV2 createValueOutputStream()
     {
@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.parquet;
 
+import parquet.column.statistics.Statistics;
+
 public abstract class DataPage
         extends Page
 {
@@ -28,4 +30,6 @@ public abstract class DataPage
     {
         return valueCount;
     }
+
+    public abstract Statistics<?> getStatistics();
 }
@@ -50,6 +50,7 @@ public class DataPageV1
         return slice;
     }
 
+    @Override
     public Statistics<?> getStatistics()
     {
         return statistics;
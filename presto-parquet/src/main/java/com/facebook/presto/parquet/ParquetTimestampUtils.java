@@ -21,9 +21,12 @@ import parquet.io.api.Binary;
 import java.util.concurrent.TimeUnit;
 
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static java.lang.Math.floorDiv;
+import static java.lang.Math.floorMod;
+import static java.lang.Math.toIntExact;
 
 /**
- * Utility class for decoding INT96 encoded parquet timestamp to timestamp millis in GMT.
+ * Utility class for decoding INT96 encoded parquet timestamp to timestamp millis in GMT, and for encoding it back.
  * <p>
  */
 public final class ParquetTimestampUtils
@@ -54,6 +57,28 @@ public final class ParquetTimestampUtils
         return julianDayToMillis(julianDay) + (timeOfDayNanos / NANOS_PER_MILLISECOND);
     }
 
+    /**
+     * Returns binary encoded parquet timestamp (12 bytes - julian date + time of day nanos) from GMT timestamp.
+     *
+     * @param timestampMillis timestamp in millis, GMT timezone
+     * @return INT96 parquet timestamp
+     */
+    public static Binary getTimestampBinary(long timestampMillis)
+    {
+        int julianDay = toIntExact(floorDiv(timestampMillis, MILLIS_IN_DAY) + JULIAN_EPOCH_OFFSET_DAYS);
+        long timeOfDayNanos = floorMod(timestampMillis, MILLIS_IN_DAY) * NANOS_PER_MILLISECOND;
+
+        // little endian encoding
+        byte[] bytes = new byte[12];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (timeOfDayNanos >>> (8 * i));
+        }
+        for (int i = 0; i < 4; i++) {
+            bytes[8 + i] = (byte) (julianDay >>> (8 * i));
+        }
+        return Binary.fromByteArray(bytes);
+    }
+
     private static long julianDayToMillis(int julianDay)
     {
         return (julianDay - JULIAN_EPOCH_OFFSET_DAYS) * MILLIS_IN_DAY;
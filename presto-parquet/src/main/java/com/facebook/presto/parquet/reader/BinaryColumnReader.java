@@ -14,8 +14,11 @@
 package com.facebook.presto.parquet.reader;
 
 import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.dictionary.Dictionary;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.VarbinaryType;
 import io.airlift.slice.Slice;
 import parquet.io.api.Binary;
 
@@ -38,27 +41,48 @@ public class BinaryColumnReader
     protected void readValue(BlockBuilder blockBuilder, Type type)
     {
         if (definitionLevel == columnDescriptor.getMaxDefinitionLevel()) {
-            Binary binary = valuesReader.readBytes();
-            Slice value;
-            if (binary.length() == 0) {
-                value = EMPTY_SLICE;
-            }
-            else {
-                value = wrappedBuffer(binary.getBytes());
-            }
-            if (isVarcharType(type)) {
-                value = truncateToLength(value, type);
-            }
-            if (isCharType(type)) {
-                value = truncateToLengthAndTrimSpaces(value, type);
-            }
-            type.writeSlice(blockBuilder, value);
+            type.writeSlice(blockBuilder, toSlice(valuesReader.readBytes(), type));
         }
         else if (isValueNull()) {
             blockBuilder.appendNull();
         }
     }
 
+    @Override
+    protected boolean isDictionaryBlockSupported(Type type)
+    {
+        return isVarcharType(type) || isCharType(type) || type instanceof VarbinaryType;
+    }
+
+    @Override
+    protected Block createDictionaryBlock(Dictionary dictionary, int dictionarySize, Type type)
+    {
+        BlockBuilder blockBuilder = type.createBlockBuilder(null, dictionarySize + 1);
+        for (int id = 0; id < dictionarySize; id++) {
+            type.writeSlice(blockBuilder, toSlice(dictionary.decodeToBinary(id), type));
+        }
+        blockBuilder.appendNull();
+        return blockBuilder.build();
+    }
+
+    private static Slice toSlice(Binary binary, Type type)
+    {
+        Slice value;
+        if (binary.length() == 0) {
+            value = EMPTY_SLICE;
+        }
+        else {
+            value = wrappedBuffer(binary.getBytes());
+        }
+        if (isVarcharType(type)) {
+            value = truncateToLength(value, type);
+        }
+        if (isCharType(type)) {
+            value = truncateToLengthAndTrimSpaces(value, type);
+        }
+        return value;
+    }
+
     @Override
     protected void skipValue()
     {
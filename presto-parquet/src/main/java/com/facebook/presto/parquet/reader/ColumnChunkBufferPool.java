@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.reader;
+
+import com.facebook.presto.memory.context.LocalMemoryContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Read buffers of the column chunks of a reader, reused across row groups. At most
+ * one buffer is kept per column chunk read concurrently, and all of them, free or
+ * not, are accounted in the memory context.
+ */
+class ColumnChunkBufferPool
+{
+    private final LocalMemoryContext memoryContext;
+    private final List<byte[]> freeBuffers = new ArrayList<>();
+    private long allocatedBytes;
+
+    public ColumnChunkBufferPool(LocalMemoryContext memoryContext)
+    {
+        this.memoryContext = requireNonNull(memoryContext, "memoryContext is null");
+    }
+
+    /**
+     * Returns a buffer of at least {@code size} bytes.
+     */
+    public byte[] allocate(int size)
+    {
+        int bestFit = -1;
+        for (int i = 0; i < freeBuffers.size(); i++) {
+            int length = freeBuffers.get(i).length;
+            if (length >= size && (bestFit < 0 || length < freeBuffers.get(bestFit).length)) {
+                bestFit = i;
+            }
+        }
+        if (bestFit >= 0) {
+            return freeBuffers.remove(bestFit);
+        }
+
+        // replace a free buffer that is too small, so the number of buffers does not grow
+        if (!freeBuffers.isEmpty()) {
+            allocatedBytes -= freeBuffers.remove(freeBuffers.size() - 1).length;
+        }
+        byte[] buffer = new byte[size];
+        allocatedBytes += size;
+        memoryContext.setBytes(allocatedBytes);
+        return buffer;
+    }
+
+    public void release(byte[] buffer)
+    {
+        freeBuffers.add(requireNonNull(buffer, "buffer is null"));
+    }
+
+    public long getAllocatedBytes()
+    {
+        return allocatedBytes;
+    }
+
+    public void close()
+    {
+        freeBuffers.clear();
+        allocatedBytes = 0;
+        memoryContext.close();
+    }
+}
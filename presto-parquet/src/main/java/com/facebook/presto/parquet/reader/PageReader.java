@@ -17,6 +17,8 @@ import com.facebook.presto.parquet.DataPage;
 import com.facebook.presto.parquet.DataPageV1;
 import com.facebook.presto.parquet.DataPageV2;
 import com.facebook.presto.parquet.DictionaryPage;
+import com.facebook.presto.parquet.ParquetCorruptionException;
+import parquet.hadoop.metadata.ColumnChunkMetaData;
 import parquet.hadoop.metadata.CompressionCodecName;
 
 import java.io.IOException;
@@ -24,27 +26,50 @@ import java.util.LinkedList;
 import java.util.List;
 
 import static com.facebook.presto.parquet.ParquetCompressionUtils.decompress;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+import static parquet.format.PageType.DICTIONARY_PAGE;
 
+/**
+ * Reads the pages of a column chunk on demand. Headers are read ahead of the bodies
+ * only as needed, so skipped pages are not decompressed, and the bodies of the pages
+ * of large chunks skipped after {@link #readRemainingPageHeaders()} are not fetched. A page returned by
+ * {@link #readPage()} is only valid until the next call to this reader.
+ */
 class PageReader
 {
+    // page headers are usually small, so scan them with small reads when the bodies are too large to buffer
+    private static final int PAGE_HEADER_READ_SIZE = 8 * 1024;
+
     private final CompressionCodecName codec;
+    private final ParquetColumnChunk columnChunk;
     private final long valueCount;
-    private final List<DataPage> compressedPages;
+    private final LinkedList<ParquetPageHeader> pageHeaders = new LinkedList<>();
     private final DictionaryPage compressedDictionaryPage;
 
-    public PageReader(CompressionCodecName codec,
-            List<DataPage> compressedPages,
-            DictionaryPage compressedDictionaryPage)
+    public PageReader(ParquetColumnChunk columnChunk)
+            throws IOException
     {
-        this.codec = codec;
-        this.compressedPages = new LinkedList<>(compressedPages);
-        this.compressedDictionaryPage = compressedDictionaryPage;
-        int count = 0;
-        for (DataPage page : compressedPages) {
-            count += page.getValueCount();
+        this.columnChunk = requireNonNull(columnChunk, "columnChunk is null");
+        ColumnChunkMetaData metadata = columnChunk.getDescriptor().getColumnChunkMetaData();
+        this.codec = metadata.getCodec();
+        this.valueCount = metadata.getValueCount();
+
+        DictionaryPage dictionaryPage = null;
+        if (columnChunk.hasNextPage()) {
+            ParquetPageHeader pageHeader = columnChunk.readNextPageHeader(columnChunk.getMaxReadSize());
+            if (pageHeader.getType() == DICTIONARY_PAGE) {
+                // the body is in the read buffer, which is reused for the data pages
+                dictionaryPage = columnChunk.readDictionaryPage(pageHeader).copy();
+            }
+            else {
+                pageHeaders.add(pageHeader);
+            }
         }
-        this.valueCount = count;
+        this.compressedDictionaryPage = dictionaryPage;
     }
 
     public long getTotalValueCount()
@@ -52,12 +77,71 @@ class PageReader
         return valueCount;
     }
 
+    /**
+     * Reads the headers of all the remaining data pages, in order. When the rest of the chunk
+     * fits in a read window, it is read whole, and the headers are parsed from the buffered
+     * window, so the pages need no second read. Otherwise only the headers are read, with
+     * small reads, until the rest of the chunk fits in a window.
+     */
+    public List<ParquetPageHeader> readRemainingPageHeaders()
+            throws IOException
+    {
+        int maxReadSize = columnChunk.getMaxReadSize();
+        while (columnChunk.hasNextPage()) {
+            int readSize = columnChunk.getRemainingSize() <= maxReadSize ? maxReadSize : min(PAGE_HEADER_READ_SIZE, maxReadSize);
+            ParquetPageHeader pageHeader = columnChunk.readNextPageHeader(readSize);
+            if (pageHeader.getType() == DICTIONARY_PAGE) {
+                throw new ParquetCorruptionException("%s has more than one dictionary page in column chunk", columnChunk.getDescriptor().getColumnDescriptor());
+            }
+            pageHeaders.add(pageHeader);
+        }
+        return unmodifiableList(pageHeaders);
+    }
+
+    /**
+     * Returns the value count of the next data page, or 0 if there are no pages left.
+     */
+    public int getNextPageValueCount()
+            throws IOException
+    {
+        ParquetPageHeader pageHeader = peekPageHeader();
+        return pageHeader == null ? 0 : pageHeader.getValueCount();
+    }
+
+    /**
+     * Drops the next data page without reading its body, and returns its value count.
+     */
+    public int skipPage()
+            throws IOException
+    {
+        ParquetPageHeader pageHeader = peekPageHeader();
+        checkState(pageHeader != null, "no pages left");
+        pageHeaders.removeFirst();
+        return pageHeader.getValueCount();
+    }
+
+    private ParquetPageHeader peekPageHeader()
+            throws IOException
+    {
+        if (pageHeaders.isEmpty() && columnChunk.hasNextPage()) {
+            ParquetPageHeader pageHeader = columnChunk.readNextPageHeader(columnChunk.getMaxReadSize());
+            if (pageHeader.getType() == DICTIONARY_PAGE) {
+                throw new ParquetCorruptionException("%s has more than one dictionary page in column chunk", columnChunk.getDescriptor().getColumnDescriptor());
+            }
+            pageHeaders.add(pageHeader);
+        }
+        return pageHeaders.peekFirst();
+    }
+
     public DataPage readPage()
+            throws IOException
     {
-        if (compressedPages.isEmpty()) {
+        ParquetPageHeader pageHeader = peekPageHeader();
+        if (pageHeader == null) {
             return null;
         }
-        DataPage compressedPage = compressedPages.remove(0);
+        pageHeaders.removeFirst();
+        DataPage compressedPage = columnChunk.readDataPage(pageHeader);
         try {
             if (compressedPage instanceof DataPageV1) {
                 DataPageV1 dataPageV1 = (DataPageV1) compressedPage;
@@ -111,4 +195,9 @@ class PageReader
             throw new RuntimeException("Error reading dictionary page", e);
         }
     }
+
+    public void close()
+    {
+        columnChunk.close();
+    }
 }
@@ -18,6 +18,7 @@ import com.facebook.presto.parquet.DataPageV1;
 import com.facebook.presto.parquet.DataPageV2;
 import com.facebook.presto.parquet.DictionaryPage;
 import com.facebook.presto.parquet.ParquetCorruptionException;
+import com.facebook.presto.parquet.ParquetDataSource;
 import io.airlift.slice.Slice;
 import parquet.column.Encoding;
 import parquet.format.DataPageHeader;
@@ -25,28 +26,57 @@ import parquet.format.DataPageHeaderV2;
 import parquet.format.DictionaryPageHeader;
 import parquet.format.PageHeader;
 import parquet.format.Util;
+import parquet.hadoop.metadata.ColumnChunkMetaData;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.InputStream;
 
 import static com.facebook.presto.parquet.ParquetTypeUtils.getParquetEncoding;
+import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
 
+/**
+ * Reads the pages of a column chunk incrementally. The chunk is read from the data source
+ * in pieces of at least {@code maxReadSize} bytes into a single buffer from the pool, so
+ * only the current piece is held in memory. Pages returned by this class point into the
+ * buffer, and are only valid until the next read.
+ */
 public class ParquetColumnChunk
-        extends ByteArrayInputStream
 {
+    private static final byte[] EMPTY_BUFFER = new byte[0];
+
     private final ColumnChunkDescriptor descriptor;
+    private final ParquetDataSource dataSource;
+    private final ColumnChunkBufferPool bufferPool;
+    private final int maxReadSize;
+    private final long chunkEnd;
+
+    private byte[] buffer = EMPTY_BUFFER;
+    private long bufferPosition;
+    private int bufferLength;
 
-    public ParquetColumnChunk(
+    private long nextPagePosition;
+    private long dataValueCount;
+
+    ParquetColumnChunk(
             ColumnChunkDescriptor descriptor,
-            byte[] data,
-            int offset)
+            ParquetDataSource dataSource,
+            ColumnChunkBufferPool bufferPool,
+            int maxReadSize)
     {
-        super(data);
-        this.descriptor = descriptor;
-        this.pos = offset;
+        this.descriptor = requireNonNull(descriptor, "descriptor is null");
+        this.dataSource = requireNonNull(dataSource, "dataSource is null");
+        this.bufferPool = requireNonNull(bufferPool, "bufferPool is null");
+        checkArgument(maxReadSize > 0, "maxReadSize must be positive");
+        this.maxReadSize = maxReadSize;
+
+        ColumnChunkMetaData metadata = descriptor.getColumnChunkMetaData();
+        this.nextPagePosition = metadata.getStartingPos();
+        this.chunkEnd = metadata.getStartingPos() + descriptor.getSize();
     }
 
     public ColumnChunkDescriptor getDescriptor()
@@ -54,104 +84,192 @@ public class ParquetColumnChunk
         return descriptor;
     }
 
-    protected PageHeader readPageHeader()
-            throws IOException
+    public boolean hasNextPage()
     {
-        return Util.readPageHeader(this);
+        return dataValueCount < descriptor.getColumnChunkMetaData().getValueCount() && nextPagePosition < chunkEnd;
     }
 
-    public PageReader readAllPages()
+    /**
+     * Reads the header of the next dictionary or data page, without reading its body.
+     *
+     * @param readSize the minimum size of a read, when the header is not buffered already
+     */
+    public ParquetPageHeader readNextPageHeader(int readSize)
             throws IOException
     {
-        List<DataPage> pages = new ArrayList<>();
-        DictionaryPage dictionaryPage = null;
-        long valueCount = 0;
-        while (valueCount < descriptor.getColumnChunkMetaData().getValueCount()) {
-            PageHeader pageHeader = readPageHeader();
-            int uncompressedPageSize = pageHeader.getUncompressed_page_size();
-            int compressedPageSize = pageHeader.getCompressed_page_size();
-            switch (pageHeader.type) {
+        while (true) {
+            ChunkInputStream input = new ChunkInputStream(nextPagePosition, readSize);
+            PageHeader header = Util.readPageHeader(input);
+            ParquetPageHeader pageHeader = new ParquetPageHeader(header, input.getPosition());
+            nextPagePosition = input.getPosition() + pageHeader.getCompressedSize();
+            if (nextPagePosition > chunkEnd) {
+                throw new ParquetCorruptionException("Page of %s ends after the end of the column chunk", descriptor.getColumnDescriptor());
+            }
+
+            switch (header.getType()) {
                 case DICTIONARY_PAGE:
-                    if (dictionaryPage != null) {
-                        throw new ParquetCorruptionException("%s has more than one dictionary page in column chunk", descriptor.getColumnDescriptor());
-                    }
-                    dictionaryPage = readDictionaryPage(pageHeader, uncompressedPageSize, compressedPageSize);
-                    break;
+                    return pageHeader;
                 case DATA_PAGE:
-                    valueCount += readDataPageV1(pageHeader, uncompressedPageSize, compressedPageSize, pages);
-                    break;
                 case DATA_PAGE_V2:
-                    valueCount += readDataPageV2(pageHeader, uncompressedPageSize, compressedPageSize, pages);
-                    break;
+                    dataValueCount += pageHeader.getValueCount();
+                    return pageHeader;
                 default:
-                    skip(compressedPageSize);
-                    break;
+                    if (!hasNextPage()) {
+                        throw new ParquetCorruptionException("%s has no data page after a page of type %s", descriptor.getColumnDescriptor(), header.getType());
+                    }
             }
         }
-        return new PageReader(descriptor.getColumnChunkMetaData().getCodec(), pages, dictionaryPage);
     }
 
-    public int getPosition()
+    public int getMaxReadSize()
     {
-        return pos;
+        return maxReadSize;
     }
 
-    private Slice getSlice(int size)
+    /**
+     * Returns the size of the part of the chunk after the last page header read.
+     */
+    public long getRemainingSize()
     {
-        Slice slice = wrappedBuffer(buf, pos, size);
-        pos += size;
-        return slice;
+        return chunkEnd - nextPagePosition;
     }
 
-    private DictionaryPage readDictionaryPage(PageHeader pageHeader, int uncompressedPageSize, int compressedPageSize)
+    public DictionaryPage readDictionaryPage(ParquetPageHeader pageHeader)
+            throws IOException
     {
-        DictionaryPageHeader dicHeader = pageHeader.getDictionary_page_header();
+        PageHeader header = pageHeader.getHeader();
+        DictionaryPageHeader dicHeader = header.getDictionary_page_header();
         return new DictionaryPage(
-                getSlice(compressedPageSize),
-                uncompressedPageSize,
+                readBody(pageHeader.getBodyPosition(), pageHeader.getCompressedSize()),
+                header.getUncompressed_page_size(),
                 dicHeader.getNum_values(),
                 getParquetEncoding(Encoding.valueOf(dicHeader.getEncoding().name())));
     }
 
-    private long readDataPageV1(PageHeader pageHeader,
-            int uncompressedPageSize,
-            int compressedPageSize,
-            List<DataPage> pages)
+    public DataPage readDataPage(ParquetPageHeader pageHeader)
+            throws IOException
+    {
+        PageHeader header = pageHeader.getHeader();
+        Slice body = readBody(pageHeader.getBodyPosition(), pageHeader.getCompressedSize());
+        switch (header.getType()) {
+            case DATA_PAGE:
+                DataPageHeader dataHeaderV1 = header.getData_page_header();
+                return new DataPageV1(
+                        body,
+                        dataHeaderV1.getNum_values(),
+                        header.getUncompressed_page_size(),
+                        pageHeader.getStatistics(descriptor.getColumnDescriptor().getType()),
+                        getParquetEncoding(Encoding.valueOf(dataHeaderV1.getRepetition_level_encoding().name())),
+                        getParquetEncoding(Encoding.valueOf(dataHeaderV1.getDefinition_level_encoding().name())),
+                        getParquetEncoding(Encoding.valueOf(dataHeaderV1.getEncoding().name())));
+            case DATA_PAGE_V2:
+                DataPageHeaderV2 dataHeaderV2 = header.getData_page_header_v2();
+                int repetitionLevelsLength = dataHeaderV2.getRepetition_levels_byte_length();
+                int definitionLevelsLength = dataHeaderV2.getDefinition_levels_byte_length();
+                int dataOffset = repetitionLevelsLength + definitionLevelsLength;
+                return new DataPageV2(
+                        dataHeaderV2.getNum_rows(),
+                        dataHeaderV2.getNum_nulls(),
+                        dataHeaderV2.getNum_values(),
+                        body.slice(0, repetitionLevelsLength),
+                        body.slice(repetitionLevelsLength, definitionLevelsLength),
+                        getParquetEncoding(Encoding.valueOf(dataHeaderV2.getEncoding().name())),
+                        body.slice(dataOffset, body.length() - dataOffset),
+                        header.getUncompressed_page_size(),
+                        pageHeader.getStatistics(descriptor.getColumnDescriptor().getType()),
+                        dataHeaderV2.isIs_compressed());
+            default:
+                throw new ParquetCorruptionException("%s is not a data page in %s", header.getType(), descriptor.getColumnDescriptor());
+        }
+    }
+
+    private Slice readBody(long position, int length)
+            throws IOException
     {
-        DataPageHeader dataHeaderV1 = pageHeader.getData_page_header();
-        pages.add(new DataPageV1(
-                getSlice(compressedPageSize),
-                dataHeaderV1.getNum_values(),
-                uncompressedPageSize,
-                MetadataReader.readStats(
-                        dataHeaderV1.getStatistics(),
-                        descriptor.getColumnDescriptor().getType()),
-                getParquetEncoding(Encoding.valueOf(dataHeaderV1.getRepetition_level_encoding().name())),
-                getParquetEncoding(Encoding.valueOf(dataHeaderV1.getDefinition_level_encoding().name())),
-                getParquetEncoding(Encoding.valueOf(dataHeaderV1.getEncoding().name()))));
-        return dataHeaderV1.getNum_values();
+        ensureBuffered(position, length, maxReadSize);
+        return wrappedBuffer(buffer, toIntExact(position - bufferPosition), length);
     }
 
-    private long readDataPageV2(PageHeader pageHeader,
-            int uncompressedPageSize,
-            int compressedPageSize,
-            List<DataPage> pages)
+    private void ensureBuffered(long position, int length, int readSize)
+            throws IOException
     {
-        DataPageHeaderV2 dataHeaderV2 = pageHeader.getData_page_header_v2();
-        int dataSize = compressedPageSize - dataHeaderV2.getRepetition_levels_byte_length() - dataHeaderV2.getDefinition_levels_byte_length();
-        pages.add(new DataPageV2(
-                dataHeaderV2.getNum_rows(),
-                dataHeaderV2.getNum_nulls(),
-                dataHeaderV2.getNum_values(),
-                getSlice(dataHeaderV2.getRepetition_levels_byte_length()),
-                getSlice(dataHeaderV2.getDefinition_levels_byte_length()),
-                getParquetEncoding(Encoding.valueOf(dataHeaderV2.getEncoding().name())),
-                getSlice(dataSize),
-                uncompressedPageSize,
-                MetadataReader.readStats(
-                        dataHeaderV2.getStatistics(),
-                        descriptor.getColumnDescriptor().getType()),
-                dataHeaderV2.isIs_compressed()));
-        return dataHeaderV2.getNum_values();
+        if (position >= bufferPosition && position + length <= bufferPosition + bufferLength) {
+            return;
+        }
+        if (position + length > chunkEnd) {
+            throw new ParquetCorruptionException("Read past the end of the column chunk of %s", descriptor.getColumnDescriptor());
+        }
+
+        int size = toIntExact(min(chunkEnd - position, max(length, readSize)));
+        if (buffer.length < size) {
+            if (buffer != EMPTY_BUFFER) {
+                bufferPool.release(buffer);
+            }
+            buffer = bufferPool.allocate(size);
+        }
+        dataSource.readFully(position, buffer, 0, size);
+        bufferPosition = position;
+        bufferLength = size;
+    }
+
+    /**
+     * Returns the read buffer to the pool.
+     */
+    public void close()
+    {
+        if (buffer != EMPTY_BUFFER) {
+            bufferPool.release(buffer);
+            buffer = EMPTY_BUFFER;
+            bufferLength = 0;
+        }
+    }
+
+    private class ChunkInputStream
+            extends InputStream
+    {
+        private final int readSize;
+        private long position;
+
+        public ChunkInputStream(long position, int readSize)
+        {
+            this.position = position;
+            this.readSize = readSize;
+        }
+
+        public long getPosition()
+        {
+            return position;
+        }
+
+        @Override
+        public int read()
+                throws IOException
+        {
+            if (position >= chunkEnd) {
+                return -1;
+            }
+            ensureBuffered(position, 1, readSize);
+            int value = buffer[toIntExact(position - bufferPosition)] & 0xFF;
+            position++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length)
+                throws IOException
+        {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= chunkEnd) {
+                return -1;
+            }
+            ensureBuffered(position, 1, readSize);
+            int bufferOffset = toIntExact(position - bufferPosition);
+            int count = min(length, bufferLength - bufferOffset);
+            System.arraycopy(buffer, bufferOffset, bytes, offset, count);
+            position += count;
+            return count;
+        }
     }
 }
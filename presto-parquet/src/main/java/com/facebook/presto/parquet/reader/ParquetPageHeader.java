@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.reader;
+
+import parquet.column.statistics.Statistics;
+import parquet.format.PageHeader;
+import parquet.format.PageType;
+import parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Header of a page in a column chunk, and the position of its body in the file.
+ */
+class ParquetPageHeader
+{
+    private final PageHeader header;
+    private final long bodyPosition;
+
+    public ParquetPageHeader(PageHeader header, long bodyPosition)
+    {
+        this.header = requireNonNull(header, "header is null");
+        this.bodyPosition = bodyPosition;
+    }
+
+    public PageHeader getHeader()
+    {
+        return header;
+    }
+
+    public PageType getType()
+    {
+        return header.getType();
+    }
+
+    public long getBodyPosition()
+    {
+        return bodyPosition;
+    }
+
+    public int getCompressedSize()
+    {
+        return header.getCompressed_page_size();
+    }
+
+    public int getValueCount()
+    {
+        switch (header.getType()) {
+            case DATA_PAGE:
+                return header.getData_page_header().getNum_values();
+            case DATA_PAGE_V2:
+                return header.getData_page_header_v2().getNum_values();
+            case DICTIONARY_PAGE:
+                return header.getDictionary_page_header().getNum_values();
+            default:
+                return 0;
+        }
+    }
+
+    public Statistics<?> getStatistics(PrimitiveTypeName type)
+    {
+        switch (header.getType()) {
+            case DATA_PAGE:
+                return MetadataReader.readStats(header.getData_page_header().getStatistics(), type);
+            case DATA_PAGE_V2:
+                return MetadataReader.readStats(header.getData_page_header_v2().getStatistics(), type);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("type", header.getType())
+                .add("valueCount", getValueCount())
+                .add("compressedSize", getCompressedSize())
+                .add("bodyPosition", bodyPosition)
+                .toString();
+    }
+}
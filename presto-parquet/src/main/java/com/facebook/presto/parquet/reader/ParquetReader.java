@@ -14,25 +14,30 @@
 package com.facebook.presto.parquet.reader;
 
 import com.facebook.presto.memory.context.AggregatedMemoryContext;
-import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.parquet.Field;
 import com.facebook.presto.parquet.GroupField;
 import com.facebook.presto.parquet.ParquetCorruptionException;
 import com.facebook.presto.parquet.ParquetDataSource;
 import com.facebook.presto.parquet.PrimitiveField;
 import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.predicate.Predicate;
 import com.facebook.presto.spi.block.ArrayBlock;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.RowBlock;
 import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.MapType;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeSignatureParameter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.DataSize;
 import it.unimi.dsi.fastutil.booleans.BooleanArrayList;
 import it.unimi.dsi.fastutil.booleans.BooleanList;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import parquet.column.ColumnDescriptor;
+import parquet.column.statistics.Statistics;
 import parquet.hadoop.metadata.BlockMetaData;
 import parquet.hadoop.metadata.ColumnChunkMetaData;
 import parquet.hadoop.metadata.ColumnPath;
@@ -41,9 +46,10 @@ import parquet.io.PrimitiveColumnIO;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.facebook.presto.parquet.ParquetValidationUtils.validateParquet;
 import static com.facebook.presto.parquet.reader.ListColumnReader.calculateCollectionOffsets;
@@ -51,6 +57,8 @@ import static com.facebook.presto.spi.type.StandardTypes.ARRAY;
 import static com.facebook.presto.spi.type.StandardTypes.MAP;
 import static com.facebook.presto.spi.type.StandardTypes.ROW;
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
@@ -59,31 +67,59 @@ public class ParquetReader
         implements Closeable
 {
     private static final int MAX_VECTOR_LENGTH = 1024;
+    private static final DataSize DEFAULT_MAX_READ_SIZE = new DataSize(1, MEGABYTE);
 
     private final List<BlockMetaData> blocks;
     private final List<PrimitiveColumnIO> columns;
     private final ParquetDataSource dataSource;
     private final AggregatedMemoryContext systemMemoryContext;
+    private final Predicate parquetPredicate;
+    private final Set<ColumnDescriptor> predicateColumns;
+    private final ColumnChunkBufferPool bufferPool;
+    private final int maxReadSize;
 
     private int currentBlock;
     private BlockMetaData currentBlockMetadata;
     private long currentPosition;
     private long currentGroupRowCount;
     private long nextRowInGroup;
+    private RowRanges currentRowRanges = RowRanges.EMPTY;
+    private int currentRange;
     private int batchSize;
     private final PrimitiveColumnReader[] columnReaders;
 
-    private AggregatedMemoryContext currentRowGroupMemoryContext;
-
     public ParquetReader(MessageColumnIO messageColumnIO,
             List<BlockMetaData> blocks,
             ParquetDataSource dataSource,
             AggregatedMemoryContext systemMemoryContext)
+    {
+        this(messageColumnIO, blocks, dataSource, systemMemoryContext, DEFAULT_MAX_READ_SIZE, Predicate.TRUE, TupleDomain.all());
+    }
+
+    /**
+     * Column chunks are read in pieces of {@code maxReadSize}, or of the page size when
+     * pages are larger. Pages of the columns constrained by {@code parquetTupleDomain}
+     * are matched against {@code parquetPredicate} using the statistics in their headers,
+     * and rows of the pages that do not match are skipped in all columns.
+     */
+    public ParquetReader(MessageColumnIO messageColumnIO,
+            List<BlockMetaData> blocks,
+            ParquetDataSource dataSource,
+            AggregatedMemoryContext systemMemoryContext,
+            DataSize maxReadSize,
+            Predicate parquetPredicate,
+            TupleDomain<ColumnDescriptor> parquetTupleDomain)
     {
         this.blocks = blocks;
         this.dataSource = requireNonNull(dataSource, "dataSource is null");
         this.systemMemoryContext = requireNonNull(systemMemoryContext, "systemMemoryContext is null");
-        this.currentRowGroupMemoryContext = systemMemoryContext.newAggregatedMemoryContext();
+        this.bufferPool = new ColumnChunkBufferPool(systemMemoryContext.newLocalMemoryContext(ParquetReader.class.getSimpleName()));
+        this.maxReadSize = toIntExact(requireNonNull(maxReadSize, "maxReadSize is null").toBytes());
+        this.parquetPredicate = requireNonNull(parquetPredicate, "parquetPredicate is null");
+        requireNonNull(parquetTupleDomain, "parquetTupleDomain is null");
+        this.predicateColumns = parquetTupleDomain.getDomains()
+                .map(domains -> ImmutableSet.copyOf(domains.keySet()))
+                .orElse(ImmutableSet.of());
         columns = messageColumnIO.getLeaves();
         columnReaders = new PrimitiveColumnReader[columns.size()];
     }
@@ -92,7 +128,8 @@ public class ParquetReader
     public void close()
             throws IOException
     {
-        currentRowGroupMemoryContext.close();
+        closeColumnChunks();
+        bufferPool.close();
         dataSource.close();
     }
 
@@ -103,23 +140,38 @@ public class ParquetReader
 
     public int nextBatch()
     {
-        if (nextRowInGroup >= currentGroupRowCount && !advanceToNextRowGroup()) {
-            return -1;
+        while (currentRange >= currentRowRanges.getRangeCount()) {
+            if (!advanceToNextRowGroup()) {
+                return -1;
+            }
         }
 
-        batchSize = toIntExact(min(MAX_VECTOR_LENGTH, currentGroupRowCount - nextRowInGroup));
+        long rangeStart = currentRowRanges.getStart(currentRange);
+        long rangeEnd = currentRowRanges.getEnd(currentRange);
+        int skippedRows = toIntExact(max(0, rangeStart - nextRowInGroup));
+        batchSize = toIntExact(min(MAX_VECTOR_LENGTH, rangeEnd - nextRowInGroup - skippedRows));
 
-        nextRowInGroup += batchSize;
-        currentPosition += batchSize;
-        Arrays.stream(columnReaders)
-                .forEach(reader -> reader.prepareNextRead(batchSize));
+        nextRowInGroup += skippedRows + batchSize;
+        currentPosition += skippedRows + batchSize;
+        if (nextRowInGroup == rangeEnd) {
+            currentRange++;
+        }
+        for (PrimitiveColumnReader reader : columnReaders) {
+            if (skippedRows > 0) {
+                reader.skipRows(skippedRows);
+            }
+            reader.prepareNextRead(batchSize);
+        }
         return batchSize;
     }
 
     private boolean advanceToNextRowGroup()
     {
-        currentRowGroupMemoryContext.close();
-        currentRowGroupMemoryContext = systemMemoryContext.newAggregatedMemoryContext();
+        // rows at the end of the previous row group skipped using page statistics
+        currentPosition += currentGroupRowCount - nextRowInGroup;
+        nextRowInGroup = currentGroupRowCount;
+
+        closeColumnChunks();
 
         if (currentBlock == blocks.size()) {
             return false;
@@ -130,9 +182,53 @@ public class ParquetReader
         nextRowInGroup = 0L;
         currentGroupRowCount = currentBlockMetadata.getRowCount();
         initializeColumnReaders();
+        try {
+            currentRowRanges = getRowRanges();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        currentRange = 0;
         return true;
     }
 
+    /**
+     * Returns the rows of the current row group in pages that match the predicate
+     * in all the predicate columns. Only the page headers of the predicate columns
+     * are read here, so the bodies of pages that do not match are never fetched.
+     */
+    private RowRanges getRowRanges()
+            throws IOException
+    {
+        RowRanges rowRanges = RowRanges.all(currentGroupRowCount);
+        for (PrimitiveColumnIO columnIO : columns) {
+            ColumnDescriptor columnDescriptor = columnIO.getColumnDescriptor();
+            // pages of repeated columns do not start at row boundaries
+            if (columnDescriptor.getMaxRepetitionLevel() != 0 || !predicateColumns.contains(columnDescriptor)) {
+                continue;
+            }
+
+            PrimitiveColumnReader columnReader = columnReaders[columnIO.getId()];
+            columnReader.setPageReader(createPageReader(columnDescriptor));
+
+            RowRanges.Builder pageRanges = RowRanges.builder();
+            long pageStart = 0;
+            for (ParquetPageHeader page : columnReader.getPageReader().readRemainingPageHeaders()) {
+                long pageEnd = pageStart + page.getValueCount();
+                Statistics<?> statistics = page.getStatistics(columnDescriptor.getType());
+                if (statistics == null || parquetPredicate.matches(page.getValueCount(), ImmutableMap.of(columnDescriptor, statistics))) {
+                    pageRanges.add(pageStart, pageEnd);
+                }
+                pageStart = pageEnd;
+            }
+            rowRanges = rowRanges.intersect(pageRanges.build());
+            if (rowRanges.getRangeCount() == 0) {
+                break;
+            }
+        }
+        return rowRanges;
+    }
+
     private ColumnChunk readArray(GroupField field)
             throws IOException
     {
@@ -196,25 +292,27 @@ public class ParquetReader
         ColumnDescriptor columnDescriptor = field.getDescriptor();
         PrimitiveColumnReader columnReader = columnReaders[field.getId()];
         if (columnReader.getPageReader() == null) {
-            validateParquet(currentBlockMetadata.getRowCount() > 0, "Row group has 0 rows");
-            ColumnChunkMetaData metadata = getColumnChunkMetaData(columnDescriptor);
-            long startingPosition = metadata.getStartingPos();
-            int totalSize = toIntExact(metadata.getTotalSize());
-            byte[] buffer = allocateBlock(totalSize);
-            dataSource.readFully(startingPosition, buffer);
-            ColumnChunkDescriptor descriptor = new ColumnChunkDescriptor(columnDescriptor, metadata, totalSize);
-            ParquetColumnChunk columnChunk = new ParquetColumnChunk(descriptor, buffer, 0);
-            columnReader.setPageReader(columnChunk.readAllPages());
+            columnReader.setPageReader(createPageReader(columnDescriptor));
         }
         return columnReader.readPrimitive(field);
     }
 
-    private byte[] allocateBlock(int length)
+    private PageReader createPageReader(ColumnDescriptor columnDescriptor)
+            throws IOException
     {
-        byte[] buffer = new byte[length];
-        LocalMemoryContext blockMemoryContext = currentRowGroupMemoryContext.newLocalMemoryContext(ParquetReader.class.getSimpleName());
-        blockMemoryContext.setBytes(buffer.length);
-        return buffer;
+        validateParquet(currentBlockMetadata.getRowCount() > 0, "Row group has 0 rows");
+        ColumnChunkMetaData metadata = getColumnChunkMetaData(columnDescriptor);
+        ColumnChunkDescriptor descriptor = new ColumnChunkDescriptor(columnDescriptor, metadata, toIntExact(metadata.getTotalSize()));
+        return new PageReader(new ParquetColumnChunk(descriptor, dataSource, bufferPool, maxReadSize));
+    }
+
+    private void closeColumnChunks()
+    {
+        for (PrimitiveColumnReader columnReader : columnReaders) {
+            if (columnReader != null && columnReader.getPageReader() != null) {
+                columnReader.getPageReader().close();
+            }
+        }
     }
 
     private ColumnChunkMetaData getColumnChunkMetaData(ColumnDescriptor columnDescriptor)
@@ -22,8 +22,11 @@ import com.facebook.presto.parquet.ParquetEncoding;
 import com.facebook.presto.parquet.ParquetTypeUtils;
 import com.facebook.presto.parquet.RichColumnDescriptor;
 import com.facebook.presto.parquet.dictionary.Dictionary;
+import com.facebook.presto.parquet.dictionary.DictionaryReader;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.DictionaryBlock;
 import com.facebook.presto.spi.type.DecimalType;
 import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
@@ -53,6 +56,8 @@ public abstract class PrimitiveColumnReader
 {
     private static final int EMPTY_LEVEL_VALUE = -1;
     protected final RichColumnDescriptor columnDescriptor;
+    // every value is a row, so whole pages can be skipped by their value count
+    private final boolean flat;
 
     protected int definitionLevel = EMPTY_LEVEL_VALUE;
     protected int repetitionLevel = EMPTY_LEVEL_VALUE;
@@ -64,6 +69,9 @@ public abstract class PrimitiveColumnReader
     private long totalValueCount;
     private PageReader pageReader;
     private Dictionary dictionary;
+    private int dictionarySize;
+    // values of the dictionary of the column chunk, shared by all dictionary blocks read from it
+    private Block dictionaryBlock;
     private int currentValueCount;
     private DataPage page;
     private int remainingValueCountInPage;
@@ -73,6 +81,23 @@ public abstract class PrimitiveColumnReader
 
     protected abstract void skipValue();
 
+    /**
+     * Whether values of the type in dictionary encoded pages can be returned as a
+     * {@link DictionaryBlock} over {@link #createDictionaryBlock}.
+     */
+    protected boolean isDictionaryBlockSupported(Type type)
+    {
+        return false;
+    }
+
+    /**
+     * Creates a block with the values of the dictionary, followed by a null.
+     */
+    protected Block createDictionaryBlock(Dictionary dictionary, int dictionarySize, Type type)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     protected boolean isValueNull()
     {
         return ParquetTypeUtils.isValueNull(columnDescriptor.isRequired(), definitionLevel, columnDescriptor.getMaxDefinitionLevel());
@@ -116,6 +141,7 @@ public abstract class PrimitiveColumnReader
     public PrimitiveColumnReader(RichColumnDescriptor columnDescriptor)
     {
         this.columnDescriptor = requireNonNull(columnDescriptor, "columnDescriptor");
+        this.flat = columnDescriptor.getMaxRepetitionLevel() == 0;
         pageReader = null;
     }
 
@@ -132,6 +158,7 @@ public abstract class PrimitiveColumnReader
         if (dictionaryPage != null) {
             try {
                 dictionary = dictionaryPage.getEncoding().initDictionary(columnDescriptor, dictionaryPage);
+                dictionarySize = dictionaryPage.getDictionarySize();
             }
             catch (IOException e) {
                 throw new ParquetDecodingException("could not decode the dictionary for " + columnDescriptor, e);
@@ -139,7 +166,9 @@ public abstract class PrimitiveColumnReader
         }
         else {
             dictionary = null;
+            dictionarySize = 0;
         }
+        dictionaryBlock = null;
         checkArgument(pageReader.getTotalValueCount() > 0, "page is empty");
         totalValueCount = pageReader.getTotalValueCount();
     }
@@ -150,6 +179,15 @@ public abstract class PrimitiveColumnReader
         nextBatchSize = batchSize;
     }
 
+    /**
+     * Skips rows before the next batch. Whole pages of flat columns within the
+     * skipped rows are neither decompressed nor decoded.
+     */
+    public void skipRows(int rowCount)
+    {
+        readOffset = readOffset + rowCount;
+    }
+
     public ColumnDescriptor getDescriptor()
     {
         return columnDescriptor;
@@ -161,24 +199,80 @@ public abstract class PrimitiveColumnReader
         IntList definitionLevels = new IntArrayList();
         IntList repetitionLevels = new IntArrayList();
         seek();
-        BlockBuilder blockBuilder = field.getType().createBlockBuilder(null, nextBatchSize);
+        Type type = field.getType();
+        // dictionary encoded values are read as ids, until a page of the batch is not dictionary encoded
+        int[] dictionaryIds = null;
+        BlockBuilder blockBuilder = null;
+        if (isDictionaryBlockSupported(type) && dictionary != null && flat && columnDescriptor.getMaxDefinitionLevel() <= 1) {
+            dictionaryIds = new int[nextBatchSize];
+        }
+        else {
+            blockBuilder = type.createBlockBuilder(null, nextBatchSize);
+        }
         int valueCount = 0;
         while (valueCount < nextBatchSize) {
             if (page == null) {
                 readNextPage();
             }
             int valuesToRead = Math.min(remainingValueCountInPage, nextBatchSize - valueCount);
-            readValues(blockBuilder, valuesToRead, field.getType(), definitionLevels, repetitionLevels);
+            if (dictionaryIds != null && !(valuesReader instanceof DictionaryReader)) {
+                blockBuilder = type.createBlockBuilder(null, nextBatchSize);
+                Block dictionaryBlock = getDictionaryBlock(type);
+                for (int position = 0; position < valueCount; position++) {
+                    type.appendTo(dictionaryBlock, dictionaryIds[position], blockBuilder);
+                }
+                dictionaryIds = null;
+            }
+            if (dictionaryIds != null) {
+                readDictionaryIds(dictionaryIds, valuesToRead, definitionLevels, repetitionLevels);
+            }
+            else {
+                readValues(blockBuilder, valuesToRead, type, definitionLevels, repetitionLevels);
+            }
             valueCount += valuesToRead;
         }
         checkArgument(valueCount == nextBatchSize, "valueCount %s not equals to batchSize %s", valueCount, nextBatchSize);
 
+        Block block;
+        if (dictionaryIds != null) {
+            block = new DictionaryBlock(nextBatchSize, getDictionaryBlock(type), dictionaryIds);
+        }
+        else {
+            block = blockBuilder.build();
+        }
         readOffset = 0;
         nextBatchSize = 0;
-        return new ColumnChunk(blockBuilder.build(), definitionLevels.toIntArray(), repetitionLevels.toIntArray());
+        return new ColumnChunk(block, definitionLevels.toIntArray(), repetitionLevels.toIntArray());
+    }
+
+    private Block getDictionaryBlock(Type type)
+    {
+        if (dictionaryBlock == null) {
+            dictionaryBlock = createDictionaryBlock(dictionary, dictionarySize, type);
+        }
+        return dictionaryBlock;
+    }
+
+    private void readDictionaryIds(int[] dictionaryIds, int valuesToRead, IntList definitionLevels, IntList repetitionLevels)
+            throws IOException
+    {
+        // the column is flat and not nested, so there is one level for each position, and pages end at the last value
+        DictionaryReader dictionaryReader = (DictionaryReader) valuesReader;
+        processValues(valuesToRead, ignored -> {
+            int position = definitionLevels.size();
+            if (definitionLevel == columnDescriptor.getMaxDefinitionLevel()) {
+                dictionaryIds[position] = dictionaryReader.readValueDictionaryId();
+            }
+            else {
+                dictionaryIds[position] = dictionarySize;
+            }
+            definitionLevels.add(definitionLevel);
+            repetitionLevels.add(repetitionLevel);
+        });
     }
 
     private void readValues(BlockBuilder blockBuilder, int valuesToRead, Type type, IntList definitionLevels, IntList repetitionLevels)
+            throws IOException
     {
         processValues(valuesToRead, ignored -> {
             readValue(blockBuilder, type);
@@ -188,11 +282,13 @@ public abstract class PrimitiveColumnReader
     }
 
     private void skipValues(int valuesToRead)
+            throws IOException
     {
         processValues(valuesToRead, ignored -> skipValue());
     }
 
     private void processValues(int valuesToRead, Consumer<Void> valueConsumer)
+            throws IOException
     {
         if (definitionLevel == EMPTY_LEVEL_VALUE && repetitionLevel == EMPTY_LEVEL_VALUE) {
             definitionLevel = definitionReader.readLevel();
@@ -205,6 +301,11 @@ public abstract class PrimitiveColumnReader
                 valueCount++;
                 if (valueCount == remainingValueCountInPage) {
                     updateValueCounts(valueCount);
+                    if (flat && i == valuesToRead - 1) {
+                        // leave the next page to the caller, which may skip it without decompressing it
+                        resetLevels();
+                        return;
+                    }
                     if (!readNextPage()) {
                         return;
                     }
@@ -219,6 +320,7 @@ public abstract class PrimitiveColumnReader
     }
 
     private void seek()
+            throws IOException
     {
         checkArgument(currentValueCount <= totalValueCount, "Already read all values in column chunk");
         if (readOffset == 0) {
@@ -227,16 +329,50 @@ public abstract class PrimitiveColumnReader
         int valuePosition = 0;
         while (valuePosition < readOffset) {
             if (page == null) {
+                valuePosition += skipPages(readOffset - valuePosition);
+                if (valuePosition == readOffset) {
+                    break;
+                }
                 readNextPage();
             }
             int offset = Math.min(remainingValueCountInPage, readOffset - valuePosition);
-            skipValues(offset);
+            if (flat && offset == remainingValueCountInPage) {
+                // drop the rest of the page without decoding the values
+                updateValueCounts(offset);
+                resetLevels();
+            }
+            else {
+                skipValues(offset);
+            }
             valuePosition = valuePosition + offset;
         }
         checkArgument(valuePosition == readOffset, "valuePosition %s must be equal to readOffset %s", valuePosition, readOffset);
     }
 
+    private int skipPages(int rowCount)
+            throws IOException
+    {
+        if (!flat) {
+            return 0;
+        }
+        int skippedRows = 0;
+        int nextPageValueCount = pageReader.getNextPageValueCount();
+        while (nextPageValueCount > 0 && nextPageValueCount <= rowCount - skippedRows) {
+            skippedRows += pageReader.skipPage();
+            nextPageValueCount = pageReader.getNextPageValueCount();
+        }
+        currentValueCount += skippedRows;
+        return skippedRows;
+    }
+
+    private void resetLevels()
+    {
+        definitionLevel = EMPTY_LEVEL_VALUE;
+        repetitionLevel = EMPTY_LEVEL_VALUE;
+    }
+
     private boolean readNextPage()
+            throws IOException
     {
         verify(page == null, "readNextPage has to be called when page is null");
         page = pageReader.readPage();
@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.reader;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Sorted, disjoint ranges of rows of a row group, with inclusive start and exclusive end.
+ */
+final class RowRanges
+{
+    public static final RowRanges EMPTY = new RowRanges(new long[0], new long[0]);
+
+    private final long[] starts;
+    private final long[] ends;
+
+    private RowRanges(long[] starts, long[] ends)
+    {
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    public static RowRanges all(long rowCount)
+    {
+        if (rowCount == 0) {
+            return EMPTY;
+        }
+        return new RowRanges(new long[] {0}, new long[] {rowCount});
+    }
+
+    public int getRangeCount()
+    {
+        return starts.length;
+    }
+
+    public long getStart(int range)
+    {
+        return starts[range];
+    }
+
+    public long getEnd(int range)
+    {
+        return ends[range];
+    }
+
+    public long getRowCount()
+    {
+        long rowCount = 0;
+        for (int i = 0; i < starts.length; i++) {
+            rowCount += ends[i] - starts[i];
+        }
+        return rowCount;
+    }
+
+    public RowRanges intersect(RowRanges other)
+    {
+        Builder builder = builder();
+        int left = 0;
+        int right = 0;
+        while (left < starts.length && right < other.starts.length) {
+            builder.add(max(starts[left], other.starts[right]), min(ends[left], other.ends[right]));
+            if (ends[left] < other.ends[right]) {
+                left++;
+            }
+            else {
+                right++;
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder ranges = new StringBuilder();
+        for (int i = 0; i < starts.length; i++) {
+            if (i > 0) {
+                ranges.append(", ");
+            }
+            ranges.append('[').append(starts[i]).append(", ").append(ends[i]).append(')');
+        }
+        return toStringHelper(this)
+                .add("ranges", ranges)
+                .toString();
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    public static class Builder
+    {
+        private final LongList starts = new LongArrayList();
+        private final LongList ends = new LongArrayList();
+
+        /**
+         * Adds a range after the ones already added. Empty ranges are ignored
+         * and adjacent ranges are merged.
+         */
+        public Builder add(long start, long end)
+        {
+            if (start >= end) {
+                return this;
+            }
+            int last = starts.size() - 1;
+            if (last >= 0) {
+                checkArgument(start >= ends.getLong(last), "ranges must be added in order");
+                if (start == ends.getLong(last)) {
+                    ends.set(last, end);
+                    return this;
+                }
+            }
+            starts.add(start);
+            ends.add(end);
+            return this;
+        }
+
+        public RowRanges build()
+        {
+            if (starts.isEmpty()) {
+                return EMPTY;
+            }
+            return new RowRanges(starts.toLongArray(), ends.toLongArray());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.writer;
+
+import com.facebook.presto.spi.PrestoException;
+import io.airlift.compress.snappy.SnappyCompressor;
+import parquet.bytes.BytesInput;
+import parquet.hadoop.metadata.CompressionCodecName;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+
+/**
+ * Compresses the pages of a Parquet column chunk, the write side counterpart
+ * of {@link com.facebook.presto.parquet.ParquetCompressionUtils}.
+ */
+public interface ParquetCompressor
+{
+    /**
+     * Returns the compressed bytes, which are never backed by the buffers of the input.
+     */
+    BytesInput compress(BytesInput input)
+            throws IOException;
+
+    static ParquetCompressor getCompressor(CompressionCodecName codec)
+    {
+        switch (codec) {
+            case UNCOMPRESSED:
+                return BytesInput::copy;
+            case SNAPPY:
+                return new SnappyParquetCompressor();
+            case GZIP:
+                return new GzipParquetCompressor();
+            default:
+                throw new PrestoException(NOT_SUPPORTED, "Compression codec not supported by Parquet writer: " + codec);
+        }
+    }
+
+    class SnappyParquetCompressor
+            implements ParquetCompressor
+    {
+        private final SnappyCompressor compressor = new SnappyCompressor();
+
+        @Override
+        public BytesInput compress(BytesInput input)
+                throws IOException
+        {
+            byte[] bytes = input.toByteArray();
+            byte[] compressed = new byte[compressor.maxCompressedLength(bytes.length)];
+            int compressedSize = compressor.compress(bytes, 0, bytes.length, compressed, 0, compressed.length);
+            return BytesInput.from(compressed, 0, compressedSize);
+        }
+    }
+
+    class GzipParquetCompressor
+            implements ParquetCompressor
+    {
+        private static final int GZIP_BUFFER_SIZE = 8 * 1024;
+
+        @Override
+        public BytesInput compress(BytesInput input)
+                throws IOException
+        {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzipOutput = new GZIPOutputStream(output, GZIP_BUFFER_SIZE)) {
+                input.writeAllTo(gzipOutput);
+            }
+            return BytesInput.from(output);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.writer;
+
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import parquet.schema.MessageType;
+import parquet.schema.OriginalType;
+import parquet.schema.PrimitiveType;
+import parquet.schema.Types;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.Chars.isCharType;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.Varchars.isVarcharType;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Locale.ENGLISH;
+import static parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY;
+import static parquet.schema.PrimitiveType.PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY;
+import static parquet.schema.PrimitiveType.PrimitiveTypeName.INT32;
+import static parquet.schema.PrimitiveType.PrimitiveTypeName.INT64;
+import static parquet.schema.PrimitiveType.PrimitiveTypeName.INT96;
+
+/**
+ * Maps Presto types to the Parquet types written by Hive, so that files written by
+ * {@link ParquetWriter} can be read by both Presto and Hive. Only primitive types are supported.
+ */
+public final class ParquetSchemaConverter
+{
+    public static final String HIVE_SCHEMA_NAME = "hive_schema";
+
+    private ParquetSchemaConverter() {}
+
+    public static boolean isSupportedType(Type type)
+    {
+        return BOOLEAN.equals(type) ||
+                TINYINT.equals(type) ||
+                SMALLINT.equals(type) ||
+                INTEGER.equals(type) ||
+                BIGINT.equals(type) ||
+                REAL.equals(type) ||
+                DOUBLE.equals(type) ||
+                DATE.equals(type) ||
+                TIMESTAMP.equals(type) ||
+                VARBINARY.equals(type) ||
+                isVarcharType(type) ||
+                isCharType(type) ||
+                type instanceof DecimalType;
+    }
+
+    public static MessageType toMessageType(List<String> columnNames, List<Type> types)
+    {
+        checkArgument(columnNames.size() == types.size(), "columnNames and types must have the same size");
+
+        ImmutableList.Builder<parquet.schema.Type> fields = ImmutableList.builder();
+        for (int i = 0; i < columnNames.size(); i++) {
+            fields.add(toParquetType(columnNames.get(i).toLowerCase(ENGLISH), types.get(i)));
+        }
+        return new MessageType(HIVE_SCHEMA_NAME, fields.build());
+    }
+
+    public static PrimitiveType toParquetType(String name, Type type)
+    {
+        if (BOOLEAN.equals(type)) {
+            return Types.optional(PrimitiveType.PrimitiveTypeName.BOOLEAN).named(name);
+        }
+        if (TINYINT.equals(type)) {
+            return Types.optional(INT32).as(OriginalType.INT_8).named(name);
+        }
+        if (SMALLINT.equals(type)) {
+            return Types.optional(INT32).as(OriginalType.INT_16).named(name);
+        }
+        if (INTEGER.equals(type)) {
+            return Types.optional(INT32).named(name);
+        }
+        if (DATE.equals(type)) {
+            return Types.optional(INT32).as(OriginalType.DATE).named(name);
+        }
+        if (BIGINT.equals(type)) {
+            return Types.optional(INT64).named(name);
+        }
+        if (REAL.equals(type)) {
+            return Types.optional(PrimitiveType.PrimitiveTypeName.FLOAT).named(name);
+        }
+        if (DOUBLE.equals(type)) {
+            return Types.optional(PrimitiveType.PrimitiveTypeName.DOUBLE).named(name);
+        }
+        if (TIMESTAMP.equals(type)) {
+            return Types.optional(INT96).named(name);
+        }
+        if (isVarcharType(type) || isCharType(type)) {
+            return Types.optional(BINARY).as(OriginalType.UTF8).named(name);
+        }
+        if (VARBINARY.equals(type)) {
+            return Types.optional(BINARY).named(name);
+        }
+        if (type instanceof DecimalType) {
+            DecimalType decimalType = (DecimalType) type;
+            return Types.optional(FIXED_LEN_BYTE_ARRAY)
+                    .length(getDecimalByteLength(decimalType.getPrecision()))
+                    .as(OriginalType.DECIMAL)
+                    .precision(decimalType.getPrecision())
+                    .scale(decimalType.getScale())
+                    .named(name);
+        }
+        throw new PrestoException(NOT_SUPPORTED, "Unsupported type for Parquet writer: " + type);
+    }
+
+    /**
+     * Returns the minimal number of bytes needed to store the two's complement
+     * unscaled value of any decimal with the given precision.
+     */
+    public static int getDecimalByteLength(int precision)
+    {
+        BigInteger maxUnscaledValue = BigInteger.TEN.pow(precision);
+        int length = 1;
+        while (maxUnscaledValue.compareTo(BigInteger.ONE.shiftLeft(8 * length - 1)) > 0) {
+            length++;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.writer;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import parquet.column.statistics.BinaryStatistics;
+import parquet.column.statistics.BooleanStatistics;
+import parquet.column.statistics.DoubleStatistics;
+import parquet.column.statistics.FloatStatistics;
+import parquet.column.statistics.IntStatistics;
+import parquet.column.statistics.LongStatistics;
+import parquet.column.statistics.Statistics;
+import parquet.io.api.Binary;
+import parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects the statistics of a page or a column chunk.
+ * <p>
+ * The statistics of the Parquet library compare binary values as signed bytes and
+ * include NaN in the floating point min and max, so values are collected here and only
+ * converted to library statistics when written. Binary values are ordered as unsigned
+ * bytes, as the reader expects, and min and max are dropped when a NaN was seen. Min and max
+ * are not collected for INT96 timestamps and fixed length decimals, as their byte order
+ * does not match the value order.
+ */
+class ParquetStatisticsBuilder
+{
+    private final PrimitiveTypeName type;
+
+    private long nullCount;
+    private boolean hasNonNullValue;
+    private boolean minMaxValid;
+
+    private boolean minBoolean;
+    private boolean maxBoolean;
+    private long minLong;
+    private long maxLong;
+    private double minDouble;
+    private double maxDouble;
+    private Slice minSlice;
+    private Slice maxSlice;
+
+    public ParquetStatisticsBuilder(PrimitiveTypeName type)
+    {
+        this.type = requireNonNull(type, "type is null");
+        reset();
+    }
+
+    public void addNull()
+    {
+        nullCount++;
+    }
+
+    public void addBoolean(boolean value)
+    {
+        if (!hasNonNullValue) {
+            minBoolean = value;
+            maxBoolean = value;
+        }
+        else {
+            minBoolean &= value;
+            maxBoolean |= value;
+        }
+        hasNonNullValue = true;
+    }
+
+    public void addLong(long value)
+    {
+        if (!hasNonNullValue) {
+            minLong = value;
+            maxLong = value;
+        }
+        else {
+            minLong = Math.min(minLong, value);
+            maxLong = Math.max(maxLong, value);
+        }
+        hasNonNullValue = true;
+    }
+
+    public void addDouble(double value)
+    {
+        if (Double.isNaN(value)) {
+            minMaxValid = false;
+        }
+        else if (!hasNonNullValue) {
+            minDouble = value;
+            maxDouble = value;
+        }
+        else {
+            minDouble = Math.min(minDouble, value);
+            maxDouble = Math.max(maxDouble, value);
+        }
+        hasNonNullValue = true;
+    }
+
+    public void addSlice(Slice value)
+    {
+        // copy the values, so the statistics do not retain the blocks being written
+        if (!hasNonNullValue) {
+            minSlice = Slices.copyOf(value);
+            maxSlice = minSlice;
+        }
+        else {
+            if (value.compareTo(minSlice) < 0) {
+                minSlice = Slices.copyOf(value);
+            }
+            if (value.compareTo(maxSlice) > 0) {
+                maxSlice = Slices.copyOf(value);
+            }
+        }
+        hasNonNullValue = true;
+    }
+
+    public void addNonNullWithoutMinMax()
+    {
+        hasNonNullValue = true;
+        minMaxValid = false;
+    }
+
+    public void merge(ParquetStatisticsBuilder other)
+    {
+        nullCount += other.nullCount;
+        if (!other.hasNonNullValue) {
+            return;
+        }
+        if (!other.minMaxValid) {
+            addNonNullWithoutMinMax();
+            return;
+        }
+        switch (type) {
+            case BOOLEAN:
+                addBoolean(other.minBoolean);
+                addBoolean(other.maxBoolean);
+                break;
+            case INT32:
+            case INT64:
+                addLong(other.minLong);
+                addLong(other.maxLong);
+                break;
+            case FLOAT:
+            case DOUBLE:
+                addDouble(other.minDouble);
+                addDouble(other.maxDouble);
+                break;
+            case BINARY:
+                addSlice(other.minSlice);
+                addSlice(other.maxSlice);
+                break;
+            default:
+                addNonNullWithoutMinMax();
+        }
+    }
+
+    public Statistics<?> build()
+    {
+        Statistics<?> statistics = Statistics.getStatsBasedOnType(type);
+        statistics.setNumNulls(nullCount);
+        if (!hasNonNullValue || !minMaxValid) {
+            return statistics;
+        }
+        switch (type) {
+            case BOOLEAN:
+                ((BooleanStatistics) statistics).setMinMax(minBoolean, maxBoolean);
+                break;
+            case INT32:
+                ((IntStatistics) statistics).setMinMax((int) minLong, (int) maxLong);
+                break;
+            case INT64:
+                ((LongStatistics) statistics).setMinMax(minLong, maxLong);
+                break;
+            case FLOAT:
+                ((FloatStatistics) statistics).setMinMax((float) minDouble, (float) maxDouble);
+                break;
+            case DOUBLE:
+                ((DoubleStatistics) statistics).setMinMax(minDouble, maxDouble);
+                break;
+            case BINARY:
+                ((BinaryStatistics) statistics).setMinMax(Binary.fromByteArray(minSlice.getBytes()), Binary.fromByteArray(maxSlice.getBytes()));
+                break;
+            default:
+                // min and max are not supported
+        }
+        return statistics;
+    }
+
+    public void reset()
+    {
+        nullCount = 0;
+        hasNonNullValue = false;
+        minMaxValid = type != PrimitiveTypeName.INT96 && type != PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY;
+        minSlice = null;
+        maxSlice = null;
+    }
+}
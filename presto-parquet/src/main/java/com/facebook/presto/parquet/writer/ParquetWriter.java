@@ -0,0 +1,193 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.writer;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.Slice;
+import parquet.column.ColumnDescriptor;
+import parquet.column.ParquetProperties;
+import parquet.format.Util;
+import parquet.format.converter.ParquetMetadataConverter;
+import parquet.hadoop.metadata.BlockMetaData;
+import parquet.hadoop.metadata.ColumnChunkMetaData;
+import parquet.hadoop.metadata.CompressionCodecName;
+import parquet.hadoop.metadata.FileMetaData;
+import parquet.hadoop.metadata.ParquetMetadata;
+import parquet.schema.MessageType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.parquet.writer.ParquetSchemaConverter.toMessageType;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static parquet.column.ParquetProperties.WriterVersion.PARQUET_1_0;
+
+/**
+ * Writes pages to a Parquet file, with one optional primitive column per channel.
+ * Columns are buffered in memory until the row group reaches the configured size.
+ */
+public class ParquetWriter
+        implements Closeable
+{
+    private static final Slice MAGIC = utf8Slice("PAR1");
+    private static final int CURRENT_VERSION = 1;
+    private static final String CREATED_BY = "presto";
+
+    private final OutputStreamSliceOutput output;
+    private final MessageType messageType;
+    private final List<PrimitiveColumnWriter> columnWriters;
+    private final ParquetWriterOptions options;
+    private final Map<String, String> metadata;
+    private final List<BlockMetaData> rowGroups = new ArrayList<>();
+
+    private long rowGroupRowCount;
+    private boolean closed;
+
+    public ParquetWriter(
+            OutputStream outputStream,
+            List<String> columnNames,
+            List<Type> types,
+            ParquetWriterOptions options,
+            CompressionCodecName compressionCodecName,
+            Map<String, String> metadata)
+    {
+        this.output = new OutputStreamSliceOutput(requireNonNull(outputStream, "outputStream is null"));
+        requireNonNull(columnNames, "columnNames is null");
+        requireNonNull(types, "types is null");
+        checkArgument(columnNames.size() == types.size(), "columnNames and types must have the same size");
+        this.options = requireNonNull(options, "options is null");
+        requireNonNull(compressionCodecName, "compressionCodecName is null");
+        this.metadata = ImmutableMap.copyOf(requireNonNull(metadata, "metadata is null"));
+
+        this.messageType = toMessageType(columnNames, types);
+        ParquetProperties parquetProperties = new ParquetProperties(toIntExact(options.getMaxDictionaryPageSize().toBytes()), PARQUET_1_0, options.isDictionaryEnabled());
+        int maxPageSize = toIntExact(options.getMaxPageSize().toBytes());
+        List<ColumnDescriptor> columns = messageType.getColumns();
+        ImmutableList.Builder<PrimitiveColumnWriter> columnWriters = ImmutableList.builder();
+        for (int i = 0; i < types.size(); i++) {
+            columnWriters.add(new PrimitiveColumnWriter(types.get(i), columns.get(i), parquetProperties, compressionCodecName, maxPageSize));
+        }
+        this.columnWriters = columnWriters.build();
+
+        output.writeBytes(MAGIC);
+    }
+
+    /**
+     * Number of bytes already flushed to the output.
+     */
+    public long getWrittenBytes()
+    {
+        return output.longSize();
+    }
+
+    /**
+     * Number of pending bytes not yet flushed.
+     */
+    public long getBufferedBytes()
+    {
+        return columnWriters.stream()
+                .mapToLong(PrimitiveColumnWriter::getBufferedBytes)
+                .sum();
+    }
+
+    public long getRetainedBytes()
+    {
+        return output.getRetainedSize() +
+                columnWriters.stream()
+                        .mapToLong(PrimitiveColumnWriter::getRetainedBytes)
+                        .sum();
+    }
+
+    public void write(Page page)
+            throws IOException
+    {
+        requireNonNull(page, "page is null");
+        checkState(!closed, "writer is closed");
+        checkArgument(page.getChannelCount() == columnWriters.size(), "Page has %s channels, but writer has %s columns", page.getChannelCount(), columnWriters.size());
+        if (page.getPositionCount() == 0) {
+            return;
+        }
+
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            columnWriters.get(channel).writeBlock(page.getBlock(channel));
+        }
+        rowGroupRowCount += page.getPositionCount();
+
+        if (getBufferedBytes() >= options.getMaxRowGroupSize().toBytes()) {
+            flushRowGroup();
+        }
+    }
+
+    private void flushRowGroup()
+            throws IOException
+    {
+        if (rowGroupRowCount == 0) {
+            return;
+        }
+
+        BlockMetaData rowGroup = new BlockMetaData();
+        rowGroup.setRowCount(rowGroupRowCount);
+        long totalByteSize = 0;
+        for (PrimitiveColumnWriter columnWriter : columnWriters) {
+            ColumnChunkMetaData columnChunk = columnWriter.writeColumnChunk(output);
+            rowGroup.addColumn(columnChunk);
+            totalByteSize += columnChunk.getTotalUncompressedSize();
+        }
+        rowGroup.setTotalByteSize(totalByteSize);
+        rowGroups.add(rowGroup);
+        rowGroupRowCount = 0;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try (OutputStreamSliceOutput output = this.output) {
+            flushRowGroup();
+
+            ParquetMetadata parquetMetadata = new ParquetMetadata(new FileMetaData(messageType, metadata, CREATED_BY), rowGroups);
+            long footerOffset = output.longSize();
+            Util.writeFileMetaData(new ParquetMetadataConverter().toParquetMetadata(CURRENT_VERSION, parquetMetadata), output);
+            output.writeInt(toIntExact(output.longSize() - footerOffset));
+            output.writeBytes(MAGIC);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("columns", messageType.getColumns())
+                .add("options", options)
+                .toString();
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.writer;
+
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.Slice;
+import parquet.bytes.BytesInput;
+import parquet.column.ColumnDescriptor;
+import parquet.column.Encoding;
+import parquet.column.ParquetProperties;
+import parquet.column.page.DictionaryPage;
+import parquet.column.statistics.Statistics;
+import parquet.column.values.ValuesWriter;
+import parquet.format.converter.ParquetMetadataConverter;
+import parquet.hadoop.metadata.ColumnChunkMetaData;
+import parquet.hadoop.metadata.ColumnPath;
+import parquet.hadoop.metadata.CompressionCodecName;
+import parquet.io.api.Binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.facebook.presto.parquet.ParquetTimestampUtils.getTimestampBinary;
+import static com.facebook.presto.spi.type.Decimals.decodeUnscaledValue;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes an optional primitive column. Values are buffered in pages of the configured size,
+ * which are compressed as soon as they are full and kept in memory until the row group is
+ * flushed, when the dictionary page, if any, is written ahead of them.
+ */
+class PrimitiveColumnWriter
+{
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private final Type type;
+    private final ColumnDescriptor columnDescriptor;
+    private final CompressionCodecName compressionCodecName;
+    private final ParquetCompressor compressor;
+    private final int maxPageSize;
+    private final int fixedLength;
+
+    private final ValuesWriter definitionLevelWriter;
+    private final ValuesWriter repetitionLevelWriter;
+    private final ValuesWriter valuesWriter;
+
+    private final ParquetMetadataConverter metadataConverter = new ParquetMetadataConverter();
+    private final ParquetStatisticsBuilder pageStatistics;
+    private final ParquetStatisticsBuilder columnStatistics;
+
+    private final List<BytesInput> dataPages = new ArrayList<>();
+    private final Set<Encoding> encodings = new LinkedHashSet<>();
+    private int pageValueCount;
+    private long columnValueCount;
+    private long dataPagesCompressedSize;
+    private long dataPagesUncompressedSize;
+
+    public PrimitiveColumnWriter(Type type, ColumnDescriptor columnDescriptor, ParquetProperties parquetProperties, CompressionCodecName compressionCodecName, int maxPageSize)
+    {
+        this.type = requireNonNull(type, "type is null");
+        this.columnDescriptor = requireNonNull(columnDescriptor, "columnDescriptor is null");
+        checkArgument(columnDescriptor.getMaxRepetitionLevel() == 0, "repeated columns are not supported");
+        this.compressionCodecName = requireNonNull(compressionCodecName, "compressionCodecName is null");
+        this.compressor = ParquetCompressor.getCompressor(compressionCodecName);
+        this.maxPageSize = maxPageSize;
+        this.fixedLength = columnDescriptor.getTypeLength();
+
+        this.definitionLevelWriter = ParquetProperties.getColumnDescriptorValuesWriter(columnDescriptor.getMaxDefinitionLevel(), INITIAL_BUFFER_SIZE, maxPageSize);
+        this.repetitionLevelWriter = ParquetProperties.getColumnDescriptorValuesWriter(columnDescriptor.getMaxRepetitionLevel(), INITIAL_BUFFER_SIZE, maxPageSize);
+        this.valuesWriter = parquetProperties.getValuesWriter(columnDescriptor, INITIAL_BUFFER_SIZE, maxPageSize);
+
+        this.pageStatistics = new ParquetStatisticsBuilder(columnDescriptor.getType());
+        this.columnStatistics = new ParquetStatisticsBuilder(columnDescriptor.getType());
+    }
+
+    public void writeBlock(Block block)
+            throws IOException
+    {
+        int maxDefinitionLevel = columnDescriptor.getMaxDefinitionLevel();
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            repetitionLevelWriter.writeInteger(0);
+            if (block.isNull(position)) {
+                definitionLevelWriter.writeInteger(maxDefinitionLevel - 1);
+                pageStatistics.addNull();
+            }
+            else {
+                definitionLevelWriter.writeInteger(maxDefinitionLevel);
+                writeValue(block, position);
+            }
+            pageValueCount++;
+
+            if (getCurrentPageBufferedBytes() >= maxPageSize) {
+                flushPage();
+            }
+        }
+    }
+
+    private void writeValue(Block block, int position)
+    {
+        switch (columnDescriptor.getType()) {
+            case BOOLEAN: {
+                boolean value = type.getBoolean(block, position);
+                valuesWriter.writeBoolean(value);
+                pageStatistics.addBoolean(value);
+                break;
+            }
+            case INT32: {
+                long value = type.getLong(block, position);
+                valuesWriter.writeInteger(toIntExact(value));
+                pageStatistics.addLong(value);
+                break;
+            }
+            case INT64: {
+                long value = type.getLong(block, position);
+                valuesWriter.writeLong(value);
+                pageStatistics.addLong(value);
+                break;
+            }
+            case FLOAT: {
+                float value = intBitsToFloat(toIntExact(type.getLong(block, position)));
+                valuesWriter.writeFloat(value);
+                pageStatistics.addDouble(value);
+                break;
+            }
+            case DOUBLE: {
+                double value = type.getDouble(block, position);
+                valuesWriter.writeDouble(value);
+                pageStatistics.addDouble(value);
+                break;
+            }
+            case BINARY: {
+                Slice value = type.getSlice(block, position);
+                valuesWriter.writeBytes(Binary.fromByteArray(value.getBytes()));
+                pageStatistics.addSlice(value);
+                break;
+            }
+            case INT96: {
+                valuesWriter.writeBytes(getTimestampBinary(type.getLong(block, position)));
+                pageStatistics.addNonNullWithoutMinMax();
+                break;
+            }
+            case FIXED_LEN_BYTE_ARRAY: {
+                valuesWriter.writeBytes(Binary.fromByteArray(getDecimalBytes(block, position)));
+                pageStatistics.addNonNullWithoutMinMax();
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unsupported Parquet type: " + columnDescriptor.getType());
+        }
+    }
+
+    private byte[] getDecimalBytes(Block block, int position)
+    {
+        byte[] bytes = new byte[fixedLength];
+        if (((DecimalType) type).isShort()) {
+            long unscaledValue = type.getLong(block, position);
+            for (int i = 0; i < fixedLength; i++) {
+                bytes[i] = (byte) (unscaledValue >> (8 * (fixedLength - 1 - i)));
+            }
+            return bytes;
+        }
+
+        // two's complement, sign extended to the fixed length
+        BigInteger unscaledValue = decodeUnscaledValue(type.getSlice(block, position));
+        byte[] valueBytes = unscaledValue.toByteArray();
+        int padding = fixedLength - valueBytes.length;
+        byte signByte = (byte) (unscaledValue.signum() < 0 ? -1 : 0);
+        for (int i = 0; i < padding; i++) {
+            bytes[i] = signByte;
+        }
+        System.arraycopy(valueBytes, 0, bytes, padding, valueBytes.length);
+        return bytes;
+    }
+
+    private long getCurrentPageBufferedBytes()
+    {
+        return definitionLevelWriter.getBufferedSize() + valuesWriter.getBufferedSize();
+    }
+
+    private void flushPage()
+            throws IOException
+    {
+        if (pageValueCount == 0) {
+            return;
+        }
+
+        BytesInput bytes = BytesInput.concat(repetitionLevelWriter.getBytes(), definitionLevelWriter.getBytes(), valuesWriter.getBytes());
+        BytesInput compressedBytes = compressor.compress(bytes);
+        Statistics<?> statistics = pageStatistics.build();
+
+        ByteArrayOutputStream pageHeader = new ByteArrayOutputStream();
+        metadataConverter.writeDataPageHeader(
+                toIntExact(bytes.size()),
+                toIntExact(compressedBytes.size()),
+                pageValueCount,
+                statistics,
+                repetitionLevelWriter.getEncoding(),
+                definitionLevelWriter.getEncoding(),
+                valuesWriter.getEncoding(),
+                pageHeader);
+        encodings.add(repetitionLevelWriter.getEncoding());
+        encodings.add(definitionLevelWriter.getEncoding());
+        encodings.add(valuesWriter.getEncoding());
+
+        dataPages.add(BytesInput.concat(BytesInput.from(pageHeader), compressedBytes));
+        dataPagesUncompressedSize += pageHeader.size() + bytes.size();
+        dataPagesCompressedSize += pageHeader.size() + compressedBytes.size();
+
+        columnStatistics.merge(pageStatistics);
+        columnValueCount += pageValueCount;
+
+        pageStatistics.reset();
+        pageValueCount = 0;
+        repetitionLevelWriter.reset();
+        definitionLevelWriter.reset();
+        valuesWriter.reset();
+    }
+
+    /**
+     * Writes the buffered column chunk, and returns its metadata.
+     */
+    public ColumnChunkMetaData writeColumnChunk(OutputStreamSliceOutput output)
+            throws IOException
+    {
+        flushPage();
+        checkState(columnValueCount > 0, "column chunk is empty");
+
+        // as in parquet-mr, the first data page offset is the start of the column chunk, since
+        // older readers do not read the dictionary page offset
+        long columnChunkOffset = output.longSize();
+        long dictionaryPageOffset = 0;
+        long totalCompressedSize = dataPagesCompressedSize;
+        long totalUncompressedSize = dataPagesUncompressedSize;
+
+        DictionaryPage dictionaryPage = valuesWriter.createDictionaryPage();
+        if (dictionaryPage != null) {
+            BytesInput dictionaryBytes = BytesInput.copy(dictionaryPage.getBytes());
+            BytesInput compressedBytes = compressor.compress(dictionaryBytes);
+            ByteArrayOutputStream pageHeader = new ByteArrayOutputStream();
+            metadataConverter.writeDictionaryPageHeader(
+                    toIntExact(dictionaryBytes.size()),
+                    toIntExact(compressedBytes.size()),
+                    dictionaryPage.getDictionarySize(),
+                    dictionaryPage.getEncoding(),
+                    pageHeader);
+            encodings.add(dictionaryPage.getEncoding());
+
+            dictionaryPageOffset = columnChunkOffset;
+            output.write(pageHeader.toByteArray());
+            compressedBytes.writeAllTo(output);
+            totalCompressedSize += pageHeader.size() + compressedBytes.size();
+            totalUncompressedSize += pageHeader.size() + dictionaryBytes.size();
+            valuesWriter.resetDictionary();
+        }
+
+        for (BytesInput dataPage : dataPages) {
+            dataPage.writeAllTo(output);
+        }
+
+        ColumnChunkMetaData metadata = ColumnChunkMetaData.get(
+                ColumnPath.get(columnDescriptor.getPath()),
+                columnDescriptor.getType(),
+                compressionCodecName,
+                ImmutableSet.copyOf(encodings),
+                columnStatistics.build(),
+                columnChunkOffset,
+                dictionaryPageOffset,
+                columnValueCount,
+                totalCompressedSize,
+                totalUncompressedSize);
+
+        dataPages.clear();
+        encodings.clear();
+        columnStatistics.reset();
+        columnValueCount = 0;
+        dataPagesCompressedSize = 0;
+        dataPagesUncompressedSize = 0;
+        return metadata;
+    }
+
+    public long getBufferedBytes()
+    {
+        return dataPagesCompressedSize + getCurrentPageBufferedBytes();
+    }
+
+    public long getRetainedBytes()
+    {
+        return dataPagesCompressedSize + definitionLevelWriter.getAllocatedSize() + repetitionLevelWriter.getAllocatedSize() + valuesWriter.getAllocatedSize();
+    }
+}
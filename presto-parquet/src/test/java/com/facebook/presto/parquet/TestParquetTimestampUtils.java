@@ -20,6 +20,7 @@ import parquet.io.api.Binary;
 
 import java.sql.Timestamp;
 
+import static com.facebook.presto.parquet.ParquetTimestampUtils.getTimestampBinary;
 import static com.facebook.presto.parquet.ParquetTimestampUtils.getTimestampMillis;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static org.testng.Assert.assertEquals;
@@ -34,6 +35,15 @@ public class TestParquetTimestampUtils
         assertTimestampCorrect("2015-12-31 23:59:59.999999999");
     }
 
+    @Test
+    public void testGetTimestampBinary()
+    {
+        assertTimestampBinaryCorrect("2011-01-01 00:00:00.000000000");
+        assertTimestampBinaryCorrect("2001-01-01 01:01:01.001000000");
+        assertTimestampBinaryCorrect("2015-12-31 23:59:59.999000000");
+        assertTimestampBinaryCorrect("1965-07-15 10:20:30.400000000");
+    }
+
     @Test
     public void testInvalidBinaryLength()
     {
@@ -54,4 +64,12 @@ public class TestParquetTimestampUtils
         long decodedTimestampMillis = getTimestampMillis(timestampBytes);
         assertEquals(decodedTimestampMillis, timestamp.getTime());
     }
+
+    private static void assertTimestampBinaryCorrect(String timestampString)
+    {
+        Timestamp timestamp = Timestamp.valueOf(timestampString);
+        Binary timestampBytes = getTimestampBinary(timestamp.getTime());
+        assertEquals(timestampBytes, NanoTimeUtils.getNanoTime(timestamp, false).toBinary());
+        assertEquals(getTimestampMillis(timestampBytes), timestamp.getTime());
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet;
+
+import static java.lang.Math.max;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+public class TestingParquetDataSource
+        implements ParquetDataSource
+{
+    private final byte[] data;
+    private long readBytes;
+    private int readCount;
+    private int maxReadSize;
+
+    public TestingParquetDataSource(byte[] data)
+    {
+        this.data = requireNonNull(data, "data is null");
+    }
+
+    @Override
+    public long getReadBytes()
+    {
+        return readBytes;
+    }
+
+    public int getReadCount()
+    {
+        return readCount;
+    }
+
+    /**
+     * Size of the largest read so far.
+     */
+    public int getMaxReadSize()
+    {
+        return maxReadSize;
+    }
+
+    @Override
+    public long getSize()
+    {
+        return data.length;
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer)
+    {
+        readFully(position, buffer, 0, buffer.length);
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+    {
+        System.arraycopy(data, toIntExact(position), buffer, bufferOffset, bufferLength);
+        readBytes += bufferLength;
+        readCount++;
+        maxReadSize = max(maxReadSize, bufferLength);
+    }
+
+    @Override
+    public void close()
+    {
+    }
+}
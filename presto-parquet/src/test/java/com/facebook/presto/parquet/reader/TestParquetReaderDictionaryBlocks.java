@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.reader;
+
+import com.facebook.presto.parquet.PrimitiveField;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.TestingParquetDataSource;
+import com.facebook.presto.parquet.writer.ParquetWriter;
+import com.facebook.presto.parquet.writer.ParquetWriterOptions;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+import parquet.format.converter.ParquetMetadataConverter;
+import parquet.hadoop.metadata.CompressionCodecName;
+import parquet.hadoop.metadata.ParquetMetadata;
+import parquet.io.MessageColumnIO;
+import parquet.schema.MessageType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.parquet.ParquetTypeUtils.getColumnIO;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestParquetReaderDictionaryBlocks
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR);
+
+    @Test
+    public void testDictionaryBlocks()
+            throws IOException
+    {
+        int rows = 20_000;
+        List<Block> blocks = readNames(writeFile(rows, rows), rows);
+
+        Block dictionary = null;
+        for (Block block : blocks) {
+            assertTrue(block instanceof DictionaryBlock, "expected a dictionary block: " + block);
+            if (dictionary == null) {
+                dictionary = ((DictionaryBlock) block).getDictionary();
+            }
+            // all batches of the column chunk share the dictionary
+            assertSame(((DictionaryBlock) block).getDictionary(), dictionary);
+        }
+        assertNotNull(dictionary);
+    }
+
+    @Test
+    public void testDictionaryFallback()
+            throws IOException
+    {
+        // the writer falls back to plain encoding when the distinct values no longer fit in the dictionary
+        int rows = 20_000;
+        List<Block> blocks = readNames(writeFile(rows, 5_000), 5_000);
+
+        assertTrue(blocks.get(0) instanceof DictionaryBlock);
+        assertFalse(blocks.get(blocks.size() - 1) instanceof DictionaryBlock);
+    }
+
+    private static byte[] writeFile(int rows, int lowCardinalityRows)
+            throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ParquetWriterOptions options = new ParquetWriterOptions()
+                .withMaxPageSize(new DataSize(1, KILOBYTE))
+                .withMaxDictionaryPageSize(new DataSize(4, KILOBYTE));
+        try (ParquetWriter writer = new ParquetWriter(output, ImmutableList.of("id", "name"), TYPES, options, CompressionCodecName.UNCOMPRESSED, ImmutableMap.of())) {
+            for (int start = 0; start < rows; start += 1000) {
+                BlockBuilder ids = BIGINT.createBlockBuilder(null, 1000);
+                BlockBuilder names = VARCHAR.createBlockBuilder(null, 1000);
+                for (int id = start; id < start + 1000; id++) {
+                    BIGINT.writeLong(ids, id);
+                    if (id % 7 == 0) {
+                        names.appendNull();
+                    }
+                    else {
+                        VARCHAR.writeSlice(names, utf8Slice(expectedName(id, lowCardinalityRows)));
+                    }
+                }
+                writer.write(new Page(ids.build(), names.build()));
+            }
+        }
+        return output.toByteArray();
+    }
+
+    private static List<Block> readNames(byte[] file, int lowCardinalityRows)
+            throws IOException
+    {
+        int footerLength = (file[file.length - 8] & 0xFF) |
+                (file[file.length - 7] & 0xFF) << 8 |
+                (file[file.length - 6] & 0xFF) << 16 |
+                (file[file.length - 5] & 0xFF) << 24;
+        ParquetMetadata parquetMetadata = new ParquetMetadataConverter().readParquetMetadata(new ByteArrayInputStream(file, file.length - 8 - footerLength, footerLength));
+        MessageType schema = parquetMetadata.getFileMetaData().getSchema();
+        MessageColumnIO messageColumnIO = getColumnIO(schema, schema);
+        List<PrimitiveField> fields = new ArrayList<>();
+        for (int i = 0; i < TYPES.size(); i++) {
+            RichColumnDescriptor descriptor = new RichColumnDescriptor(schema.getColumns().get(i), schema.getType(i).asPrimitiveType());
+            fields.add(new PrimitiveField(TYPES.get(i), 0, 1, false, descriptor, messageColumnIO.getLeaves().get(i).getId()));
+        }
+
+        List<Block> blocks = new ArrayList<>();
+        try (ParquetReader reader = new ParquetReader(messageColumnIO, parquetMetadata.getBlocks(), new TestingParquetDataSource(file), newSimpleAggregatedMemoryContext())) {
+            for (int batchSize = reader.nextBatch(); batchSize > 0; batchSize = reader.nextBatch()) {
+                Block idBlock = reader.readBlock(fields.get(0));
+                Block nameBlock = reader.readBlock(fields.get(1));
+                assertEquals(nameBlock.getPositionCount(), batchSize);
+                blocks.add(nameBlock);
+                for (int position = 0; position < batchSize; position++) {
+                    int id = (int) BIGINT.getLong(idBlock, position);
+                    if (id % 7 == 0) {
+                        assertTrue(nameBlock.isNull(position));
+                    }
+                    else {
+                        assertEquals(VARCHAR.getSlice(nameBlock, position).toStringUtf8(), expectedName(id, lowCardinalityRows));
+                    }
+                }
+            }
+        }
+        return blocks;
+    }
+
+    private static String expectedName(int id, int lowCardinalityRows)
+    {
+        if (id < lowCardinalityRows) {
+            return "name_" + (id % 10);
+        }
+        return "unique_" + id;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.reader;
+
+import com.facebook.presto.parquet.PrimitiveField;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.TestingParquetDataSource;
+import com.facebook.presto.parquet.predicate.TupleDomainParquetPredicate;
+import com.facebook.presto.parquet.writer.ParquetWriter;
+import com.facebook.presto.parquet.writer.ParquetWriterOptions;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import parquet.column.ColumnDescriptor;
+import parquet.format.converter.ParquetMetadataConverter;
+import parquet.hadoop.metadata.CompressionCodecName;
+import parquet.hadoop.metadata.ParquetMetadata;
+import parquet.io.MessageColumnIO;
+import parquet.schema.MessageType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.parquet.ParquetTypeUtils.getColumnIO;
+import static com.facebook.presto.spi.predicate.Range.range;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestParquetReaderPageSkipping
+{
+    private static final int ROWS = 50_000;
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR, DOUBLE);
+    private static final DataSize MAX_READ_SIZE = new DataSize(4, KILOBYTE);
+
+    private byte[] file;
+    private ParquetMetadata parquetMetadata;
+    private MessageType schema;
+    private List<RichColumnDescriptor> columns;
+
+    @BeforeClass
+    public void setUp()
+            throws IOException
+    {
+        // rows are sorted on id, and pages are small, so page statistics are selective
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ParquetWriterOptions options = new ParquetWriterOptions()
+                .withMaxPageSize(new DataSize(1, KILOBYTE))
+                .withMaxRowGroupSize(new DataSize(128, KILOBYTE));
+        try (ParquetWriter writer = new ParquetWriter(output, ImmutableList.of("id", "name", "value"), TYPES, options, CompressionCodecName.SNAPPY, ImmutableMap.of())) {
+            for (int start = 0; start < ROWS; start += 1000) {
+                BlockBuilder ids = BIGINT.createBlockBuilder(null, 1000);
+                BlockBuilder names = VARCHAR.createBlockBuilder(null, 1000);
+                BlockBuilder values = DOUBLE.createBlockBuilder(null, 1000);
+                for (int id = start; id < start + 1000; id++) {
+                    BIGINT.writeLong(ids, id);
+                    VARCHAR.writeSlice(names, utf8Slice("name_" + id));
+                    if (id % 13 == 0) {
+                        values.appendNull();
+                    }
+                    else {
+                        DOUBLE.writeDouble(values, id * 0.5);
+                    }
+                }
+                writer.write(new Page(ids.build(), names.build(), values.build()));
+            }
+        }
+        file = output.toByteArray();
+
+        int footerLength = (file[file.length - 8] & 0xFF) |
+                (file[file.length - 7] & 0xFF) << 8 |
+                (file[file.length - 6] & 0xFF) << 16 |
+                (file[file.length - 5] & 0xFF) << 24;
+        parquetMetadata = new ParquetMetadataConverter().readParquetMetadata(new ByteArrayInputStream(file, file.length - 8 - footerLength, footerLength));
+        assertTrue(parquetMetadata.getBlocks().size() > 1, "expected multiple row groups");
+
+        schema = parquetMetadata.getFileMetaData().getSchema();
+        ImmutableList.Builder<RichColumnDescriptor> columns = ImmutableList.builder();
+        for (int i = 0; i < TYPES.size(); i++) {
+            columns.add(new RichColumnDescriptor(schema.getColumns().get(i), schema.getType(i).asPrimitiveType()));
+        }
+        this.columns = columns.build();
+    }
+
+    @Test
+    public void testNoPredicate()
+            throws IOException
+    {
+        TestingParquetDataSource dataSource = new TestingParquetDataSource(file);
+        List<Long> ids = readIds(dataSource, TupleDomain.all(), true);
+        assertEquals(ids.size(), ROWS);
+        assertTrue(dataSource.getMaxReadSize() <= MAX_READ_SIZE.toBytes());
+    }
+
+    @Test
+    public void testRange()
+            throws IOException
+    {
+        TupleDomain<ColumnDescriptor> tupleDomain = TupleDomain.withColumnDomains(ImmutableMap.of(
+                columns.get(0), Domain.create(ValueSet.ofRanges(range(BIGINT, 20_000L, true, 20_100L, true)), false)));
+
+        for (boolean readAllColumns : new boolean[] {true, false}) {
+            TestingParquetDataSource dataSource = new TestingParquetDataSource(file);
+            List<Long> ids = readIds(dataSource, tupleDomain, readAllColumns);
+            assertContainsRange(ids, 20_000, 20_100);
+            assertTrue(ids.size() < ROWS / 20, "pages were not skipped: " + ids.size());
+            // the header scan of the predicate column reads most of it, as pages are tiny, but the pages of the other columns are mostly not fetched
+            assertTrue(dataSource.getReadBytes() < file.length / 2, "read " + dataSource.getReadBytes() + " of " + file.length + " bytes");
+            assertTrue(dataSource.getMaxReadSize() <= MAX_READ_SIZE.toBytes());
+        }
+    }
+
+    @Test
+    public void testRangeWithChunksInReadWindow()
+            throws IOException
+    {
+        TupleDomain<ColumnDescriptor> tupleDomain = TupleDomain.withColumnDomains(ImmutableMap.of(
+                columns.get(0), Domain.create(ValueSet.ofRanges(range(BIGINT, 20_000L, true, 20_100L, true)), false)));
+
+        // the chunks of the predicate column are scanned and read with a single read each
+        TestingParquetDataSource dataSource = new TestingParquetDataSource(file);
+        List<Long> ids = readIds(dataSource, tupleDomain, true, new DataSize(1, MEGABYTE));
+        assertContainsRange(ids, 20_000, 20_100);
+        assertTrue(ids.size() < ROWS / 20, "pages were not skipped: " + ids.size());
+        assertTrue(dataSource.getReadCount() <= parquetMetadata.getBlocks().size() * TYPES.size(), "read " + dataSource.getReadCount() + " times");
+    }
+
+    @Test
+    public void testMultipleColumns()
+            throws IOException
+    {
+        // the pages of both columns are aligned differently, and only rows in matching pages of both are read
+        TupleDomain<ColumnDescriptor> tupleDomain = TupleDomain.withColumnDomains(ImmutableMap.of(
+                columns.get(0), Domain.create(ValueSet.ofRanges(range(BIGINT, 10_000L, true, 40_000L, true)), false),
+                columns.get(2), Domain.create(ValueSet.ofRanges(range(DOUBLE, 0.0, true, 6_000.0, true)), false)));
+
+        List<Long> ids = readIds(new TestingParquetDataSource(file), tupleDomain, true);
+        assertContainsRange(ids, 10_000, 12_000);
+        assertTrue(ids.size() < ROWS / 10, "pages were not skipped: " + ids.size());
+    }
+
+    @Test
+    public void testNoMatch()
+            throws IOException
+    {
+        TupleDomain<ColumnDescriptor> tupleDomain = TupleDomain.withColumnDomains(ImmutableMap.of(
+                columns.get(1), Domain.singleValue(VARCHAR, utf8Slice("missing"))));
+
+        assertEquals(readIds(new TestingParquetDataSource(file), tupleDomain, true).size(), 0);
+    }
+
+    private List<Long> readIds(TestingParquetDataSource dataSource, TupleDomain<ColumnDescriptor> tupleDomain, boolean readAllColumns)
+            throws IOException
+    {
+        return readIds(dataSource, tupleDomain, readAllColumns, MAX_READ_SIZE);
+    }
+
+    private List<Long> readIds(TestingParquetDataSource dataSource, TupleDomain<ColumnDescriptor> tupleDomain, boolean readAllColumns, DataSize maxReadSize)
+            throws IOException
+    {
+        MessageColumnIO messageColumnIO = getColumnIO(schema, schema);
+        List<PrimitiveField> fields = new ArrayList<>();
+        for (int i = 0; i < TYPES.size(); i++) {
+            fields.add(new PrimitiveField(TYPES.get(i), 0, 1, false, columns.get(i), messageColumnIO.getLeaves().get(i).getId()));
+        }
+
+        List<Long> ids = new ArrayList<>();
+        try (ParquetReader reader = new ParquetReader(
+                messageColumnIO,
+                parquetMetadata.getBlocks(),
+                dataSource,
+                newSimpleAggregatedMemoryContext(),
+                maxReadSize,
+                new TupleDomainParquetPredicate(tupleDomain, columns),
+                tupleDomain)) {
+            int batch = 0;
+            for (int batchSize = reader.nextBatch(); batchSize > 0; batchSize = reader.nextBatch()) {
+                batch++;
+                Block idBlock = reader.readBlock(fields.get(0));
+                assertEquals(idBlock.getPositionCount(), batchSize);
+                for (int position = 0; position < batchSize; position++) {
+                    ids.add(BIGINT.getLong(idBlock, position));
+                }
+
+                // leave some batches unread, to check that skipped rows add up with unread batches
+                if (!readAllColumns && batch % 2 == 0) {
+                    continue;
+                }
+                Block nameBlock = reader.readBlock(fields.get(1));
+                Block valueBlock = reader.readBlock(fields.get(2));
+                for (int position = 0; position < batchSize; position++) {
+                    long id = BIGINT.getLong(idBlock, position);
+                    assertEquals(VARCHAR.getSlice(nameBlock, position).toStringUtf8(), "name_" + id);
+                    if (id % 13 == 0) {
+                        assertTrue(valueBlock.isNull(position));
+                    }
+                    else {
+                        assertEquals(DOUBLE.getDouble(valueBlock, position), id * 0.5);
+                    }
+                }
+            }
+            assertEquals(reader.getPosition(), ROWS);
+        }
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1) < ids.get(i), "ids out of order");
+        }
+        return ids;
+    }
+
+    private static void assertContainsRange(List<Long> ids, long start, long end)
+    {
+        for (long id = start; id <= end; id++) {
+            assertTrue(ids.contains(id), "missing id " + id);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.reader;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestRowRanges
+{
+    @Test
+    public void testBuilder()
+    {
+        RowRanges rowRanges = RowRanges.builder()
+                .add(0, 10)
+                .add(10, 20)
+                .add(25, 25)
+                .add(30, 40)
+                .build();
+        assertRanges(rowRanges, 0, 20, 30, 40);
+        assertEquals(rowRanges.getRowCount(), 30);
+
+        assertEquals(RowRanges.builder().build().getRangeCount(), 0);
+        assertEquals(RowRanges.all(0).getRangeCount(), 0);
+        assertRanges(RowRanges.all(100), 0, 100);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOutOfOrder()
+    {
+        RowRanges.builder()
+                .add(10, 20)
+                .add(5, 8);
+    }
+
+    @Test
+    public void testIntersect()
+    {
+        RowRanges left = RowRanges.builder()
+                .add(0, 10)
+                .add(20, 30)
+                .add(40, 50)
+                .build();
+        RowRanges right = RowRanges.builder()
+                .add(5, 25)
+                .add(28, 45)
+                .build();
+        assertRanges(left.intersect(right), 5, 10, 20, 25, 28, 30, 40, 45);
+        assertRanges(right.intersect(left), 5, 10, 20, 25, 28, 30, 40, 45);
+        assertRanges(left.intersect(RowRanges.all(100)), 0, 10, 20, 30, 40, 50);
+        assertRanges(left.intersect(RowRanges.builder().add(10, 20).build()));
+        assertRanges(left.intersect(RowRanges.EMPTY));
+    }
+
+    private static void assertRanges(RowRanges rowRanges, long... bounds)
+    {
+        assertEquals(rowRanges.getRangeCount(), bounds.length / 2, rowRanges.toString());
+        for (int i = 0; i < rowRanges.getRangeCount(); i++) {
+            assertEquals(rowRanges.getStart(i), bounds[2 * i]);
+            assertEquals(rowRanges.getEnd(i), bounds[2 * i + 1]);
+        }
+    }
+}
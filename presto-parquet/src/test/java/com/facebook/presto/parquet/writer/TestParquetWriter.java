@@ -0,0 +1,259 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.writer;
+
+import com.facebook.presto.parquet.PrimitiveField;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.TestingParquetDataSource;
+import com.facebook.presto.parquet.reader.ParquetReader;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+import parquet.column.ColumnDescriptor;
+import parquet.column.Encoding;
+import parquet.column.statistics.BinaryStatistics;
+import parquet.column.statistics.DoubleStatistics;
+import parquet.column.statistics.LongStatistics;
+import parquet.column.statistics.Statistics;
+import parquet.format.converter.ParquetMetadataConverter;
+import parquet.hadoop.metadata.BlockMetaData;
+import parquet.hadoop.metadata.CompressionCodecName;
+import parquet.hadoop.metadata.ParquetMetadata;
+import parquet.io.MessageColumnIO;
+import parquet.schema.MessageType;
+import parquet.schema.PrimitiveType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.parquet.ParquetTypeUtils.getColumnIO;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static java.lang.Math.toIntExact;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestParquetWriter
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR, VARCHAR, DOUBLE);
+    private static final List<String> COLUMN_NAMES = ImmutableList.of("id", "dictionary_string", "string", "value");
+    private static final int ROWS = 20_000;
+
+    @Test
+    public void testRoundTrip()
+            throws IOException
+    {
+        for (CompressionCodecName codec : ImmutableList.of(CompressionCodecName.UNCOMPRESSED, CompressionCodecName.SNAPPY, CompressionCodecName.GZIP)) {
+            testRoundTrip(codec);
+        }
+    }
+
+    private static void testRoundTrip(CompressionCodecName codec)
+            throws IOException
+    {
+        List<Object[]> rows = createRows();
+        ParquetWriterOptions options = new ParquetWriterOptions()
+                .withMaxPageSize(new DataSize(1, KILOBYTE))
+                .withMaxRowGroupSize(new DataSize(64, KILOBYTE))
+                .withMaxDictionaryPageSize(new DataSize(4, KILOBYTE));
+        byte[] file = writeFile(rows, options, codec);
+
+        ParquetMetadata parquetMetadata = readFooter(file);
+        List<BlockMetaData> rowGroups = parquetMetadata.getBlocks();
+        assertTrue(rowGroups.size() > 1, "expected multiple row groups");
+
+        int rowOffset = 0;
+        for (BlockMetaData rowGroup : rowGroups) {
+            List<Object[]> rowGroupRows = rows.subList(rowOffset, toIntExact(rowOffset + rowGroup.getRowCount()));
+            rowOffset += rowGroup.getRowCount();
+
+            // few distinct values stay dictionary encoded, many distinct values fall back to plain encoding
+            assertTrue(rowGroup.getColumns().get(1).getEncodings().contains(Encoding.PLAIN_DICTIONARY));
+            assertTrue(rowGroup.getColumns().get(2).getEncodings().contains(Encoding.PLAIN));
+
+            LongStatistics idStatistics = (LongStatistics) rowGroup.getColumns().get(0).getStatistics();
+            assertEquals(idStatistics.getNumNulls(), rowGroupRows.stream().filter(row -> row[0] == null).count());
+            assertEquals(idStatistics.getMin(), rowGroupRows.stream().filter(row -> row[0] != null).mapToLong(row -> (Long) row[0]).min().getAsLong());
+            assertEquals(idStatistics.getMax(), rowGroupRows.stream().filter(row -> row[0] != null).mapToLong(row -> (Long) row[0]).max().getAsLong());
+
+            // strings are ordered as unsigned bytes
+            BinaryStatistics stringStatistics = (BinaryStatistics) rowGroup.getColumns().get(2).getStatistics();
+            assertEquals(utf8Slice(stringStatistics.getMin().toStringUsingUTF8()), rowGroupRows.stream().map(row -> (Slice) row[2]).min(Slice::compareTo).get());
+            assertEquals(utf8Slice(stringStatistics.getMax().toStringUsingUTF8()), rowGroupRows.stream().map(row -> (Slice) row[2]).max(Slice::compareTo).get());
+
+            // NaN invalidates min and max
+            Statistics<?> valueStatistics = rowGroup.getColumns().get(3).getStatistics();
+            boolean hasNaN = rowGroupRows.stream().anyMatch(row -> Double.isNaN((Double) row[3]));
+            assertEquals(valueStatistics.hasNonNullValue(), !hasNaN);
+            if (!hasNaN) {
+                assertEquals(((DoubleStatistics) valueStatistics).getMax(), rowGroupRows.stream().mapToDouble(row -> (Double) row[3]).max().getAsDouble());
+            }
+        }
+        assertEquals(rowOffset, ROWS);
+
+        assertRowsEqual(readFile(file, parquetMetadata), rows);
+    }
+
+    @Test
+    public void testEmptyFile()
+            throws IOException
+    {
+        byte[] file = writeFile(ImmutableList.of(), new ParquetWriterOptions(), CompressionCodecName.SNAPPY);
+        ParquetMetadata parquetMetadata = readFooter(file);
+        assertTrue(parquetMetadata.getBlocks().isEmpty());
+        assertEquals(parquetMetadata.getFileMetaData().getSchema().getFieldCount(), TYPES.size());
+        assertEquals(parquetMetadata.getFileMetaData().getKeyValueMetaData(), ImmutableMap.of("key", "value"));
+    }
+
+    @Test
+    public void testDictionaryDisabled()
+            throws IOException
+    {
+        List<Object[]> rows = createRows();
+        byte[] file = writeFile(rows, new ParquetWriterOptions().withDictionaryEnabled(false), CompressionCodecName.UNCOMPRESSED);
+        ParquetMetadata parquetMetadata = readFooter(file);
+        for (BlockMetaData rowGroup : parquetMetadata.getBlocks()) {
+            assertFalse(rowGroup.getColumns().get(1).getEncodings().contains(Encoding.PLAIN_DICTIONARY));
+        }
+        assertRowsEqual(readFile(file, parquetMetadata), rows);
+    }
+
+    private static List<Object[]> createRows()
+    {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Long id = i % 7 == 0 ? null : (long) i * 31 % ROWS;
+            Slice dictionaryString = i % 11 == 0 ? null : utf8Slice("value_" + (i % 5));
+            Slice string = utf8Slice((i % 3 == 0 ? "été_" : "z_") + i);
+            double value = i == 100 ? Double.NaN : i * 0.5;
+            rows.add(new Object[] {id, dictionaryString, string, value});
+        }
+        return rows;
+    }
+
+    private static byte[] writeFile(List<Object[]> rows, ParquetWriterOptions options, CompressionCodecName codec)
+            throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ParquetWriter writer = new ParquetWriter(output, COLUMN_NAMES, TYPES, options, codec, ImmutableMap.of("key", "value"));
+        for (int start = 0; start < rows.size(); start += 1000) {
+            List<Object[]> pageRows = rows.subList(start, Math.min(start + 1000, rows.size()));
+            Block[] blocks = new Block[TYPES.size()];
+            for (int channel = 0; channel < TYPES.size(); channel++) {
+                Type type = TYPES.get(channel);
+                BlockBuilder blockBuilder = type.createBlockBuilder(null, pageRows.size());
+                for (Object[] row : pageRows) {
+                    Object value = row[channel];
+                    if (value == null) {
+                        blockBuilder.appendNull();
+                    }
+                    else if (type.equals(BIGINT)) {
+                        type.writeLong(blockBuilder, (Long) value);
+                    }
+                    else if (type.equals(DOUBLE)) {
+                        type.writeDouble(blockBuilder, (Double) value);
+                    }
+                    else {
+                        type.writeSlice(blockBuilder, (Slice) value);
+                    }
+                }
+                blocks[channel] = blockBuilder.build();
+            }
+            writer.write(new Page(pageRows.size(), blocks));
+        }
+        writer.close();
+        return output.toByteArray();
+    }
+
+    private static ParquetMetadata readFooter(byte[] file)
+            throws IOException
+    {
+        assertEquals(new String(file, 0, 4, US_ASCII), "PAR1");
+        assertEquals(new String(file, file.length - 4, 4, US_ASCII), "PAR1");
+        int footerLength = (file[file.length - 8] & 0xFF) |
+                (file[file.length - 7] & 0xFF) << 8 |
+                (file[file.length - 6] & 0xFF) << 16 |
+                (file[file.length - 5] & 0xFF) << 24;
+        int footerOffset = file.length - 8 - footerLength;
+        return new ParquetMetadataConverter().readParquetMetadata(new ByteArrayInputStream(file, footerOffset, footerLength));
+    }
+
+    private static List<Object[]> readFile(byte[] file, ParquetMetadata parquetMetadata)
+            throws IOException
+    {
+        MessageType schema = parquetMetadata.getFileMetaData().getSchema();
+        MessageColumnIO messageColumnIO = getColumnIO(schema, schema);
+        List<PrimitiveField> fields = new ArrayList<>();
+        for (int i = 0; i < TYPES.size(); i++) {
+            ColumnDescriptor descriptor = schema.getColumns().get(i);
+            PrimitiveType primitiveType = schema.getType(i).asPrimitiveType();
+            fields.add(new PrimitiveField(TYPES.get(i), 0, 1, false, new RichColumnDescriptor(descriptor, primitiveType), messageColumnIO.getLeaves().get(i).getId()));
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        try (ParquetReader reader = new ParquetReader(messageColumnIO, parquetMetadata.getBlocks(), new TestingParquetDataSource(file), newSimpleAggregatedMemoryContext())) {
+            for (int batchSize = reader.nextBatch(); batchSize > 0; batchSize = reader.nextBatch()) {
+                List<Block> blocks = new ArrayList<>();
+                for (PrimitiveField field : fields) {
+                    blocks.add(reader.readBlock(field));
+                }
+                for (int position = 0; position < batchSize; position++) {
+                    Object[] row = new Object[TYPES.size()];
+                    for (int channel = 0; channel < TYPES.size(); channel++) {
+                        Block block = blocks.get(channel);
+                        Type type = TYPES.get(channel);
+                        if (block.isNull(position)) {
+                            row[channel] = null;
+                        }
+                        else if (type.equals(BIGINT)) {
+                            row[channel] = type.getLong(block, position);
+                        }
+                        else if (type.equals(DOUBLE)) {
+                            row[channel] = type.getDouble(block, position);
+                        }
+                        else {
+                            row[channel] = type.getSlice(block, position);
+                        }
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static void assertRowsEqual(List<Object[]> actual, List<Object[]> expected)
+    {
+        assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < actual.size(); i++) {
+            assertTrue(Arrays.equals(actual.get(i), expected.get(i)), "row " + i + ": " + Arrays.toString(actual.get(i)) + " != " + Arrays.toString(expected.get(i)));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+/**
+ * Aggregations a connector can compute over the rows of a split without
+ * returning the rows, for example from the statistics in file metadata.
+ */
+public enum SplitAggregationType
+{
+    /**
+     * Number of rows of the split. Does not have an argument column.
+     */
+    ROW_COUNT,
+    /**
+     * Number of non-null values of the argument column.
+     */
+    NON_NULL_COUNT,
+    /**
+     * Minimum non-null value of the argument column, or null if there is none.
+     */
+    MIN,
+    /**
+     * Maximum non-null value of the argument column, or null if there is none.
+     */
+    MAX,
+    /**
+     * Sum of the non-null values of the argument column, or null if there is none.
+     */
+    SUM,
+}
@@ -30,6 +30,7 @@ import com.facebook.presto.spi.Constraint;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.SplitAggregationType;
 import com.facebook.presto.spi.SystemTable;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.security.GrantInfo;
@@ -427,6 +428,17 @@ public interface ConnectorMetadata
         throw new PrestoException(NOT_SUPPORTED, "This connector does not support deletes");
     }
 
+    /**
+     * Returns a handle for a column whose value in a split is the given aggregation over the
+     * rows of the split, of the argument column if the aggregation has one. Scans of such columns
+     * return at most one row per split, without reading the rows if the connector can avoid it.
+     * They must not be mixed with other columns in a scan of the layout.
+     */
+    default Optional<ColumnHandle> getSplitAggregationColumnHandle(ConnectorSession session, ConnectorTableLayoutHandle tableLayoutHandle, SplitAggregationType aggregationType, Optional<ColumnHandle> argument)
+    {
+        return Optional.empty();
+    }
+
     /**
      * Delete the provided table layout
      *
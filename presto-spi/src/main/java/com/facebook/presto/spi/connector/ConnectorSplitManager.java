@@ -13,9 +13,13 @@
  */
 package com.facebook.presto.spi.connector;
 
+import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.ConnectorTableLayoutHandle;
+import com.facebook.presto.spi.predicate.TupleDomain;
+
+import java.util.function.Supplier;
 
 public interface ConnectorSplitManager
 {
@@ -25,6 +29,24 @@ public interface ConnectorSplitManager
             ConnectorTableLayoutHandle layout,
             SplitSchedulingStrategy splitSchedulingStrategy);
 
+    /**
+     * Returns the splits of the layout, as {@link #getSplits(ConnectorTransactionHandle, ConnectorSession, ConnectorTableLayoutHandle, SplitSchedulingStrategy)}.
+     * The dynamic filter describes values of the layout columns collected from the build side of joins
+     * while the query runs. It starts as {@link TupleDomain#all()} and may be narrowed at any time, so
+     * split sources that enumerate splits lazily should consult it as late as possible. Rows outside of
+     * the dynamic filter can not contribute to the query result, so splits that can only produce such rows
+     * may be skipped, but connectors are free to ignore it.
+     */
+    default ConnectorSplitSource getSplits(
+            ConnectorTransactionHandle transactionHandle,
+            ConnectorSession session,
+            ConnectorTableLayoutHandle layout,
+            SplitSchedulingStrategy splitSchedulingStrategy,
+            Supplier<TupleDomain<ColumnHandle>> dynamicFilter)
+    {
+        return getSplits(transactionHandle, session, layout, splitSchedulingStrategy);
+    }
+
     enum SplitSchedulingStrategy
     {
         UNGROUPED_SCHEDULING,
@@ -0,0 +1,41 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.function;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * A function annotated with &#64;RemoveInputFunction is the inverse of the
+ * &#64;InputFunction with the same parameters. It is used by aggregations
+ * over sliding window frames to remove the rows leaving the frame, instead of
+ * aggregating the whole frame again.
+ * <p>
+ * The function is only invoked with values previously passed to the input
+ * function. Once every value has been removed, the state is discarded, so
+ * the function does not need to restore the initial state exactly (e.g. a
+ * sum does not need to become null again).
+ * <p>
+ * Removing a value must leave exactly the state that aggregating the
+ * remaining values would produce, so aggregations that accumulate into a
+ * floating point value (e.g. {@code avg(bigint)}) must not provide it.
+ */
+@Retention(RUNTIME)
+@Target(METHOD)
+public @interface RemoveInputFunction
+{
+}
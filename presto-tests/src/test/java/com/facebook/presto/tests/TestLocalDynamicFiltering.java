@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.tests;
+
+import com.facebook.presto.testing.LocalQueryRunner;
+import com.facebook.presto.tpch.TpchConnectorFactory;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
+import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
+
+public class TestLocalDynamicFiltering
+        extends AbstractTestQueryFramework
+{
+    public TestLocalDynamicFiltering()
+    {
+        super(() -> {
+            LocalQueryRunner queryRunner = new LocalQueryRunner(testSessionBuilder()
+                    .setCatalog("tpch")
+                    .setSchema("tiny")
+                    .setSystemProperty(ENABLE_DYNAMIC_FILTERING, "true")
+                    .build());
+
+            queryRunner.createCatalog("tpch", new TpchConnectorFactory(1), ImmutableMap.of());
+
+            return queryRunner;
+        });
+    }
+
+    @Test
+    public void testInnerJoin()
+    {
+        assertQuery("SELECT count(*) FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE o.totalprice < 1000");
+        assertQuery("SELECT l.orderkey, l.linenumber FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE o.custkey = 370");
+    }
+
+    @Test
+    public void testRightJoin()
+    {
+        assertQuery("SELECT o.orderkey, l.linenumber FROM lineitem l RIGHT JOIN orders o ON l.orderkey = o.orderkey WHERE o.custkey = 370");
+    }
+
+    @Test
+    public void testProbeOuterJoinIsNotFiltered()
+    {
+        assertQuery("SELECT count(*), count(o.orderkey) FROM lineitem l LEFT JOIN orders o ON l.orderkey = o.orderkey AND o.custkey = 370");
+    }
+
+    @Test
+    public void testJoinThroughProjection()
+    {
+        assertQuery("SELECT count(*) FROM (SELECT orderkey AS k, linenumber + 1 AS n FROM lineitem) l JOIN orders o ON l.k = o.orderkey WHERE o.orderstatus = 'F' AND o.totalprice < 2000");
+    }
+
+    @Test
+    public void testStarJoin()
+    {
+        assertQuery("SELECT count(*) FROM lineitem l " +
+                "JOIN part p ON l.partkey = p.partkey " +
+                "JOIN supplier s ON l.suppkey = s.suppkey " +
+                "WHERE p.size = 1 AND s.nationkey = 3");
+    }
+
+    @Test
+    public void testVarcharKeys()
+    {
+        assertQuery("SELECT count(*) FROM orders o JOIN (SELECT DISTINCT comment FROM orders WHERE orderkey < 100) t ON o.comment = t.comment");
+    }
+
+    @Test
+    public void testEmptyBuildSide()
+    {
+        assertQuery("SELECT count(*) FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE o.custkey < 0");
+    }
+}